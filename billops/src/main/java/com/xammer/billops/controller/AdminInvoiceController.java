@@ -3,16 +3,26 @@ package com.xammer.billops.controller;
 import com.xammer.cloud.domain.Invoice;
 import com.xammer.billops.dto.DiscountRequestDto;
 import com.xammer.billops.dto.InvoiceDto;
+import com.xammer.billops.dto.InvoiceRunReport;
+import com.xammer.billops.dto.InvoiceSummaryDto;
 import com.xammer.billops.dto.InvoiceUpdateDto;
+import com.xammer.billops.service.BulkInvoiceGenerationService;
 import com.xammer.billops.service.InvoiceManagementService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/admin/invoices")
@@ -20,9 +30,12 @@ public class AdminInvoiceController {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminInvoiceController.class);
     private final InvoiceManagementService invoiceManagementService;
+    private final BulkInvoiceGenerationService bulkInvoiceGenerationService;
 
-    public AdminInvoiceController(InvoiceManagementService invoiceManagementService) {
+    public AdminInvoiceController(InvoiceManagementService invoiceManagementService,
+                                  BulkInvoiceGenerationService bulkInvoiceGenerationService) {
         this.invoiceManagementService = invoiceManagementService;
+        this.bulkInvoiceGenerationService = bulkInvoiceGenerationService;
     }
 
     @PostMapping("/generate")
@@ -37,6 +50,27 @@ public class AdminInvoiceController {
         return ResponseEntity.ok(InvoiceDto.fromEntity(draftInvoice));
     }
 
+    /**
+     * Starts (or resumes) draft invoice generation for every account of the tenant; progress is
+     * polled from GET /bulk-generate/{year}/{month}.
+     * POST /api/admin/invoices/bulk-generate  {"year": 2025, "month": 1}
+     */
+    @PostMapping("/bulk-generate")
+    public ResponseEntity<Map<String, Object>> bulkGenerateDraftInvoices(@RequestBody Map<String, Object> payload) {
+        int year = Integer.parseInt(String.valueOf(payload.get("year")));
+        int month = Integer.parseInt(String.valueOf(payload.get("month")));
+
+        bulkInvoiceGenerationService.startRun(year, month);
+        return ResponseEntity.accepted().body(Map.of("year", year, "month", month, "status", "RUNNING"));
+    }
+
+    @GetMapping("/bulk-generate/{year}/{month}")
+    public ResponseEntity<InvoiceRunReport> getBulkGenerationReport(@PathVariable int year, @PathVariable int month) {
+        return bulkInvoiceGenerationService.getReport(year, month)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Unified endpoint for Invoice List.
      * Supports "Instant Load" via caching and manual refresh.
@@ -46,19 +80,24 @@ public class AdminInvoiceController {
     public ResponseEntity<List<InvoiceDto>> getAllInvoices(@RequestParam(defaultValue = "false") boolean forceRefresh) {
         logger.debug("GET /api/admin/invoices called. ForceRefresh: {}", forceRefresh);
 
-        // 1. Try Cache (if not forced)
-        if (!forceRefresh) {
-            Optional<List<InvoiceDto>> cachedInvoices = invoiceManagementService.getCachedAllInvoices();
-            if (cachedInvoices.isPresent()) {
-                logger.debug("Returning CACHED invoice list");
-                return ResponseEntity.ok(cachedInvoices.get());
-            }
-        }
+        // Per-invoice cache entries are reused unless forced; only changed invoices are reloaded
+        return ResponseEntity.ok(invoiceManagementService.getAllInvoices(forceRefresh));
+    }
 
-        // 2. Fetch Fresh Data (if forced or cache miss)
-        logger.info("Fetching FRESH invoice list and updating cache");
-        List<InvoiceDto> freshInvoices = invoiceManagementService.getAllInvoicesAndCache();
-        return ResponseEntity.ok(freshInvoices);
+    /**
+     * Paged invoice list without line items.
+     * GET /api/admin/invoices/summaries?accountId=&status=&billingPeriod=yyyy-MM&page=0&size=50
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<Page<InvoiceSummaryDto>> getInvoiceSummaries(
+            @RequestParam(required = false) String accountId,
+            @RequestParam(required = false) Invoice.InvoiceStatus status,
+            @RequestParam(required = false) String billingPeriod,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200),
+                Sort.by(Sort.Direction.DESC, "id"));
+        return ResponseEntity.ok(invoiceManagementService.getInvoiceSummaries(accountId, status, billingPeriod, pageable));
     }
 
     @GetMapping("/{id}")
@@ -67,6 +106,32 @@ public class AdminInvoiceController {
         return ResponseEntity.ok(invoiceDto);
     }
 
+    /**
+     * GET /api/admin/invoices/{id}/pdf - streamed straight to the response.
+     */
+    @GetMapping("/{id}/pdf")
+    public void downloadInvoicePdf(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        InvoiceDto invoiceDto = invoiceManagementService.getInvoiceForAdmin(id);
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invoice-"
+                + invoiceDto.getInvoiceNumber().replaceAll("[^a-zA-Z0-9_-]", "") + ".pdf\"");
+        invoiceManagementService.writePdf(invoiceDto, response.getOutputStream());
+    }
+
+    /**
+     * Downloads the given invoices as one ZIP of PDFs, streamed as they are rendered.
+     * POST /api/admin/invoices/pdf-zip  [1, 2, 3]
+     */
+    @PostMapping("/pdf-zip")
+    public void downloadInvoicePdfZip(@RequestBody List<Long> invoiceIds, HttpServletResponse response)
+            throws IOException {
+        List<InvoiceDto> invoices = invoiceManagementService.getInvoicesForAdmin(invoiceIds);
+        logger.info("Rendering {} invoice PDFs into a ZIP", invoices.size());
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invoices.zip\"");
+        invoiceManagementService.writePdfZip(invoices, response.getOutputStream());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<InvoiceDto> updateInvoice(@PathVariable Long id, @RequestBody InvoiceUpdateDto invoiceUpdateDto) {
         Invoice updatedInvoice = invoiceManagementService.updateInvoice(id, invoiceUpdateDto);
@@ -1,6 +1,7 @@
 package com.xammer.billops.controller;
 
 import com.xammer.billops.dto.TicketDto;
+import com.xammer.billops.dto.TicketPageDto;
 import com.xammer.billops.dto.TicketReplyDto;
 import com.xammer.billops.service.TicketService;
 import com.xammer.cloud.security.ClientUserDetails;
@@ -62,6 +63,23 @@ public class TicketController {
         }
     }
 
+    @GetMapping("/tickets/page")
+    public ResponseEntity<TicketPageDto> getTicketPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean forceRefresh) {
+        try {
+            return ResponseEntity.ok(ticketService.getTicketPage(category, cursor, size, forceRefresh));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected ticket page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error fetching ticket page: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/tickets/{id}")
     public ResponseEntity<TicketDto> getTicketById(@PathVariable Long id) {
         try {
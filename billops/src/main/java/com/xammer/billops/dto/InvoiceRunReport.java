@@ -0,0 +1,46 @@
+package com.xammer.billops.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Progress and outcome of one bulk draft-invoice run for a billing period. Saved after every
+ * committed chunk, so it doubles as the checkpoint a restarted run resumes from.
+ */
+@Setter
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InvoiceRunReport {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private String runId;
+    private String billingPeriod;
+    private Status status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int attempts;
+
+    private int totalAccounts;
+    private int generated;
+    // Already invoiced for the period (by an earlier attempt or by hand)
+    private int skipped;
+    // No billable cost for the period, so no invoice was created
+    private int empty;
+    private int failed;
+    private long lineItems;
+    private long elapsedMillis;
+
+    // accountId -> error message
+    private Map<String, String> failures = new LinkedHashMap<>();
+
+    public double getAccountsPerMinute() {
+        int processed = generated + empty + failed;
+        return elapsedMillis > 0 ? processed * 60_000.0 / elapsedMillis : 0.0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.xammer.billops.dto;
+
+import com.xammer.cloud.domain.Invoice;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Admin list row for an invoice, read through a JPQL projection: totals and account/client names
+ * only, no line items or discounts.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class InvoiceSummaryDto {
+
+    private Long id;
+    private Long version;
+    private String invoiceNumber;
+    private LocalDate invoiceDate;
+    private String billingPeriod;
+    private String status;
+    private Long clientId;
+    private String clientName;
+    private Long cloudAccountId;
+    private String accountName;
+    private String awsAccountId;
+    private String gcpProjectId;
+    private String azureSubscriptionId;
+    private BigDecimal preDiscountTotal;
+    private BigDecimal discountAmount;
+    private BigDecimal taxAmount;
+    private BigDecimal amount;
+
+    public InvoiceSummaryDto(Long id, Long version, String invoiceNumber, LocalDate invoiceDate, String billingPeriod,
+                             Invoice.InvoiceStatus status, Long clientId, String clientName, Long cloudAccountId,
+                             String accountName, String awsAccountId, String gcpProjectId, String azureSubscriptionId,
+                             BigDecimal preDiscountTotal, BigDecimal discountAmount, BigDecimal taxAmount,
+                             BigDecimal amount) {
+        this.id = id;
+        this.version = version;
+        this.invoiceNumber = invoiceNumber;
+        this.invoiceDate = invoiceDate;
+        this.billingPeriod = billingPeriod;
+        this.status = status != null ? status.name() : "DRAFT";
+        this.clientId = clientId;
+        this.clientName = clientName;
+        this.cloudAccountId = cloudAccountId;
+        this.accountName = accountName;
+        this.awsAccountId = awsAccountId;
+        this.gcpProjectId = gcpProjectId;
+        this.azureSubscriptionId = azureSubscriptionId;
+        this.preDiscountTotal = preDiscountTotal;
+        this.discountAmount = discountAmount;
+        this.taxAmount = taxAmount;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,27 @@
+package com.xammer.billops.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One keyset page of tickets, newest activity first. {@code nextCursor} is passed back to fetch
+ * the following page and is null on the last page.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class TicketPageDto {
+
+    private List<TicketSummaryDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public TicketPageDto(List<TicketSummaryDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.xammer.billops.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * List-view row for a ticket: the ticket columns plus a reply count, read through a JPQL
+ * projection so neither the replies nor their authors are loaded.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class TicketSummaryDto {
+
+    private Long id;
+    private String subject;
+    private String description;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long clientId;
+    private Long creatorId;
+    private String category;
+    private String service;
+    private String severity;
+    private String accountId;
+    private String region;
+    private long replyCount;
+
+    public TicketSummaryDto(Long id, String subject, String description, String status, LocalDateTime createdAt,
+                            LocalDateTime updatedAt, Long clientId, Long creatorId, String category, String service,
+                            String severity, String accountId, String region, long replyCount) {
+        this.id = id;
+        this.subject = subject;
+        this.description = description;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.clientId = clientId;
+        this.creatorId = creatorId;
+        this.category = category;
+        this.service = service;
+        this.severity = severity;
+        this.accountId = accountId;
+        this.region = region;
+        this.replyCount = replyCount;
+    }
+}
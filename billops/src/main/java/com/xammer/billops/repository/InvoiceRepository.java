@@ -1,9 +1,16 @@
 package com.xammer.billops.repository;
 
+import com.xammer.billops.dto.InvoiceSummaryDto;
 import com.xammer.cloud.domain.Invoice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List; // MODIFIED: Import List
 import java.util.Optional;
 
@@ -12,4 +19,45 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     // --- FIX: Changed return type from Optional<Invoice> to List<Invoice> ---
     List<Invoice> findByCloudAccountIdAndBillingPeriodAndStatus(Long cloudAccountId, String billingPeriod, Invoice.InvoiceStatus status);
     // --- END FIX ---
-}
\ No newline at end of file
+
+    /**
+     * Id and version of every invoice; enough to look up cached InvoiceDtos without loading rows.
+     */
+    @Query("SELECT i.id AS id, i.version AS version FROM Invoice i ORDER BY i.id")
+    List<InvoiceVersion> findAllVersions();
+
+    @Query("SELECT i.version FROM Invoice i WHERE i.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Invoices with account, client and line items in one query; discounts follow in batches
+     * (two bags cannot be join-fetched together).
+     */
+    @EntityGraph(attributePaths = {"cloudAccount", "client", "lineItems"})
+    @Query("SELECT DISTINCT i FROM Invoice i WHERE i.id IN :ids")
+    List<Invoice> findAllForDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT new com.xammer.billops.dto.InvoiceSummaryDto(i.id, i.version, i.invoiceNumber,"
+            + " i.invoiceDate, i.billingPeriod, i.status, c.id, c.name, a.id, a.accountName, a.awsAccountId,"
+            + " a.gcpProjectId, a.azureSubscriptionId, i.preDiscountTotal, i.discountAmount, i.taxAmount, i.amount)"
+            + " FROM Invoice i LEFT JOIN i.client c LEFT JOIN i.cloudAccount a"
+            + " WHERE (:accountId IS NULL OR a.awsAccountId = :accountId OR a.gcpProjectId = :accountId"
+            + " OR a.azureSubscriptionId = :accountId)"
+            + " AND (:status IS NULL OR i.status = :status)"
+            + " AND (:billingPeriod IS NULL OR i.billingPeriod = :billingPeriod)",
+            countQuery = "SELECT COUNT(i) FROM Invoice i LEFT JOIN i.cloudAccount a"
+                    + " WHERE (:accountId IS NULL OR a.awsAccountId = :accountId OR a.gcpProjectId = :accountId"
+                    + " OR a.azureSubscriptionId = :accountId)"
+                    + " AND (:status IS NULL OR i.status = :status)"
+                    + " AND (:billingPeriod IS NULL OR i.billingPeriod = :billingPeriod)")
+    Page<InvoiceSummaryDto> findSummaries(@Param("accountId") String accountId,
+                                          @Param("status") Invoice.InvoiceStatus status,
+                                          @Param("billingPeriod") String billingPeriod,
+                                          Pageable pageable);
+
+    interface InvoiceVersion {
+        Long getId();
+
+        Long getVersion();
+    }
+}
@@ -1,9 +1,12 @@
 package com.xammer.billops.repository;
 
+import com.xammer.billops.dto.TicketSummaryDto;
 import com.xammer.cloud.domain.Ticket;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query; // <-- IMPORT
 import org.springframework.data.repository.query.Param; // <-- IMPORT
+import java.time.LocalDateTime;
 import java.util.List; // <-- IMPORT
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
@@ -19,4 +22,23 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     // --- ADD THIS (Fixes Lazy Loading for getTicketById) ---
     @Query("SELECT t FROM Ticket t LEFT JOIN FETCH t.replies r LEFT JOIN FETCH r.author WHERE t.id = :id")
     Ticket findByIdWithRepliesAndAuthors(@Param("id") Long id);
-}
\ No newline at end of file
+
+    // --- Keyset-paged summaries for list views: newest activity first, no replies loaded ---
+    String SUMMARY_SELECT = "SELECT new com.xammer.billops.dto.TicketSummaryDto(t.id, t.subject, t.description,"
+            + " t.status, t.createdAt, t.updatedAt, t.client.id, cr.id, t.category, t.service, t.severity,"
+            + " t.accountId, t.region, (SELECT COUNT(r) FROM TicketReply r WHERE r.ticket = t))"
+            + " FROM Ticket t LEFT JOIN t.creator cr";
+    String AFTER_CURSOR = "(t.updatedAt < :updatedAt OR (t.updatedAt = :updatedAt AND t.id < :id))";
+    String NEWEST_FIRST = " ORDER BY t.updatedAt DESC, t.id DESC";
+
+    @Query(SUMMARY_SELECT + " WHERE " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TicketSummaryDto> findSummariesAfter(@Param("updatedAt") LocalDateTime updatedAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE t.category = :category AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TicketSummaryDto> findSummariesByCategoryAfter(@Param("category") String category,
+                                                        @Param("updatedAt") LocalDateTime updatedAt,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
+}
@@ -0,0 +1,361 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.config.multitenancy.TenantContext;
+import com.xammer.billops.domain.CloudAccount;
+import com.xammer.billops.dto.InvoiceRunReport;
+import com.xammer.billops.dto.ServiceCostDetailDto;
+import com.xammer.billops.repository.CloudAccountRepository;
+import com.xammer.cloud.domain.Invoice;
+import com.xammer.cloud.domain.InvoiceLineItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Month-end draft invoice generation for every connected account of the current tenant.
+ *
+ * Cost reports are prefetched concurrently on a bounded pool, invoices and line items are built
+ * in memory and written with JDBC batch inserts, one transaction per chunk of accounts. The run
+ * report in Redis is updated after each committed chunk; a restarted run skips every account that
+ * already has a non-void invoice for the period, so re-running a period never duplicates invoices.
+ */
+@Service
+public class BulkInvoiceGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkInvoiceGenerationService.class);
+
+    private static final String RUN_REPORT_PREFIX = "billops:invoice-runs:";
+    private static final long RUN_REPORT_TTL_MINUTES = 60L * 24 * 30;
+
+    private static final String INSERT_INVOICE = "INSERT INTO invoice (invoice_number, invoice_date, billing_period,"
+            + " status, pre_discount_total, discount_amount, tax_amount, amount, cloud_account_id, client_id, version)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_LINE_ITEM = "INSERT INTO invoice_line_item (service_name, region_name,"
+            + " resource_name, usage_quantity, unit, cost, hidden, invoice_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final InvoiceManagementService invoiceManagementService;
+    private final CloudAccountRepository cloudAccountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisCacheService redisCache;
+
+    private final ThreadPoolExecutor fetchPool;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invoice-run");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, CompletableFuture<InvoiceRunReport>> activeRuns = new ConcurrentHashMap<>();
+
+    @Value("${billops.invoice.bulk.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${billops.invoice.bulk.line-item-batch-size:500}")
+    private int lineItemBatchSize;
+
+    public BulkInvoiceGenerationService(InvoiceManagementService invoiceManagementService,
+                                        CloudAccountRepository cloudAccountRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        RedisCacheService redisCache,
+                                        @Value("${billops.invoice.bulk.fetch-threads:8}") int fetchThreads) {
+        this.invoiceManagementService = invoiceManagementService;
+        this.cloudAccountRepository = cloudAccountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.redisCache = redisCache;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fetchPool = new ThreadPoolExecutor(fetchThreads, fetchThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(fetchThreads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-cost-fetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Month-end run for the previous month; disabled unless {@code billops.invoice.bulk.cron} is set.
+     */
+    @Scheduled(cron = "${billops.invoice.bulk.cron:-}")
+    public void generatePreviousMonth() {
+        YearMonth previous = YearMonth.now().minusMonths(1);
+        startRun(previous.getYear(), previous.getMonthValue()).join();
+    }
+
+    /**
+     * Starts (or resumes) the run for a period in the background. If the period is already being
+     * generated on this instance, the running job is returned instead of a second one.
+     */
+    public CompletableFuture<InvoiceRunReport> startRun(int year, int month) {
+        String billingPeriod = YearMonth.of(year, month).format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        String tenantId = TenantContext.getCurrentTenant();
+        String reportKey = reportKey(tenantId, billingPeriod);
+
+        return activeRuns.computeIfAbsent(reportKey, key -> {
+            CompletableFuture<InvoiceRunReport> run = CompletableFuture.supplyAsync(
+                    () -> withTenant(tenantId, () -> run(reportKey, billingPeriod, year, month)), runner);
+            run.whenComplete((report, error) -> activeRuns.remove(key));
+            return run;
+        });
+    }
+
+    public Optional<InvoiceRunReport> getReport(int year, int month) {
+        String billingPeriod = YearMonth.of(year, month).format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        return redisCache.get(reportKey(TenantContext.getCurrentTenant(), billingPeriod), InvoiceRunReport.class);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        fetchPool.shutdownNow();
+    }
+
+    private InvoiceRunReport run(String reportKey, String billingPeriod, int year, int month) {
+        // A report left RUNNING by a crashed instance is picked up and continued
+        InvoiceRunReport report = redisCache.get(reportKey, InvoiceRunReport.class)
+                .filter(previous -> previous.getStatus() != InvoiceRunReport.Status.COMPLETED)
+                .orElseGet(() -> newReport(billingPeriod));
+        report.setStatus(InvoiceRunReport.Status.RUNNING);
+        report.setAttempts(report.getAttempts() + 1);
+        long startedAt = System.currentTimeMillis() - report.getElapsedMillis();
+
+        try {
+            List<CloudAccount> accounts = cloudAccountRepository.findAll().stream()
+                    .filter(account -> !"PENDING".equals(account.getStatus()) && !"FAILED".equals(account.getStatus()))
+                    .collect(Collectors.toList());
+            Set<Long> invoiced = findInvoicedAccountIds(billingPeriod);
+            List<CloudAccount> pending = accounts.stream()
+                    .filter(account -> !invoiced.contains(account.getId()))
+                    .collect(Collectors.toList());
+
+            report.setTotalAccounts(accounts.size());
+            // Invoices committed by an earlier attempt stay counted as generated; empty and failed
+            // accounts have no invoice, so they are retried and recounted
+            report.setSkipped(Math.max(accounts.size() - pending.size() - report.getGenerated(), 0));
+            report.setEmpty(0);
+            report.setFailed(0);
+            report.getFailures().clear();
+            logger.info("Invoice run {} (attempt {}): {} accounts, {} already invoiced, {} to generate",
+                    billingPeriod, report.getAttempts(), accounts.size(), invoiced.size(), pending.size());
+            saveReport(reportKey, report);
+
+            String tenantId = TenantContext.getCurrentTenant();
+            List<List<CloudAccount>> chunks = partition(pending, Math.max(chunkSize, 1));
+            // The next chunk's cost reports are fetched while the current one is written
+            CompletableFuture<List<DraftResult>> next = chunks.isEmpty() ? null
+                    : prefetch(chunks.get(0), tenantId, year, month);
+            for (int i = 0; i < chunks.size(); i++) {
+                List<DraftResult> drafts = next.join();
+                next = i + 1 < chunks.size() ? prefetch(chunks.get(i + 1), tenantId, year, month) : null;
+
+                persistChunk(drafts, report);
+                report.setElapsedMillis(System.currentTimeMillis() - startedAt);
+                saveReport(reportKey, report);
+            }
+
+            report.setStatus(InvoiceRunReport.Status.COMPLETED);
+        } catch (RuntimeException e) {
+            logger.error("Invoice run {} failed; it resumes from the last committed chunk when restarted",
+                    billingPeriod, e);
+            report.setStatus(InvoiceRunReport.Status.FAILED);
+        }
+
+        report.setFinishedAt(LocalDateTime.now());
+        report.setElapsedMillis(System.currentTimeMillis() - startedAt);
+        saveReport(reportKey, report);
+        logger.info("Invoice run {} {}: {} generated, {} skipped, {} empty, {} failed, {} line items, {} accounts/min",
+                billingPeriod, report.getStatus(), report.getGenerated(), report.getSkipped(), report.getEmpty(),
+                report.getFailed(), report.getLineItems(), String.format("%.1f", report.getAccountsPerMinute()));
+        return report;
+    }
+
+    private CompletableFuture<List<DraftResult>> prefetch(List<CloudAccount> chunk, String tenantId, int year,
+                                                         int month) {
+        List<CompletableFuture<DraftResult>> drafts = chunk.stream()
+                .map(account -> CompletableFuture.supplyAsync(
+                        () -> withTenant(tenantId, () -> buildDraft(account, year, month)), fetchPool))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(drafts.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> drafts.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    private DraftResult buildDraft(CloudAccount account, int year, int month) {
+        String accountId = providerAccountId(account);
+        try {
+            List<ServiceCostDetailDto> report = invoiceManagementService.fetchDetailedReport(account, accountId,
+                    year, month);
+            return new DraftResult(accountId, invoiceManagementService.buildDraftInvoice(account, report, year, month),
+                    null);
+        } catch (Exception e) {
+            logger.warn("Cost fetch failed for account {}: {}", accountId, e.getMessage());
+            return new DraftResult(accountId, null, e.getMessage() != null ? e.getMessage()
+                    : e.getClass().getSimpleName());
+        }
+    }
+
+    private void persistChunk(List<DraftResult> drafts, InvoiceRunReport report) {
+        List<Invoice> invoices = new ArrayList<>();
+        for (DraftResult draft : drafts) {
+            if (draft.error != null) {
+                report.setFailed(report.getFailed() + 1);
+                report.getFailures().put(draft.accountId, draft.error);
+            } else if (draft.invoice.getLineItems().isEmpty()) {
+                report.setEmpty(report.getEmpty() + 1);
+            } else {
+                invoices.add(draft.invoice);
+            }
+        }
+        if (invoices.isEmpty()) {
+            return;
+        }
+
+        long lineItems = transactionTemplate.execute(status -> insertInvoices(invoices));
+        report.setGenerated(report.getGenerated() + invoices.size());
+        report.setLineItems(report.getLineItems() + lineItems);
+    }
+
+    private long insertInvoices(List<Invoice> invoices) {
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            List<Long> generatedIds = new ArrayList<>(invoices.size());
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_INVOICE, new String[]{"id"})) {
+                for (Invoice invoice : invoices) {
+                    ps.setString(1, invoice.getInvoiceNumber());
+                    ps.setDate(2, Date.valueOf(invoice.getInvoiceDate()));
+                    ps.setString(3, invoice.getBillingPeriod());
+                    ps.setString(4, invoice.getStatus().name());
+                    ps.setBigDecimal(5, invoice.getPreDiscountTotal());
+                    ps.setBigDecimal(6, invoice.getDiscountAmount());
+                    ps.setBigDecimal(7, invoice.getTaxAmount());
+                    ps.setBigDecimal(8, invoice.getAmount());
+                    ps.setLong(9, invoice.getCloudAccount().getId());
+                    ps.setLong(10, invoice.getClient().getId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generatedIds.add(keys.getLong(1));
+                    }
+                }
+            }
+            return generatedIds;
+        });
+        if (ids == null || ids.size() != invoices.size()) {
+            throw new IllegalStateException("Expected " + invoices.size() + " generated invoice ids, got "
+                    + (ids == null ? 0 : ids.size()));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < invoices.size(); i++) {
+            for (InvoiceLineItem item : invoices.get(i).getLineItems()) {
+                rows.add(new Object[]{item.getServiceName(), item.getRegionName(), item.getResourceName(),
+                        item.getUsageQuantity(), item.getUnit(), item.getCost(), item.isHidden(), ids.get(i)});
+            }
+        }
+        for (List<Object[]> batch : partition(rows, Math.max(lineItemBatchSize, 1))) {
+            jdbcTemplate.batchUpdate(INSERT_LINE_ITEM, batch);
+        }
+        return rows.size();
+    }
+
+    private Set<Long> findInvoicedAccountIds(String billingPeriod) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT cloud_account_id FROM invoice WHERE billing_period = ? AND status <> 'VOID'",
+                Long.class, billingPeriod));
+    }
+
+    private InvoiceRunReport newReport(String billingPeriod) {
+        InvoiceRunReport report = new InvoiceRunReport();
+        report.setRunId(UUID.randomUUID().toString());
+        report.setBillingPeriod(billingPeriod);
+        report.setStartedAt(LocalDateTime.now());
+        return report;
+    }
+
+    private void saveReport(String reportKey, InvoiceRunReport report) {
+        redisCache.put(reportKey, report, RUN_REPORT_TTL_MINUTES);
+    }
+
+    private static String reportKey(String tenantId, String billingPeriod) {
+        return RUN_REPORT_PREFIX + (tenantId != null ? tenantId : "default") + ":" + billingPeriod;
+    }
+
+    private static String providerAccountId(CloudAccount account) {
+        if ("GCP".equals(account.getProvider())) {
+            return account.getGcpProjectId();
+        }
+        if ("Azure".equals(account.getProvider())) {
+            return account.getAzureSubscriptionId();
+        }
+        return account.getAwsAccountId();
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+
+    // Pool threads outlive requests, so the tenant is carried explicitly rather than inherited
+    private static <T> T withTenant(String tenantId, Supplier<T> work) {
+        String previous = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                TenantContext.setCurrentTenant(previous);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private static final class DraftResult {
+        private final String accountId;
+        private final Invoice invoice;
+        private final String error;
+
+        private DraftResult(String accountId, Invoice invoice, String error) {
+            this.accountId = accountId;
+            this.invoice = invoice;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.service.CloudFrontUsageService.CloudFrontUsageDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming parser for CloudFront rows of an AWS Cost and Usage Report CSV.
+ *
+ * The file is split into byte ranges aligned on line starts and the ranges are parsed in parallel.
+ * Each range scans raw bytes, tokenizes only the columns it needs, and folds CloudFront rows into
+ * its own (region, usage type, unit) totals; the totals are merged at the end, so no raw rows are
+ * held. Rows are assumed not to contain line breaks inside quoted fields, which CUR exports do not.
+ */
+final class CloudFrontCurParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudFrontCurParser.class);
+
+    // Column names differ between CUR versions (lineItem/ProductCode vs line_item_product_code)
+    private static final String[] PRODUCT_CODE_COLUMNS = { "lineItem/ProductCode", "line_item_product_code",
+            "product_servicecode" };
+    private static final String[] USAGE_TYPE_COLUMNS = { "lineItem/UsageType", "line_item_usage_type" };
+    private static final String[] USAGE_AMOUNT_COLUMNS = { "lineItem/UsageAmount", "line_item_usage_amount" };
+    private static final String[] COST_COLUMNS = { "lineItem/UnblendedCost", "line_item_unblended_cost" };
+    private static final String[] REGION_COLUMNS = { "product/region", "product_region", "product.2.2" };
+    private static final String[] UNIT_COLUMNS = { "pricing/unit", "pricing_unit" };
+
+    private static final byte[][] CLOUDFRONT_PRODUCT_CODES = {
+            "AmazonCloudFront".getBytes(StandardCharsets.US_ASCII),
+            "Amazon CloudFront".getBytes(StandardCharsets.US_ASCII) };
+    // Some exports pack product attributes into one field: "product_name:...,region:af-south-1,..."
+    private static final Pattern REGION_TAG = Pattern.compile("region:([a-z0-9-]+)");
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private final Executor executor;
+    private final long chunkBytes;
+
+    CloudFrontCurParser(Executor executor, long chunkBytes) {
+        this.executor = executor;
+        this.chunkBytes = Math.max(chunkBytes, READ_BUFFER_BYTES);
+    }
+
+    /**
+     * CloudFront usage of the report, one entry per region, usage type and unit.
+     */
+    List<CloudFrontUsageDto> parse(Path csv) throws IOException {
+        long started = System.currentTimeMillis();
+        Columns columns;
+        List<long[]> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = lineEnd(channel, 0, size);
+            if (dataStart == 0) {
+                throw new RuntimeException("CSV file is empty or header row is missing.");
+            }
+            columns = Columns.resolve(readHeader(channel, dataStart));
+
+            long from = dataStart;
+            while (from < size) {
+                long to = from + chunkBytes >= size ? size : nextLineStart(channel, from + chunkBytes);
+                ranges.add(new long[] { from, to });
+                from = to;
+            }
+        }
+
+        List<CompletableFuture<RangeTotals>> parts = ranges.stream()
+                .map(range -> CompletableFuture.supplyAsync(() -> parseRange(csv, range[0], range[1], columns),
+                        executor))
+                .collect(Collectors.toList());
+
+        Map<UsageKey, double[]> totals = new HashMap<>();
+        long rows = 0;
+        long cloudFrontRows = 0;
+        long malformedRows = 0;
+        try {
+            for (CompletableFuture<RangeTotals> part : parts) {
+                RangeTotals range = part.join();
+                rows += range.rows;
+                cloudFrontRows += range.cloudFrontRows;
+                malformedRows += range.malformedRows;
+                range.totals.forEach((key, value) -> totals.merge(key, value, (a, b) -> {
+                    a[0] += b[0];
+                    a[1] += b[1];
+                    return a;
+                }));
+            }
+        } catch (CompletionException e) {
+            parts.forEach(part -> part.cancel(true));
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+
+        if (malformedRows > 0) {
+            logger.warn("Skipped {} malformed CloudFront rows", malformedRows);
+        }
+        logger.info("Parsed {} CUR rows in {} ranges ({} CloudFront) into {} usage lines in {} ms", rows,
+                ranges.size(), cloudFrontRows, totals.size(), System.currentTimeMillis() - started);
+
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(UsageKey.ORDER))
+                .map(e -> new CloudFrontUsageDto(e.getKey().region, e.getKey().usageType, e.getValue()[0],
+                        e.getKey().unit, e.getValue()[1]))
+                .collect(Collectors.toList());
+    }
+
+    private static RangeTotals parseRange(Path csv, long start, long end, Columns columns) {
+        RangeTotals totals = new RangeTotals();
+        Tokenizer tokenizer = new Tokenizer(columns.width);
+        byte[] carry = new byte[4096];
+        int carryLength = 0;
+
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_BYTES, Math.max(end - start, 1)));
+            byte[] bytes = buffer.array();
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+
+                int lineFrom = 0;
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+                    if (carryLength > 0) {
+                        carry = append(carry, carryLength, bytes, lineFrom, i - lineFrom);
+                        carryLength += i - lineFrom;
+                        acceptRow(carry, 0, carryLength, tokenizer, columns, totals);
+                        carryLength = 0;
+                    } else {
+                        acceptRow(bytes, lineFrom, i, tokenizer, columns, totals);
+                    }
+                    lineFrom = i + 1;
+                }
+                // A line cut by the buffer edge is finished on the next read
+                if (lineFrom < read) {
+                    carry = append(carry, carryLength, bytes, lineFrom, read - lineFrom);
+                    carryLength += read - lineFrom;
+                }
+            }
+            if (carryLength > 0) {
+                acceptRow(carry, 0, carryLength, tokenizer, columns, totals);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return totals;
+    }
+
+    private static void acceptRow(byte[] line, int from, int to, Tokenizer tokenizer, Columns columns,
+                                  RangeTotals totals) {
+        if (to > from && line[to - 1] == '\r') {
+            to--;
+        }
+        if (to == from) {
+            return;
+        }
+        totals.rows++;
+
+        int found = tokenizer.tokenize(line, from, to);
+        if (found <= columns.productCode || !isCloudFront(line, tokenizer, columns.productCode)) {
+            return;
+        }
+        totals.cloudFrontRows++;
+        if (found <= columns.requiredWidth) {
+            totals.malformedRows++;
+            return;
+        }
+
+        try {
+            String usageType = tokenizer.string(line, columns.usageType);
+            double quantity = tokenizer.number(line, columns.usageAmount);
+            double cost = tokenizer.number(line, columns.cost);
+
+            String region = "Global";
+            if (columns.region != -1 && found > columns.region) {
+                String rawRegion = tokenizer.string(line, columns.region);
+                if (rawRegion.contains("region:")) {
+                    Matcher m = REGION_TAG.matcher(rawRegion);
+                    if (m.find()) {
+                        region = m.group(1);
+                    }
+                } else if (!rawRegion.isBlank()) {
+                    region = rawRegion;
+                }
+            }
+
+            String unit;
+            if (columns.unit != -1 && found > columns.unit && !tokenizer.isEmpty(columns.unit)) {
+                unit = tokenizer.string(line, columns.unit);
+            } else {
+                unit = usageType.contains("Requests") ? "Requests" : "GB";
+            }
+
+            // Zero-cost rows (free tier) are kept; pure credits are not
+            if (cost >= 0 || quantity > 0) {
+                double[] total = totals.totals.computeIfAbsent(new UsageKey(region, usageType, unit),
+                        key -> new double[2]);
+                total[0] += quantity;
+                total[1] += cost;
+            }
+        } catch (NumberFormatException e) {
+            totals.malformedRows++;
+        }
+    }
+
+    private static boolean isCloudFront(byte[] line, Tokenizer tokenizer, int column) {
+        int start = tokenizer.starts[column];
+        int length = tokenizer.ends[column] - start;
+        for (byte[] code : CLOUDFRONT_PRODUCT_CODES) {
+            if (length == code.length && equalsIgnoreCaseAscii(line, start, code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equalsIgnoreCaseAscii(byte[] line, int start, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            int a = line[start + i];
+            int b = expected[i];
+            if (a != b && (a | 0x20) != (b | 0x20)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] readHeader(FileChannel channel, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        channel.read(buffer, 0);
+        byte[] bytes = buffer.array();
+        int to = bytes.length;
+        while (to > 0 && (bytes[to - 1] == '\n' || bytes[to - 1] == '\r')) {
+            to--;
+        }
+
+        Tokenizer tokenizer = new Tokenizer(Integer.MAX_VALUE);
+        int count = tokenizer.tokenize(bytes, 0, to);
+        if (count <= 0) {
+            throw new RuntimeException("CSV file is empty or header row is missing.");
+        }
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            // Clean up potential BOM or whitespace
+            names[i] = tokenizer.string(bytes, i).trim().replaceAll("^\\uFEFF", "");
+        }
+        return names;
+    }
+
+    /**
+     * Offset of the first line starting at or after {@code from}, or the file size if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        return from >= size ? size : lineEnd(channel, from - 1, size);
+    }
+
+    // Offset just past the first '\n' at or after position
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static byte[] append(byte[] target, int length, byte[] source, int from, int count) {
+        if (length + count > target.length) {
+            target = Arrays.copyOf(target, Math.max(target.length * 2, length + count));
+        }
+        System.arraycopy(source, from, target, length, count);
+        return target;
+    }
+
+    /**
+     * Column positions of the fields the parser reads.
+     */
+    private static final class Columns {
+        private final int productCode;
+        private final int usageType;
+        private final int usageAmount;
+        private final int cost;
+        private final int region;
+        private final int unit;
+        // Highest required index; rows with no more fields than this are malformed
+        private final int requiredWidth;
+        // Fields past the last one we read are not tokenized
+        private final int width;
+
+        private Columns(int productCode, int usageType, int usageAmount, int cost, int region, int unit) {
+            this.productCode = productCode;
+            this.usageType = usageType;
+            this.usageAmount = usageAmount;
+            this.cost = cost;
+            this.region = region;
+            this.unit = unit;
+            this.requiredWidth = Math.max(Math.max(productCode, usageType), Math.max(usageAmount, cost));
+            this.width = Math.max(requiredWidth, Math.max(region, unit)) + 1;
+        }
+
+        static Columns resolve(String[] headers) {
+            Map<String, Integer> headerMap = new HashMap<>();
+            for (int i = 0; i < headers.length; i++) {
+                headerMap.put(headers[i], i);
+            }
+            int productCode = find(headerMap, PRODUCT_CODE_COLUMNS);
+            int usageType = find(headerMap, USAGE_TYPE_COLUMNS);
+            int usageAmount = find(headerMap, USAGE_AMOUNT_COLUMNS);
+            int cost = find(headerMap, COST_COLUMNS);
+            if (productCode == -1 || usageType == -1 || usageAmount == -1 || cost == -1) {
+                logger.error("Missing required columns. Headers found: {}", headerMap.keySet());
+                throw new RuntimeException(
+                        "Invalid CUR file format. Missing standard columns (e.g., lineItem/ProductCode or line_item_product_code)");
+            }
+            return new Columns(productCode, usageType, usageAmount, cost, find(headerMap, REGION_COLUMNS),
+                    find(headerMap, UNIT_COLUMNS));
+        }
+
+        private static int find(Map<String, Integer> headerMap, String[] candidates) {
+            for (String candidate : candidates) {
+                Integer index = headerMap.get(candidate);
+                if (index != null) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Splits one CSV line into field offsets without copying; quotes are honoured and strings are
+     * only materialised for the fields that are read.
+     */
+    private static final class Tokenizer {
+        private final int width;
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private boolean[] escaped = new boolean[64];
+
+        Tokenizer(int width) {
+            this.width = width;
+        }
+
+        /**
+         * Number of fields found (at most {@code width}), or -1 if a quote is never closed.
+         */
+        int tokenize(byte[] line, int from, int to) {
+            int column = 0;
+            int i = from;
+            while (column < width) {
+                ensureCapacity(column);
+                boolean hasEscapes = false;
+                int fieldStart;
+                int fieldEnd;
+                if (i < to && line[i] == '"') {
+                    fieldStart = ++i;
+                    while (true) {
+                        if (i >= to) {
+                            return -1;
+                        }
+                        if (line[i] == '"') {
+                            if (i + 1 < to && line[i + 1] == '"') {
+                                hasEscapes = true;
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    fieldEnd = i++;
+                    while (i < to && line[i] != ',') {
+                        i++;
+                    }
+                } else {
+                    fieldStart = i;
+                    while (i < to && line[i] != ',') {
+                        i++;
+                    }
+                    fieldEnd = i;
+                }
+                starts[column] = fieldStart;
+                ends[column] = fieldEnd;
+                escaped[column] = hasEscapes;
+                column++;
+                if (i >= to) {
+                    break;
+                }
+                i++;
+            }
+            return column;
+        }
+
+        boolean isEmpty(int column) {
+            return ends[column] == starts[column];
+        }
+
+        String string(byte[] line, int column) {
+            String value = new String(line, starts[column], ends[column] - starts[column], StandardCharsets.UTF_8);
+            return escaped[column] ? value.replace("\"\"", "\"") : value;
+        }
+
+        double number(byte[] line, int column) {
+            return isEmpty(column) ? 0.0
+                    : Double.parseDouble(new String(line, starts[column], ends[column] - starts[column],
+                            StandardCharsets.ISO_8859_1));
+        }
+
+        private void ensureCapacity(int column) {
+            if (column >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                ends = Arrays.copyOf(ends, ends.length * 2);
+                escaped = Arrays.copyOf(escaped, escaped.length * 2);
+            }
+        }
+    }
+
+    private static final class RangeTotals {
+        private final Map<UsageKey, double[]> totals = new HashMap<>();
+        private long rows;
+        private long cloudFrontRows;
+        private long malformedRows;
+    }
+
+    private static final class UsageKey {
+        private static final Comparator<UsageKey> ORDER = Comparator
+                .comparing((UsageKey key) -> key.region)
+                .thenComparing(key -> key.usageType)
+                .thenComparing(key -> key.unit);
+
+        private final String region;
+        private final String usageType;
+        private final String unit;
+
+        private UsageKey(String region, String usageType, String unit) {
+            this.region = region;
+            this.usageType = usageType;
+            this.unit = unit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof UsageKey)) return false;
+            UsageKey other = (UsageKey) o;
+            return region.equals(other.region) && usageType.equals(other.usageType) && unit.equals(other.unit);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(region, usageType, unit);
+        }
+    }
+}
@@ -2,30 +2,29 @@ package com.xammer.billops.service;
 
 import com.xammer.billops.domain.CloudAccount;
 import com.xammer.billops.repository.CloudAccountRepository;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.services.costexplorer.CostExplorerClient;
 import software.amazon.awssdk.services.costexplorer.model.*;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,10 +35,56 @@ public class CloudFrontUsageService {
     private final CloudAccountRepository cloudAccountRepository;
     private static final Logger logger = LoggerFactory.getLogger(CloudFrontUsageService.class);
 
+    // PDF bill patterns, compiled once rather than per line
+    private static final Pattern PDF_REGION_LINE = Pattern.compile(
+            "^(Africa \\(Cape Town\\)|Asia Pacific \\((Mumbai|Singapore|Sydney|Tokyo|Hong Kong|Seoul)\\)|" +
+                    "Canada \\(Central\\)|EU \\(Ireland\\)|Middle East \\(Bahrain\\)|" +
+                    "South America \\(Sao Paulo\\)|US East \\(N\\. Virginia\\)|US West \\(Oregon\\)|Global)$");
+    private static final Pattern PDF_SERVICE_LINE = Pattern
+            .compile("^(?:Amazon CloudFront )?([A-Z]{2}-[A-Za-z-]+|Bandwidth|Invalidations?)");
+    // Matches lines like "693.163 GB USD 5.65"
+    private static final Pattern PDF_COST_LINE = Pattern
+            .compile("([0-9,]+(?:\\.[0-9]+)?)\\s+(GB|Requests|URL)\\s+USD\\s+([0-9,]+\\.[0-9]{2})");
+    // "HTTP or HTTPS GET Request Additional Charges" is deliberately not a region: it is a usage line item
+    private static final Pattern DISTRIBUTOR_REGION_LINE = Pattern.compile(
+            "^(Africa \\(Cape Town\\)|Asia Pacific \\((Mumbai|Singapore|Sydney|Tokyo|Hong Kong|Seoul)\\)|" +
+                    "Canada \\(Central\\)|EU \\(Ireland\\)|Middle East \\(Bahrain\\)|" +
+                    "South America \\(Sao Paulo\\)|US East \\(N\\. Virginia\\)|US West \\(Oregon\\)|" +
+                    "Global)");
+    private static final Pattern DISTRIBUTOR_COST = Pattern.compile("\\$([0-9,]+\\.[0-9]{2})$");
+    private static final Pattern DISTRIBUTOR_QUANTITY = Pattern
+            .compile("([0-9,]+\\.?[0-9]*)\\s+(GB|Requests|URL|Bytes|-)\\s+\\$");
+    private static final Pattern DISTRIBUTOR_PREVIOUS_QUANTITY = Pattern
+            .compile("([0-9,]+\\.?[0-9]*)\\s+(GB|Requests|URL|Bytes|-)$");
+    private static final Pattern TRAILING_PRICE = Pattern.compile("\\$\\s*[0-9.]+.*");
+    private static final Pattern CONTAINS_DIGITS = Pattern.compile(".*[0-9,]+.*");
+
+    private final ThreadPoolExecutor parsePool;
+    private final CloudFrontCurParser curParser;
+
     public CloudFrontUsageService(AwsClientProvider awsClientProvider,
-            CloudAccountRepository cloudAccountRepository) {
+            CloudAccountRepository cloudAccountRepository,
+            @Value("${billops.cloudfront.cur.parse-threads:4}") int parseThreads,
+            @Value("${billops.cloudfront.cur.chunk-mb:64}") int chunkMb) {
         this.awsClientProvider = awsClientProvider;
         this.cloudAccountRepository = cloudAccountRepository;
+
+        int threads = Math.max(1, parseThreads);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.parsePool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cur-parse-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.curParser = new CloudFrontCurParser(parsePool, chunkMb * 1024L * 1024L);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsePool.shutdownNow();
     }
 
     /**
@@ -98,154 +143,34 @@ public class CloudFrontUsageService {
 
     /**
      * Method 2: Parses usage from an uploaded AWS Cost and Usage Report (CUR) CSV
-     * file.
-     * UPDATED: Supports both standard AWS keys (lineItem/ProductCode) and
-     * snake_case keys (line_item_product_code).
+     * file, one entry per region, usage type and unit.
+     * Supports both standard AWS keys (lineItem/ProductCode) and snake_case keys
+     * (line_item_product_code).
      */
     public List<CloudFrontUsageDto> getUsageFromBill(MultipartFile file) {
-        logger.info("=======================================================");
-        logger.info("STARTING CSV PARSING");
-        logger.info("File: {}", file.getOriginalFilename());
-
-        List<CloudFrontUsageDto> parsedUsage = new ArrayList<>();
-
-        // Define possible column names for each required field to support multiple
-        // formats
-        String[][] productCodeCandidates = {
-                { "lineItem/ProductCode", "line_item_product_code", "product_servicecode" } };
-        String[][] usageTypeCandidates = { { "lineItem/UsageType", "line_item_usage_type" } };
-        String[][] usageAmountCandidates = { { "lineItem/UsageAmount", "line_item_usage_amount" } };
-        String[][] costCandidates = { { "lineItem/UnblendedCost", "line_item_unblended_cost" } };
-        String[][] regionCandidates = { { "product/region", "product_region", "product.2.2" } }; // Added product.2.2
-                                                                                                 // for your specific
-                                                                                                 // file
-        String[][] unitCandidates = { { "pricing/unit", "pricing_unit" } };
-
-        // Create CSV parser with explicit configuration
-        CSVParser parser = new CSVParserBuilder()
-                .withSeparator(',')
-                .withIgnoreQuotations(false)
-                .build();
-
-        try (
-                InputStreamReader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8);
-                CSVReader csvReader = new CSVReaderBuilder(reader)
-                        .withSkipLines(0)
-                        .withCSVParser(parser)
-                        .build()) {
-            String[] headers = csvReader.readNext();
-            if (headers == null) {
-                throw new RuntimeException("CSV file is empty or header row is missing.");
-            }
-
-            // Map header names to their indices
-            Map<String, Integer> headerMap = new HashMap<>();
-            for (int i = 0; i < headers.length; i++) {
-                // Clean up potential BOM or whitespace
-                headerMap.put(headers[i].trim().replaceAll("^\\uFEFF", ""), i);
-            }
-
-            // Helper to find index using the candidates arrays
-            int productCodeIdx = findColumnIndex(headerMap, productCodeCandidates[0]);
-            int usageTypeIdx = findColumnIndex(headerMap, usageTypeCandidates[0]);
-            int usageAmountIdx = findColumnIndex(headerMap, usageAmountCandidates[0]);
-            int costIdx = findColumnIndex(headerMap, costCandidates[0]);
-            int regionIdx = findColumnIndex(headerMap, regionCandidates[0]);
-            int unitIdx = findColumnIndex(headerMap, unitCandidates[0]);
-
-            // Check mandatory fields
-            if (productCodeIdx == -1 || usageTypeIdx == -1 || usageAmountIdx == -1 || costIdx == -1) {
-                logger.error("Missing required columns. Headers found: {}", headerMap.keySet());
-                throw new RuntimeException(
-                        "Invalid CUR file format. Missing standard columns (e.g., lineItem/ProductCode or line_item_product_code)");
-            }
-
-            String[] record;
-            int rowCount = 0;
-
-            while ((record = csvReader.readNext()) != null) {
-                rowCount++;
-                // Safety check for short rows
-                if (record.length <= Math.max(productCodeIdx, Math.max(usageTypeIdx, costIdx)))
-                    continue;
-
-                String pCode = record[productCodeIdx];
-
-                // Check for CloudFront product code in various formats
-                if ("AmazonCloudFront".equalsIgnoreCase(pCode) || "Amazon CloudFront".equalsIgnoreCase(pCode)) {
-                    try {
-                        String usageType = record[usageTypeIdx];
-                        double quantity = 0.0;
-                        double cost = 0.0;
-
-                        // Handle potential empty or non-numeric strings safely
-                        if (record[usageAmountIdx] != null && !record[usageAmountIdx].isEmpty()) {
-                            quantity = Double.parseDouble(record[usageAmountIdx]);
-                        }
-                        if (record[costIdx] != null && !record[costIdx].isEmpty()) {
-                            cost = Double.parseDouble(record[costIdx]);
-                        }
-
-                        // Extract Region
-                        String region = "Global";
-                        if (regionIdx != -1 && record.length > regionIdx) {
-                            String rawRegion = record[regionIdx];
-                            // Handle the specific format in Xid-90.xlsx:
-                            // "product_name:...,region:af-south-1,..."
-                            if (rawRegion != null && rawRegion.contains("region:")) {
-                                java.util.regex.Matcher m = java.util.regex.Pattern.compile("region:([a-z0-9-]+)")
-                                        .matcher(rawRegion);
-                                if (m.find()) {
-                                    region = m.group(1);
-                                }
-                            } else if (rawRegion != null && !rawRegion.isBlank()) {
-                                region = rawRegion;
-                            }
-                        }
+        logger.info("Parsing CloudFront usage from CUR file {} ({} bytes)", file.getOriginalFilename(),
+                file.getSize());
 
-                        // Determine Unit
-                        String unit = "GB";
-                        if (unitIdx != -1 && record.length > unitIdx && record[unitIdx] != null
-                                && !record[unitIdx].isEmpty()) {
-                            unit = record[unitIdx];
-                        } else {
-                            // Fallback unit detection
-                            if (usageType.contains("Requests"))
-                                unit = "Requests";
-                            else if (usageType.contains("Bytes"))
-                                unit = "GB";
-                        }
-
-                        // Add if there is usage or cost (changed to >= 0 to catch free tier or zero
-                        // cost items)
-                        if (cost >= 0 || quantity > 0) {
-                            parsedUsage.add(new CloudFrontUsageDto(region, usageType, quantity, unit, cost));
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Skipping row {} due to parsing error: {}", rowCount, e.getMessage());
-                    }
-                }
-            }
+        // The parser reads byte ranges in parallel, so the upload is spooled to a file first
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("cloudfront-cur-", ".csv");
+            file.transferTo(tempFile);
+            List<CloudFrontUsageDto> parsedUsage = curParser.parse(tempFile);
+            logger.info("Successfully parsed {} CloudFront usage lines.", parsedUsage.size());
+            return parsedUsage;
         } catch (Exception e) {
             logger.error("Error parsing CSV", e);
             throw new RuntimeException("Failed to process file: " + e.getMessage());
-        }
-
-        logger.info("Successfully parsed {} CloudFront line items.", parsedUsage.size());
-        return parsedUsage;
-    }
-
-    /**
-     * Helper method to find the first matching column index from a list of
-     * candidates.
-     */
-    private int findColumnIndex(Map<String, Integer> headerMap, String[] candidates) {
-        for (String candidate : candidates) {
-            if (headerMap.containsKey(candidate)) {
-                return headerMap.get(candidate);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete temporary CUR file");
+                }
             }
         }
-        return -1;
     }
 
     /**
@@ -355,37 +280,25 @@ public class CloudFrontUsageService {
         String currentRegion = "Global";
         String currentService = null;
 
-        Pattern regionPattern = Pattern.compile(
-                "^(Africa \\(Cape Town\\)|Asia Pacific \\((Mumbai|Singapore|Sydney|Tokyo|Hong Kong|Seoul)\\)|" +
-                        "Canada \\(Central\\)|EU \\(Ireland\\)|Middle East \\(Bahrain\\)|" +
-                        "South America \\(Sao Paulo\\)|US East \\(N\\. Virginia\\)|US West \\(Oregon\\)|Global)$");
-
-        Pattern servicePattern = Pattern
-                .compile("^(?:Amazon CloudFront )?([A-Z]{2}-[A-Za-z-]+|Bandwidth|Invalidations?)");
-
-        // Pattern to match lines like "693.163 GB USD 5.65"
-        Pattern costLinePattern = Pattern
-                .compile("([0-9,]+(?:\\.[0-9]+)?)\\s+(GB|Requests|URL)\\s+USD\\s+([0-9,]+\\.[0-9]{2})");
-
         for (String line : lines) {
             line = line.trim();
             if (line.isEmpty())
                 continue;
 
-            Matcher regionMatcher = regionPattern.matcher(line);
+            Matcher regionMatcher = PDF_REGION_LINE.matcher(line);
             if (regionMatcher.find()) {
                 currentRegion = regionMatcher.group(1);
                 continue;
             }
 
-            Matcher serviceMatcher = servicePattern.matcher(line);
+            Matcher serviceMatcher = PDF_SERVICE_LINE.matcher(line);
             if (serviceMatcher.find()) {
                 currentService = serviceMatcher.group(1);
                 continue;
             }
 
             if (currentService != null && line.contains("USD")) {
-                Matcher costMatcher = costLinePattern.matcher(line);
+                Matcher costMatcher = PDF_COST_LINE.matcher(line);
                 if (costMatcher.find()) {
                     double cost = Double.parseDouble(costMatcher.group(3).replace(",", ""));
                     // Changed from cost > 0 to cost >= 0 to include zero-cost items if listed
@@ -404,29 +317,18 @@ public class CloudFrontUsageService {
         List<CloudFrontUsageDto> usageList = new ArrayList<>();
         String currentRegion = "Global";
 
-        // REMOVED "HTTP or HTTPS GET Request Additional Charges" from here so it is NOT
-        // treated as a region.
-        // It will now be processed as a usage line item.
-        Pattern regionPattern = Pattern.compile(
-                "^(Africa \\(Cape Town\\)|Asia Pacific \\((Mumbai|Singapore|Sydney|Tokyo|Hong Kong|Seoul)\\)|" +
-                        "Canada \\(Central\\)|EU \\(Ireland\\)|Middle East \\(Bahrain\\)|" +
-                        "South America \\(Sao Paulo\\)|US East \\(N\\. Virginia\\)|US West \\(Oregon\\)|" +
-                        "Global)");
-
-        Pattern costPattern = Pattern.compile("\\$([0-9,]+\\.[0-9]{2})$");
-
         for (int i = 0; i < lines.length; i++) {
             String line = lines[i].trim();
             if (line.isEmpty())
                 continue;
 
-            Matcher regionMatcher = regionPattern.matcher(line);
+            Matcher regionMatcher = DISTRIBUTOR_REGION_LINE.matcher(line);
             if (regionMatcher.find()) {
                 currentRegion = regionMatcher.group(1);
                 continue;
             }
 
-            Matcher costMatcher = costPattern.matcher(line);
+            Matcher costMatcher = DISTRIBUTOR_COST.matcher(line);
             if (costMatcher.find()) {
                 double cost = Double.parseDouble(costMatcher.group(1).replace(",", ""));
 
@@ -437,23 +339,20 @@ public class CloudFrontUsageService {
                     double quantity = 0;
                     String unit = "GB";
 
-                    Pattern qtyPattern = Pattern.compile("([0-9,]+\\.?[0-9]*)\\s+(GB|Requests|URL|Bytes|-)\\s+\\$");
-                    Matcher qtyMatcher = qtyPattern.matcher(line);
+                    Matcher qtyMatcher = DISTRIBUTOR_QUANTITY.matcher(line);
 
                     if (qtyMatcher.find()) {
                         quantity = Double.parseDouble(qtyMatcher.group(1).replace(",", ""));
                         unit = qtyMatcher.group(2).equals("-") ? "Requests" : qtyMatcher.group(2);
-                        usageType = line.substring(0, qtyMatcher.start()).trim()
-                                .replaceAll("\\$\\s*[0-9.]+.*", "").trim();
+                        usageType = TRAILING_PRICE.matcher(line.substring(0, qtyMatcher.start()).trim())
+                                .replaceAll("").trim();
                     }
 
                     if (quantity == 0) {
                         // Fallback: look at previous lines
                         for (int j = Math.max(0, i - 3); j < i; j++) {
                             String prevLine = lines[j].trim();
-                            Pattern prevQtyPattern = Pattern
-                                    .compile("([0-9,]+\\.?[0-9]*)\\s+(GB|Requests|URL|Bytes|-)$");
-                            Matcher prevQtyMatcher = prevQtyPattern.matcher(prevLine);
+                            Matcher prevQtyMatcher = DISTRIBUTOR_PREVIOUS_QUANTITY.matcher(prevLine);
 
                             if (prevQtyMatcher.find()) {
                                 quantity = Double.parseDouble(prevQtyMatcher.group(1).replace(",", ""));
@@ -461,7 +360,7 @@ public class CloudFrontUsageService {
 
                                 for (int k = Math.max(0, j - 2); k < j; k++) {
                                     String typeLine = lines[k].trim();
-                                    if (!typeLine.contains("$") && !typeLine.matches(".*[0-9,]+.*")
+                                    if (!typeLine.contains("$") && !CONTAINS_DIGITS.matcher(typeLine).matches()
                                             && typeLine.length() > 2) {
                                         usageType = typeLine;
                                         break;
@@ -1,20 +1,6 @@
 package com.xammer.billops.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.itextpdf.kernel.colors.ColorConstants;
-import com.itextpdf.kernel.colors.DeviceRgb;
-import com.itextpdf.kernel.geom.PageSize;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.borders.Border;
-import com.itextpdf.layout.borders.SolidBorder;
-import com.itextpdf.layout.element.Cell;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
-import com.itextpdf.layout.properties.VerticalAlignment;
+import com.xammer.billops.config.multitenancy.TenantContext;
 import com.xammer.billops.controller.AdminCloudFrontController;
 import com.xammer.billops.domain.Client;
 import com.xammer.billops.domain.CloudAccount;
@@ -27,14 +13,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
@@ -44,19 +32,6 @@ import java.util.stream.Collectors;
 @Service
 public class InvoiceManagementService {
 
-    // Company Information Constants
-    private static final String COMPANY_NAME = "XAMMER TECHNOLOGIES PRIVATE LIMITED";
-    private static final String COMPANY_ADDRESS = "2nd Floor, H.IN.KH.No 293, Western Marg,\nNear Kher Singh Estate, Saidulajab, New Delhi,\nSouth Delhi, Delhi, 110030";
-    private static final String COMPANY_UDYAM = "UDYAM-DL-08-0100428 (Micro)";
-    private static final String COMPANY_GSTIN = "07AAACX3428N1ZO";
-    private static final String COMPANY_STATE = "Delhi";
-    private static final String COMPANY_STATE_CODE = "07";
-    private static final String COMPANY_CIN = "U72900UP20200PC135808";
-    private static final String BANK_NAME = "HDFC BANK";
-    private static final String BANK_ACC_NO = "50200056268509";
-    private static final String BANK_IFSC = "HDFC0000329";
-    private static final String COMPANY_PAN = "AAACX3428N";
-
     private final InvoiceRepository invoiceRepository;
     private final CloudAccountRepository cloudAccountRepository;
     private final DiscountRepository discountRepository;
@@ -70,8 +45,11 @@ public class InvoiceManagementService {
     private final CloudFrontPrivateRateRepository privateRateRepository;
     private final ClientRepository clientRepository;
     private final RedisCacheService redisCache;
+    private final InvoicePdfRenderer pdfRenderer;
 
-    private static final String INVOICE_LIST_CACHE_KEY = "billops:invoices:list:admin";
+    // One entry per invoice version, so a write never needs an eviction and the list is never one huge value
+    private static final String INVOICE_DTO_CACHE_PREFIX = "billops:invoices:dto:";
+    private static final int INVOICE_LOAD_BATCH_SIZE = 500;
     private static final long CACHE_TTL_MINUTES = 60;
     private static final BigDecimal IGST_RATE = new BigDecimal("0.18");
 
@@ -86,7 +64,8 @@ public class InvoiceManagementService {
             CloudFrontUsageService cloudFrontUsageService,
             CloudFrontPrivateRateRepository privateRateRepository,
             ClientRepository clientRepository,
-            RedisCacheService redisCache) {
+            RedisCacheService redisCache,
+            InvoicePdfRenderer pdfRenderer) {
         this.invoiceRepository = invoiceRepository;
         this.cloudAccountRepository = cloudAccountRepository;
         this.discountRepository = discountRepository;
@@ -99,11 +78,7 @@ public class InvoiceManagementService {
         this.privateRateRepository = privateRateRepository;
         this.clientRepository = clientRepository;
         this.redisCache = redisCache;
-    }
-
-    private void evictInvoiceListCache() {
-        redisCache.evict(INVOICE_LIST_CACHE_KEY);
-        logger.info("Evicted invoice list cache: {}", INVOICE_LIST_CACHE_KEY);
+        this.pdfRenderer = pdfRenderer;
     }
 
     // --- PDF GENERATION START ---
@@ -115,359 +90,48 @@ public class InvoiceManagementService {
 
     public ByteArrayInputStream generatePdfFromDto(InvoiceDto dto) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try (PdfWriter writer = new PdfWriter(out);
-                PdfDocument pdf = new PdfDocument(writer);
-                Document document = new Document(pdf, PageSize.A4)) {
-
-            document.setMargins(20, 20, 20, 20);
-
-            // 1. Header & Address Section (Combined Grid)
-            addHeaderAndAddressSection(document, dto);
-
-            // 2. Main Item Table
-            BigDecimal taxableValue = addMainTable(document, dto);
-
-            // 3. Tax Section
-            BigDecimal taxAmount = dto.getTaxAmount() != null ? dto.getTaxAmount() : taxableValue.multiply(IGST_RATE);
-            addTaxSection(document, taxableValue, taxAmount);
-
-            // 4. Footer
-            addFooter(document, taxableValue.add(taxAmount));
-
-        } catch (Exception e) {
-            logger.error("Error generating PDF", e);
-            throw new RuntimeException("PDF generation failed", e);
-        }
+        writePdf(dto, out);
         return new ByteArrayInputStream(out.toByteArray());
     }
 
-    private void addHeaderAndAddressSection(Document document, InvoiceDto dto) {
-        // Main Title
-        Paragraph title = new Paragraph("Tax Invoice")
-                .setBold().setFontSize(14).setTextAlignment(TextAlignment.CENTER).setMarginBottom(5);
-        document.add(title);
-
-        // Create the main grid table: 2 Columns (Left 50%, Right 50%)
-        Table mainTable = new Table(UnitValue.createPercentArray(new float[] { 50, 50 })).useAllAvailableWidth();
-
-        // --- FETCH CLIENT DETAILS FROM DB ---
-        Client client = clientRepository.findById(dto.getClientId()).orElse(new Client("Unknown"));
-        String clientName = dto.getClientName();
-        String clientAddress = Optional.ofNullable(client.getAddress()).orElse("");
-        String clientGstin = Optional.ofNullable(client.getGstin()).orElse("");
-        String stateName = Optional.ofNullable(client.getStateName()).orElse("");
-        String stateCode = Optional.ofNullable(client.getStateCode()).orElse("");
-
-        // --- LEFT COLUMN (Seller & Consignee) ---
-        Cell leftCell = new Cell().setPadding(0).setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f));
-
-        // Seller Info
-        Paragraph sellerInfo = new Paragraph()
-                .add(new com.itextpdf.layout.element.Text(COMPANY_NAME).setBold().setFontSize(9))
-                .add("\n" + COMPANY_ADDRESS)
-                .add("\nUDYAM: " + COMPANY_UDYAM)
-                .add("\nGSTIN/UIN: ").add(new com.itextpdf.layout.element.Text(COMPANY_GSTIN).setBold())
-                .add("\nState Name: " + COMPANY_STATE + ", Code: " + COMPANY_STATE_CODE)
-                .add("\nCIN: " + COMPANY_CIN)
-                .setFontSize(8).setPadding(5);
-
-        leftCell.add(sellerInfo);
-
-        // Consignee (Ship To) - Separator line
-        leftCell.add(new Paragraph("Consignee (Ship to)").setBold().setFontSize(8)
-                .setBorderTop(new SolidBorder(ColorConstants.BLACK, 0.5f)).setPadding(5).setMargin(0));
-
-        Paragraph consigneeInfo = new Paragraph()
-                .add(new com.itextpdf.layout.element.Text(clientName).setBold().setFontSize(9));
-
-        // Improved Logic: Only add lines if data exists to avoid empty "Code: " lines
-        if (!clientAddress.isEmpty())
-            consigneeInfo.add("\n" + clientAddress);
-        if (!clientGstin.isEmpty())
-            consigneeInfo.add("\nGSTIN/UIN: " + clientGstin);
-        if (!stateName.isEmpty())
-            consigneeInfo.add("\nState Name: " + stateName + ", Code: " + stateCode);
-
-        consigneeInfo.setFontSize(8).setPaddingLeft(5).setPaddingBottom(5);
-
-        leftCell.add(consigneeInfo);
-        mainTable.addCell(leftCell);
-
-        // --- RIGHT COLUMN (Invoice Meta & Buyer) ---
-        Cell rightCell = new Cell().setPadding(0).setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f));
-
-        // Nested Table for Metadata Grid
-        Table metaTable = new Table(UnitValue.createPercentArray(new float[] { 50, 50 })).useAllAvailableWidth();
-
-        // Row 1
-        addMetaCell(metaTable, "Invoice No.", dto.getInvoiceNumber());
-        addMetaCell(metaTable, "Dated",
-                dto.getInvoiceDate() != null ? dto.getInvoiceDate().format(DateTimeFormatter.ofPattern("dd-MMM-yy"))
-                        : "");
-
-        // Row 2
-        addMetaCell(metaTable, "Delivery Note", "");
-        addMetaCell(metaTable, "Mode/Terms of Payment", "");
-
-        // Row 3
-        addMetaCell(metaTable, "Reference No. & Date", "");
-        addMetaCell(metaTable, "Other References", "");
-
-        // Row 4
-        addMetaCell(metaTable, "Buyer's Order No.", "");
-        addMetaCell(metaTable, "Dated", "");
-
-        // Row 5
-        addMetaCell(metaTable, "Dispatch Doc No.", "");
-        addMetaCell(metaTable, "Delivery Note Date", "");
-
-        // Row 6
-        addMetaCell(metaTable, "Dispatched through", "");
-        addMetaCell(metaTable, "Destination", "");
-
-        // Row 7 (Terms of Delivery spans both)
-        Cell termsCell = new Cell(1, 2).add(new Paragraph("Terms of Delivery").setBold().setFontSize(7))
-                .setPadding(2).setBorderBottom(new SolidBorder(ColorConstants.BLACK, 0.5f));
-        metaTable.addCell(termsCell);
-
-        rightCell.add(metaTable);
-
-        // Buyer (Bill To) - inside right column below metadata
-        rightCell.add(new Paragraph("Buyer (Bill to)").setBold().setFontSize(8).setPadding(5).setMargin(0));
-
-        Paragraph buyerInfo = new Paragraph()
-                .add(new com.itextpdf.layout.element.Text(clientName).setBold().setFontSize(9));
-
-        // Improved Logic: Only add lines if data exists
-        if (!clientAddress.isEmpty())
-            buyerInfo.add("\n" + clientAddress);
-        if (!clientGstin.isEmpty())
-            buyerInfo.add("\nGSTIN/UIN: " + clientGstin);
-        if (!stateName.isEmpty()) {
-            buyerInfo.add("\nState Name: " + stateName + ", Code: " + stateCode);
-            buyerInfo.add("\nPlace of Supply: " + stateName);
-        }
-
-        buyerInfo.setFontSize(8).setPaddingLeft(5).setPaddingBottom(5);
-
-        rightCell.add(buyerInfo);
-        mainTable.addCell(rightCell);
-
-        document.add(mainTable);
-        document.add(new Paragraph("\n")); // Spacing
+    /**
+     * Streams the invoice PDF to {@code out} without buffering the whole document.
+     */
+    public void writePdf(InvoiceDto dto, OutputStream out) {
+        Client client = dto.getClientId() != null
+                ? clientRepository.findById(dto.getClientId()).orElse(new Client("Unknown"))
+                : new Client("Unknown");
+        pdfRenderer.render(dto, client, out);
     }
 
-    private void addMetaCell(Table table, String label, String value) {
-        Cell cell = new Cell().setPadding(2).setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f));
-        cell.add(new Paragraph(label).setBold().setFontSize(7));
-        cell.add(new Paragraph(value).setFontSize(8));
-        table.addCell(cell);
+    /**
+     * Streams a ZIP with one PDF per invoice, in the order requested. Invoices and their clients are
+     * loaded in batches up front; rendering then needs no database access.
+     */
+    public void writePdfZip(List<InvoiceDto> invoices, OutputStream out) {
+        Set<Long> clientIds = invoices.stream()
+                .map(InvoiceDto::getClientId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Client> clients = new HashMap<>();
+        clientRepository.findAllById(clientIds).forEach(client -> clients.put(client.getId(), client));
+        pdfRenderer.renderZip(invoices, clients, out);
     }
 
-    private BigDecimal addMainTable(Document document, InvoiceDto dto) {
-        // Columns: SI No, Description, HSN/SAC, Quantity, Rate, Per, Disc %, Amount
-        float[] colWidths = { 5, 43, 10, 8, 12, 5, 7, 10 };
-        Table table = new Table(UnitValue.createPercentArray(colWidths)).useAllAvailableWidth();
-
-        String[] headers = { "SI No.", "Description of Services", "HSN/SAC", "Quantity", "Rate", "per", "Disc. %",
-                "Amount" };
-        for (String h : headers) {
-            table.addHeaderCell(new Cell().add(new Paragraph(h).setBold().setFontSize(8))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBackgroundColor(ColorConstants.LIGHT_GRAY)
-                    .setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f)));
-        }
-
-        List<InvoiceDto.LineItemDto> items = dto.getLineItems() != null ? dto.getLineItems() : Collections.emptyList();
-        int slNo = 1;
-        BigDecimal totalTaxable = BigDecimal.ZERO;
-
-        Map<String, List<InvoiceDto.LineItemDto>> grouped = items.stream().collect(Collectors.groupingBy(
-                item -> "Amazon CloudFront".equalsIgnoreCase(item.getServiceName()) ? "CLOUDFRONT" : "STANDARD"));
-
-        String monthStr = formatMonth(dto.getBillingPeriod());
-
-        // --- ROW 1: Standard Consumption (AWS, GCP, or Azure) ---
-        if (grouped.containsKey("STANDARD")) {
-            List<InvoiceDto.LineItemDto> stdItems = grouped.get("STANDARD");
-            BigDecimal stdTotal = stdItems.stream().map(InvoiceDto.LineItemDto::getCost).reduce(BigDecimal.ZERO,
-                    BigDecimal::add);
-
-            BigDecimal discountPercent = BigDecimal.ZERO;
-            BigDecimal discountAmount = BigDecimal.ZERO;
-
-            if (dto.getDiscounts() != null) {
-                for (InvoiceDto.DiscountDto d : dto.getDiscounts()) {
-                    // Check discount names broadly
-                    if ("AWS Consumption Charge".equalsIgnoreCase(d.getServiceName()) ||
-                            "Google Cloud Consumption".equalsIgnoreCase(d.getServiceName()) ||
-                            "ALL".equalsIgnoreCase(d.getServiceName())) {
-                        discountPercent = d.getPercentage();
-                        BigDecimal pct = discountPercent.divide(new BigDecimal(100), 4, RoundingMode.HALF_UP);
-                        discountAmount = stdTotal.multiply(pct).setScale(2, RoundingMode.HALF_UP);
-                    }
-                }
-            }
-
-            // Detect Provider for Text Labels
-            // ✅ Updated logic to detect provider correctly
-            boolean isGcp = dto.getGcpProjectId() != null && !dto.getGcpProjectId().equals("N/A")
-                    && (dto.getAwsAccountId() == null || dto.getAwsAccountId().equals("N/A"));
-            boolean isAzure = dto.getAzureSubscriptionId() != null && !dto.getAzureSubscriptionId().equals("N/A")
-                    && (dto.getAwsAccountId() == null || dto.getAwsAccountId().equals("N/A"));
-
-            String headerText;
-            String subHeaderText;
-            String accountLabel;
-
-            if (isGcp) {
-                headerText = "Google Cloud Consumption";
-                subHeaderText = "Google Cloud Platform Charges";
-                accountLabel = "Project ID: " + dto.getGcpProjectId();
-            } else if (isAzure) {
-                headerText = "Microsoft Azure Consumption";
-                subHeaderText = "Microsoft Azure Cloud Charges";
-                accountLabel = "Subscription ID: " + dto.getAzureSubscriptionId();
-            } else {
-                headerText = "AWS Consumption Charge";
-                subHeaderText = "Amazon Web Service Charges";
-                accountLabel = "Account ID: " + dto.getAwsAccountId();
-            }
-
-            StringBuilder desc = new StringBuilder();
-            desc.append(headerText).append("\n");
-            desc.append(subHeaderText).append("\n");
-            desc.append("For the Month of ").append(monthStr).append("\n");
-            desc.append(accountLabel).append("\n");
-
-            BigDecimal finalAmount = stdTotal.subtract(discountAmount);
-
-            if (discountAmount.compareTo(BigDecimal.ZERO) > 0) {
-                desc.append(String.format("Discount: %.2f%% ($%s - $%s)\n",
-                        discountPercent, stdTotal.toString(), discountAmount.toString()));
-                desc.append("($").append(finalAmount).append(")");
-            }
-
-            addTableRow(table, slNo++, desc.toString(), "998315", finalAmount);
-            totalTaxable = totalTaxable.add(finalAmount);
-        }
-
-        // --- ROW 2: CloudFront Consumption ---
-        if (grouped.containsKey("CLOUDFRONT")) {
-            BigDecimal cfTotal = grouped.get("CLOUDFRONT").stream().map(InvoiceDto.LineItemDto::getCost)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            StringBuilder desc = new StringBuilder();
-            desc.append("AWS Cloud front consumption\n");
-            desc.append("For ").append(monthStr).append(" Month: $").append(cfTotal).append("\n");
-            desc.append("($").append(cfTotal).append(")");
-
-            addTableRow(table, slNo++, desc.toString(), "998315", cfTotal);
-            totalTaxable = totalTaxable.add(cfTotal);
-        }
-
-        // Filler rows
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 8; j++) {
-                table.addCell(new Cell().setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f)).setHeight(15));
+    /**
+     * Full DTOs for the given invoices, in the order requested; unknown ids are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesForAdmin(List<Long> invoiceIds) {
+        Map<Long, InvoiceDto> loaded = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(invoiceIds));
+        for (int from = 0; from < ids.size(); from += INVOICE_LOAD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + INVOICE_LOAD_BATCH_SIZE, ids.size()));
+            for (Invoice invoice : invoiceRepository.findAllForDtoByIdIn(batch)) {
+                loaded.put(invoice.getId(), InvoiceDto.fromEntity(invoice));
             }
         }
-
-        // Total Row
-        Cell totalLabel = new Cell(1, 7).add(new Paragraph("Total").setBold().setFontSize(9))
-                .setTextAlignment(TextAlignment.RIGHT).setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f));
-        table.addCell(totalLabel);
-
-        Cell totalValue = new Cell().add(new Paragraph(formatCurrency(totalTaxable)).setBold().setFontSize(9))
-                .setTextAlignment(TextAlignment.RIGHT).setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f));
-        table.addCell(totalValue);
-
-        document.add(table);
-
-        document.add(new Paragraph("\nAmount Chargeable (in words)\n" + convertNumberToWords(dto.getAmount()))
-                .setFontSize(9).setItalic().setMarginLeft(5));
-
-        return totalTaxable;
-    }
-
-    private void addTableRow(Table table, int si, String desc, String hsn, BigDecimal amt) {
-        table.addCell(createCell(String.valueOf(si), TextAlignment.CENTER));
-        table.addCell(createCell(desc, TextAlignment.LEFT));
-        table.addCell(createCell(hsn, TextAlignment.CENTER));
-        table.addCell(createCell("", TextAlignment.CENTER));
-        table.addCell(createCell("", TextAlignment.RIGHT));
-        table.addCell(createCell("", TextAlignment.CENTER));
-        table.addCell(createCell("", TextAlignment.CENTER));
-        table.addCell(createCell(formatCurrency(amt), TextAlignment.RIGHT));
-    }
-
-    private Cell createCell(String text, TextAlignment alignment) {
-        return new Cell().add(new Paragraph(text).setFontSize(8))
-                .setTextAlignment(alignment)
-                .setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f))
-                .setPadding(3);
-    }
-
-    private void addTaxSection(Document document, BigDecimal taxable, BigDecimal tax) {
-        document.add(new Paragraph("\n"));
-
-        float[] widths = { 15, 20, 15, 25, 25 };
-        Table table = new Table(UnitValue.createPercentArray(widths)).useAllAvailableWidth();
-
-        String[] headers = { "HSN/SAC", "Taxable Value", "Rate", "IGST Amount", "Total Tax Amount" };
-        for (String h : headers) {
-            table.addHeaderCell(new Cell().add(new Paragraph(h).setBold().setFontSize(8))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f)));
-        }
-
-        table.addCell(createCell("998315", TextAlignment.LEFT));
-        table.addCell(createCell(formatCurrency(taxable), TextAlignment.RIGHT));
-        table.addCell(createCell("18%", TextAlignment.RIGHT));
-        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT));
-        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT));
-
-        table.addCell(createCell("Total", TextAlignment.RIGHT).setBold());
-        table.addCell(createCell(formatCurrency(taxable), TextAlignment.RIGHT).setBold());
-        table.addCell(createCell("", TextAlignment.CENTER));
-        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT).setBold());
-        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT).setBold());
-
-        document.add(table);
-        document.add(new Paragraph("Tax Amount (in words): " + convertNumberToWords(tax)).setFontSize(9).setMarginTop(5)
-                .setMarginLeft(5));
-    }
-
-    private void addFooter(Document document, BigDecimal total) {
-        document.add(new Paragraph("\n"));
-
-        Table footerTable = new Table(UnitValue.createPercentArray(new float[] { 50, 50 })).useAllAvailableWidth();
-
-        Cell bankCell = new Cell().setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f)).setPadding(5);
-        bankCell.add(new Paragraph("Company's Bank Details").setBold().setUnderline().setFontSize(9));
-        bankCell.add(new Paragraph("A/c Holder's Name: " + COMPANY_NAME).setFontSize(8));
-        bankCell.add(new Paragraph("Bank Name: " + BANK_NAME).setFontSize(8));
-        bankCell.add(new Paragraph("A/c No.: " + BANK_ACC_NO).setFontSize(8));
-        bankCell.add(new Paragraph("Branch & IFS Code: " + BANK_IFSC).setFontSize(8));
-
-        Cell sigCell = new Cell().setBorder(new SolidBorder(ColorConstants.BLACK, 0.5f)).setPadding(5)
-                .setTextAlignment(TextAlignment.RIGHT)
-                .setVerticalAlignment(VerticalAlignment.BOTTOM);
-        sigCell.add(new Paragraph("for " + COMPANY_NAME).setBold().setFontSize(8));
-        sigCell.add(new Paragraph("\n\n\n"));
-        sigCell.add(new Paragraph("Authorised Signatory").setFontSize(8));
-
-        footerTable.addCell(bankCell);
-        footerTable.addCell(sigCell);
-        document.add(footerTable);
-
-        document.add(new Paragraph("Company's PAN: " + COMPANY_PAN).setFontSize(8).setMarginTop(2));
-        document.add(new Paragraph("\nDeclaration").setBold().setUnderline().setFontSize(8));
-        document.add(new Paragraph(
-                "We declare that this invoice shows the actual price of the goods described and that all particulars are true and correct.")
-                .setFontSize(8));
-        document.add(new Paragraph("This is a Computer Generated Invoice").setFontSize(8).setItalic()
-                .setTextAlignment(TextAlignment.CENTER).setMarginTop(5));
+        return ids.stream().map(loaded::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     // --- END PDF GENERATION ---
@@ -599,6 +263,17 @@ public class InvoiceManagementService {
                 .findByAwsAccountIdOrGcpProjectIdOrAzureSubscriptionId(accountId, accountId, accountId)
                 .orElseThrow(() -> new RuntimeException("Cloud account not found with ID: " + accountId));
 
+        List<ServiceCostDetailDto> detailedReport = fetchDetailedReport(cloudAccount, accountId, year, month);
+        Invoice invoice = buildDraftInvoice(cloudAccount, detailedReport, year, month);
+        Invoice saved = invoiceRepository.save(invoice);
+        return saved;
+    }
+
+    /**
+     * The service -> region -> resource cost report an invoice is built from, taken from the
+     * account's provider.
+     */
+    public List<ServiceCostDetailDto> fetchDetailedReport(CloudAccount cloudAccount, String accountId, int year, int month) {
         List<ServiceCostDetailDto> detailedReport = new ArrayList<>();
 
         // ✅ 2. Handle Logic Based on Provider
@@ -655,7 +330,14 @@ public class InvoiceManagementService {
             detailedReport = billingService.getDetailedBillingReport(Collections.singletonList(accountId), year, month,
                     false);
         }
+        return detailedReport;
+    }
 
+    /**
+     * Builds an unsaved draft invoice, with its line items and totals, from a cost report.
+     */
+    public Invoice buildDraftInvoice(CloudAccount cloudAccount, List<ServiceCostDetailDto> detailedReport, int year,
+            int month) {
         Invoice invoice = new Invoice();
         invoice.setCloudAccount(cloudAccount);
         invoice.setClient(cloudAccount.getClient());
@@ -706,9 +388,7 @@ public class InvoiceManagementService {
         }
         invoice.setLineItems(lineItems);
         recalculateTotals(invoice);
-        Invoice saved = invoiceRepository.save(invoice);
-        evictInvoiceListCache();
-        return saved;
+        return invoice;
     }
 
     @Transactional
@@ -753,7 +433,6 @@ public class InvoiceManagementService {
 
         recalculateTotals(invoice);
         Invoice saved = invoiceRepository.save(invoice);
-        evictInvoiceListCache();
         return saved;
     }
 
@@ -770,7 +449,6 @@ public class InvoiceManagementService {
             invoice.getDiscounts().remove(toRemove.get());
             discountRepository.delete(toRemove.get());
             recalculateTotals(invoice);
-            evictInvoiceListCache();
             return invoiceRepository.save(invoice);
         }
         return invoice;
@@ -834,7 +512,6 @@ public class InvoiceManagementService {
         recalculateTotals(invoice);
         invoice.setStatus(Invoice.InvoiceStatus.FINALIZED);
         Invoice finalizedInvoice = invoiceRepository.save(invoice);
-        evictInvoiceListCache();
         try {
             Client client = finalizedInvoice.getClient();
             if (client != null) {
@@ -873,11 +550,21 @@ public class InvoiceManagementService {
     }
 
     @Transactional(readOnly = true)
-    @Cacheable(value = "invoiceDtos", key = "#invoiceId")
     public InvoiceDto getInvoiceForAdmin(Long invoiceId) {
-        Invoice invoice = invoiceRepository.findById(invoiceId)
+        Long version = invoiceRepository.findVersionById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Invoice not found"));
-        return InvoiceDto.fromEntity(invoice);
+        String cacheKey = invoiceDtoCacheKey(invoiceId, version);
+        Optional<InvoiceDto> cached = redisCache.get(cacheKey, InvoiceDto.class);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        InvoiceDto dto = invoiceRepository.findAllForDtoByIdIn(List.of(invoiceId)).stream()
+                .findFirst()
+                .map(InvoiceDto::fromEntity)
+                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+        redisCache.put(cacheKey, dto, CACHE_TTL_MINUTES);
+        return dto;
     }
 
     @Transactional
@@ -916,7 +603,6 @@ public class InvoiceManagementService {
         recalculateTotals(target);
         Invoice savedTarget = invoiceRepository.save(target);
         invoiceRepository.delete(source);
-        evictInvoiceListCache();
         return savedTarget;
     }
 
@@ -947,22 +633,61 @@ public class InvoiceManagementService {
         }
         recalculateTotals(invoice);
         Invoice saved = invoiceRepository.save(invoice);
-        evictInvoiceListCache();
         return saved;
     }
 
+    /**
+     * Every invoice as a full DTO. Cached DTOs are reused when their version still matches;
+     * the rest are loaded in batches (line items join-fetched, discounts batch-fetched) and cached
+     * one entry per invoice. {@code forceRefresh} reloads every invoice.
+     */
     @Transactional(readOnly = true)
-    public Optional<List<InvoiceDto>> getCachedAllInvoices() {
-        return redisCache.get(INVOICE_LIST_CACHE_KEY, new TypeReference<List<InvoiceDto>>() {
-        });
+    public List<InvoiceDto> getAllInvoices(boolean forceRefresh) {
+        List<InvoiceRepository.InvoiceVersion> versions = invoiceRepository.findAllVersions();
+        List<String> cacheKeys = versions.stream()
+                .map(v -> invoiceDtoCacheKey(v.getId(), v.getVersion()))
+                .collect(Collectors.toList());
+        List<InvoiceDto> dtos = forceRefresh
+                ? new ArrayList<>(Collections.nCopies(versions.size(), null))
+                : redisCache.multiGet(cacheKeys, InvoiceDto.class);
+
+        Map<Long, Integer> missing = new LinkedHashMap<>();
+        for (int i = 0; i < versions.size(); i++) {
+            if (dtos.get(i) == null) {
+                missing.put(versions.get(i).getId(), i);
+            }
+        }
+
+        List<Long> missingIds = new ArrayList<>(missing.keySet());
+        for (int from = 0; from < missingIds.size(); from += INVOICE_LOAD_BATCH_SIZE) {
+            List<Long> batch = missingIds.subList(from, Math.min(from + INVOICE_LOAD_BATCH_SIZE, missingIds.size()));
+            for (Invoice invoice : invoiceRepository.findAllForDtoByIdIn(batch)) {
+                int index = missing.get(invoice.getId());
+                InvoiceDto dto = InvoiceDto.fromEntity(invoice);
+                dtos.set(index, dto);
+                redisCache.put(cacheKeys.get(index), dto, CACHE_TTL_MINUTES);
+            }
+        }
+        logger.info("Invoice list: {} invoices, {} served from cache", versions.size(),
+                versions.size() - missingIds.size());
+
+        // Invoices deleted between the two queries leave a gap
+        return dtos.stream().filter(Objects::nonNull).collect(Collectors.toList());
     }
 
+    /**
+     * Admin list page: totals and names only, filtered by account (AWS, GCP or Azure id), status
+     * and billing period (yyyy-MM); any filter may be null.
+     */
     @Transactional(readOnly = true)
-    public List<InvoiceDto> getAllInvoicesAndCache() {
-        List<Invoice> invoices = invoiceRepository.findAll();
-        List<InvoiceDto> dtos = invoices.stream().map(InvoiceDto::fromEntity).collect(Collectors.toList());
-        redisCache.put(INVOICE_LIST_CACHE_KEY, dtos, CACHE_TTL_MINUTES);
-        return dtos;
+    public Page<InvoiceSummaryDto> getInvoiceSummaries(String accountId, Invoice.InvoiceStatus status,
+            String billingPeriod, Pageable pageable) {
+        return invoiceRepository.findSummaries(accountId, status, billingPeriod, pageable);
+    }
+
+    private String invoiceDtoCacheKey(Long invoiceId, Long version) {
+        String tenantId = TenantContext.getCurrentTenant() != null ? TenantContext.getCurrentTenant() : "default";
+        return INVOICE_DTO_CACHE_PREFIX + tenantId + ":" + invoiceId + ":v" + version;
     }
 
     @Transactional
@@ -994,7 +719,6 @@ public class InvoiceManagementService {
         invoice.setLineItems(lineItems);
         recalculateTotals(invoice);
         Invoice saved = invoiceRepository.save(invoice);
-        evictInvoiceListCache();
         return saved;
     }
 
@@ -1020,30 +744,6 @@ public class InvoiceManagementService {
         recalculateTotals(invoice);
         invoice.setStatus(Invoice.InvoiceStatus.FINALIZED);
         Invoice savedInvoice = invoiceRepository.save(invoice);
-        evictInvoiceListCache();
         return savedInvoice;
     }
-
-    private String formatCurrency(BigDecimal value) {
-        if (value == null)
-            return "0.00";
-        return new DecimalFormat("#,##0.00").format(value);
-    }
-
-    private String formatMonth(String billingPeriod) {
-        if (billingPeriod == null)
-            return "";
-        try {
-            String[] parts = billingPeriod.split("-");
-            int year = Integer.parseInt(parts[0]);
-            int month = Integer.parseInt(parts[1]);
-            return java.time.Month.of(month).name() + " " + year;
-        } catch (Exception e) {
-            return billingPeriod;
-        }
-    }
-
-    private String convertNumberToWords(BigDecimal amount) {
-        return "INR " + amount.setScale(2, RoundingMode.HALF_UP).toString() + " Only";
-    }
-}
\ No newline at end of file
+}
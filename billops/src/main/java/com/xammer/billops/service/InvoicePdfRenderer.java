@@ -0,0 +1,554 @@
+package com.xammer.billops.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.element.Text;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.itextpdf.layout.properties.VerticalAlignment;
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.dto.InvoiceDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders the tax invoice PDF.
+ *
+ * Everything that does not depend on the invoice is built once per JVM and shared: the font
+ * programs, borders, styles, column layouts and the fixed seller/bank text. A document only
+ * creates its (cheap) PdfFont wrappers and the invoice-specific cells, and writes straight to the
+ * caller's stream. Batch ZIP downloads render on a bounded pool, with at most a small window of
+ * finished PDFs held in memory while they wait for their turn in the archive.
+ */
+@Service
+public class InvoicePdfRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoicePdfRenderer.class);
+
+    // Company Information Constants
+    private static final String COMPANY_NAME = "XAMMER TECHNOLOGIES PRIVATE LIMITED";
+    private static final String COMPANY_ADDRESS = "2nd Floor, H.IN.KH.No 293, Western Marg,\nNear Kher Singh Estate, Saidulajab, New Delhi,\nSouth Delhi, Delhi, 110030";
+    private static final String COMPANY_UDYAM = "UDYAM-DL-08-0100428 (Micro)";
+    private static final String COMPANY_GSTIN = "07AAACX3428N1ZO";
+    private static final String COMPANY_STATE = "Delhi";
+    private static final String COMPANY_STATE_CODE = "07";
+    private static final String COMPANY_CIN = "U72900UP20200PC135808";
+    private static final String BANK_NAME = "HDFC BANK";
+    private static final String BANK_ACC_NO = "50200056268509";
+    private static final String BANK_IFSC = "HDFC0000329";
+    private static final String COMPANY_PAN = "AAACX3428N";
+
+    private static final BigDecimal IGST_RATE = new BigDecimal("0.18");
+    private static final String HSN_CODE = "998315";
+
+    // --- Precompiled template: immutable after class init, shared by every document and thread ---
+
+    private static final FontProgram REGULAR = loadFont(StandardFonts.HELVETICA);
+    private static final FontProgram BOLD = loadFont(StandardFonts.HELVETICA_BOLD);
+    private static final FontProgram ITALIC = loadFont(StandardFonts.HELVETICA_OBLIQUE);
+
+    private static final Border LINE = new SolidBorder(ColorConstants.BLACK, 0.5f);
+    private static final Style BOXED = new Style().setBorder(LINE);
+    private static final Style BODY_CELL = new Style().setBorder(LINE).setPadding(3);
+    private static final Style META_CELL = new Style().setBorder(LINE).setPadding(2);
+    private static final Style FILLER_CELL = new Style().setBorder(LINE).setHeight(15);
+
+    private static final float[] HALVES = { 50, 50 };
+    private static final float[] ITEM_COLUMNS = { 5, 43, 10, 8, 12, 5, 7, 10 };
+    private static final String[] ITEM_HEADERS = { "SI No.", "Description of Services", "HSN/SAC", "Quantity", "Rate",
+            "per", "Disc. %", "Amount" };
+    private static final float[] TAX_COLUMNS = { 15, 20, 15, 25, 25 };
+    private static final String[] TAX_HEADERS = { "HSN/SAC", "Taxable Value", "Rate", "IGST Amount",
+            "Total Tax Amount" };
+    // Metadata grid rows that are always blank on our invoices (label, label)
+    private static final String[][] BLANK_META_ROWS = {
+            { "Delivery Note", "Mode/Terms of Payment" },
+            { "Reference No. & Date", "Other References" },
+            { "Buyer's Order No.", "Dated" },
+            { "Dispatch Doc No.", "Delivery Note Date" },
+            { "Dispatched through", "Destination" } };
+    private static final String SELLER_DETAILS = "\n" + COMPANY_ADDRESS
+            + "\nUDYAM: " + COMPANY_UDYAM;
+    private static final String SELLER_STATE = "\nState Name: " + COMPANY_STATE + ", Code: " + COMPANY_STATE_CODE
+            + "\nCIN: " + COMPANY_CIN;
+    private static final String DECLARATION = "We declare that this invoice shows the actual price of the goods "
+            + "described and that all particulars are true and correct.";
+    private static final DateTimeFormatter INVOICE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MMM-yy");
+    // DecimalFormat is not thread-safe; one per render thread
+    private static final ThreadLocal<DecimalFormat> CURRENCY_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#,##0.00"));
+
+    private final ThreadPoolExecutor renderPool;
+    private final int renderWindow;
+
+    public InvoicePdfRenderer(@Value("${billops.invoice.pdf.render-threads:4}") int renderThreads) {
+        int threads = Math.max(1, renderThreads);
+        this.renderWindow = threads * 2;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.renderPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-pdf-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Writes the PDF for {@code dto} to {@code out}. The stream is flushed but left open.
+     */
+    public void render(InvoiceDto dto, Client client, OutputStream out) {
+        PdfWriter writer = new PdfWriter(out, new WriterProperties().setFullCompressionMode(true));
+        writer.setCloseStream(false);
+        try (PdfDocument pdf = new PdfDocument(writer);
+                Document document = new Document(pdf, PageSize.A4)) {
+            Fonts fonts = new Fonts();
+            document.setFont(fonts.regular);
+            document.setMargins(20, 20, 20, 20);
+
+            // 1. Header & Address Section (Combined Grid)
+            addHeaderAndAddressSection(document, fonts, dto, client);
+
+            // 2. Main Item Table
+            BigDecimal taxableValue = addMainTable(document, fonts, dto);
+
+            // 3. Tax Section
+            BigDecimal taxAmount = dto.getTaxAmount() != null ? dto.getTaxAmount() : taxableValue.multiply(IGST_RATE);
+            addTaxSection(document, fonts, taxableValue, taxAmount);
+
+            // 4. Footer
+            addFooter(document, fonts);
+        } catch (Exception e) {
+            logger.error("Error generating PDF for invoice {}", dto.getInvoiceNumber(), e);
+            throw new RuntimeException("PDF generation failed", e);
+        }
+    }
+
+    /**
+     * Writes one PDF per invoice into a ZIP on {@code out}, in the order given; {@code clients} is
+     * keyed by client id. Rendering runs on
+     * the render pool; the archive is written by the calling thread as results complete in order.
+     */
+    public void renderZip(List<InvoiceDto> invoices, Map<Long, Client> clients, OutputStream out) {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<CompletableFuture<RenderedPdf>> window = new ArrayDeque<>();
+        Set<String> entryNames = new HashSet<>();
+        long started = System.currentTimeMillis();
+        try {
+            for (InvoiceDto dto : invoices) {
+                if (window.size() >= renderWindow) {
+                    writeEntry(zip, window.removeFirst().join(), entryNames);
+                }
+                Client client = Optional.ofNullable(clients.get(dto.getClientId()))
+                        .orElseGet(() -> new Client("Unknown"));
+                // Rendering needs no database access, so no tenant is carried to the pool
+                window.addLast(CompletableFuture.supplyAsync(() -> renderToBytes(dto, client), renderPool));
+            }
+            while (!window.isEmpty()) {
+                writeEntry(zip, window.removeFirst().join(), entryNames);
+            }
+            zip.finish();
+            zip.flush();
+        } catch (IOException e) {
+            window.forEach(pending -> pending.cancel(true));
+            throw new UncheckedIOException("Writing invoice ZIP failed", e);
+        } catch (CompletionException e) {
+            window.forEach(pending -> pending.cancel(true));
+            throw new RuntimeException("PDF generation failed", e.getCause());
+        }
+        logger.info("Rendered {} invoice PDFs into a ZIP in {} ms", invoices.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    private RenderedPdf renderToBytes(InvoiceDto dto, Client client) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        render(dto, client, out);
+        return new RenderedPdf(fileName(dto), out.toByteArray());
+    }
+
+    private void writeEntry(ZipOutputStream zip, RenderedPdf pdf, Set<String> entryNames) throws IOException {
+        String name = pdf.fileName;
+        for (int i = 2; !entryNames.add(name); i++) {
+            name = pdf.fileName.replace(".pdf", "-" + i + ".pdf");
+        }
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(pdf.content);
+        zip.closeEntry();
+    }
+
+    private static String fileName(InvoiceDto dto) {
+        String number = Optional.ofNullable(dto.getInvoiceNumber()).orElse("draft");
+        String period = Optional.ofNullable(dto.getBillingPeriod()).orElse("");
+        return String.format("invoice-%s-%s.pdf", number.replaceAll("[^a-zA-Z0-9_-]", ""),
+                period.replaceAll("[^a-zA-Z0-9_-]", ""));
+    }
+
+    private void addHeaderAndAddressSection(Document document, Fonts fonts, InvoiceDto dto, Client client) {
+        // Main Title
+        document.add(new Paragraph("Tax Invoice").setFont(fonts.bold).setFontSize(14)
+                .setTextAlignment(TextAlignment.CENTER).setMarginBottom(5));
+
+        // Create the main grid table: 2 Columns (Left 50%, Right 50%)
+        Table mainTable = new Table(UnitValue.createPercentArray(HALVES)).useAllAvailableWidth();
+
+        String clientName = dto.getClientName();
+        String clientAddress = Optional.ofNullable(client.getAddress()).orElse("");
+        String clientGstin = Optional.ofNullable(client.getGstin()).orElse("");
+        String stateName = Optional.ofNullable(client.getStateName()).orElse("");
+        String stateCode = Optional.ofNullable(client.getStateCode()).orElse("");
+
+        // --- LEFT COLUMN (Seller & Consignee) ---
+        Cell leftCell = new Cell().addStyle(BOXED).setPadding(0);
+
+        leftCell.add(new Paragraph()
+                .add(new Text(COMPANY_NAME).setFont(fonts.bold).setFontSize(9))
+                .add(SELLER_DETAILS)
+                .add("\nGSTIN/UIN: ").add(new Text(COMPANY_GSTIN).setFont(fonts.bold))
+                .add(SELLER_STATE)
+                .setFontSize(8).setPadding(5));
+
+        // Consignee (Ship To) - Separator line
+        leftCell.add(new Paragraph("Consignee (Ship to)").setFont(fonts.bold).setFontSize(8)
+                .setBorderTop(LINE).setPadding(5).setMargin(0));
+        leftCell.add(partyDetails(fonts, clientName, clientAddress, clientGstin, stateName, stateCode, false));
+        mainTable.addCell(leftCell);
+
+        // --- RIGHT COLUMN (Invoice Meta & Buyer) ---
+        Cell rightCell = new Cell().addStyle(BOXED).setPadding(0);
+
+        // Nested Table for Metadata Grid
+        Table metaTable = new Table(UnitValue.createPercentArray(HALVES)).useAllAvailableWidth();
+        addMetaCell(metaTable, fonts, "Invoice No.", dto.getInvoiceNumber());
+        addMetaCell(metaTable, fonts, "Dated",
+                dto.getInvoiceDate() != null ? dto.getInvoiceDate().format(INVOICE_DATE_FORMAT) : "");
+        for (String[] row : BLANK_META_ROWS) {
+            addMetaCell(metaTable, fonts, row[0], "");
+            addMetaCell(metaTable, fonts, row[1], "");
+        }
+        // Terms of Delivery spans both columns
+        metaTable.addCell(new Cell(1, 2).add(new Paragraph("Terms of Delivery").setFont(fonts.bold).setFontSize(7))
+                .setPadding(2).setBorderBottom(LINE));
+        rightCell.add(metaTable);
+
+        // Buyer (Bill To) - inside right column below metadata
+        rightCell.add(new Paragraph("Buyer (Bill to)").setFont(fonts.bold).setFontSize(8).setPadding(5).setMargin(0));
+        rightCell.add(partyDetails(fonts, clientName, clientAddress, clientGstin, stateName, stateCode, true));
+        mainTable.addCell(rightCell);
+
+        document.add(mainTable);
+        document.add(new Paragraph("\n")); // Spacing
+    }
+
+    // Only lines with data are added, to avoid empty "Code: " lines
+    private Paragraph partyDetails(Fonts fonts, String name, String address, String gstin, String stateName,
+                                   String stateCode, boolean placeOfSupply) {
+        Paragraph details = new Paragraph().add(new Text(Optional.ofNullable(name).orElse(""))
+                .setFont(fonts.bold).setFontSize(9));
+        if (!address.isEmpty())
+            details.add("\n" + address);
+        if (!gstin.isEmpty())
+            details.add("\nGSTIN/UIN: " + gstin);
+        if (!stateName.isEmpty()) {
+            details.add("\nState Name: " + stateName + ", Code: " + stateCode);
+            if (placeOfSupply)
+                details.add("\nPlace of Supply: " + stateName);
+        }
+        return details.setFontSize(8).setPaddingLeft(5).setPaddingBottom(5);
+    }
+
+    private void addMetaCell(Table table, Fonts fonts, String label, String value) {
+        table.addCell(new Cell().addStyle(META_CELL)
+                .add(new Paragraph(label).setFont(fonts.bold).setFontSize(7))
+                .add(new Paragraph(Optional.ofNullable(value).orElse("")).setFontSize(8)));
+    }
+
+    private BigDecimal addMainTable(Document document, Fonts fonts, InvoiceDto dto) {
+        Table table = new Table(UnitValue.createPercentArray(ITEM_COLUMNS)).useAllAvailableWidth();
+        for (String h : ITEM_HEADERS) {
+            table.addHeaderCell(new Cell().addStyle(BOXED).add(new Paragraph(h).setFont(fonts.bold).setFontSize(8))
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setBackgroundColor(ColorConstants.LIGHT_GRAY));
+        }
+
+        List<InvoiceDto.LineItemDto> items = dto.getLineItems() != null ? dto.getLineItems() : Collections.emptyList();
+        int slNo = 1;
+        BigDecimal totalTaxable = BigDecimal.ZERO;
+
+        Map<String, List<InvoiceDto.LineItemDto>> grouped = items.stream().collect(Collectors.groupingBy(
+                item -> "Amazon CloudFront".equalsIgnoreCase(item.getServiceName()) ? "CLOUDFRONT" : "STANDARD"));
+
+        String monthStr = formatMonth(dto.getBillingPeriod());
+
+        // --- ROW 1: Standard Consumption (AWS, GCP, or Azure) ---
+        if (grouped.containsKey("STANDARD")) {
+            BigDecimal stdTotal = grouped.get("STANDARD").stream().map(InvoiceDto.LineItemDto::getCost)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            BigDecimal discountPercent = BigDecimal.ZERO;
+            BigDecimal discountAmount = BigDecimal.ZERO;
+
+            if (dto.getDiscounts() != null) {
+                for (InvoiceDto.DiscountDto d : dto.getDiscounts()) {
+                    // Check discount names broadly
+                    if ("AWS Consumption Charge".equalsIgnoreCase(d.getServiceName()) ||
+                            "Google Cloud Consumption".equalsIgnoreCase(d.getServiceName()) ||
+                            "ALL".equalsIgnoreCase(d.getServiceName())) {
+                        discountPercent = d.getPercentage();
+                        BigDecimal pct = discountPercent.divide(new BigDecimal(100), 4, RoundingMode.HALF_UP);
+                        discountAmount = stdTotal.multiply(pct).setScale(2, RoundingMode.HALF_UP);
+                    }
+                }
+            }
+
+            // Detect Provider for Text Labels
+            boolean isGcp = dto.getGcpProjectId() != null && !dto.getGcpProjectId().equals("N/A")
+                    && (dto.getAwsAccountId() == null || dto.getAwsAccountId().equals("N/A"));
+            boolean isAzure = dto.getAzureSubscriptionId() != null && !dto.getAzureSubscriptionId().equals("N/A")
+                    && (dto.getAwsAccountId() == null || dto.getAwsAccountId().equals("N/A"));
+
+            String headerText;
+            String subHeaderText;
+            String accountLabel;
+
+            if (isGcp) {
+                headerText = "Google Cloud Consumption";
+                subHeaderText = "Google Cloud Platform Charges";
+                accountLabel = "Project ID: " + dto.getGcpProjectId();
+            } else if (isAzure) {
+                headerText = "Microsoft Azure Consumption";
+                subHeaderText = "Microsoft Azure Cloud Charges";
+                accountLabel = "Subscription ID: " + dto.getAzureSubscriptionId();
+            } else {
+                headerText = "AWS Consumption Charge";
+                subHeaderText = "Amazon Web Service Charges";
+                accountLabel = "Account ID: " + dto.getAwsAccountId();
+            }
+
+            StringBuilder desc = new StringBuilder();
+            desc.append(headerText).append("\n");
+            desc.append(subHeaderText).append("\n");
+            desc.append("For the Month of ").append(monthStr).append("\n");
+            desc.append(accountLabel).append("\n");
+
+            BigDecimal finalAmount = stdTotal.subtract(discountAmount);
+
+            if (discountAmount.compareTo(BigDecimal.ZERO) > 0) {
+                desc.append(String.format("Discount: %.2f%% ($%s - $%s)\n",
+                        discountPercent, stdTotal.toString(), discountAmount.toString()));
+                desc.append("($").append(finalAmount).append(")");
+            }
+
+            addTableRow(table, slNo++, desc.toString(), finalAmount);
+            totalTaxable = totalTaxable.add(finalAmount);
+        }
+
+        // --- ROW 2: CloudFront Consumption ---
+        if (grouped.containsKey("CLOUDFRONT")) {
+            BigDecimal cfTotal = grouped.get("CLOUDFRONT").stream().map(InvoiceDto.LineItemDto::getCost)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            String desc = "AWS Cloud front consumption\n"
+                    + "For " + monthStr + " Month: $" + cfTotal + "\n"
+                    + "($" + cfTotal + ")";
+
+            addTableRow(table, slNo, desc, cfTotal);
+            totalTaxable = totalTaxable.add(cfTotal);
+        }
+
+        // Filler rows
+        for (int i = 0; i < 4 * ITEM_COLUMNS.length; i++) {
+            table.addCell(new Cell().addStyle(FILLER_CELL));
+        }
+
+        // Total Row
+        table.addCell(new Cell(1, 7).addStyle(BOXED).add(new Paragraph("Total").setFont(fonts.bold).setFontSize(9))
+                .setTextAlignment(TextAlignment.RIGHT));
+        table.addCell(new Cell().addStyle(BOXED)
+                .add(new Paragraph(formatCurrency(totalTaxable)).setFont(fonts.bold).setFontSize(9))
+                .setTextAlignment(TextAlignment.RIGHT));
+
+        document.add(table);
+
+        document.add(new Paragraph("\nAmount Chargeable (in words)\n" + convertNumberToWords(dto.getAmount()))
+                .setFont(fonts.italic).setFontSize(9).setMarginLeft(5));
+
+        return totalTaxable;
+    }
+
+    private void addTableRow(Table table, int si, String desc, BigDecimal amt) {
+        table.addCell(createCell(String.valueOf(si), TextAlignment.CENTER));
+        table.addCell(createCell(desc, TextAlignment.LEFT));
+        table.addCell(createCell(HSN_CODE, TextAlignment.CENTER));
+        table.addCell(createCell("", TextAlignment.CENTER));
+        table.addCell(createCell("", TextAlignment.RIGHT));
+        table.addCell(createCell("", TextAlignment.CENTER));
+        table.addCell(createCell("", TextAlignment.CENTER));
+        table.addCell(createCell(formatCurrency(amt), TextAlignment.RIGHT));
+    }
+
+    private Cell createCell(String text, TextAlignment alignment) {
+        return new Cell().addStyle(BODY_CELL).add(new Paragraph(text).setFontSize(8)).setTextAlignment(alignment);
+    }
+
+    private void addTaxSection(Document document, Fonts fonts, BigDecimal taxable, BigDecimal tax) {
+        document.add(new Paragraph("\n"));
+
+        Table table = new Table(UnitValue.createPercentArray(TAX_COLUMNS)).useAllAvailableWidth();
+        for (String h : TAX_HEADERS) {
+            table.addHeaderCell(new Cell().addStyle(BOXED).add(new Paragraph(h).setFont(fonts.bold).setFontSize(8))
+                    .setTextAlignment(TextAlignment.CENTER));
+        }
+
+        table.addCell(createCell(HSN_CODE, TextAlignment.LEFT));
+        table.addCell(createCell(formatCurrency(taxable), TextAlignment.RIGHT));
+        table.addCell(createCell("18%", TextAlignment.RIGHT));
+        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT));
+        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT));
+
+        table.addCell(createCell("Total", TextAlignment.RIGHT).setFont(fonts.bold));
+        table.addCell(createCell(formatCurrency(taxable), TextAlignment.RIGHT).setFont(fonts.bold));
+        table.addCell(createCell("", TextAlignment.CENTER));
+        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT).setFont(fonts.bold));
+        table.addCell(createCell(formatCurrency(tax), TextAlignment.RIGHT).setFont(fonts.bold));
+
+        document.add(table);
+        document.add(new Paragraph("Tax Amount (in words): " + convertNumberToWords(tax)).setFontSize(9).setMarginTop(5)
+                .setMarginLeft(5));
+    }
+
+    private void addFooter(Document document, Fonts fonts) {
+        document.add(new Paragraph("\n"));
+
+        Table footerTable = new Table(UnitValue.createPercentArray(HALVES)).useAllAvailableWidth();
+
+        Cell bankCell = new Cell().addStyle(BOXED).setPadding(5);
+        bankCell.add(new Paragraph("Company's Bank Details").setFont(fonts.bold).setUnderline().setFontSize(9));
+        bankCell.add(new Paragraph("A/c Holder's Name: " + COMPANY_NAME).setFontSize(8));
+        bankCell.add(new Paragraph("Bank Name: " + BANK_NAME).setFontSize(8));
+        bankCell.add(new Paragraph("A/c No.: " + BANK_ACC_NO).setFontSize(8));
+        bankCell.add(new Paragraph("Branch & IFS Code: " + BANK_IFSC).setFontSize(8));
+
+        Cell sigCell = new Cell().addStyle(BOXED).setPadding(5)
+                .setTextAlignment(TextAlignment.RIGHT)
+                .setVerticalAlignment(VerticalAlignment.BOTTOM);
+        sigCell.add(new Paragraph("for " + COMPANY_NAME).setFont(fonts.bold).setFontSize(8));
+        sigCell.add(new Paragraph("\n\n\n"));
+        sigCell.add(new Paragraph("Authorised Signatory").setFontSize(8));
+
+        footerTable.addCell(bankCell);
+        footerTable.addCell(sigCell);
+        document.add(footerTable);
+
+        document.add(new Paragraph("Company's PAN: " + COMPANY_PAN).setFontSize(8).setMarginTop(2));
+        document.add(new Paragraph("\nDeclaration").setFont(fonts.bold).setUnderline().setFontSize(8));
+        document.add(new Paragraph(DECLARATION).setFontSize(8));
+        document.add(new Paragraph("This is a Computer Generated Invoice").setFont(fonts.italic).setFontSize(8)
+                .setTextAlignment(TextAlignment.CENTER).setMarginTop(5));
+    }
+
+    private static String formatCurrency(BigDecimal value) {
+        if (value == null)
+            return "0.00";
+        return CURRENCY_FORMAT.get().format(value);
+    }
+
+    private static String formatMonth(String billingPeriod) {
+        if (billingPeriod == null)
+            return "";
+        try {
+            String[] parts = billingPeriod.split("-");
+            int year = Integer.parseInt(parts[0]);
+            int month = Integer.parseInt(parts[1]);
+            return java.time.Month.of(month).name() + " " + year;
+        } catch (Exception e) {
+            return billingPeriod;
+        }
+    }
+
+    private static String convertNumberToWords(BigDecimal amount) {
+        return "INR " + amount.setScale(2, RoundingMode.HALF_UP).toString() + " Only";
+    }
+
+    private static FontProgram loadFont(String name) {
+        try {
+            return FontProgramFactory.createFont(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load font " + name, e);
+        }
+    }
+
+    /**
+     * A PdfFont belongs to one document, so each document wraps the shared font programs itself.
+     */
+    private static final class Fonts {
+        private final PdfFont regular = wrap(REGULAR);
+        private final PdfFont bold = wrap(BOLD);
+        private final PdfFont italic = wrap(ITALIC);
+
+        private static PdfFont wrap(FontProgram program) {
+            return PdfFontFactory.createFont(program, PdfEncodings.WINANSI,
+                    PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+        }
+    }
+
+    private static final class RenderedPdf {
+        private final String fileName;
+        private final byte[] content;
+
+        private RenderedPdf(String fileName, byte[] content) {
+            this.fileName = fileName;
+            this.content = content;
+        }
+    }
+}
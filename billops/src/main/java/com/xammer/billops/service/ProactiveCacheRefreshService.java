@@ -154,8 +154,8 @@ public class ProactiveCacheRefreshService {
     public void refreshInvoicesCache() {
         logger.info("--- [3:30 AM] Starting Invoices Cache Refresh ---");
         try {
-            // Fetches all invoices from DB and updates the Redis cache used by the Admin/List view
-            invoiceManagementService.getAllInvoicesAndCache();
+            // Reloads every invoice from DB and rewrites its per-invoice Redis entry used by the Admin/List view
+            invoiceManagementService.getAllInvoices(true);
             logger.info("Successfully refreshed all invoices cache.");
         } catch (Exception e) {
             logger.error("Failed to refresh invoices cache", e);
@@ -10,7 +10,11 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit; // <-- Make sure to import this
 
 @Service
@@ -52,6 +56,28 @@ public class RedisCacheService {
         return Optional.empty();
     }
 
+    /**
+     * Reads several keys in one round trip. The result lines up with {@code keys}; missing or
+     * unreadable entries are null.
+     */
+    public <T> List<T> multiGet(List<String> keys, Class<T> clazz) {
+        List<T> values = new ArrayList<>(keys.size());
+        List<String> jsonData = keys.isEmpty() ? null : redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String json = jsonData != null ? jsonData.get(i) : null;
+            T value = null;
+            if (json != null) {
+                try {
+                    value = objectMapper.readValue(json, clazz);
+                } catch (IOException e) {
+                    logger.error("BILLOPS: Error deserializing cached data for key {}: {}", keys.get(i), e.getMessage());
+                }
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
     public <T> void put(String key, T value, long ttlInMinutes) {
         try {
             String jsonData = objectMapper.writeValueAsString(value);
@@ -68,4 +94,31 @@ public class RedisCacheService {
             logger.info("--- BILLOPS: EVICTED FROM REDIS CACHE: {} ---", key);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Records {@code member} (a cache key) under the set {@code indexKey}, so that everything
+     * cached for one entity can be evicted together with {@link #evictIndexed}.
+     */
+    public void addToIndex(String indexKey, String member, long ttlInMinutes) {
+        redisTemplate.opsForSet().add(indexKey, member);
+        redisTemplate.expire(indexKey, ttlInMinutes, TimeUnit.MINUTES);
+    }
+
+    public void addToIndexes(Collection<String> indexKeys, String member, long ttlInMinutes) {
+        for (String indexKey : indexKeys) {
+            addToIndex(indexKey, member, ttlInMinutes);
+        }
+    }
+
+    /**
+     * Evicts every key recorded under {@code indexKey}, then the index itself.
+     */
+    public void evictIndexed(String indexKey) {
+        Set<String> members = redisTemplate.opsForSet().members(indexKey);
+        if (members != null && !members.isEmpty()) {
+            redisTemplate.delete(members);
+            logger.info("--- BILLOPS: EVICTED {} INDEXED KEYS FROM REDIS CACHE: {} ---", members.size(), indexKey);
+        }
+        redisTemplate.delete(indexKey);
+    }
+}
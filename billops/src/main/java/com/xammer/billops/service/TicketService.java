@@ -6,7 +6,9 @@ import com.xammer.cloud.domain.Ticket;
 import com.xammer.cloud.domain.TicketReply;
 import com.xammer.cloud.domain.User;
 import com.xammer.billops.dto.TicketDto;
+import com.xammer.billops.dto.TicketPageDto;
 import com.xammer.billops.dto.TicketReplyDto;
+import com.xammer.billops.dto.TicketSummaryDto;
 import com.xammer.billops.repository.ClientRepository;
 import com.xammer.billops.repository.TicketReplyRepository;
 import com.xammer.billops.repository.TicketRepository;
@@ -14,10 +16,16 @@ import com.xammer.billops.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -35,6 +43,16 @@ public class TicketService {
     private static final String TICKETS_CATEGORY_PREFIX = "tickets:category:";
     private static final long CACHE_TTL_MINUTES = 60;
 
+    // Keyset pages: one cache entry per page, indexed by every ticket on it (and by scope for first pages)
+    private static final String TICKETS_PAGE_PREFIX = "tickets:page:";
+    private static final String TICKET_PAGES_INDEX_PREFIX = "tickets:page-index:ticket:";
+    private static final String HEAD_PAGES_INDEX_PREFIX = "tickets:page-index:head:";
+    private static final String ALL_SCOPE = "_all";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // Start-of-list cursor; sorts after any real updatedAt
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     @Autowired
     private TicketRepository ticketRepository;
     @Autowired
@@ -112,7 +130,7 @@ public class TicketService {
         }
         
         // 5. Evict Cache (Includes the specific category)
-        evictTicketCaches(savedTicket.getCategory());
+        evictTicketCaches(savedTicket.getId(), savedTicket.getCategory());
 
         return convertToDto(savedTicket);
     }
@@ -131,8 +149,10 @@ public class TicketService {
         }
 
         logger.debug("Fetching FRESH all tickets and updating cache");
-        List<TicketDto> freshData = ticketRepository.findAllWithRepliesAndAuthors().stream()
-                .map(this::convertToDto)
+        // List views never show replies, so only the summary projection is read
+        List<TicketDto> freshData = ticketRepository.findSummariesAfter(CURSOR_START, Long.MAX_VALUE, Pageable.unpaged())
+                .stream()
+                .map(this::convertSummaryToDto)
                 .collect(Collectors.toList());
 
         redisCache.put(TICKETS_ALL_CACHE_KEY, freshData, CACHE_TTL_MINUTES);
@@ -164,14 +184,70 @@ public class TicketService {
         }
 
         logger.debug("Fetching FRESH tickets for category: {} and updating cache", category);
-        List<TicketDto> freshData = ticketRepository.findAllByCategoryWithRepliesAndAuthors(category).stream()
-                .map(this::convertToDto)
+        List<TicketDto> freshData = ticketRepository
+                .findSummariesByCategoryAfter(category, CURSOR_START, Long.MAX_VALUE, Pageable.unpaged())
+                .stream()
+                .map(this::convertSummaryToDto)
                 .collect(Collectors.toList());
 
         redisCache.put(cacheKey, freshData, CACHE_TTL_MINUTES);
         return freshData;
     }
 
+    /**
+     * One page of ticket summaries ordered by (updatedAt, id), newest first. Pass the previous
+     * page's {@code nextCursor} to continue; a null category lists every ticket.
+     */
+    @Transactional(readOnly = true)
+    public TicketPageDto getTicketPage(String category, String cursor, Integer size, boolean forceRefresh) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        String scope = category != null && !category.isEmpty() ? category : ALL_SCOPE;
+        String pageKey = TICKETS_PAGE_PREFIX + scope + ":" + pageSize + ":" + (cursor != null ? cursor : "head");
+
+        if (!forceRefresh) {
+            Optional<TicketPageDto> cached = redisCache.get(pageKey, TicketPageDto.class);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        LocalDateTime afterUpdatedAt = CURSOR_START;
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("\\|");
+                afterUpdatedAt = LocalDateTime.parse(position[0]);
+                afterId = Long.parseLong(position[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid ticket cursor: " + cursor, e);
+            }
+        }
+
+        // One extra row tells us whether another page follows
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<TicketSummaryDto> rows = ALL_SCOPE.equals(scope)
+                ? ticketRepository.findSummariesAfter(afterUpdatedAt, afterId, limit)
+                : ticketRepository.findSummariesByCategoryAfter(category, afterUpdatedAt, afterId, limit);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            TicketSummaryDto last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getUpdatedAt(), last.getId());
+        }
+        TicketPageDto page = new TicketPageDto(rows, nextCursor);
+
+        redisCache.put(pageKey, page, CACHE_TTL_MINUTES);
+        redisCache.addToIndexes(rows.stream()
+                .map(row -> TICKET_PAGES_INDEX_PREFIX + row.getId())
+                .collect(Collectors.toList()), pageKey, CACHE_TTL_MINUTES);
+        if (cursor == null) {
+            redisCache.addToIndex(HEAD_PAGES_INDEX_PREFIX + scope, pageKey, CACHE_TTL_MINUTES);
+        }
+        return page;
+    }
+
     @Transactional
     public TicketDto addReplyToTicket(Long ticketId, TicketReplyDto replyDto, MultipartFile file) {
         Ticket ticket = ticketRepository.findById(ticketId)
@@ -216,6 +292,7 @@ public class TicketService {
 
         ticket.getReplies().add(reply);
         ticket.setStatus("IN_PROGRESS");
+        ticket.setUpdatedAt(LocalDateTime.now());
 
         Ticket updatedTicket = ticketRepository.save(ticket);
 
@@ -254,7 +331,7 @@ public class TicketService {
         }
         
         // Evict Cache for this specific category + Admin list
-        evictTicketCaches(updatedTicket.getCategory());
+        evictTicketCaches(updatedTicket.getId(), updatedTicket.getCategory());
         
         return convertToDto(updatedTicket);
     }
@@ -265,10 +342,11 @@ public class TicketService {
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
 
         ticket.setStatus("CLOSED");
+        ticket.setUpdatedAt(LocalDateTime.now());
         Ticket updatedTicket = ticketRepository.save(ticket);
         
         // Evict Cache for this specific category + Admin list
-        evictTicketCaches(updatedTicket.getCategory());
+        evictTicketCaches(updatedTicket.getId(), updatedTicket.getCategory());
         
         return convertToDto(updatedTicket);
     }
@@ -276,12 +354,17 @@ public class TicketService {
     // --- Helper Methods ---
     
     /**
-     * Evicts the global "All Tickets" list (for Admins) AND the specific category cache (for Users).
+     * Evicts the global "All Tickets" list (for Admins) AND the specific category cache (for Users),
+     * plus the cached pages that held this ticket and the first pages it now moves onto.
+     * Pages further down are keyed by cursor and stay valid.
+     * @param ticketId The ticket that was created or modified.
      * @param category The category of the ticket that was modified. Can be null if unknown.
      */
-    public void evictTicketCaches(String category) {
+    public void evictTicketCaches(Long ticketId, String category) {
         // 1. Evict Admin List (Always)
         redisCache.evict(TICKETS_ALL_CACHE_KEY);
+        redisCache.evictIndexed(TICKET_PAGES_INDEX_PREFIX + ticketId);
+        redisCache.evictIndexed(HEAD_PAGES_INDEX_PREFIX + ALL_SCOPE);
         
         // 2. Evict Specific Category Cache (If known)
         if (category != null && !category.isEmpty()) {
@@ -289,12 +372,35 @@ public class TicketService {
             // Assuming we match the key format used in getTicketsByCategory:
             String categoryKey = TICKETS_CATEGORY_PREFIX + category;
             redisCache.evict(categoryKey);
+            redisCache.evictIndexed(HEAD_PAGES_INDEX_PREFIX + category);
             logger.info("Evicted ticket caches: {} AND {}", TICKETS_ALL_CACHE_KEY, categoryKey);
         } else {
             logger.info("Evicted ticket cache: {}", TICKETS_ALL_CACHE_KEY);
         }
     }
 
+    private static String encodeCursor(LocalDateTime updatedAt, Long id) {
+        String position = updatedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private TicketDto convertSummaryToDto(TicketSummaryDto summary) {
+        TicketDto dto = new TicketDto();
+        dto.setId(summary.getId());
+        dto.setSubject(summary.getSubject());
+        dto.setDescription(summary.getDescription());
+        dto.setStatus(summary.getStatus());
+        dto.setCreatedAt(summary.getCreatedAt());
+        dto.setCategory(summary.getCategory());
+        dto.setService(summary.getService());
+        dto.setSeverity(summary.getSeverity());
+        dto.setAccountId(summary.getAccountId());
+        dto.setRegion(summary.getRegion());
+        dto.setClientId(summary.getClientId());
+        dto.setCreatorId(summary.getCreatorId());
+        return dto;
+    }
+
     private TicketDto convertToDto(Ticket ticket) {
         TicketDto dto = new TicketDto();
         dto.setId(ticket.getId());
@@ -12,6 +12,8 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Version;
+import org.hibernate.annotations.BatchSize;
 import com.xammer.billops.domain.Client;
 import com.xammer.billops.domain.CloudAccount;
 
@@ -29,6 +31,12 @@ public class Invoice {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Bumped by Hibernate on every change (line items and discounts included); keys the cached InvoiceDto.
+    // Left null until the insert seeds it: a non-null version marks the invoice as existing, and save() would merge it
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     private String invoiceNumber;
     private LocalDate invoiceDate;
     private String billingPeriod;
@@ -59,9 +67,11 @@ public class Invoice {
     private Client client;
 
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<InvoiceLineItem> lineItems = new ArrayList<>();
 
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<Discount> discounts = new ArrayList<>();
 
     public enum InvoiceStatus {
@@ -73,6 +83,8 @@ public class Invoice {
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getInvoiceNumber() { return invoiceNumber; }
     public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
     public LocalDate getInvoiceDate() { return invoiceDate; }
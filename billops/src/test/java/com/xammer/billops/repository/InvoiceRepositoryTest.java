@@ -0,0 +1,53 @@
+package com.xammer.billops.repository;
+
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.domain.CloudAccount;
+import com.xammer.cloud.domain.Invoice;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Optimistic-lock versions of invoices against an embedded database.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+class InvoiceRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Test
+    void newInvoiceIsPersistedNotMergedAndStartsAtVersionZero() {
+        Client client = entityManager.persist(new Client("Acme"));
+        CloudAccount account = new CloudAccount("prod", "ext-1", "read-only", client);
+        account.setProvider("AWS");
+        account = entityManager.persist(account);
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-1");
+        invoice.setStatus(Invoice.InvoiceStatus.DRAFT);
+        invoice.setClient(client);
+        invoice.setCloudAccount(account);
+
+        // merge() would hand back a copy and leave the argument detached
+        assertThat(invoiceRepository.save(invoice)).isSameAs(invoice);
+        entityManager.flush();
+        assertThat(invoice.getVersion()).isZero();
+
+        invoice.setAmount(BigDecimal.TEN);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(invoiceRepository.findVersionById(invoice.getId())).contains(1L);
+    }
+}
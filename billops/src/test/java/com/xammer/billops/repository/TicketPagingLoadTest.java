@@ -0,0 +1,139 @@
+package com.xammer.billops.repository;
+
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.dto.TicketSummaryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ten pages of ticket summaries read by (updatedAt, id) cursor against the same pages read by
+ * offset, over 100,000 tickets in the embedded database. Both paths are walked at the head of the
+ * list and at its tail, where an offset has to step over every earlier row; the best of five runs
+ * of each walk is printed with the bytes it allocated. Creating the index commits the seeded rows,
+ * so the context, and its database, is dropped afterwards.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@DirtiesContext
+class TicketPagingLoadTest {
+
+    private static final int TICKETS = 100_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int PAGES = 10;
+    private static final int RUNS = 5;
+    private static final LocalDateTime START = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final String[] CATEGORIES = { "Technical", "Account and Billing", "Service Limit" };
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        Client client = entityManager.persistAndFlush(new Client("Acme"));
+        List<Object[]> rows = new ArrayList<>(TICKETS);
+        for (int i = 0; i < TICKETS; i++) {
+            // Three tickets share each minute, so pages have to break ties on id
+            Timestamp updatedAt = Timestamp.valueOf(NEWEST.minusMinutes(i / 3));
+            rows.add(new Object[] { client.getId(), "ticket " + i, "OPEN", updatedAt, updatedAt,
+                    CATEGORIES[i % CATEGORIES.length] });
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.batchUpdate("INSERT INTO ticket (client_id, subject, status, created_at, updated_at, category)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", rows);
+        // The index TenantSchemaInitializer creates for the list views
+        jdbc.execute("CREATE INDEX idx_ticket_updated_at_id ON ticket (updated_at, id)");
+        entityManager.clear();
+    }
+
+    @Test
+    void cursorPagesMatchOffsetPagesAndStayCheapAtTheTail() {
+        int tailPage = TICKETS / PAGE_SIZE - PAGES;
+        TicketSummaryDto beforeTail = offsetPage(tailPage * PAGE_SIZE - 1, 1).get(0);
+
+        List<Long> cursorHead = measure("cursor, head", () -> cursorWalk(START, Long.MAX_VALUE));
+        List<Long> offsetHead = measure("offset, head", () -> offsetWalk(0));
+        List<Long> cursorTail = measure("cursor, tail", () -> cursorWalk(beforeTail.getUpdatedAt(), beforeTail.getId()));
+        List<Long> offsetTail = measure("offset, tail", () -> offsetWalk(tailPage));
+
+        assertThat(cursorHead).hasSize(PAGES * PAGE_SIZE).doesNotHaveDuplicates().isEqualTo(offsetHead);
+        assertThat(cursorTail).hasSize(PAGES * PAGE_SIZE).doesNotHaveDuplicates().isEqualTo(offsetTail);
+        assertThat(cursorTail).doesNotContainAnyElementsOf(cursorHead);
+    }
+
+    private List<Long> cursorWalk(LocalDateTime afterUpdatedAt, long afterId) {
+        List<Long> ids = new ArrayList<>(PAGES * PAGE_SIZE);
+        for (int page = 0; page < PAGES; page++) {
+            List<TicketSummaryDto> rows = ticketRepository.findSummariesAfter(afterUpdatedAt, afterId,
+                    PageRequest.of(0, PAGE_SIZE));
+            for (TicketSummaryDto row : rows) {
+                ids.add(row.getId());
+            }
+            TicketSummaryDto last = rows.get(rows.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+        }
+        return ids;
+    }
+
+    // The offset read a Pageable of (page, size) issues for the same projection and order
+    private List<Long> offsetWalk(int firstPage) {
+        List<Long> ids = new ArrayList<>(PAGES * PAGE_SIZE);
+        for (int page = firstPage; page < firstPage + PAGES; page++) {
+            for (TicketSummaryDto row : offsetPage(page * PAGE_SIZE, PAGE_SIZE)) {
+                ids.add(row.getId());
+            }
+        }
+        return ids;
+    }
+
+    private List<TicketSummaryDto> offsetPage(int offset, int limit) {
+        return entityManager.getEntityManager()
+                .createQuery(TicketRepository.SUMMARY_SELECT + TicketRepository.NEWEST_FIRST, TicketSummaryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Best of RUNS after one warm-up walk, timed and with the bytes this thread allocated
+    private static List<Long> measure(String label, Supplier<List<Long>> walk) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        List<Long> ids = walk.get();
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long started = System.nanoTime();
+            ids = walk.get();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - started);
+            bestBytes = Math.min(bestBytes, threads.getThreadAllocatedBytes(thread) - bytesBefore);
+        }
+        System.out.printf("%s: %d pages of %d in %.1f ms, %d KB allocated%n",
+                label, PAGES, PAGE_SIZE, bestNanos / 1e6, bestBytes / 1024);
+        return ids;
+    }
+}
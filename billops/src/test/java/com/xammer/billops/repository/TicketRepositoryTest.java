@@ -0,0 +1,131 @@
+package com.xammer.billops.repository;
+
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.dto.TicketSummaryDto;
+import com.xammer.cloud.domain.Ticket;
+import com.xammer.cloud.domain.TicketReply;
+import com.xammer.cloud.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset paging of ticket summaries on (updatedAt, id) against an embedded database.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+class TicketRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final LocalDateTime NINE = LocalDateTime.of(2024, 5, 1, 9, 0);
+    private static final LocalDateTime TEN = NINE.plusHours(1);
+    private static final LocalDateTime ELEVEN = NINE.plusHours(2);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    private Client client;
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        client = entityManager.persist(new Client("Acme"));
+        author = new User("agent@acme.test", "secret", client);
+        author.setEmail("agent@acme.test");
+        author = entityManager.persist(author);
+    }
+
+    @Test
+    void pagesWalkEveryTicketOnceNewestFirstWithTiesBrokenById() {
+        Ticket first = ticket("first", TEN, "Technical");
+        Ticket tiedWithFirst = ticket("tied", TEN, "Technical");
+        Ticket olderActivity = ticket("older", NINE, "Account and Billing");
+        Ticket newest = ticket("newest", ELEVEN, "Technical");
+        Ticket tiedWithNewest = ticket("newest-tied", ELEVEN, "Technical");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> walked = new ArrayList<>();
+        LocalDateTime afterUpdatedAt = START;
+        long afterId = Long.MAX_VALUE;
+        List<TicketSummaryDto> page;
+        do {
+            page = ticketRepository.findSummariesAfter(afterUpdatedAt, afterId, PageRequest.of(0, 2));
+            assertThat(page.size()).isLessThanOrEqualTo(2);
+            for (TicketSummaryDto row : page) {
+                walked.add(row.getId());
+                afterUpdatedAt = row.getUpdatedAt();
+                afterId = row.getId();
+            }
+        } while (!page.isEmpty());
+
+        assertThat(walked).containsExactly(tiedWithNewest.getId(), newest.getId(), tiedWithFirst.getId(),
+                first.getId(), olderActivity.getId());
+    }
+
+    @Test
+    void summariesCountRepliesWithoutLoadingThem() {
+        Ticket withReplies = ticket("with replies", TEN, "Technical");
+        reply(withReplies, "first");
+        reply(withReplies, "second");
+        Ticket withoutReplies = ticket("quiet", NINE, "Technical");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TicketSummaryDto> rows = ticketRepository.findSummariesAfter(START, Long.MAX_VALUE, PageRequest.of(0, 10));
+
+        assertThat(rows).extracting(TicketSummaryDto::getId).containsExactly(withReplies.getId(), withoutReplies.getId());
+        assertThat(rows).extracting(TicketSummaryDto::getReplyCount).containsExactly(2L, 0L);
+        assertThat(rows.get(0).getClientId()).isEqualTo(client.getId());
+        assertThat(rows.get(0).getCreatorId()).isNull();
+    }
+
+    @Test
+    void categoryPagesSkipOtherCategories() {
+        Ticket billing = ticket("invoice", TEN, "Account and Billing");
+        ticket("outage", ELEVEN, "Technical");
+        Ticket olderBilling = ticket("credit", NINE, "Account and Billing");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TicketSummaryDto> head = ticketRepository.findSummariesByCategoryAfter("Account and Billing", START,
+                Long.MAX_VALUE, PageRequest.of(0, 1));
+        assertThat(head).extracting(TicketSummaryDto::getId).containsExactly(billing.getId());
+
+        List<TicketSummaryDto> next = ticketRepository.findSummariesByCategoryAfter("Account and Billing",
+                head.get(0).getUpdatedAt(), head.get(0).getId(), PageRequest.of(0, 1));
+        assertThat(next).extracting(TicketSummaryDto::getId).containsExactly(olderBilling.getId());
+    }
+
+    private Ticket ticket(String subject, LocalDateTime updatedAt, String category) {
+        Ticket ticket = new Ticket();
+        ticket.setSubject(subject);
+        ticket.setStatus("OPEN");
+        ticket.setClient(client);
+        ticket.setCategory(category);
+        ticket.setCreatedAt(updatedAt.minusDays(1));
+        ticket.setUpdatedAt(updatedAt);
+        return entityManager.persist(ticket);
+    }
+
+    private void reply(Ticket ticket, String message) {
+        TicketReply reply = new TicketReply();
+        reply.setTicket(ticket);
+        reply.setAuthor(author);
+        reply.setMessage(message);
+        entityManager.persist(reply);
+    }
+}
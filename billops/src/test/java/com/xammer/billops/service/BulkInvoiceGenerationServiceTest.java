@@ -0,0 +1,233 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.domain.CloudAccount;
+import com.xammer.billops.dto.InvoiceRunReport;
+import com.xammer.billops.dto.ServiceCostDetailDto;
+import com.xammer.billops.repository.ClientRepository;
+import com.xammer.billops.repository.CloudAccountRepository;
+import com.xammer.cloud.domain.Invoice;
+import com.xammer.cloud.domain.InvoiceLineItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Restarting an invoice run after a failed chunk, and the throughput of a 1,000-account run,
+ * against an embedded database. Runs commit on their own thread, so the test itself is not
+ * transactional.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkInvoiceGenerationServiceTest {
+
+    private static final String PERIOD = "2024-05";
+    // Stand-in for one account's Cost Explorer round trips
+    private static final long FETCH_MILLIS = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CloudAccountRepository cloudAccountRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private final Map<String, Object> reports = new HashMap<>();
+    private final Set<Long> brokenAccounts = new HashSet<>();
+    private InvoiceManagementService invoiceManagementService;
+    private BulkInvoiceGenerationService service;
+    private List<Long> accountIds;
+    private Client client;
+
+    private final RedisCacheService inMemoryCache = new RedisCacheService(null, null) {
+        @Override
+        public <T> Optional<T> get(String key, Class<T> clazz) {
+            return Optional.ofNullable(clazz.cast(reports.get(key)));
+        }
+
+        @Override
+        public <T> void put(String key, T value, long ttlInMinutes) {
+            reports.put(key, value);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(new Client("Acme"));
+        accountIds = new ArrayList<>();
+        for (String awsId : List.of("111111111111", "222222222222", "333333333333")) {
+            CloudAccount account = new CloudAccount();
+            account.setAccountName("acct-" + awsId);
+            account.setAwsAccountId(awsId);
+            account.setProvider("AWS");
+            account.setStatus("CONNECTED");
+            account.setClient(client);
+            accountIds.add(cloudAccountRepository.save(account).getId());
+        }
+
+        invoiceManagementService = mock(InvoiceManagementService.class);
+        when(invoiceManagementService.fetchDetailedReport(any(), anyString(), eq(2024), eq(5)))
+                .thenReturn(List.of(new ServiceCostDetailDto()));
+        when(invoiceManagementService.buildDraftInvoice(any(), anyList(), eq(2024), eq(5)))
+                .thenAnswer(invocation -> draft(invocation.getArgument(0)));
+
+        service = new BulkInvoiceGenerationService(invoiceManagementService, cloudAccountRepository, jdbcTemplate,
+                transactionManager, inMemoryCache, 2);
+        // One account per chunk, so every account is its own transaction
+        ReflectionTestUtils.setField(service, "chunkSize", 1);
+        ReflectionTestUtils.setField(service, "lineItemBatchSize", 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        jdbcTemplate.update("DELETE FROM invoice_line_item");
+        jdbcTemplate.update("DELETE FROM invoice");
+        jdbcTemplate.update("DELETE FROM cloud_account");
+        jdbcTemplate.update("DELETE FROM client");
+    }
+
+    @Test
+    void resumedRunFinishesWithoutDuplicatingCommittedInvoices() {
+        brokenAccounts.add(accountIds.get(1));
+
+        InvoiceRunReport failed = service.startRun(2024, 5).join();
+
+        assertThat(failed.getStatus()).isEqualTo(InvoiceRunReport.Status.FAILED);
+        assertThat(invoicedAccounts()).doesNotContain(accountIds.get(1)).hasSize(failed.getGenerated());
+        assertThat(lineItemCount()).isEqualTo(2L * failed.getGenerated());
+
+        brokenAccounts.clear();
+        InvoiceRunReport resumed = service.startRun(2024, 5).join();
+
+        assertThat(resumed.getStatus()).isEqualTo(InvoiceRunReport.Status.COMPLETED);
+        assertThat(resumed.getRunId()).isEqualTo(failed.getRunId());
+        assertThat(resumed.getAttempts()).isEqualTo(2);
+        assertThat(resumed.getGenerated()).isEqualTo(3);
+        assertThat(resumed.getSkipped()).isZero();
+        assertThat(invoicedAccounts()).containsExactlyInAnyOrderElementsOf(accountIds);
+        assertThat(lineItemCount()).isEqualTo(6L);
+    }
+
+    @Test
+    void rerunningACompletedPeriodWritesNothing() {
+        InvoiceRunReport first = service.startRun(2024, 5).join();
+        assertThat(first.getGenerated()).isEqualTo(3);
+        clearInvocations(invoiceManagementService);
+
+        InvoiceRunReport rerun = service.startRun(2024, 5).join();
+
+        assertThat(rerun.getStatus()).isEqualTo(InvoiceRunReport.Status.COMPLETED);
+        assertThat(rerun.getRunId()).isNotEqualTo(first.getRunId());
+        assertThat(rerun.getGenerated()).isZero();
+        assertThat(rerun.getSkipped()).isEqualTo(3);
+        assertThat(invoicedAccounts()).containsExactlyInAnyOrderElementsOf(accountIds);
+        verifyNoInteractions(invoiceManagementService);
+    }
+
+    @Test
+    void voidedInvoiceIsRegenerated() {
+        service.startRun(2024, 5).join();
+        jdbcTemplate.update("UPDATE invoice SET status = 'VOID' WHERE cloud_account_id = ?", accountIds.get(0));
+
+        InvoiceRunReport rerun = service.startRun(2024, 5).join();
+
+        assertThat(rerun.getGenerated()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM invoice WHERE cloud_account_id = ? AND status <> 'VOID'", Long.class,
+                accountIds.get(0))).isEqualTo(1L);
+    }
+
+    @Test
+    void thousandAccountRunOverlapsItsCostFetches() {
+        List<CloudAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 997; i++) {
+            CloudAccount account = new CloudAccount();
+            account.setAccountName("acct-" + i);
+            account.setAwsAccountId(String.format("%012d", 500_000_000_000L + i));
+            account.setProvider("AWS");
+            account.setStatus("CONNECTED");
+            account.setClient(client);
+            accounts.add(account);
+        }
+        cloudAccountRepository.saveAll(accounts);
+        when(invoiceManagementService.fetchDetailedReport(any(), anyString(), eq(2024), eq(5)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(FETCH_MILLIS);
+                    return List.of(new ServiceCostDetailDto());
+                });
+        // The production defaults: 8 fetch threads, chunks of 50
+        BulkInvoiceGenerationService production = new BulkInvoiceGenerationService(invoiceManagementService,
+                cloudAccountRepository, jdbcTemplate, transactionManager, inMemoryCache, 8);
+        ReflectionTestUtils.setField(production, "chunkSize", 50);
+        ReflectionTestUtils.setField(production, "lineItemBatchSize", 500);
+
+        InvoiceRunReport report;
+        try {
+            report = production.startRun(2024, 5).join();
+        } finally {
+            production.shutdown();
+        }
+        System.out.printf("1,000 accounts: %d ms, %.0f accounts/min (%d ms fetch each, %d ms if fetched serially)%n",
+                report.getElapsedMillis(), report.getAccountsPerMinute(), FETCH_MILLIS, 1000 * FETCH_MILLIS);
+
+        assertThat(report.getStatus()).isEqualTo(InvoiceRunReport.Status.COMPLETED);
+        assertThat(report.getGenerated()).isEqualTo(1000);
+        assertThat(lineItemCount()).isEqualTo(2000L);
+        assertThat(invoicedAccounts()).hasSize(1000).doesNotHaveDuplicates();
+        // Fetching one account at a time would take 10s on its own
+        assertThat(report.getElapsedMillis()).isLessThan(500 * FETCH_MILLIS);
+    }
+
+    private Invoice draft(CloudAccount account) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-" + account.getId());
+        invoice.setInvoiceDate(LocalDate.of(2024, 6, 1));
+        invoice.setBillingPeriod(PERIOD);
+        invoice.setStatus(Invoice.InvoiceStatus.DRAFT);
+        invoice.setPreDiscountTotal(new BigDecimal("20"));
+        invoice.setDiscountAmount(BigDecimal.ZERO);
+        invoice.setTaxAmount(new BigDecimal("3.6"));
+        invoice.setAmount(new BigDecimal("23.6"));
+        invoice.setCloudAccount(account);
+        // A draft without a client fails its insert, which rolls back its chunk and stops the run
+        invoice.setClient(brokenAccounts.contains(account.getId()) ? null : client);
+        for (String service : List.of("Amazon EC2", "Amazon S3")) {
+            InvoiceLineItem item = new InvoiceLineItem();
+            item.setServiceName(service);
+            item.setRegionName("us-east-1");
+            item.setCost(BigDecimal.TEN);
+            item.setInvoice(invoice);
+            invoice.getLineItems().add(item);
+        }
+        return invoice;
+    }
+
+    private List<Long> invoicedAccounts() {
+        return jdbcTemplate.queryForList("SELECT cloud_account_id FROM invoice WHERE billing_period = ?", Long.class,
+                PERIOD);
+    }
+
+    private long lineItemCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoice_line_item", Long.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.xammer.billops.service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.xammer.billops.service.CloudFrontUsageService.CloudFrontUsageDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel range parsing against the sequential opencsv reader it replaced, on a generated CUR file.
+ * Not run by the build; start it from the IDE or with
+ * {@code mvn -pl billops test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.billops.service.CloudFrontCurParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class CloudFrontCurParserBenchmark {
+
+    private static final String[] REGIONS = { "ap-south-1", "eu-west-1", "us-east-1", "sa-east-1" };
+    private static final String[] USAGE_TYPES = { "DataTransfer-Out-Bytes", "Requests-Tier1", "Requests-Tier2-HTTPS",
+            "Invalidations" };
+
+    // About 200 bytes a row, so 5M rows is roughly 1 GB
+    @Param({ "1000000", "5000000" })
+    public int rows;
+
+    @Param({ "1", "4", "8" })
+    public int threads;
+
+    private Path csv;
+    private ExecutorService pool;
+    private CloudFrontCurParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("cur-benchmark", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("identity/LineItemId,identity/TimeInterval,lineItem/ProductCode,lineItem/UsageType,"
+                    + "lineItem/UsageAmount,lineItem/UnblendedCost,product/region,product/ProductName,"
+                    + "resourceTags/user:team,pricing/unit\n");
+            for (int i = 0; i < rows; i++) {
+                out.write("li-" + i + ",2024-05-01T00:00:00Z/2024-05-02T00:00:00Z,"
+                        + (i % 3 == 0 ? "AmazonS3" : "AmazonCloudFront") + ","
+                        + USAGE_TYPES[i % USAGE_TYPES.length] + "," + (i % 1000) * 0.001 + "," + (i % 37) * 0.0001
+                        + "," + REGIONS[i % REGIONS.length] + ",\"Amazon CloudFront, edge location " + (i % 400)
+                        + "\",platform-" + (i % 12) + ",GB\n");
+            }
+        }
+        pool = Executors.newFixedThreadPool(threads);
+        parser = new CloudFrontCurParser(pool, 64L * 1024 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public List<CloudFrontUsageDto> parallelRanges() throws IOException {
+        return parser.parse(csv);
+    }
+
+    /**
+     * The previous implementation: every row is split into strings by opencsv on one thread. Thread
+     * count does not apply, so it is only measured once.
+     */
+    @Benchmark
+    public Map<String, double[]> sequentialOpenCsv() throws Exception {
+        Map<String, double[]> totals = new HashMap<>();
+        if (threads != 1) {
+            return totals;
+        }
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             CSVReader csvReader = new CSVReaderBuilder(reader).build()) {
+            csvReader.readNext();
+            String[] record;
+            while ((record = csvReader.readNext()) != null) {
+                if (!"AmazonCloudFront".equalsIgnoreCase(record[2])) {
+                    continue;
+                }
+                double[] total = totals.computeIfAbsent(record[6] + "|" + record[3] + "|" + record[9],
+                        key -> new double[2]);
+                total[0] += Double.parseDouble(record[4]);
+                total[1] += Double.parseDouble(record[5]);
+            }
+        }
+        return totals;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CloudFrontCurParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
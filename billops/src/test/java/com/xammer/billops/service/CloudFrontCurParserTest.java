@@ -0,0 +1,170 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.service.CloudFrontUsageService.CloudFrontUsageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tokenizing and range splitting of {@link CloudFrontCurParser} on small CUR files written to disk.
+ */
+class CloudFrontCurParserTest {
+
+    private static final String HEADER = "identity/LineItemId,lineItem/ProductCode,lineItem/UsageType,"
+            + "lineItem/UsageAmount,lineItem/UnblendedCost,product/region,product/ProductName,pricing/unit";
+    // Smallest range the parser accepts
+    private static final long ONE_MB = 1024L * 1024L;
+    private static final long WHOLE_FILE = 1L << 40;
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommasAndEscapedQuotes() throws IOException {
+        List<CloudFrontUsageDto> usage = parse(lines(
+                HEADER,
+                "\"id,1\",AmazonCloudFront,US-DataTransfer-Out-Bytes,10.5,0.85,us-east-1,\"Amazon CloudFront, \"\"edge\"\"\",GB",
+                "\"id\"\"2\",AmazonCloudFront,\"US-DataTransfer-Out-Bytes\",4.5,\"0.15\",\"us-east-1\",x,GB",
+                "id3,AmazonEC2,BoxUsage,100,5,us-east-1,EC2,Hrs",
+                "id4,\"Amazon CloudFront\",\"EU-Requests-Tier1\",1000,0.75,\"eu-west-1\",y,",
+                "id5,AmazonCloudFront,\"Invalidations \"\"paid\"\"\",2,0.01,,z,"), WHOLE_FILE);
+
+        assertThat(usage).extracting(CloudFrontUsageDto::getRegion, CloudFrontUsageDto::getUsageType,
+                CloudFrontUsageDto::getUnit).containsExactly(
+                        tuple("Global", "Invalidations \"paid\"", "GB"),
+                        tuple("eu-west-1", "EU-Requests-Tier1", "Requests"),
+                        tuple("us-east-1", "US-DataTransfer-Out-Bytes", "GB"));
+        assertThat(usage.get(1).getQuantity()).isEqualTo(1000.0);
+        assertThat(usage.get(2).getQuantity()).isEqualTo(15.0);
+        assertThat(usage.get(2).getCost()).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void crlfLineEndingsAreNotPartOfTheLastField() throws IOException {
+        String[] rows = {
+                HEADER,
+                "id1,AmazonCloudFront,US-DataTransfer-Out-Bytes,3,0.25,us-east-1,x,GB",
+                "id2,AmazonCloudFront,US-Requests-Tier1,500,0.5,us-east-1,x,Requests",
+                "id3,AmazonCloudFront,US-DataTransfer-Out-Bytes,1,0.25,us-east-1,x,GB" };
+        // No line break after the last row
+        String crlf = String.join("\r\n", rows);
+
+        List<CloudFrontUsageDto> usage = parse(crlf, WHOLE_FILE);
+
+        assertThat(usage).extracting(CloudFrontUsageDto::getUnit).containsExactly("GB", "Requests");
+        assertThat(usage.get(0).getQuantity()).isEqualTo(4.0);
+        assertThat(usage.get(0).getCost()).isEqualTo(0.5);
+        assertThat(describe(usage)).isEqualTo(describe(parse(lines(rows), WHOLE_FILE)));
+    }
+
+    @Test
+    void rowsCutByRangeAndBufferEdgesAreCountedOnce() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        Map<String, double[]> expected = new TreeMap<>();
+        String[] regions = { "ap-south-1", "eu-west-1", "us-east-1" };
+        String[] usageTypes = { "DataTransfer-Out-Bytes", "Requests-Tier1", "Requests-Tier2-HTTPS", "Invalidations" };
+        for (int i = 0; i < 40_000; i++) {
+            boolean cloudFront = i % 10 != 0;
+            String region = regions[i % regions.length];
+            String usageType = usageTypes[i % usageTypes.length];
+            // Multiples of 1/8 add up exactly in any order
+            double quantity = (i % 8) * 0.25;
+            double cost = (i % 5) * 0.125;
+            csv.append("id-").append(i).append(',')
+                    .append(cloudFront ? "AmazonCloudFront" : "AmazonS3").append(',')
+                    .append(usageType).append(',').append(quantity).append(',').append(cost).append(',')
+                    .append(region).append(',')
+                    .append("\"edge, tier ").append("x".repeat(i % 97)).append("\",GB")
+                    .append(i % 2 == 0 ? "\n" : "\r\n");
+            if (cloudFront) {
+                double[] total = expected.computeIfAbsent(region + "|" + usageType + "|GB", key -> new double[2]);
+                total[0] += quantity;
+                total[1] += cost;
+            }
+        }
+        assertThat((long) csv.length()).isGreaterThan(3 * ONE_MB);
+
+        List<CloudFrontUsageDto> ranged = parse(csv.toString(), ONE_MB);
+        List<CloudFrontUsageDto> whole = parse(csv.toString(), WHOLE_FILE);
+
+        Map<String, double[]> actual = ranged.stream().collect(Collectors.toMap(
+                dto -> dto.getRegion() + "|" + dto.getUsageType() + "|" + dto.getUnit(),
+                dto -> new double[] { dto.getQuantity(), dto.getCost() }, (a, b) -> a, TreeMap::new));
+        assertThat(actual.keySet()).containsExactlyElementsOf(expected.keySet());
+        expected.forEach((key, total) -> assertThat(actual.get(key)).as(key).containsExactly(total));
+        assertThat(describe(ranged)).isEqualTo(describe(whole));
+    }
+
+    @Test
+    void malformedRowsAreSkippedWithoutFailingTheFile() throws IOException {
+        List<CloudFrontUsageDto> usage = parse(lines(
+                HEADER,
+                "m1,AmazonCloudFront,US-Bytes,abc,0.1,us-east-1,x,GB",
+                "m2,AmazonCloudFront,US-Bytes",
+                "m3,AmazonCloudFront,\"US-Bytes,2,0.1,us-east-1,x,GB",
+                "",
+                "c1,AmazonCloudFront,US-Bytes,0,-3,us-east-1,x,GB",
+                "g1,AmazonCloudFront,US-Bytes,2,0.5,us-east-1,x,GB"), WHOLE_FILE);
+
+        assertThat(describe(usage)).containsExactly("us-east-1|US-Bytes|GB|2.0|0.5");
+    }
+
+    @Test
+    void snakeCaseHeadersWithByteOrderMarkAndPackedRegionAttributes() throws IOException {
+        List<CloudFrontUsageDto> usage = parse(lines(
+                "\uFEFFline_item_product_code,line_item_usage_type,line_item_usage_amount,line_item_unblended_cost,product_region",
+                "AmazonCloudFront,AP-Requests-Tier1,10,0.25,\"product_name:Amazon CloudFront,region:ap-south-1\"",
+                "AmazonCloudFront,AP-DataTransfer-Out-Bytes,1,0.5,"), WHOLE_FILE);
+
+        assertThat(describe(usage)).containsExactly("Global|AP-DataTransfer-Out-Bytes|GB|1.0|0.5",
+                "ap-south-1|AP-Requests-Tier1|Requests|10.0|0.25");
+    }
+
+    @Test
+    void missingRequiredColumnsAreRejected() {
+        assertThatThrownBy(() -> parse(lines("lineItem/ProductCode,lineItem/UsageType", "AmazonCloudFront,x"),
+                WHOLE_FILE))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Invalid CUR file format");
+    }
+
+    private List<CloudFrontUsageDto> parse(String csv, long chunkBytes) throws IOException {
+        Path file = Files.createTempFile(dir, "cur", ".csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return new CloudFrontCurParser(pool, chunkBytes).parse(file);
+    }
+
+    private static String lines(String... lines) {
+        return String.join("\n", lines) + "\n";
+    }
+
+    private static List<String> describe(List<CloudFrontUsageDto> usage) {
+        return usage.stream()
+                .map(dto -> dto.getRegion() + "|" + dto.getUsageType() + "|" + dto.getUnit() + "|"
+                        + dto.getQuantity() + "|" + dto.getCost())
+                .collect(Collectors.toList());
+    }
+}
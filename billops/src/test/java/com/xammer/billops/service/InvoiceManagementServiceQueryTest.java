@@ -0,0 +1,200 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.domain.CloudAccount;
+import com.xammer.billops.dto.InvoiceDto;
+import com.xammer.billops.repository.*;
+import com.xammer.cloud.domain.Discount;
+import com.xammer.cloud.domain.Invoice;
+import com.xammer.cloud.domain.InvoiceLineItem;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Statement counts of the admin invoice reads against an embedded database, with the DTO cache
+ * held in memory.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+class InvoiceManagementServiceQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    private final Map<String, Object> cache = new HashMap<>();
+    private final List<String> cacheWrites = new ArrayList<>();
+    private Statistics statistics;
+    private InvoiceManagementService service;
+    private Client client;
+    private CloudAccount account;
+
+    // Stands in for Redis: values are kept as-is instead of round-tripping through JSON
+    private final RedisCacheService inMemoryCache = new RedisCacheService(null, null) {
+        @Override
+        public <T> Optional<T> get(String key, Class<T> clazz) {
+            return Optional.ofNullable(clazz.cast(cache.get(key)));
+        }
+
+        @Override
+        public <T> List<T> multiGet(List<String> keys, Class<T> clazz) {
+            List<T> values = new ArrayList<>();
+            keys.forEach(key -> values.add(clazz.cast(cache.get(key))));
+            return values;
+        }
+
+        @Override
+        public <T> void put(String key, T value, long ttlInMinutes) {
+            cache.put(key, value);
+            cacheWrites.add(key);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        service = new InvoiceManagementService(invoiceRepository, mock(CloudAccountRepository.class),
+                mock(DiscountRepository.class), mock(BillingService.class), mock(GcpCostService.class),
+                mock(AzureCostService.class), mock(AppUserRepository.class), mock(EmailService.class),
+                mock(CloudFrontUsageService.class), mock(CloudFrontPrivateRateRepository.class),
+                mock(ClientRepository.class), inMemoryCache, mock(InvoicePdfRenderer.class));
+
+        client = entityManager.persist(new Client("Acme"));
+        account = new CloudAccount();
+        account.setAccountName("acme-prod");
+        account.setAwsAccountId("123456789012");
+        account.setProvider("AWS");
+        account.setClient(client);
+        account = entityManager.persist(account);
+    }
+
+    @Test
+    void invoiceListLoadsInAFixedNumberOfStatements() {
+        for (int i = 1; i <= 12; i++) {
+            invoice("INV-" + i, 3, 2);
+        }
+        startCounting();
+
+        List<InvoiceDto> invoices = service.getAllInvoices(false);
+
+        assertThat(invoices).hasSize(12);
+        assertThat(invoices).allSatisfy(dto -> {
+            assertThat(dto.getLineItems()).hasSize(3);
+            assertThat(dto.getDiscounts()).hasSize(2);
+            assertThat(dto.getAccountName()).isEqualTo("acme-prod");
+            assertThat(dto.getClientName()).isEqualTo("Acme");
+        });
+        // Versions, invoices with account, client and line items, then one batch of discounts
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(cacheWrites).hasSize(12);
+    }
+
+    @Test
+    void cachedListOnlyReadsVersions() {
+        for (int i = 1; i <= 5; i++) {
+            invoice("INV-" + i, 2, 1);
+        }
+        service.getAllInvoices(false);
+        startCounting();
+
+        assertThat(service.getAllInvoices(false)).hasSize(5);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(cacheWrites).isEmpty();
+    }
+
+    @Test
+    void adminDetailIsServedFromCacheUntilTheVersionChanges() {
+        Invoice invoice = invoice("INV-1", 2, 1);
+        startCounting();
+
+        assertThat(service.getInvoiceForAdmin(invoice.getId()).getAmount()).isEqualByComparingTo("100");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        startCounting();
+        service.getInvoiceForAdmin(invoice.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(cacheWrites).isEmpty();
+
+        Invoice stored = invoiceRepository.findById(invoice.getId()).orElseThrow();
+        stored.setAmount(new BigDecimal("80"));
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(invoiceRepository.findVersionById(invoice.getId())).contains(1L);
+
+        assertThat(service.getInvoiceForAdmin(invoice.getId()).getAmount()).isEqualByComparingTo("80");
+        assertThat(cacheWrites).hasSize(1).allSatisfy(key -> assertThat(key).endsWith(":v1"));
+    }
+
+    @Test
+    void versionBumpReloadsOnlyThatInvoiceInTheList() {
+        Invoice changed = invoice("INV-1", 1, 0);
+        invoice("INV-2", 1, 0);
+        service.getAllInvoices(false);
+
+        Invoice stored = invoiceRepository.findById(changed.getId()).orElseThrow();
+        stored.setStatus(Invoice.InvoiceStatus.FINALIZED);
+        entityManager.flush();
+        entityManager.clear();
+        cacheWrites.clear();
+
+        List<InvoiceDto> invoices = service.getAllInvoices(false);
+
+        assertThat(invoices).extracting(InvoiceDto::getStatus).containsExactly("FINALIZED", "DRAFT");
+        assertThat(cacheWrites).hasSize(1).allSatisfy(key -> assertThat(key).endsWith(changed.getId() + ":v1"));
+    }
+
+    private Invoice invoice(String number, int lineItems, int discounts) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber(number);
+        invoice.setInvoiceDate(LocalDate.of(2024, 6, 1));
+        invoice.setBillingPeriod("2024-05");
+        invoice.setStatus(Invoice.InvoiceStatus.DRAFT);
+        invoice.setAmount(new BigDecimal("100"));
+        invoice.setCloudAccount(account);
+        invoice.setClient(client);
+        for (int i = 0; i < lineItems; i++) {
+            InvoiceLineItem item = new InvoiceLineItem();
+            item.setServiceName("Amazon EC2");
+            item.setRegionName("us-east-1");
+            item.setUsageQuantity("10 Hrs");
+            item.setUnit("Hrs");
+            item.setCost(new BigDecimal("10"));
+            item.setInvoice(invoice);
+            invoice.getLineItems().add(item);
+        }
+        for (int i = 0; i < discounts; i++) {
+            Discount discount = new Discount();
+            discount.setServiceName("Amazon EC2");
+            discount.setPercentage(new BigDecimal("5"));
+            discount.setInvoice(invoice);
+            discount.setClient(client);
+            invoice.getDiscounts().add(discount);
+        }
+        return entityManager.persist(invoice);
+    }
+
+    // Starts a fresh persistence context so nothing is served from the first-level cache
+    private void startCounting() {
+        entityManager.flush();
+        entityManager.clear();
+        cacheWrites.clear();
+        statistics.clear();
+    }
+}
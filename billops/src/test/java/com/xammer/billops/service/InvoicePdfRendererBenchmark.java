@@ -0,0 +1,118 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.dto.InvoiceDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tax invoice PDFs from InvoicePdfRenderer: the latency of one render, and the throughput of a
+ * 200-invoice ZIP on the render pool, reported per invoice. The rendered bytes are discarded so
+ * only the renderer's own work is measured; run with the GC profiler (as {@link #main} does, or
+ * {@code -prof gc}) for the bytes allocated per render. Not run by the build; start it from the
+ * IDE or with
+ * {@code mvn -pl billops test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.billops.service.InvoicePdfRendererBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoicePdfRendererBenchmark {
+
+    private static final int BATCH = 200;
+    private static final String[] SERVICES = { "Amazon EC2", "Amazon S3", "Amazon RDS", "Amazon CloudFront",
+            "AWS Lambda", "Amazon DynamoDB", "Amazon EKS", "Amazon ElastiCache", "Amazon Redshift", "AWS Glue" };
+
+    // Line items per invoice: a single-service account, and a busy one
+    @Param({ "2", "40" })
+    public int lineItems;
+
+    @Param({ "1", "4" })
+    public int renderThreads;
+
+    private InvoicePdfRenderer renderer;
+    private InvoiceDto invoice;
+    private Client client;
+    private List<InvoiceDto> batch;
+    private Map<Long, Client> clients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        renderer = new InvoicePdfRenderer(renderThreads);
+        client = new Client("Acme Corp");
+        client.setAddress("12 MG Road, Bengaluru");
+        client.setGstin("29ABCDE1234F1Z5");
+        client.setStateName("Karnataka");
+        client.setStateCode("29");
+        clients = Map.of(7L, client);
+        invoice = invoice(0);
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(invoice(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void singleRender() {
+        renderer.render(invoice, client, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void batchZip() {
+        renderer.renderZip(batch, clients, OutputStream.nullOutputStream());
+    }
+
+    private InvoiceDto invoice(int n) {
+        InvoiceDto dto = new InvoiceDto();
+        dto.setInvoiceNumber("INV-2024-05-" + n);
+        dto.setInvoiceDate(LocalDate.of(2024, 6, 1));
+        dto.setBillingPeriod("2024-05");
+        dto.setClientId(7L);
+        dto.setClientName("Acme Corp");
+        dto.setAwsAccountId(String.format("%012d", 100_000_000_000L + n));
+        List<InvoiceDto.LineItemDto> items = new ArrayList<>(lineItems);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lineItems; i++) {
+            InvoiceDto.LineItemDto item = new InvoiceDto.LineItemDto();
+            item.setServiceName(SERVICES[i % SERVICES.length]);
+            item.setRegionName(i < SERVICES.length ? "us-east-1" : "eu-west-1");
+            item.setCost(BigDecimal.valueOf(125 + 37L * i, 2));
+            items.add(item);
+            total = total.add(item.getCost());
+        }
+        dto.setLineItems(items);
+        BigDecimal tax = total.multiply(new BigDecimal("0.18"));
+        dto.setTaxAmount(tax);
+        dto.setAmount(total.add(tax));
+        return dto;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoicePdfRendererBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
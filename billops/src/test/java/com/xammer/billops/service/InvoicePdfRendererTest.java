@@ -0,0 +1,217 @@
+package com.xammer.billops.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.xammer.billops.domain.Client;
+import com.xammer.billops.dto.InvoiceDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Text of the rendered tax invoice, read back from the PDF, and the batch ZIP around it.
+ */
+class InvoicePdfRendererTest {
+
+    private final InvoicePdfRenderer renderer = new InvoicePdfRenderer(4);
+
+    @AfterEach
+    void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Test
+    void awsInvoiceShowsBuyerMetadataDiscountAndTotals() {
+        InvoiceDto dto = invoice("INV-2024-05-001", 7L);
+        dto.setAwsAccountId("123456789012");
+        dto.setDiscounts(List.of(discount("AWS Consumption Charge", "10")));
+
+        String text = text(render(dto, client()));
+
+        assertThat(text).contains("Tax Invoice", "XAMMER TECHNOLOGIES PRIVATE LIMITED")
+                .contains("Invoice No. INV-2024-05-001", "01-Jun-24")
+                .contains("Acme Corp", "GSTIN/UIN: 29ABCDE1234F1Z5", "Place of Supply: Karnataka")
+                .contains("AWS Consumption Charge", "Amazon Web Service Charges", "For the Month of MAY 2024")
+                .contains("Account ID: 123456789012")
+                .contains("Discount: 10.00% ($1234.50 - $123.45)")
+                .contains("Total", "1,111.05")
+                .contains("INR 1311.04 Only")
+                .contains("This is a Computer Generated Invoice");
+    }
+
+    @Test
+    void providerLabelsFollowTheAccountIds() {
+        InvoiceDto gcp = invoice("INV-G", 7L);
+        gcp.setGcpProjectId("billing-prod");
+        gcp.setAwsAccountId("N/A");
+        InvoiceDto azure = invoice("INV-A", 7L);
+        azure.setAzureSubscriptionId("0000-sub");
+
+        assertThat(text(render(gcp, client()))).contains("Google Cloud Consumption", "Project ID: billing-prod")
+                .doesNotContain("AWS Consumption Charge");
+        assertThat(text(render(azure, client()))).contains("Microsoft Azure Consumption", "Subscription ID: 0000-sub");
+    }
+
+    @Test
+    void cloudFrontIsBilledOnItsOwnRow() {
+        InvoiceDto dto = invoice("INV-CF", 7L);
+        dto.setAwsAccountId("123456789012");
+        List<InvoiceDto.LineItemDto> items = new ArrayList<>(dto.getLineItems());
+        items.add(lineItem("Amazon CloudFront", "200.00"));
+        dto.setLineItems(items);
+
+        String text = text(render(dto, client()));
+
+        assertThat(text).contains("AWS Cloud front consumption", "For MAY 2024 Month: $200.00")
+                .contains("Total", "1,434.50");
+    }
+
+    @Test
+    void outputStreamIsLeftOpenForTheCaller() {
+        ClosingTrackingStream out = new ClosingTrackingStream();
+
+        renderer.render(invoice("INV-1", 7L), client(), out);
+
+        assertThat(out.closed).isFalse();
+        assertThat(out.toByteArray()).startsWith("%PDF".getBytes());
+    }
+
+    @Test
+    void concurrentRendersShareTheTemplateSafely() throws Exception {
+        InvoiceDto dto = invoice("INV-1", 7L);
+        dto.setAwsAccountId("123456789012");
+        String expected = text(render(dto, client()));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<String>> renders = IntStream.range(0, 32)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> text(render(dto, client())), pool))
+                    .collect(Collectors.toList());
+            for (CompletableFuture<String> render : renders) {
+                assertThat(render.get()).isEqualTo(expected);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void zipHoldsOnePdfPerInvoiceInOrderWithUniqueNames() throws IOException {
+        List<InvoiceDto> invoices = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            invoices.add(invoice(i == 11 ? "INV-0" : "INV-" + i, i == 5 ? 99L : 7L));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        renderer.renderZip(invoices, Map.of(7L, client()), out);
+
+        List<String> names = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+                texts.add(text(zip.readAllBytes()));
+            }
+        }
+        assertThat(names).hasSize(12);
+        assertThat(names.subList(0, 3)).containsExactly("invoice-INV-0-2024-05.pdf", "invoice-INV-1-2024-05.pdf",
+                "invoice-INV-2-2024-05.pdf");
+        assertThat(names.get(11)).isEqualTo("invoice-INV-0-2024-05-2.pdf");
+        // An invoice whose client is missing still renders
+        assertThat(texts.get(5)).contains("Invoice No. INV-5").doesNotContain("GSTIN/UIN: 29ABCDE1234F1Z5");
+    }
+
+    @Test
+    void renderFailureIsReported() {
+        InvoiceDto dto = invoice("INV-1", 7L);
+        dto.setAmount(null);
+
+        assertThatThrownBy(() -> render(dto, client()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("PDF generation failed");
+    }
+
+    private byte[] render(InvoiceDto dto, Client client) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.render(dto, client, out);
+        return out.toByteArray();
+    }
+
+    // Page text with line breaks folded into spaces, so wrapped cells read as one line
+    private static String text(byte[] pdf) {
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            StringBuilder text = new StringBuilder();
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                text.append(PdfTextExtractor.getTextFromPage(document.getPage(page))).append('\n');
+            }
+            return text.toString().replaceAll("\\s+", " ");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InvoiceDto invoice(String number, Long clientId) {
+        InvoiceDto dto = new InvoiceDto();
+        dto.setInvoiceNumber(number);
+        dto.setInvoiceDate(LocalDate.of(2024, 6, 1));
+        dto.setBillingPeriod("2024-05");
+        dto.setClientId(clientId);
+        dto.setClientName("Acme Corp");
+        dto.setLineItems(List.of(lineItem("Amazon EC2", "1000.00"), lineItem("Amazon S3", "234.50")));
+        dto.setTaxAmount(new BigDecimal("199.99"));
+        dto.setAmount(new BigDecimal("1311.04"));
+        return dto;
+    }
+
+    private static InvoiceDto.LineItemDto lineItem(String service, String cost) {
+        InvoiceDto.LineItemDto item = new InvoiceDto.LineItemDto();
+        item.setServiceName(service);
+        item.setCost(new BigDecimal(cost));
+        return item;
+    }
+
+    private static InvoiceDto.DiscountDto discount(String service, String percentage) {
+        InvoiceDto.DiscountDto discount = new InvoiceDto.DiscountDto();
+        discount.setServiceName(service);
+        discount.setPercentage(new BigDecimal(percentage));
+        return discount;
+    }
+
+    private static Client client() {
+        Client client = new Client("Acme Corp");
+        client.setAddress("12 MG Road, Bengaluru");
+        client.setGstin("29ABCDE1234F1Z5");
+        client.setStateName("Karnataka");
+        client.setStateCode("29");
+        return client;
+    }
+
+    private static final class ClosingTrackingStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.xammer.billops.service;
+
+import com.xammer.billops.dto.TicketPageDto;
+import com.xammer.billops.dto.TicketSummaryDto;
+import com.xammer.billops.repository.TicketRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cursor handling and per-page caching of {@link TicketService#getTicketPage}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TicketServicePageTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private TicketRepository ticketRepository;
+    @Mock
+    private RedisCacheService redisCache;
+    @InjectMocks
+    private TicketService ticketService;
+
+    @Test
+    void extraRowBecomesTheCursorForTheNextPage() {
+        // Page size 2 asks for 3 rows; ids 30, 20, 10 all updated at noon
+        when(ticketRepository.findSummariesAfter(START, Long.MAX_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(rows(30, 20, 10));
+
+        TicketPageDto head = ticketService.getTicketPage(null, null, 2, false);
+
+        assertThat(head.getItems()).extracting(TicketSummaryDto::getId).containsExactly(30L, 20L);
+        assertThat(head.isHasMore()).isTrue();
+
+        when(ticketRepository.findSummariesAfter(NOON, 20L, PageRequest.of(0, 3))).thenReturn(rows(10));
+
+        TicketPageDto next = ticketService.getTicketPage(null, head.getNextCursor(), 2, false);
+
+        assertThat(next.getItems()).extracting(TicketSummaryDto::getId).containsExactly(10L);
+        assertThat(next.getNextCursor()).isNull();
+        assertThat(next.isHasMore()).isFalse();
+    }
+
+    @Test
+    void eachPageIsCachedAndIndexedByItsTickets() {
+        when(ticketRepository.findSummariesByCategoryAfter(eq("Technical"), eq(START), eq(Long.MAX_VALUE), any()))
+                .thenReturn(rows(7, 5));
+
+        TicketPageDto page = ticketService.getTicketPage("Technical", null, 10, false);
+
+        String pageKey = "tickets:page:Technical:10:head";
+        verify(redisCache).put(pageKey, page, 60);
+        verify(redisCache).addToIndexes(List.of("tickets:page-index:ticket:7", "tickets:page-index:ticket:5"),
+                pageKey, 60);
+        verify(redisCache).addToIndex("tickets:page-index:head:Technical", pageKey, 60);
+    }
+
+    @Test
+    void cachedPageSkipsTheRepositoryUnlessForced() {
+        TicketPageDto cached = new TicketPageDto(rows(1), null);
+        when(redisCache.get("tickets:page:_all:50:head", TicketPageDto.class)).thenReturn(Optional.of(cached));
+
+        assertThat(ticketService.getTicketPage(null, null, null, false)).isSameAs(cached);
+        verifyNoInteractions(ticketRepository);
+
+        when(ticketRepository.findSummariesAfter(START, Long.MAX_VALUE, PageRequest.of(0, 51))).thenReturn(rows(2));
+        assertThat(ticketService.getTicketPage(null, null, null, true).getItems())
+                .extracting(TicketSummaryDto::getId).containsExactly(2L);
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        when(ticketRepository.findSummariesAfter(START, Long.MAX_VALUE, PageRequest.of(0, 201))).thenReturn(rows());
+
+        ticketService.getTicketPage(null, null, 10_000, false);
+
+        verify(ticketRepository).findSummariesAfter(START, Long.MAX_VALUE, PageRequest.of(0, 201));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> ticketService.getTicketPage(null, "not-a-cursor", 10, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid ticket cursor");
+        verifyNoInteractions(ticketRepository);
+    }
+
+    @Test
+    void writeEvictsOnlyPagesHoldingTheTicketAndFirstPages() {
+        ticketService.evictTicketCaches(42L, "Technical");
+
+        verify(redisCache).evictIndexed("tickets:page-index:ticket:42");
+        verify(redisCache).evictIndexed("tickets:page-index:head:_all");
+        verify(redisCache).evictIndexed("tickets:page-index:head:Technical");
+        verify(redisCache, never()).evictIndexed(startsWith("tickets:page:"));
+    }
+
+    private static List<TicketSummaryDto> rows(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> new TicketSummaryDto(id, "ticket " + id, null, "OPEN", NOON.minusDays(1), NOON,
+                        1L, null, "Technical", null, null, null, null, 0))
+                .collect(Collectors.toList());
+    }
+}
@@ -3,6 +3,7 @@ from flask_cors import CORS
 from models.prophet_forecaster import ProphetForecaster
 import logging
 from datetime import datetime
+import gzip
 import os
 from config import get_config
 
@@ -46,6 +47,12 @@ if not app.config['DEBUG']:
 # Initialize forecaster (reuse instance)
 forecaster = ProphetForecaster()
 
+@app.before_request
+def decompress_gzip_request():
+    """Accept gzip-compressed JSON bodies (Content-Encoding: gzip) from the Java clients"""
+    if request.headers.get('Content-Encoding', '').lower() == 'gzip':
+        request._cached_data = gzip.decompress(request.get_data(cache=False))
+
 @app.route('/health', methods=['GET'])
 def health_check():
     """Health check endpoint for Docker/K8s"""
@@ -135,6 +142,75 @@ def forecast_cost():
             'message': f'Internal server error: {str(e)}'
         }), 500
 
+@app.route('/forecast/batch', methods=['POST'])
+def forecast_batch():
+    """Forecast several series in one call; each series is answered (or rejected) on its own"""
+    start_time = datetime.now()
+
+    request_data = request.get_json(silent=True)
+    if not request_data or not isinstance(request_data.get('series'), list):
+        logger.warning("⚠️ Missing 'series' field in batch request")
+        return jsonify({
+            'status': 'error',
+            'message': 'Missing required field: series'
+        }), 400
+
+    series_list = request_data['series']
+    if len(series_list) > app.config['MAX_BATCH_SERIES']:
+        return jsonify({
+            'status': 'error',
+            'message': f'At most {app.config["MAX_BATCH_SERIES"]} series per batch, got {len(series_list)}.'
+        }), 400
+
+    logger.info(f"📊 [{app.config['ENV']}] Batch forecast request: {len(series_list)} series")
+
+    results = []
+    for series in series_list:
+        series_id = series.get('id')
+        try:
+            # Columnar points: 'ds' and 'y' are parallel lists
+            dates = series.get('ds') or []
+            values = series.get('y') or []
+            periods = series.get('periods', 30)
+
+            if len(dates) != len(values):
+                raise ValueError(f"'ds' and 'y' differ in length ({len(dates)} vs {len(values)})")
+            if len(dates) < app.config['MIN_DATA_POINTS']:
+                raise ValueError(f'Insufficient data. Minimum {app.config["MIN_DATA_POINTS"]} points required, got {len(dates)}.')
+            if periods < 1 or periods > app.config['MAX_FORECAST_PERIODS']:
+                raise ValueError(f'Periods must be between 1 and {app.config["MAX_FORECAST_PERIODS"]}')
+
+            forecast_result = forecaster.forecast(
+                data=[{'ds': ds, 'y': y} for ds, y in zip(dates, values)],
+                periods=periods,
+                weekly_seasonality=series.get('weekly_seasonality', True),
+                yearly_seasonality=series.get('yearly_seasonality', False)
+            )
+            results.append({'id': series_id, 'status': 'success', 'forecast': forecast_result})
+
+        except ValueError as ve:
+            logger.warning(f"⚠️ Series {series_id} rejected: {str(ve)}")
+            results.append({'id': series_id, 'status': 'error', 'message': str(ve)})
+
+        except Exception as e:
+            logger.error(f"❌ Forecast error for series {series_id}: {str(e)}", exc_info=True)
+            results.append({'id': series_id, 'status': 'error', 'message': f'Internal server error: {str(e)}'})
+
+    processing_time = (datetime.now() - start_time).total_seconds()
+    succeeded = sum(1 for r in results if r['status'] == 'success')
+    logger.info(f"✅ Batch forecast complete: {succeeded}/{len(results)} series in {processing_time:.2f}s")
+
+    return jsonify({
+        'status': 'success',
+        'results': results,
+        'metadata': {
+            'environment': app.config['ENV'],
+            'series': len(results),
+            'succeeded': succeeded,
+            'processing_time_seconds': round(processing_time, 2)
+        }
+    }), 200
+
 @app.errorhandler(404)
 def not_found(error):
     logger.warning(f"⚠️ 404: {request.url}")
@@ -16,6 +16,7 @@ class Config:
     # Forecasting settings
     MAX_FORECAST_PERIODS = 365
     MIN_DATA_POINTS = 7
+    MAX_BATCH_SERIES = 100
 
     # Gunicorn settings
     WORKERS = int(os.getenv('WORKERS', 2))
@@ -1,9 +1,9 @@
 package com.xammer.cloud.config;
 
+import com.xammer.cloud.config.threads.ThreadGovernor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
@@ -12,13 +12,8 @@ import java.util.concurrent.Executor;
 public class AsyncConfig {
 
     @Bean(name = "prowlerTaskExecutor")
-    public Executor prowlerTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2); // Allow 2 concurrent scans
-        executor.setMaxPoolSize(5); // Burst to 5
-        executor.setQueueCapacity(50);
-        executor.setThreadNamePrefix("ProwlerAsync-");
-        executor.initialize();
-        return executor;
+    public Executor prowlerTaskExecutor(ThreadGovernor threadGovernor) {
+        // 2 concurrent scans, bursting to 5
+        return threadGovernor.newTaskExecutor("ProwlerAsync", 2, 5, 50);
     }
 }
\ No newline at end of file
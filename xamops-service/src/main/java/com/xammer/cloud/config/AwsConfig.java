@@ -1,10 +1,10 @@
 package com.xammer.cloud.config;
 
+import com.xammer.cloud.config.threads.ThreadGovernor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
@@ -90,14 +90,8 @@ public class AwsConfig {
     // ---------------------------------
 
     @Bean("awsTaskExecutor")
-    public TaskExecutor threadPoolTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(50);
-        executor.setMaxPoolSize(100);
-        executor.setQueueCapacity(1000);
-        executor.setThreadNamePrefix("AWS-Async-");
-        executor.initialize();
-        return executor;
+    public TaskExecutor threadPoolTaskExecutor(ThreadGovernor threadGovernor) {
+        return threadGovernor.newTaskExecutor("AWS-Async", 50, 100, 1000);
     }
 
     @Bean
@@ -1,21 +1,15 @@
 package com.xammer.cloud.config;
 
+import com.xammer.cloud.config.threads.ThreadGovernor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 public class GcpConfig {
 
     @Bean("gcpTaskExecutor")
-    public TaskExecutor threadPoolTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(50);
-        executor.setMaxPoolSize(100);
-        executor.setQueueCapacity(1000);
-        executor.setThreadNamePrefix("GCP-Async-");
-        executor.initialize();
-        return executor;
+    public TaskExecutor threadPoolTaskExecutor(ThreadGovernor threadGovernor) {
+        return threadGovernor.newTaskExecutor("GCP-Async", 50, 100, 1000);
     }
 }
\ No newline at end of file
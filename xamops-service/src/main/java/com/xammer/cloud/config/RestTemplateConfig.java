@@ -1,10 +1,16 @@
 package com.xammer.cloud.config;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.xammer.cloud.service.StreamingRestClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.ssl.SSLContextBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -16,10 +22,44 @@ import javax.net.ssl.SSLContext;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${http.streaming.prometheus.max-total:40}")
+    private int prometheusMaxTotal;
+
+    @Value("${http.streaming.prometheus.max-per-route:10}")
+    private int prometheusMaxPerRoute;
+
+    @Value("${http.streaming.prometheus.read-timeout:60000}")
+    private int prometheusReadTimeout;
+
+    @Value("${http.streaming.jenkins.max-total:20}")
+    private int jenkinsMaxTotal;
+
+    @Value("${http.streaming.jenkins.max-per-route:5}")
+    private int jenkinsMaxPerRoute;
+
+    @Value("${http.streaming.jenkins.read-timeout:60000}")
+    private int jenkinsReadTimeout;
+
+    @Value("${http.streaming.forecast.max-total:10}")
+    private int forecastMaxTotal;
+
+    @Value("${http.streaming.forecast.max-per-route:10}")
+    private int forecastMaxPerRoute;
+
+    @Value("${forecast.service.read-timeout:180000}")
+    private int forecastReadTimeout;
+
+    @Value("${http.streaming.forecast.gzip-requests:true}")
+    private boolean forecastGzipRequests;
+
+    @Value("${http.streaming.connect-timeout:10000}")
+    private int streamingConnectTimeout;
+
     /**
      * RestTemplate configured to handle HTTPS with CloudFront + ACM certificates
      */
@@ -27,21 +67,9 @@ public class RestTemplateConfig {
     @Primary
     public RestTemplate restTemplate() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
 
-        // Build SSL context that trusts all certificates (for CloudFront/ACM)
-        SSLContext sslContext = SSLContextBuilder
-                .create()
-                .loadTrustMaterial((chain, authType) -> true) // Trust all certificates
-                .build();
-
-        // Create SSL socket factory with hostname verification disabled
-        SSLConnectionSocketFactory socketFactory = new SSLConnectionSocketFactory(
-                sslContext,
-                NoopHostnameVerifier.INSTANCE // Skip hostname verification for CloudFront
-        );
-
         // Build HTTP client with SSL support
         CloseableHttpClient httpClient = HttpClients.custom()
-                .setSSLSocketFactory(socketFactory)
+                .setSSLSocketFactory(trustAllSocketFactory())
                 .setMaxConnTotal(100)
                 .setMaxConnPerRoute(20)
                 .build();
@@ -88,4 +116,85 @@ public class RestTemplateConfig {
 
         return restTemplate;
     }
+
+    // ============================================================================================
+    // STREAMING PROFILE - large response bodies (Prometheus, Jenkins, forecast-service)
+    // ============================================================================================
+
+    @Bean
+    public StreamingRestClient prometheusStreamingClient(MeterRegistry meterRegistry)
+            throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        return new StreamingRestClient("prometheus",
+                streamingRestTemplate(prometheusMaxTotal, prometheusMaxPerRoute, prometheusReadTimeout,
+                        trustAllSocketFactory()),
+                streamingObjectMapper(), meterRegistry, false);
+    }
+
+    /**
+     * Jenkins calls carry basic-auth API tokens, so this client keeps the JVM's default
+     * certificate and hostname verification.
+     */
+    @Bean
+    public StreamingRestClient jenkinsStreamingClient(MeterRegistry meterRegistry) {
+        return new StreamingRestClient("jenkins",
+                streamingRestTemplate(jenkinsMaxTotal, jenkinsMaxPerRoute, jenkinsReadTimeout,
+                        SSLConnectionSocketFactory.getSocketFactory()),
+                streamingObjectMapper(), meterRegistry, false);
+    }
+
+    @Bean
+    public StreamingRestClient forecastStreamingClient(MeterRegistry meterRegistry)
+            throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        return new StreamingRestClient("forecast",
+                streamingRestTemplate(forecastMaxTotal, forecastMaxPerRoute, forecastReadTimeout,
+                        trustAllSocketFactory()),
+                streamingObjectMapper(), meterRegistry, forecastGzipRequests);
+    }
+
+    /**
+     * RestTemplate with its own connection pool and no BufferingClientHttpRequestFactory, so
+     * the response entity is read straight off the socket. Apache HttpClient advertises
+     * gzip/deflate and decompresses responses on the fly.
+     */
+    private RestTemplate streamingRestTemplate(int maxTotal, int maxPerRoute, int readTimeout,
+                                               SSLConnectionSocketFactory socketFactory) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setSSLSocketFactory(socketFactory)
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setConnectTimeout(streamingConnectTimeout);
+        factory.setReadTimeout(readTimeout);
+
+        return new RestTemplate(factory);
+    }
+
+    /**
+     * Plain mapper for remote JSON. The application-wide ObjectMapper bean has default typing
+     * enabled for Redis and cannot read foreign payloads.
+     */
+    private ObjectMapper streamingObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return objectMapper;
+    }
+
+    private SSLConnectionSocketFactory trustAllSocketFactory()
+            throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        // Build SSL context that trusts all certificates (for CloudFront/ACM)
+        SSLContext sslContext = SSLContextBuilder
+                .create()
+                .loadTrustMaterial((chain, authType) -> true) // Trust all certificates
+                .build();
+
+        // Create SSL socket factory with hostname verification disabled
+        return new SSLConnectionSocketFactory(
+                sslContext,
+                NoopHostnameVerifier.INSTANCE // Skip hostname verification for CloudFront
+        );
+    }
 }
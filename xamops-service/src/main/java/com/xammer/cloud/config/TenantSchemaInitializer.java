@@ -1,22 +1,41 @@
 package com.xammer.cloud.config;
 
 import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.multitenancy.TenantMigrations;
+import com.xammer.cloud.config.multitenancy.TenantReadiness;
+import com.xammer.cloud.config.threads.ThreadGovernor;
 import com.xammer.cloud.dto.TenantDto;
 import com.xammer.cloud.service.TenantService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
- * Ensures that CloudSitter tables exist in all tenant databases.
- * Use this as a temporary fix/migration until Flyway/Liquibase is set up for
- * multi-tenancy.
+ * Brings every active tenant database up to the latest schema in {@link TenantMigrations}.
+ * <p>
+ * The master database keeps one row per tenant with the version and catalog checksum it was
+ * last migrated to, so a boot where nothing changed costs a single query. Tenants that are behind
+ * are migrated in parallel on a bounded pool; each tenant records applied scripts in its own
+ * {@code tenant_schema_version} table. Until a tenant is migrated, {@link TenantReadiness}
+ * keeps its requests out.
+ * <p>
+ * A migration whose required tables don't exist yet is skipped without being recorded, and the
+ * tenant's state is written below the latest version so the next boot tries it again.
  */
 @Configuration
 @Order(2) // Run after DataInitializer
@@ -26,61 +45,163 @@ public class TenantSchemaInitializer implements CommandLineRunner {
 
     private final TenantService tenantService;
     private final DataSource dataSource;
+    private final JdbcTemplate masterJdbc;
+    private final TenantMigrations migrations;
+    private final TenantReadiness readiness;
+    private final ThreadGovernor threadGovernor;
+    private final int migrationThreads;
 
-    public TenantSchemaInitializer(TenantService tenantService, DataSource dataSource) {
+    public TenantSchemaInitializer(TenantService tenantService,
+                                   DataSource dataSource,
+                                   @Qualifier("masterDataSource") DataSource masterDataSource,
+                                   TenantMigrations migrations,
+                                   TenantReadiness readiness,
+                                   ThreadGovernor threadGovernor,
+                                   @Value("${tenant.migrations.threads:4}") int migrationThreads) {
         this.tenantService = tenantService;
         this.dataSource = dataSource;
+        this.masterJdbc = new JdbcTemplate(masterDataSource);
+        this.migrations = migrations;
+        this.readiness = readiness;
+        this.threadGovernor = threadGovernor;
+        this.migrationThreads = migrationThreads;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        logger.info("Starting Tenant Schema Initialization...");
+        long start = System.currentTimeMillis();
+        logger.info("Starting Tenant Schema Initialization (latest version {})...", migrations.latestVersion());
 
         List<TenantDto> tenants = tenantService.getAllActiveTenants();
-        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
 
+        // 1. One bulk query decides which tenants are already current
+        masterJdbc.execute("""
+                    CREATE TABLE IF NOT EXISTS tenant_schema_state (
+                        tenant_id VARCHAR(255) PRIMARY KEY,
+                        version INT NOT NULL,
+                        checksum BIGINT NOT NULL,
+                        migrated_at TIMESTAMP NOT NULL
+                    );
+                """);
+        Map<String, Long> currentTenants = new HashMap<>();
+        masterJdbc.query("SELECT tenant_id, version, checksum FROM tenant_schema_state", rs -> {
+            if (rs.getInt("version") == migrations.latestVersion()) {
+                currentTenants.put(rs.getString("tenant_id"), rs.getLong("checksum"));
+            }
+        });
+
+        List<String> pending = new ArrayList<>();
         for (TenantDto tenant : tenants) {
             String tenantId = tenant.getTenantId();
+            if (Objects.equals(currentTenants.get(tenantId), migrations.catalogChecksum())) {
+                readiness.markReady(tenantId);
+            } else {
+                pending.add(tenantId);
+            }
+        }
+        logger.info("{} of {} tenants already at schema version {}; {} to migrate.",
+                tenants.size() - pending.size(), tenants.size(), migrations.latestVersion(), pending.size());
+
+        // 2. Migrate the rest in parallel
+        AtomicInteger failures = new AtomicInteger();
+        if (!pending.isEmpty()) {
+            ExecutorService executor = threadGovernor.newExecutor("tenant-migration",
+                    Math.min(migrationThreads, pending.size()), pending.size(), new ThreadPoolExecutor.CallerRunsPolicy());
             try {
-                TenantContext.setCurrentTenant(tenantId);
-                logger.info("Initializing schema for tenant: {}", tenantId);
-
-                // 1. Create CloudsitterPolicy Table
-                jdbcTemplate.execute("""
-                            CREATE TABLE IF NOT EXISTS cloudsitter_policies (
-                                id BIGSERIAL PRIMARY KEY,
-                                name VARCHAR(255),
-                                description VARCHAR(255),
-                                type VARCHAR(255),
-                                time_zone VARCHAR(255),
-                                schedule_json TEXT,
-                                notifications_enabled BOOLEAN,
-                                notification_email VARCHAR(255),
-                                client_id BIGINT
-                            );
-                        """);
-
-                // 2. Create CloudsitterAssignment Table
-                jdbcTemplate.execute("""
-                            CREATE TABLE IF NOT EXISTS cloudsitter_assignments (
-                                id BIGSERIAL PRIMARY KEY,
-                                resource_id VARCHAR(255),
-                                account_id VARCHAR(255),
-                                region VARCHAR(255),
-                                policy_id BIGINT,
-                                active BOOLEAN,
-                                FOREIGN KEY (policy_id) REFERENCES cloudsitter_policies(id)
-                            );
-                        """);
-
-                logger.info("Schema initialized for tenant: {}", tenantId);
-
-            } catch (Exception e) {
-                logger.error("Failed to initialize schema for tenant {}", tenantId, e);
+                List<CompletableFuture<Void>> futures = pending.stream()
+                        .map(tenantId -> CompletableFuture.runAsync(() -> {
+                            if (!migrateTenant(tenantId)) {
+                                failures.incrementAndGet();
+                            }
+                        }, executor))
+                        .collect(Collectors.toList());
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
             } finally {
-                TenantContext.clear();
+                executor.shutdown();
+            }
+        }
+
+        readiness.markMigrationsComplete();
+        logger.info("Tenant Schema Initialization Complete in {} ms ({} migrated, {} failed{}).",
+                System.currentTimeMillis() - start, pending.size() - failures.get(), failures.get(),
+                failures.get() > 0 ? ": " + readiness.getFailedTenants() : "");
+    }
+
+    private boolean migrateTenant(String tenantId) {
+        try {
+            TenantContext.setCurrentTenant(tenantId);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+            jdbcTemplate.execute("""
+                        CREATE TABLE IF NOT EXISTS tenant_schema_version (
+                            version INT PRIMARY KEY,
+                            description VARCHAR(255),
+                            checksum BIGINT NOT NULL,
+                            installed_at TIMESTAMP NOT NULL,
+                            execution_ms BIGINT
+                        );
+                    """);
+            Map<Integer, Long> applied = new HashMap<>();
+            jdbcTemplate.query("SELECT version, checksum FROM tenant_schema_version",
+                    rs -> { applied.put(rs.getInt("version"), rs.getLong("checksum")); });
+
+            Integer firstDeferred = null;
+            for (TenantMigrations.Migration migration : migrations.all()) {
+                Long appliedChecksum = applied.get(migration.getVersion());
+                if (appliedChecksum != null) {
+                    if (appliedChecksum != migration.getChecksum()) {
+                        throw new IllegalStateException("Migration V" + migration.getVersion()
+                                + " was changed after it was applied (checksum " + appliedChecksum
+                                + " in database, " + migration.getChecksum() + " on classpath)");
+                    }
+                    continue;
+                }
+
+                // Not recorded, so it is retried once the tables it alters have been created
+                List<String> missingTables = migration.getRequiredTables().stream()
+                        .filter(table -> !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, table)))
+                        .collect(Collectors.toList());
+                if (!missingTables.isEmpty()) {
+                    logger.info("Deferring tenant migration V{} ({}) for tenant {}: missing tables {}",
+                            migration.getVersion(), migration.getDescription(), tenantId, missingTables);
+                    if (firstDeferred == null) {
+                        firstDeferred = migration.getVersion();
+                    }
+                    continue;
+                }
+
+                long migrationStart = System.currentTimeMillis();
+                transaction.executeWithoutResult(status -> {
+                    migration.getStatements().forEach(jdbcTemplate::execute);
+                    jdbcTemplate.update("INSERT INTO tenant_schema_version (version, description, checksum, installed_at, execution_ms) "
+                                    + "VALUES (?, ?, ?, now(), ?)",
+                            migration.getVersion(), migration.getDescription(), migration.getChecksum(),
+                            System.currentTimeMillis() - migrationStart);
+                });
+                logger.info("Applied tenant migration V{} ({}) to tenant {}",
+                        migration.getVersion(), migration.getDescription(), tenantId);
             }
+
+            masterJdbc.update("""
+                        INSERT INTO tenant_schema_state (tenant_id, version, checksum, migrated_at)
+                        VALUES (?, ?, ?, now())
+                        ON CONFLICT (tenant_id) DO UPDATE
+                            SET version = EXCLUDED.version, checksum = EXCLUDED.checksum, migrated_at = EXCLUDED.migrated_at
+                    """, tenantId, firstDeferred != null ? firstDeferred - 1 : migrations.latestVersion(),
+                    migrations.catalogChecksum());
+            readiness.markReady(tenantId);
+            logger.info("Schema initialized for tenant: {}{}", tenantId,
+                    firstDeferred != null ? " (from V" + firstDeferred + " on pending)" : "");
+            return true;
+
+        } catch (Exception e) {
+            readiness.markFailed(tenantId);
+            logger.error("Failed to initialize schema for tenant {}", tenantId, e);
+            return false;
+        } finally {
+            TenantContext.clear();
         }
-        logger.info("Tenant Schema Initialization Complete.");
     }
 }
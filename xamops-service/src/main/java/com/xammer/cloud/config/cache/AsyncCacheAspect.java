@@ -0,0 +1,158 @@
+package com.xammer.cloud.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements {@link AsyncCacheable}. Values are held in-process (Caffeine, one cache per name),
+ * so any result type can be cached without a serialisation round trip; keys are scoped to the
+ * current tenant.
+ */
+@Aspect
+@Component
+public class AsyncCacheAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncCacheAspect.class);
+    private static final String DEFAULT_TENANT = "default";
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+    private final Map<String, Cache<String, Entry>> caches = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.async.max-entries:10000}")
+    private long maxEntries;
+
+    public AsyncCacheAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(asyncCacheable)")
+    public Object cache(ProceedingJoinPoint joinPoint, AsyncCacheable asyncCacheable) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (!CompletableFuture.class.isAssignableFrom(method.getReturnType())) {
+            logger.warn("@AsyncCacheable ignored on {} - it does not return a CompletableFuture", method);
+            return joinPoint.proceed();
+        }
+
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(joinPoint.getTarget(), method,
+                joinPoint.getArgs(), parameterNames);
+        String tenant = TenantContext.getCurrentTenant() != null ? TenantContext.getCurrentTenant() : DEFAULT_TENANT;
+        String key = tenant + ":" + expression(asyncCacheable.key()).getValue(context);
+        Cache<String, Entry> cache = cacheFor(asyncCacheable);
+
+        boolean bypass = !asyncCacheable.bypass().isEmpty()
+                && Boolean.TRUE.equals(expression(asyncCacheable.bypass()).getValue(context, Boolean.class));
+        if (!bypass) {
+            Entry entry = cache.getIfPresent(key);
+            if (entry != null) {
+                count(asyncCacheable, "hit");
+                long refreshAfterMillis = (asyncCacheable.ttlSeconds() - asyncCacheable.refreshAheadSeconds()) * 1000L;
+                if (asyncCacheable.refreshAheadSeconds() > 0
+                        && System.currentTimeMillis() - entry.storedAt > refreshAfterMillis) {
+                    load(joinPoint, asyncCacheable, cache, key);
+                }
+                return CompletableFuture.completedFuture(entry.value);
+            }
+        }
+        count(asyncCacheable, "miss");
+        return load(joinPoint, asyncCacheable, cache, key);
+    }
+
+    /**
+     * Starts the method for {@code key}, or joins the load already running for it.
+     */
+    private CompletableFuture<Object> load(ProceedingJoinPoint joinPoint, AsyncCacheable asyncCacheable,
+                                           Cache<String, Entry> cache, String key) {
+        String flightKey = asyncCacheable.value() + "|" + key;
+        CompletableFuture<Object> promise = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, promise);
+        if (running != null) {
+            count(asyncCacheable, "join");
+            // A copy, so one caller cancelling cannot complete the shared future for the others
+            return running.copy();
+        }
+
+        try {
+            CompletableFuture<?> result = (CompletableFuture<?>) joinPoint.proceed();
+            result.whenComplete((value, error) -> {
+                if (error == null && !excluded(asyncCacheable, value)) {
+                    cache.put(key, new Entry(value));
+                }
+                inFlight.remove(flightKey, promise);
+                if (error != null) {
+                    promise.completeExceptionally(error);
+                } else {
+                    promise.complete(value);
+                }
+            });
+        } catch (Throwable t) {
+            inFlight.remove(flightKey, promise);
+            promise.completeExceptionally(t);
+        }
+        return promise.copy();
+    }
+
+    private boolean excluded(AsyncCacheable asyncCacheable, Object value) {
+        if (value == null) return true;
+        if (asyncCacheable.unless().isEmpty()) return false;
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setVariable("result", value);
+        try {
+            return Boolean.TRUE.equals(expression(asyncCacheable.unless()).getValue(context, Boolean.class));
+        } catch (Exception e) {
+            logger.warn("Could not evaluate unless '{}' for cache {}: {}", asyncCacheable.unless(),
+                    asyncCacheable.value(), e.getMessage());
+            return true;
+        }
+    }
+
+    private Cache<String, Entry> cacheFor(AsyncCacheable asyncCacheable) {
+        return caches.computeIfAbsent(asyncCacheable.value(), name -> Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(asyncCacheable.ttlSeconds()))
+                .maximumSize(maxEntries)
+                .build());
+    }
+
+    private Expression expression(String source) {
+        return expressions.computeIfAbsent(source, parser::parseExpression);
+    }
+
+    private void count(AsyncCacheable asyncCacheable, String result) {
+        meterRegistry.counter("xamops.cache.async.requests", "cache", asyncCacheable.value(), "result", result)
+                .increment();
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long storedAt = System.currentTimeMillis();
+
+        Entry(Object value) {
+            this.value = value;
+        }
+    }
+}
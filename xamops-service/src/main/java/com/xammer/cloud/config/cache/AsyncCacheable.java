@@ -0,0 +1,51 @@
+package com.xammer.cloud.config.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the completed value of a method returning {@link java.util.concurrent.CompletableFuture}.
+ * Unlike {@code @Cacheable}, the future itself is never stored: concurrent callers for the same
+ * key share one in-flight future, only successful completions are cached, and a hit is returned
+ * as an already-completed future.
+ *
+ * SpEL expressions see the method arguments by name ({@code #accountId}); {@link #unless} also
+ * sees the completed value as {@code #result}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AsyncCacheable {
+
+    /**
+     * Cache name; entries of one name share a TTL.
+     */
+    String value();
+
+    /**
+     * SpEL key expression, evaluated against the method arguments.
+     */
+    String key();
+
+    long ttlSeconds() default 3600;
+
+    /**
+     * When a hit is older than {@code ttlSeconds - refreshAheadSeconds}, it is still returned but
+     * a reload starts in the background. 0 disables refresh-ahead.
+     */
+    long refreshAheadSeconds() default 0;
+
+    /**
+     * SpEL condition on {@code #result}; a completed value matching it is not cached.
+     */
+    String unless() default "";
+
+    /**
+     * SpEL condition on the arguments (e.g. {@code "#forceRefresh"}) that skips the lookup and
+     * reloads the entry.
+     */
+    String bypass() default "";
+}
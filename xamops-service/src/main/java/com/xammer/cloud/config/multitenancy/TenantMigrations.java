@@ -0,0 +1,138 @@
+package com.xammer.cloud.config.multitenancy;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * The ordered set of tenant schema migrations, loaded from {@code classpath:db/tenant/V<n>__<name>.sql}.
+ * <p>
+ * Each script is identified by its version and a CRC32 checksum of its content, so an edited
+ * script that was already applied somewhere is detected instead of silently diverging. A script
+ * that alters a table created elsewhere (e.g. by Hibernate) names it in a {@code -- requires: t1, t2}
+ * comment, and is held back until those tables exist.
+ */
+@Component
+public class TenantMigrations {
+
+    private static final String LOCATION = "classpath:db/tenant/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final Pattern REQUIRES = Pattern.compile("^\\s*--\\s*requires:(.*)$", Pattern.MULTILINE);
+
+    public static final class Migration {
+        private final int version;
+        private final String description;
+        private final long checksum;
+        private final List<String> statements;
+        private final List<String> requiredTables;
+
+        Migration(int version, String description, long checksum, List<String> statements, List<String> requiredTables) {
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+            this.statements = statements;
+            this.requiredTables = requiredTables;
+        }
+
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+        public long getChecksum() { return checksum; }
+        public List<String> getStatements() { return statements; }
+        public List<String> getRequiredTables() { return requiredTables; }
+    }
+
+    private final List<Migration> migrations;
+    private final long catalogChecksum;
+
+    public TenantMigrations() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        Map<Integer, Migration> byVersion = new TreeMap<>();
+        for (Resource resource : resources) {
+            Matcher matcher = FILE_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+            if (!matcher.matches()) {
+                continue;
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String sql = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            Migration previous = byVersion.put(version, new Migration(version, matcher.group(2).replace('_', ' '),
+                    checksum(sql), splitStatements(sql), requiredTables(sql)));
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate tenant migration version " + version);
+            }
+        }
+        this.migrations = List.copyOf(byVersion.values());
+
+        CRC32 crc = new CRC32();
+        migrations.forEach(m -> crc.update((m.version + ":" + m.checksum + ";").getBytes(StandardCharsets.UTF_8)));
+        this.catalogChecksum = crc.getValue();
+    }
+
+    public List<Migration> all() {
+        return migrations;
+    }
+
+    public int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    /**
+     * Checksum over every (version, checksum) pair; a tenant recorded at the latest version with
+     * this value needs no work at all.
+     */
+    public long catalogChecksum() {
+        return catalogChecksum;
+    }
+
+    private static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    // Table names from every '-- requires:' comment, in order of appearance
+    static List<String> requiredTables(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = REQUIRES.matcher(sql);
+        while (matcher.find()) {
+            for (String table : matcher.group(1).split(",")) {
+                if (!table.isBlank()) {
+                    tables.add(table.trim());
+                }
+            }
+        }
+        return List.copyOf(tables);
+    }
+
+    // Splits on ';' at the end of a line, keeping $$-quoted bodies (DO blocks) intact
+    static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inDollarQuote = false;
+        for (String line : sql.split("\n")) {
+            String trimmed = line.trim();
+            if (!inDollarQuote && (trimmed.isEmpty() || trimmed.startsWith("--"))) {
+                continue;
+            }
+            current.append(line).append('\n');
+            for (int idx = line.indexOf("$$"); idx >= 0; idx = line.indexOf("$$", idx + 2)) {
+                inDollarQuote = !inDollarQuote;
+            }
+            if (!inDollarQuote && trimmed.endsWith(";")) {
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return List.copyOf(statements);
+    }
+}
@@ -0,0 +1,51 @@
+package com.xammer.cloud.config.multitenancy;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which tenant databases have been migrated to the current schema. Requests for a
+ * tenant that is still migrating (or whose migration failed) are turned away by
+ * {@link TenantReadinessFilter} instead of running against a half-built schema.
+ */
+@Component
+public class TenantReadiness {
+
+    private final Set<String> readyTenants = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedTenants = ConcurrentHashMap.newKeySet();
+    private volatile boolean migrationsComplete;
+
+    public void markReady(String tenantId) {
+        failedTenants.remove(tenantId);
+        readyTenants.add(tenantId);
+    }
+
+    public void markFailed(String tenantId) {
+        readyTenants.remove(tenantId);
+        failedTenants.add(tenantId);
+    }
+
+    public void markMigrationsComplete() {
+        migrationsComplete = true;
+    }
+
+    public boolean isReady(String tenantId) {
+        return readyTenants.contains(tenantId);
+    }
+
+    /**
+     * A tenant the migration run never saw (e.g. no longer active) is not gated once the run is over.
+     */
+    public boolean isGated(String tenantId) {
+        if (readyTenants.contains(tenantId)) {
+            return false;
+        }
+        return !migrationsComplete || failedTenants.contains(tenantId);
+    }
+
+    public Set<String> getFailedTenants() {
+        return Set.copyOf(failedTenants);
+    }
+}
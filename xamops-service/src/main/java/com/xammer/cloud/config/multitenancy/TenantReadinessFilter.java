@@ -0,0 +1,41 @@
+package com.xammer.cloud.config.multitenancy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Component
+@Order(1) // Run AFTER TenantFilter has resolved the tenant, before ImpersonationFilter
+public class TenantReadinessFilter implements Filter {
+
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    @Autowired
+    private TenantReadiness tenantReadiness;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        String tenantId = TenantContext.getCurrentTenant();
+
+        // Requests without a tenant run against the master database, which is not migrated here
+        if (tenantId != null && tenantReadiness.isGated(tenantId)) {
+            HttpServletResponse res = (HttpServletResponse) response;
+            res.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Tenant " + tenantId + " is not available yet; its database schema is being updated.");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+}
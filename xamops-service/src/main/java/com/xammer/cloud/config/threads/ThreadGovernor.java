@@ -0,0 +1,234 @@
+package com.xammer.cloud.config.threads;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Central registry for the application's thread pools.
+ * <p>
+ * Every pool asks for a number of threads under a name. The grant is capped by the pool's quota
+ * ({@code threads.pools.<name>.max}, defaulting to the request) and by what is left of the global
+ * budget ({@code threads.budget.total}), so the sum of all pools never exceeds the budget however
+ * much work is submitted. A pool that asks once the budget is spent is refused with an exception
+ * rather than run without threads; the budget or the other pools' quotas must make room for it.
+ * Threads are named {@code <pool>-<n>}, are daemons, and are counted per
+ * pool for {@link ThreadWatchdog}. A pool's grant is returned to the budget when it terminates.
+ */
+@Component
+public class ThreadGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadGovernor.class);
+
+    static final class Pool {
+        final String name;
+        final int requested;
+        final int granted;
+        final AtomicInteger live = new AtomicInteger();
+        final AtomicInteger created = new AtomicInteger();
+
+        Pool(String name, int requested, int granted) {
+            this.name = name;
+            this.requested = requested;
+            this.granted = granted;
+        }
+    }
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private int grantedTotal;
+
+    public ThreadGovernor(Environment environment,
+                          MeterRegistry meterRegistry,
+                          @Value("${threads.budget.total:400}") int budget) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+        Gauge.builder("xamops.threads.budget.granted", this, ThreadGovernor::getGrantedTotal)
+                .description("Threads granted to governed pools")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves up to {@code requested} threads for {@code poolName} and returns how many were granted.
+     * Asking again for an existing pool returns its grant.
+     *
+     * @throws IllegalStateException if not a single thread is left for the pool
+     */
+    public synchronized int grant(String poolName, int requested) {
+        Pool existing = pools.get(poolName);
+        if (existing != null) {
+            return existing.granted;
+        }
+
+        int quota = environment.getProperty("threads.pools." + poolName + ".max", Integer.class, requested);
+        int granted = Math.min(Math.min(requested, quota), budget - grantedTotal);
+        if (granted < 1) {
+            throw new IllegalStateException("Thread pool " + poolName + " asked for " + requested
+                    + " threads but none can be granted (quota " + quota + ", " + grantedTotal + " of " + budget
+                    + " budget already granted); raise threads.budget.total or lower other pools' threads.pools.<name>.max");
+        }
+        if (granted < requested) {
+            logger.warn("Thread pool {} asked for {} threads but was granted {} (quota {}, {} of {} budget already granted)",
+                    poolName, requested, granted, quota, grantedTotal, budget);
+        }
+
+        Pool pool = new Pool(poolName, requested, granted);
+        pools.put(poolName, pool);
+        grantedTotal += granted;
+        Gauge.builder("xamops.threads.pool.live", pool.live, AtomicInteger::get)
+                .description("Live threads in a governed pool")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        logger.info("Thread pool {} granted {} threads ({} of {} budget in use)", poolName, granted, grantedTotal, budget);
+        return granted;
+    }
+
+    public synchronized void release(String poolName) {
+        Pool pool = pools.remove(poolName);
+        if (pool != null) {
+            grantedTotal -= pool.granted;
+            logger.debug("Thread pool {} released {} threads", poolName, pool.granted);
+        }
+    }
+
+    /**
+     * Named daemon threads counted against {@code poolName}; the pool must have been granted first.
+     */
+    public ThreadFactory threadFactory(String poolName) {
+        Pool pool = pools.get(poolName);
+        if (pool == null) {
+            throw new IllegalStateException("No thread grant for pool " + poolName);
+        }
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                pool.live.incrementAndGet();
+                try {
+                    runnable.run();
+                } finally {
+                    pool.live.decrementAndGet();
+                }
+            }, poolName + "-" + pool.created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A fixed-size pool whose idle threads time out, with a bounded queue. A queue capacity of zero
+     * hands tasks straight to a thread, so the rejection handler sees every submission past the grant.
+     */
+    public ThreadPoolExecutor newExecutor(String poolName, int threads, int queueCapacity,
+                                          RejectedExecutionHandler rejectionHandler) {
+        int granted = grant(poolName, threads);
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new LinkedBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(granted, granted, 60L, TimeUnit.SECONDS, queue,
+                threadFactory(poolName), rejectionHandler) {
+            @Override
+            protected void terminated() {
+                super.terminated();
+                release(poolName);
+            }
+        };
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public ScheduledThreadPoolExecutor newScheduledExecutor(String poolName, int threads) {
+        int granted = grant(poolName, threads);
+        return new ScheduledThreadPoolExecutor(granted, threadFactory(poolName)) {
+            @Override
+            protected void terminated() {
+                super.terminated();
+                release(poolName);
+            }
+        };
+    }
+
+    /**
+     * Spring executor for {@code @Async} beans; the thread name prefix is the pool name. Each task runs
+     * as the tenant that submitted it, so advice behind the {@code @Async} proxy (tenant-scoped caches,
+     * repositories) sees the caller's tenant rather than whichever one the worker inherited.
+     */
+    public ThreadPoolTaskExecutor newTaskExecutor(String poolName, int coreThreads, int maxThreads, int queueCapacity) {
+        int granted = grant(poolName, maxThreads);
+        ThreadFactory factory = threadFactory(poolName);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return factory.newThread(runnable);
+            }
+
+            @Override
+            public void shutdown() {
+                super.shutdown();
+                release(poolName);
+            }
+        };
+        executor.setCorePoolSize(Math.min(coreThreads, granted));
+        executor.setMaxPoolSize(granted);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(poolName + "-");
+        executor.setTaskDecorator(command -> runAs(TenantContext.getCurrentTenant(), command));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs every task of {@code executor} as {@code tenantId}. Pool threads outlive requests, so the
+     * tenant is carried explicitly rather than inherited; the worker's own tenant is restored after.
+     */
+    public static Executor forTenant(Executor executor, String tenantId) {
+        return command -> executor.execute(runAs(tenantId, command));
+    }
+
+    private static Runnable runAs(String tenantId, Runnable command) {
+        return () -> {
+            String previous = TenantContext.getCurrentTenant();
+            if (tenantId != null) {
+                TenantContext.setCurrentTenant(tenantId);
+            } else {
+                TenantContext.clear();
+            }
+            try {
+                command.run();
+            } finally {
+                if (previous != null) {
+                    TenantContext.setCurrentTenant(previous);
+                } else {
+                    TenantContext.clear();
+                }
+            }
+        };
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public synchronized int getGrantedTotal() {
+        return grantedTotal;
+    }
+
+    /**
+     * Pool name → {live threads, granted threads}.
+     */
+    public Map<String, int[]> snapshot() {
+        Map<String, int[]> snapshot = new TreeMap<>();
+        pools.values().forEach(pool -> snapshot.put(pool.name, new int[]{pool.live.get(), pool.granted}));
+        return snapshot;
+    }
+}
@@ -0,0 +1,139 @@
+package com.xammer.cloud.config.threads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically reports JVM threads by pool and native memory use, and warns when either keeps
+ * climbing. Governed pools are counted by {@link ThreadGovernor}; everything else (Tomcat, Lettuce,
+ * the common fork-join pool, ...) is grouped by thread name with trailing numbers stripped.
+ * Native memory comes from Native Memory Tracking when the JVM runs with
+ * {@code -XX:NativeMemoryTracking=summary}, and from the direct/mapped buffer pools otherwise.
+ */
+@Component
+public class ThreadWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadWatchdog.class);
+
+    private static final Pattern NMT_TOTAL = Pattern.compile("Total: reserved=(\\d+)KB, committed=(\\d+)KB");
+    private static final Pattern TRAILING_ID = Pattern.compile("[-#_ ]?\\d+$");
+
+    private final ThreadGovernor governor;
+    private final int trendSamples;
+    private final double growthAlertPercent;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Deque<Long> threadHistory = new ArrayDeque<>();
+    private final Deque<Long> nativeHistory = new ArrayDeque<>();
+    private boolean nmtAvailable = true;
+
+    public ThreadWatchdog(ThreadGovernor governor,
+                          @Value("${threads.watchdog.trend-samples:10}") int trendSamples,
+                          @Value("${threads.watchdog.growth-alert-percent:25}") double growthAlertPercent) {
+        this.governor = governor;
+        this.trendSamples = Math.max(2, trendSamples);
+        this.growthAlertPercent = growthAlertPercent;
+    }
+
+    @Scheduled(fixedDelayString = "${threads.watchdog.interval-ms:60000}", initialDelayString = "${threads.watchdog.interval-ms:60000}")
+    public void sample() {
+        try {
+            long liveThreads = threadBean.getThreadCount();
+            Map<String, int[]> governed = governor.snapshot();
+            Map<String, Long> unmanaged = unmanagedThreadsByName(governed.keySet());
+            long nativeCommittedKb = nativeCommittedKb();
+
+            logger.info("Threads: {} live (peak {}), {} of {} budget granted; pools {}; other {}; native committed {} MB",
+                    liveThreads, threadBean.getPeakThreadCount(), governor.getGrantedTotal(), governor.getBudget(),
+                    governed.entrySet().stream()
+                            .map(e -> e.getKey() + "=" + e.getValue()[0] + "/" + e.getValue()[1])
+                            .collect(Collectors.joining(", ")),
+                    unmanaged.entrySet().stream()
+                            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                            .limit(10)
+                            .map(e -> e.getKey() + "=" + e.getValue())
+                            .collect(Collectors.joining(", ")),
+                    nativeCommittedKb / 1024);
+
+            checkTrend("Live thread count", threadHistory, liveThreads);
+            if (nativeCommittedKb > 0) {
+                checkTrend("Native committed memory (KB)", nativeHistory, nativeCommittedKb);
+            }
+        } catch (Exception e) {
+            logger.warn("Thread watchdog sample failed: {}", e.getMessage());
+        }
+    }
+
+    // Warns when every sample in the window is >= the previous one and the window grew past the threshold
+    private void checkTrend(String what, Deque<Long> history, long value) {
+        history.addLast(value);
+        if (history.size() > trendSamples) {
+            history.removeFirst();
+        }
+        if (history.size() < trendSamples) {
+            return;
+        }
+
+        long previous = Long.MIN_VALUE;
+        for (long sample : history) {
+            if (sample < previous) {
+                return;
+            }
+            previous = sample;
+        }
+        long first = history.getFirst();
+        double growth = first > 0 ? (value - first) * 100.0 / first : 0;
+        if (growth >= growthAlertPercent) {
+            logger.warn("⚠️ {} has not dropped for {} samples and grew {}% ({} -> {}); possible leak",
+                    what, trendSamples, String.format("%.0f", growth), first, value);
+        }
+    }
+
+    private Map<String, Long> unmanagedThreadsByName(Set<String> governedPools) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (ThreadInfo info : threadBean.getThreadInfo(threadBean.getAllThreadIds(), 0)) {
+            if (info == null) {
+                continue;
+            }
+            String group = TRAILING_ID.matcher(info.getThreadName()).replaceAll("");
+            if (!governedPools.contains(group)) {
+                counts.merge(group.isEmpty() ? info.getThreadName() : group, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private long nativeCommittedKb() {
+        if (nmtAvailable) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                String summary = (String) server.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                        "vmNativeMemory", new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+                Matcher matcher = NMT_TOTAL.matcher(summary);
+                if (matcher.find()) {
+                    return Long.parseLong(matcher.group(2));
+                }
+                logger.info("Native Memory Tracking is not enabled; reporting direct and mapped buffers only");
+            } catch (Exception e) {
+                logger.info("Native Memory Tracking unavailable ({}); reporting direct and mapped buffers only", e.getMessage());
+            }
+            nmtAvailable = false;
+        }
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum() / 1024;
+    }
+}
@@ -11,7 +11,11 @@ import com.xammer.cloud.repository.CloudAccountRepository;
 import com.xammer.cloud.repository.UserRepository;
 import com.xammer.cloud.security.ClientUserDetails;
 import com.xammer.cloud.service.AwsAccountService;
+import com.xammer.cloud.service.FinOpsSectionGraph;
 import com.xammer.cloud.service.MasterDatabaseService;
+import com.xammer.cloud.service.TagIndexService;
+import com.xammer.cloud.service.anomaly.CostAnomalyService;
+import com.xammer.cloud.service.gcp.GcpClientProvider;
 import com.xammer.cloud.service.gcp.GcpDataService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +32,7 @@ import java.util.stream.Collectors;
 import com.xammer.cloud.dto.azure.AzureAccountRequestDto;
 import org.springframework.http.HttpStatus;
 import com.xammer.cloud.service.azure.AzureCostManagementService;
+import com.xammer.cloud.service.azure.AzureInventoryService;
 
 @RestController
 @RequestMapping("/api/xamops/account-manager")
@@ -41,6 +46,12 @@ public class AccountManagerController {
     @Autowired
     private GcpDataService gcpDataService;
 
+    @Autowired
+    private GcpClientProvider gcpClientProvider;
+
+    @Autowired
+    private AzureInventoryService azureInventoryService;
+
     @Autowired
     private CloudAccountRepository cloudAccountRepository;
 
@@ -56,6 +67,15 @@ public class AccountManagerController {
     @Autowired
     private MasterDatabaseService masterDatabaseService;
 
+    @Autowired
+    private TagIndexService tagIndexService;
+
+    @Autowired
+    private FinOpsSectionGraph finOpsSectionGraph;
+
+    @Autowired
+    private CostAnomalyService costAnomalyService;
+
     @PostMapping("/generate-stack-url")
     public ResponseEntity<Map<String, String>> generateStackUrl(@RequestBody AccountCreationRequestDto request,
             @AuthenticationPrincipal ClientUserDetails userDetails) {
@@ -170,6 +190,17 @@ public class AccountManagerController {
         return cloudAccountRepository.findById(id)
                 .map(account -> {
                     awsAccountService.clearAllCaches();
+                    costAnomalyService.evict(account);
+                    if (account.getAwsAccountId() != null) {
+                        tagIndexService.evict(TenantContext.getCurrentTenant(), account.getAwsAccountId());
+                        finOpsSectionGraph.evict(TenantContext.getCurrentTenant(), account.getAwsAccountId());
+                    }
+                    if (account.getGcpProjectId() != null) {
+                        gcpClientProvider.evictProject(account.getGcpProjectId());
+                    }
+                    if (account.getAzureSubscriptionId() != null) {
+                        azureInventoryService.invalidate(account.getAzureSubscriptionId());
+                    }
                     cloudAccountRepository.delete(account);
                     return ResponseEntity
                             .ok(Map.of("message", "Account " + account.getAccountName() + " removed successfully."));
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 @RestController
@@ -144,6 +145,42 @@ public class CloudlistController {
                 });
     }
 
+    /**
+     * Tag facets (key → value → resource count) served from the account's tag index
+     */
+    @GetMapping("/tags")
+    public CompletableFuture<ResponseEntity<Map<String, Map<String, Integer>>>> getTagFacets(
+            @RequestParam String accountId) {
+
+        CloudAccount account = getAccount(accountId);
+
+        return cloudListService.getTagIndex(account, false)
+                .thenApply(index -> ResponseEntity.ok(index.facets()))
+                .exceptionally(ex -> {
+                    logger.error("Error fetching tag facets for account {}", accountId, ex);
+                    return ResponseEntity.ok(Collections.emptyMap());
+                });
+    }
+
+    /**
+     * Resources carrying a tag key, optionally restricted to one value
+     */
+    @GetMapping("/tags/resources")
+    public CompletableFuture<ResponseEntity<List<ResourceDto>>> getResourcesByTag(
+            @RequestParam String accountId,
+            @RequestParam String key,
+            @RequestParam(required = false) String value) {
+
+        CloudAccount account = getAccount(accountId);
+
+        return cloudListService.getTagIndex(account, false)
+                .thenApply(index -> ResponseEntity.ok(index.findByTag(key, value)))
+                .exceptionally(ex -> {
+                    logger.error("Error fetching resources tagged {} for account {}", key, accountId, ex);
+                    return ResponseEntity.ok(Collections.emptyList());
+                });
+    }
+
     /**
      * Triggers a background refresh of resources
      * The client should listen on the WebSocket for completion
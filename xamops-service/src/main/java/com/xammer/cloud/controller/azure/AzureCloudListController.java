@@ -24,7 +24,8 @@ public class AzureCloudListController {
     }
 
     @GetMapping("/resources")
-    public ResponseEntity<?> getResources(@RequestParam String accountIds) {
+    public ResponseEntity<?> getResources(@RequestParam String accountIds,
+            @RequestParam(defaultValue = "false") boolean forceRefresh) {
         try {
             log.info("Received cloudlist request for accountIds: {}", accountIds);
             
@@ -38,7 +39,7 @@ public class AzureCloudListController {
             String accountId = accountIds.split(",")[0].trim();
             log.info("Processing cloudlist for Azure account ID: {}", accountId);
             
-            List<DashboardData.ServiceGroupDto> resources = azureCloudListService.getAzureResources(accountId);
+            List<DashboardData.ServiceGroupDto> resources = azureCloudListService.getAzureResources(accountId, forceRefresh);
             
             log.info("Successfully fetched {} resource groups for account {}", 
                      resources != null ? resources.size() : 0, accountId);
@@ -0,0 +1,53 @@
+package com.xammer.cloud.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * One row of the local GCP billing aggregate: the cost of a single
+ * project x service x SKU x region on one usage day, as summed from the
+ * BigQuery billing export.
+ */
+@Entity
+@Table(name = "gcp_billing_daily_costs", indexes = {
+        @Index(name = "idx_gcp_billing_daily_costs_project_date", columnList = "gcp_project_id, usage_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GcpBillingDailyCost {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The connected GCP project whose billing export was queried
+    @Column(name = "gcp_project_id", nullable = false)
+    private String gcpProjectId;
+
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    // project.name from the export row (may differ from gcpProjectId for billing-account exports)
+    @Column(name = "project_name")
+    private String projectName;
+
+    private String service;
+
+    @Column(length = 512)
+    private String sku;
+
+    private String region;
+
+    @Column(nullable = false)
+    private double cost;
+
+    public GcpBillingDailyCost(String gcpProjectId, LocalDate usageDate, String projectName,
+                               String service, String sku, String region, double cost) {
+        this(null, gcpProjectId, usageDate, projectName, service, sku, region, cost);
+    }
+}
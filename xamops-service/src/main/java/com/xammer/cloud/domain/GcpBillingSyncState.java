@@ -0,0 +1,38 @@
+package com.xammer.cloud.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Sync watermark for the local GCP billing aggregate of one project.
+ * Every usage day up to and including {@code watermark} is materialised in
+ * {@link GcpBillingDailyCost}.
+ */
+@Entity
+@Table(name = "gcp_billing_sync_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GcpBillingSyncState {
+
+    @Id
+    @Column(name = "gcp_project_id")
+    private String gcpProjectId;
+
+    // First usage day materialised by the initial backfill
+    @Column(name = "coverage_start")
+    private LocalDate coverageStart;
+
+    private LocalDate watermark;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+}
@@ -0,0 +1,46 @@
+package com.xammer.cloud.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * The cost of one service of one account on one closed usage day, as reported by the
+ * provider's billing API. Feeds local cost anomaly detection and the cost history chart.
+ */
+@Entity
+@Table(name = "service_daily_costs", indexes = {
+        @Index(name = "idx_service_daily_costs_account_date", columnList = "provider, account_id, usage_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServiceDailyCost {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String provider;
+
+    // AWS account id
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    @Column(nullable = false)
+    private String service;
+
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    @Column(nullable = false)
+    private double cost;
+
+    public ServiceDailyCost(String provider, String accountId, String service, LocalDate usageDate, double cost) {
+        this(null, provider, accountId, service, usageDate, cost);
+    }
+}
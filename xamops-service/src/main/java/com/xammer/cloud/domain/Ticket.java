@@ -42,6 +42,9 @@ public class Ticket {
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Bumped on every reply and status change; list views page on (updatedAt, id)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
     // NEW FIELDS TO MATCH THE FORM
     private String category;
     private String service;
@@ -112,6 +115,14 @@ public class Ticket {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public String getCategory() {
         return category;
     }
@@ -0,0 +1,20 @@
+package com.xammer.cloud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Peak daily utilization of one EC2 instance over a lookback window. A field is null when
+ * CloudWatch has no datapoints for it (memory needs the CloudWatch agent).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InstanceUtilizationDto {
+    private String instanceId;
+    private Double maxCpuPercent;
+    private Double maxMemoryPercent;
+    private Double maxNetworkInBytesPerDay;
+    private Double maxNetworkOutBytesPerDay;
+}
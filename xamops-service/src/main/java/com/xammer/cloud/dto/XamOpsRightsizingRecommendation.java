@@ -13,6 +13,8 @@ public class XamOpsRightsizingRecommendation {
     private String currentInstance;         // Instance type (e.g., "t3.medium")
     private String instanceId;              // Actual instance ID
     private String currentUtilization;      //Actual CPU utilization
+    private String memoryUtilization;       // Max memory % (null without the CloudWatch agent)
+    private String peakNetworkGbPerDay;     // Busiest day's NetworkIn + NetworkOut, in GB
     private String loadRange;               // Load range (e.g., "0-50%")
     private String intelRecommendation;     // Intel-based recommendation
     private String amdRecommendation;       // AMD-based recommendation
@@ -30,6 +30,9 @@ public class AzureDashboardData {
     // Hints/IAM
     private DashboardData.IamDetail iamDetails;
 
+    // Sections that missed their deadline and are returned empty
+    private List<String> timedOutSections;
+
     // --- Getters and Setters ---
 
     public ResourceInventory getResourceInventory() {
@@ -129,6 +132,14 @@ public class AzureDashboardData {
         this.iamDetails = iamDetails;
     }
 
+    public List<String> getTimedOutSections() {
+        return timedOutSections;
+    }
+
+    public void setTimedOutSections(List<String> timedOutSections) {
+        this.timedOutSections = timedOutSections;
+    }
+
     // --- Inner Classes for Data Structure ---
 
     /**
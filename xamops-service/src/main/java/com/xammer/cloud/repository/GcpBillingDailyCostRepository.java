@@ -0,0 +1,76 @@
+package com.xammer.cloud.repository;
+
+import com.xammer.cloud.domain.GcpBillingDailyCost;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface GcpBillingDailyCostRepository extends JpaRepository<GcpBillingDailyCost, Long> {
+
+    /**
+     * Aggregated cost for one grouping key.
+     */
+    interface CostTotal {
+        String getName();
+
+        Double getTotal();
+    }
+
+    interface ServiceRegionTotal {
+        String getService();
+
+        String getRegion();
+
+        Double getTotal();
+    }
+
+    interface DailyTotal {
+        LocalDate getUsageDate();
+
+        Double getTotal();
+    }
+
+    interface DailyServiceTotal {
+        LocalDate getUsageDate();
+
+        String getService();
+
+        Double getTotal();
+    }
+
+    @Modifying
+    @Query("DELETE FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to")
+    int deleteRange(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(c.cost), 0) FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to")
+    Double sumTotal(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.service AS name, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.service")
+    List<CostTotal> sumByService(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.region AS name, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.region")
+    List<CostTotal> sumByRegion(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.projectName AS name, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.projectName")
+    List<CostTotal> sumByProjectName(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.service AS service, c.region AS region, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.service, c.region")
+    List<ServiceRegionTotal> sumByServiceAndRegion(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.usageDate AS usageDate, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.usageDate ORDER BY c.usageDate")
+    List<DailyTotal> sumByDay(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.usageDate AS usageDate, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.service = :service AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.usageDate ORDER BY c.usageDate")
+    List<DailyTotal> sumByDayForService(@Param("projectId") String gcpProjectId, @Param("service") String service,
+                                        @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.usageDate AS usageDate, c.service AS service, SUM(c.cost) AS total FROM GcpBillingDailyCost c WHERE c.gcpProjectId = :projectId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.usageDate, c.service ORDER BY c.usageDate")
+    List<DailyServiceTotal> sumByDayAndService(@Param("projectId") String gcpProjectId, @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+}
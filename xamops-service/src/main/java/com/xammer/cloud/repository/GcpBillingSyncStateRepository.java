@@ -0,0 +1,9 @@
+package com.xammer.cloud.repository;
+
+import com.xammer.cloud.domain.GcpBillingSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GcpBillingSyncStateRepository extends JpaRepository<GcpBillingSyncState, String> {
+}
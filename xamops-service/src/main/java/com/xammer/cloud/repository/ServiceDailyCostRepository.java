@@ -0,0 +1,40 @@
+package com.xammer.cloud.repository;
+
+import com.xammer.cloud.domain.ServiceDailyCost;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ServiceDailyCostRepository extends JpaRepository<ServiceDailyCost, Long> {
+
+    interface DailyTotal {
+        LocalDate getUsageDate();
+
+        Double getTotal();
+    }
+
+    @Query("SELECT MIN(c.usageDate) FROM ServiceDailyCost c WHERE c.provider = :provider AND c.accountId = :accountId")
+    LocalDate findFirstUsageDate(@Param("provider") String provider, @Param("accountId") String accountId);
+
+    @Query("SELECT MAX(c.usageDate) FROM ServiceDailyCost c WHERE c.provider = :provider AND c.accountId = :accountId")
+    LocalDate findLastUsageDate(@Param("provider") String provider, @Param("accountId") String accountId);
+
+    @Query("SELECT c FROM ServiceDailyCost c WHERE c.provider = :provider AND c.accountId = :accountId AND c.usageDate >= :from AND c.usageDate <= :to ORDER BY c.usageDate")
+    List<ServiceDailyCost> findRange(@Param("provider") String provider, @Param("accountId") String accountId,
+                                     @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT c.usageDate AS usageDate, SUM(c.cost) AS total FROM ServiceDailyCost c WHERE c.provider = :provider AND c.accountId = :accountId AND c.usageDate >= :from AND c.usageDate <= :to GROUP BY c.usageDate ORDER BY c.usageDate")
+    List<DailyTotal> sumByDay(@Param("provider") String provider, @Param("accountId") String accountId,
+                              @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM ServiceDailyCost c WHERE c.provider = :provider AND c.accountId = :accountId AND c.usageDate >= :from AND c.usageDate <= :to")
+    int deleteRange(@Param("provider") String provider, @Param("accountId") String accountId,
+                    @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,20 +1,29 @@
 package com.xammer.cloud.service;
 
+import com.xammer.cloud.service.pricing.AwsPriceCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalDouble;
 
 /**
  * Service for retrieving AWS EC2 instance pricing information.
- * Uses real AWS pricing data for accurate cost calculations.
+ * Prices come from the offline price catalog; the table below is only used until the
+ * catalog has been imported or for instance types it does not know.
  */
 @Service
 public class AwsPricingService {
     private static final Logger logger = LoggerFactory.getLogger(AwsPricingService.class);
 
+    private final AwsPriceCatalog priceCatalog;
+
+    public AwsPricingService(AwsPriceCatalog priceCatalog) {
+        this.priceCatalog = priceCatalog;
+    }
+
     // Real AWS EC2 On-Demand pricing for us-east-1 (as of 2024)
     // Prices are in USD per hour
     private static final Map<String, Double> US_EAST_1_PRICING = new HashMap<>();
@@ -115,6 +124,11 @@ public class AwsPricingService {
             return 0.0;
         }
 
+        OptionalDouble catalogPrice = priceCatalog.getEc2HourlyPrice(region, instanceType.toLowerCase());
+        if (catalogPrice.isPresent()) {
+            return catalogPrice.getAsDouble();
+        }
+
         // Get base price from us-east-1
         Double basePrice = US_EAST_1_PRICING.get(instanceType.toLowerCase());
 
@@ -4,19 +4,13 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.AlertDto;
 import com.xammer.cloud.dto.DashboardData;
-import com.xammer.cloud.dto.ResourceDto;
 import com.xammer.cloud.repository.CloudAccountRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import software.amazon.awssdk.services.servicequotas.ServiceQuotasClient;
-import software.amazon.awssdk.services.servicequotas.model.ListServiceQuotasRequest;
-import software.amazon.awssdk.services.servicequotas.model.ListServiceQuotasResponse;
-import software.amazon.awssdk.services.servicequotas.model.ServiceQuota;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -27,30 +21,26 @@ import java.util.stream.Collectors;
 public class CloudGuardService {
 
     private static final Logger logger = LoggerFactory.getLogger(CloudGuardService.class);
-    private static final double ALERT_THRESHOLD_PERCENTAGE = 75.0;
 
     private final CloudAccountRepository cloudAccountRepository;
-    private final AwsClientProvider awsClientProvider;
     private final RedisCacheService redisCache;
-    private final CloudListService cloudListService;
     private final FinOpsService finOpsService;
     private final EmailService emailService;
+    private final QuotaMonitorService quotaMonitorService;
 
     @Autowired
     public CloudGuardService(
             CloudAccountRepository cloudAccountRepository,
-            AwsClientProvider awsClientProvider,
             RedisCacheService redisCache,
-            @Lazy CloudListService cloudListService,
             FinOpsService finOpsService,
-            EmailService emailService
+            EmailService emailService,
+            QuotaMonitorService quotaMonitorService
     ) {
         this.cloudAccountRepository = cloudAccountRepository;
-        this.awsClientProvider = awsClientProvider;
         this.redisCache = redisCache;
-        this.cloudListService = cloudListService;
         this.finOpsService = finOpsService;
         this.emailService = emailService;
+        this.quotaMonitorService = quotaMonitorService;
     }
 
     private CloudAccount getAccount(String accountId) {
@@ -74,8 +64,8 @@ public class CloudGuardService {
     }
 
     @Async("awsTaskExecutor")
-    public CompletableFuture<List<DashboardData.ServiceQuotaInfo>> getVpcQuotaAlerts(String accountId, boolean forceRefresh) {
-        String cacheKey = "vpcQuotaAlerts-" + accountId;
+    public CompletableFuture<List<DashboardData.ServiceQuotaInfo>> getQuotaAlerts(String accountId, boolean forceRefresh) {
+        String cacheKey = "quotaAlerts-" + accountId;
 
         if (!forceRefresh) {
             Optional<List<DashboardData.ServiceQuotaInfo>> cachedData = redisCache.get(cacheKey, new TypeReference<>() {});
@@ -86,71 +76,16 @@ public class CloudGuardService {
         }
 
         CloudAccount account = getAccount(accountId);
-        CompletableFuture<List<DashboardData.RegionStatus>> activeRegionsFuture = cloudListService.getRegionStatusForAccount(account, forceRefresh);
-
-        return activeRegionsFuture.thenCompose(activeRegions -> {
-            if (activeRegions == null || activeRegions.isEmpty()) {
-                return CompletableFuture.completedFuture(Collections.emptyList());
-            }
-
-            CompletableFuture<List<ResourceDto>> vpcResourcesFuture = cloudListService.fetchVpcsForCloudlist(account, activeRegions);
-
-            return vpcResourcesFuture.thenApplyAsync(vpcResources -> {
-                try {
-                    Map<String, Long> vpcCountsByRegion = vpcResources.stream()
-                            .collect(Collectors.groupingBy(ResourceDto::getRegion, Collectors.counting()));
-
-                    List<CompletableFuture<DashboardData.ServiceQuotaInfo>> futures = activeRegions.stream()
-                            .map(region -> CompletableFuture.supplyAsync(() -> {
-                                try {
-                                    logger.info("Fetching service quota info for account {} in region {}...", accountId, region.getRegionId());
-                                    ServiceQuotasClient sqClient = awsClientProvider.getServiceQuotasClient(account, region.getRegionId());
-                                    ListServiceQuotasRequest listRequest = ListServiceQuotasRequest.builder()
-                                            .serviceCode("vpc")
-                                            .build();
-                                    ListServiceQuotasResponse listResponse = sqClient.listServiceQuotas(listRequest);
-                                    Optional<ServiceQuota> quota = listResponse.quotas().stream()
-                                            .filter(q -> q.quotaCode().equals("L-F678F1CE"))
-                                            .findFirst();
-
-                                    return quota.map(serviceQuota -> {
-                                        double currentCount = vpcCountsByRegion.getOrDefault(region.getRegionId(), 0L).doubleValue();
-                                        double usage = currentCount;
-                                        double utilization = (serviceQuota.value() > 0) ? (usage / serviceQuota.value()) * 100.0 : 0.0;
-
-                                        if (utilization > ALERT_THRESHOLD_PERCENTAGE || usage > 0) {
-                                            return new DashboardData.ServiceQuotaInfo(
-                                                    "VPC",
-                                                    serviceQuota.quotaName(),
-                                                    serviceQuota.value(),
-                                                    usage,
-                                                    region.getRegionId(),
-                                                    "Active"
-                                            );
-                                        }
-                                        return null;
-                                    }).orElse(null);
-                                } catch (Exception e) {
-                                    logger.error("Failed to get quota info for service vpc in region {}.", region.getRegionId(), e);
-                                    return null;
-                                }
-                            }))
-                            .collect(Collectors.toList());
-
-                    List<DashboardData.ServiceQuotaInfo> allQuotaInfo = futures.stream()
-                            .map(CompletableFuture::join)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toList());
-
-                    logger.info("Successfully fetched {} VPC quota alerts for account {}.", allQuotaInfo.size(), accountId);
+        return quotaMonitorService.evaluate(account, forceRefresh)
+                .thenApply(allQuotaInfo -> {
+                    logger.info("Successfully fetched {} quota alerts for account {}.", allQuotaInfo.size(), accountId);
                     redisCache.put(cacheKey, allQuotaInfo, 10);
                     return allQuotaInfo;
-                } catch (Exception e) {
-                    logger.error("Could not fetch VPC quota alerts for account {}.", accountId, e);
+                })
+                .exceptionally(e -> {
+                    logger.error("Could not fetch quota alerts for account {}.", accountId, e);
                     return Collections.emptyList();
-                }
-            });
-        });
+                });
     }
 
     @Async("awsTaskExecutor")
@@ -172,7 +107,7 @@ public class CloudGuardService {
 
         final String email = clientEmail;
 
-        CompletableFuture<List<DashboardData.ServiceQuotaInfo>> quotasFuture = getVpcQuotaAlerts(accountId, forceRefresh);
+        CompletableFuture<List<DashboardData.ServiceQuotaInfo>> quotasFuture = getQuotaAlerts(accountId, forceRefresh);
         CompletableFuture<List<DashboardData.CostAnomaly>> anomaliesFuture = finOpsService.getCostAnomalies(account, forceRefresh);
 
         return quotasFuture.thenCombine(anomaliesFuture, (quotas, anomalies) -> {
@@ -191,11 +126,11 @@ public class CloudGuardService {
 
                             return new AlertDto(
                                     uniqueId,
-                                    "VPC",
+                                    q.getServiceName(),
                                     q.getQuotaName(),
                                     String.format("Current usage: %.0f / %.0f (%.1f%%)",
                                             q.getUsage(), q.getLimit(), (q.getUsage() / q.getLimit() * 100)),
-                                    determineQuotaStatus(q.getUsage(), q.getLimit()),
+                                    q.getStatus(),
                                     q.getUsage(),
                                     q.getLimit(),
                                     "QUOTA",
@@ -251,15 +186,4 @@ public class CloudGuardService {
             return Collections.emptyList();
         });
     }
-
-    /**
-     * Determine quota status based on usage percentage
-     */
-    private String determineQuotaStatus(double usage, double limit) {
-        if (limit == 0) return "UNKNOWN";
-        double percentage = (usage / limit) * 100;
-        if (percentage >= 90) return "CRITICAL";
-        if (percentage >= 75) return "WARNING";
-        return "OK";
-    }
 }
@@ -3,6 +3,7 @@ package com.xammer.cloud.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xammer.cloud.config.multitenancy.TenantContext;
 import com.xammer.cloud.domain.CachedData; // Imported
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
@@ -129,6 +130,9 @@ public class CloudListService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private TagIndexService tagIndexService;
+
     // ✅ Added Repository for archiving
     @Autowired
     private CachedDataRepository cachedDataRepository;
@@ -343,6 +347,7 @@ public class CloudListService {
 
     @Async("awsTaskExecutor")
     public CompletableFuture<List<ResourceDto>> getAllResources(CloudAccount account, boolean forceRefresh) {
+        String tenantId = TenantContext.getCurrentTenant();
         String cacheKey = "cloudlistResources-" + account.getAwsAccountId();
         if (!forceRefresh) {
             Optional<List<ResourceDto>> cachedData = redisCache.get(cacheKey, new TypeReference<>() {
@@ -429,6 +434,7 @@ public class CloudListService {
                         logger.debug("Fetched a total of {} resources for Cloudlist for account {}",
                                 allResources.size(), account.getAwsAccountId());
                         redisCache.put(cacheKey, allResources, 10);
+                        tagIndexService.sync(tenantId, account.getAwsAccountId(), allResources);
 
                         // ✅ NEW: Archive AWS Cloud List to Main Postgres Database for Superset
                         try {
@@ -453,6 +459,24 @@ public class CloudListService {
         });
     }
 
+    /**
+     * Tag index for the account. Fresh fetches keep it in sync; once it is older than the cached
+     * inventory, or missing (e.g. after a restart), it is re-synced from the cached inventory, which
+     * is only fetched again if Redis no longer holds it.
+     */
+    public CompletableFuture<ResourceTagIndex> getTagIndex(CloudAccount account, boolean forceRefresh) {
+        String tenantId = TenantContext.getCurrentTenant();
+        String accountId = account.getAwsAccountId();
+        if (!forceRefresh) {
+            Optional<ResourceTagIndex> fresh = tagIndexService.find(tenantId, accountId);
+            if (fresh.isPresent()) {
+                return CompletableFuture.completedFuture(fresh.get());
+            }
+        }
+        return getAllResources(account, forceRefresh)
+                .thenApply(resources -> tagIndexService.sync(tenantId, accountId, resources));
+    }
+
     @Async("awsTaskExecutor")
     public CompletableFuture<List<DashboardData.RegionStatus>> getRegionStatusForAccount(CloudAccount account,
             boolean forceRefresh) {
@@ -219,6 +219,42 @@ public class CostService {
                 });
         }
 
+        /**
+         * Daily cost per service and region between two dates (inclusive), synchronously.
+         * Report runs fetch the widest window they need once and slice the shorter ones from it.
+         */
+        public SortedMap<LocalDate, List<DetailedCostDto>> getDailyCostByServiceAndRegion(
+                        CloudAccount account, LocalDate startDate, LocalDate endDate) {
+                CostExplorerClient ce = awsClientProvider.getCostExplorerClient(account);
+                SortedMap<LocalDate, List<DetailedCostDto>> costsByDay = new TreeMap<>();
+                String nextPageToken = null;
+                do {
+                        GetCostAndUsageResponse response = ce.getCostAndUsage(GetCostAndUsageRequest.builder()
+                                        .timePeriod(DateInterval.builder()
+                                                        .start(startDate.toString())
+                                                        .end(endDate.plusDays(1).toString())
+                                                        .build())
+                                        .granularity(Granularity.DAILY)
+                                        .metrics("UnblendedCost")
+                                        .groupBy(GroupDefinition.builder().type(GroupDefinitionType.DIMENSION)
+                                                                        .key("SERVICE").build(),
+                                                        GroupDefinition.builder().type(GroupDefinitionType.DIMENSION)
+                                                                        .key("REGION").build())
+                                        .nextPageToken(nextPageToken)
+                                        .build());
+                        for (ResultByTime result : response.resultsByTime()) {
+                                List<DetailedCostDto> day = costsByDay.computeIfAbsent(
+                                                LocalDate.parse(result.timePeriod().start()), d -> new ArrayList<>());
+                                for (Group group : result.groups()) {
+                                        day.add(new DetailedCostDto(group.keys().get(0), group.keys().get(1),
+                                                        Double.parseDouble(group.metrics().get("UnblendedCost").amount())));
+                                }
+                        }
+                        nextPageToken = response.nextPageToken();
+                } while (nextPageToken != null);
+                return costsByDay;
+        }
+
         /**
          * Get cost breakdown by dimension (SERVICE, REGION, INSTANCE_TYPE, etc.)
          */
@@ -0,0 +1,80 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends FinOps report emails off the report runner's threads. Failed sends are retried with
+ * exponential backoff on the same pool, so a slow or flaky SMTP server never stalls cost
+ * fetching for the remaining accounts.
+ */
+@Component
+public class FinOpsReportMailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinOpsReportMailDispatcher.class);
+
+    private final EmailService emailService;
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    public FinOpsReportMailDispatcher(EmailService emailService,
+                                      ThreadGovernor threadGovernor,
+                                      @Value("${finops.reports.mail-threads:2}") int mailThreads,
+                                      @Value("${finops.reports.mail-max-attempts:3}") int maxAttempts,
+                                      @Value("${finops.reports.mail-retry-backoff-ms:5000}") long retryBackoffMs) {
+        this.emailService = emailService;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.executor = threadGovernor.newScheduledExecutor("finops-report-mail", mailThreads);
+    }
+
+    /**
+     * Queues an HTML email. {@code onSent} runs on the mail thread after a successful send.
+     */
+    public void enqueue(String to, String subject, String htmlBody, Runnable onSent) {
+        executor.execute(() -> attempt(to, subject, htmlBody, onSent, 1));
+    }
+
+    public int pending() {
+        return executor.getQueue().size();
+    }
+
+    private void attempt(String to, String subject, String htmlBody, Runnable onSent, int attempt) {
+        try {
+            emailService.sendHtmlEmail(to, subject, htmlBody);
+        } catch (Exception e) {
+            if (attempt >= maxAttempts) {
+                logger.error("Giving up on FinOps report email to {} after {} attempts: {}", to, attempt, e.getMessage());
+                return;
+            }
+            long delay = retryBackoffMs << (attempt - 1);
+            logger.warn("FinOps report email to {} failed (attempt {}/{}), retrying in {} ms: {}",
+                    to, attempt, maxAttempts, delay, e.getMessage());
+            executor.schedule(() -> attempt(to, subject, htmlBody, onSent, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        try {
+            onSent.run();
+        } catch (Exception e) {
+            logger.error("FinOps report email to {} was sent but the follow-up failed: {}", to, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("FinOps report mail queue did not drain before shutdown; {} emails dropped", pending());
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.xammer.cloud.service;
 
+import com.xammer.cloud.config.threads.ThreadGovernor;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.domain.FinOpsReportSchedule;
 import com.xammer.cloud.dto.DetailedCostDto;
@@ -7,148 +8,246 @@ import com.xammer.cloud.repository.FinOpsReportScheduleRepository;
 import com.xammer.cloud.service.gcp.GcpCostService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PreDestroy;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Map; // <-- NEW IMPORT
-import java.util.stream.Collectors; // <-- NEW IMPORT
-
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the FinOps report schedules. Schedules are read in a short read-only transaction; cost
+ * data is then fetched per account on a bounded pool with no connection held, and the emails go
+ * out through {@link FinOpsReportMailDispatcher}. When several frequencies are due on the same
+ * day (e.g. daily and weekly on a Friday), an AWS account's costs are fetched once at daily
+ * granularity and every window is sliced from that.
+ */
 @Service
 public class FinOpsReportSchedulingService {
 
     private static final Logger logger = LoggerFactory.getLogger(FinOpsReportSchedulingService.class);
 
+    private static final DayOfWeek WEEKLY_REPORT_DAY = DayOfWeek.FRIDAY;
+    private static final int MONTHLY_REPORT_DAY = 30;
+
+    /**
+     * The reporting period for one frequency, ending yesterday.
+     */
+    static final class ReportWindow {
+        final FinOpsReportSchedule.Frequency frequency;
+        final String label;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final String dateRange;
+
+        ReportWindow(FinOpsReportSchedule.Frequency frequency, String label, LocalDate startDate, LocalDate endDate) {
+            this.frequency = frequency;
+            this.label = label;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.dateRange = startDate.equals(endDate)
+                    ? startDate.format(DateTimeFormatter.ISO_LOCAL_DATE)
+                    : startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + " to "
+                            + endDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+
+        static ReportWindow of(FinOpsReportSchedule.Frequency frequency, LocalDate today) {
+            LocalDate endDate = today.minusDays(1); // Up to yesterday
+            switch (frequency) {
+                case WEEKLY:
+                    return new ReportWindow(frequency, "Weekly", endDate.minusDays(6), endDate); // Past 7 days
+                case MONTHLY:
+                    return new ReportWindow(frequency, "Monthly", endDate.minusDays(29), endDate); // Past 30 days
+                default:
+                    return new ReportWindow(frequency, "Daily", endDate, endDate);
+            }
+        }
+    }
+
+    /**
+     * Detached view of one schedule: enough to fetch, render and send without the session.
+     */
+    static final class Recipient {
+        final Long scheduleId;
+        final String email;
+        final FinOpsReportSchedule.Frequency frequency;
+
+        Recipient(FinOpsReportSchedule schedule) {
+            this.scheduleId = schedule.getId();
+            this.email = schedule.getEmail();
+            this.frequency = schedule.getFrequency();
+        }
+    }
+
     private final FinOpsReportScheduleRepository scheduleRepository;
     private final CostService costService;
     private final GcpCostService gcpCostService;
-    private final EmailService emailService;
     private final FinOpsReportEmailBuilder emailBuilder;
+    private final FinOpsReportMailDispatcher mailDispatcher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate lastSentTransaction;
+    private final ThreadPoolExecutor fetchExecutor;
 
     public FinOpsReportSchedulingService(FinOpsReportScheduleRepository scheduleRepository,
             CostService costService,
             GcpCostService gcpCostService,
-            EmailService emailService,
-            FinOpsReportEmailBuilder emailBuilder) {
+            FinOpsReportEmailBuilder emailBuilder,
+            FinOpsReportMailDispatcher mailDispatcher,
+            PlatformTransactionManager transactionManager,
+            ThreadGovernor threadGovernor,
+            @Value("${finops.reports.fetch-threads:4}") int fetchThreads) {
         this.scheduleRepository = scheduleRepository;
         this.costService = costService;
         this.gcpCostService = gcpCostService;
-        this.emailService = emailService;
         this.emailBuilder = emailBuilder;
-    }
-
-    @Transactional(readOnly = true)
-    @Scheduled(cron = "0 30 12 * * ?") // 6:00 PM IST daily
-    public void runDailyReports() {
-        logger.info("Running DAILY FinOps report schedules...");
-        List<FinOpsReportSchedule> schedules = scheduleRepository
-                .findAllActiveByFrequencyWithDetails(FinOpsReportSchedule.Frequency.DAILY);
-
-        LocalDate reportDate = LocalDate.now().minusDays(1); // Report for yesterday
-        String dateRange = reportDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        this.mailDispatcher = mailDispatcher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.lastSentTransaction = new TransactionTemplate(transactionManager);
 
-        processSchedules(schedules, "Daily", reportDate, reportDate, dateRange);
+        this.fetchExecutor = threadGovernor.newExecutor("finops-report-fetch", fetchThreads, fetchThreads * 4,
+                new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
-    @Transactional(readOnly = true)
-    @Scheduled(cron = "0 30 12 ? * FRI") // 6:00 PM IST every Friday
-    public void runWeeklyReports() {
-        logger.info("Running WEEKLY FinOps report schedules...");
-        List<FinOpsReportSchedule> schedules = scheduleRepository
-                .findAllActiveByFrequencyWithDetails(FinOpsReportSchedule.Frequency.WEEKLY);
-
-        LocalDate endDate = LocalDate.now().minusDays(1); // Up to yesterday
-        LocalDate startDate = endDate.minusDays(6); // Past 7 days
-        String dateRange = startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + " to "
-                + endDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
-
-        processSchedules(schedules, "Weekly", startDate, endDate, dateRange);
+    @Scheduled(cron = "0 30 12 * * ?") // 6:00 PM IST daily; weekly on Fridays, monthly on the 30th
+    public void runDueReports() {
+        LocalDate today = LocalDate.now();
+        EnumSet<FinOpsReportSchedule.Frequency> due = EnumSet.of(FinOpsReportSchedule.Frequency.DAILY);
+        if (today.getDayOfWeek() == WEEKLY_REPORT_DAY) {
+            due.add(FinOpsReportSchedule.Frequency.WEEKLY);
+        }
+        if (today.getDayOfMonth() == MONTHLY_REPORT_DAY) {
+            due.add(FinOpsReportSchedule.Frequency.MONTHLY);
+        }
+        runReports(due, today);
     }
 
-    @Transactional(readOnly = true)
-    @Scheduled(cron = "0 30 12 30 * ?") // 6:00 PM IST on the 30th
-    public void runMonthlyReports() {
-        logger.info("Running MONTHLY FinOps report schedules...");
-        List<FinOpsReportSchedule> schedules = scheduleRepository
-                .findAllActiveByFrequencyWithDetails(FinOpsReportSchedule.Frequency.MONTHLY);
-
-        LocalDate endDate = LocalDate.now().minusDays(1); // Up to yesterday
-        LocalDate startDate = endDate.minusDays(29); // Past 30 days
-        String dateRange = startDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + " to "
-                + endDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
-
-        processSchedules(schedules, "Monthly", startDate, endDate, dateRange);
-    }
+    public void runReports(Set<FinOpsReportSchedule.Frequency> frequencies, LocalDate today) {
+        logger.info("Running {} FinOps report schedules...", frequencies);
+        Map<FinOpsReportSchedule.Frequency, ReportWindow> windows = new EnumMap<>(FinOpsReportSchedule.Frequency.class);
+        frequencies.forEach(f -> windows.put(f, ReportWindow.of(f, today)));
+
+        // --- STEP 1: Load schedules; the connection goes back to the pool before any remote call ---
+        Map<Long, CloudAccount> accounts = new LinkedHashMap<>();
+        Map<Long, List<Recipient>> recipientsByAccount = new LinkedHashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (FinOpsReportSchedule.Frequency frequency : frequencies) {
+                for (FinOpsReportSchedule schedule : scheduleRepository.findAllActiveByFrequencyWithDetails(frequency)) {
+                    CloudAccount account = schedule.getCloudAccount();
+                    accounts.putIfAbsent(account.getId(), account);
+                    recipientsByAccount.computeIfAbsent(account.getId(), id -> new ArrayList<>())
+                            .add(new Recipient(schedule));
+                }
+            }
+        });
 
-    // --- MODIFIED: This method is now much more efficient ---
-    private void processSchedules(List<FinOpsReportSchedule> schedules, String frequency, LocalDate startDate,
-            LocalDate endDate, String dateRange) {
-        if (schedules.isEmpty()) {
-            logger.info("No active {} schedules found.", frequency);
+        if (recipientsByAccount.isEmpty()) {
+            logger.info("No active {} schedules found.", frequencies);
             return;
         }
+        logger.info("Found {} schedules to process across {} unique accounts",
+                recipientsByAccount.values().stream().mapToInt(List::size).sum(), recipientsByAccount.size());
 
-        // Group schedules by CloudAccount to avoid redundant data fetching
-        Map<CloudAccount, List<FinOpsReportSchedule>> schedulesByAccount = schedules.stream()
-                .collect(Collectors.groupingBy(FinOpsReportSchedule::getCloudAccount));
-
-        logger.info("Found {} {} schedules to process across {} unique accounts for date range {}",
-                schedules.size(), frequency, schedulesByAccount.size(), dateRange);
-
-        // Process schedules for each account
-        for (Map.Entry<CloudAccount, List<FinOpsReportSchedule>> entry : schedulesByAccount.entrySet()) {
-            CloudAccount account = entry.getKey();
-            List<FinOpsReportSchedule> accountSchedules = entry.getValue();
-
-            String accountId = account.getProviderAccountId();
-            String accountName = account.getAccountName();
-
-            try {
-                // --- STEP 1: Fetch data ONCE for the account ---
-                List<DetailedCostDto> reportData;
-                if ("AWS".equals(account.getProvider())) {
-                    reportData = costService.getCostBreakdownByServiceAndRegion(accountId, startDate, endDate, false)
-                            .join();
-                } else if ("GCP".equals(account.getProvider())) {
-                    reportData = gcpCostService.getCostBreakdownByServiceAndRegionSync(accountId, startDate, endDate);
-                } else {
-                    logger.warn("Skipping account {}: Unsupported provider {}", accountId, account.getProvider());
-                    continue;
-                }
+        // --- STEP 2: Fetch and send per account, concurrently ---
+        List<CompletableFuture<Void>> runs = recipientsByAccount.entrySet().stream()
+                .map(entry -> CompletableFuture.runAsync(
+                        () -> processAccount(accounts.get(entry.getKey()), entry.getValue(), windows), fetchExecutor))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(runs.toArray(new CompletableFuture[0])).join();
+
+        logger.info("FinOps report run complete; {} emails queued for delivery", mailDispatcher.pending());
+    }
 
-                // --- STEP 2: Build email body ONCE ---
-                String subject = String.format("Your %s FinOps Report - %s (%s)", frequency, accountName, dateRange);
-                String htmlBody = emailBuilder.buildSimpleReportEmail(reportData, accountName, frequency, dateRange);
-
-                // --- STEP 3: Send email to all recipients for this account ---
-                for (FinOpsReportSchedule schedule : accountSchedules) {
-                    try {
-                        emailService.sendHtmlEmail(schedule.getEmail(), subject, htmlBody);
-                        updateScheduleLastSent(schedule.getId());
-                        logger.info("Successfully processed and sent report for schedule ID {} to {}", schedule.getId(),
-                                schedule.getEmail());
-                    } catch (Exception emailEx) {
-                        logger.error("Failed to send email for schedule ID {}: {}", schedule.getId(),
-                                emailEx.getMessage());
-                    }
+    private void processAccount(CloudAccount account, List<Recipient> recipients,
+            Map<FinOpsReportSchedule.Frequency, ReportWindow> windows) {
+        String accountId = account.getProviderAccountId();
+        String accountName = account.getAccountName();
+
+        try {
+            Map<FinOpsReportSchedule.Frequency, List<Recipient>> byFrequency = recipients.stream()
+                    .collect(Collectors.groupingBy(r -> r.frequency,
+                            () -> new EnumMap<>(FinOpsReportSchedule.Frequency.class), Collectors.toList()));
+            List<ReportWindow> accountWindows = byFrequency.keySet().stream()
+                    .map(windows::get)
+                    .collect(Collectors.toList());
+
+            // --- Fetch data ONCE for the account ---
+            Map<FinOpsReportSchedule.Frequency, List<DetailedCostDto>> reportData;
+            if ("AWS".equals(account.getProvider())) {
+                reportData = fetchAwsReportData(account, accountWindows);
+            } else if ("GCP".equals(account.getProvider())) {
+                // GCP reads from the local billing aggregate, so per-window queries are already cheap
+                reportData = new EnumMap<>(FinOpsReportSchedule.Frequency.class);
+                for (ReportWindow window : accountWindows) {
+                    reportData.put(window.frequency, gcpCostService.getCostBreakdownByServiceAndRegionSync(
+                            accountId, window.startDate, window.endDate));
                 }
+            } else {
+                logger.warn("Skipping account {}: Unsupported provider {}", accountId, account.getProvider());
+                return;
+            }
 
-            } catch (Exception e) {
-                logger.error("Failed to process schedules for account {}: {}", accountId, e.getMessage(), e);
+            // --- Build each email body ONCE and queue it for every recipient ---
+            for (ReportWindow window : accountWindows) {
+                String subject = String.format("Your %s FinOps Report - %s (%s)", window.label, accountName,
+                        window.dateRange);
+                String htmlBody = emailBuilder.buildSimpleReportEmail(reportData.get(window.frequency), accountName,
+                        window.label, window.dateRange);
+                for (Recipient recipient : byFrequency.get(window.frequency)) {
+                    mailDispatcher.enqueue(recipient.email, subject, htmlBody, () -> {
+                        updateScheduleLastSent(recipient.scheduleId);
+                        logger.info("Successfully processed and sent report for schedule ID {} to {}",
+                                recipient.scheduleId, recipient.email);
+                    });
+                }
             }
+        } catch (Exception e) {
+            logger.error("Failed to process schedules for account {}: {}", accountId, e.getMessage(), e);
+        }
+    }
+
+    // One DAILY Cost Explorer query over the widest window, summed per (service, region) for each window
+    private Map<FinOpsReportSchedule.Frequency, List<DetailedCostDto>> fetchAwsReportData(CloudAccount account,
+            List<ReportWindow> accountWindows) {
+        LocalDate start = accountWindows.stream().map(w -> w.startDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate end = accountWindows.stream().map(w -> w.endDate).max(LocalDate::compareTo).orElseThrow();
+        SortedMap<LocalDate, List<DetailedCostDto>> daily = costService.getDailyCostByServiceAndRegion(account, start, end);
+
+        Map<FinOpsReportSchedule.Frequency, List<DetailedCostDto>> reportData =
+                new EnumMap<>(FinOpsReportSchedule.Frequency.class);
+        for (ReportWindow window : accountWindows) {
+            Map<List<String>, Double> totals = new HashMap<>();
+            daily.subMap(window.startDate, window.endDate.plusDays(1)).values()
+                    .forEach(day -> day.forEach(c -> totals.merge(List.of(c.getService(), c.getRegion()),
+                            c.getCost(), Double::sum)));
+            reportData.put(window.frequency, totals.entrySet().stream()
+                    .map(e -> new DetailedCostDto(e.getKey().get(0), e.getKey().get(1), e.getValue()))
+                    .filter(cost -> cost.getCost() > 0.01) // Filter out zero/negligible costs
+                    .sorted((a, b) -> Double.compare(b.getCost(), a.getCost()))
+                    .collect(Collectors.toList()));
         }
+        return reportData;
     }
 
-    @Transactional
-    public void updateScheduleLastSent(Long scheduleId) {
-        // This method runs in its own transaction to update the "lastSent" timestamp
-        scheduleRepository.findById(scheduleId).ifPresent(schedule -> {
+    // Runs on the mail thread after a delivery, in a write transaction of its own
+    private void updateScheduleLastSent(Long scheduleId) {
+        lastSentTransaction.executeWithoutResult(status -> scheduleRepository.findById(scheduleId).ifPresent(schedule -> {
             schedule.setLastSent(LocalDateTime.now());
             scheduleRepository.save(schedule);
-        });
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
     }
 }
@@ -0,0 +1,177 @@
+package com.xammer.cloud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Dependency tracking for the sections of the FinOps report.
+ * <p>
+ * Each {@link Section} declares the {@link Input}s it is computed from. A {@link Refresh} starts from
+ * the current version of every input (a date range, the inventory version, ...); a section whose
+ * inputs carry the same versions as when its output was stored is reused, every other section is
+ * recomputed. Inputs that change out of band (e.g. a budget being created) are bumped with
+ * {@link #markChanged(String, String, Input)}, which invalidates exactly the sections that read them.
+ * <p>
+ * State is kept per tenant and account. Accounts not refreshed for
+ * {@code finops.report.sections.idle-expiry-hours} are dropped, at most
+ * {@code finops.report.sections.max-accounts} are kept, and a removed account is dropped with
+ * {@link #evict(String, String)}. Outputs and change counters expire together, so a counter can never
+ * reset under an output stored before the change it counted.
+ */
+@Component
+public class FinOpsSectionGraph {
+
+    private static final String DEFAULT_TENANT = "default";
+
+    public enum Input {
+        /** Month-to-date Cost Explorer data. */
+        COST_MTD,
+        /** Monthly totals for the trailing six months. */
+        COST_HISTORY,
+        /** Cost anomaly detection window. */
+        ANOMALY_WINDOW,
+        /** Budgets defined on the account. */
+        BUDGET_DEFINITIONS,
+        /** CloudList inventory as seen by the tag index. */
+        INVENTORY,
+        /** Inventory plus the utilization metrics behind waste and rightsizing findings. */
+        OPTIMIZATION
+    }
+
+    public enum Section {
+        BILLING_SUMMARY(Input.COST_MTD),
+        COST_BY_REGION(Input.COST_MTD),
+        COST_HISTORY(Input.COST_HISTORY),
+        ANOMALIES(Input.ANOMALY_WINDOW),
+        BUDGETS(Input.BUDGET_DEFINITIONS, Input.COST_MTD),
+        TAGGING_COMPLIANCE(Input.INVENTORY),
+        WASTED_RESOURCES(Input.OPTIMIZATION),
+        RIGHTSIZING(Input.OPTIMIZATION);
+
+        private final Set<Input> inputs;
+
+        Section(Input first, Input... rest) {
+            this.inputs = Collections.unmodifiableSet(EnumSet.of(first, rest));
+        }
+
+        public Set<Input> getInputs() {
+            return inputs;
+        }
+    }
+
+    private static final class Output {
+        final String stamp;
+        final Object value;
+
+        Output(String stamp, Object value) {
+            this.stamp = stamp;
+            this.value = value;
+        }
+    }
+
+    private static final class AccountState {
+        final Map<Section, Output> outputs = new ConcurrentHashMap<>();
+        final Map<Input, Long> changeCounters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * One refresh of one account: which sections are stale against the input versions the refresh
+     * started from, and where their new outputs go.
+     */
+    public static final class Refresh {
+        private final AccountState state;
+        private final Map<Input, String> inputStamps;
+        private final Set<Section> stale = EnumSet.noneOf(Section.class);
+
+        private Refresh(AccountState state, Map<Input, String> inputStamps) {
+            this.state = state;
+            this.inputStamps = inputStamps;
+            for (Section section : Section.values()) {
+                Output output = state.outputs.get(section);
+                if (output == null || !output.stamp.equals(stamp(section))) {
+                    stale.add(section);
+                }
+            }
+        }
+
+        public Set<Section> getStaleSections() {
+            return Collections.unmodifiableSet(stale);
+        }
+
+        public boolean isStale(Section section) {
+            return stale.contains(section);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T cached(Section section) {
+            return (T) state.outputs.get(section).value;
+        }
+
+        /**
+         * Stores under the stamps the refresh started from, so an input change that lands while the
+         * section is being computed still invalidates it on the next refresh.
+         */
+        public void store(Section section, Object value) {
+            state.outputs.put(section, new Output(stamp(section), value));
+        }
+
+        private String stamp(Section section) {
+            return section.getInputs().stream()
+                    .map(input -> input + "=" + inputStamps.get(input))
+                    .collect(Collectors.joining(";"));
+        }
+    }
+
+    private final Cache<String, AccountState> accounts;
+
+    public FinOpsSectionGraph(@Value("${finops.report.sections.idle-expiry-hours:24}") long idleExpiryHours,
+                              @Value("${finops.report.sections.max-accounts:1000}") long maxAccounts) {
+        this.accounts = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(idleExpiryHours))
+                .maximumSize(maxAccounts)
+                .build();
+    }
+
+    /**
+     * Starts a refresh with the current version of every input, e.g. the date range a cost query covers.
+     */
+    public Refresh begin(String tenantId, String accountId, Map<Input, String> inputVersions) {
+        AccountState state = accounts.get(key(tenantId, accountId), k -> new AccountState());
+        Map<Input, String> inputStamps = new EnumMap<>(Input.class);
+        for (Input input : Input.values()) {
+            inputStamps.put(input, inputVersions.get(input) + "#" + state.changeCounters.getOrDefault(input, 0L));
+        }
+        return new Refresh(state, inputStamps);
+    }
+
+    /**
+     * Invalidates every section that reads {@code input}, for changes its version cannot see.
+     */
+    public void markChanged(String tenantId, String accountId, Input input) {
+        accounts.get(key(tenantId, accountId), k -> new AccountState()).changeCounters.merge(input, 1L, Long::sum);
+    }
+
+    /**
+     * Drops everything held for the account, e.g. when it is removed. A refresh still in flight
+     * stores into the dropped state, so nothing is resurrected.
+     */
+    public void evict(String tenantId, String accountId) {
+        accounts.invalidate(key(tenantId, accountId));
+    }
+
+    long size() {
+        accounts.cleanUp();
+        return accounts.estimatedSize();
+    }
+
+    private static String key(String tenantId, String accountId) {
+        return (tenantId != null ? tenantId : DEFAULT_TENANT) + ":" + accountId;
+    }
+}
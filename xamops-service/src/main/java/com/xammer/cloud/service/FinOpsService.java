@@ -1,12 +1,14 @@
 package com.xammer.cloud.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.xammer.cloud.config.multitenancy.TenantContext;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
 import com.xammer.cloud.dto.DashboardData.BudgetDetails;
 import com.xammer.cloud.dto.FinOpsReportDto;
 import com.xammer.cloud.dto.ResourceDto;
 import com.xammer.cloud.repository.CloudAccountRepository;
+import com.xammer.cloud.service.anomaly.CostAnomalyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,15 +19,11 @@ import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.budgets.BudgetsClient;
 import software.amazon.awssdk.services.budgets.model.*;
 import software.amazon.awssdk.services.costexplorer.CostExplorerClient;
-import software.amazon.awssdk.services.costexplorer.model.Anomaly;
-import software.amazon.awssdk.services.costexplorer.model.AnomalyDateInterval;
 import software.amazon.awssdk.services.costexplorer.model.DateInterval;
-import software.amazon.awssdk.services.costexplorer.model.GetAnomaliesRequest;
 import software.amazon.awssdk.services.costexplorer.model.GetCostAndUsageRequest;
 import software.amazon.awssdk.services.costexplorer.model.Granularity;
 import software.amazon.awssdk.services.costexplorer.model.GroupDefinition;
 import software.amazon.awssdk.services.costexplorer.model.GroupDefinitionType;
-import software.amazon.awssdk.services.costexplorer.model.RootCause;
 
 import com.xammer.cloud.domain.User;
 import com.xammer.cloud.repository.UserRepository;
@@ -37,6 +35,7 @@ import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,9 +47,13 @@ public class FinOpsService {
     private final AwsClientProvider awsClientProvider;
     private final CloudListService cloudListService;
     private final OptimizationService optimizationService;
-    private final List<String> requiredTags;
     private final RedisCacheService redisCache;
     private final UserRepository userRepository;
+    private final FinOpsSectionGraph sectionGraph;
+    private final CostAnomalyService costAnomalyService;
+
+    @Value("${finops.report.cost-refresh-hours:8}")
+    private long costRefreshHours;
 
     @Autowired
     public FinOpsService(
@@ -58,15 +61,16 @@ public class FinOpsService {
             AwsClientProvider awsClientProvider,
             @Lazy CloudListService cloudListService,
             @Lazy OptimizationService optimizationService,
-            @Value("${tagging.compliance.required-tags}") List<String> requiredTags,
-            RedisCacheService redisCache, UserRepository userRepository) {
+            RedisCacheService redisCache, UserRepository userRepository,
+            FinOpsSectionGraph sectionGraph, CostAnomalyService costAnomalyService) {
         this.cloudAccountRepository = cloudAccountRepository;
         this.awsClientProvider = awsClientProvider;
         this.cloudListService = cloudListService;
         this.optimizationService = optimizationService;
-        this.requiredTags = requiredTags;
         this.redisCache = redisCache;
         this.userRepository = userRepository; // Initialize
+        this.sectionGraph = sectionGraph;
+        this.costAnomalyService = costAnomalyService;
 
     }
 
@@ -79,6 +83,11 @@ public class FinOpsService {
         return accounts.get(0); // Return the first one found
     }
 
+    /**
+     * Builds the FinOps report from its sections. Without {@code forceRefresh} a report cached in the
+     * last 10 minutes is returned as is; otherwise only the sections whose inputs changed since they
+     * were last computed (see {@link FinOpsSectionGraph}) go back to AWS, and the rest are reused.
+     */
     @Async("awsTaskExecutor")
     public CompletableFuture<FinOpsReportDto> getFinOpsReport(String accountId, boolean forceRefresh) {
         String cacheKey = "finopsReport-" + accountId;
@@ -89,25 +98,36 @@ public class FinOpsService {
             }
         }
 
+        String tenantId = TenantContext.getCurrentTenant();
         CloudAccount account = getAccount(accountId);
-        return cloudListService.getRegionStatusForAccount(account, forceRefresh).thenCompose(activeRegions -> {
-            if (activeRegions == null) {
-                return CompletableFuture.completedFuture(null);
-            }
-            logger.info("--- LAUNCHING ASYNC DATA FETCH FOR FINOPS REPORT for account {}---", account.getAwsAccountId());
-
-            CompletableFuture<List<DashboardData.BillingSummary>> billingSummaryFuture = getBillingSummary(account, forceRefresh);
-            CompletableFuture<List<DashboardData.WastedResource>> wastedResourcesFuture = optimizationService.getWastedResources(account, activeRegions, forceRefresh);
-            CompletableFuture<List<DashboardData.OptimizationRecommendation>> rightsizingFuture = optimizationService.getAllOptimizationRecommendations(accountId, forceRefresh);
-            CompletableFuture<List<DashboardData.CostAnomaly>> anomaliesFuture = getCostAnomalies(account, forceRefresh);
-            CompletableFuture<DashboardData.CostHistory> costHistoryFuture = getCostHistory(account, forceRefresh);
-            CompletableFuture<DashboardData.TaggingCompliance> taggingComplianceFuture = getTaggingCompliance(account, forceRefresh);
-            CompletableFuture<List<BudgetDetails>> budgetsFuture = getAccountBudgets(account, forceRefresh);
-            CompletableFuture<List<Map<String, Object>>> costByRegionFuture = getCostByRegion(account, forceRefresh);
+        return cloudListService.getTagIndex(account, forceRefresh).thenCompose(tagIndex -> {
+            FinOpsSectionGraph.Refresh refresh = sectionGraph.begin(tenantId, accountId, inputVersions(tagIndex));
+            logger.info("--- REFRESHING FINOPS REPORT SECTIONS {} for account {} ({} reused) ---",
+                    refresh.getStaleSections(), account.getAwsAccountId(),
+                    FinOpsSectionGraph.Section.values().length - refresh.getStaleSections().size());
+
+            CompletableFuture<List<DashboardData.BillingSummary>> billingSummaryFuture = section(refresh, FinOpsSectionGraph.Section.BILLING_SUMMARY,
+                    () -> getBillingSummary(account, true));
+            CompletableFuture<List<DashboardData.WastedResource>> wastedResourcesFuture = section(refresh, FinOpsSectionGraph.Section.WASTED_RESOURCES,
+                    () -> cloudListService.getRegionStatusForAccount(account, false).thenCompose(activeRegions -> activeRegions == null
+                            ? CompletableFuture.completedFuture(Collections.<DashboardData.WastedResource>emptyList())
+                            : optimizationService.getWastedResources(account, activeRegions, true)));
+            CompletableFuture<List<DashboardData.OptimizationRecommendation>> rightsizingFuture = section(refresh, FinOpsSectionGraph.Section.RIGHTSIZING,
+                    () -> optimizationService.getAllOptimizationRecommendations(accountId, true));
+            CompletableFuture<List<DashboardData.CostAnomaly>> anomaliesFuture = section(refresh, FinOpsSectionGraph.Section.ANOMALIES,
+                    () -> getCostAnomalies(account, true));
+            CompletableFuture<DashboardData.CostHistory> costHistoryFuture = section(refresh, FinOpsSectionGraph.Section.COST_HISTORY,
+                    () -> getCostHistory(account, true));
+            CompletableFuture<DashboardData.TaggingCompliance> taggingComplianceFuture = section(refresh, FinOpsSectionGraph.Section.TAGGING_COMPLIANCE,
+                    () -> CompletableFuture.completedFuture(tagIndex.compliance(20)));
+            CompletableFuture<List<BudgetDetails>> budgetsFuture = section(refresh, FinOpsSectionGraph.Section.BUDGETS,
+                    () -> getAccountBudgets(account, true));
+            CompletableFuture<List<Map<String, Object>>> costByRegionFuture = section(refresh, FinOpsSectionGraph.Section.COST_BY_REGION,
+                    () -> getCostByRegion(account, true));
 
             return CompletableFuture.allOf(billingSummaryFuture, wastedResourcesFuture, rightsizingFuture, anomaliesFuture, costHistoryFuture, taggingComplianceFuture, budgetsFuture, costByRegionFuture)
                     .thenApply(v -> {
-                        logger.info("--- ALL FINOPS DATA FETCHES COMPLETE, AGGREGATING NOW ---");
+                        logger.info("--- ALL FINOPS SECTIONS READY, AGGREGATING NOW ---");
 
                         List<DashboardData.BillingSummary> billingSummary = billingSummaryFuture.join();
                         DashboardData.CostHistory costHistory = costHistoryFuture.join();
@@ -140,6 +160,37 @@ public class FinOpsService {
         });
     }
 
+    // Cost Explorer refreshes a few times a day, so cost inputs move with the date range and a refresh window
+    private Map<FinOpsSectionGraph.Input, String> inputVersions(ResourceTagIndex tagIndex) {
+        LocalDate today = LocalDate.now();
+        YearMonth thisMonth = YearMonth.from(today);
+        long costWindow = Instant.now().getEpochSecond() / (Math.max(1, costRefreshHours) * 3600);
+
+        Map<FinOpsSectionGraph.Input, String> versions = new EnumMap<>(FinOpsSectionGraph.Input.class);
+        versions.put(FinOpsSectionGraph.Input.COST_MTD, thisMonth.atDay(1) + ".." + today + "@" + costWindow);
+        versions.put(FinOpsSectionGraph.Input.COST_HISTORY, thisMonth.minusMonths(5) + ".." + thisMonth + "@" + costWindow);
+        versions.put(FinOpsSectionGraph.Input.ANOMALY_WINDOW, today.minusDays(60) + ".." + today.minusDays(1) + "@" + costWindow);
+        versions.put(FinOpsSectionGraph.Input.BUDGET_DEFINITIONS, "");
+        versions.put(FinOpsSectionGraph.Input.INVENTORY, String.valueOf(tagIndex.version()));
+        versions.put(FinOpsSectionGraph.Input.OPTIMIZATION, tagIndex.version() + "@" + today);
+        return versions;
+    }
+
+    // Reuses the stored output of a section whose inputs are unchanged; empty results are not kept,
+    // since the fetchers also return empty when the call failed
+    private <T> CompletableFuture<T> section(FinOpsSectionGraph.Refresh refresh, FinOpsSectionGraph.Section section,
+                                             Supplier<CompletableFuture<T>> compute) {
+        if (!refresh.isStale(section)) {
+            return CompletableFuture.completedFuture(refresh.cached(section));
+        }
+        return compute.get().thenApply(value -> {
+            if (value != null && !(value instanceof Collection && ((Collection<?>) value).isEmpty())) {
+                refresh.store(section, value);
+            }
+            return value;
+        });
+    }
+
     @Async("awsTaskExecutor")
     public CompletableFuture<List<BudgetDetails>> getAccountBudgets(CloudAccount account, boolean forceRefresh) {
         String cacheKey = "budgets-" + account.getAwsAccountId();
@@ -225,6 +276,7 @@ public class FinOpsService {
             // Evict caches to force a refresh on next load
             redisCache.evict("budgets-" + accountId);
             redisCache.evict("finopsReport-" + accountId);
+            sectionGraph.markChanged(TenantContext.getCurrentTenant(), accountId, FinOpsSectionGraph.Input.BUDGET_DEFINITIONS);
 
             // --- FIX: Return the DTO for the frontend ---
             // A new budget has 0 spend, so we populate it.
@@ -257,6 +309,7 @@ public class FinOpsService {
         } finally {
             redisCache.evict("budgets-" + accountId);
             redisCache.evict("finopsReport-" + accountId);
+            sectionGraph.markChanged(TenantContext.getCurrentTenant(), accountId, FinOpsSectionGraph.Input.BUDGET_DEFINITIONS);
         }
     }
 
@@ -271,31 +324,8 @@ public class FinOpsService {
         }
 
         logger.info("FinOps Scan: Checking tagging compliance for account {}...", account.getAwsAccountId());
-        return cloudListService.getAllResources(account, forceRefresh).thenApply(allResources -> {
-            List<DashboardData.UntaggedResource> untaggedList = new ArrayList<>();
-            int taggedCount = 0;
-
-            for (ResourceDto resource : allResources) {
-                List<String> missingTags = new ArrayList<>(this.requiredTags);
-                Map<String, String> resourceTags = new HashMap<>();
-                if (resource.getDetails() != null) {
-                     resource.getDetails().forEach((key, value) -> {
-                        if (key.toLowerCase().startsWith("tag:")) {
-                            resourceTags.put(key.substring(4), value);
-                        }
-                    });
-                }
-                missingTags.removeAll(resourceTags.keySet());
-                if (missingTags.isEmpty()) {
-                    taggedCount++;
-                } else {
-                    untaggedList.add(new DashboardData.UntaggedResource(resource.getId(), resource.getType(), resource.getRegion(), missingTags));
-                }
-            }
-
-            int totalScanned = allResources.size();
-            double percentage = (totalScanned > 0) ? ((double) taggedCount / totalScanned) * 100.0 : 100.0;
-            DashboardData.TaggingCompliance result = new DashboardData.TaggingCompliance(percentage, totalScanned, untaggedList.size(), untaggedList.stream().limit(20).collect(Collectors.toList()));
+        return cloudListService.getTagIndex(account, forceRefresh).thenApply(index -> {
+            DashboardData.TaggingCompliance result = index.compliance(20);
             redisCache.put(cacheKey, result, 10);
             return result;
         });
@@ -412,80 +442,67 @@ public class FinOpsService {
             }
         }
 
-        CostExplorerClient ce = awsClientProvider.getCostExplorerClient(account);
         logger.info("Fetching cost history for account {}...", account.getAwsAccountId());
         List<String> labels = new ArrayList<>();
         List<Double> costs = new ArrayList<>();
-        List<Boolean> anomalies = new ArrayList<>();
-        try {
-            for (int i = 5; i >= 0; i--) {
-                LocalDate month = LocalDate.now().minusMonths(i);
+        Optional<SortedMap<YearMonth, Double>> stored = costAnomalyService.getMonthlyTotals(account, 6);
+        if (stored.isPresent()) {
+            stored.get().forEach((month, cost) -> {
                 labels.add(month.format(DateTimeFormatter.ofPattern("MMM uuuu")));
-                GetCostAndUsageRequest req = GetCostAndUsageRequest.builder()
-                        .timePeriod(DateInterval.builder().start(month.withDayOfMonth(1).toString()).end(month.plusMonths(1).withDayOfMonth(1).toString()).build())
-                        .granularity(Granularity.MONTHLY).metrics("UnblendedCost").build();
-                double currentCost = Double.parseDouble(ce.getCostAndUsage(req).resultsByTime().get(0).total().get("UnblendedCost").amount());
-                costs.add(currentCost);
-
-                boolean isAnomaly = false;
-                if (costs.size() > 1) {
-                    double previousCost = costs.get(costs.size() - 2);
-                    if (previousCost > 100) {
-                        double changePercent = ((currentCost - previousCost) / previousCost) * 100;
-                        if (changePercent > 20) {
-                            isAnomaly = true;
-                        }
+                costs.add(cost);
+            });
+        } else {
+            // Stored daily series does not cover six months yet: ask Cost Explorer month by month
+            CostExplorerClient ce = awsClientProvider.getCostExplorerClient(account);
+            try {
+                for (int i = 5; i >= 0; i--) {
+                    LocalDate month = LocalDate.now().minusMonths(i);
+                    labels.add(month.format(DateTimeFormatter.ofPattern("MMM uuuu")));
+                    GetCostAndUsageRequest req = GetCostAndUsageRequest.builder()
+                            .timePeriod(DateInterval.builder().start(month.withDayOfMonth(1).toString()).end(month.plusMonths(1).withDayOfMonth(1).toString()).build())
+                            .granularity(Granularity.MONTHLY).metrics("UnblendedCost").build();
+                    costs.add(Double.parseDouble(ce.getCostAndUsage(req).resultsByTime().get(0).total().get("UnblendedCost").amount()));
+                }
+            } catch (Exception e) {
+                logger.error("Could not fetch cost history for account {}", account.getAwsAccountId(), e);
+            }
+        }
+
+        List<Boolean> anomalies = new ArrayList<>();
+        for (int i = 0; i < costs.size(); i++) {
+            boolean isAnomaly = false;
+            if (i > 0) {
+                double previousCost = costs.get(i - 1);
+                if (previousCost > 100) {
+                    double changePercent = ((costs.get(i) - previousCost) / previousCost) * 100;
+                    if (changePercent > 20) {
+                        isAnomaly = true;
                     }
                 }
-                anomalies.add(isAnomaly);
             }
-        } catch (Exception e) {
-            logger.error("Could not fetch cost history for account {}", account.getAwsAccountId(), e);
+            anomalies.add(isAnomaly);
         }
-        
+
         DashboardData.CostHistory result = new DashboardData.CostHistory(labels, costs, anomalies);
         redisCache.put(cacheKey, result, 10);
         return CompletableFuture.completedFuture(result);
     }
     
+    /**
+     * Anomalies of the last 60 days, detected locally over the account's per-service daily costs
+     * (see {@link CostAnomalyService}); a forced refresh first pulls the newest closed days.
+     */
     @Async("awsTaskExecutor")
     public CompletableFuture<List<DashboardData.CostAnomaly>> getCostAnomalies(CloudAccount account, boolean forceRefresh) {
-        String cacheKey = "costAnomalies-" + account.getAwsAccountId();
-        if (!forceRefresh) {
-            Optional<List<DashboardData.CostAnomaly>> cachedData = redisCache.get(cacheKey, new TypeReference<>() {});
-            if (cachedData.isPresent()) {
-                return CompletableFuture.completedFuture(cachedData.get());
-            }
-        }
-
-        CostExplorerClient ce = awsClientProvider.getCostExplorerClient(account);
         logger.info("Fetching cost anomalies for account {}...", account.getAwsAccountId());
         try {
-            AnomalyDateInterval dateInterval = AnomalyDateInterval.builder()
-                    .startDate(LocalDate.now().minusDays(60).toString())
-                    .endDate(LocalDate.now().minusDays(1).toString()).build();
-            GetAnomaliesRequest request = GetAnomaliesRequest.builder().dateInterval(dateInterval).build();
-            List<Anomaly> anomalies = ce.getAnomalies(request).anomalies();
-            List<DashboardData.CostAnomaly> result = anomalies.stream()
-                    .map(a -> new DashboardData.CostAnomaly(
-                            a.anomalyId(), getServiceNameFromAnomaly(a), a.impact().totalImpact(),
-                            LocalDate.parse(a.anomalyStartDate().substring(0, 10)),
-                            a.anomalyEndDate() != null ? LocalDate.parse(a.anomalyEndDate().substring(0, 10)) : LocalDate.now()
-                    ))
-                    .collect(Collectors.toList());
-            redisCache.put(cacheKey, result, 10);
-            return CompletableFuture.completedFuture(result);
+            if (forceRefresh) {
+                costAnomalyService.sync(account);
+            }
+            return CompletableFuture.completedFuture(costAnomalyService.getAnomalies(account, LocalDate.now().minusDays(60)));
         } catch (Exception e) {
-            logger.error("Could not fetch Cost Anomalies for account {}. This might be a permissions issue or the service is not enabled.", account.getAwsAccountId(), e);
+            logger.error("Could not compute cost anomalies for account {}", account.getAwsAccountId(), e);
             return CompletableFuture.completedFuture(Collections.emptyList());
         }
     }
-    
-    private String getServiceNameFromAnomaly(Anomaly anomaly) {
-        if (anomaly.rootCauses() != null && !anomaly.rootCauses().isEmpty()) {
-            RootCause rootCause = anomaly.rootCauses().get(0);
-            if (rootCause.service() != null) return rootCause.service();
-        }
-        return "Unknown Service";
-    }
-}
\ No newline at end of file
+}
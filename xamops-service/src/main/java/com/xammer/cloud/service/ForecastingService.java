@@ -1,28 +1,28 @@
 package com.xammer.cloud.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xammer.cloud.dto.ForecastDto;
 import com.xammer.cloud.dto.HistoricalCostDto;
+import com.xammer.cloud.service.forecast.ForecastBatchClient;
+import com.xammer.cloud.service.forecast.LocalForecaster;
 import com.xammer.cloud.service.gcp.GcpCostService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -32,21 +32,29 @@ public class ForecastingService {
 
     private final CostService costService;
     private final GcpCostService gcpCostService;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    // ✅ ADD THESE FIELD DECLARATIONS
-    @Value("${forecast.service.url}")
-    private String forecastServiceUrl;
+    private final ForecastBatchClient forecastBatchClient;
+    private final LocalForecaster localForecaster = new LocalForecaster(7);
 
     @Value("${app.environment:local}")
     private String environment;
 
+    @Value("${forecast.local.enabled:true}")
+    private boolean localForecastEnabled;
+
+    // Series shorter than this are always forecast in-process; Prophet has too little to fit on
+    @Value("${forecast.local.short-series-days:42}")
+    private int localShortSeriesDays;
+
+    // Longer series stay in-process when the chosen model's backtest WAPE is at most this
+    @Value("${forecast.local.max-backtest-error:0.15}")
+    private double localMaxBacktestError;
+
     @Autowired
-    public ForecastingService(CostService costService, GcpCostService gcpCostService, RestTemplate restTemplate) {
+    public ForecastingService(CostService costService, GcpCostService gcpCostService,
+                              ForecastBatchClient forecastBatchClient) {
         this.costService = costService;
         this.gcpCostService = gcpCostService;
-        this.restTemplate = restTemplate;
+        this.forecastBatchClient = forecastBatchClient;
     }
 
     /**
@@ -166,6 +174,60 @@ public class ForecastingService {
         return nonZeroData;
     }
 
+    /**
+     * In-process forecast for short or regular daily series, or empty when the series should go to
+     * Prophet: the dates have gaps (e.g. zero days were dropped), or the best local model's backtest
+     * error says the series is too irregular for it.
+     */
+    private Optional<List<ForecastDto>> localForecast(String accountId, List<Map<String, Object>> data, int periods) {
+        if (!localForecastEnabled || data.size() < localForecaster.minHistory()) {
+            return Optional.empty();
+        }
+
+        double[] y = new double[data.size()];
+        LocalDate lastDate = null;
+        try {
+            for (int i = 0; i < data.size(); i++) {
+                LocalDate date = LocalDate.parse(String.valueOf(data.get(i).get("ds")));
+                if (lastDate != null && !date.equals(lastDate.plusDays(1))) {
+                    log.debug("Series for account {} is not contiguous at {} - leaving it to Prophet", accountId, date);
+                    return Optional.empty();
+                }
+                lastDate = date;
+                y[i] = ((Number) data.get(i).get("y")).doubleValue();
+            }
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+
+        LocalForecaster.Forecast forecast = localForecaster.forecast(y, periods);
+        boolean shortSeries = y.length < localShortSeriesDays;
+        if (!shortSeries && !(forecast.getBacktestError() <= localMaxBacktestError)) {
+            log.info("📊 Local {} backtest error {} for account {} exceeds {} - using Prophet",
+                    forecast.getModel(), String.format("%.3f", forecast.getBacktestError()), accountId, localMaxBacktestError);
+            return Optional.empty();
+        }
+
+        // Same shape as forecast-service: future dates only, rounded to cents
+        LocalDate today = LocalDate.now();
+        List<ForecastDto> result = new ArrayList<>();
+        for (int k = 0; k < periods; k++) {
+            LocalDate date = lastDate.plusDays(k + 1L);
+            if (date.isAfter(today)) {
+                result.add(new ForecastDto(date.toString(), round(forecast.getMean()[k]),
+                        round(forecast.getLower()[k]), round(forecast.getUpper()[k])));
+            }
+        }
+        log.info("✅ [{}] Local {} forecast for account {}: {} predictions from {} points (backtest error {})",
+                environment, forecast.getModel(), accountId, result.size(), y.length,
+                shortSeries ? "n/a, short series" : String.format("%.3f", forecast.getBacktestError()));
+        return Optional.of(result);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
     /**
      * Generate AWS cost forecast with improved outlier preprocessing
      */
@@ -201,53 +263,20 @@ public class ForecastingService {
                         cleanedData = removeZeroDays(cleanedData);
                     }
 
-                    try {
-                        HttpHeaders headers = new HttpHeaders();
-                        headers.setContentType(MediaType.APPLICATION_JSON);
-
-                        Map<String, Object> requestBody = new HashMap<>();
-                        requestBody.put("data", cleanedData);
-                        requestBody.put("periods", periods);
-                        requestBody.put("weekly_seasonality", true);
-                        requestBody.put("yearly_seasonality", false);
-
-                        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-                        // ✅ CHANGED: Use configurable URL instead of hardcoded localhost
-                        String forecastUrl = forecastServiceUrl + "/forecast/cost";
-
-                        log.info("📡 [{}] Calling Prophet forecast service at {} with {} cleaned data points for {} periods",
-                                environment, forecastUrl, cleanedData.size(), periods);
-
-                        // ✅ CHANGED: Use forecastUrl variable
-                        String forecastJson = restTemplate.postForObject(forecastUrl, entity, String.class);
-
-                        JsonNode responseNode = objectMapper.readTree(forecastJson);
-
-                        if (responseNode.has("status") && !"success".equals(responseNode.get("status").asText())) {
-                            log.error("❌ Prophet service returned error status");
-                            return CompletableFuture.completedFuture(new ArrayList<ForecastDto>());
-                        }
-
-                        JsonNode forecastArray = responseNode.get("forecast");
-                        if (forecastArray == null || !forecastArray.isArray()) {
-                            log.error("❌ Invalid forecast response format - missing 'forecast' array");
-                            return CompletableFuture.completedFuture(new ArrayList<ForecastDto>());
-                        }
-
-                        List<ForecastDto> forecast = objectMapper.readValue(
-                                forecastArray.toString(),
-                                new TypeReference<List<ForecastDto>>() {});
-
-                        log.info("✅ [{}] Forecast generated successfully: {} predictions", environment, forecast.size());
+                    Optional<List<ForecastDto>> local = localForecast(accountId, cleanedData, periods);
+                    if (local.isPresent()) {
+                        return CompletableFuture.completedFuture(local.get());
+                    }
 
-                        return CompletableFuture.completedFuture(forecast);
+                    log.info("📡 [{}] Requesting Prophet forecast with {} cleaned data points for {} periods",
+                            environment, cleanedData.size(), periods);
 
-                    } catch (Exception e) {
-                        log.error("❌ [{}] Error calling Python forecast service for AWS account {}: {}",
-                                environment, accountId, e.getMessage());
-                        return CompletableFuture.completedFuture(new ArrayList<ForecastDto>());
-                    }
+                    return forecastBatchClient.forecast(cleanedData, periods, true, false)
+                            .thenApply(forecast -> {
+                                log.info("✅ [{}] Forecast for AWS account {}: {} predictions",
+                                        environment, accountId, forecast.size());
+                                return forecast;
+                            });
                 })
                 .handle((result, ex) -> {
                     if (ex != null) {
@@ -273,12 +302,21 @@ public class ForecastingService {
                 return new ArrayList<ForecastDto>();
             }
 
+            // Same ds/y points as the AWS path, which the cleaning steps and the local forecaster read
+            List<Map<String, Object>> formattedData = new ArrayList<>();
+            for (Map<String, Object> costEntry : dailyCosts) {
+                Map<String, Object> point = new HashMap<>();
+                point.put("ds", costEntry.get("date"));
+                point.put("y", costEntry.get("cost"));
+                formattedData.add(point);
+            }
+
             // Apply outlier filtering to GCP data
-            List<Map<String, Object>> cleanedData = removeOutliers(dailyCosts);
+            List<Map<String, Object>> cleanedData = removeOutliers(formattedData);
 
             // ✅ NEW: For sparse GCP data, filter out zero days
             long nonZeroCount = cleanedData.stream()
-                    .filter(point -> ((Number) point.get("cost")).doubleValue() > 0.01)
+                    .filter(point -> ((Number) point.get("y")).doubleValue() > 0.01)
                     .count();
 
             if (nonZeroCount < cleanedData.size() * 0.2 && nonZeroCount >= 14) {
@@ -286,12 +324,17 @@ public class ForecastingService {
                 cleanedData = removeZeroDays(cleanedData);
             }
 
+            Optional<List<ForecastDto>> local = localForecast(gcpProjectId, cleanedData, periods);
+            if (local.isPresent()) {
+                return local.get();
+            }
+
             // Convert to CSV format for Python script
             StringBuilder csvData = new StringBuilder("ds,y\n");
-            cleanedData.forEach(costEntry ->
-                    csvData.append(costEntry.get("date"))
+            cleanedData.forEach(point ->
+                    csvData.append(point.get("ds"))
                             .append(",")
-                            .append(costEntry.get("cost"))
+                            .append(point.get("y"))
                             .append("\n"));
 
             try {
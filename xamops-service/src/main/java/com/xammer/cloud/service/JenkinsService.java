@@ -9,11 +9,12 @@ import com.xammer.cloud.dto.cicd.PipelineStageDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.*;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,12 +24,12 @@ import java.util.List;
 public class JenkinsService {
 
     private static final Logger logger = LoggerFactory.getLogger(JenkinsService.class);
-    private final RestTemplate restTemplate;
+    private final StreamingRestClient jenkinsClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Autowired
-    public JenkinsService(RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.build();
+    public JenkinsService(@Qualifier("jenkinsStreamingClient") StreamingRestClient jenkinsClient) {
+        this.jenkinsClient = jenkinsClient;
     }
 
     // ... existing getJobs method ...
@@ -40,14 +41,12 @@ public class JenkinsService {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setBasicAuth(config.getUsername(), decryptedToken);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<JsonNode> response = restTemplate.exchange(
-                    apiUrl, HttpMethod.GET, entity, JsonNode.class);
+            JsonNode body = jenkinsClient.getJson("jobs", toUri(apiUrl), headers);
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode jobsNode = response.getBody().get("jobs");
+            if (body != null) {
+                JsonNode jobsNode = body.get("jobs");
                 if (jobsNode != null && jobsNode.isArray()) {
                     List<JenkinsJobDto> jobs = new ArrayList<>();
                     for (JsonNode node : jobsNode) {
@@ -71,14 +70,13 @@ public class JenkinsService {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setBasicAuth(config.getUsername(), decryptedToken);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<JsonNode> response = restTemplate.exchange(apiUrl, HttpMethod.GET, entity, JsonNode.class);
+            JsonNode body = jenkinsClient.getJson("job-history", toUri(apiUrl), headers);
             List<GitHubWorkflowRunDto> runs = new ArrayList<>();
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode buildsNode = response.getBody().get("builds");
+            if (body != null) {
+                JsonNode buildsNode = body.get("builds");
                 if (buildsNode != null && buildsNode.isArray()) {
                     for (JsonNode build : buildsNode) {
                         GitHubWorkflowRunDto run = new GitHubWorkflowRunDto();
@@ -117,14 +115,13 @@ public class JenkinsService {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setBasicAuth(config.getUsername(), decryptedToken);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<JsonNode> response = restTemplate.exchange(apiUrl, HttpMethod.GET, entity, JsonNode.class);
+            JsonNode body = jenkinsClient.getJson("build-stages", toUri(apiUrl), headers);
             List<PipelineStageDto> stages = new ArrayList<>();
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode stagesNode = response.getBody().get("stages");
+            if (body != null) {
+                JsonNode stagesNode = body.get("stages");
                 if (stagesNode != null && stagesNode.isArray()) {
                     for (JsonNode stageNode : stagesNode) {
                         PipelineStageDto stage = new PipelineStageDto();
@@ -158,4 +155,10 @@ public class JenkinsService {
             return Collections.emptyList();
         }
     }
-}
\ No newline at end of file
+
+    // Jenkins tree filters contain [ ] { } which must be percent-encoded rather than
+    // treated as URI template variables.
+    private URI toUri(String apiUrl) {
+        return UriComponentsBuilder.fromHttpUrl(apiUrl).build().encode().toUri();
+    }
+}
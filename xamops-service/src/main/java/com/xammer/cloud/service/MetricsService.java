@@ -1,13 +1,14 @@
 package com.xammer.cloud.service;
 
+import com.xammer.cloud.config.cache.AsyncCacheable;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.InstanceUtilizationDto;
 import com.xammer.cloud.dto.MetricDto;
 import com.xammer.cloud.repository.CloudAccountRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -21,7 +22,9 @@ import software.amazon.awssdk.services.rds.RdsClient;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,6 +37,16 @@ public class MetricsService {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricsService.class);
 
+    // GetMetricData accepts at most 500 queries per request
+    private static final int MAX_METRIC_QUERIES_PER_REQUEST = 500;
+    // namespace, metric, statistic - at most one query per instance each; ids are "q<metric>_<instance>"
+    private static final String[][] UTILIZATION_METRICS = {
+            { "AWS/EC2", "CPUUtilization", "Maximum" },
+            { "CWAgent", "mem_used_percent", "Maximum" },
+            { "AWS/EC2", "NetworkIn", "Sum" },
+            { "AWS/EC2", "NetworkOut", "Sum" } };
+    private static final int MEMORY_METRIC = 1;
+
     private final CloudAccountRepository cloudAccountRepository;
     private final AwsClientProvider awsClientProvider;
     private final CloudListService cloudListService;
@@ -93,8 +106,133 @@ public class MetricsService {
     }
 
 
+    /**
+     * Peak daily CPU, memory and network for many instances of one region. All queries are packed
+     * into as few GetMetricData calls as the 500-query limit allows instead of one call per instance.
+     * Instances without CPU datapoints, or whose queries failed, are absent from the result.
+     */
+    public Map<String, InstanceUtilizationDto> getMaxUtilization(CloudAccount account, String region,
+                                                                 List<String> instanceIds, int lookbackDays) {
+        Map<String, InstanceUtilizationDto> utilization = new HashMap<>();
+        if (instanceIds.isEmpty()) {
+            return utilization;
+        }
+        CloudWatchClient cwClient = awsClientProvider.getCloudWatchClient(account, region);
+        Instant end = Instant.now();
+        Instant start = end.minus(lookbackDays, ChronoUnit.DAYS);
+        Map<String, Metric> memoryMetrics = findMemoryMetrics(cwClient, region);
+
+        List<MetricDataQuery> queries = new ArrayList<>(instanceIds.size() * UTILIZATION_METRICS.length);
+        for (int i = 0; i < instanceIds.size(); i++) {
+            String instanceId = instanceIds.get(i);
+            for (int m = 0; m < UTILIZATION_METRICS.length; m++) {
+                Metric metric;
+                if (m == MEMORY_METRIC && memoryMetrics != null) {
+                    // No agent metric for this instance, so there is nothing to query
+                    metric = memoryMetrics.get(instanceId);
+                    if (metric == null) {
+                        continue;
+                    }
+                } else {
+                    metric = Metric.builder()
+                            .namespace(UTILIZATION_METRICS[m][0])
+                            .metricName(UTILIZATION_METRICS[m][1])
+                            .dimensions(Dimension.builder().name("InstanceId").value(instanceId).build())
+                            .build();
+                }
+                queries.add(MetricDataQuery.builder()
+                        .id("q" + m + "_" + i)
+                        .metricStat(MetricStat.builder()
+                                .metric(metric)
+                                .period(86400) // Daily statistics
+                                .stat(UTILIZATION_METRICS[m][2])
+                                .build())
+                        .returnData(true)
+                        .build());
+            }
+        }
+
+        // [instance][metric] peak, null until a datapoint is seen
+        Double[][] peaks = new Double[instanceIds.size()][UTILIZATION_METRICS.length];
+        boolean[] failed = new boolean[instanceIds.size()];
+        for (int from = 0; from < queries.size(); from += MAX_METRIC_QUERIES_PER_REQUEST) {
+            List<MetricDataQuery> batch = queries.subList(from,
+                    Math.min(from + MAX_METRIC_QUERIES_PER_REQUEST, queries.size()));
+            try {
+                String nextToken = null;
+                do {
+                    GetMetricDataResponse response = cwClient.getMetricData(GetMetricDataRequest.builder()
+                            .startTime(start)
+                            .endTime(end)
+                            .metricDataQueries(batch)
+                            .nextToken(nextToken)
+                            .build());
+                    for (MetricDataResult result : response.metricDataResults()) {
+                        int[] id = parseQueryId(result.id());
+                        for (Double value : result.values()) {
+                            Double peak = peaks[id[1]][id[0]];
+                            peaks[id[1]][id[0]] = peak == null ? value : Math.max(peak, value);
+                        }
+                    }
+                    nextToken = response.nextToken();
+                } while (nextToken != null);
+            } catch (Exception e) {
+                logger.error("Failed to get utilization for {} queries in region {}", batch.size(), region, e);
+                batch.forEach(query -> failed[parseQueryId(query.id())[1]] = true);
+            }
+        }
+
+        for (int i = 0; i < instanceIds.size(); i++) {
+            if (!failed[i] && peaks[i][0] != null) {
+                utilization.put(instanceIds.get(i), new InstanceUtilizationDto(instanceIds.get(i), peaks[i][0],
+                        peaks[i][1], peaks[i][2], peaks[i][3]));
+            }
+        }
+        logger.debug("Fetched utilization for {}/{} instances in region {} with {} queries", utilization.size(),
+                instanceIds.size(), region, queries.size());
+        return utilization;
+    }
+
+    /**
+     * The agent's memory metric of every instance in the region, keyed by instance id. The agent
+     * publishes it with extra dimensions (ImageId, InstanceType, ...) depending on its config, and a
+     * metric query only matches the exact dimension set, so the sets are looked up rather than
+     * guessed. Returns null if they cannot be listed; memory is then queried by InstanceId alone.
+     */
+    private Map<String, Metric> findMemoryMetrics(CloudWatchClient cwClient, String region) {
+        Map<String, Metric> metrics = new HashMap<>();
+        try {
+            String nextToken = null;
+            do {
+                ListMetricsResponse response = cwClient.listMetrics(ListMetricsRequest.builder()
+                        .namespace(UTILIZATION_METRICS[MEMORY_METRIC][0])
+                        .metricName(UTILIZATION_METRICS[MEMORY_METRIC][1])
+                        .nextToken(nextToken)
+                        .build());
+                for (Metric metric : response.metrics()) {
+                    metric.dimensions().stream()
+                            .filter(dimension -> "InstanceId".equals(dimension.name()))
+                            .findFirst()
+                            .ifPresent(dimension -> metrics.putIfAbsent(dimension.value(), metric));
+                }
+                nextToken = response.nextToken();
+            } while (nextToken != null);
+        } catch (Exception e) {
+            logger.warn("Could not list {} metrics in region {}: {}", UTILIZATION_METRICS[MEMORY_METRIC][1], region,
+                    e.getMessage());
+            return null;
+        }
+        return metrics;
+    }
+
+    // "q<metric>_<instance>" -> {metric, instance}
+    private static int[] parseQueryId(String id) {
+        int separator = id.indexOf('_');
+        return new int[] { Integer.parseInt(id.substring(1, separator)), Integer.parseInt(id.substring(separator + 1)) };
+    }
+
     @Async("awsTaskExecutor")
-    @Cacheable(value = "metrics-ec2", key = "{#accountId, #instanceId}", unless = "#result.get().isEmpty()")
+    @AsyncCacheable(value = "metrics-ec2", key = "{#accountId, #instanceId}", ttlSeconds = 900, refreshAheadSeconds = 180, unless = "#result.isEmpty()", bypass = "#forceRefresh")
     public CompletableFuture<Map<String, List<MetricDto>>> getEc2InstanceMetrics(String accountId, String instanceId, boolean forceRefresh) {
         return CompletableFuture.supplyAsync(() -> {
             CloudAccount account = getAccount(accountId);
@@ -123,7 +261,7 @@ public class MetricsService {
     }
 
     @Async("awsTaskExecutor")
-    @Cacheable(value = "metrics-rds", key = "{#accountId, #instanceId}", unless = "#result.get().isEmpty()")
+    @AsyncCacheable(value = "metrics-rds", key = "{#accountId, #instanceId}", ttlSeconds = 900, refreshAheadSeconds = 180, unless = "#result.isEmpty()", bypass = "#forceRefresh")
     public CompletableFuture<Map<String, List<MetricDto>>> getRdsInstanceMetrics(String accountId, String instanceId, boolean forceRefresh) {
         return CompletableFuture.supplyAsync(() -> {
             CloudAccount account = getAccount(accountId);
@@ -160,7 +298,7 @@ public class MetricsService {
     }
 
     @Async("awsTaskExecutor")
-    @Cacheable(value = "metrics-s3", key = "{#accountId, #bucketName}", unless = "#result.get().isEmpty()")
+    @AsyncCacheable(value = "metrics-s3", key = "{#accountId, #bucketName}", ttlSeconds = 900, refreshAheadSeconds = 180, unless = "#result.isEmpty()", bypass = "#forceRefresh")
     public CompletableFuture<Map<String, List<MetricDto>>> getS3BucketMetrics(String accountId, String bucketName, String region, boolean forceRefresh) {
         return CompletableFuture.supplyAsync(() -> {
             CloudAccount account = getAccount(accountId);
@@ -184,7 +322,7 @@ public class MetricsService {
     }
 
     @Async("awsTaskExecutor")
-    @Cacheable(value = "metrics-lambda", key = "{#accountId, #functionName}", unless = "#result.get().isEmpty()")
+    @AsyncCacheable(value = "metrics-lambda", key = "{#accountId, #functionName}", ttlSeconds = 900, refreshAheadSeconds = 180, unless = "#result.isEmpty()", bypass = "#forceRefresh")
     public CompletableFuture<Map<String, List<MetricDto>>> getLambdaFunctionMetrics(String accountId, String functionName, String region, boolean forceRefresh) {
         return CompletableFuture.supplyAsync(() -> {
             CloudAccount account = getAccount(accountId);
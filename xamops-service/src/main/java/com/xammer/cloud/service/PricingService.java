@@ -3,6 +3,7 @@ package com.xammer.cloud.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.service.pricing.AwsPriceCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,6 +26,7 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 
 @Service
 public class PricingService {
@@ -33,13 +35,16 @@ public class PricingService {
     private final PricingClient pricingClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final AwsClientProvider awsClientProvider;
+    private final AwsPriceCatalog priceCatalog;
 
     @Value("${pricing.ebs.fallback-price:0.10}")
     private double ebsFallbackPrice;
 
-    public PricingService(PricingClient pricingClient, AwsClientProvider awsClientProvider) {
+    public PricingService(PricingClient pricingClient, AwsClientProvider awsClientProvider,
+                          AwsPriceCatalog priceCatalog) {
         this.pricingClient = pricingClient;
         this.awsClientProvider = awsClientProvider;
+        this.priceCatalog = priceCatalog;
     }
 
     @Cacheable(value = "spotPrice", key = "#account.awsAccountId + '-' + #region + '-' + #instanceType")
@@ -69,6 +74,10 @@ public class PricingService {
 
     @Cacheable(value = "ebsPrice", key = "#region + '-' + #volumeType")
     public double getEbsGbMonthPrice(String region, String volumeType) {
+        OptionalDouble catalogPrice = priceCatalog.getEbsGbMonthPrice(region, volumeType);
+        if (catalogPrice.isPresent()) {
+            return catalogPrice.getAsDouble();
+        }
         logger.info("Fetching live EBS price for region: {}, type: {}", region, volumeType);
         Filter regionFilter = Filter.builder().field("regionCode").value(region).type("TERM_MATCH").build();
         Filter volumeApiNameFilter = Filter.builder().field("volumeApiName").value(volumeType).type("TERM_MATCH").build();
@@ -110,6 +119,10 @@ public class PricingService {
 
     @Cacheable(value = "ec2Price", key = "#region + '-' + #instanceType")
     public double getEc2InstanceMonthlyPrice(String instanceType, String region) {
+        OptionalDouble catalogPrice = priceCatalog.getEc2HourlyPrice(region, instanceType);
+        if (catalogPrice.isPresent()) {
+            return catalogPrice.getAsDouble() * 24 * 30;
+        }
         logger.info("Fetching live EC2 price for region: {}, type: {}", region, instanceType);
         Filter regionFilter = Filter.builder().field("location").value(getRegionDescription(region)).type("TERM_MATCH").build();
         Filter instanceTypeFilter = Filter.builder().field("instanceType").value(instanceType).type("TERM_MATCH").build();
@@ -152,6 +165,10 @@ public class PricingService {
 
     @Cacheable(value = "elasticIpPrice", key = "#region")
     public double getElasticIpMonthlyPrice(String region) {
+        OptionalDouble catalogPrice = priceCatalog.getIdleIpHourlyPrice(region);
+        if (catalogPrice.isPresent()) {
+            return catalogPrice.getAsDouble() * 24 * 30;
+        }
         logger.info("Fetching live Elastic IP price for region: {}", region);
 
         // *** CHANGED: Using more specific filters for Elastic IPs ***
@@ -184,8 +201,13 @@ public class PricingService {
         }
     }
 
-    @Cacheable(value = "rdsPrice", key = "#region + '-' + #dbInstance.dbInstanceClass()")
+    @Cacheable(value = "rdsPrice", key = "#region + '-' + #dbInstance.dbInstanceClass() + '-' + #dbInstance.engine() + '-' + #dbInstance.multiAZ()")
     public double getRdsInstanceMonthlyPrice(DBInstance dbInstance, String region) {
+        OptionalDouble catalogPrice = priceCatalog.getRdsHourlyPrice(region, dbInstance.dbInstanceClass(),
+                dbInstance.engine(), Boolean.TRUE.equals(dbInstance.multiAZ()));
+        if (catalogPrice.isPresent()) {
+            return catalogPrice.getAsDouble() * 24 * 30;
+        }
         logger.info("Fetching live RDS price for region: {}, type: {}", region, dbInstance.dbInstanceClass());
         Filter regionFilter = Filter.builder().field("location").value(getRegionDescription(region)).type("TERM_MATCH").build();
         Filter instanceClassFilter = Filter.builder().field("instanceType").value(dbInstance.dbInstanceClass()).type("TERM_MATCH").build();
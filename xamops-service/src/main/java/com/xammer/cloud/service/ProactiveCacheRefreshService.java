@@ -3,6 +3,7 @@ package com.xammer.cloud.service;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
 import com.xammer.cloud.repository.CloudAccountRepository;
+import com.xammer.cloud.service.anomaly.CostAnomalyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +32,7 @@ public class ProactiveCacheRefreshService {
     private final PerformanceInsightsService performanceService; 
     private final ReservationService reservationService;   
     private final OptimizationService optimizationService; 
+    private final CostAnomalyService costAnomalyService;
 
     @Autowired
     public ProactiveCacheRefreshService(
@@ -43,7 +45,8 @@ public class ProactiveCacheRefreshService {
             SecurityService securityService,
             PerformanceInsightsService performanceService,
             ReservationService reservationService,
-            OptimizationService optimizationService) {
+            OptimizationService optimizationService,
+            CostAnomalyService costAnomalyService) {
         this.cloudAccountRepository = cloudAccountRepository;
         this.cacheManager = cacheManager;
         this.cloudListService = cloudListService;
@@ -54,6 +57,7 @@ public class ProactiveCacheRefreshService {
         this.performanceService = performanceService;
         this.reservationService = reservationService;
         this.optimizationService = optimizationService;
+        this.costAnomalyService = costAnomalyService;
     }
 
     /**
@@ -126,6 +130,8 @@ public class ProactiveCacheRefreshService {
 
             try {
                 // Refresh generic cost breakdown (SERVICE level)
+                // Append yesterday to the per-service series behind local anomaly detection
+                costAnomalyService.sync(account);
                 costService.getCostBreakdown(accountId, "SERVICE", null, true, startDate, endDate).join();
                 logger.info(" > Cost data refreshed for {}", accountId);
             } catch (Exception e) {
@@ -1,11 +1,10 @@
 package com.xammer.cloud.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
@@ -16,12 +15,10 @@ public class PrometheusService {
 
     private static final Logger logger = LoggerFactory.getLogger(PrometheusService.class);
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final StreamingRestClient prometheusClient;
 
-    public PrometheusService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = new ObjectMapper();
+    public PrometheusService(@Qualifier("prometheusStreamingClient") StreamingRestClient prometheusClient) {
+        this.prometheusClient = prometheusClient;
     }
 
     private String normalizeUrl(String url) {
@@ -465,8 +462,7 @@ public class PrometheusService {
             URI url = buildUrl(baseUrl, query);
             logger.debug("Querying Prometheus: {}", query);
 
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+            JsonNode root = prometheusClient.getJson("query", url, null);
 
             if (!isSuccess(root)) {
                 logger.error("Prometheus query failed: {}", root.path("error").asText());
@@ -504,8 +500,7 @@ public class PrometheusService {
             URI url = buildUrl(baseUrl, query);
             logger.debug("Querying Prometheus: {}", query);
 
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+            JsonNode root = prometheusClient.getJson("query", url, null);
 
             if (!isSuccess(root)) {
                 logger.error("Prometheus query failed: {}", root.path("error").asText());
@@ -555,8 +550,7 @@ public class PrometheusService {
             URI url = buildUrl(baseUrl, query);
             logger.debug("Querying Prometheus: {}", query);
 
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+            JsonNode root = prometheusClient.getJson("query", url, null);
 
             if (!isSuccess(root)) {
                 logger.error("Prometheus query failed: {}", root.path("error").asText());
@@ -589,8 +583,7 @@ public class PrometheusService {
 
         try {
             URI url = buildUrl(baseUrl, query);
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+            JsonNode root = prometheusClient.getJson("query", url, null);
 
             if (!isSuccess(root)) {
                 logger.error("Prometheus query failed: {}", root.path("error").asText());
@@ -0,0 +1,327 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.ResourceDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.model.MetricStat;
+import software.amazon.awssdk.services.servicequotas.ServiceQuotasClient;
+import software.amazon.awssdk.services.servicequotas.model.GetAwsDefaultServiceQuotaRequest;
+import software.amazon.awssdk.services.servicequotas.model.GetServiceQuotaRequest;
+import software.amazon.awssdk.services.servicequotas.model.NoSuchResourceException;
+import software.amazon.awssdk.services.servicequotas.model.ServiceQuota;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates service-quota utilization for the quotas listed in {@code quotas.key-codes}.
+ * <p>
+ * Limits come from targeted GetServiceQuota calls and are cached per (account, region, quota)
+ * for {@code quotas.limit-cache-minutes}, since they only change on a quota increase. Usage is
+ * counted from the CloudList inventory where CloudList already fetches the resource, and read
+ * from the CloudWatch {@code AWS/Usage} namespace otherwise, with one GetMetricData call per
+ * region covering every metric-backed quota. Regions are evaluated in parallel on the
+ * {@code quota-monitor} pool ({@code quotas.region-threads}).
+ * <p>
+ * A quota is WARNING at {@code quotas.warning-threshold-percent} and CRITICAL at
+ * {@code quotas.critical-threshold-percent} utilization. Either can be overridden per quota code
+ * with {@code quotas.thresholds.<code>} (warning) and {@code quotas.critical-thresholds.<code>}.
+ */
+@Service
+public class QuotaMonitorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaMonitorService.class);
+
+    private static final String LIMIT_CACHE_PREFIX = "quotaLimit-";
+    private static final double UNKNOWN_LIMIT = -1;
+
+    /**
+     * Quotas the monitor knows how to measure. Usage is either a CloudList resource type or an
+     * AWS/Usage ResourceCount metric identified by its dimensions.
+     */
+    enum MonitoredQuota {
+        EC2_ON_DEMAND_STANDARD_VCPU("ec2", "L-1216C47A", "EC2", null,
+                Map.of("Service", "EC2", "Type", "Resource", "Resource", "vCPU", "Class", "Standard/OnDemand")),
+        EC2_ELASTIC_IPS("ec2", "L-0263D0A3", "EC2", "Elastic IP", null),
+        VPCS_PER_REGION("vpc", "L-F678F1CE", "VPC", "VPC", null),
+        NETWORK_INTERFACES_PER_REGION("vpc", "L-DF5E4CA3", "VPC", "Network Interface (ENI)", null),
+        // The limit is per AZ; the region-wide count makes the alert err on the early side
+        NAT_GATEWAYS_PER_AZ("vpc", "L-FE5A380F", "VPC", "NAT Gateway", null);
+
+        final String serviceCode;
+        final String quotaCode;
+        final String displayService;
+        final String inventoryType;
+        final Map<String, String> usageDimensions;
+
+        MonitoredQuota(String serviceCode, String quotaCode, String displayService, String inventoryType,
+                Map<String, String> usageDimensions) {
+            this.serviceCode = serviceCode;
+            this.quotaCode = quotaCode;
+            this.displayService = displayService;
+            this.inventoryType = inventoryType;
+            this.usageDimensions = usageDimensions;
+        }
+
+        static Optional<MonitoredQuota> byCode(String quotaCode) {
+            return Arrays.stream(values()).filter(q -> q.quotaCode.equals(quotaCode)).findFirst();
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CachedLimit {
+        private String quotaName;
+        private double value;
+    }
+
+    private final AwsClientProvider awsClientProvider;
+    private final CloudListService cloudListService;
+    private final RedisCacheService redisCache;
+    private final Environment environment;
+    private final List<MonitoredQuota> monitoredQuotas;
+    private final double warningThreshold;
+    private final double criticalThreshold;
+    private final int limitCacheMinutes;
+    private final ThreadPoolExecutor regionExecutor;
+
+    public QuotaMonitorService(AwsClientProvider awsClientProvider,
+                               @Lazy CloudListService cloudListService,
+                               RedisCacheService redisCache,
+                               Environment environment,
+                               ThreadGovernor threadGovernor,
+                               @Value("${quotas.key-codes}") List<String> quotaCodes,
+                               @Value("${quotas.warning-threshold-percent:75}") double warningThreshold,
+                               @Value("${quotas.critical-threshold-percent:90}") double criticalThreshold,
+                               @Value("${quotas.limit-cache-minutes:1440}") int limitCacheMinutes,
+                               @Value("${quotas.region-threads:8}") int regionThreads) {
+        this.awsClientProvider = awsClientProvider;
+        this.cloudListService = cloudListService;
+        this.redisCache = redisCache;
+        this.environment = environment;
+        this.warningThreshold = warningThreshold;
+        this.criticalThreshold = criticalThreshold;
+        this.limitCacheMinutes = limitCacheMinutes;
+
+        List<MonitoredQuota> quotas = new ArrayList<>();
+        for (String code : quotaCodes) {
+            Optional<MonitoredQuota> quota = MonitoredQuota.byCode(code.trim());
+            if (quota.isPresent()) {
+                quotas.add(quota.get());
+            } else {
+                logger.warn("Quota code {} in quotas.key-codes has no usage source; it will not be monitored.", code);
+            }
+        }
+        this.monitoredQuotas = List.copyOf(quotas);
+        this.regionExecutor = threadGovernor.newExecutor("quota-monitor", regionThreads, regionThreads * 8,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Utilization of every monitored quota with non-zero usage in the account's active regions.
+     * The status field carries OK / WARNING / CRITICAL against the configured thresholds.
+     */
+    public CompletableFuture<List<DashboardData.ServiceQuotaInfo>> evaluate(CloudAccount account, boolean forceRefresh) {
+        if (monitoredQuotas.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        // Callbacks run on whichever pool thread completes the lookup, so the tenant is taken here
+        Executor executor = ThreadGovernor.forTenant(regionExecutor, TenantContext.getCurrentTenant());
+        return cloudListService.getRegionStatusForAccount(account, forceRefresh).thenCompose(activeRegions -> {
+            if (activeRegions == null || activeRegions.isEmpty()) {
+                return CompletableFuture.completedFuture(Collections.<DashboardData.ServiceQuotaInfo>emptyList());
+            }
+            Set<String> regionIds = activeRegions.stream()
+                    .map(DashboardData.RegionStatus::getRegionId)
+                    .collect(Collectors.toSet());
+
+            return cloudListService.getAllResources(account, false).thenCompose(resources -> {
+                Map<String, Map<String, Long>> inventoryCounts = countInventory(resources, regionIds);
+
+                List<CompletableFuture<List<DashboardData.ServiceQuotaInfo>>> futures = regionIds.stream()
+                        .sorted()
+                        .map(regionId -> CompletableFuture.supplyAsync(() -> evaluateRegion(account, regionId,
+                                inventoryCounts.getOrDefault(regionId, Collections.emptyMap()), forceRefresh), executor))
+                        .collect(Collectors.toList());
+
+                return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                        .thenApply(done -> futures.stream()
+                                .map(CompletableFuture::join)
+                                .flatMap(List::stream)
+                                .collect(Collectors.toList()));
+            });
+        });
+    }
+
+    private List<DashboardData.ServiceQuotaInfo> evaluateRegion(CloudAccount account, String regionId,
+                                                                Map<String, Long> inventoryCounts,
+                                                                boolean forceRefresh) {
+        try {
+            Map<MonitoredQuota, Double> metricUsage = fetchUsageMetrics(account, regionId);
+            List<DashboardData.ServiceQuotaInfo> results = new ArrayList<>();
+            for (MonitoredQuota quota : monitoredQuotas) {
+                double usage = quota.inventoryType != null
+                        ? inventoryCounts.getOrDefault(quota.inventoryType, 0L)
+                        : metricUsage.getOrDefault(quota, 0.0);
+                if (usage <= 0) {
+                    continue;
+                }
+                CachedLimit limit = getLimit(account, regionId, quota, forceRefresh);
+                if (limit.getValue() <= 0) {
+                    continue;
+                }
+                DashboardData.ServiceQuotaInfo info = new DashboardData.ServiceQuotaInfo(
+                        quota.displayService, limit.getQuotaName(), limit.getValue(), usage, regionId);
+                info.setStatus(status(quota, usage / limit.getValue() * 100.0));
+                results.add(info);
+            }
+            return results;
+        } catch (Exception e) {
+            logger.error("Failed to evaluate service quotas for account {} in region {}.",
+                    account.getAwsAccountId(), regionId, e);
+            return Collections.emptyList();
+        }
+    }
+
+    String status(MonitoredQuota quota, double utilization) {
+        double warning = environment.getProperty("quotas.thresholds." + quota.quotaCode, Double.class, warningThreshold);
+        double critical = environment.getProperty("quotas.critical-thresholds." + quota.quotaCode, Double.class,
+                criticalThreshold);
+        if (utilization >= critical) return "CRITICAL";
+        if (utilization >= warning) return "WARNING";
+        return "OK";
+    }
+
+    private CachedLimit getLimit(CloudAccount account, String regionId, MonitoredQuota quota, boolean forceRefresh) {
+        String cacheKey = LIMIT_CACHE_PREFIX + account.getAwsAccountId() + "-" + regionId + "-"
+                + quota.serviceCode + "-" + quota.quotaCode;
+        if (!forceRefresh) {
+            Optional<CachedLimit> cached = redisCache.get(cacheKey, CachedLimit.class);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        ServiceQuotasClient sqClient = awsClientProvider.getServiceQuotasClient(account, regionId);
+        ServiceQuota serviceQuota;
+        try {
+            serviceQuota = sqClient.getServiceQuota(GetServiceQuotaRequest.builder()
+                    .serviceCode(quota.serviceCode)
+                    .quotaCode(quota.quotaCode)
+                    .build()).quota();
+        } catch (NoSuchResourceException e) {
+            // No applied value in this account; the AWS default is what's in force
+            try {
+                serviceQuota = sqClient.getAWSDefaultServiceQuota(GetAwsDefaultServiceQuotaRequest.builder()
+                        .serviceCode(quota.serviceCode)
+                        .quotaCode(quota.quotaCode)
+                        .build()).quota();
+            } catch (NoSuchResourceException notInRegion) {
+                serviceQuota = null;
+            }
+        }
+
+        CachedLimit limit = serviceQuota != null && serviceQuota.value() != null
+                ? new CachedLimit(serviceQuota.quotaName(), serviceQuota.value())
+                : new CachedLimit(quota.quotaCode, UNKNOWN_LIMIT);
+        redisCache.put(cacheKey, limit, limitCacheMinutes);
+        return limit;
+    }
+
+    private Map<MonitoredQuota, Double> fetchUsageMetrics(CloudAccount account, String regionId) {
+        List<MonitoredQuota> metricQuotas = monitoredQuotas.stream()
+                .filter(q -> q.usageDimensions != null)
+                .collect(Collectors.toList());
+        if (metricQuotas.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<MetricDataQuery> queries = new ArrayList<>();
+        for (int i = 0; i < metricQuotas.size(); i++) {
+            List<Dimension> dimensions = metricQuotas.get(i).usageDimensions.entrySet().stream()
+                    .map(d -> Dimension.builder().name(d.getKey()).value(d.getValue()).build())
+                    .collect(Collectors.toList());
+            queries.add(MetricDataQuery.builder()
+                    .id("q" + i)
+                    .metricStat(MetricStat.builder()
+                            .metric(Metric.builder()
+                                    .namespace("AWS/Usage")
+                                    .metricName("ResourceCount")
+                                    .dimensions(dimensions)
+                                    .build())
+                            .period(300)
+                            .stat("Maximum")
+                            .build())
+                    .returnData(true)
+                    .build());
+        }
+
+        CloudWatchClient cw = awsClientProvider.getCloudWatchClient(account, regionId);
+        Instant end = Instant.now();
+        Map<MonitoredQuota, Double> usage = new EnumMap<>(MonitoredQuota.class);
+        String nextToken = null;
+        do {
+            GetMetricDataResponse response = cw.getMetricData(GetMetricDataRequest.builder()
+                    .metricDataQueries(queries)
+                    .startTime(end.minus(1, ChronoUnit.HOURS))
+                    .endTime(end)
+                    .nextToken(nextToken)
+                    .build());
+            for (MetricDataResult result : response.metricDataResults()) {
+                MonitoredQuota quota = metricQuotas.get(Integer.parseInt(result.id().substring(1)));
+                result.values().stream()
+                        .max(Double::compare)
+                        .ifPresent(v -> usage.merge(quota, v, Math::max));
+            }
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+        return usage;
+    }
+
+    // CloudList reports some regional resources (e.g. ENIs) under their AZ
+    private static Map<String, Map<String, Long>> countInventory(List<ResourceDto> resources, Set<String> regionIds) {
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        for (ResourceDto resource : resources) {
+            String region = resource.getRegion();
+            if (region == null || region.isEmpty() || resource.getType() == null) {
+                continue;
+            }
+            if (!regionIds.contains(region) && regionIds.contains(region.substring(0, region.length() - 1))) {
+                region = region.substring(0, region.length() - 1);
+            }
+            counts.computeIfAbsent(region, r -> new HashMap<>()).merge(resource.getType(), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        regionExecutor.shutdownNow();
+    }
+}
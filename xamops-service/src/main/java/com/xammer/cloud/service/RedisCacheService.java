@@ -5,10 +5,15 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit; // ✅ Added Import
 
@@ -63,6 +68,53 @@ public class RedisCacheService {
         }
     }
 
+    /**
+     * Reads several keys in one round trip. The result lines up with {@code keys}; missing or
+     * unreadable entries are null.
+     */
+    public <T> List<T> multiGet(List<String> keys, Class<T> clazz) {
+        List<T> values = new ArrayList<>(keys.size());
+        List<String> jsonData = keys.isEmpty() ? null : redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String json = jsonData != null ? jsonData.get(i) : null;
+            T value = null;
+            if (json != null) {
+                try {
+                    value = objectMapper.readValue(json, clazz);
+                } catch (IOException e) {
+                    logger.error("Error deserializing cached data for key {}: {}", keys.get(i), e.getMessage());
+                }
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * Writes several entries with the same TTL in one pipelined round trip.
+     */
+    public <T> void putAll(Map<String, T> entries, int minutes) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<byte[][]> serialized = new ArrayList<>(entries.size());
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            try {
+                serialized.add(new byte[][] { entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        objectMapper.writeValueAsBytes(entry.getValue()) });
+            } catch (JsonProcessingException e) {
+                logger.error("Error serializing data for caching for key {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[][] keyAndValue : serialized) {
+                connection.stringCommands().setEx(keyAndValue[0], minutes * 60L, keyAndValue[1]);
+            }
+            return null;
+        });
+        logger.info("--- SAVED {} ENTRIES TO REDIS CACHE (TTL: {} mins) ---", serialized.size(), minutes);
+    }
+
     public void evict(String key) {
         if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
             redisTemplate.delete(key);
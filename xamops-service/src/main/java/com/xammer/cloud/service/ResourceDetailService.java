@@ -1,5 +1,6 @@
 package com.xammer.cloud.service;
 
+import com.xammer.cloud.config.cache.AsyncCacheable;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
 import com.xammer.cloud.dto.MetricDto;
@@ -8,7 +9,6 @@ import com.xammer.cloud.repository.CloudAccountRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -66,7 +66,7 @@ public class ResourceDetailService {
     }
 
     @Async("awsTaskExecutor")
-    @Cacheable(value = "resourceDetail", key = "{#accountId, #service, #resourceId}", unless = "#result.get() == null")
+    @AsyncCacheable(value = "resourceDetail", key = "{#accountId, #service, #resourceId}", ttlSeconds = 3600, bypass = "#forceRefresh")
     public CompletableFuture<ResourceDetailDto> getResourceDetails(String accountId, String service, String resourceId, boolean forceRefresh) {
         CloudAccount account = getAccount(accountId);
         logger.info("Fetching LIVE details for resource: {} (Service: {}) in account {}", resourceId, service, accountId);
@@ -0,0 +1,243 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.ResourceDto;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted tag index over one account's CloudList inventory.
+ * <p>
+ * Keeps tag key → value → resource ids, plus a bitset of missing required tags for every
+ * non-compliant resource, so compliance, untagged lists and tag facets are answered from the
+ * index instead of rescanning every resource's details. {@link #sync(List)} applies only the
+ * differences against the previous inventory, and {@link #version()} moves only when one of them
+ * changed what the index answers.
+ */
+public class ResourceTagIndex {
+
+    private static final String TAG_PREFIX = "tag:";
+
+    private final List<String> requiredTags;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexed state; guarded by lock
+    private final Map<String, ResourceDto> resources = new HashMap<>();
+    private final Map<String, Map<String, String>> tagsByResource = new HashMap<>();
+    private final Map<String, Map<String, Set<String>>> resourcesByTag = new HashMap<>();
+    private final Map<String, BitSet> missingByResource = new LinkedHashMap<>();
+    private long version;
+
+    public ResourceTagIndex(List<String> requiredTags) {
+        this.requiredTags = List.copyOf(requiredTags);
+    }
+
+    /**
+     * Brings the index in line with a freshly fetched inventory: resources that disappeared
+     * are dropped, and only new resources or resources whose tags changed are re-indexed.
+     */
+    public void sync(List<ResourceDto> inventory) {
+        Map<String, ResourceDto> incoming = new LinkedHashMap<>(inventory.size() * 2);
+        for (ResourceDto resource : inventory) {
+            if (resource.getId() != null) {
+                incoming.putIfAbsent(resource.getId(), resource);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            boolean changed = resources.keySet().removeIf(id -> {
+                if (incoming.containsKey(id)) {
+                    return false;
+                }
+                unindex(id);
+                return true;
+            });
+            for (ResourceDto resource : incoming.values()) {
+                changed |= upsertLocked(resource);
+            }
+            if (changed) {
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(ResourceDto resource) {
+        lock.writeLock().lock();
+        try {
+            if (upsertLocked(resource)) {
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String resourceId) {
+        lock.writeLock().lock();
+        try {
+            if (resources.remove(resourceId) != null) {
+                unindex(resourceId);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compliance summary with at most {@code limit} untagged resources listed.
+     */
+    public DashboardData.TaggingCompliance compliance(int limit) {
+        lock.readLock().lock();
+        try {
+            int total = resources.size();
+            int untagged = missingByResource.size();
+            double percentage = total > 0 ? ((double) (total - untagged) / total) * 100.0 : 100.0;
+            List<DashboardData.UntaggedResource> listed = new ArrayList<>(Math.min(limit, untagged));
+            for (Map.Entry<String, BitSet> entry : missingByResource.entrySet()) {
+                if (listed.size() >= limit) {
+                    break;
+                }
+                ResourceDto resource = resources.get(entry.getKey());
+                listed.add(new DashboardData.UntaggedResource(resource.getId(), resource.getType(),
+                        resource.getRegion(), missingTagNames(entry.getValue())));
+            }
+            return new DashboardData.TaggingCompliance(percentage, total, untagged, listed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tag key → value → number of resources carrying it.
+     */
+    public Map<String, Map<String, Integer>> facets() {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Integer>> facets = new TreeMap<>();
+            resourcesByTag.forEach((key, values) -> {
+                Map<String, Integer> counts = new TreeMap<>();
+                values.forEach((value, ids) -> counts.put(value, ids.size()));
+                facets.put(key, counts);
+            });
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resources tagged with {@code key}; restricted to {@code value} when it is not null.
+     */
+    public List<ResourceDto> findByTag(String key, String value) {
+        lock.readLock().lock();
+        try {
+            Map<String, Set<String>> values = resourcesByTag.getOrDefault(key, Collections.emptyMap());
+            List<ResourceDto> matches = new ArrayList<>();
+            if (value != null) {
+                values.getOrDefault(value, Collections.emptySet()).forEach(id -> matches.add(resources.get(id)));
+            } else {
+                values.values().forEach(ids -> ids.forEach(id -> matches.add(resources.get(id))));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Increases whenever a resource is added or removed or its tags change.
+     */
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return resources.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns whether the resource is new or its tags changed
+    private boolean upsertLocked(ResourceDto resource) {
+        String id = resource.getId();
+        Map<String, String> tags = extractTags(resource);
+        ResourceDto previous = resources.put(id, resource);
+        if (previous != null && tags.equals(tagsByResource.get(id))) {
+            return false;
+        }
+        if (previous != null) {
+            unindex(id);
+        }
+
+        tagsByResource.put(id, tags);
+        tags.forEach((key, value) -> resourcesByTag
+                .computeIfAbsent(key, k -> new HashMap<>())
+                .computeIfAbsent(value, v -> new HashSet<>())
+                .add(id));
+
+        BitSet missing = new BitSet(requiredTags.size());
+        for (int i = 0; i < requiredTags.size(); i++) {
+            if (!tags.containsKey(requiredTags.get(i))) {
+                missing.set(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            missingByResource.put(id, missing);
+        }
+        return true;
+    }
+
+    // Drops everything but the resources entry, which the caller owns
+    private void unindex(String id) {
+        Map<String, String> tags = tagsByResource.remove(id);
+        if (tags != null) {
+            tags.forEach((key, value) -> {
+                Map<String, Set<String>> values = resourcesByTag.get(key);
+                Set<String> ids = values.get(value);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    values.remove(value);
+                    if (values.isEmpty()) {
+                        resourcesByTag.remove(key);
+                    }
+                }
+            });
+        }
+        missingByResource.remove(id);
+    }
+
+    private List<String> missingTagNames(BitSet missing) {
+        List<String> names = new ArrayList<>(missing.cardinality());
+        for (int i = missing.nextSetBit(0); i >= 0; i = missing.nextSetBit(i + 1)) {
+            names.add(requiredTags.get(i));
+        }
+        return names;
+    }
+
+    private static Map<String, String> extractTags(ResourceDto resource) {
+        if (resource.getDetails() == null || resource.getDetails().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> tags = new HashMap<>();
+        resource.getDetails().forEach((key, value) -> {
+            if (key.regionMatches(true, 0, TAG_PREFIX, 0, TAG_PREFIX.length())) {
+                tags.put(key.substring(TAG_PREFIX.length()), value != null ? value : "");
+            }
+        });
+        return tags;
+    }
+}
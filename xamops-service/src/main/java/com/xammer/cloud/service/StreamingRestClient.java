@@ -0,0 +1,139 @@
+package com.xammer.cloud.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Typed facade over a non-buffering RestTemplate for downstreams that return large JSON
+ * bodies (Prometheus, Jenkins, forecast-service). Response bodies are handed straight to
+ * Jackson's streaming parser instead of being materialised as a String first, request
+ * bodies can be gzip-compressed, and every call is recorded in a per-route latency histogram.
+ *
+ * One instance exists per downstream; see {@link com.xammer.cloud.config.RestTemplateConfig}.
+ */
+public class StreamingRestClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingRestClient.class);
+    private static final String LATENCY_METRIC = "xamops.http.client.latency";
+
+    private final String name;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean gzipRequests;
+
+    public StreamingRestClient(String name, RestTemplate restTemplate, ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry, boolean gzipRequests) {
+        this.name = name;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.gzipRequests = gzipRequests;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * GET a JSON document and parse it as a tree while the body is still streaming.
+     *
+     * @param route low-cardinality route name used to tag the latency histogram
+     */
+    public JsonNode getJson(String route, URI uri, HttpHeaders headers) {
+        return execute(route, uri, HttpMethod.GET, headers, null, this::readTree);
+    }
+
+    public <T> T getJson(String route, URI uri, HttpHeaders headers, TypeReference<T> type) {
+        return execute(route, uri, HttpMethod.GET, headers, null, in -> objectMapper.readValue(in, type));
+    }
+
+    /**
+     * POST {@code body} as JSON (gzip-compressed when enabled for this client) and parse the
+     * response as a tree.
+     */
+    public JsonNode postJson(String route, URI uri, HttpHeaders headers, Object body) {
+        return execute(route, uri, HttpMethod.POST, headers, body, this::readTree);
+    }
+
+    public <T> T postJson(String route, URI uri, HttpHeaders headers, Object body, TypeReference<T> type) {
+        return execute(route, uri, HttpMethod.POST, headers, body, in -> objectMapper.readValue(in, type));
+    }
+
+    public Timer latencyTimer(String route) {
+        return Timer.builder(LATENCY_METRIC)
+                .description("Latency of outbound calls made through the streaming HTTP clients")
+                .tag("client", name)
+                .tag("route", route)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private JsonNode readTree(InputStream in) throws IOException {
+        JsonNode node = objectMapper.readTree(in);
+        return node != null ? node : objectMapper.missingNode();
+    }
+
+    private <T> T execute(String route, URI uri, HttpMethod method, HttpHeaders headers, Object body,
+                          BodyReader<T> reader) {
+        RequestCallback callback = request -> {
+            HttpHeaders requestHeaders = request.getHeaders();
+            if (headers != null) {
+                requestHeaders.addAll(headers);
+            }
+            requestHeaders.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+            if (body == null) {
+                return;
+            }
+            requestHeaders.setContentType(MediaType.APPLICATION_JSON);
+            if (gzipRequests) {
+                requestHeaders.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                try (OutputStream out = new GZIPOutputStream(request.getBody())) {
+                    objectMapper.writeValue(out, body);
+                }
+            } else {
+                objectMapper.writeValue(request.getBody(), body);
+            }
+        };
+
+        ResponseExtractor<T> extractor = response -> {
+            try (InputStream in = response.getBody()) {
+                return reader.read(in);
+            }
+        };
+
+        long start = System.nanoTime();
+        try {
+            return restTemplate.execute(uri, method, callback, extractor);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            latencyTimer(route).record(elapsed, TimeUnit.NANOSECONDS);
+            logger.debug("[{}] {} {} completed in {} ms", name, method, route,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+}
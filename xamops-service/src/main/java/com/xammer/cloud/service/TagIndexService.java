@@ -0,0 +1,82 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.dto.ResourceDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one {@link ResourceTagIndex} per tenant and account, kept in step with the CloudList
+ * inventory.
+ * <p>
+ * An index is only served for {@code tagging.index.ttl-minutes} (the lifetime of the cached
+ * inventory) after its last sync. A stale index is kept rather than dropped, so the next sync
+ * applies only the differences and its version moves only if something changed.
+ */
+@Service
+public class TagIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagIndexService.class);
+    private static final String DEFAULT_TENANT = "default";
+
+    private static final class Entry {
+        final ResourceTagIndex index;
+        volatile long syncedAt;
+
+        Entry(ResourceTagIndex index) {
+            this.index = index;
+        }
+    }
+
+    private final List<String> requiredTags;
+    private final Map<String, Entry> indexes = new ConcurrentHashMap<>();
+
+    @Value("${tagging.index.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    public TagIndexService(@Value("${tagging.compliance.required-tags}") List<String> requiredTags) {
+        this.requiredTags = requiredTags;
+    }
+
+    /**
+     * The account's index if it was synced within the TTL.
+     */
+    public Optional<ResourceTagIndex> find(String tenantId, String accountId) {
+        Entry entry = indexes.get(key(tenantId, accountId));
+        if (entry == null || System.currentTimeMillis() - entry.syncedAt >= TimeUnit.MINUTES.toMillis(ttlMinutes)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.index);
+    }
+
+    /**
+     * Applies a freshly fetched inventory to the account's index, creating it on first use.
+     */
+    public ResourceTagIndex sync(String tenantId, String accountId, List<ResourceDto> resources) {
+        Entry entry = indexes.computeIfAbsent(key(tenantId, accountId), k -> new Entry(new ResourceTagIndex(requiredTags)));
+        long start = System.currentTimeMillis();
+        entry.index.sync(resources);
+        entry.syncedAt = System.currentTimeMillis();
+        logger.debug("Synced tag index for account {}: {} resources in {} ms",
+                accountId, entry.index.size(), entry.syncedAt - start);
+        return entry.index;
+    }
+
+    /**
+     * Drops the account's index, e.g. when the account is removed.
+     */
+    public void evict(String tenantId, String accountId) {
+        indexes.remove(key(tenantId, accountId));
+    }
+
+    private static String key(String tenantId, String accountId) {
+        return (tenantId != null ? tenantId : DEFAULT_TENANT) + ":" + accountId;
+    }
+}
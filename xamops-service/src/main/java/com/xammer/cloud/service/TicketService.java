@@ -172,6 +172,7 @@ public class TicketService {
 
         ticket.getReplies().add(reply);
         ticket.setStatus("IN_PROGRESS");
+        ticket.setUpdatedAt(java.time.LocalDateTime.now());
 
         Ticket updatedTicket = ticketRepository.save(ticket);
 
@@ -222,6 +223,7 @@ public class TicketService {
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
 
         ticket.setStatus("CLOSED");
+        ticket.setUpdatedAt(java.time.LocalDateTime.now());
         Ticket updatedTicket = ticketRepository.save(ticket);
         return convertToDto(updatedTicket);
     }
@@ -1,7 +1,9 @@
 package com.xammer.cloud.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.xammer.cloud.config.multitenancy.TenantContext;
 import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.InstanceUtilizationDto;
 import com.xammer.cloud.dto.XamOpsRightsizingRecommendation;
 import com.xammer.cloud.dto.ResourceDto;
 import org.apache.commons.csv.CSVFormat;
@@ -9,6 +11,7 @@ import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.DescribeInstanceTypeOfferingsRequest;
@@ -19,7 +22,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,11 +34,16 @@ public class XamOpsRightsizingService {
     private static final Logger logger = LoggerFactory.getLogger(XamOpsRightsizingService.class);
     private static final String CSV_FILE_PATH = "/RightSizing-XamOps - Instances.csv";
     private static final String CACHE_KEY_PREFIX = "xamops-rightsizing-";
+    private static final String UTILIZATION_CACHE_KEY_PREFIX = "xamops-rightsizing-util-";
+    private static final int UTILIZATION_CACHE_TTL_MINUTES = 360;
+    private static final int LOOKBACK_DAYS = 14;
+    private static final double BYTES_PER_GB = 1024d * 1024 * 1024;
 
     private final CloudListService cloudListService;
     private final MetricsService metricsService;
     private final RedisCacheService redisCacheService;
     private final AwsClientProvider awsClientProvider; // Injected for AWS calls
+    private final Executor rightsizingExecutor;
     private final Map<String, List<XamOpsRightsizingRecommendation>> recommendationsMap;
 
     // Local cache to store available instance types per region to avoid repeated
@@ -43,11 +54,13 @@ public class XamOpsRightsizingService {
             CloudListService cloudListService,
             MetricsService metricsService,
             RedisCacheService redisCacheService,
-            AwsClientProvider awsClientProvider) {
+            AwsClientProvider awsClientProvider,
+            @Qualifier("awsTaskExecutor") Executor rightsizingExecutor) {
         this.cloudListService = cloudListService;
         this.metricsService = metricsService;
         this.redisCacheService = redisCacheService;
         this.awsClientProvider = awsClientProvider;
+        this.rightsizingExecutor = rightsizingExecutor;
         this.recommendationsMap = loadRecommendationsFromCsv();
     }
 
@@ -83,63 +96,59 @@ public class XamOpsRightsizingService {
             return Collections.emptyList();
         }
 
-        // ✅ Use a Set to track processed instances and prevent duplicates
-        Set<String> processedInstances = new HashSet<>();
-        List<XamOpsRightsizingRecommendation> finalRecommendations = new ArrayList<>();
-
+        // 1. Candidates (first occurrence of each instance, of a type the CSV covers), grouped by region
+        Map<String, ResourceDto> candidates = new LinkedHashMap<>();
         for (ResourceDto instanceDto : ec2Instances) {
-            String instanceId = instanceDto.getId();
-            String region = instanceDto.getRegion();
             String instanceType = instanceDto.getDetails().get("Type");
-
-            // ✅ Skip if already processed
-            if (processedInstances.contains(instanceId)) {
-                logger.debug("Instance {} already processed, skipping duplicate", instanceId);
-                continue;
-            }
-
             if (instanceType == null) {
-                logger.warn("Instance type is null for instance {}. Skipping.", instanceId);
-                continue;
+                logger.warn("Instance type is null for instance {}. Skipping.", instanceDto.getId());
+            } else if (recommendationsMap.containsKey(instanceType.trim())) {
+                candidates.putIfAbsent(instanceDto.getId(), instanceDto);
             }
-
-            Optional<Double> maxCpu = metricsService.getMaxCpuUtilization(accountId, instanceId, region, 14);
-
-            if (maxCpu.isEmpty()) {
-                logger.warn("Could not retrieve CPU utilization for instance {}. Skipping.", instanceId);
-                continue;
+        }
+        Map<String, List<ResourceDto>> byRegion = candidates.values().stream()
+                .collect(Collectors.groupingBy(ResourceDto::getRegion, LinkedHashMap::new, Collectors.toList()));
+
+        // 2. Utilization already cached per instance is reused; only the rest goes to CloudWatch
+        List<String> instanceIds = new ArrayList<>(candidates.keySet());
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < instanceIds.size(); i++) {
+            position.put(instanceIds.get(i), i);
+        }
+        List<InstanceUtilizationDto> cachedUtilization = forceRefresh
+                ? Collections.nCopies(instanceIds.size(), null)
+                : redisCacheService.multiGet(instanceIds.stream()
+                        .map(id -> utilizationCacheKey(accountId, id))
+                        .collect(Collectors.toList()), InstanceUtilizationDto.class);
+        Map<String, InstanceUtilizationDto> utilization = new ConcurrentHashMap<>();
+        for (int i = 0; i < instanceIds.size(); i++) {
+            if (cachedUtilization.get(i) != null) {
+                utilization.put(instanceIds.get(i), cachedUtilization.get(i));
             }
-
-            double utilization = maxCpu.get();
-            logger.info("Instance {} ({}) has max CPU utilization of {}%",
-                    instanceId, instanceType, String.format("%.2f", utilization));
-
-            // ✅ Find matching recommendation and VALIDATE AVAILABILITY
-            findMatchingRecommendation(instanceType, utilization, instanceId, region)
-                    .ifPresent(rec -> {
-                        // Validate if the recommended types exist in this region
-                        validateRecommendationAvailability(account, region, rec);
-
-                        finalRecommendations.add(rec);
-                        processedInstances.add(instanceId); // Mark as processed
-                        logger.debug("Added recommendation for instance {}", instanceId);
-                    });
         }
+        int fromCache = utilization.size();
+
+        // 3 + 4. Per region, in parallel: offerings once, batched metrics, then evaluation
+        String tenantId = TenantContext.getCurrentTenant();
+        Map<String, InstanceUtilizationDto> fetched = new ConcurrentHashMap<>();
+        List<CompletableFuture<List<XamOpsRightsizingRecommendation>>> regionTasks = byRegion.entrySet().stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> withTenant(tenantId,
+                        () -> evaluateRegion(account, entry.getKey(), entry.getValue(), utilization, fetched)),
+                        rightsizingExecutor))
+                .collect(Collectors.toList());
 
-        // ✅ Additional deduplication check based on instanceId
-        List<XamOpsRightsizingRecommendation> uniqueRecommendations = finalRecommendations.stream()
-                .collect(Collectors.toMap(
-                        XamOpsRightsizingRecommendation::getInstanceId,
-                        rec -> rec,
-                        (existing, replacement) -> existing // Keep first occurrence
-                ))
-                .values()
-                .stream()
+        List<XamOpsRightsizingRecommendation> uniqueRecommendations = regionTasks.stream()
+                .map(CompletableFuture::join)
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt(rec -> position.get(rec.getInstanceId())))
                 .collect(Collectors.toList());
 
-        logger.info("✅ Generated {} unique recommendations (removed {} duplicates)",
-                uniqueRecommendations.size(),
-                finalRecommendations.size() - uniqueRecommendations.size());
+        redisCacheService.putAll(fetched.entrySet().stream()
+                .collect(Collectors.toMap(e -> utilizationCacheKey(accountId, e.getKey()), Map.Entry::getValue)),
+                UTILIZATION_CACHE_TTL_MINUTES);
+
+        logger.info("✅ Generated {} recommendations for {} candidate instances in {} regions ({} utilization entries from cache, {} fetched)",
+                uniqueRecommendations.size(), candidates.size(), byRegion.size(), fromCache, fetched.size());
 
         if (!uniqueRecommendations.isEmpty()) {
             redisCacheService.put(cacheKey, uniqueRecommendations, 60);
@@ -150,15 +159,58 @@ public class XamOpsRightsizingService {
         return uniqueRecommendations;
     }
 
+    private List<XamOpsRightsizingRecommendation> evaluateRegion(CloudAccount account, String region,
+            List<ResourceDto> instances, Map<String, InstanceUtilizationDto> utilization,
+            Map<String, InstanceUtilizationDto> fetched) {
+        Set<String> availableTypes = getAvailableInstanceTypes(account, region);
+
+        List<String> missing = instances.stream()
+                .map(ResourceDto::getId)
+                .filter(id -> !utilization.containsKey(id))
+                .collect(Collectors.toList());
+        Map<String, InstanceUtilizationDto> loaded = metricsService.getMaxUtilization(account, region, missing,
+                LOOKBACK_DAYS);
+        utilization.putAll(loaded);
+        fetched.putAll(loaded);
+
+        List<XamOpsRightsizingRecommendation> recommendations = new ArrayList<>();
+        for (ResourceDto instanceDto : instances) {
+            String instanceId = instanceDto.getId();
+            String instanceType = instanceDto.getDetails().get("Type");
+            InstanceUtilizationDto usage = utilization.get(instanceId);
+            if (usage == null) {
+                logger.warn("Could not retrieve CPU utilization for instance {}. Skipping.", instanceId);
+                continue;
+            }
+
+            double cpu = usage.getMaxCpuPercent();
+            logger.debug("Instance {} ({}) has max CPU utilization of {}%",
+                    instanceId, instanceType, String.format("%.2f", cpu));
+
+            // ✅ Find matching recommendation and VALIDATE AVAILABILITY
+            findMatchingRecommendation(instanceType, cpu, instanceId, region)
+                    .ifPresent(rec -> {
+                        validateRecommendationAvailability(availableTypes, region, rec);
+                        if (usage.getMaxMemoryPercent() != null) {
+                            rec.setMemoryUtilization(String.format("%.2f%%", usage.getMaxMemoryPercent()));
+                        }
+                        if (usage.getMaxNetworkInBytesPerDay() != null || usage.getMaxNetworkOutBytesPerDay() != null) {
+                            double bytes = Optional.ofNullable(usage.getMaxNetworkInBytesPerDay()).orElse(0.0)
+                                    + Optional.ofNullable(usage.getMaxNetworkOutBytesPerDay()).orElse(0.0);
+                            rec.setPeakNetworkGbPerDay(String.format("%.2f", bytes / BYTES_PER_GB));
+                        }
+                        recommendations.add(rec);
+                    });
+        }
+        return recommendations;
+    }
+
     /**
      * Checks if the recommended instances are available in the target AWS region.
      * Updates the recommendation object text if not available.
      */
-    private void validateRecommendationAvailability(CloudAccount account, String region,
+    private void validateRecommendationAvailability(Set<String> availableTypes, String region,
             XamOpsRightsizingRecommendation rec) {
-        // Fetch available types for this region (cached)
-        Set<String> availableTypes = getAvailableInstanceTypes(account, region);
-
         // Check Intel Recommendation
         String intelString = rec.getIntelRecommendation();
         if (intelString != null && !intelString.toLowerCase().startsWith("stay")) {
@@ -318,6 +370,26 @@ public class XamOpsRightsizingService {
         }
     }
 
+    private static String utilizationCacheKey(String accountId, String instanceId) {
+        String tenantId = TenantContext.getCurrentTenant() != null ? TenantContext.getCurrentTenant() : "default";
+        return UTILIZATION_CACHE_KEY_PREFIX + tenantId + ":" + accountId + ":" + instanceId;
+    }
+
+    // Pool threads outlive requests, so the tenant is carried explicitly rather than inherited
+    private static <T> T withTenant(String tenantId, Supplier<T> work) {
+        String previous = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                TenantContext.setCurrentTenant(previous);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
     public void clearCache(String accountId) {
         String cacheKey = CACHE_KEY_PREFIX + accountId;
         redisCacheService.evict(cacheKey);
@@ -0,0 +1,300 @@
+package com.xammer.cloud.service.anomaly;
+
+import com.xammer.cloud.dto.DashboardData;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental cost anomaly detection over per-service daily cost series.
+ * <p>
+ * Each day's cost is scored against a weekly-seasonal baseline: the median of the same weekday
+ * over the previous {@code seasonWeeks} weeks, with the median absolute deviation (MAD) of the
+ * recent days around their weekday medians as the spread. A day is flagged when it sits at least
+ * {@code threshold} robust deviations above the baseline and the excess is at least
+ * {@code minImpact}. Median and MAD ignore one-off spikes in
+ * the history, so a past anomaly does not raise the bar for the next one.
+ * <p>
+ * Days are appended as they close; each series keeps only the ring of daily values its baselines
+ * need plus the flagged days within the retention window, so a query is a walk over one account's
+ * flagged days.
+ */
+public class CostAnomalyDetector {
+
+    // Scales MAD to the standard deviation of a normal distribution
+    private static final double MAD_SCALE = 1.4826;
+    // Spread floor as a fraction of the baseline, so perfectly flat series do not flag pennies
+    private static final double RELATIVE_SPREAD_FLOOR = 0.1;
+
+    private final int seasonWeeks;
+    private final int minSeasonWeeks;
+    private final double threshold;
+    private final double minImpact;
+    private final int retentionDays;
+    private final Map<String, AccountSeries> accounts = new ConcurrentHashMap<>();
+
+    public CostAnomalyDetector(int seasonWeeks, int minSeasonWeeks, double threshold, double minImpact, int retentionDays) {
+        this.seasonWeeks = Math.max(1, seasonWeeks);
+        this.minSeasonWeeks = Math.max(1, Math.min(minSeasonWeeks, this.seasonWeeks));
+        this.threshold = threshold;
+        this.minImpact = minImpact;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Days of history a series needs before it is fully baselined.
+     */
+    public int historyDays() {
+        return seasonWeeks * 7;
+    }
+
+    public boolean contains(String accountKey) {
+        return accounts.containsKey(accountKey);
+    }
+
+    /**
+     * Last day appended for the account, if any.
+     */
+    public Optional<LocalDate> lastDay(String accountKey) {
+        AccountSeries account = accounts.get(accountKey);
+        if (account == null) {
+            return Optional.empty();
+        }
+        synchronized (account) {
+            return account.lastDay == Long.MIN_VALUE ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(account.lastDay));
+        }
+    }
+
+    /**
+     * Records one closed day for an account. Services the account has seen before but that are
+     * missing from {@code costsByService} cost nothing that day. Appending a day again (a billing
+     * restatement) replaces its value and re-scores it, along with the later days whose spread it
+     * is part of.
+     */
+    public void appendDay(String accountKey, LocalDate day, Map<String, Double> costsByService) {
+        AccountSeries account = accounts.computeIfAbsent(accountKey, key -> new AccountSeries());
+        long epochDay = day.toEpochDay();
+        synchronized (account) {
+            if (account.firstDay == Long.MIN_VALUE) {
+                account.firstDay = epochDay;
+            }
+            // A service that appears later has cost nothing since the account's first day
+            long seriesStart = Math.min(account.firstDay, epochDay);
+            costsByService.forEach((service, cost) -> account.series
+                    .computeIfAbsent(service, s -> new Series(seriesStart, epochDay))
+                    .append(epochDay, cost != null ? cost : 0.0, account));
+            if (account.series.size() > costsByService.size()) {
+                account.series.forEach((service, series) -> {
+                    if (!costsByService.containsKey(service)) {
+                        series.append(epochDay, 0.0, account);
+                    }
+                });
+            }
+            account.lastDay = Math.max(account.lastDay, epochDay);
+        }
+    }
+
+    /**
+     * Anomalies for every service of the account that overlap {@code from} or later, newest first.
+     */
+    public List<DashboardData.CostAnomaly> anomalies(String accountKey, LocalDate from) {
+        return anomalies(accountKey, null, from);
+    }
+
+    /**
+     * Anomalies for one service (or every service when {@code service} is null), newest first.
+     * Consecutive flagged days are reported as one anomaly with their excess summed.
+     */
+    public List<DashboardData.CostAnomaly> anomalies(String accountKey, String service, LocalDate from) {
+        AccountSeries account = accounts.get(accountKey);
+        if (account == null) {
+            return Collections.emptyList();
+        }
+        long fromDay = from.toEpochDay();
+        List<DashboardData.CostAnomaly> result = new ArrayList<>();
+        synchronized (account) {
+            account.series.forEach((name, series) -> {
+                if (service == null || service.equals(name)) {
+                    series.collect(accountKey, name, fromDay, result);
+                }
+            });
+        }
+        result.sort(Comparator.comparing(DashboardData.CostAnomaly::getEndDate).reversed()
+                .thenComparing(Comparator.comparingDouble(DashboardData.CostAnomaly::getUnexpectedSpend).reversed()));
+        return result;
+    }
+
+    public void evict(String accountKey) {
+        accounts.remove(accountKey);
+    }
+
+    private static final class AccountSeries {
+        final Map<String, Series> series = new HashMap<>();
+        long firstDay = Long.MIN_VALUE;
+        long lastDay = Long.MIN_VALUE;
+        // Scoring scratch space, reused under the account's lock
+        double[] values;
+        double[] deviations;
+    }
+
+    private final class Series {
+        // Daily cost ring indexed by epoch day; one extra week so restated days keep their full baseline
+        final float[] window = new float[(seasonWeeks + 1) * 7];
+        final TreeMap<Long, Double> flagged = new TreeMap<>();
+        final long firstDay;
+        long lastDay;
+
+        Series(long firstDay, long firstAppend) {
+            this.firstDay = firstDay;
+            this.lastDay = firstAppend - 1;
+        }
+
+        void append(long day, double cost, AccountSeries account) {
+            if (day < firstDay || day < lastDay - 6) {
+                return; // Restatements reach back at most the extra week the ring keeps
+            }
+            // Days with no rows cost nothing; a zero day can never be flagged
+            for (long gap = lastDay + 1; gap < day; gap++) {
+                window[slot(gap)] = 0f;
+                flagged.remove(gap);
+            }
+            window[slot(day)] = (float) cost;
+            long previousLast = lastDay;
+            lastDay = Math.max(lastDay, day);
+            score(day, cost, account);
+            for (long later = day + 1; later <= previousLast; later++) {
+                score(later, window[slot(later)], account);
+            }
+            if (!flagged.isEmpty() && flagged.firstKey() <= lastDay - retentionDays) {
+                flagged.headMap(lastDay - retentionDays, true).clear();
+            }
+        }
+
+        // Baseline: median of the same weekday in past weeks. Spread: MAD of every weekday's deviations
+        // from its own median over the same weeks, which is far steadier than one weekday's handful
+        private void score(long day, double cost, AccountSeries account) {
+            flagged.remove(day);
+            if (account.values == null) {
+                account.values = new double[seasonWeeks];
+                account.deviations = new double[7 * seasonWeeks];
+            }
+            double[] values = account.values;
+            double[] deviations = account.deviations;
+            int deviationCount = 0;
+            double baseline = 0;
+            int daySlot = slot(day);
+            for (int phase = 0; phase < 7; phase++) {
+                int count = 0;
+                for (int week = 1; week <= seasonWeeks; week++) {
+                    int offset = phase == 0 ? 7 * week : phase + 7 * (week - 1);
+                    if (day - offset < firstDay) {
+                        break;
+                    }
+                    int index = daySlot - offset;
+                    values[count++] = window[index < 0 ? index + window.length : index];
+                }
+                if (count < minSeasonWeeks) {
+                    if (phase == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                double median = median(values, count);
+                if (phase == 0) {
+                    baseline = median;
+                }
+                for (int i = 0; i < count; i++) {
+                    deviations[deviationCount++] = Math.abs(values[i] - median);
+                }
+            }
+
+            double spread = Math.max(MAD_SCALE * median(deviations, deviationCount), RELATIVE_SPREAD_FLOOR * baseline);
+            double excess = cost - baseline;
+            if (excess >= minImpact && excess >= threshold * spread) {
+                flagged.put(day, excess);
+            }
+        }
+
+        void collect(String accountKey, String service, long fromDay, List<DashboardData.CostAnomaly> out) {
+            long start = Long.MIN_VALUE;
+            long end = Long.MIN_VALUE;
+            double impact = 0;
+            for (Map.Entry<Long, Double> entry : flagged.entrySet()) {
+                long day = entry.getKey();
+                if (start != Long.MIN_VALUE && day != end + 1) {
+                    emit(accountKey, service, start, end, impact, fromDay, out);
+                    start = Long.MIN_VALUE;
+                }
+                if (start == Long.MIN_VALUE) {
+                    start = day;
+                    impact = 0;
+                }
+                end = day;
+                impact += entry.getValue();
+            }
+            if (start != Long.MIN_VALUE) {
+                emit(accountKey, service, start, end, impact, fromDay, out);
+            }
+        }
+
+        private void emit(String accountKey, String service, long start, long end, double impact, long fromDay,
+                          List<DashboardData.CostAnomaly> out) {
+            if (end < fromDay) {
+                return;
+            }
+            LocalDate startDate = LocalDate.ofEpochDay(start);
+            out.add(new DashboardData.CostAnomaly(accountKey + ":" + service + ":" + startDate, service,
+                    impact, startDate, LocalDate.ofEpochDay(end)));
+        }
+
+        private int slot(long day) {
+            return (int) Math.floorMod(day, (long) window.length);
+        }
+    }
+
+    // Median of the first n values; reorders them
+    private static double median(double[] values, int n) {
+        int mid = n / 2;
+        select(values, n, mid);
+        if (n % 2 == 1) {
+            return values[mid];
+        }
+        double lower = values[0];
+        for (int i = 1; i < mid; i++) {
+            lower = Math.max(lower, values[i]);
+        }
+        return (lower + values[mid]) / 2.0;
+    }
+
+    // Quickselect: afterwards values[k] holds the k-th smallest, with smaller values before it
+    private static void select(double[] values, int n, int k) {
+        int left = 0;
+        int right = n - 1;
+        while (left < right) {
+            double pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double swap = values[i];
+                    values[i++] = values[j];
+                    values[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
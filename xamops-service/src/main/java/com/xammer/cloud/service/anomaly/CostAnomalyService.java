@@ -0,0 +1,279 @@
+package com.xammer.cloud.service.anomaly;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.domain.ServiceDailyCost;
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.DetailedCostDto;
+import com.xammer.cloud.repository.ServiceDailyCostRepository;
+import com.xammer.cloud.service.CostService;
+import com.xammer.cloud.service.gcp.GcpBillingAggregateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Cost anomalies computed locally from per-service daily cost series.
+ * <p>
+ * AWS series are pulled from Cost Explorer once per closed day (one daily query covering the
+ * days since the last sync plus a short restatement window) and stored in
+ * {@code service_daily_costs}; GCP series come from the local billing aggregate. An account's
+ * series are replayed into the {@link CostAnomalyDetector} on first use and then extended day by
+ * day, so anomaly queries are answered from memory.
+ * <p>
+ * Series are kept per tenant (the tenant in context when the account is used) and dropped with
+ * {@link #evict(CloudAccount)} when the account is removed.
+ */
+@Service
+public class CostAnomalyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CostAnomalyService.class);
+
+    private static final String AWS = "AWS";
+    private static final String GCP = "GCP";
+    private static final String DEFAULT_TENANT = "default";
+
+    private final ServiceDailyCostRepository dailyCostRepository;
+    private final CostService costService;
+    private final GcpBillingAggregateService gcpBillingAggregateService;
+    private final TransactionTemplate transactionTemplate;
+    private final CostAnomalyDetector detector;
+    // Weakly held: a lock lives as long as a thread is using it, so idle accounts cost nothing
+    private final Cache<String, Object> syncLocks = Caffeine.newBuilder().weakValues().build();
+    private final int retentionDays;
+
+    // How far back the first sync of an AWS account reads (cost history needs 6 months)
+    @Value("${cost.anomaly.backfill-days:190}")
+    private int backfillDays;
+
+    // Closed days re-read on every sync, because Cost Explorer keeps restating the last few days
+    @Value("${cost.anomaly.restatement-days:3}")
+    private int restatementDays;
+
+    public CostAnomalyService(ServiceDailyCostRepository dailyCostRepository,
+                              CostService costService,
+                              GcpBillingAggregateService gcpBillingAggregateService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${cost.anomaly.season-weeks:8}") int seasonWeeks,
+                              @Value("${cost.anomaly.min-season-weeks:3}") int minSeasonWeeks,
+                              @Value("${cost.anomaly.threshold:3.5}") double threshold,
+                              @Value("${cost.anomaly.min-impact:10}") double minImpact,
+                              @Value("${cost.anomaly.retention-days:90}") int retentionDays) {
+        this.dailyCostRepository = dailyCostRepository;
+        this.costService = costService;
+        this.gcpBillingAggregateService = gcpBillingAggregateService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.detector = new CostAnomalyDetector(seasonWeeks, minSeasonWeeks, threshold, minImpact, retentionDays);
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Anomalies ending on or after {@code from}, newest first; {@code service} null means all services.
+     */
+    public List<DashboardData.CostAnomaly> getAnomalies(CloudAccount account, String service, LocalDate from) {
+        String key = accountKey(account);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        ensureCurrent(account, key);
+        return detector.anomalies(key, service, from);
+    }
+
+    public List<DashboardData.CostAnomaly> getAnomalies(CloudAccount account, LocalDate from) {
+        return getAnomalies(account, null, from);
+    }
+
+    /**
+     * Anomalies for a GCP project, for callers that only hold the project id.
+     */
+    public List<DashboardData.CostAnomaly> getGcpAnomalies(String gcpProjectId, LocalDate from) {
+        CloudAccount account = new CloudAccount();
+        account.setProvider(GCP);
+        account.setGcpProjectId(gcpProjectId);
+        return getAnomalies(account, null, from);
+    }
+
+    /**
+     * Closed-day cost per month for the last {@code months} months including the current one,
+     * or empty when the stored AWS series does not reach back that far yet.
+     */
+    public Optional<SortedMap<YearMonth, Double>> getMonthlyTotals(CloudAccount account, int months) {
+        String key = accountKey(account);
+        if (key == null || !AWS.equals(account.getProvider())) {
+            return Optional.empty();
+        }
+        ensureCurrent(account, key);
+
+        YearMonth first = YearMonth.now().minusMonths(months - 1L);
+        LocalDate coverageStart = dailyCostRepository.findFirstUsageDate(AWS, account.getAwsAccountId());
+        if (coverageStart == null || coverageStart.isAfter(first.atDay(1))) {
+            return Optional.empty();
+        }
+        SortedMap<YearMonth, Double> totals = new TreeMap<>();
+        for (int i = 0; i < months; i++) {
+            totals.put(first.plusMonths(i), 0.0);
+        }
+        dailyCostRepository.sumByDay(AWS, account.getAwsAccountId(), first.atDay(1), LocalDate.now())
+                .forEach(t -> totals.merge(YearMonth.from(t.getUsageDate()),
+                        t.getTotal() != null ? t.getTotal() : 0.0, Double::sum));
+        return Optional.of(totals);
+    }
+
+    /**
+     * Pulls the newest closed days for the account; run daily by the cost refresh.
+     */
+    public void sync(CloudAccount account) {
+        String key = accountKey(account);
+        if (key != null) {
+            synchronized (syncLocks.get(key, k -> new Object())) {
+                if (!detector.contains(key)) {
+                    replay(account, key);
+                }
+                catchUp(account, key);
+            }
+        }
+    }
+
+    /**
+     * Drops the account's series from memory, e.g. when it is removed; stored rows are left alone.
+     */
+    public void evict(CloudAccount account) {
+        String key = accountKey(account);
+        if (key != null) {
+            detector.evict(key);
+        }
+    }
+
+    // Loads the account on first use and catches up when it missed a day; otherwise free
+    private void ensureCurrent(CloudAccount account, String key) {
+        if (isCurrent(key)) {
+            return;
+        }
+        synchronized (syncLocks.get(key, k -> new Object())) {
+            if (!detector.contains(key)) {
+                replay(account, key);
+            }
+            if (!isCurrent(key)) {
+                catchUp(account, key);
+            }
+        }
+    }
+
+    private boolean isCurrent(String key) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        return detector.lastDay(key).map(last -> !last.isBefore(yesterday)).orElse(false);
+    }
+
+    // Rebuilds the detector state from what is already stored, without calling the provider
+    private void replay(CloudAccount account, String key) {
+        long start = System.currentTimeMillis();
+        SortedMap<LocalDate, Map<String, Double>> days;
+        if (AWS.equals(account.getProvider())) {
+            LocalDate last = dailyCostRepository.findLastUsageDate(AWS, account.getAwsAccountId());
+            if (last == null) {
+                return;
+            }
+            days = storedDays(account.getAwsAccountId(), last.minusDays(replayDays()), last);
+        } else {
+            if (!gcpBillingAggregateService.ensureSynced(account.getGcpProjectId())) {
+                return;
+            }
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            days = gcpBillingAggregateService.getDailyCostByService(account.getGcpProjectId(),
+                    yesterday.minusDays(replayDays()), yesterday);
+        }
+        feed(key, days);
+        logger.info("Replayed {} days of service costs for {} into the anomaly detector in {} ms",
+                days.size(), key, System.currentTimeMillis() - start);
+    }
+
+    private void catchUp(CloudAccount account, String key) {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Optional<LocalDate> last = detector.lastDay(key);
+        LocalDate from = last.map(d -> d.plusDays(1)).orElse(yesterday.minusDays(backfillDays - 1L));
+        LocalDate restated = yesterday.minusDays(restatementDays - 1L);
+        if (from.isAfter(restated)) {
+            from = restated;
+        }
+        if (from.isBefore(yesterday.minusDays(backfillDays - 1L))) {
+            from = yesterday.minusDays(backfillDays - 1L); // Long outage: resume from the backfill horizon
+        }
+
+        try {
+            if (AWS.equals(account.getProvider())) {
+                feed(key, fetchAwsDays(account, from, yesterday));
+            } else if (gcpBillingAggregateService.ensureSynced(account.getGcpProjectId())) {
+                feed(key, gcpBillingAggregateService.getDailyCostByService(account.getGcpProjectId(), from, yesterday));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to sync service costs for {} from {}: {}", key, from, e.getMessage(), e);
+        }
+    }
+
+    // One DAILY Cost Explorer query for the range, summed per service and stored before it is fed
+    private SortedMap<LocalDate, Map<String, Double>> fetchAwsDays(CloudAccount account, LocalDate from, LocalDate to) {
+        String accountId = account.getAwsAccountId();
+        SortedMap<LocalDate, List<DetailedCostDto>> daily = costService.getDailyCostByServiceAndRegion(account, from, to);
+        SortedMap<LocalDate, Map<String, Double>> days = new TreeMap<>();
+        List<ServiceDailyCost> rows = new ArrayList<>();
+        daily.forEach((day, costs) -> {
+            Map<String, Double> byService = days.computeIfAbsent(day, d -> new HashMap<>());
+            costs.forEach(c -> byService.merge(c.getService(), c.getCost(), Double::sum));
+            byService.forEach((service, cost) -> {
+                if (cost != 0.0) {
+                    rows.add(new ServiceDailyCost(AWS, accountId, service, day, cost));
+                }
+            });
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyCostRepository.deleteRange(AWS, accountId, from, to);
+            dailyCostRepository.saveAll(rows);
+        });
+        // Days Cost Explorer has not reported yet still count as seen, and are re-read as restatements
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.putIfAbsent(day, Collections.emptyMap());
+        }
+        logger.info("Stored {} service cost rows for AWS account {} ({} to {})", rows.size(), accountId, from, to);
+        return days;
+    }
+
+    private SortedMap<LocalDate, Map<String, Double>> storedDays(String accountId, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Map<String, Double>> days = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, new HashMap<>());
+        }
+        dailyCostRepository.findRange(AWS, accountId, from, to)
+                .forEach(row -> days.get(row.getUsageDate()).merge(row.getService(), row.getCost(), Double::sum));
+        return days;
+    }
+
+    private void feed(String key, SortedMap<LocalDate, Map<String, Double>> days) {
+        days.forEach((day, costs) -> detector.appendDay(key, day, costs));
+    }
+
+    // Baseline history plus the anomalies still reported
+    private int replayDays() {
+        return detector.historyDays() + retentionDays;
+    }
+
+    private static String accountKey(CloudAccount account) {
+        String tenantId = TenantContext.getCurrentTenant();
+        String tenant = tenantId != null ? tenantId : DEFAULT_TENANT;
+        if (AWS.equals(account.getProvider()) && account.getAwsAccountId() != null) {
+            return tenant + ":" + AWS + ":" + account.getAwsAccountId();
+        }
+        if (GCP.equals(account.getProvider()) && account.getGcpProjectId() != null) {
+            return tenant + ":" + GCP + ":" + account.getGcpProjectId();
+        }
+        return null;
+    }
+}
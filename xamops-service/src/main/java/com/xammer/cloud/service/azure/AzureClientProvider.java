@@ -5,6 +5,7 @@ import com.azure.core.management.AzureEnvironment;
 import com.azure.core.management.profile.AzureProfile;
 import com.azure.identity.ClientSecretCredentialBuilder;
 import com.azure.resourcemanager.AzureResourceManager;
+import com.azure.resourcemanager.resourcegraph.ResourceGraphManager;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.repository.CloudAccountRepository;
 import org.springframework.stereotype.Service;
@@ -16,6 +17,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class AzureClientProvider {
 
     private final Map<String, AzureResourceManager> clientCache = new ConcurrentHashMap<>();
+    private final Map<String, ResourceGraphManager> resourceGraphCache = new ConcurrentHashMap<>();
     private final CloudAccountRepository cloudAccountRepository;
 
     public AzureClientProvider(CloudAccountRepository cloudAccountRepository) {
@@ -37,6 +39,18 @@ public class AzureClientProvider {
         });
     }
 
+    public ResourceGraphManager getResourceGraphManager(String subscriptionId) {
+        return resourceGraphCache.computeIfAbsent(subscriptionId, id -> {
+            CloudAccount account = cloudAccountRepository.findByAzureSubscriptionId(id)
+                    .orElseThrow(
+                            () -> new IllegalArgumentException("Azure account not found for Subscription ID: " + id));
+
+            AzureProfile profile = new AzureProfile(account.getAzureTenantId(), account.getAzureSubscriptionId(),
+                    AzureEnvironment.AZURE);
+            return ResourceGraphManager.authenticate(buildCredential(account), profile);
+        });
+    }
+
     public TokenCredential getCredential(String subscriptionId) {
         CloudAccount account = cloudAccountRepository.findByAzureSubscriptionId(subscriptionId)
                 .orElseThrow(() -> new IllegalArgumentException(
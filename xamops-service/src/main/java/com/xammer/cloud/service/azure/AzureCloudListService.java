@@ -20,49 +20,36 @@ public class AzureCloudListService {
     private static final Logger log = LoggerFactory.getLogger(AzureCloudListService.class);
     private final AzureClientProvider clientProvider;
     private final CloudAccountRepository cloudAccountRepository;
+    private final AzureInventoryService inventoryService;
 
-    public AzureCloudListService(AzureClientProvider clientProvider, CloudAccountRepository cloudAccountRepository) {
+    public AzureCloudListService(AzureClientProvider clientProvider, CloudAccountRepository cloudAccountRepository,
+            AzureInventoryService inventoryService) {
         this.clientProvider = clientProvider;
         this.cloudAccountRepository = cloudAccountRepository;
+        this.inventoryService = inventoryService;
     }
 
     public List<DashboardData.ServiceGroupDto> getAzureResources(String accountId) {
+        return getAzureResources(accountId, false);
+    }
+
+    public List<DashboardData.ServiceGroupDto> getAzureResources(String accountId, boolean forceRefresh) {
         log.info("Fetching cloudlist data for Azure account ID: {}", accountId);
         try {
             CloudAccount account = cloudAccountRepository.findByAzureSubscriptionId(accountId)
                     .orElseThrow(() -> new IllegalArgumentException("Azure account not found for Subscription ID: " + accountId));
-            AzureResourceManager azure = clientProvider.getAzureClient(accountId);
-
-            List<ResourceDto> allResources = new ArrayList<>();
-
-            // Fetch all Azure resources
-            fetchVirtualMachines(azure, accountId, allResources);
-            fetchStorageAccounts(azure, accountId, allResources);
-            fetchAppServices(azure, accountId, allResources);
-            fetchKubernetesServices(azure, accountId, allResources);
-            fetchSqlDatabases(azure, accountId, allResources);
-            fetchVirtualNetworks(azure, accountId, allResources);
-            fetchLoadBalancers(azure, accountId, allResources);
-            fetchPublicIpAddresses(azure, accountId, allResources);
-            fetchNetworkSecurityGroups(azure, accountId, allResources);
-            fetchDisks(azure, accountId, allResources);
-            fetchSnapshots(azure, accountId, allResources);
-            fetchContainerRegistries(azure, accountId, allResources);
-            fetchKeyVaults(azure, accountId, allResources);
-            fetchRedisCaches(azure, accountId, allResources);
-            fetchCosmosDbAccounts(azure, accountId, allResources);
-            fetchDnsZones(azure, accountId, allResources);
-            fetchApplicationGateways(azure, accountId, allResources);
-            fetchVpnGateways(azure, accountId, allResources);
-            fetchExpressRouteCircuits(azure, accountId, allResources);
-            fetchNetworkInterfaces(azure, accountId, allResources);
-            fetchVirtualMachineScaleSets(azure, accountId, allResources);
-            fetchServiceBusNamespaces(azure, accountId, allResources);
-            fetchEventHubs(azure, accountId, allResources);
-            fetchContainerGroups(azure, accountId, allResources);
-            fetchAvailabilitySets(azure, accountId, allResources);
-            fetchSearchServices(azure, accountId, allResources);
-            fetchTrafficManagerProfiles(azure, accountId, allResources);
+            if (forceRefresh) {
+                inventoryService.invalidate(accountId);
+            }
+
+            List<ResourceDto> allResources;
+            try {
+                allResources = inventoryService.getResources(accountId);
+            } catch (Exception e) {
+                log.warn("Resource Graph query failed for account {}, listing via the management API: {}",
+                        accountId, e.getMessage());
+                allResources = fetchAllResources(clientProvider.getAzureClient(accountId), accountId);
+            }
 
             log.info("Total resources fetched for Azure account {}: {}", accountId, allResources.size());
 
@@ -87,6 +74,43 @@ public class AzureCloudListService {
         }
     }
 
+    /**
+     * Lists every resource type through the management SDK; used when Resource Graph is unavailable.
+     */
+    private List<ResourceDto> fetchAllResources(AzureResourceManager azure, String accountId) {
+        List<ResourceDto> allResources = new ArrayList<>();
+
+        // Fetch all Azure resources
+        fetchVirtualMachines(azure, accountId, allResources);
+        fetchStorageAccounts(azure, accountId, allResources);
+        fetchAppServices(azure, accountId, allResources);
+        fetchKubernetesServices(azure, accountId, allResources);
+        fetchSqlDatabases(azure, accountId, allResources);
+        fetchVirtualNetworks(azure, accountId, allResources);
+        fetchLoadBalancers(azure, accountId, allResources);
+        fetchPublicIpAddresses(azure, accountId, allResources);
+        fetchNetworkSecurityGroups(azure, accountId, allResources);
+        fetchDisks(azure, accountId, allResources);
+        fetchSnapshots(azure, accountId, allResources);
+        fetchContainerRegistries(azure, accountId, allResources);
+        fetchKeyVaults(azure, accountId, allResources);
+        fetchRedisCaches(azure, accountId, allResources);
+        fetchCosmosDbAccounts(azure, accountId, allResources);
+        fetchDnsZones(azure, accountId, allResources);
+        fetchApplicationGateways(azure, accountId, allResources);
+        fetchVpnGateways(azure, accountId, allResources);
+        fetchExpressRouteCircuits(azure, accountId, allResources);
+        fetchNetworkInterfaces(azure, accountId, allResources);
+        fetchVirtualMachineScaleSets(azure, accountId, allResources);
+        fetchServiceBusNamespaces(azure, accountId, allResources);
+        fetchEventHubs(azure, accountId, allResources);
+        fetchContainerGroups(azure, accountId, allResources);
+        fetchAvailabilitySets(azure, accountId, allResources);
+        fetchSearchServices(azure, accountId, allResources);
+        fetchTrafficManagerProfiles(azure, accountId, allResources);
+        return allResources;
+    }
+
     // ================================================================================
     // FETCH METHODS FOR EACH SERVICE TYPE
     // ================================================================================
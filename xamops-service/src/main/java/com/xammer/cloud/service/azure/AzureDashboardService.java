@@ -8,8 +8,11 @@ import com.xammer.cloud.dto.azure.AzureDashboardData;
 import com.xammer.cloud.repository.CloudAccountRepository;
 import com.xammer.cloud.service.RedisCacheService;
 import com.xammer.cloud.service.azure.AzureBillingDataIngestionService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -17,6 +20,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 @Service
@@ -27,15 +33,30 @@ public class AzureDashboardService {
     private final CloudAccountRepository cloudAccountRepository;
     private final RedisCacheService redisCache;
     private final AzureBillingDataIngestionService billingIngestionService;
+    private final AzureInventoryService inventoryService;
+    private final AzureWorkloadExecutor workloadExecutor;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${azure.dashboard.section-timeout-seconds:20}")
+    private long sectionTimeoutSeconds;
 
     public AzureDashboardService(AzureClientProvider clientProvider,
             CloudAccountRepository cloudAccountRepository,
             RedisCacheService redisCache,
-            AzureBillingDataIngestionService billingIngestionService) {
+            AzureBillingDataIngestionService billingIngestionService,
+            AzureInventoryService inventoryService,
+            AzureWorkloadExecutor workloadExecutor,
+            Environment environment,
+            MeterRegistry meterRegistry) {
         this.clientProvider = clientProvider;
         this.cloudAccountRepository = cloudAccountRepository;
         this.redisCache = redisCache;
         this.billingIngestionService = billingIngestionService;
+        this.inventoryService = inventoryService;
+        this.workloadExecutor = workloadExecutor;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
     }
 
     public AzureDashboardData getDashboardData(String accountId, boolean force) {
@@ -47,22 +68,47 @@ public class AzureDashboardService {
 
             AzureResourceManager azure = clientProvider.getAzureClient(accountId);
             AzureDashboardData dashboardData = new AzureDashboardData();
+            if (force) {
+                inventoryService.invalidate(accountId);
+            }
 
-            // Run data fetching in parallel
-            CompletableFuture<Void> inventoryFuture = CompletableFuture
-                    .runAsync(() -> getAndSetResourceInventory(azure, dashboardData));
-            CompletableFuture<Void> costFuture = CompletableFuture
-                    .runAsync(() -> getAndSetCostHistoryAndBilling(dashboardData, account, force));
-            CompletableFuture<Void> regionFuture = CompletableFuture
-                    .runAsync(() -> getAndSetRegionStatus(azure, dashboardData));
-            CompletableFuture<Void> optimizationFuture = CompletableFuture
-                    .runAsync(() -> getAndSetOptimizationSummary(azure, dashboardData, accountId));
-            CompletableFuture<Void> iamFuture = CompletableFuture
-                    .runAsync(() -> getAndSetIamDetails(azure, dashboardData, accountId));
-
-            CompletableFuture.allOf(inventoryFuture, costFuture, regionFuture, optimizationFuture, iamFuture).join();
+            // Run data fetching in parallel; a section that misses its deadline is returned empty
+            List<String> timedOut = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture.allOf(
+                    runSection("inventory", accountId, dashboardData, timedOut,
+                            scratch -> getAndSetResourceInventory(azure, scratch, accountId),
+                            (scratch, target) -> target.setResourceInventory(scratch.getResourceInventory())),
+                    runSection("cost", accountId, dashboardData, timedOut,
+                            scratch -> getAndSetCostHistoryAndBilling(scratch, account, force),
+                            (scratch, target) -> {
+                                target.setBillingSummary(scratch.getBillingSummary());
+                                target.setCostHistory(scratch.getCostHistory());
+                                target.setMonthToDateSpend(scratch.getMonthToDateSpend());
+                                target.setForecastedSpend(scratch.getForecastedSpend());
+                            }),
+                    runSection("region", accountId, dashboardData, timedOut,
+                            scratch -> getAndSetRegionStatus(azure, scratch),
+                            (scratch, target) -> target.setRegionStatus(scratch.getRegionStatus())),
+                    runSection("optimization", accountId, dashboardData, timedOut,
+                            scratch -> getAndSetOptimizationSummary(azure, scratch, accountId),
+                            (scratch, target) -> target.setOptimizationSummary(scratch.getOptimizationSummary())),
+                    runSection("iam", accountId, dashboardData, timedOut,
+                            scratch -> getAndSetIamDetails(azure, scratch, accountId),
+                            (scratch, target) -> target.setIamDetails(scratch.getIamDetails())))
+                    .join();
+            dashboardData.setTimedOutSections(new ArrayList<>(timedOut));
 
             // Ensure all lists are initialized
+            if (dashboardData.getResourceInventory() == null) {
+                dashboardData.setResourceInventory(new AzureDashboardData.ResourceInventory());
+            }
+            if (dashboardData.getOptimizationSummary() == null) {
+                dashboardData.setOptimizationSummary(new DashboardData.OptimizationSummary());
+            }
+            if (dashboardData.getIamDetails() == null) {
+                dashboardData.setIamDetails(
+                        new DashboardData.IamDetail(Collections.emptyList(), Collections.emptyList()));
+            }
             if (dashboardData.getVmRecommendations() == null) {
                 dashboardData.setVmRecommendations(Collections.emptyList());
             }
@@ -101,7 +147,51 @@ public class AzureDashboardService {
         }
     }
 
-    private void getAndSetResourceInventory(AzureResourceManager azure, AzureDashboardData dashboardData) {
+    /**
+     * Loads one dashboard section on the Azure pool into a scratch object and copies it into
+     * {@code target} only if it finishes within the section's deadline, so a late section can
+     * never modify a dashboard that has already been returned.
+     */
+    private CompletableFuture<Void> runSection(String section, String accountId, AzureDashboardData target,
+            List<String> timedOut, Consumer<AzureDashboardData> loader,
+            BiConsumer<AzureDashboardData, AzureDashboardData> merge) {
+        long timeoutSeconds = environment.getProperty("azure.dashboard." + section + ".timeout-seconds", Long.class,
+                sectionTimeoutSeconds);
+        AzureDashboardData scratch = new AzureDashboardData();
+
+        // The executor arms the deadline before queueing, so it holds even when a full pool would
+        // otherwise run the section on this thread
+        return workloadExecutor.supplyAsync(accountId, () -> {
+            loader.accept(scratch);
+            return scratch;
+        }, null, timeoutSeconds, TimeUnit.SECONDS)
+                .handle((loaded, error) -> {
+                    if (error != null) {
+                        log.error("Dashboard section '{}' failed for account {}: {}", section, accountId,
+                                error.getMessage());
+                    } else if (loaded == null) {
+                        log.warn("⏱️ Dashboard section '{}' timed out after {}s for account {}", section,
+                                timeoutSeconds, accountId);
+                        meterRegistry.counter("xamops.azure.dashboard.section.timeouts", "section", section)
+                                .increment();
+                        timedOut.add(section);
+                    } else {
+                        merge.accept(loaded, target);
+                    }
+                    return null;
+                });
+    }
+
+    private void getAndSetResourceInventory(AzureResourceManager azure, AzureDashboardData dashboardData,
+            String accountId) {
+        try {
+            dashboardData.setResourceInventory(inventoryService.getResourceInventory(accountId));
+            return;
+        } catch (Exception e) {
+            log.warn("Resource Graph inventory failed for account {}, counting via the management API: {}",
+                    accountId, e.getMessage());
+        }
+
         try {
             AzureDashboardData.ResourceInventory inventory = new AzureDashboardData.ResourceInventory();
             inventory.setVirtualMachines(azure.virtualMachines().list().stream().count());
@@ -1,22 +1,14 @@
 package com.xammer.cloud.service.azure;
 
 import com.xammer.cloud.dto.ForecastDto;
-import com.xammer.cloud.dto.ProphetRequestDto;
 import com.xammer.cloud.dto.azure.AzureDashboardData;
 import com.xammer.cloud.service.RedisCacheService;
+import com.xammer.cloud.service.forecast.ForecastBatchClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Collections;
 import java.util.List;
@@ -32,18 +24,15 @@ public class AzureForecastingService {
     private static final Logger logger = LoggerFactory.getLogger(AzureForecastingService.class);
 
     private final RedisCacheService redisCache;
-    private final RestTemplate restTemplate;
-
-    @Value("${forecast.service.url}")
-    private String prophetApiUrl;
+    private final ForecastBatchClient forecastBatchClient;
 
     // This is the cache key used by AzureBillingDataIngestionService
     private static final String AZURE_COST_HISTORY_CACHE_PREFIX = "azure:cost-history:";
 
     @Autowired
-    public AzureForecastingService(RedisCacheService redisCache, RestTemplate restTemplate) {
+    public AzureForecastingService(RedisCacheService redisCache, ForecastBatchClient forecastBatchClient) {
         this.redisCache = redisCache;
-        this.restTemplate = restTemplate;
+        this.forecastBatchClient = forecastBatchClient;
     }
 
     /**
@@ -99,38 +88,12 @@ public class AzureForecastingService {
             historicalData = filteredData; // Use the filtered data
         }
 
-        // --- FIX: Create a SINGLE ProphetRequestDto and set its data ---
-        ProphetRequestDto prophetRequest = new ProphetRequestDto();
-        prophetRequest.setData(historicalData);
-        prophetRequest.setPeriods(periods);
-        prophetRequest.setWeeklySeasonality(true); // Set defaults
-        prophetRequest.setYearlySeasonality(false); // Set defaults
-
-        // Call Prophet API
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<ProphetRequestDto> entity = new HttpEntity<>(prophetRequest, headers); // Send the single request object
-        String url = prophetApiUrl + "/predict"; // The API DTO already contains the periods
-
-        try {
-            // --- FIX for RestTemplate call ---
-            // Use exchange() with ParameterizedTypeReference to correctly handle List<ForecastDto>
-            ResponseEntity<List<ForecastDto>> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                entity,
-                new ParameterizedTypeReference<List<ForecastDto>>() {}
-            );
-            
-            List<ForecastDto> forecast = response.getBody();
-            if (forecast != null) {
-                logger.info("✅ Successfully generated Azure cost forecast for account {}", subscriptionId);
-                return CompletableFuture.completedFuture(forecast);
-            }
-        } catch (Exception e) {
-            logger.error("❌ Error calling Prophet API for Azure account {}: {}", subscriptionId, e.getMessage());
-        }
-        
-        return CompletableFuture.completedFuture(Collections.emptyList());
+        return forecastBatchClient.forecast(historicalData, periods, true, false)
+                .thenApply(forecast -> {
+                    if (!forecast.isEmpty()) {
+                        logger.info("✅ Successfully generated Azure cost forecast for account {}", subscriptionId);
+                    }
+                    return forecast;
+                });
     }
 }
\ No newline at end of file
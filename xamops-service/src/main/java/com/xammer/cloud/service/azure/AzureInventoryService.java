@@ -0,0 +1,229 @@
+package com.xammer.cloud.service.azure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.xammer.cloud.dto.ResourceDto;
+import com.xammer.cloud.dto.azure.AzureDashboardData;
+import com.xammer.cloud.service.RedisCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Subscription inventory from Azure Resource Graph. Dashboard counters come from a single
+ * {@code summarize count() by type} query and the cloud list from one paged projection, instead
+ * of listing every resource type (and every SQL server's databases) through the management SDK.
+ * Results are cached per subscription; {@link #invalidate} drops both for one subscription.
+ */
+@Service
+public class AzureInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(AzureInventoryService.class);
+
+    public static final String AZURE_INVENTORY_COUNTS_CACHE_PREFIX = "azure:inventory:counts:";
+    public static final String AZURE_INVENTORY_RESOURCES_CACHE_PREFIX = "azure:inventory:resources:";
+
+    // Function apps are Microsoft.Web/sites with a "functionapp" kind; counted under their own key
+    private static final String FUNCTION_APPS = "microsoft.web/sites#functionapp";
+
+    /**
+     * ARM resource type (lower case) -> service type shown in the cloud list.
+     */
+    private static final Map<String, String> CLOUD_LIST_TYPES = new LinkedHashMap<>();
+
+    static {
+        CLOUD_LIST_TYPES.put("microsoft.compute/virtualmachines", "Virtual Machines");
+        CLOUD_LIST_TYPES.put("microsoft.storage/storageaccounts", "Storage Accounts");
+        CLOUD_LIST_TYPES.put("microsoft.web/sites", "App Services");
+        CLOUD_LIST_TYPES.put("microsoft.containerservice/managedclusters", "Kubernetes Services");
+        CLOUD_LIST_TYPES.put("microsoft.sql/servers/databases", "SQL Databases");
+        CLOUD_LIST_TYPES.put("microsoft.network/virtualnetworks", "Virtual Networks");
+        CLOUD_LIST_TYPES.put("microsoft.network/loadbalancers", "Load Balancers");
+        CLOUD_LIST_TYPES.put("microsoft.network/publicipaddresses", "Public IP Addresses");
+        CLOUD_LIST_TYPES.put("microsoft.network/networksecuritygroups", "Network Security Groups");
+        CLOUD_LIST_TYPES.put("microsoft.compute/disks", "Disks");
+        CLOUD_LIST_TYPES.put("microsoft.compute/snapshots", "Snapshots");
+        CLOUD_LIST_TYPES.put("microsoft.containerregistry/registries", "Container Registries");
+        CLOUD_LIST_TYPES.put("microsoft.keyvault/vaults", "Key Vaults");
+        CLOUD_LIST_TYPES.put("microsoft.cache/redis", "Redis Cache");
+        CLOUD_LIST_TYPES.put("microsoft.documentdb/databaseaccounts", "CosmosDB");
+        CLOUD_LIST_TYPES.put("microsoft.network/dnszones", "DNS Zones");
+        CLOUD_LIST_TYPES.put("microsoft.network/applicationgateways", "Application Gateways");
+        CLOUD_LIST_TYPES.put("microsoft.network/virtualnetworkgateways", "VPN Gateways");
+        CLOUD_LIST_TYPES.put("microsoft.network/expressroutecircuits", "ExpressRoute Circuits");
+        CLOUD_LIST_TYPES.put("microsoft.network/networkinterfaces", "Network Interfaces");
+        CLOUD_LIST_TYPES.put("microsoft.compute/virtualmachinescalesets", "Virtual Machine Scale Sets");
+        CLOUD_LIST_TYPES.put("microsoft.servicebus/namespaces", "Service Bus");
+        CLOUD_LIST_TYPES.put("microsoft.eventhub/namespaces", "Event Hubs");
+        CLOUD_LIST_TYPES.put("microsoft.containerinstance/containergroups", "Container Instances");
+        CLOUD_LIST_TYPES.put("microsoft.compute/availabilitysets", "Availability Sets");
+        CLOUD_LIST_TYPES.put("microsoft.search/searchservices", "Search Services");
+        CLOUD_LIST_TYPES.put("microsoft.network/trafficmanagerprofiles", "Traffic Manager");
+    }
+
+    private static final List<String> COUNTED_TYPES = List.of(
+            "microsoft.compute/virtualmachines",
+            "microsoft.storage/storageaccounts",
+            "microsoft.sql/servers/databases",
+            "microsoft.network/virtualnetworks",
+            "microsoft.web/sites",
+            "microsoft.compute/disks",
+            "microsoft.network/dnszones",
+            "microsoft.network/loadbalancers",
+            "microsoft.containerinstance/containergroups",
+            "microsoft.containerservice/managedclusters",
+            "microsoft.web/staticsites");
+
+    private static final String COUNTS_QUERY = "Resources"
+            + " | where type in~ (" + quoted(COUNTED_TYPES) + ")"
+            + " | summarize count() by resourceType = iff(type =~ 'microsoft.web/sites' and kind contains 'functionapp',"
+            + " '" + FUNCTION_APPS + "', tolower(type))";
+
+    // VMs report power state, sites a state, SQL databases a status; everything else its provisioning state
+    private static final String RESOURCES_QUERY = "Resources"
+            + " | where type in~ (" + quoted(CLOUD_LIST_TYPES.keySet()) + ")"
+            + " | where not(type =~ 'microsoft.web/sites' and kind contains 'functionapp')"
+            + " | extend serverName = iff(type =~ 'microsoft.sql/servers/databases', tostring(split(id, '/')[8]), '')"
+            + " | project id, name, serverName, location, resourceType = tolower(type),"
+            + " state = coalesce(tostring(properties.extended.instanceView.powerState.code),"
+            + " tostring(properties.state), tostring(properties.status), tostring(properties.provisioningState))"
+            + " | order by id asc";
+
+    private final AzureResourceGraphSource resourceGraph;
+    private final RedisCacheService redisCache;
+    private final Counter countQueries;
+    private final Counter resourcePages;
+
+    @Value("${azure.inventory.cache-minutes:15}")
+    private int cacheMinutes;
+
+    public AzureInventoryService(AzureResourceGraphSource resourceGraph,
+                                 RedisCacheService redisCache,
+                                 MeterRegistry meterRegistry) {
+        this.resourceGraph = resourceGraph;
+        this.redisCache = redisCache;
+        this.countQueries = Counter.builder("xamops.azure.resourcegraph.calls").tag("query", "counts")
+                .description("Azure Resource Graph requests made")
+                .register(meterRegistry);
+        this.resourcePages = Counter.builder("xamops.azure.resourcegraph.calls").tag("query", "resources")
+                .description("Azure Resource Graph requests made")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dashboard resource counters, from one Resource Graph request.
+     */
+    public AzureDashboardData.ResourceInventory getResourceInventory(String subscriptionId) {
+        String cacheKey = AZURE_INVENTORY_COUNTS_CACHE_PREFIX + subscriptionId;
+        Optional<AzureDashboardData.ResourceInventory> cached = redisCache.get(cacheKey,
+                AzureDashboardData.ResourceInventory.class);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        AzureResourceGraphSource.Page page = null;
+        do {
+            page = resourceGraph.query(subscriptionId, COUNTS_QUERY, page != null ? page.getSkipToken() : null);
+            countQueries.increment();
+            for (Map<String, Object> row : page.getRows()) {
+                counts.merge(asString(row.get("resourceType")), asLong(row.get("count_")), Long::sum);
+            }
+        } while (page.hasMore());
+
+        AzureDashboardData.ResourceInventory inventory = new AzureDashboardData.ResourceInventory();
+        inventory.setVirtualMachines(counts.getOrDefault("microsoft.compute/virtualmachines", 0L));
+        inventory.setStorageAccounts(counts.getOrDefault("microsoft.storage/storageaccounts", 0L));
+        inventory.setSqlDatabases(counts.getOrDefault("microsoft.sql/servers/databases", 0L));
+        inventory.setVirtualNetworks(counts.getOrDefault("microsoft.network/virtualnetworks", 0L));
+        inventory.setFunctions(counts.getOrDefault(FUNCTION_APPS, 0L));
+        inventory.setDisks(counts.getOrDefault("microsoft.compute/disks", 0L));
+        inventory.setDnsZones(counts.getOrDefault("microsoft.network/dnszones", 0L));
+        inventory.setLoadBalancers(counts.getOrDefault("microsoft.network/loadbalancers", 0L));
+        inventory.setContainerInstances(counts.getOrDefault("microsoft.containerinstance/containergroups", 0L));
+        inventory.setKubernetesServices(counts.getOrDefault("microsoft.containerservice/managedclusters", 0L));
+        inventory.setAppServices(counts.getOrDefault("microsoft.web/sites", 0L));
+        inventory.setStaticWebApps(counts.getOrDefault("microsoft.web/staticsites", 0L));
+
+        redisCache.put(cacheKey, inventory, cacheMinutes);
+        return inventory;
+    }
+
+    /**
+     * Every cloud-list resource in the subscription, paged through Resource Graph.
+     */
+    public List<ResourceDto> getResources(String subscriptionId) {
+        String cacheKey = AZURE_INVENTORY_RESOURCES_CACHE_PREFIX + subscriptionId;
+        Optional<List<ResourceDto>> cached = redisCache.get(cacheKey, new TypeReference<List<ResourceDto>>() {
+        });
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        List<ResourceDto> resources = new ArrayList<>();
+        AzureResourceGraphSource.Page page = null;
+        int pages = 0;
+        do {
+            page = resourceGraph.query(subscriptionId, RESOURCES_QUERY, page != null ? page.getSkipToken() : null);
+            resourcePages.increment();
+            pages++;
+            for (Map<String, Object> row : page.getRows()) {
+                resources.add(mapRowToDto(row));
+            }
+        } while (page.hasMore());
+
+        log.info("Fetched {} Azure resources for subscription {} from Resource Graph in {} page(s)",
+                resources.size(), subscriptionId, pages);
+        redisCache.put(cacheKey, resources, cacheMinutes);
+        return resources;
+    }
+
+    public void invalidate(String subscriptionId) {
+        redisCache.evict(AZURE_INVENTORY_COUNTS_CACHE_PREFIX + subscriptionId);
+        redisCache.evict(AZURE_INVENTORY_RESOURCES_CACHE_PREFIX + subscriptionId);
+    }
+
+    private ResourceDto mapRowToDto(Map<String, Object> row) {
+        String resourceType = asString(row.get("resourceType"));
+        String serverName = asString(row.get("serverName"));
+        String state = asString(row.get("state"));
+
+        ResourceDto dto = new ResourceDto();
+        dto.setId(asString(row.get("id")));
+        dto.setName(serverName.isEmpty() ? asString(row.get("name")) : serverName + "/" + asString(row.get("name")));
+        dto.setType(CLOUD_LIST_TYPES.getOrDefault(resourceType, resourceType));
+        dto.setRegion(asString(row.get("location")));
+        dto.setState(state.isEmpty() ? "Unknown" : state);
+        return dto;
+    }
+
+    private static String quoted(Collection<String> types) {
+        return types.stream().map(type -> "'" + type + "'").collect(Collectors.joining(", "));
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static long asLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
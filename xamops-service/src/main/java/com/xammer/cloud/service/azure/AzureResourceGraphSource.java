@@ -0,0 +1,40 @@
+package com.xammer.cloud.service.azure;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs Azure Resource Graph (KQL) queries for one subscription. The live implementation calls
+ * the Resource Graph API; a recorded set of pages can stand in for it.
+ */
+public interface AzureResourceGraphSource {
+
+    /**
+     * Runs one page of {@code query}. Pass the previous page's skip token to continue, or null for
+     * the first page.
+     */
+    Page query(String subscriptionId, String query, String skipToken);
+
+    final class Page {
+        private final List<Map<String, Object>> rows;
+        private final String skipToken;
+
+        public Page(List<Map<String, Object>> rows, String skipToken) {
+            this.rows = rows != null ? rows : Collections.emptyList();
+            this.skipToken = skipToken;
+        }
+
+        public List<Map<String, Object>> getRows() {
+            return rows;
+        }
+
+        public String getSkipToken() {
+            return skipToken;
+        }
+
+        public boolean hasMore() {
+            return skipToken != null && !skipToken.isEmpty();
+        }
+    }
+}
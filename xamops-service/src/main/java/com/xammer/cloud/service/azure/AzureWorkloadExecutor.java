@@ -0,0 +1,210 @@
+package com.xammer.cloud.service.azure;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded worker pool for blocking Azure SDK calls, so a slow subscription ties up these workers
+ * rather than the JVM-wide ForkJoin common pool. Each subscription may run at most
+ * {@code azure.executor.per-subscription-concurrency} tasks at once; further tasks for it wait in
+ * a per-subscription queue and do not occupy a worker while they wait. When the pool's queue is
+ * full the submitter runs the task itself, except for tasks submitted with a deadline: those are
+ * given up on the spot, since running them inline would hold the submitter past the deadline.
+ */
+@Component
+public class AzureWorkloadExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(AzureWorkloadExecutor.class);
+
+    private final ThreadPoolExecutor pool;
+    private final int perSubscriptionLimit;
+    private final Map<String, SubscriptionGate> gates = new HashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter callerRuns;
+    private final Counter deadlineRejections;
+    private final Timer queueWait;
+
+    public AzureWorkloadExecutor(MeterRegistry meterRegistry,
+                                 ThreadGovernor threadGovernor,
+                                 @Value("${azure.executor.threads:16}") int threads,
+                                 @Value("${azure.executor.queue-capacity:500}") int queueCapacity,
+                                 @Value("${azure.executor.per-subscription-concurrency:4}") int perSubscriptionLimit) {
+        this.perSubscriptionLimit = Math.max(1, perSubscriptionLimit);
+        this.callerRuns = Counter.builder("xamops.azure.executor.caller.runs")
+                .description("Azure tasks run on the submitting thread because the queue was full")
+                .register(meterRegistry);
+        this.deadlineRejections = Counter.builder("xamops.azure.executor.deadline.rejections")
+                .description("Azure tasks with a deadline given up because the queue was full")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("xamops.azure.executor.queue.wait")
+                .description("Time Azure tasks wait for a subscription slot and a worker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.pool = threadGovernor.newExecutor("azure-worker", threads, queueCapacity,
+                (runnable, executor) -> {
+                    if (runnable instanceof Task && ((Task<?>) runnable).rejectIfDeadlineBound()) {
+                        return;
+                    }
+                    // Backpressure: the submitter does the work itself instead of growing the queue
+                    callerRuns.increment();
+                    runnable.run();
+                });
+
+        Gauge.builder("xamops.azure.executor.queue.depth", pool, executor -> executor.getQueue().size())
+                .description("Azure tasks waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("xamops.azure.executor.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Azure workers currently running a task")
+                .register(meterRegistry);
+        Gauge.builder("xamops.azure.executor.subscription.waiting", waiting, AtomicInteger::get)
+                .description("Azure tasks held back by their subscription's concurrency cap")
+                .register(meterRegistry);
+        log.info("Azure workload executor started: {} threads, {} concurrent tasks per subscription", pool.getMaximumPoolSize(),
+                this.perSubscriptionLimit);
+    }
+
+    /**
+     * Runs {@code supplier} on the Azure pool once the subscription has a free slot.
+     */
+    public <T> CompletableFuture<T> supplyAsync(String subscriptionId, Supplier<T> supplier) {
+        return submit(new Task<>(subscriptionId, supplier, false, null));
+    }
+
+    /**
+     * Same as {@link #supplyAsync(String, Supplier)}, but the future completes with
+     * {@code timeoutValue} once {@code timeout} has passed. A task still queued by then is skipped,
+     * and one the full pool would hand back to the submitter completes with {@code timeoutValue}
+     * straight away instead of running there.
+     */
+    public <T> CompletableFuture<T> supplyAsync(String subscriptionId, Supplier<T> supplier, T timeoutValue,
+                                                long timeout, TimeUnit unit) {
+        Task<T> task = new Task<>(subscriptionId, supplier, true, timeoutValue);
+        task.future.completeOnTimeout(timeoutValue, timeout, unit);
+        return submit(task);
+    }
+
+    private <T> CompletableFuture<T> submit(Task<T> task) {
+        if (acquire(task.subscriptionId, task)) {
+            pool.execute(task);
+        }
+        return task.future;
+    }
+
+    public CompletableFuture<Void> runAsync(String subscriptionId, Runnable runnable) {
+        return supplyAsync(subscriptionId, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // True if the task may start now; otherwise it is parked until a running task of the subscription ends
+    private synchronized boolean acquire(String subscriptionId, Runnable task) {
+        SubscriptionGate gate = gates.computeIfAbsent(subscriptionId, id -> new SubscriptionGate());
+        if (gate.running < perSubscriptionLimit) {
+            gate.running++;
+            return true;
+        }
+        gate.pending.addLast(task);
+        waiting.incrementAndGet();
+        return false;
+    }
+
+    private void release(String subscriptionId) {
+        Runnable next;
+        synchronized (this) {
+            SubscriptionGate gate = gates.get(subscriptionId);
+            next = gate.pending.pollFirst();
+            if (next != null) {
+                waiting.decrementAndGet();
+            } else if (--gate.running == 0) {
+                gates.remove(subscriptionId);
+            }
+        }
+        // The slot passes straight to the next parked task
+        if (next != null) {
+            pool.execute(next);
+        }
+    }
+
+    private final class Task<T> implements Runnable {
+        private final String subscriptionId;
+        private final Supplier<T> supplier;
+        private final boolean deadlineBound;
+        private final T timeoutValue;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final String tenantId = TenantContext.getCurrentTenant();
+        private final long submittedAt = System.nanoTime();
+
+        Task(String subscriptionId, Supplier<T> supplier, boolean deadlineBound, T timeoutValue) {
+            this.subscriptionId = subscriptionId;
+            this.supplier = supplier;
+            this.deadlineBound = deadlineBound;
+            this.timeoutValue = timeoutValue;
+        }
+
+        @Override
+        public void run() {
+            queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            // Nobody is waiting for a task whose deadline passed while it was queued
+            if (future.isDone()) {
+                release(subscriptionId);
+                return;
+            }
+            String previous = TenantContext.getCurrentTenant();
+            // Pool threads outlive requests, so the tenant is carried explicitly rather than inherited
+            TenantContext.setCurrentTenant(tenantId);
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                if (previous != null) {
+                    TenantContext.setCurrentTenant(previous);
+                } else {
+                    TenantContext.clear();
+                }
+                release(subscriptionId);
+            }
+        }
+
+        // Called by the full pool instead of caller-runs; true if the task was given up
+        boolean rejectIfDeadlineBound() {
+            if (!deadlineBound) {
+                return false;
+            }
+            deadlineRejections.increment();
+            future.complete(timeoutValue);
+            release(subscriptionId);
+            return true;
+        }
+    }
+
+    private static final class SubscriptionGate {
+        private int running;
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    }
+}
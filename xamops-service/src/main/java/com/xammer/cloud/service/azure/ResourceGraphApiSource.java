@@ -0,0 +1,55 @@
+package com.xammer.cloud.service.azure;
+
+import com.azure.resourcemanager.resourcegraph.models.QueryRequest;
+import com.azure.resourcemanager.resourcegraph.models.QueryRequestOptions;
+import com.azure.resourcemanager.resourcegraph.models.QueryResponse;
+import com.azure.resourcemanager.resourcegraph.models.ResultFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AzureResourceGraphSource} backed by the Azure Resource Graph API.
+ */
+@Component
+public class ResourceGraphApiSource implements AzureResourceGraphSource {
+
+    private final AzureClientProvider clientProvider;
+
+    @Value("${azure.inventory.page-size:1000}")
+    private int pageSize;
+
+    public ResourceGraphApiSource(AzureClientProvider clientProvider) {
+        this.clientProvider = clientProvider;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page query(String subscriptionId, String query, String skipToken) {
+        QueryRequestOptions options = new QueryRequestOptions()
+                .withResultFormat(ResultFormat.OBJECT_ARRAY)
+                .withTop(pageSize);
+        if (skipToken != null) {
+            options.withSkipToken(skipToken);
+        }
+
+        QueryResponse response = clientProvider.getResourceGraphManager(subscriptionId).resourceProviders()
+                .resources(new QueryRequest()
+                        .withSubscriptions(List.of(subscriptionId))
+                        .withQuery(query)
+                        .withOptions(options));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (response.data() instanceof List) {
+            for (Object row : (List<Object>) response.data()) {
+                if (row instanceof Map) {
+                    rows.add((Map<String, Object>) row);
+                }
+            }
+        }
+        return new Page(rows, response.skipToken());
+    }
+}
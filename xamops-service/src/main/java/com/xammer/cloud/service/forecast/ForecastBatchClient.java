@@ -0,0 +1,250 @@
+package com.xammer.cloud.service.forecast;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.dto.ForecastDto;
+import com.xammer.cloud.service.StreamingRestClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Front door to forecast-service for every Prophet forecast.
+ * <p>
+ * Each request is fingerprinted (SHA-256 over the points and the model parameters). A fingerprint
+ * that was forecast recently is answered from the cache, and one that is already on its way to
+ * forecast-service joins that request instead of sending another. Everything else is queued and
+ * sent to {@code /forecast/batch} in multi-series requests: a batch goes out when it is full or
+ * after a short linger, so a dashboard load that asks for many series costs a handful of calls.
+ * Failed forecasts come back empty and are not cached.
+ */
+@Service
+public class ForecastBatchClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForecastBatchClient.class);
+
+    // Wire format of /forecast/batch: one result per series id, in any order
+    static final class BatchResponse {
+        public String status;
+        public List<BatchResult> results = Collections.emptyList();
+    }
+
+    static final class BatchResult {
+        public String id;
+        public String status;
+        public String message;
+        public List<ForecastDto> forecast;
+    }
+
+    private static final class Pending {
+        final String fingerprint;
+        final List<String> dates;
+        final double[] values;
+        final int periods;
+        final boolean weeklySeasonality;
+        final boolean yearlySeasonality;
+        final CompletableFuture<List<ForecastDto>> result = new CompletableFuture<>();
+
+        Pending(String fingerprint, List<String> dates, double[] values, int periods,
+                boolean weeklySeasonality, boolean yearlySeasonality) {
+            this.fingerprint = fingerprint;
+            this.dates = dates;
+            this.values = values;
+            this.periods = periods;
+            this.weeklySeasonality = weeklySeasonality;
+            this.yearlySeasonality = yearlySeasonality;
+        }
+    }
+
+    private final StreamingRestClient forecastClient;
+    private final Cache<String, List<ForecastDto>> forecasts;
+    private final Map<String, Pending> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor executor;
+    private final Counter cacheHits;
+    private final Counter coalesced;
+    private final Counter batches;
+
+    @Value("${forecast.service.url}")
+    private String forecastServiceUrl;
+
+    // Largest number of series sent in one call; Prophet fits them one after another
+    @Value("${forecast.batch.max-series:20}")
+    private int maxBatchSeries;
+
+    // How long a partial batch waits for more series before it is sent
+    @Value("${forecast.batch.linger-ms:50}")
+    private long lingerMs;
+
+    public ForecastBatchClient(@Qualifier("forecastStreamingClient") StreamingRestClient forecastClient,
+                               ThreadGovernor threadGovernor,
+                               MeterRegistry meterRegistry,
+                               @Value("${forecast.cache.ttl-minutes:360}") long cacheTtlMinutes,
+                               @Value("${forecast.cache.max-size:5000}") long cacheMaxSize,
+                               @Value("${forecast.batch.threads:4}") int batchThreads) {
+        this.forecastClient = forecastClient;
+        this.forecasts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .maximumSize(cacheMaxSize)
+                .build();
+        this.executor = threadGovernor.newScheduledExecutor("forecast-batch", batchThreads);
+        this.cacheHits = Counter.builder("xamops.forecast.requests")
+                .description("Forecast requests by how they were answered")
+                .tag("result", "cache")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("xamops.forecast.requests")
+                .description("Forecast requests by how they were answered")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        this.batches = Counter.builder("xamops.forecast.batches")
+                .description("Batch calls made to forecast-service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Forecast for points with {@code ds} (date) and {@code y} (cost) entries. The returned list is
+     * shared with other callers of the same series and must not be modified.
+     */
+    public CompletableFuture<List<ForecastDto>> forecast(List<Map<String, Object>> data, int periods,
+                                                         boolean weeklySeasonality, boolean yearlySeasonality) {
+        List<String> dates = new ArrayList<>(data.size());
+        double[] values = new double[data.size()];
+        for (int i = 0; i < data.size(); i++) {
+            Map<String, Object> point = data.get(i);
+            dates.add(String.valueOf(point.get("ds")));
+            Object y = point.get("y");
+            values[i] = y instanceof Number ? ((Number) y).doubleValue() : 0.0;
+        }
+        String fingerprint = fingerprint(dates, values, periods, weeklySeasonality, yearlySeasonality);
+
+        List<ForecastDto> cached = forecasts.getIfPresent(fingerprint);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        boolean[] created = new boolean[1];
+        Pending pending = inFlight.computeIfAbsent(fingerprint, fp -> {
+            created[0] = true;
+            return new Pending(fp, dates, values, periods, weeklySeasonality, yearlySeasonality);
+        });
+        if (!created[0]) {
+            coalesced.increment();
+            return pending.result;
+        }
+        enqueue(pending);
+        return pending.result;
+    }
+
+    private void enqueue(Pending pending) {
+        queue.add(pending);
+        if (queue.size() >= maxBatchSeries) {
+            executor.execute(this::flush);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<Pending> batch = new ArrayList<>(maxBatchSeries);
+        queue.drainTo(batch, maxBatchSeries);
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (queue.size() >= maxBatchSeries) {
+            executor.execute(this::flush);
+        } else if (!queue.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+        }
+        send(batch);
+    }
+
+    private void send(List<Pending> batch) {
+        Map<String, List<ForecastDto>> results = new HashMap<>();
+        long start = System.currentTimeMillis();
+        try {
+            List<Map<String, Object>> series = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("id", pending.fingerprint);
+                entry.put("ds", pending.dates);
+                entry.put("y", pending.values);
+                entry.put("periods", pending.periods);
+                entry.put("weekly_seasonality", pending.weeklySeasonality);
+                entry.put("yearly_seasonality", pending.yearlySeasonality);
+                series.add(entry);
+            }
+            batches.increment();
+            BatchResponse response = forecastClient.postJson("forecast-batch",
+                    URI.create(forecastServiceUrl + "/forecast/batch"), null, Map.of("series", series),
+                    new TypeReference<BatchResponse>() {});
+
+            for (BatchResult result : response.results) {
+                if ("success".equals(result.status) && result.forecast != null) {
+                    results.put(result.id, List.copyOf(result.forecast));
+                } else {
+                    logger.warn("Forecast-service could not forecast series {}: {}", result.id, result.message);
+                }
+            }
+            logger.info("Forecast batch of {} series answered in {} ms ({} forecasts)",
+                    batch.size(), System.currentTimeMillis() - start, results.size());
+        } catch (Exception e) {
+            logger.error("Forecast batch of {} series failed: {}", batch.size(), e.getMessage());
+        } finally {
+            for (Pending pending : batch) {
+                List<ForecastDto> forecast = results.get(pending.fingerprint);
+                if (forecast != null) {
+                    forecasts.put(pending.fingerprint, forecast);
+                }
+                inFlight.remove(pending.fingerprint, pending);
+                pending.result.complete(forecast != null ? forecast : Collections.emptyList());
+            }
+        }
+    }
+
+    private static String fingerprint(List<String> dates, double[] values, int periods,
+                                      boolean weeklySeasonality, boolean yearlySeasonality) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer number = ByteBuffer.allocate(Long.BYTES);
+            for (int i = 0; i < values.length; i++) {
+                digest.update(dates.get(i).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(number.clear().putLong(Double.doubleToLongBits(values[i])).array());
+            }
+            digest.update(number.clear().putLong(periods).array());
+            digest.update((byte) ((weeklySeasonality ? 1 : 0) | (yearlySeasonality ? 2 : 0)));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.complete(Collections.emptyList());
+        }
+    }
+}
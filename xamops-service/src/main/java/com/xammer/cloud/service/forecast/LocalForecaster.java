@@ -0,0 +1,274 @@
+package com.xammer.cloud.service.forecast;
+
+/**
+ * In-process forecasts for daily cost series with weekly seasonality.
+ * <p>
+ * Three models compete: seasonal naive (next week repeats this week), damped-trend exponential
+ * smoothing, and additive Holt-Winters. Smoothing parameters come from a small grid searched on
+ * in-sample one-step error. The model is then chosen by a backtest: each candidate is fitted on
+ * the series minus its tail, forecasts the tail, and the lowest weighted absolute percentage error
+ * (WAPE) wins and is refitted on the whole series. Prediction intervals use the one-step residual
+ * spread widened per step with the model's analytic variance multipliers, at the same 80% width
+ * the Prophet service uses.
+ * <p>
+ * A fit is a few hundred passes over at most a few hundred points, so it takes well under a
+ * millisecond; instances are stateless and thread-safe.
+ */
+public class LocalForecaster {
+
+    public enum Model {
+        SEASONAL_NAIVE, DAMPED_TREND, HOLT_WINTERS
+    }
+
+    // Two-sided 80% normal quantile, matching interval_width=0.80 in forecast-service
+    private static final double INTERVAL_Z = 1.2816;
+
+    private static final double[] ALPHAS = {0.05, 0.1, 0.2, 0.3, 0.5, 0.7};
+    private static final double[] BETAS = {0.01, 0.05, 0.1, 0.2};
+    private static final double[] GAMMAS = {0.05, 0.1, 0.2, 0.3};
+    private static final double[] PHIS = {0.8, 0.9, 0.95, 0.98};
+
+    /**
+     * Point forecasts and interval bounds for {@code horizon} steps after the last observation.
+     */
+    public static final class Forecast {
+        private final Model model;
+        private final double backtestError;
+        private final double[] mean;
+        private final double[] lower;
+        private final double[] upper;
+
+        Forecast(Model model, double backtestError, double[] mean, double[] lower, double[] upper) {
+            this.model = model;
+            this.backtestError = backtestError;
+            this.mean = mean;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        public Model getModel() {
+            return model;
+        }
+
+        /**
+         * WAPE of the chosen model on the held-out tail; NaN when the series was too short to hold any out.
+         */
+        public double getBacktestError() {
+            return backtestError;
+        }
+
+        public double[] getMean() {
+            return mean;
+        }
+
+        public double[] getLower() {
+            return lower;
+        }
+
+        public double[] getUpper() {
+            return upper;
+        }
+    }
+
+    // Smoothing state after a pass over the series
+    private static final class Fit {
+        double alpha;
+        double beta;
+        double gamma;
+        double phi;
+        double level;
+        double trend;
+        double[] season;
+        double sse;
+        int residuals;
+    }
+
+    private final int period;
+
+    public LocalForecaster(int period) {
+        this.period = Math.max(1, period);
+    }
+
+    /**
+     * Smallest series the Holt-Winters initialisation accepts.
+     */
+    public int minHistory() {
+        return 2 * period;
+    }
+
+    /**
+     * Picks the model with the lowest backtest error and forecasts {@code horizon} steps with it.
+     * Costs cannot go negative, so every bound is clamped at zero.
+     */
+    public Forecast forecast(double[] y, int horizon) {
+        if (y.length < minHistory()) {
+            throw new IllegalArgumentException("Need at least " + minHistory() + " points, got " + y.length);
+        }
+
+        int holdout = Math.min(Math.max(period, y.length / 5), y.length - minHistory());
+        Model best = Model.SEASONAL_NAIVE;
+        double bestError = Double.NaN;
+        if (holdout > 0) {
+            int train = y.length - holdout;
+            bestError = Double.POSITIVE_INFINITY;
+            for (Model model : Model.values()) {
+                double[] tail = point(model, y, train, holdout);
+                double error = wape(y, train, tail);
+                if (error < bestError) {
+                    best = model;
+                    bestError = error;
+                }
+            }
+        }
+        return withIntervals(best, bestError, y, horizon);
+    }
+
+    // Point forecast of one model fitted on y[0, n)
+    private double[] point(Model model, double[] y, int n, int horizon) {
+        if (model == Model.SEASONAL_NAIVE) {
+            double[] out = new double[horizon];
+            for (int k = 1; k <= horizon; k++) {
+                out[k - 1] = y[n - period + (k - 1) % period];
+            }
+            return out;
+        }
+        return project(search(model, y, n), n, horizon);
+    }
+
+    private Forecast withIntervals(Model model, double backtestError, double[] y, int horizon) {
+        int n = y.length;
+        double[] mean;
+        double sigma;
+        double[] multipliers = new double[horizon];
+        if (model == Model.SEASONAL_NAIVE) {
+            mean = point(model, y, n, horizon);
+            double sse = 0;
+            for (int t = period; t < n; t++) {
+                double e = y[t] - y[t - period];
+                sse += e * e;
+            }
+            sigma = Math.sqrt(sse / (n - period));
+            for (int k = 1; k <= horizon; k++) {
+                multipliers[k - 1] = Math.sqrt((k - 1) / period + 1);
+            }
+        } else {
+            Fit fit = search(model, y, n);
+            mean = project(fit, n, horizon);
+            sigma = Math.sqrt(fit.sse / Math.max(1, fit.residuals));
+            // Var(h) = sigma^2 (1 + sum_{j<h} c_j^2) for additive exponential smoothing
+            double cumulative = 1.0;
+            double dampedSum = 0;
+            double phiPower = 1.0;
+            for (int k = 1; k <= horizon; k++) {
+                multipliers[k - 1] = Math.sqrt(cumulative);
+                phiPower *= fit.phi;
+                dampedSum += phiPower;
+                double c = fit.alpha * (1 + fit.beta * dampedSum) + (k % period == 0 ? fit.gamma : 0);
+                cumulative += c * c;
+            }
+        }
+
+        double[] lower = new double[horizon];
+        double[] upper = new double[horizon];
+        for (int k = 0; k < horizon; k++) {
+            double width = INTERVAL_Z * sigma * multipliers[k];
+            mean[k] = Math.max(0, mean[k]);
+            lower[k] = Math.max(0, mean[k] - width);
+            upper[k] = mean[k] + width;
+        }
+        return new Forecast(model, backtestError, mean, lower, upper);
+    }
+
+    // Grid search on in-sample one-step squared error
+    private Fit search(Model model, double[] y, int n) {
+        boolean seasonal = model == Model.HOLT_WINTERS;
+        double[] gammas = seasonal ? GAMMAS : new double[] {0};
+        double[] phis = seasonal ? new double[] {1} : PHIS;
+        Fit best = null;
+        Fit candidate = new Fit();
+        for (double alpha : ALPHAS) {
+            for (double beta : BETAS) {
+                for (double gamma : gammas) {
+                    for (double phi : phis) {
+                        smooth(y, n, alpha, beta, gamma, phi, seasonal, candidate);
+                        if (best == null || candidate.sse < best.sse) {
+                            Fit swap = best != null ? best : new Fit();
+                            best = candidate;
+                            candidate = swap;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Additive level/trend/season recursions over y[0, n), initialised from the first two periods
+    private void smooth(double[] y, int n, double alpha, double beta, double gamma, double phi, boolean seasonal, Fit fit) {
+        double first = mean(y, 0, period);
+        double level = first;
+        double trend = (mean(y, period, 2 * period) - first) / period;
+        if (fit.season == null) {
+            fit.season = new double[period];
+        }
+        double[] season = fit.season;
+        for (int i = 0; i < period; i++) {
+            season[i] = seasonal ? y[i] - first : 0;
+        }
+
+        double sse = 0;
+        for (int t = period; t < n; t++) {
+            int phase = t % period;
+            double e = y[t] - (level + phi * trend + season[phase]);
+            sse += e * e;
+            double previous = level;
+            level = alpha * (y[t] - season[phase]) + (1 - alpha) * (previous + phi * trend);
+            trend = beta * (level - previous) + (1 - beta) * phi * trend;
+            if (seasonal) {
+                season[phase] = gamma * (y[t] - level) + (1 - gamma) * season[phase];
+            }
+        }
+
+        fit.alpha = alpha;
+        fit.beta = beta;
+        fit.gamma = gamma;
+        fit.phi = phi;
+        fit.level = level;
+        fit.trend = trend;
+        fit.sse = sse;
+        fit.residuals = n - period;
+    }
+
+    private double[] project(Fit fit, int n, int horizon) {
+        double[] out = new double[horizon];
+        double dampedSum = 0;
+        double phiPower = 1.0;
+        for (int k = 1; k <= horizon; k++) {
+            phiPower *= fit.phi;
+            dampedSum += phiPower;
+            out[k - 1] = fit.level + dampedSum * fit.trend + fit.season[(n - 1 + k) % period];
+        }
+        return out;
+    }
+
+    private static double wape(double[] y, int from, double[] predicted) {
+        double error = 0;
+        double actual = 0;
+        for (int k = 0; k < predicted.length; k++) {
+            error += Math.abs(y[from + k] - Math.max(0, predicted[k]));
+            actual += Math.abs(y[from + k]);
+        }
+        if (actual == 0) {
+            return error == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return error / actual;
+    }
+
+    private static double mean(double[] y, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += y[i];
+        }
+        return sum / (to - from);
+    }
+}
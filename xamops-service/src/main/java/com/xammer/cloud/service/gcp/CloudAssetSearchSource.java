@@ -0,0 +1,47 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.asset.v1.AssetServiceClient;
+import com.google.cloud.asset.v1.ResourceSearchResult;
+import com.google.cloud.asset.v1.SearchAllResourcesRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * {@link GcpAssetSource} backed by the Cloud Asset Inventory {@code searchAllResources} API.
+ */
+@Component
+public class CloudAssetSearchSource implements GcpAssetSource {
+
+    private final GcpClientProvider gcpClientProvider;
+
+    @Value("${gcp.inventory.page-size:500}")
+    private int pageSize;
+
+    public CloudAssetSearchSource(GcpClientProvider gcpClientProvider) {
+        this.gcpClientProvider = gcpClientProvider;
+    }
+
+    @Override
+    public int searchResources(String gcpProjectId, Collection<String> assetTypes, Consumer<ResourceSearchResult> sink) {
+        AssetServiceClient client = gcpClientProvider.getAssetServiceClient(gcpProjectId)
+                .orElseThrow(() -> new IllegalStateException("AssetServiceClient not available for project " + gcpProjectId));
+
+        SearchAllResourcesRequest request = SearchAllResourcesRequest.newBuilder()
+                .setScope("projects/" + gcpProjectId)
+                .addAllAssetTypes(assetTypes)
+                .setPageSize(pageSize)
+                .build();
+
+        int pages = 0;
+        for (AssetServiceClient.SearchAllResourcesPage page : client.searchAllResources(request).iteratePages()) {
+            pages++;
+            for (ResourceSearchResult result : page.getValues()) {
+                sink.accept(result);
+            }
+        }
+        return pages;
+    }
+}
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -19,9 +20,11 @@ import java.util.stream.StreamSupport;
 public class GcpAiAdvisorService {
 
     private final GcpClientProvider gcpClientProvider;
+    private final Executor executor;
 
-    public GcpAiAdvisorService(GcpClientProvider gcpClientProvider) {
+    public GcpAiAdvisorService(GcpClientProvider gcpClientProvider, GcpWorkloadScheduler workloadScheduler) {
         this.gcpClientProvider = gcpClientProvider;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
     }
 
     public CompletableFuture<List<GcpAiRecommendationDto>> getAiRecommendations(String gcpProjectId) {
@@ -29,7 +32,9 @@ public class GcpAiAdvisorService {
             Optional<RecommenderClient> clientOpt = gcpClientProvider.getRecommenderClient(gcpProjectId);
             if (clientOpt.isEmpty()) return new ArrayList<>();
 
-            try (RecommenderClient client = clientOpt.get()) {
+            try {
+                RecommenderClient client = clientOpt.get();
+
                 RecommenderName recommenderName = RecommenderName.of(gcpProjectId, "global", "google.compute.instance.MachineTypeRecommender");
                 return StreamSupport.stream(client.listRecommendations(recommenderName).iterateAll().spliterator(), false)
                         .map(this::mapToAiDto)
@@ -38,7 +43,7 @@ public class GcpAiAdvisorService {
                 log.error("Failed to get AI recommendations for project {}", gcpProjectId, e);
                 return new ArrayList<>();
             }
-        });
+        }, executor);
     }
     
     private GcpAiRecommendationDto mapToAiDto(Recommendation rec) {
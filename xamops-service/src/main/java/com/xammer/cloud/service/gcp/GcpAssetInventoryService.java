@@ -0,0 +1,166 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.asset.v1.ResourceSearchResult;
+import com.google.protobuf.Value;
+import com.xammer.cloud.dto.gcp.GcpResourceDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Project inventory from a single Cloud Asset Inventory search instead of one lister per API.
+ * Results are projected onto {@link GcpResourceDto} with the same type names the per-API
+ * listers in {@link GcpDataService} use, so the cloud list looks the same whichever backend
+ * produced it. Types Asset Inventory does not index (or indexes without the detail the list
+ * needs, like NAT configs on routers) are still fetched by their own listers.
+ */
+@Service
+@Slf4j
+public class GcpAssetInventoryService {
+
+    /**
+     * Asset type -> resource type shown in the cloud list.
+     */
+    private static final Map<String, String> ASSET_TYPES = new LinkedHashMap<>();
+
+    static {
+        ASSET_TYPES.put("compute.googleapis.com/Instance", "Compute Engine");
+        ASSET_TYPES.put("storage.googleapis.com/Bucket", "Cloud Storage");
+        ASSET_TYPES.put("container.googleapis.com/Cluster", "Kubernetes Engine");
+        ASSET_TYPES.put("sqladmin.googleapis.com/Instance", "Cloud SQL");
+        ASSET_TYPES.put("compute.googleapis.com/Network", "VPC Network");
+        ASSET_TYPES.put("dns.googleapis.com/ManagedZone", "Cloud DNS");
+        ASSET_TYPES.put("compute.googleapis.com/ForwardingRule", "Load Balancer");
+        ASSET_TYPES.put("compute.googleapis.com/GlobalForwardingRule", "Load Balancer");
+        ASSET_TYPES.put("compute.googleapis.com/Firewall", "Firewall Rule");
+        ASSET_TYPES.put("cloudkms.googleapis.com/CryptoKey", "Cloud KMS");
+        ASSET_TYPES.put("cloudfunctions.googleapis.com/Function", "Cloud Function");
+        ASSET_TYPES.put("secretmanager.googleapis.com/Secret", "Secret Manager");
+        ASSET_TYPES.put("compute.googleapis.com/SecurityPolicy", "Cloud Armor");
+        ASSET_TYPES.put("apigateway.googleapis.com/Api", "API Gateway");
+        ASSET_TYPES.put("bigquery.googleapis.com/Dataset", "BigQuery Dataset");
+        ASSET_TYPES.put("logging.googleapis.com/LogBucket", "Logging Bucket");
+        ASSET_TYPES.put("aiplatform.googleapis.com/Model", "Vertex AI Model");
+        ASSET_TYPES.put("aiplatform.googleapis.com/Endpoint", "Vertex AI Endpoint");
+        ASSET_TYPES.put("pubsub.googleapis.com/Topic", "Pub/Sub Topic");
+        ASSET_TYPES.put("pubsub.googleapis.com/Subscription", "Pub/Sub Subscription");
+        ASSET_TYPES.put("monitoring.googleapis.com/AlertPolicy", "Monitoring Alert Policy");
+        ASSET_TYPES.put("cloudscheduler.googleapis.com/Job", "Cloud Scheduler Job");
+        ASSET_TYPES.put("dataplex.googleapis.com/Lake", "Dataplex Lake");
+        ASSET_TYPES.put("bigqueryreservation.googleapis.com/Reservation", "BigQuery Reservation");
+    }
+
+    private static final Set<String> COVERED_RESOURCE_TYPES = Set.copyOf(ASSET_TYPES.values());
+    private static final String DNS_ZONE = "dns.googleapis.com/ManagedZone";
+    private static final String FIREWALL = "compute.googleapis.com/Firewall";
+
+    private final GcpAssetSource assetSource;
+    private final Executor assetExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Counter pagesFetched;
+
+    public GcpAssetInventoryService(GcpAssetSource assetSource,
+                                    GcpWorkloadScheduler workloadScheduler,
+                                    MeterRegistry meterRegistry) {
+        this.assetSource = assetSource;
+        this.assetExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.ASSET);
+        this.meterRegistry = meterRegistry;
+        this.pagesFetched = Counter.builder("xamops.gcp.inventory.pages")
+                .description("Cloud Asset Inventory search pages fetched")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resource types (as shown in the cloud list) this backend returns; the per-API listers for
+     * these can be skipped when {@link #fetchResources} succeeds.
+     */
+    public Set<String> getCoveredResourceTypes() {
+        return COVERED_RESOURCE_TYPES;
+    }
+
+    /**
+     * Searches the project's inventory on the ASSET pool. Completes exceptionally if the search
+     * fails, so callers can fall back to the per-API listers.
+     */
+    public CompletableFuture<List<GcpResourceDto>> fetchResources(String gcpProjectId) {
+        return CompletableFuture.supplyAsync(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            List<GcpResourceDto> resources = new ArrayList<>();
+            String outcome = "success";
+            try {
+                int pages = assetSource.searchResources(gcpProjectId, ASSET_TYPES.keySet(),
+                        result -> resources.add(mapAssetToDto(result)));
+                pagesFetched.increment(pages);
+                log.info("Found {} GCP resources for project {} via Cloud Asset Inventory in {} page(s)",
+                        resources.size(), gcpProjectId, pages);
+                return resources;
+            } catch (RuntimeException e) {
+                outcome = "failure";
+                log.warn("Cloud Asset Inventory search failed for project {}: {}", gcpProjectId, e.getMessage());
+                throw e;
+            } finally {
+                sample.stop(Timer.builder("xamops.gcp.inventory.duration")
+                        .description("Wall time of a Cloud Asset Inventory project search")
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            }
+        }, assetExecutor);
+    }
+
+    private GcpResourceDto mapAssetToDto(ResourceSearchResult result) {
+        String shortName = lastSegment(result.getName());
+        Map<String, Value> attributes = result.getAdditionalAttributes().getFieldsMap();
+        String id = stringAttribute(attributes, "id");
+        // The listers name DNS zones by domain and report disabled firewall rules; neither is in the
+        // display name or state, only in the additional attributes
+        String dnsName = DNS_ZONE.equals(result.getAssetType()) ? stringAttribute(attributes, "dnsName") : "";
+        boolean disabled = FIREWALL.equals(result.getAssetType()) && booleanAttribute(attributes, "disabled");
+
+        GcpResourceDto dto = new GcpResourceDto();
+        dto.setId(!id.isEmpty() ? id : shortName);
+        if (!dnsName.isEmpty()) {
+            dto.setName(dnsName);
+        } else {
+            dto.setName(result.getDisplayName().isEmpty() ? shortName : result.getDisplayName());
+        }
+        dto.setType(ASSET_TYPES.getOrDefault(result.getAssetType(), result.getAssetType()));
+        dto.setLocation(result.getLocation().isEmpty() ? "global" : result.getLocation());
+        if (disabled) {
+            dto.setStatus("DISABLED");
+        } else {
+            dto.setStatus(result.getState().isEmpty() ? "ACTIVE" : result.getState());
+        }
+        if (result.getLabelsCount() > 0) {
+            dto.setTags(new HashMap<>(result.getLabelsMap()));
+        }
+        return dto;
+    }
+
+    private static String stringAttribute(Map<String, Value> attributes, String key) {
+        Value value = attributes.get(key);
+        return value != null && value.getKindCase() == Value.KindCase.STRING_VALUE ? value.getStringValue() : "";
+    }
+
+    // Asset Inventory sends booleans as bool values, but accept their string form too
+    private static boolean booleanAttribute(Map<String, Value> attributes, String key) {
+        Value value = attributes.get(key);
+        if (value == null) return false;
+        return value.getKindCase() == Value.KindCase.BOOL_VALUE ? value.getBoolValue() : Boolean.parseBoolean(value.getStringValue());
+    }
+
+    // "//compute.googleapis.com/projects/p/zones/z/instances/vm-1" -> "vm-1"
+    private static String lastSegment(String name) {
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+}
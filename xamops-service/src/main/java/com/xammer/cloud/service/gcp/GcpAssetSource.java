@@ -0,0 +1,22 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.asset.v1.ResourceSearchResult;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Source of Cloud Asset Inventory search results for a project. The live implementation pages
+ * through {@code searchAllResources}; anything that can produce {@link ResourceSearchResult}s
+ * (a fixed list, a recorded response) can stand in for it.
+ */
+public interface GcpAssetSource {
+
+    /**
+     * Streams every resource of the given asset types in the project to {@code sink}, one page
+     * at a time. Failures (API disabled, permission denied) are thrown to the caller.
+     *
+     * @return number of API pages fetched
+     */
+    int searchResources(String gcpProjectId, Collection<String> assetTypes, Consumer<ResourceSearchResult> sink);
+}
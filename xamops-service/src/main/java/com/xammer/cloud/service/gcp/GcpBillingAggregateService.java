@@ -0,0 +1,343 @@
+package com.xammer.cloud.service.gcp;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.cloud.bigquery.*;
+import com.xammer.cloud.domain.GcpBillingDailyCost;
+import com.xammer.cloud.domain.GcpBillingSyncState;
+import com.xammer.cloud.dto.DetailedCostDto;
+import com.xammer.cloud.repository.GcpBillingDailyCostRepository;
+import com.xammer.cloud.repository.GcpBillingSyncStateRepository;
+import com.xammer.cloud.service.RedisCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Local, persistent aggregate of the GCP BigQuery billing export.
+ *
+ * Closed usage days are materialised as project x service x SKU x region x day rows in
+ * {@code gcp_billing_daily_costs} and synced incrementally: each sync only reads the
+ * partitions after the stored watermark (minus a short restatement window for late-arriving
+ * billing rows). Only today's partition is queried live, and that slice is cached briefly.
+ * GcpCostService answers its dashboard, breakdown and forecast queries from here.
+ */
+@Service
+@Slf4j
+public class GcpBillingAggregateService {
+
+    private static final String TODAY_SLICE_CACHE_PREFIX = "gcp:billing-today:";
+    private static final TypeReference<List<GcpBillingDailyCost>> ROW_LIST_TYPE = new TypeReference<>() {};
+
+    public enum Dimension {
+        SERVICE, REGION, PROJECT
+    }
+
+    private final GcpClientProvider gcpClientProvider;
+    private final GcpBillingDailyCostRepository dailyCostRepository;
+    private final GcpBillingSyncStateRepository syncStateRepository;
+    private final RedisCacheService redisCacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Object> syncLocks = new ConcurrentHashMap<>();
+
+    // How far back the first sync of a project materialises (historical view needs 6 full months)
+    @Value("${gcp.billing.aggregate.backfill-months:7}")
+    private int backfillMonths;
+
+    // Closed days re-read on every sync, because billing rows keep arriving for a few days
+    @Value("${gcp.billing.aggregate.restatement-days:3}")
+    private int restatementDays;
+
+    @Value("${gcp.billing.aggregate.sync-interval-minutes:60}")
+    private int syncIntervalMinutes;
+
+    @Value("${gcp.billing.aggregate.today-cache-minutes:10}")
+    private int todayCacheMinutes;
+
+    // Standard billing exports are ingestion-time partitioned; disable for views or unpartitioned copies
+    @Value("${gcp.billing.aggregate.partition-filter:true}")
+    private boolean partitionFilter;
+
+    public GcpBillingAggregateService(GcpClientProvider gcpClientProvider,
+                                      GcpBillingDailyCostRepository dailyCostRepository,
+                                      GcpBillingSyncStateRepository syncStateRepository,
+                                      RedisCacheService redisCacheService,
+                                      PlatformTransactionManager transactionManager) {
+        this.gcpClientProvider = gcpClientProvider;
+        this.dailyCostRepository = dailyCostRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.redisCacheService = redisCacheService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ===== SYNC =====
+
+    /**
+     * Makes sure every closed day up to yesterday is materialised for the project.
+     * Cheap when the project was synced within the sync interval.
+     *
+     * @return false if the project has no BigQuery access or billing export table
+     */
+    public boolean ensureSynced(String gcpProjectId) {
+        if (isFresh(syncStateRepository.findById(gcpProjectId).orElse(null))) {
+            return true;
+        }
+
+        synchronized (syncLocks.computeIfAbsent(gcpProjectId, k -> new Object())) {
+            GcpBillingSyncState state = syncStateRepository.findById(gcpProjectId).orElse(null);
+            if (isFresh(state)) {
+                return true;
+            }
+
+            Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
+            if (bqOpt.isEmpty()) return false;
+            Optional<String> tableNameOpt = getBillingTableName(bqOpt.get(), gcpProjectId);
+            if (tableNameOpt.isEmpty()) return false;
+
+            try {
+                try {
+                    sync(bqOpt.get(), tableNameOpt.get(), gcpProjectId, state);
+                } catch (BigQueryException e) {
+                    if (e.getCode() != 404) throw e;
+                    // Export table was recreated or moved since it was located - re-discover once
+                    log.warn("Billing export table {} not found for project {}, re-discovering", tableNameOpt.get(), gcpProjectId);
+                    gcpClientProvider.invalidateBillingTable(gcpProjectId);
+                    tableNameOpt = getBillingTableName(bqOpt.get(), gcpProjectId);
+                    if (tableNameOpt.isEmpty()) return state != null;
+                    sync(bqOpt.get(), tableNameOpt.get(), gcpProjectId, state);
+                }
+                return true;
+            } catch (Exception e) {
+                log.error("GCP billing aggregate sync failed for project {}: {}", gcpProjectId, e.getMessage(), e);
+                if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                // Serve whatever is already materialised rather than failing the dashboard
+                return state != null;
+            }
+        }
+    }
+
+    /**
+     * First usage day held in the store, or null if the project was never synced.
+     */
+    public LocalDate getCoverageStart(String gcpProjectId) {
+        return syncStateRepository.findById(gcpProjectId).map(GcpBillingSyncState::getCoverageStart).orElse(null);
+    }
+
+    /**
+     * Drops the sync state so the next read re-syncs the restatement window immediately.
+     */
+    public void invalidate(String gcpProjectId) {
+        syncStateRepository.findById(gcpProjectId).ifPresent(state -> {
+            state.setLastSyncedAt(null);
+            syncStateRepository.save(state);
+        });
+        redisCacheService.evict(TODAY_SLICE_CACHE_PREFIX + gcpProjectId);
+    }
+
+    private boolean isFresh(GcpBillingSyncState state) {
+        if (state == null || state.getWatermark() == null || state.getLastSyncedAt() == null) {
+            return false;
+        }
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        return !state.getWatermark().isBefore(yesterday)
+                && state.getLastSyncedAt().isAfter(LocalDateTime.now().minusMinutes(syncIntervalMinutes));
+    }
+
+    private void sync(BigQuery bigquery, String tableName, String gcpProjectId, GcpBillingSyncState state)
+            throws InterruptedException {
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        LocalDate coverageStart = state != null && state.getCoverageStart() != null
+                ? state.getCoverageStart()
+                : LocalDate.now(ZoneOffset.UTC).minusMonths(backfillMonths).withDayOfMonth(1);
+        LocalDate from = state != null && state.getWatermark() != null
+                ? state.getWatermark().plusDays(1).minusDays(restatementDays)
+                : coverageStart;
+        if (from.isBefore(coverageStart)) {
+            from = coverageStart;
+        }
+
+        List<GcpBillingDailyCost> rows = from.isAfter(yesterday)
+                ? Collections.emptyList()
+                : queryRows(bigquery, tableName, gcpProjectId, from, yesterday);
+
+        LocalDate syncFrom = from;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!syncFrom.isAfter(yesterday)) {
+                dailyCostRepository.deleteRange(gcpProjectId, syncFrom, yesterday);
+                dailyCostRepository.saveAll(rows);
+            }
+            syncStateRepository.save(new GcpBillingSyncState(gcpProjectId, coverageStart, yesterday, LocalDateTime.now()));
+        });
+
+        log.info("✅ Synced GCP billing aggregate for project {}: {} rows for {} .. {}",
+                gcpProjectId, rows.size(), syncFrom, yesterday);
+    }
+
+    private List<GcpBillingDailyCost> queryRows(BigQuery bigquery, String tableName, String gcpProjectId,
+                                                LocalDate from, LocalDate to) throws InterruptedException {
+        String partitionClause = partitionFilter
+                ? String.format("DATE(_PARTITIONTIME) >= '%s' AND ", from.format(DateTimeFormatter.ISO_LOCAL_DATE))
+                : "";
+        String query = String.format(
+                "SELECT FORMAT_DATE('%%Y-%%m-%%d', DATE(usage_start_time)) as usage_date, " +
+                        "project.name as project_name, service.description as service, " +
+                        "sku.description as sku, location.region as region, SUM(cost) as total_cost " +
+                        "FROM `%s` " +
+                        "WHERE %sDATE(usage_start_time) >= '%s' AND DATE(usage_start_time) <= '%s' " +
+                        "GROUP BY 1, 2, 3, 4, 5",
+                tableName, partitionClause,
+                from.format(DateTimeFormatter.ISO_LOCAL_DATE),
+                to.format(DateTimeFormatter.ISO_LOCAL_DATE)
+        );
+
+        log.info("Executing BigQuery billing aggregate query for project {}: {}", gcpProjectId, query);
+        TableResult results = bigquery.query(QueryJobConfiguration.newBuilder(query).build());
+        return StreamSupport.stream(results.iterateAll().spliterator(), false)
+                .map(row -> new GcpBillingDailyCost(
+                        gcpProjectId,
+                        LocalDate.parse(row.get("usage_date").getStringValue()),
+                        stringOrNull(row.get("project_name")),
+                        stringOrNull(row.get("service")),
+                        stringOrNull(row.get("sku")),
+                        stringOrNull(row.get("region")),
+                        row.get("total_cost").isNull() ? 0.0 : row.get("total_cost").getDoubleValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static String stringOrNull(FieldValue value) {
+        return value == null || value.isNull() ? null : value.getStringValue();
+    }
+
+    // ===== TODAY (LIVE) =====
+
+    private List<GcpBillingDailyCost> getTodaySlice(String gcpProjectId) {
+        String cacheKey = TODAY_SLICE_CACHE_PREFIX + gcpProjectId;
+        Optional<List<GcpBillingDailyCost>> cached = redisCacheService.get(cacheKey, ROW_LIST_TYPE);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
+        if (bqOpt.isEmpty()) return Collections.emptyList();
+        Optional<String> tableNameOpt = getBillingTableName(bqOpt.get(), gcpProjectId);
+        if (tableNameOpt.isEmpty()) return Collections.emptyList();
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        try {
+            List<GcpBillingDailyCost> rows = queryRows(bqOpt.get(), tableNameOpt.get(), gcpProjectId, today, today);
+            redisCacheService.put(cacheKey, rows, todayCacheMinutes);
+            return rows;
+        } catch (Exception e) {
+            log.error("BigQuery query for today's billing partition failed on project {}: {}", gcpProjectId, e.getMessage(), e);
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+    }
+
+    private List<GcpBillingDailyCost> liveRows(String gcpProjectId, LocalDate to) {
+        return to.isBefore(LocalDate.now(ZoneOffset.UTC)) ? Collections.emptyList() : getTodaySlice(gcpProjectId);
+    }
+
+    // ===== READS (inclusive date ranges) =====
+
+    public double getTotalCost(String gcpProjectId, LocalDate from, LocalDate to) {
+        Double stored = dailyCostRepository.sumTotal(gcpProjectId, from, storedUpperBound(to));
+        double live = liveRows(gcpProjectId, to).stream().mapToDouble(GcpBillingDailyCost::getCost).sum();
+        return (stored != null ? stored : 0.0) + live;
+    }
+
+    /**
+     * Cost per dimension value; null dimension values are keyed under {@code null}.
+     */
+    public Map<String, Double> getCostBy(String gcpProjectId, Dimension dimension, LocalDate from, LocalDate to) {
+        LocalDate storedTo = storedUpperBound(to);
+        List<GcpBillingDailyCostRepository.CostTotal> stored;
+        Function<GcpBillingDailyCost, String> key;
+        switch (dimension) {
+            case REGION:
+                stored = dailyCostRepository.sumByRegion(gcpProjectId, from, storedTo);
+                key = GcpBillingDailyCost::getRegion;
+                break;
+            case PROJECT:
+                stored = dailyCostRepository.sumByProjectName(gcpProjectId, from, storedTo);
+                key = GcpBillingDailyCost::getProjectName;
+                break;
+            default:
+                stored = dailyCostRepository.sumByService(gcpProjectId, from, storedTo);
+                key = GcpBillingDailyCost::getService;
+        }
+
+        Map<String, Double> totals = new HashMap<>();
+        stored.forEach(t -> totals.merge(t.getName(), t.getTotal() != null ? t.getTotal() : 0.0, Double::sum));
+        liveRows(gcpProjectId, to).forEach(r -> totals.merge(key.apply(r), r.getCost(), Double::sum));
+        return totals;
+    }
+
+    /**
+     * Cost per service/region pair; null service and region values are returned as null.
+     */
+    public List<DetailedCostDto> getCostByServiceAndRegion(String gcpProjectId, LocalDate from, LocalDate to) {
+        Map<List<String>, Double> totals = new HashMap<>();
+        dailyCostRepository.sumByServiceAndRegion(gcpProjectId, from, storedUpperBound(to))
+                .forEach(t -> totals.merge(Arrays.asList(t.getService(), t.getRegion()),
+                        t.getTotal() != null ? t.getTotal() : 0.0, Double::sum));
+        liveRows(gcpProjectId, to)
+                .forEach(r -> totals.merge(Arrays.asList(r.getService(), r.getRegion()), r.getCost(), Double::sum));
+
+        return totals.entrySet().stream()
+                .map(e -> new DetailedCostDto(e.getKey().get(0), e.getKey().get(1), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cost per usage day, optionally restricted to one service description, in date order.
+     */
+    public SortedMap<LocalDate, Double> getDailyCost(String gcpProjectId, String service, LocalDate from, LocalDate to) {
+        LocalDate storedTo = storedUpperBound(to);
+        List<GcpBillingDailyCostRepository.DailyTotal> stored = service == null
+                ? dailyCostRepository.sumByDay(gcpProjectId, from, storedTo)
+                : dailyCostRepository.sumByDayForService(gcpProjectId, service, from, storedTo);
+
+        SortedMap<LocalDate, Double> totals = new TreeMap<>();
+        stored.forEach(t -> totals.merge(t.getUsageDate(), t.getTotal() != null ? t.getTotal() : 0.0, Double::sum));
+        liveRows(gcpProjectId, to).stream()
+                .filter(r -> service == null || service.equals(r.getService()))
+                .forEach(r -> totals.merge(r.getUsageDate(), r.getCost(), Double::sum));
+        return totals;
+    }
+
+    /**
+     * Closed-day cost per service, day by day in date order; today's live slice is not included.
+     */
+    public SortedMap<LocalDate, Map<String, Double>> getDailyCostByService(String gcpProjectId, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Map<String, Double>> days = new TreeMap<>();
+        dailyCostRepository.sumByDayAndService(gcpProjectId, from, storedUpperBound(to))
+                .forEach(t -> days.computeIfAbsent(t.getUsageDate(), d -> new HashMap<>())
+                        .merge(t.getService() != null ? t.getService() : "Unknown",
+                                t.getTotal() != null ? t.getTotal() : 0.0, Double::sum));
+        return days;
+    }
+
+    // Today's partition is never stored; it always comes from the live slice
+    private static LocalDate storedUpperBound(LocalDate to) {
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        return to.isAfter(yesterday) ? yesterday : to;
+    }
+
+    // ===== BILLING TABLE =====
+
+    public Optional<String> getBillingTableName(BigQuery bigquery, String gcpProjectId) {
+        return gcpClientProvider.getBillingTableName(bigquery, gcpProjectId);
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -18,9 +19,11 @@ import java.util.stream.StreamSupport;
 public class GcpBudgetService {
 
     private final GcpClientProvider gcpClientProvider;
+    private final Executor executor;
 
-    public GcpBudgetService(GcpClientProvider gcpClientProvider) {
+    public GcpBudgetService(GcpClientProvider gcpClientProvider, GcpWorkloadScheduler workloadScheduler) {
         this.gcpClientProvider = gcpClientProvider;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
     }
 
     public CompletableFuture<List<GcpBudgetDto>> getBudgets(String billingAccountId) {
@@ -34,7 +37,8 @@ public class GcpBudgetService {
                 log.error("Failed to create BudgetServiceClient for billing account {}", billingAccountId);
                 return Collections.emptyList();
             }
-            try (BudgetServiceClient client = clientOpt.get()) {
+            try {
+                BudgetServiceClient client = clientOpt.get();
                 String parent = "billingAccounts/" + billingAccountId;
                 ListBudgetsRequest request = ListBudgetsRequest.newBuilder().setParent(parent).build();
                 return StreamSupport.stream(client.listBudgets(request).iterateAll().spliterator(), false)
@@ -44,7 +48,7 @@ public class GcpBudgetService {
                 log.error("Failed to fetch GCP budgets for billing account {}: {}", billingAccountId, e.getMessage());
                 return Collections.emptyList();
             }
-        });
+        }, executor);
     }
 
     private GcpBudgetDto mapToDto(Budget budget) {
@@ -56,8 +56,6 @@ import com.google.cloud.securitycenter.v2.SecurityCenterSettings;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 import com.google.cloud.aiplatform.v1.EndpointServiceSettings; // ✅ CORRECT
-import com.xammer.cloud.domain.CloudAccount;
-import com.xammer.cloud.repository.CloudAccountRepository;
 import com.google.cloud.aiplatform.v1.EndpointServiceClient;
 import com.google.cloud.aiplatform.v1.ModelServiceClient;
 import com.google.cloud.dataplex.v1.CatalogServiceClient;
@@ -77,7 +75,6 @@ import com.google.cloud.billing.v1.CloudBillingClient;
 import com.google.cloud.billing.v1.CloudBillingSettings;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
@@ -89,14 +86,14 @@ import java.util.Optional;
 @Slf4j
 public class GcpClientProvider {
 
-    private final CloudAccountRepository cloudAccountRepository;
+    private final GcpClientRegistry clientRegistry;
 
-    public GcpClientProvider(CloudAccountRepository cloudAccountRepository) {
-        this.cloudAccountRepository = cloudAccountRepository;
+    public GcpClientProvider(GcpClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
     }
 
     public Optional<AssetServiceClient> getAssetServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, AssetServiceClient.class, credentials -> {
             try {
                 AssetServiceSettings settings = AssetServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -109,57 +106,27 @@ public class GcpClientProvider {
         });
     }
 
-    @Cacheable(value = "gcpCredentials", key = "#gcpProjectId", unless = "#result.isEmpty()")
-    private Optional<GoogleCredentials> getCredentials(String gcpProjectId) {
-        Optional<CloudAccount> accountOpt = cloudAccountRepository.findByGcpProjectId(gcpProjectId);
-        if (accountOpt.isEmpty()) {
-            log.error("GCP account not found for project ID: {}", gcpProjectId);
-            return Optional.empty();
-        }
-        try {
-            CloudAccount account = accountOpt.get();
-            if (account.getGcpServiceAccountKey() == null || account.getGcpServiceAccountKey().isBlank()) {
-                log.error("Credentials for GCP project ID: {} are missing.", gcpProjectId);
-                return Optional.empty();
-            }
-            return Optional.of(GoogleCredentials.fromStream(
-                    new ByteArrayInputStream(account.getGcpServiceAccountKey().getBytes()))
-                    .createScoped("https://www.googleapis.com/auth/cloud-platform"));
-        } catch (IOException e) {
-            log.error("Failed to create GoogleCredentials for project ID: {}", gcpProjectId, e);
-            return Optional.empty();
-        }
+    /**
+     * Locate the billing export table for a project. Lookups are cached per tenant/project
+     * so dataset listings only happen on a cache miss.
+     */
+    public Optional<String> getBillingTableName(BigQuery bigquery, String gcpProjectId) {
+        return clientRegistry.getBillingTableName(bigquery, gcpProjectId);
+    }
+
+    public void invalidateBillingTable(String gcpProjectId) {
+        clientRegistry.invalidateBillingTable(gcpProjectId);
     }
 
     /**
-     * Get credentials for billing account access
-     * Uses the same service account key but can be used for billing account scope
-     * operations
+     * Drop every cached client and credential for a project (account re-connected or removed).
      */
-    @Cacheable(value = "gcpCredentialsByBillingAccount", key = "#billingAccountId", unless = "#result.isEmpty()")
-    private Optional<GoogleCredentials> getCredentialsByBillingAccount(String billingAccountId) {
-        Optional<CloudAccount> accountOpt = cloudAccountRepository.findByGcpBillingAccountId(billingAccountId);
-        if (accountOpt.isEmpty()) {
-            log.error("GCP account not found for billing account ID: {}", billingAccountId);
-            return Optional.empty();
-        }
-        try {
-            CloudAccount account = accountOpt.get();
-            if (account.getGcpServiceAccountKey() == null || account.getGcpServiceAccountKey().isBlank()) {
-                log.error("Credentials for billing account ID: {} are missing.", billingAccountId);
-                return Optional.empty();
-            }
-            return Optional.of(GoogleCredentials.fromStream(
-                    new ByteArrayInputStream(account.getGcpServiceAccountKey().getBytes()))
-                    .createScoped("https://www.googleapis.com/auth/cloud-platform"));
-        } catch (IOException e) {
-            log.error("Failed to create GoogleCredentials for billing account ID: {}", billingAccountId, e);
-            return Optional.empty();
-        }
+    public void evictProject(String gcpProjectId) {
+        clientRegistry.evictProject(gcpProjectId);
     }
 
     public Optional<CloudBuildClient> getCloudBuildClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, CloudBuildClient.class, credentials -> {
             try {
                 CloudBuildSettings settings = CloudBuildSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -173,7 +140,7 @@ public class GcpClientProvider {
     }
 
     public Optional<FunctionServiceClient> getFunctionServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, FunctionServiceClient.class, credentials -> {
             try {
                 FunctionServiceSettings settings = FunctionServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -187,7 +154,7 @@ public class GcpClientProvider {
     }
 
     public Optional<IAMClient> getIamClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, IAMClient.class, credentials -> {
             try {
                 IAMSettings settings = IAMSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -201,7 +168,7 @@ public class GcpClientProvider {
     }
 
     public Optional<KeyManagementServiceClient> getKeyManagementServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, KeyManagementServiceClient.class, credentials -> {
             try {
                 KeyManagementServiceSettings settings = KeyManagementServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -215,7 +182,7 @@ public class GcpClientProvider {
     }
 
     public Optional<RoutersClient> getRoutersClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, RoutersClient.class, credentials -> {
             try {
                 RoutersSettings settings = RoutersSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -229,7 +196,7 @@ public class GcpClientProvider {
     }
 
     public Optional<RoutesClient> getRoutesClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, RoutesClient.class, credentials -> {
             try {
                 RoutesSettings settings = RoutesSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -243,7 +210,7 @@ public class GcpClientProvider {
     }
 
     public Optional<SecretManagerServiceClient> getSecretManagerServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, SecretManagerServiceClient.class, credentials -> {
             try {
                 SecretManagerServiceSettings settings = SecretManagerServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -257,7 +224,7 @@ public class GcpClientProvider {
     }
 
     public Optional<SecurityPoliciesClient> getSecurityPoliciesClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, SecurityPoliciesClient.class, credentials -> {
             try {
                 SecurityPoliciesSettings settings = SecurityPoliciesSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -274,7 +241,7 @@ public class GcpClientProvider {
      * Get RecommenderClient for project scope
      */
     public Optional<RecommenderClient> getRecommenderClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, RecommenderClient.class, credentials -> {
             try {
                 RecommenderSettings settings = RecommenderSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -295,7 +262,7 @@ public class GcpClientProvider {
      * or 'recommender.billingAccountCudRecommendations.list' permission
      */
     public Optional<RecommenderClient> getRecommenderClientForBillingAccount(String billingAccountId) {
-        return getCredentialsByBillingAccount(billingAccountId).map(credentials -> {
+        return clientRegistry.getBillingAccountClient(billingAccountId, RecommenderClient.class, credentials -> {
             try {
                 RecommenderSettings settings = RecommenderSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -310,7 +277,7 @@ public class GcpClientProvider {
     }
 
     public Optional<SecurityCenterClient> getSecurityCenterV2Client(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, SecurityCenterClient.class, credentials -> {
             try {
                 SecurityCenterSettings settings = SecurityCenterSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -324,7 +291,7 @@ public class GcpClientProvider {
     }
 
     public Optional<InstancesClient> getInstancesClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, InstancesClient.class, credentials -> {
             try {
                 InstancesSettings settings = InstancesSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -338,7 +305,7 @@ public class GcpClientProvider {
     }
 
     public Optional<Storage> getStorageClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> StorageOptions.newBuilder()
+        return clientRegistry.getClient(gcpProjectId, Storage.class, credentials -> StorageOptions.newBuilder()
                 .setCredentials(credentials)
                 .setProjectId(gcpProjectId)
                 .build()
@@ -346,7 +313,7 @@ public class GcpClientProvider {
     }
 
     public Optional<BigQuery> getBigQueryClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> BigQueryOptions.newBuilder()
+        return clientRegistry.getClient(gcpProjectId, BigQuery.class, credentials -> BigQueryOptions.newBuilder()
                 .setCredentials(credentials)
                 .setProjectId(gcpProjectId)
                 .build()
@@ -354,7 +321,7 @@ public class GcpClientProvider {
     }
 
     public Optional<MetricServiceClient> getMetricServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, MetricServiceClient.class, credentials -> {
             try {
                 MetricServiceSettings settings = MetricServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -368,7 +335,7 @@ public class GcpClientProvider {
     }
 
     public Optional<NetworksClient> getNetworksClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, NetworksClient.class, credentials -> {
             try {
                 NetworksSettings settings = NetworksSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -382,7 +349,7 @@ public class GcpClientProvider {
     }
 
     public Optional<SubnetworksClient> getSubnetworksClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, SubnetworksClient.class, credentials -> {
             try {
                 SubnetworksSettings settings = SubnetworksSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -396,7 +363,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ClusterManagerClient> getClusterManagerClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ClusterManagerClient.class, credentials -> {
             try {
                 ClusterManagerSettings settings = ClusterManagerSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -410,7 +377,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ProjectsClient> getProjectsClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ProjectsClient.class, credentials -> {
             try {
                 ProjectsSettings settings = ProjectsSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -424,26 +391,22 @@ public class GcpClientProvider {
     }
 
     public Optional<SQLAdmin> getSqlAdminClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credsOpt = getCredentials(gcpProjectId);
-            if (credsOpt.isEmpty()) {
-                return Optional.empty();
+        return clientRegistry.getClient(gcpProjectId, SQLAdmin.class, credentials -> {
+            try {
+                var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+                var jsonFactory = new GsonFactory();
+
+                return new SQLAdmin.Builder(
+                        httpTransport,
+                        jsonFactory,
+                        new HttpCredentialsAdapter(credentials))
+                        .setApplicationName("xamops-app")
+                        .build();
+            } catch (GeneralSecurityException | IOException e) {
+                log.error("Failed to create SQLAdmin client for project ID: {}", gcpProjectId, e);
+                return null;
             }
-            GoogleCredentials credentials = credsOpt.get();
-            var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            var jsonFactory = new GsonFactory();
-
-            SQLAdmin sqlAdmin = new SQLAdmin.Builder(
-                    httpTransport,
-                    jsonFactory,
-                    new HttpCredentialsAdapter(credentials))
-                    .setApplicationName("xamops-app")
-                    .build();
-            return Optional.of(sqlAdmin);
-        } catch (GeneralSecurityException | IOException e) {
-            log.error("Failed to create SQLAdmin client for project ID: {}", gcpProjectId, e);
-            return Optional.empty();
-        }
+        });
     }
 
     /**
@@ -451,42 +414,24 @@ public class GcpClientProvider {
      * Uses google-cloud-billing instead of google-api-services-cloudbilling
      */
     public Optional<CloudBillingClient> getCloudBillingClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, CloudBillingClient.class, credentials -> {
             CloudBillingSettings settings = CloudBillingSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(CloudBillingClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create CloudBillingClient for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return CloudBillingClient.create(settings);
+        });
     }
 
     /**
      * Cloud Catalog client for listing services/SKUs (supports listSkus)
      */
     public Optional<CloudCatalogClient> getCloudCatalogClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, CloudCatalogClient.class, credentials -> {
             CloudCatalogSettings settings = CloudCatalogSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(CloudCatalogClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create CloudCatalogClient for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return CloudCatalogClient.create(settings);
+        });
     }
 
     /**
@@ -502,22 +447,21 @@ public class GcpClientProvider {
                 return Optional.empty();
             }
 
-            try (CloudBillingClient billingClient = billingClientOpt.get()) {
-                ProjectName projectName = ProjectName.of(gcpProjectId);
+            CloudBillingClient billingClient = billingClientOpt.get();
+            ProjectName projectName = ProjectName.of(gcpProjectId);
 
-                ProjectBillingInfo billingInfo = billingClient.getProjectBillingInfo(projectName);
+            ProjectBillingInfo billingInfo = billingClient.getProjectBillingInfo(projectName);
 
-                if (billingInfo.getBillingEnabled() && !billingInfo.getBillingAccountName().isEmpty()) {
-                    // billingAccountName format: "billingAccounts/01B1D1-936E5A-E97A8C"
-                    String billingAccountName = billingInfo.getBillingAccountName();
-                    String billingAccountId = billingAccountName.replace("billingAccounts/", "");
+            if (billingInfo.getBillingEnabled() && !billingInfo.getBillingAccountName().isEmpty()) {
+                // billingAccountName format: "billingAccounts/01B1D1-936E5A-E97A8C"
+                String billingAccountName = billingInfo.getBillingAccountName();
+                String billingAccountId = billingAccountName.replace("billingAccounts/", "");
 
-                    log.info("Retrieved billing account ID {} for project {}", billingAccountId, gcpProjectId);
-                    return Optional.of(billingAccountId);
-                } else {
-                    log.warn("Billing not enabled or no billing account for project {}", gcpProjectId);
-                    return Optional.empty();
-                }
+                log.info("Retrieved billing account ID {} for project {}", billingAccountId, gcpProjectId);
+                return Optional.of(billingAccountId);
+            } else {
+                log.warn("Billing not enabled or no billing account for project {}", gcpProjectId);
+                return Optional.empty();
             }
         } catch (Exception e) {
             log.error("Failed to get billing account ID for project {}", gcpProjectId, e);
@@ -538,25 +482,23 @@ public class GcpClientProvider {
     }
 
     public Optional<Dns> getDnsZonesClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credsOpt = getCredentials(gcpProjectId);
-            if (credsOpt.isEmpty())
-                return Optional.empty();
-            GoogleCredentials credentials = credsOpt.get().createScoped(DnsScopes.all());
-            var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            var jsonFactory = new GsonFactory();
-            Dns dns = new Dns.Builder(httpTransport, jsonFactory, new HttpCredentialsAdapter(credentials))
-                    .setApplicationName("xamops-app")
-                    .build();
-            return Optional.of(dns);
-        } catch (Exception e) {
-            log.error("Failed to create Dns client for project ID: {}", gcpProjectId, e);
-            return Optional.empty();
-        }
+        return clientRegistry.getClient(gcpProjectId, Dns.class, credentials -> {
+            try {
+                var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+                var jsonFactory = new GsonFactory();
+                return new Dns.Builder(httpTransport, jsonFactory,
+                        new HttpCredentialsAdapter(credentials.createScoped(DnsScopes.all())))
+                        .setApplicationName("xamops-app")
+                        .build();
+            } catch (Exception e) {
+                log.error("Failed to create Dns client for project ID: {}", gcpProjectId, e);
+                return null;
+            }
+        });
     }
 
     public Optional<BudgetServiceClient> getBudgetServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, BudgetServiceClient.class, credentials -> {
             try {
                 BudgetServiceSettings settings = BudgetServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -570,7 +512,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ForwardingRulesClient> getForwardingRulesClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ForwardingRulesClient.class, credentials -> {
             try {
                 ForwardingRulesSettings settings = ForwardingRulesSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -584,7 +526,7 @@ public class GcpClientProvider {
     }
 
     public Optional<FirewallsClient> getFirewallsClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, FirewallsClient.class, credentials -> {
             try {
                 FirewallsSettings settings = FirewallsSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -598,7 +540,7 @@ public class GcpClientProvider {
     }
 
     public Optional<DisksClient> getDisksClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, DisksClient.class, credentials -> {
             try {
                 DisksSettings settings = DisksSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -612,7 +554,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ImagesClient> getImagesClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ImagesClient.class, credentials -> {
             try {
                 ImagesSettings settings = ImagesSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -626,7 +568,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ApiGatewayServiceClient> getApiGatewayServiceClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ApiGatewayServiceClient.class, credentials -> {
             try {
                 ApiGatewayServiceSettings settings = ApiGatewayServiceSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -640,7 +582,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ServicesClient> getAppEngineServicesClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ServicesClient.class, credentials -> {
             try {
                 ServicesSettings settings = ServicesSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -654,7 +596,7 @@ public class GcpClientProvider {
     }
 
     public Optional<ConfigClient> getConfigClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, ConfigClient.class, credentials -> {
             try {
                 ConfigSettings settings = ConfigSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -668,7 +610,7 @@ public class GcpClientProvider {
     }
 
     public Optional<RegionCommitmentsClient> getRegionCommitmentsClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, RegionCommitmentsClient.class, credentials -> {
             try {
                 RegionCommitmentsSettings settings = RegionCommitmentsSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -683,206 +625,106 @@ public class GcpClientProvider {
 
     // Vertex AI Model Service Client
     public Optional<ModelServiceClient> getVertexAIModelClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, ModelServiceClient.class, credentials -> {
             ModelServiceSettings settings = ModelServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(ModelServiceClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Vertex AI Model client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return ModelServiceClient.create(settings);
+        });
     }
 
     // Vertex AI Endpoint Service Client
     public Optional<EndpointServiceClient> getVertexAIEndpointClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, EndpointServiceClient.class, credentials -> {
             EndpointServiceSettings settings = EndpointServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(EndpointServiceClient.create());
-        } catch (Exception e) {
-            log.error("Failed to create Vertex AI Endpoint client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return EndpointServiceClient.create(settings);
+        });
     }
 
     // Cloud Pub/Sub Topic Client
     public Optional<TopicAdminClient> getPubSubTopicClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, TopicAdminClient.class, credentials -> {
             TopicAdminSettings settings = TopicAdminSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(TopicAdminClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Pub/Sub Topic client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return TopicAdminClient.create(settings);
+        });
     }
 
     // Cloud Pub/Sub Subscription Client
     public Optional<SubscriptionAdminClient> getPubSubSubscriptionClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, SubscriptionAdminClient.class, credentials -> {
             SubscriptionAdminSettings settings = SubscriptionAdminSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(SubscriptionAdminClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Pub/Sub Subscription client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return SubscriptionAdminClient.create(settings);
+        });
     }
 
     // Cloud Monitoring Alert Policy Client
     public Optional<AlertPolicyServiceClient> getMonitoringAlertClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, AlertPolicyServiceClient.class, credentials -> {
             AlertPolicyServiceSettings settings = AlertPolicyServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(AlertPolicyServiceClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Monitoring Alert client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return AlertPolicyServiceClient.create(settings);
+        });
     }
 
     // Cloud Monitoring Uptime Check Client
     public Optional<UptimeCheckServiceClient> getMonitoringUptimeClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, UptimeCheckServiceClient.class, credentials -> {
             UptimeCheckServiceSettings settings = UptimeCheckServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(UptimeCheckServiceClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Monitoring Uptime client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return UptimeCheckServiceClient.create(settings);
+        });
     }
 
     // Dataplex Service Client
     public Optional<DataplexServiceClient> getDataplexClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, DataplexServiceClient.class, credentials -> {
             DataplexServiceSettings settings = DataplexServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(DataplexServiceClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Dataplex client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return DataplexServiceClient.create(settings);
+        });
     }
 
     // Cloud Scheduler Client
     public Optional<CloudSchedulerClient> getSchedulerClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, CloudSchedulerClient.class, credentials -> {
             CloudSchedulerSettings settings = CloudSchedulerSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(CloudSchedulerClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create Cloud Scheduler client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return CloudSchedulerClient.create(settings);
+        });
     }
 
     // VM Manager (OS Config) Client
     public Optional<OsConfigServiceClient> getOsConfigClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, OsConfigServiceClient.class, credentials -> {
             OsConfigServiceSettings settings = OsConfigServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(OsConfigServiceClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create OS Config client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return OsConfigServiceClient.create(settings);
+        });
     }
 
     // BigQuery Reservation Client
     public Optional<ReservationServiceClient> getBigQueryReservationClient(String gcpProjectId) {
-        try {
-            Optional<GoogleCredentials> credentialsOpt = getCredentials(gcpProjectId);
-            if (credentialsOpt.isEmpty()) {
-                log.error("No credentials available for project {}", gcpProjectId);
-                return Optional.empty();
-            }
-
-            GoogleCredentials credentials = credentialsOpt.get();
+        return clientRegistry.getClient(gcpProjectId, ReservationServiceClient.class, credentials -> {
             ReservationServiceSettings settings = ReservationServiceSettings.newBuilder()
                     .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
                     .build();
-            return Optional.of(ReservationServiceClient.create(settings));
-        } catch (Exception e) {
-            log.error("Failed to create BigQuery Reservation client for project {}: {}", gcpProjectId, e.getMessage());
-            return Optional.empty();
-        }
+            return ReservationServiceClient.create(settings);
+        });
     }
 
     public Optional<RegionsClient> getRegionsClient(String gcpProjectId) {
-        return getCredentials(gcpProjectId).map(credentials -> {
+        return clientRegistry.getClient(gcpProjectId, RegionsClient.class, credentials -> {
             try {
                 RegionsSettings settings = RegionsSettings.newBuilder()
                         .setCredentialsProvider(() -> credentials)
@@ -0,0 +1,401 @@
+package com.xammer.cloud.service.gcp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.Dataset;
+import com.google.cloud.bigquery.Table;
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.repository.CloudAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tenant-aware cache of GCP credentials, API clients and billing export table locations.
+ *
+ * Credentials are parsed once per (tenant, project) and re-read from the database after
+ * {@code gcp.clients.credentials-ttl-minutes}; if the service account key changed in the
+ * meantime every client built from the old key is evicted. Clients are shared per
+ * (tenant, project, client type), expire after {@code gcp.clients.idle-expiry-minutes}
+ * without use and are closed {@code gcp.clients.close-delay-seconds} after eviction, so
+ * callers must not close them. Callers hold no lease on a client, so the delay is what lets
+ * calls already in flight on an evicted client finish before its channel is shut down.
+ */
+@Component
+@Slf4j
+public class GcpClientRegistry {
+
+    private static final String CLOUD_PLATFORM_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
+    private static final String DEFAULT_TENANT = "default";
+
+    enum Scope {
+        PROJECT, BILLING_ACCOUNT
+    }
+
+    /**
+     * Builds a client from resolved credentials. Returning null (or throwing) means the
+     * client could not be created; nothing is cached in that case.
+     */
+    @FunctionalInterface
+    public interface ClientFactory<T> {
+        T create(GoogleCredentials credentials) throws Exception;
+    }
+
+    private static final class CredentialKey {
+        private final String tenant;
+        private final Scope scope;
+        private final String id;
+
+        private CredentialKey(String tenant, Scope scope, String id) {
+            this.tenant = tenant;
+            this.scope = scope;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CredentialKey)) return false;
+            CredentialKey that = (CredentialKey) o;
+            return tenant.equals(that.tenant) && scope == that.scope && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, scope, id);
+        }
+    }
+
+    private static final class ClientKey {
+        private final CredentialKey owner;
+        private final Class<?> type;
+
+        private ClientKey(CredentialKey owner, Class<?> type) {
+            this.owner = owner;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClientKey)) return false;
+            ClientKey that = (ClientKey) o;
+            return owner.equals(that.owner) && type.equals(that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(owner, type);
+        }
+    }
+
+    private static final class IdentityKey {
+        private final Object value;
+
+        private IdentityKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+
+    private static final class BillingTableEntry {
+        private final String tableName;
+        private final Instant expiresAt;
+
+        private BillingTableEntry(String tableName, Instant expiresAt) {
+            this.tableName = tableName;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final CloudAccountRepository cloudAccountRepository;
+    private final Cache<CredentialKey, GoogleCredentials> credentials;
+    private final Cache<ClientKey, Object> clients;
+    private final Map<CredentialKey, String> lastFingerprints = new ConcurrentHashMap<>();
+    private final Map<CredentialKey, BillingTableEntry> billingTables = new ConcurrentHashMap<>();
+    // Evicted clients waiting out the close delay, keyed by identity
+    private final Map<IdentityKey, ClientKey> retiring = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService closer;
+    private final long closeDelaySeconds;
+    private final Counter clientCreations;
+    private final Counter billingTableScans;
+
+    @Value("${gcp.billing.export-table-name:}")
+    private String billingExportTableName;
+
+    @Value("${gcp.billing.table-cache-hours:24}")
+    private long billingTableCacheHours;
+
+    // A project without an export table is re-scanned at most this often
+    @Value("${gcp.billing.table-negative-cache-minutes:15}")
+    private long billingTableNegativeCacheMinutes;
+
+    public GcpClientRegistry(CloudAccountRepository cloudAccountRepository,
+                             MeterRegistry meterRegistry,
+                             ThreadGovernor threadGovernor,
+                             @Value("${gcp.clients.credentials-ttl-minutes:15}") long credentialsTtlMinutes,
+                             @Value("${gcp.clients.idle-expiry-minutes:30}") long idleExpiryMinutes,
+                             @Value("${gcp.clients.max-size:2000}") long maxClients,
+                             @Value("${gcp.clients.close-delay-seconds:600}") long closeDelaySeconds) {
+        this.cloudAccountRepository = cloudAccountRepository;
+        this.closeDelaySeconds = closeDelaySeconds;
+        this.closer = threadGovernor.newScheduledExecutor("gcp-client-closer", 1);
+        this.credentials = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(credentialsTtlMinutes))
+                .build();
+        this.clients = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+                .maximumSize(maxClients)
+                .<ClientKey, Object>removalListener(this::retireClient)
+                .build();
+        this.clientCreations = Counter.builder("xamops.gcp.clients.created")
+                .description("GCP API clients constructed by the client registry")
+                .register(meterRegistry);
+        this.billingTableScans = Counter.builder("xamops.gcp.billing.table.scans")
+                .description("Dataset/table listings performed to discover billing export tables")
+                .register(meterRegistry);
+    }
+
+    // ===== CREDENTIALS =====
+
+    public Optional<GoogleCredentials> getCredentials(String gcpProjectId) {
+        return resolveCredentials(key(Scope.PROJECT, gcpProjectId));
+    }
+
+    public Optional<GoogleCredentials> getCredentialsByBillingAccount(String billingAccountId) {
+        return resolveCredentials(key(Scope.BILLING_ACCOUNT, billingAccountId));
+    }
+
+    private Optional<GoogleCredentials> resolveCredentials(CredentialKey key) {
+        if (key.id == null) return Optional.empty();
+        return Optional.ofNullable(credentials.get(key, this::loadCredentials));
+    }
+
+    private GoogleCredentials loadCredentials(CredentialKey key) {
+        Optional<CloudAccount> accountOpt = key.scope == Scope.PROJECT
+                ? cloudAccountRepository.findByGcpProjectId(key.id)
+                : cloudAccountRepository.findByGcpBillingAccountId(key.id);
+        if (accountOpt.isEmpty()) {
+            log.error("GCP account not found for {} ID: {}", describe(key.scope), key.id);
+            return null;
+        }
+
+        String serviceAccountKey = accountOpt.get().getGcpServiceAccountKey();
+        if (serviceAccountKey == null || serviceAccountKey.isBlank()) {
+            log.error("Credentials for {} ID: {} are missing.", describe(key.scope), key.id);
+            return null;
+        }
+
+        try {
+            GoogleCredentials googleCredentials = GoogleCredentials.fromStream(
+                            new ByteArrayInputStream(serviceAccountKey.getBytes(StandardCharsets.UTF_8)))
+                    .createScoped(CLOUD_PLATFORM_SCOPE);
+            String fingerprint = fingerprint(serviceAccountKey);
+
+            // Key rotated since the clients were built - drop them so they pick up the new key
+            String previous = lastFingerprints.put(key, fingerprint);
+            if (previous != null && !previous.equals(fingerprint)) {
+                log.info("Service account key changed for {} {} - evicting cached GCP clients", describe(key.scope), key.id);
+                evictClients(key);
+            }
+            return googleCredentials;
+        } catch (Exception e) {
+            log.error("Failed to create GoogleCredentials for {} ID: {}", describe(key.scope), key.id, e);
+            return null;
+        }
+    }
+
+    // ===== CLIENTS =====
+
+    public <T> Optional<T> getClient(String gcpProjectId, Class<T> type, ClientFactory<T> factory) {
+        return getClient(key(Scope.PROJECT, gcpProjectId), type, factory);
+    }
+
+    public <T> Optional<T> getBillingAccountClient(String billingAccountId, Class<T> type, ClientFactory<T> factory) {
+        return getClient(key(Scope.BILLING_ACCOUNT, billingAccountId), type, factory);
+    }
+
+    private <T> Optional<T> getClient(CredentialKey owner, Class<T> type, ClientFactory<T> factory) {
+        Optional<GoogleCredentials> ownerCredentials = resolveCredentials(owner);
+        if (ownerCredentials.isEmpty()) return Optional.empty();
+
+        Object client = clients.get(new ClientKey(owner, type), k -> {
+            try {
+                Object created = factory.create(ownerCredentials.get());
+                if (created != null) {
+                    clientCreations.increment();
+                }
+                return created;
+            } catch (Exception e) {
+                log.error("Failed to create {} for {} ID: {}", type.getSimpleName(), describe(owner.scope), owner.id, e);
+                return null;
+            }
+        });
+        return Optional.ofNullable(type.cast(client));
+    }
+
+    /**
+     * Drops credentials, clients and the billing table location of a project, e.g. after the
+     * account was re-connected or removed.
+     */
+    public void evictProject(String gcpProjectId) {
+        CredentialKey key = key(Scope.PROJECT, gcpProjectId);
+        credentials.invalidate(key);
+        lastFingerprints.remove(key);
+        billingTables.remove(key);
+        evictClients(key);
+    }
+
+    private void evictClients(CredentialKey owner) {
+        clients.asMap().keySet().removeIf(clientKey -> clientKey.owner.equals(owner));
+    }
+
+    private void retireClient(ClientKey key, Object client, RemovalCause cause) {
+        if (!(client instanceof AutoCloseable)) return;
+        if (closeDelaySeconds <= 0 || closer.isShutdown()) {
+            closeClient(key, client, cause);
+            return;
+        }
+        retiring.put(new IdentityKey(client), key);
+        try {
+            closer.schedule(() -> {
+                if (retiring.remove(new IdentityKey(client)) != null) {
+                    closeClient(key, client, cause);
+                }
+            }, closeDelaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; shutdown() closes whatever is still retiring
+        }
+    }
+
+    private void closeClient(ClientKey key, Object client, RemovalCause cause) {
+        if (client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+                log.debug("Closed {} for {} ({})", key.type.getSimpleName(), key.owner.id, cause);
+            } catch (Exception e) {
+                log.warn("Failed to close {} for {}: {}", key.type.getSimpleName(), key.owner.id, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closer.shutdownNow();
+        clients.invalidateAll();
+        clients.cleanUp();
+        // Nothing is in flight any more, so clients still waiting out the delay are closed now
+        retiring.forEach((client, key) -> {
+            if (retiring.remove(client) != null) {
+                closeClient(key, client.value, RemovalCause.EXPLICIT);
+            }
+        });
+    }
+
+    // ===== BILLING EXPORT TABLE =====
+
+    /**
+     * Locates the billing export table for a project: the global override, then the table
+     * configured on the account, then a scan of the project's datasets. Results (including
+     * "not found") are cached; call {@link #invalidateBillingTable} when a query reports the
+     * table missing so the next lookup re-discovers it.
+     */
+    public Optional<String> getBillingTableName(BigQuery bigquery, String gcpProjectId) {
+        if (billingExportTableName != null && !billingExportTableName.isBlank())
+            return Optional.of(billingExportTableName);
+
+        CredentialKey key = key(Scope.PROJECT, gcpProjectId);
+        BillingTableEntry cached = billingTables.get(key);
+        if (cached != null && cached.expiresAt.isAfter(Instant.now())) {
+            return Optional.ofNullable(cached.tableName);
+        }
+
+        String tableName = cloudAccountRepository.findByGcpProjectId(gcpProjectId)
+                .map(CloudAccount::getBillingExportTable)
+                .filter(name -> !name.isBlank())
+                .orElseGet(() -> discoverBillingTable(bigquery, gcpProjectId));
+
+        Duration ttl = tableName != null
+                ? Duration.ofHours(billingTableCacheHours)
+                : Duration.ofMinutes(billingTableNegativeCacheMinutes);
+        billingTables.put(key, new BillingTableEntry(tableName, Instant.now().plus(ttl)));
+
+        if (tableName == null) {
+            log.warn("Could not find a GCP billing export table for project {}. Please configure gcp.billing.export-table-name.", gcpProjectId);
+        }
+        return Optional.ofNullable(tableName);
+    }
+
+    public void invalidateBillingTable(String gcpProjectId) {
+        billingTables.remove(key(Scope.PROJECT, gcpProjectId));
+    }
+
+    private String discoverBillingTable(BigQuery bigquery, String gcpProjectId) {
+        billingTableScans.increment();
+        try {
+            for (Dataset dataset : bigquery.listDatasets(gcpProjectId).iterateAll()) {
+                for (Table table : bigquery.listTables(dataset.getDatasetId()).iterateAll()) {
+                    if (table.getTableId().getTable().startsWith("gcp_billing_export_v1")) {
+                        String fullName = String.format("%s.%s.%s",
+                                table.getTableId().getProject(),
+                                table.getTableId().getDataset(),
+                                table.getTableId().getTable());
+                        log.info("Dynamically found billing table: {}", fullName);
+                        return fullName;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to discover BigQuery billing table for project {}: {}", gcpProjectId, e.getMessage());
+        }
+        return null;
+    }
+
+    // ===== HELPERS =====
+
+    private static CredentialKey key(Scope scope, String id) {
+        String tenant = TenantContext.getCurrentTenant();
+        return new CredentialKey(tenant != null ? tenant : DEFAULT_TENANT, scope, id);
+    }
+
+    private static String describe(Scope scope) {
+        return scope == Scope.PROJECT ? "project" : "billing account";
+    }
+
+    private static String fingerprint(String serviceAccountKey) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(serviceAccountKey.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+}
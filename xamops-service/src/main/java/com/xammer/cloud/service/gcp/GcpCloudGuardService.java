@@ -26,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -41,6 +42,9 @@ public class GcpCloudGuardService {
     private final GcpCostService gcpCostService;
     private final GcpSecurityService gcpSecurityService;
     private final EmailService emailService;
+    private final Executor computeExecutor;
+    private final Executor bigQueryExecutor;
+    private final Executor generalExecutor;
 
     // Define Quota details
     private static final String NETWORK_QUOTA_NAME = "NETWORKS";
@@ -54,7 +58,8 @@ public class GcpCloudGuardService {
             GcpDataService gcpDataService,
             GcpCostService gcpCostService,
             GcpSecurityService gcpSecurityService,
-            EmailService emailService
+            EmailService emailService,
+            GcpWorkloadScheduler workloadScheduler
     ) {
         this.cloudAccountRepository = cloudAccountRepository;
         this.gcpClientProvider = gcpClientProvider;
@@ -63,6 +68,10 @@ public class GcpCloudGuardService {
         this.gcpCostService = gcpCostService;
         this.gcpSecurityService = gcpSecurityService;
         this.emailService = emailService;
+        this.computeExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.COMPUTE);
+        // The alert checks are single API calls, so each runs on its API family's pool
+        this.bigQueryExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.BIGQUERY);
+        this.generalExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
     }
 
     private CloudAccount getAccount(String accountId) {
@@ -160,27 +169,26 @@ public class GcpCloudGuardService {
                     return alerts;
                 }
                 double networkLimit = 0;
-                try (RegionsClient regionsClient = regionsClientOpt.get()) {
-                    // Need a valid region to query project-wide quotas
-                    String sampleRegion = gcpDataService.getAllKnownRegions().stream().findFirst().orElse("us-central1");
+                RegionsClient regionsClient = regionsClientOpt.get();
+                // Need a valid region to query project-wide quotas
+                String sampleRegion = gcpDataService.getAllKnownRegions().stream().findFirst().orElse("us-central1");
 
-                    // --- FIX: Build GetRegionRequest ---
-                    GetRegionRequest regionRequest = GetRegionRequest.newBuilder()
-                            .setProject(gcpProjectId)
-                            .setRegion(sampleRegion)
-                            .build();
-                    Region regionInfo = regionsClient.get(regionRequest); // Use the request object
-                    // --- END FIX ---
+                // --- FIX: Build GetRegionRequest ---
+                GetRegionRequest regionRequest = GetRegionRequest.newBuilder()
+                        .setProject(gcpProjectId)
+                        .setRegion(sampleRegion)
+                        .build();
+                Region regionInfo = regionsClient.get(regionRequest); // Use the request object
+                // --- END FIX ---
 
-                    Optional<Quota> networkQuotaOpt = regionInfo.getQuotasList().stream()
-                            .filter(q -> NETWORK_QUOTA_NAME.equals(q.getMetric()))
-                            .findFirst();
-                    if (networkQuotaOpt.isPresent()) {
-                        networkLimit = networkQuotaOpt.get().getLimit();
-                    } else {
-                        log.warn("Could not find '{}' quota for project {}. Using default limit.", NETWORK_QUOTA_NAME, gcpProjectId);
-                        networkLimit = 5; // Default VPC limit
-                    }
+                Optional<Quota> networkQuotaOpt = regionInfo.getQuotasList().stream()
+                        .filter(q -> NETWORK_QUOTA_NAME.equals(q.getMetric()))
+                        .findFirst();
+                if (networkQuotaOpt.isPresent()) {
+                    networkLimit = networkQuotaOpt.get().getLimit();
+                } else {
+                    log.warn("Could not find '{}' quota for project {}. Using default limit.", NETWORK_QUOTA_NAME, gcpProjectId);
+                    networkLimit = 5; // Default VPC limit
                 }
 
                 // 2. Get Current Network Count
@@ -190,11 +198,10 @@ public class GcpCloudGuardService {
                     return alerts;
                 }
                 double networkUsage = 0;
-                try (NetworksClient networksClient = networksClientOpt.get()) {
-                    networkUsage = StreamSupport.stream(
-                                    networksClient.list(gcpProjectId).iterateAll().spliterator(), false)
-                            .count();
-                }
+                NetworksClient networksClient = networksClientOpt.get();
+                networkUsage = StreamSupport.stream(
+                                networksClient.list(gcpProjectId).iterateAll().spliterator(), false)
+                        .count();
 
                 // 3. Compare and Create Alert
                 if (networkLimit > 0) {
@@ -220,7 +227,7 @@ public class GcpCloudGuardService {
                 log.error("Error checking GCP quotas for project {}: {}", gcpProjectId, e.getMessage(), e);
             }
             return alerts;
-        });
+        }, computeExecutor);
     }
 
 
@@ -256,7 +263,7 @@ public class GcpCloudGuardService {
                 log.error("Error checking GCP cost anomalies for project {}: {}", gcpProjectId, e.getMessage(), e);
             }
             return alerts;
-        });
+        }, bigQueryExecutor);
     }
 
     private CompletableFuture<List<AlertDto>> checkSecurityFindings(CloudAccount account) {
@@ -298,7 +305,7 @@ public class GcpCloudGuardService {
                 log.error("Error checking GCP security findings for project {}: {}", gcpProjectId, e.getMessage(), e);
             }
             return alerts;
-        });
+        }, generalExecutor);
     }
 
     private String determineQuotaStatus(double usage, double limit) {
@@ -6,15 +6,15 @@ import com.xammer.cloud.dto.DetailedCostDto; // <-- NEW IMPORT
 import com.xammer.cloud.dto.gcp.GcpCostDto;
 import com.xammer.cloud.service.RedisCacheService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -24,10 +24,8 @@ public class GcpCostService {
 
     private final GcpClientProvider gcpClientProvider;
     private final RedisCacheService redisCacheService;
-    private final ExecutorService executor = Executors.newCachedThreadPool();
-
-    @Value("${gcp.billing.export-table-name:}")
-    private String billingExportTableName;
+    private final GcpBillingAggregateService billingAggregateService;
+    private final Executor executor;
 
     // Cache key prefixes
     private static final String COST_BY_TAG_CACHE_PREFIX = "gcp:cost-by-tag:";
@@ -41,9 +39,13 @@ public class GcpCostService {
     private static final String COST_BY_SERVICE_REGION_CACHE_PREFIX = "gcp:cost-by-service-region:";
 
 
-    public GcpCostService(GcpClientProvider gcpClientProvider, RedisCacheService redisCacheService) {
+    public GcpCostService(GcpClientProvider gcpClientProvider, RedisCacheService redisCacheService,
+                          GcpBillingAggregateService billingAggregateService,
+                          GcpWorkloadScheduler workloadScheduler) {
         this.gcpClientProvider = gcpClientProvider;
         this.redisCacheService = redisCacheService;
+        this.billingAggregateService = billingAggregateService;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.BIGQUERY);
     }
 
     // --- NEW METHOD FOR DETAILED REPORTING ---
@@ -62,6 +64,20 @@ public class GcpCostService {
 
         log.info("🔍 Fetching cost by service/region for project {} from {} to {}", gcpProjectId, startDate, endDate);
 
+        if (isCoveredByAggregate(gcpProjectId, startDate)) {
+            List<DetailedCostDto> resultList = billingAggregateService.getCostByServiceAndRegion(gcpProjectId, startDate, endDate).stream()
+                    .filter(dto -> dto.getCost() > 0.01)
+                    .map(dto -> new DetailedCostDto(
+                            dto.getService() == null ? "Uncategorized" : dto.getService(),
+                            dto.getRegion() == null ? "Global" : dto.getRegion(),
+                            dto.getCost()))
+                    .sorted(Comparator.comparingDouble(DetailedCostDto::getCost).reversed())
+                    .collect(Collectors.toList());
+            redisCacheService.put(cacheKey, resultList, 60 * 6); // Cache for 6 hours
+            return resultList;
+        }
+
+        // Range predates the local aggregate - query the export directly
         Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
         if (bqOpt.isEmpty()) return Collections.emptyList();
 
@@ -133,7 +149,7 @@ public class GcpCostService {
         Optional<String> tableNameOpt = getBillingTableName(bigquery, gcpProjectId);
         if (tableNameOpt.isEmpty()) return Collections.emptyList();
 
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
         LocalDate startDate = today.withDayOfMonth(1);
         String query = String.format(
                 "SELECT l.value as name, SUM(cost) as total_cost, false as is_anomaly " +
@@ -167,33 +183,12 @@ public class GcpCostService {
 
         log.info("🔍 Fetching MTD spend for project {}", gcpProjectId);
 
-        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
-        if (bqOpt.isEmpty()) return 0.0;
-
-        BigQuery bigquery = bqOpt.get();
-        Optional<String> tableNameOpt = getBillingTableName(bigquery, gcpProjectId);
-        if (tableNameOpt.isEmpty()) return 0.0;
-
-        LocalDate today = LocalDate.now();
-        LocalDate startDate = today.withDayOfMonth(1);
-        String query = String.format(
-                "SELECT SUM(cost) as total_cost FROM `%s` WHERE DATE(usage_start_time) >= '%s' AND DATE(usage_start_time) <= '%s'",
-                tableNameOpt.get(),
-                startDate.format(DateTimeFormatter.ISO_LOCAL_DATE),
-                today.format(DateTimeFormatter.ISO_LOCAL_DATE)
-        );
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return 0.0;
 
-        try {
-            TableResult results = bigquery.query(QueryJobConfiguration.newBuilder(query).build());
-            FieldValue value = results.getValues().iterator().next().get("total_cost");
-            Double result = value.isNull() ? 0.0 : value.getDoubleValue();
-            redisCacheService.put(cacheKey, result, 10);
-            return result;
-        } catch (Exception e) {
-            log.error("BigQuery query failed for MTD spend on project {}: {}", gcpProjectId, e.getMessage(), e);
-            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-            return 0.0;
-        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Double result = billingAggregateService.getTotalCost(gcpProjectId, today.withDayOfMonth(1), today);
+        redisCacheService.put(cacheKey, result, 10);
+        return result;
     }
 
     // ===== BILLING SUMMARY =====
@@ -217,13 +212,12 @@ public class GcpCostService {
 
         log.info("🔍 Fetching billing summary for project {}", gcpProjectId);
 
-        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
-        if (bqOpt.isEmpty()) return Collections.emptyList();
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return Collections.emptyList();
 
-        LocalDate endDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now(ZoneOffset.UTC);
         LocalDate startDate = endDate.withDayOfMonth(1);
 
-        List<GcpCostDto> result = queryCostData(bqOpt.get(), gcpProjectId, "service.description", startDate, endDate);
+        List<GcpCostDto> result = aggregateCostData(gcpProjectId, GcpBillingAggregateService.Dimension.SERVICE, startDate, endDate);
         redisCacheService.put(cacheKey, result, 10);
         return result;
     }
@@ -249,25 +243,24 @@ public class GcpCostService {
 
         log.info("🔍 Fetching historical costs for project {}", gcpProjectId);
 
-        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
-        if (bqOpt.isEmpty()) return Collections.emptyList();
-
-        BigQuery bigquery = bqOpt.get();
-        Optional<String> tableNameOpt = getBillingTableName(bigquery, gcpProjectId);
-        if (tableNameOpt.isEmpty()) return Collections.emptyList();
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return Collections.emptyList();
 
-        LocalDate today = LocalDate.now();
-        String endDate = today.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String startDate = today.minusMonths(6).withDayOfMonth(1).format(DateTimeFormatter.ISO_LOCAL_DATE);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate startDate = today.minusMonths(6).withDayOfMonth(1);
 
-        String query = String.format(
-                "WITH MonthlyCosts AS (SELECT FORMAT_DATE('%%%%Y-%%%%m', usage_start_time) as name, SUM(cost) as total_cost FROM `%s` WHERE DATE(usage_start_time) >= '%s' AND DATE(usage_start_time) <= '%s' GROUP BY 1), " +
-                        "MonthlyCostsWithLag AS (SELECT name, total_cost, LAG(total_cost, 1, 0) OVER (ORDER BY name) as prev_month_cost FROM MonthlyCosts) " +
-                        "SELECT name, total_cost, (total_cost > prev_month_cost * 1.2 AND prev_month_cost > 10) as is_anomaly FROM MonthlyCostsWithLag ORDER BY name",
-                tableNameOpt.get(), startDate, endDate
-        );
+        SortedMap<YearMonth, Double> monthlyCosts = new TreeMap<>();
+        billingAggregateService.getDailyCost(gcpProjectId, null, startDate, today)
+                .forEach((date, cost) -> monthlyCosts.merge(YearMonth.from(date), cost, Double::sum));
 
-        List<GcpCostDto> result = executeQuery(bigquery, query, gcpProjectId);
+        // Month-over-month jump of more than 20% on a non-trivial base is flagged as an anomaly
+        List<GcpCostDto> result = new ArrayList<>();
+        double prevMonthCost = 0.0;
+        for (Map.Entry<YearMonth, Double> entry : monthlyCosts.entrySet()) {
+            double totalCost = entry.getValue();
+            boolean isAnomaly = totalCost > prevMonthCost * 1.2 && prevMonthCost > 10;
+            result.add(new GcpCostDto(entry.getKey().format(DateTimeFormatter.ofPattern("yyyy-MM")), totalCost, isAnomaly));
+            prevMonthCost = totalCost;
+        }
         redisCacheService.put(cacheKey, result, 10);
         return result;
     }
@@ -293,13 +286,12 @@ public class GcpCostService {
 
         log.info("🔍 Fetching cost by region for project {}", gcpProjectId);
 
-        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
-        if (bqOpt.isEmpty()) return Collections.emptyList();
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return Collections.emptyList();
 
-        LocalDate endDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now(ZoneOffset.UTC);
         LocalDate startDate = endDate.withDayOfMonth(1);
 
-        List<GcpCostDto> result = queryCostData(bqOpt.get(), gcpProjectId, "location.region", startDate, endDate);
+        List<GcpCostDto> result = aggregateCostData(gcpProjectId, GcpBillingAggregateService.Dimension.REGION, startDate, endDate);
         redisCacheService.put(cacheKey, result, 10);
         return result;
     }
@@ -325,42 +317,24 @@ public class GcpCostService {
 
         log.info("🔍 Fetching daily costs forecast for project {}", gcpProjectId);
 
-        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
-        if (bqOpt.isEmpty()) return Collections.emptyList();
-
-        BigQuery bigquery = bqOpt.get();
-        Optional<String> tableNameOpt = getBillingTableName(bigquery, gcpProjectId);
-        if (tableNameOpt.isEmpty()) return Collections.emptyList();
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return Collections.emptyList();
 
-        LocalDate endDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now(ZoneOffset.UTC);
         LocalDate startDate = endDate.minusDays(days);
 
         String serviceFilter = (serviceName != null && !serviceName.isEmpty() && !"ALL".equalsIgnoreCase(serviceName))
-                ? String.format("AND service.description = '%s'", serviceName)
-                : "";
-
-        String query = String.format(
-                "SELECT FORMAT_DATE('%%%%Y-%%%%m-%%%%d', usage_start_time) as date, SUM(cost) as cost FROM `%s` WHERE DATE(usage_start_time) >= '%s' AND DATE(usage_start_time) < '%s' %s GROUP BY 1 ORDER BY 1",
-                tableNameOpt.get(),
-                startDate.toString(),
-                endDate.toString(),
-                serviceFilter
-        );
-
-        try {
-            TableResult results = bigquery.query(QueryJobConfiguration.newBuilder(query).build());
-            List<Map<String, Object>> result = StreamSupport.stream(results.iterateAll().spliterator(), false)
-                    .map(row -> Map.<String, Object>of("date", row.get("date").getStringValue(), "cost", row.get("cost").getDoubleValue()))
-                    .collect(Collectors.toList());
-            redisCacheService.put(cacheKey, result, 10);
-            return result;
-        } catch (Exception e) {
-            log.error("Error fetching daily GCP costs for forecast", e);
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
-            return Collections.emptyList();
-        }
+                ? serviceName
+                : null;
+
+        // Closed days only - today's partial day would drag the forecast down
+        List<Map<String, Object>> result = billingAggregateService.getDailyCost(gcpProjectId, serviceFilter, startDate, endDate.minusDays(1))
+                .entrySet().stream()
+                .map(entry -> Map.<String, Object>of(
+                        "date", entry.getKey().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                        "cost", entry.getValue()))
+                .collect(Collectors.toList());
+        redisCacheService.put(cacheKey, result, 10);
+        return result;
     }
 
     // ===== COST BREAKDOWN =====
@@ -384,20 +358,19 @@ public class GcpCostService {
 
         log.info("🔍 Fetching cost breakdown for project {} / groupBy {}", gcpProjectId, groupBy);
 
-        Optional<BigQuery> bqOpt = gcpClientProvider.getBigQueryClient(gcpProjectId);
-        if (bqOpt.isEmpty()) return Collections.emptyList();
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return Collections.emptyList();
 
-        String dimension = "service.description";
+        GcpBillingAggregateService.Dimension dimension = GcpBillingAggregateService.Dimension.SERVICE;
         if ("REGION".equalsIgnoreCase(groupBy)) {
-            dimension = "location.region";
+            dimension = GcpBillingAggregateService.Dimension.REGION;
         } else if ("PROJECT".equalsIgnoreCase(groupBy)) {
-            dimension = "project.name";
+            dimension = GcpBillingAggregateService.Dimension.PROJECT;
         }
 
-        LocalDate endDate = LocalDate.now();
+        LocalDate endDate = LocalDate.now(ZoneOffset.UTC);
         LocalDate startDate = endDate.withDayOfMonth(1);
 
-        List<GcpCostDto> result = queryCostData(bqOpt.get(), gcpProjectId, dimension, startDate, endDate);
+        List<GcpCostDto> result = aggregateCostData(gcpProjectId, dimension, startDate, endDate);
         redisCacheService.put(cacheKey, result, 10);
         return result;
     }
@@ -405,7 +378,7 @@ public class GcpCostService {
     // ===== UTILITY METHODS =====
 
     public double calculateForecastedSpend(double monthToDateSpend) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
         int daysInMonth = today.lengthOfMonth();
         int currentDay = today.getDayOfMonth();
         if (currentDay > 0) {
@@ -416,7 +389,7 @@ public class GcpCostService {
 
     public CompletableFuture<Double> getLastMonthSpend(String gcpProjectId) {
         return getHistoricalCosts(gcpProjectId).thenApply(historicalCosts -> {
-            String lastMonthStr = LocalDate.now().minusMonths(1).format(DateTimeFormatter.ofPattern("yyyy-MM"));
+            String lastMonthStr = LocalDate.now(ZoneOffset.UTC).minusMonths(1).format(DateTimeFormatter.ofPattern("yyyy-MM"));
             return historicalCosts.stream()
                     .filter(c -> c.getName().equals(lastMonthStr))
                     .mapToDouble(GcpCostDto::getAmount)
@@ -425,15 +398,23 @@ public class GcpCostService {
         });
     }
 
-    private List<GcpCostDto> queryCostData(BigQuery bigquery, String gcpProjectId, String dimension, LocalDate startDate, LocalDate endDate) {
-        Optional<String> tableNameOpt = getBillingTableName(bigquery, gcpProjectId);
-        if (tableNameOpt.isEmpty()) return Collections.emptyList();
+    private List<GcpCostDto> aggregateCostData(String gcpProjectId, GcpBillingAggregateService.Dimension dimension,
+                                               LocalDate startDate, LocalDate endDate) {
+        Map<String, Double> totals = new HashMap<>();
+        billingAggregateService.getCostBy(gcpProjectId, dimension, startDate, endDate)
+                .forEach((name, cost) -> totals.merge(name == null ? "Uncategorized" : name, cost, Double::sum));
+
+        return totals.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .map(entry -> new GcpCostDto(entry.getKey(), entry.getValue(), false))
+                .collect(Collectors.toList());
+    }
 
-        String query = String.format(
-                "SELECT COALESCE(%s, 'Uncategorized') as name, SUM(cost) as total_cost, false as is_anomaly FROM `%s` WHERE DATE(usage_start_time) >= '%s' AND DATE(usage_start_time) <= '%s' GROUP BY 1 HAVING total_cost > 0 ORDER BY total_cost DESC",
-                dimension, tableNameOpt.get(), startDate.format(DateTimeFormatter.ISO_LOCAL_DATE), endDate.format(DateTimeFormatter.ISO_LOCAL_DATE)
-        );
-        return executeQuery(bigquery, query, gcpProjectId);
+    private boolean isCoveredByAggregate(String gcpProjectId, LocalDate startDate) {
+        if (!billingAggregateService.ensureSynced(gcpProjectId)) return false;
+        LocalDate coverageStart = billingAggregateService.getCoverageStart(gcpProjectId);
+        return coverageStart != null && !startDate.isBefore(coverageStart);
     }
 
     private List<GcpCostDto> executeQuery(BigQuery bigquery, String query, String gcpProjectId) {
@@ -454,28 +435,7 @@ public class GcpCostService {
     }
 
     private Optional<String> getBillingTableName(BigQuery bigquery, String gcpProjectId) {
-        if (billingExportTableName != null && !billingExportTableName.isBlank())
-            return Optional.of(billingExportTableName);
-
-        try {
-            for (Dataset dataset : bigquery.listDatasets(gcpProjectId).iterateAll()) {
-                for (Table table : bigquery.listTables(dataset.getDatasetId()).iterateAll()) {
-                    if (table.getTableId().getTable().startsWith("gcp_billing_export_v1")) {
-                        String fullName = String.format("%s.%s.%s",
-                                table.getTableId().getProject(),
-                                table.getTableId().getDataset(),
-                                table.getTableId().getTable());
-                        log.info("Dynamically found billing table: {}", fullName);
-                        return Optional.of(fullName);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to discover BigQuery billing table for project {}: {}", gcpProjectId, e.getMessage());
-        }
-
-        log.warn("Could not find a GCP billing export table for project {}. Please configure gcp.billing.export-table-name.", gcpProjectId);
-        return Optional.empty();
+        return billingAggregateService.getBillingTableName(bigquery, gcpProjectId);
     }
 
     // ===== CACHE MANAGEMENT =====
@@ -489,6 +449,7 @@ public class GcpCostService {
         redisCacheService.evict(BILLING_SUMMARY_CACHE_PREFIX + gcpProjectId);
         redisCacheService.evict(HISTORICAL_COSTS_CACHE_PREFIX + gcpProjectId);
         redisCacheService.evict(COST_BY_REGION_CACHE_PREFIX + gcpProjectId);
+        billingAggregateService.invalidate(gcpProjectId);
         log.info("🗑️ Cleared cost cache for project {}", gcpProjectId);
     }
 }
\ No newline at end of file
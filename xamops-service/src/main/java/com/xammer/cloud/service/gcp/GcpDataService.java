@@ -23,6 +23,7 @@ import com.google.cloud.scheduler.v1.CloudSchedulerClient;
 import com.google.cloud.secretmanager.v1.Secret;
 import com.google.cloud.secretmanager.v1.SecretManagerServiceClient;
 import com.google.logging.v2.LogBucket;
+import com.xammer.cloud.config.cache.AsyncCacheable;
 import com.xammer.cloud.domain.Client;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
@@ -31,7 +32,7 @@ import com.xammer.cloud.dto.gcp.*;
 import com.xammer.cloud.service.RedisCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 // Correct imports
 import com.google.cloud.logging.v2.ConfigClient;
@@ -48,8 +49,9 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -63,10 +65,17 @@ public class GcpDataService {
     private final GcpOptimizationService gcpOptimizationService;
     private final GcpSecurityService gcpSecurityService;
     private final com.xammer.cloud.repository.CloudAccountRepository cloudAccountRepository;
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Executor executor;
+    private final Executor computeExecutor;
+    private final Executor bigQueryExecutor;
+    private final Executor monitoringExecutor;
+    private final Executor aggregationExecutor;
     private final Map<String, double[]> regionCoordinates = loadRegionCoordinates();
     private final ObjectMapper objectMapper;
     private final RedisCacheService redisCache;
+    private final GcpAssetInventoryService assetInventoryService;
+    // Proxied reference to this bean, so calls from getDashboardData go through the @AsyncCacheable aspect
+    private final GcpDataService self;
 
     private static final String DASHBOARD_CACHE_PREFIX = "gcp:dashboard:";
     private static final String ALL_RESOURCES_CACHE_PREFIX = "gcp:all-resources:";
@@ -87,12 +96,17 @@ public class GcpDataService {
     @Value("${tagging.compliance.required-tags}")
     private List<String> requiredTags;
 
+    @Value("${gcp.inventory.backend:asset}")
+    private String inventoryBackend;
+
     public GcpDataService(GcpClientProvider gcpClientProvider,
             GcpCostService gcpCostService,
             GcpOptimizationService gcpOptimizationService,
             GcpSecurityService gcpSecurityService,
             com.xammer.cloud.repository.CloudAccountRepository cloudAccountRepository, RedisCacheService redisCache,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper, GcpWorkloadScheduler workloadScheduler,
+            GcpAssetInventoryService assetInventoryService,
+            @Lazy GcpDataService self) {
         this.gcpClientProvider = gcpClientProvider;
         this.gcpCostService = gcpCostService;
         this.gcpOptimizationService = gcpOptimizationService;
@@ -100,6 +114,13 @@ public class GcpDataService {
         this.cloudAccountRepository = cloudAccountRepository;
         this.objectMapper = objectMapper;
         this.redisCache = redisCache;
+        this.assetInventoryService = assetInventoryService;
+        this.self = self;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
+        this.computeExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.COMPUTE);
+        this.bigQueryExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.BIGQUERY);
+        this.monitoringExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.MONITORING);
+        this.aggregationExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.AGGREGATION);
     }
 
     private Map<String, double[]> loadRegionCoordinates() {
@@ -158,7 +179,7 @@ public class GcpDataService {
                 double[] coords = regionCoordinates.get(regionId);
                 return new DashboardData.RegionStatus(regionId, "ACTIVE", "ACTIVE", coords[0], coords[1]);
             }).collect(Collectors.toList());
-        });
+        }, aggregationExecutor);
     }
 
     public CompletableFuture<GcpDashboardData> getDashboardData(String gcpProjectId) {
@@ -193,7 +214,7 @@ public class GcpDataService {
                     return Collections.emptyList();
                 });
 
-        CompletableFuture<DashboardData.IamResources> iamResourcesFuture = getIamResources(gcpProjectId, forceRefresh)
+        CompletableFuture<DashboardData.IamResources> iamResourcesFuture = self.getIamResources(gcpProjectId, forceRefresh)
                 .exceptionally(ex -> {
                     log.error("Failed to get IAM resources for project {}: {}", gcpProjectId, ex.getMessage());
                     return new DashboardData.IamResources(0, 0, 0, 0);
@@ -217,30 +238,32 @@ public class GcpDataService {
                     return Collections.emptyList();
                 });
 
-        CompletableFuture<List<GcpWasteItem>> wasteReportFuture = CompletableFuture
-                .supplyAsync(() -> gcpOptimizationService.getWasteReport(gcpProjectId), executor)
+        // The optimization reports fan out to the Recommender and Compute pools themselves; composing
+        // their futures keeps this request from holding a worker while they run
+        CompletableFuture<List<GcpWasteItem>> wasteReportFuture = gcpOptimizationService
+                .getWasteReportAsync(gcpProjectId)
                 .exceptionally(ex -> {
                     log.error("Failed to get waste report for project {}: {}", gcpProjectId, ex.getMessage());
                     return Collections.emptyList();
                 });
 
-        CompletableFuture<List<GcpOptimizationRecommendation>> rightsizingFuture = CompletableFuture
-                .supplyAsync(() -> gcpOptimizationService.getRightsizingRecommendations(gcpProjectId), executor)
+        CompletableFuture<List<GcpOptimizationRecommendation>> rightsizingFuture = gcpOptimizationService
+                .getRightsizingRecommendationsAsync(gcpProjectId)
                 .exceptionally(ex -> {
                     log.error("Failed to get rightsizing recommendations for project {}: {}", gcpProjectId,
                             ex.getMessage());
                     return Collections.emptyList();
                 });
 
-        CompletableFuture<DashboardData.SavingsSummary> savingsSummaryFuture = CompletableFuture
-                .supplyAsync(() -> gcpOptimizationService.getSavingsSummary(gcpProjectId), executor)
+        CompletableFuture<DashboardData.SavingsSummary> savingsSummaryFuture = wasteReportFuture
+                .thenCombine(rightsizingFuture, gcpOptimizationService::getSavingsSummary)
                 .exceptionally(ex -> {
                     log.error("Failed to get savings summary for project {}: {}", gcpProjectId, ex.getMessage());
                     return new DashboardData.SavingsSummary(0.0, 0.0);
                 });
 
-        CompletableFuture<DashboardData.OptimizationSummary> optimizationSummaryFuture = CompletableFuture
-                .supplyAsync(() -> gcpOptimizationService.getOptimizationSummary(gcpProjectId), executor)
+        CompletableFuture<DashboardData.OptimizationSummary> optimizationSummaryFuture = wasteReportFuture
+                .thenCombine(rightsizingFuture, gcpOptimizationService::getOptimizationSummary)
                 .exceptionally(ex -> {
                     log.error("Failed to get optimization summary for project {}: {}", gcpProjectId, ex.getMessage());
                     return new DashboardData.OptimizationSummary(0.0, 0);
@@ -568,65 +591,114 @@ public class GcpDataService {
 
         log.info("🔍 Fetching all GCP resources for project: {}", gcpProjectId);
 
-        List<CompletableFuture<List<GcpResourceDto>>> futures = List.of(
-                CompletableFuture.supplyAsync(() -> getComputeInstances(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getStorageBuckets(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getGkeClusters(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getCloudSqlInstances(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getVpcNetworks(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getDnsZones(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getLoadBalancers(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getFirewallRules(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getCloudNatRouters(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getKmsKeys(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getCloudFunctions(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getSecretManagerSecrets(gcpProjectId, forceRefresh), executor),
-                CompletableFuture.supplyAsync(() -> getCloudArmorPolicies(gcpProjectId), executor),
-                CompletableFuture.supplyAsync(() -> getApiGateways(gcpProjectId), executor),
-                // CompletableFuture.supplyAsync(() -> getAppEngineApplications(gcpProjectId),
-                // executor),
-                CompletableFuture.supplyAsync(() -> getBigQueryDatasets(gcpProjectId), executor),
-                CompletableFuture.supplyAsync(() -> getLoggingBuckets(gcpProjectId), executor),
-                // CompletableFuture.supplyAsync(() -> getArtifactRepositories(gcpProjectId),
-                // executor),
-                // CompletableFuture.supplyAsync(() -> getCloudBuildTriggers(gcpProjectId),
-                // executor),
-
-                // ✅ NEW - Vertex AI
-                getVertexAIModels(gcpProjectId),
-                getVertexAIEndpoints(gcpProjectId),
-
-                // ✅ NEW - PubSub
-                getPubSubTopics(gcpProjectId),
-                getPubSubSubscriptions(gcpProjectId),
-
-                // ✅ NEW - Monitoring
-                getMonitoringAlertPolicies(gcpProjectId),
-                getMonitoringUptimeChecks(gcpProjectId),
-
-                // ✅ NEW - Scheduler & Dataplex
-                getSchedulerJobs(gcpProjectId),
-                getDataplexLakes(gcpProjectId),
-
-                // ✅ NEW - BigQuery & VM Manager
-                getBigQueryReservations(gcpProjectId),
-                getVMManagerPatchDeployments(gcpProjectId));
+        Map<String, Supplier<CompletableFuture<List<GcpResourceDto>>>> listers = getResourceListers(gcpProjectId,
+                forceRefresh);
+        CompletableFuture<List<GcpResourceDto>> resourcesFuture;
+        if ("asset".equalsIgnoreCase(inventoryBackend)) {
+            Set<String> covered = assetInventoryService.getCoveredResourceTypes();
+            // Types Asset Inventory doesn't index start right away; the rest only run if the search fails
+            CompletableFuture<List<GcpResourceDto>> uncoveredFuture = runResourceListers(listers,
+                    type -> !covered.contains(type));
+            CompletableFuture<List<GcpResourceDto>> assetFuture = assetInventoryService.fetchResources(gcpProjectId)
+                    .exceptionallyCompose(e -> {
+                        log.warn("⚠️ Falling back to per-API listers for project {}", gcpProjectId);
+                        return runResourceListers(listers, covered::contains);
+                    });
+            resourcesFuture = assetFuture.thenCombine(uncoveredFuture, (assets, others) -> {
+                List<GcpResourceDto> combined = new ArrayList<>(assets);
+                combined.addAll(others);
+                return combined;
+            });
+        } else {
+            resourcesFuture = runResourceListers(listers, type -> true);
+        }
+
+        return resourcesFuture.thenApply(allResources -> {
+            // ✅ Cache for 15 minutes
+            redisCache.put(cacheKey, allResources, 15);
 
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> {
-                    List<GcpResourceDto> allResources = futures.stream()
-                            .map(CompletableFuture::join)
-                            .flatMap(List::stream)
-                            .collect(Collectors.toList());
+            return allResources;
+        });
+    }
 
-                    // ✅ Cache for 15 minutes
-                    redisCache.put(cacheKey, allResources, 15);
+    /**
+     * Per-API listers keyed by the resource type they return. Suppliers, so nothing is called
+     * until {@link #runResourceListers} picks them.
+     */
+    private Map<String, Supplier<CompletableFuture<List<GcpResourceDto>>>> getResourceListers(String gcpProjectId,
+            boolean forceRefresh) {
+        Map<String, Supplier<CompletableFuture<List<GcpResourceDto>>>> listers = new LinkedHashMap<>();
+        listers.put("Compute Engine", () -> CompletableFuture
+                .supplyAsync(() -> getComputeInstances(gcpProjectId, forceRefresh), computeExecutor));
+        listers.put("Cloud Storage", () -> CompletableFuture
+                .supplyAsync(() -> getStorageBuckets(gcpProjectId, forceRefresh), executor));
+        listers.put("Kubernetes Engine", () -> CompletableFuture
+                .supplyAsync(() -> getGkeClusters(gcpProjectId, forceRefresh), executor));
+        listers.put("Cloud SQL", () -> CompletableFuture
+                .supplyAsync(() -> getCloudSqlInstances(gcpProjectId, forceRefresh), executor));
+        listers.put("VPC Network", () -> CompletableFuture
+                .supplyAsync(() -> getVpcNetworks(gcpProjectId, forceRefresh), computeExecutor));
+        listers.put("Cloud DNS", () -> CompletableFuture
+                .supplyAsync(() -> getDnsZones(gcpProjectId, forceRefresh), executor));
+        listers.put("Load Balancer", () -> CompletableFuture
+                .supplyAsync(() -> getLoadBalancers(gcpProjectId, forceRefresh), computeExecutor));
+        listers.put("Firewall Rule", () -> CompletableFuture
+                .supplyAsync(() -> getFirewallRules(gcpProjectId, forceRefresh), computeExecutor));
+        listers.put("Cloud NAT", () -> CompletableFuture
+                .supplyAsync(() -> getCloudNatRouters(gcpProjectId, forceRefresh), computeExecutor));
+        listers.put("Cloud KMS", () -> CompletableFuture
+                .supplyAsync(() -> getKmsKeys(gcpProjectId, forceRefresh), executor));
+        listers.put("Cloud Function", () -> CompletableFuture
+                .supplyAsync(() -> getCloudFunctions(gcpProjectId, forceRefresh), executor));
+        listers.put("Secret Manager", () -> CompletableFuture
+                .supplyAsync(() -> getSecretManagerSecrets(gcpProjectId, forceRefresh), executor));
+        listers.put("Cloud Armor", () -> CompletableFuture
+                .supplyAsync(() -> getCloudArmorPolicies(gcpProjectId), computeExecutor));
+        listers.put("API Gateway", () -> CompletableFuture
+                .supplyAsync(() -> getApiGateways(gcpProjectId), executor));
+        // App Engine, Artifact Registry and Cloud Build listers are disabled
+        listers.put("BigQuery Dataset", () -> CompletableFuture
+                .supplyAsync(() -> getBigQueryDatasets(gcpProjectId), bigQueryExecutor));
+        listers.put("Logging Bucket", () -> CompletableFuture
+                .supplyAsync(() -> getLoggingBuckets(gcpProjectId), executor));
+
+        // ✅ NEW - Vertex AI
+        listers.put("Vertex AI Model", () -> getVertexAIModels(gcpProjectId));
+        listers.put("Vertex AI Endpoint", () -> getVertexAIEndpoints(gcpProjectId));
+
+        // ✅ NEW - PubSub
+        listers.put("Pub/Sub Topic", () -> getPubSubTopics(gcpProjectId));
+        listers.put("Pub/Sub Subscription", () -> getPubSubSubscriptions(gcpProjectId));
+
+        // ✅ NEW - Monitoring
+        listers.put("Monitoring Alert Policy", () -> getMonitoringAlertPolicies(gcpProjectId));
+        listers.put("Monitoring Uptime Check", () -> getMonitoringUptimeChecks(gcpProjectId));
+
+        // ✅ NEW - Scheduler & Dataplex
+        listers.put("Cloud Scheduler Job", () -> getSchedulerJobs(gcpProjectId));
+        listers.put("Dataplex Lake", () -> getDataplexLakes(gcpProjectId));
+
+        // ✅ NEW - BigQuery & VM Manager
+        listers.put("BigQuery Reservation", () -> getBigQueryReservations(gcpProjectId));
+        listers.put("VM Manager Patch Deployment", () -> getVMManagerPatchDeployments(gcpProjectId));
+        return listers;
+    }
+
+    private CompletableFuture<List<GcpResourceDto>> runResourceListers(
+            Map<String, Supplier<CompletableFuture<List<GcpResourceDto>>>> listers, Predicate<String> include) {
+        List<CompletableFuture<List<GcpResourceDto>>> futures = listers.entrySet().stream()
+                .filter(entry -> include.test(entry.getKey()))
+                .map(entry -> entry.getValue().get())
+                .collect(Collectors.toList());
 
-                    return allResources;
-                });
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()));
     }
 
-    @Cacheable(value = "gcpIamResources", key = "'gcp:iam-resources:' + #gcpProjectId")
+    @AsyncCacheable(value = "gcpIamResources", key = "#gcpProjectId", ttlSeconds = 3600, refreshAheadSeconds = 600, bypass = "#forceRefresh")
     public CompletableFuture<DashboardData.IamResources> getIamResources(String gcpProjectId, boolean forceRefresh) {
         log.info("Attempting to get IAM resources for project: {}", gcpProjectId);
         return CompletableFuture.supplyAsync(() -> {
@@ -634,7 +706,8 @@ public class GcpDataService {
                     .getProjectsClient(gcpProjectId);
             if (clientOpt.isEmpty())
                 return new DashboardData.IamResources(0, 0, 0, 0);
-            try (com.google.cloud.resourcemanager.v3.ProjectsClient projectsClient = clientOpt.get()) {
+            try {
+                com.google.cloud.resourcemanager.v3.ProjectsClient projectsClient = clientOpt.get();
                 com.google.cloud.resourcemanager.v3.Project project = projectsClient
                         .getProject("projects/" + gcpProjectId);
                 log.info("Fetched project details for: {}", project.getDisplayName());
@@ -645,7 +718,7 @@ public class GcpDataService {
                 log.error("Error fetching IAM resources for project: {}", gcpProjectId, e);
                 return new DashboardData.IamResources(0, 0, 0, 0);
             }
-        });
+        }, executor);
     }
 
     public CompletableFuture<DashboardData.IamDetail> getIamDetails(String gcpProjectId) {
@@ -654,8 +727,9 @@ public class GcpDataService {
             List<DashboardData.IamRoleDetail> roles = new ArrayList<>();
 
             // 1. Fetch Service Accounts
-            try (com.google.cloud.iam.admin.v1.IAMClient iamClient = gcpClientProvider.getIamClient(gcpProjectId)
-                    .orElse(null)) {
+            try {
+                com.google.cloud.iam.admin.v1.IAMClient iamClient = gcpClientProvider.getIamClient(gcpProjectId)
+                        .orElse(null);
                 if (iamClient != null) {
                     com.google.iam.admin.v1.ListServiceAccountsRequest request = com.google.iam.admin.v1.ListServiceAccountsRequest
                             .newBuilder()
@@ -696,7 +770,7 @@ public class GcpDataService {
             }
 
             return new DashboardData.IamDetail(users, roles);
-        });
+        }, executor);
     }
 
     @Transactional
@@ -741,6 +815,8 @@ public class GcpDataService {
             // Save to database
             CloudAccount savedAccount = cloudAccountRepository.save(account);
             log.info("✅ GCP account created successfully with ID: {}", savedAccount.getId());
+            // A re-connected project may come with a new key - don't keep serving the old clients
+            gcpClientProvider.evictProject(projectId);
 
             if (savedAccount.getBillingExportTable() != null) {
                 log.info("📊 Billing export table configured: {}", savedAccount.getBillingExportTable());
@@ -794,7 +870,7 @@ public class GcpDataService {
     }
 
     public CompletableFuture<List<GcpResourceDto>> getVpcListForCloudmap(String gcpProjectId, boolean forceRefresh) {
-        return CompletableFuture.supplyAsync(() -> getVpcNetworks(gcpProjectId, forceRefresh));
+        return CompletableFuture.supplyAsync(() -> getVpcNetworks(gcpProjectId, forceRefresh), computeExecutor);
     }
 
     public CompletableFuture<List<Map<String, Object>>> getVpcTopologyGraph(String gcpProjectId, String vpcId) {
@@ -860,7 +936,7 @@ public class GcpDataService {
                         });
             }
             return elements;
-        });
+        }, computeExecutor);
     }
 
     private Map<String, Object> createNode(String id, String label, String type) {
@@ -892,7 +968,8 @@ public class GcpDataService {
                 .getNetworksClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (com.google.cloud.compute.v1.NetworksClient client = clientOpt.get()) {
+        try {
+            com.google.cloud.compute.v1.NetworksClient client = clientOpt.get();
             return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
                     .collect(Collectors.toList());
         } catch (Exception e) {
@@ -906,7 +983,8 @@ public class GcpDataService {
                 .getSubnetworksClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (com.google.cloud.compute.v1.SubnetworksClient client = clientOpt.get()) {
+        try {
+            com.google.cloud.compute.v1.SubnetworksClient client = clientOpt.get();
             return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
                     .flatMap(entry -> entry.getValue().getSubnetworksList().stream())
                     .collect(Collectors.toList());
@@ -921,7 +999,8 @@ public class GcpDataService {
                 .getInstancesClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (com.google.cloud.compute.v1.InstancesClient client = clientOpt.get()) {
+        try {
+            com.google.cloud.compute.v1.InstancesClient client = clientOpt.get();
             return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
                     .flatMap(entry -> entry.getValue().getInstancesList().stream())
                     .collect(Collectors.toList());
@@ -957,7 +1036,8 @@ public class GcpDataService {
                 .getClusterManagerClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (com.google.cloud.container.v1.ClusterManagerClient client = clientOpt.get()) {
+        try {
+            com.google.cloud.container.v1.ClusterManagerClient client = clientOpt.get();
             String parent = "projects/" + gcpProjectId + "/locations/-";
             List<com.google.container.v1.Cluster> clusters = client.listClusters(parent).getClustersList();
             return clusters.stream()
@@ -1022,7 +1102,8 @@ public class GcpDataService {
                 .getForwardingRulesClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (com.google.cloud.compute.v1.ForwardingRulesClient client = clientOpt.get()) {
+        try {
+            com.google.cloud.compute.v1.ForwardingRulesClient client = clientOpt.get();
             return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
                     .flatMap(entry -> entry.getValue().getForwardingRulesList().stream())
                     .map(this::mapForwardingRuleToDto)
@@ -1039,7 +1120,8 @@ public class GcpDataService {
                 .getFirewallsClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (com.google.cloud.compute.v1.FirewallsClient client = clientOpt.get()) {
+        try {
+            com.google.cloud.compute.v1.FirewallsClient client = clientOpt.get();
             return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
                     .map(this::mapFirewallToDto)
                     .collect(Collectors.toList());
@@ -1054,7 +1136,8 @@ public class GcpDataService {
         Optional<RoutersClient> clientOpt = gcpClientProvider.getRoutersClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (RoutersClient client = clientOpt.get()) {
+        try {
+            RoutersClient client = clientOpt.get();
             return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
                     .flatMap(entry -> entry.getValue().getRoutersList().stream())
                     .filter(router -> !router.getNatsList().isEmpty())
@@ -1092,7 +1175,9 @@ public class GcpDataService {
         if (clientOpt.isEmpty())
             return List.of();
 
-        try (KeyManagementServiceClient client = clientOpt.get()) {
+        try {
+            KeyManagementServiceClient client = clientOpt.get();
+
             return getAllKnownRegions().stream()
                     .flatMap(region -> {
                         try {
@@ -1118,7 +1203,8 @@ public class GcpDataService {
         Optional<FunctionServiceClient> clientOpt = gcpClientProvider.getFunctionServiceClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (FunctionServiceClient client = clientOpt.get()) {
+        try {
+            FunctionServiceClient client = clientOpt.get();
             String parent = "projects/" + gcpProjectId + "/locations/-";
             return StreamSupport.stream(client.listFunctions(parent).iterateAll().spliterator(), false)
                     .map(this::mapCloudFunctionToDto)
@@ -1150,7 +1236,8 @@ public class GcpDataService {
         Optional<SecretManagerServiceClient> clientOpt = gcpClientProvider.getSecretManagerServiceClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (SecretManagerServiceClient client = clientOpt.get()) {
+        try {
+            SecretManagerServiceClient client = clientOpt.get();
             String parent = "projects/" + gcpProjectId;
             return StreamSupport.stream(client.listSecrets(parent).iterateAll().spliterator(), false)
                     .map(this::mapSecretToDto)
@@ -1166,7 +1253,8 @@ public class GcpDataService {
         Optional<SecurityPoliciesClient> clientOpt = gcpClientProvider.getSecurityPoliciesClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (SecurityPoliciesClient client = clientOpt.get()) {
+        try {
+            SecurityPoliciesClient client = clientOpt.get();
             return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
                     .map(this::mapCloudArmorPolicyToDto)
                     .collect(Collectors.toList());
@@ -1193,7 +1281,8 @@ public class GcpDataService {
         Optional<ApiGatewayServiceClient> clientOpt = gcpClientProvider.getApiGatewayServiceClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (ApiGatewayServiceClient client = clientOpt.get()) {
+        try {
+            ApiGatewayServiceClient client = clientOpt.get();
             String parent = "projects/" + gcpProjectId + "/locations/-";
             return StreamSupport.stream(client.listApis(parent).iterateAll().spliterator(), false)
                     .map(this::mapApiGatewayToDto)
@@ -1242,7 +1331,8 @@ public class GcpDataService {
         Optional<ConfigClient> clientOpt = gcpClientProvider.getConfigClient(gcpProjectId);
         if (clientOpt.isEmpty())
             return List.of();
-        try (ConfigClient client = clientOpt.get()) {
+        try {
+            ConfigClient client = clientOpt.get();
             String parent = String.format("projects/%s/locations/-", gcpProjectId);
             return StreamSupport.stream(client.listBuckets(parent).iterateAll().spliterator(), false)
                     .map(this::mapLogBucketToDto)
@@ -1267,7 +1357,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (ModelServiceClient client = clientOpt.get()) {
+            try {
+                ModelServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String parent = String.format("projects/%s/locations/us-central1", gcpProjectId);
 
@@ -1304,7 +1396,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (EndpointServiceClient client = clientOpt.get()) {
+            try {
+                EndpointServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String parent = String.format("projects/%s/locations/us-central1", gcpProjectId);
 
@@ -1342,7 +1436,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (TopicAdminClient client = clientOpt.get()) {
+            try {
+                TopicAdminClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String project = String.format("projects/%s", gcpProjectId);
 
@@ -1378,7 +1474,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (SubscriptionAdminClient client = clientOpt.get()) {
+            try {
+                SubscriptionAdminClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String project = String.format("projects/%s", gcpProjectId);
 
@@ -1416,7 +1514,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (AlertPolicyServiceClient client = clientOpt.get()) {
+            try {
+                AlertPolicyServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String projectName = String.format("projects/%s", gcpProjectId);
 
@@ -1436,7 +1536,7 @@ public class GcpDataService {
                 log.error("Failed to fetch monitoring alert policies for project {}: {}", gcpProjectId, e.getMessage());
                 return List.of();
             }
-        }, executor);
+        }, monitoringExecutor);
     }
 
     /**
@@ -1452,7 +1552,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (UptimeCheckServiceClient client = clientOpt.get()) {
+            try {
+                UptimeCheckServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String projectName = String.format("projects/%s", gcpProjectId);
 
@@ -1472,7 +1574,7 @@ public class GcpDataService {
                 log.error("Failed to fetch monitoring uptime checks for project {}: {}", gcpProjectId, e.getMessage());
                 return List.of();
             }
-        }, executor);
+        }, monitoringExecutor);
     }
 
     // ==================== DATAPLEX SERVICE ====================
@@ -1490,7 +1592,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (DataplexServiceClient client = clientOpt.get()) {
+            try {
+                DataplexServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String parent = String.format("projects/%s/locations/us-central1", gcpProjectId);
 
@@ -1528,7 +1632,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (CloudSchedulerClient client = clientOpt.get()) {
+            try {
+                CloudSchedulerClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String parent = String.format("projects/%s/locations/us-central1", gcpProjectId);
 
@@ -1566,7 +1672,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (OsConfigServiceClient client = clientOpt.get()) {
+            try {
+                OsConfigServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String parent = String.format("projects/%s", gcpProjectId);
 
@@ -1587,7 +1695,7 @@ public class GcpDataService {
                         e.getMessage());
                 return List.of();
             }
-        }, executor);
+        }, computeExecutor);
     }
 
     // ==================== BIGQUERY RESERVATION SERVICE ====================
@@ -1605,7 +1713,9 @@ public class GcpDataService {
                 return List.of();
             }
 
-            try (ReservationServiceClient client = clientOpt.get()) {
+            try {
+                ReservationServiceClient client = clientOpt.get();
+
                 List<GcpResourceDto> resources = new ArrayList<>();
                 String parent = String.format("projects/%s/locations/us-central1", gcpProjectId);
 
@@ -1625,7 +1735,7 @@ public class GcpDataService {
                 log.error("Failed to fetch BigQuery reservations for project {}: {}", gcpProjectId, e.getMessage());
                 return List.of();
             }
-        }, executor);
+        }, bigQueryExecutor);
     }
 
     /**
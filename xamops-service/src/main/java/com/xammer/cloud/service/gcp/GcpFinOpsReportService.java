@@ -3,39 +3,47 @@ package com.xammer.cloud.service.gcp;
 import com.xammer.cloud.dto.DashboardData;
 import com.xammer.cloud.dto.gcp.*;
 import com.xammer.cloud.service.RedisCacheService;
+import com.xammer.cloud.service.anomaly.CostAnomalyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 @Service
 public class GcpFinOpsReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(GcpFinOpsReportService.class);
-    private final ExecutorService executor = Executors.newCachedThreadPool();
-
     private final GcpCostService gcpCostService;
     private final GcpOptimizationService gcpOptimizationService;
     private final GcpBudgetService gcpBudgetService;
     private final RedisCacheService redisCacheService;
+    private final CostAnomalyService costAnomalyService;
+    private final Executor executor;
+    private final Executor bigQueryExecutor;
 
     private static final String FINOPS_REPORT_CACHE_PREFIX = "gcp:finops-report:";
 
     public GcpFinOpsReportService(GcpCostService gcpCostService,
                                   GcpOptimizationService gcpOptimizationService,
                                   GcpBudgetService gcpBudgetService,
-                                  RedisCacheService redisCacheService) {
+                                  RedisCacheService redisCacheService,
+                                  CostAnomalyService costAnomalyService,
+                                  GcpWorkloadScheduler workloadScheduler) {
         this.gcpCostService = gcpCostService;
         this.gcpOptimizationService = gcpOptimizationService;
         this.gcpBudgetService = gcpBudgetService;
         this.redisCacheService = redisCacheService;
+        this.costAnomalyService = costAnomalyService;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.AGGREGATION);
+        // Anomaly detection syncs the billing export, so it queues with the other BigQuery work
+        this.bigQueryExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.BIGQUERY);
     }
 
     /**
@@ -90,22 +98,23 @@ public class GcpFinOpsReportService {
                     });
 
             // ✅ These now return actual data from Redis cache or fresh data
-            CompletableFuture<List<GcpWasteItem>> wasteFuture = CompletableFuture.supplyAsync(
-                            () -> gcpOptimizationService.getWasteReport(gcpProjectId), executor)
+            // The optimization reports fan out to the Recommender and Compute pools themselves, so they
+            // are composed rather than wrapped in a task on this report's pool
+            CompletableFuture<List<GcpWasteItem>> wasteFuture = gcpOptimizationService.getWasteReportAsync(gcpProjectId)
                     .exceptionally(ex -> {
                         logger.error("Failed to get waste report for project {}", gcpProjectId, ex);
                         return Collections.emptyList();
                     });
 
-            CompletableFuture<List<GcpOptimizationRecommendation>> recommendationsFuture = CompletableFuture.supplyAsync(
-                            () -> gcpOptimizationService.getRightsizingRecommendations(gcpProjectId), executor)
+            CompletableFuture<List<GcpOptimizationRecommendation>> recommendationsFuture = gcpOptimizationService
+                    .getRightsizingRecommendationsAsync(gcpProjectId)
                     .exceptionally(ex -> {
                         logger.error("Failed to get rightsizing recommendations for project {}", gcpProjectId, ex);
                         return Collections.emptyList();
                     });
 
-            CompletableFuture<DashboardData.OptimizationSummary> optimizationSummaryFuture = CompletableFuture.supplyAsync(
-                            () -> gcpOptimizationService.getOptimizationSummary(gcpProjectId), executor)
+            CompletableFuture<DashboardData.OptimizationSummary> optimizationSummaryFuture = wasteFuture
+                    .thenCombine(recommendationsFuture, gcpOptimizationService::getOptimizationSummary)
                     .exceptionally(ex -> {
                         logger.error("Failed to get optimization summary for project {}", gcpProjectId, ex);
                         return new DashboardData.OptimizationSummary(0.0, 0);
@@ -117,8 +126,8 @@ public class GcpFinOpsReportService {
                         return Collections.emptyList();
                     });
 
-            CompletableFuture<List<DashboardData.CostAnomaly>> costAnomaliesFuture = gcpCostService.getHistoricalCosts(gcpProjectId)
-                    .thenApply(costs -> Collections.<DashboardData.CostAnomaly>emptyList()) // Placeholder for anomaly detection
+            CompletableFuture<List<DashboardData.CostAnomaly>> costAnomaliesFuture = CompletableFuture.supplyAsync(
+                            () -> costAnomalyService.getGcpAnomalies(gcpProjectId, LocalDate.now().minusDays(60)), bigQueryExecutor)
                     .exceptionally(ex -> {
                         logger.error("Failed to detect cost anomalies for project {}", gcpProjectId, ex);
                         return Collections.emptyList();
@@ -144,7 +144,8 @@ public class GcpMetricsService {
         if (clientOpt.isEmpty()) return List.of();
 
         List<GcpMetricDto> metrics = new ArrayList<>();
-        try (MetricServiceClient metricServiceClient = clientOpt.get()) {
+        try {
+            MetricServiceClient metricServiceClient = clientOpt.get();
             long startMillis = System.currentTimeMillis() - ((60 * 60 * 1000) * lookbackHours);
             TimeInterval interval = TimeInterval.newBuilder()
                     .setStartTime(Timestamps.fromMillis(startMillis))
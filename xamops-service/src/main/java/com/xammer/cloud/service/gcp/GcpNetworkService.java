@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -30,9 +31,11 @@ import java.util.stream.StreamSupport;
 public class GcpNetworkService {
 
     private final GcpClientProvider gcpClientProvider;
+    private final Executor executor;
 
-    public GcpNetworkService(GcpClientProvider gcpClientProvider) {
+    public GcpNetworkService(GcpClientProvider gcpClientProvider, GcpWorkloadScheduler workloadScheduler) {
         this.gcpClientProvider = gcpClientProvider;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.COMPUTE);
     }
 
     public CompletableFuture<GcpVpcTopology> getVpcTopology(String gcpProjectId) {
@@ -42,7 +45,7 @@ public class GcpNetworkService {
             topology.setSubnetworks(getSubnetworks(gcpProjectId));
             topology.setInstances(getInstances(gcpProjectId));
             return topology;
-        });
+        }, executor);
     }
 
     public CompletableFuture<List<Map<String, Object>>> getNetworkTopologyGraph(String gcpProjectId, String vpcId) {
@@ -138,7 +141,7 @@ public class GcpNetworkService {
             });
 
             return elements;
-        });
+        }, executor);
     }
 
     private NextHopInfo getNextHopInfo(Route route) {
@@ -190,47 +193,42 @@ public class GcpNetworkService {
     private List<Network> getNetworks(String gcpProjectId) {
         Optional<NetworksClient> clientOpt = gcpClientProvider.getNetworksClient(gcpProjectId);
         if (clientOpt.isEmpty()) return List.of();
-        try (NetworksClient client = clientOpt.get()) {
-            return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
-                    .collect(Collectors.toList());
-        }
+        NetworksClient client = clientOpt.get();
+        return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
+                .collect(Collectors.toList());
     }
 
     private List<Subnetwork> getSubnetworks(String gcpProjectId) {
         Optional<SubnetworksClient> clientOpt = gcpClientProvider.getSubnetworksClient(gcpProjectId);
         if (clientOpt.isEmpty()) return List.of();
-        try (SubnetworksClient client = clientOpt.get()) {
-            return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
-                    .flatMap(entry -> entry.getValue().getSubnetworksList().stream())
-                    .collect(Collectors.toList());
-        }
+        SubnetworksClient client = clientOpt.get();
+        return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
+                .flatMap(entry -> entry.getValue().getSubnetworksList().stream())
+                .collect(Collectors.toList());
     }
 
     private List<Instance> getInstances(String gcpProjectId) {
         Optional<InstancesClient> clientOpt = gcpClientProvider.getInstancesClient(gcpProjectId);
         if (clientOpt.isEmpty()) return List.of();
-        try (InstancesClient client = clientOpt.get()) {
-            return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
-                    .flatMap(entry -> entry.getValue().getInstancesList().stream())
-                    .collect(Collectors.toList());
-        }
+        InstancesClient client = clientOpt.get();
+        return StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
+                .flatMap(entry -> entry.getValue().getInstancesList().stream())
+                .collect(Collectors.toList());
     }
 
     private List<Firewall> getFirewalls(String gcpProjectId) {
         Optional<FirewallsClient> clientOpt = gcpClientProvider.getFirewallsClient(gcpProjectId);
         if (clientOpt.isEmpty()) return List.of();
-        try (FirewallsClient client = clientOpt.get()) {
-            return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
-                    .collect(Collectors.toList());
-        }
+        FirewallsClient client = clientOpt.get();
+        return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
+                .collect(Collectors.toList());
     }
 
     private List<Route> getRoutes(String gcpProjectId) {
         Optional<RoutesClient> clientOpt = gcpClientProvider.getRoutesClient(gcpProjectId);
         if (clientOpt.isEmpty()) return List.of();
-        try (RoutesClient client = clientOpt.get()) {
-            return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
-                    .collect(Collectors.toList());
-        }
+        RoutesClient client = clientOpt.get();
+        return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
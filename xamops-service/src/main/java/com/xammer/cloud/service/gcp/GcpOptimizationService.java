@@ -11,11 +11,6 @@ import com.google.cloud.recommender.v1.RecommenderClient;
 import com.google.cloud.recommender.v1.RecommenderName;
 import com.google.cloud.resourcemanager.v3.Project;
 import com.google.cloud.resourcemanager.v3.ProjectsClient;
-import com.google.type.Money;
-import com.google.cloud.billing.v1.CloudCatalogClient;
-import com.google.cloud.billing.v1.ListSkusRequest;
-import com.google.cloud.billing.v1.Sku;
-import com.google.cloud.billing.v1.PricingExpression;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.dto.DashboardData;
 import com.xammer.cloud.dto.gcp.GcpCommittedUseDiscountDto;
@@ -34,8 +29,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,9 +41,11 @@ import java.util.stream.StreamSupport;
 public class GcpOptimizationService {
 
     private final GcpClientProvider gcpClientProvider;
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Executor executor;
+    private final Executor computeExecutor;
     private final GcpDataService gcpDataService;
     private final CloudAccountService cloudAccountService;
+    private final GcpSkuCatalog skuCatalog;
 
     // Full GCP region-to-location mapping (as of Oct 2025; source:
     // cloud.google.com/compute/docs/regions-zones)
@@ -97,7 +93,6 @@ public class GcpOptimizationService {
             Map.entry("us-west3", "Salt Lake City, Utah, North America"),
             Map.entry("us-west4", "Las Vegas, Nevada, North America"));
 
-    private static final String CLOUD_SQL_SERVICE = "services/9662-B51E-5089";
     private static final int HOURS_PER_MONTH = 730; // Standard estimate; configurable if needed
     private static final double EST_IMAGE_STORAGE_COST_USD_PER_GB = 0.05; // Configurable
     private static final double EST_BACKUP_COST_USD = 0.01; // Nominal; configurable
@@ -110,10 +105,16 @@ public class GcpOptimizationService {
     public GcpOptimizationService(
             GcpClientProvider gcpClientProvider,
             @Lazy GcpDataService gcpDataService,
-            CloudAccountService cloudAccountService) {
+            CloudAccountService cloudAccountService,
+            GcpWorkloadScheduler workloadScheduler,
+            GcpSkuCatalog skuCatalog) {
         this.gcpClientProvider = gcpClientProvider;
         this.gcpDataService = gcpDataService;
         this.cloudAccountService = cloudAccountService;
+        this.skuCatalog = skuCatalog;
+        // Recommender and Cloud SQL calls; Compute Engine listings go to their own pool
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
+        this.computeExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.COMPUTE);
     }
 
     @Cacheable(value = "gcpCommittedUseDiscounts", key = "'gcp:committed-use-discounts:' + #gcpProjectId")
@@ -127,7 +128,9 @@ public class GcpOptimizationService {
             return discounts;
         }
 
-        try (RegionCommitmentsClient client = clientOpt.get()) {
+        try {
+            RegionCommitmentsClient client = clientOpt.get();
+
             for (var entry : client.aggregatedList(gcpProjectId).iterateAll()) {
                 if (entry.getValue().getCommitmentsCount() > 0) {
                     entry.getValue().getCommitmentsList().forEach(commitment -> {
@@ -155,7 +158,7 @@ public class GcpOptimizationService {
     }
 
     public CompletableFuture<List<GcpCommittedUseDiscountDto>> getCommittedUseDiscounts(String gcpProjectId) {
-        return CompletableFuture.supplyAsync(() -> getCommittedUseDiscountsSync(gcpProjectId), executor);
+        return CompletableFuture.supplyAsync(() -> getCommittedUseDiscountsSync(gcpProjectId), computeExecutor);
     }
 
     @Cacheable(value = "gcpCudUtilization", key = "'gcp:cud-utilization:' + #gcpProjectId + ':' + #cudId")
@@ -170,10 +173,28 @@ public class GcpOptimizationService {
 
     @Cacheable(value = "gcpRightsizingRecommendations", key = "'gcp:rightsizing-recommendations:' + #gcpProjectId")
     public List<GcpOptimizationRecommendation> getRightsizingRecommendations(String gcpProjectId) {
+        return getRightsizingRecommendationsAsync(gcpProjectId).join();
+    }
+
+    /**
+     * Non-blocking variant for composite requests: the region listing, the Recommender calls and the
+     * Cloud SQL enrichment each run on their own family's pool, so no worker waits on the fan-out.
+     */
+    public CompletableFuture<List<GcpOptimizationRecommendation>> getRightsizingRecommendationsAsync(String gcpProjectId) {
         log.info("🔍 Fetching rightsizing recommendations for GCP project: {}", gcpProjectId);
 
         // Dynamic regions via API (fallback to static if fails)
-        List<String> locations = getDynamicRegions(gcpProjectId);
+        return CompletableFuture.supplyAsync(() -> getDynamicRegions(gcpProjectId), computeExecutor)
+                .thenCompose(locations -> collectRightsizing(gcpProjectId, locations))
+                .thenApplyAsync(results -> {
+                    enhanceCloudSqlRecommendationsWithHistoricalCost(gcpProjectId, results);
+                    log.info("✅ Total rightsizing recommendations found: {}", results.size());
+                    return results;
+                }, executor);
+    }
+
+    private CompletableFuture<List<GcpOptimizationRecommendation>> collectRightsizing(String gcpProjectId,
+                                                                                      List<String> locations) {
         locations.add("global"); // Always include global
 
         List<CompletableFuture<List<GcpOptimizationRecommendation>>> futures = new ArrayList<>();
@@ -210,24 +231,19 @@ public class GcpOptimizationService {
             }
         }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-        List<GcpOptimizationRecommendation> results = futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
-
-        enhanceCloudSqlRecommendationsWithHistoricalCost(gcpProjectId, results);
-
-        log.info("✅ Total rightsizing recommendations found: {}", results.size());
-        return results;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()));
     }
 
     // Dynamic region fetcher
     private List<String> getDynamicRegions(String gcpProjectId) {
         Optional<RegionsClient> clientOpt = gcpClientProvider.getRegionsClient(gcpProjectId);
         if (clientOpt.isPresent()) {
-            try (RegionsClient client = clientOpt.get()) {
+            try {
+                RegionsClient client = clientOpt.get();
                 return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
                         .map(region -> region.getName().substring(region.getName().lastIndexOf('/') + 1)) // Extract
                                                                                                           // region ID
@@ -242,120 +258,55 @@ public class GcpOptimizationService {
     }
 
     /**
-     * Finds the base custom SKU for vCPU or RAM in the given region.
-     * 
-     * @param resourceType "CPU" or "RAM"
-     * @param region       Region code (e.g., "us-central1")
-     * @return Optional<Sku> matching SKU
-     */
-    /**
-     * Finds the base custom SKU for vCPU or RAM in the given region by filtering
-     * after listing.
+     * Finds the base custom SKU for vCPU or RAM in the given region from the local
+     * SKU index.
      * 
      * @param resourceType "CPU" or "RAM"
      * @param region       Region code (e.g., "us-central1")
-     * @return Optional<Sku> matching SKU
+     * @return Optional<GcpSkuPrice> matching SKU
      */
-    private Optional<Sku> findCloudSqlSku(String gcpProjectId, String resourceType, String region) {
+    private Optional<GcpSkuPrice> findCloudSqlSku(String gcpProjectId, String resourceType, String region) {
         String locationName = REGION_TO_LOCATION.get(region);
         if (locationName == null) {
             log.warn("Unknown region: {}. Cannot map to location name for SKU filter.", region);
             return Optional.empty();
         }
 
-        Optional<CloudCatalogClient> clientOpt = gcpClientProvider.getCloudCatalogClient(gcpProjectId);
-        if (clientOpt.isEmpty()) {
-            log.warn("CloudCatalogClient not available for project {}", gcpProjectId);
-            return Optional.empty();
-        }
+        String descriptionPrefix = "Custom Instance %s running in %s".formatted(
+                "CPU".equals(resourceType) ? "Core" : "RAM", locationName);
 
-        try (CloudCatalogClient client = clientOpt.get()) {
-            // Define filter criteria
-            String descriptionPrefix = "Custom Instance %s running in %s".formatted(
-                    "CPU".equals(resourceType) ? "Core" : "RAM", locationName);
-            String expectedResourceGroup = resourceType; // "CPU" or "RAM"
-
-            log.info(
-                    "Querying Billing Catalog for ALL Cloud SQL SKUs and filtering for: Type={}, Region={}, DescPrefix='{}'",
-                    resourceType, region, descriptionPrefix);
-
-            ListSkusRequest request = ListSkusRequest.newBuilder()
-                    .setParent(CLOUD_SQL_SERVICE)
-                    // No setFilter here
-                    .build();
-
-            // Iterate ALL SKUs for the service and filter manually
-            for (Sku sku : client.listSkus(request).iterateAll()) {
-                boolean regionMatch = sku.getServiceRegionsList().contains(region);
-                boolean descriptionMatch = sku.getDescription().contains(descriptionPrefix);
-                // Resource Group might not always be present or exactly "CPU"/"RAM", adjust if
-                // needed
-                boolean resourceGroupMatch = expectedResourceGroup
-                        .equalsIgnoreCase(sku.getCategory().getResourceGroup());
-
-                if (regionMatch && descriptionMatch && resourceGroupMatch) {
-                    log.debug("Found matching SKU: {} - Description: {}", sku.getSkuId(), sku.getDescription());
-                    // Additional check: Ensure it's the base custom SKU (doesn't specify vCPU/RAM
-                    // amount)
-                    // This logic might need refinement based on actual SKU descriptions.
-                    if (!sku.getDescription().matches(".*\\d+\\s+(vCPU|GB).*")) {
-                        log.info("Confirmed base SKU match: {}", sku.getSkuId());
-                        return Optional.of(sku);
-                    } else {
-                        log.debug("SKU {} matched filters but appears specific, skipping.", sku.getSkuId());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to query/filter Billing Catalog for Cloud SQL {} SKU (Region: {}): {}", resourceType,
-                    region, e.getMessage(), e);
-        }
+        // Skip SKUs that name a fixed vCPU/RAM amount; only the base custom SKU is wanted
+        Optional<GcpSkuPrice> sku = skuCatalog.find(gcpProjectId, GcpSkuCatalog.CLOUD_SQL_SERVICE, region,
+                resourceType, GcpSkuCatalog.ON_DEMAND,
+                candidate -> candidate.getDescription().contains(descriptionPrefix)
+                        && !candidate.getDescription().matches(".*\\d+\\s+(vCPU|GB).*"));
 
-        log.warn("Could not find matching SKU for Cloud SQL {} in Region: {} after filtering.", resourceType, region);
-        return Optional.empty();
+        if (sku.isEmpty()) {
+            log.warn("Could not find matching SKU for Cloud SQL {} in Region: {}.", resourceType, region);
+        }
+        return sku;
     }
 
     /**
-     * Extracts price per unit from SKU (assumes USD, first tier, On-Demand).
+     * Extracts price per unit from SKU (USD, first tier, On-Demand).
      * 
      * @param sku               The matching SKU
      * @param expectedUsageUnit Expected "h" for vCPU, "GiBy.mo" for RAM
      * @return Price per unit (e.g., per hour or per GiB-month)
      */
-    private double getPricePerUnit(Sku sku, String expectedUsageUnit) {
-        if (sku == null || sku.getPricingInfoCount() == 0) {
-            return 0.0;
-        }
-
-        PricingExpression pricingExpression = sku.getPricingInfo(0).getPricingExpression();
-        if (pricingExpression.getTieredRatesCount() == 0) {
-            log.warn("No tiered rates found for SKU: {}", sku.getSkuId());
-            return 0.0;
-        }
-
-        PricingExpression.TierRate tieredRate = pricingExpression.getTieredRates(0); // Base tier
-        Money unitPrice = tieredRate.getUnitPrice();
-        if (!"USD".equals(unitPrice.getCurrencyCode())) {
-            log.warn("Non-USD currency for SKU {}: {}", sku.getSkuId(), unitPrice.getCurrencyCode());
-            // Consider adding conversion logic if needed, otherwise return 0
+    private double getPricePerUnit(GcpSkuPrice sku, String expectedUsageUnit) {
+        if (sku == null) {
             return 0.0;
         }
 
-        String actualUsageUnit = pricingExpression.getUsageUnit();
-        if (!expectedUsageUnit.equalsIgnoreCase(actualUsageUnit)) {
-            log.warn("Unexpected usage unit for SKU {}: {} (expected: {})", sku.getSkuId(), actualUsageUnit,
+        if (!expectedUsageUnit.equalsIgnoreCase(sku.getUsageUnit())) {
+            log.warn("Unexpected usage unit for SKU {}: {} (expected: {})", sku.getSkuId(), sku.getUsageUnit(),
                     expectedUsageUnit);
             return 0.0;
         }
 
-        // Parse price: units.nanos (e.g., 0.040400000 for $0.0404)
-        BigDecimal price = new BigDecimal(unitPrice.getUnits())
-                .add(new BigDecimal(unitPrice.getNanos()).movePointLeft(9));
-        double pricePerUnit = price.doubleValue();
-
-        log.debug("SKU {} Price: ${} per {} (Currency: {})", sku.getSkuId(), pricePerUnit, actualUsageUnit,
-                unitPrice.getCurrencyCode());
-
+        double pricePerUnit = sku.getBaseUnitPrice();
+        log.debug("SKU {} Price: ${} per {}", sku.getSkuId(), pricePerUnit, sku.getUsageUnit());
         return pricePerUnit;
     }
 
@@ -410,9 +361,9 @@ public class GcpOptimizationService {
 
         log.info("Parsed tier '{}': {} vCPUs, {:.2f} GB RAM in region '{}'", tier, vcpus, ramGb, region);
 
-        // Find SKUs using Billing Catalog API
-        Optional<Sku> cpuSku = findCloudSqlSku(gcpProjectId, "CPU", region);
-        Optional<Sku> ramSku = findCloudSqlSku(gcpProjectId, "RAM", region);
+        // Find SKUs in the local Billing Catalog index
+        Optional<GcpSkuPrice> cpuSku = findCloudSqlSku(gcpProjectId, "CPU", region);
+        Optional<GcpSkuPrice> ramSku = findCloudSqlSku(gcpProjectId, "RAM", region);
 
         if (cpuSku.isEmpty() || ramSku.isEmpty()) {
             log.warn(
@@ -556,6 +507,13 @@ public class GcpOptimizationService {
 
     @Cacheable(value = "gcpWasteReport", key = "'gcp:waste-report:' + #gcpProjectId")
     public List<GcpWasteItem> getWasteReport(String gcpProjectId) {
+        return getWasteReportAsync(gcpProjectId).join();
+    }
+
+    /**
+     * Non-blocking variant for composite requests; completes when every waste check has.
+     */
+    public CompletableFuture<List<GcpWasteItem>> getWasteReportAsync(String gcpProjectId) {
         log.info("Starting waste report generation for GCP project: {}", gcpProjectId);
         List<CompletableFuture<List<GcpWasteItem>>> futures = new ArrayList<>();
 
@@ -572,11 +530,11 @@ public class GcpOptimizationService {
         futures.add(findUnusedFirewallRules(gcpProjectId));
         futures.add(findOldSqlSnapshots(gcpProjectId));
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()));
     }
 
     //
@@ -586,9 +544,14 @@ public class GcpOptimizationService {
     // @Cacheable(value = "gcpSavingsSummary", key = "'gcp:savings-summary:' +
     // #gcpProjectId")
     public DashboardData.SavingsSummary getSavingsSummary(String gcpProjectId) {
-        List<GcpWasteItem> waste = getWasteReport(gcpProjectId);
-        List<GcpOptimizationRecommendation> rightsizing = getRightsizingRecommendations(gcpProjectId);
+        return getSavingsSummary(getWasteReport(gcpProjectId), getRightsizingRecommendations(gcpProjectId));
+    }
 
+    /**
+     * Savings summary over waste and rightsizing results the caller already has.
+     */
+    public DashboardData.SavingsSummary getSavingsSummary(List<GcpWasteItem> waste,
+                                                          List<GcpOptimizationRecommendation> rightsizing) {
         double wasteSavings = waste.stream().mapToDouble(GcpWasteItem::getMonthlySavings).sum();
         double rightsizingSavings = rightsizing.stream()
                 .filter(r -> r.getMonthlySavings() >= 0) // Only count actual savings
@@ -614,9 +577,14 @@ public class GcpOptimizationService {
     // @Cacheable(value = "gcpOptimizationSummary", key =
     // "'gcp:optimization-summary:' + #gcpProjectId")
     public DashboardData.OptimizationSummary getOptimizationSummary(String gcpProjectId) {
-        List<GcpWasteItem> waste = getWasteReport(gcpProjectId);
-        List<GcpOptimizationRecommendation> rightsizing = getRightsizingRecommendations(gcpProjectId);
+        return getOptimizationSummary(getWasteReport(gcpProjectId), getRightsizingRecommendations(gcpProjectId));
+    }
 
+    /**
+     * Optimization summary over waste and rightsizing results the caller already has.
+     */
+    public DashboardData.OptimizationSummary getOptimizationSummary(List<GcpWasteItem> waste,
+                                                                    List<GcpOptimizationRecommendation> rightsizing) {
         double totalSavings = waste.stream().mapToDouble(GcpWasteItem::getMonthlySavings).sum()
                 + rightsizing.stream()
                         .filter(r -> r.getMonthlySavings() >= 0) // Only count actual savings
@@ -713,16 +681,15 @@ public class GcpOptimizationService {
         try {
             Optional<ProjectsClient> clientOpt = gcpClientProvider.getProjectsClient(gcpProjectId);
             if (clientOpt.isPresent()) {
-                try (ProjectsClient client = clientOpt.get()) {
-                    Project project = client.getProject("projects/" + gcpProjectId);
-                    // Project name format is "projects/{project_number}"
-                    String projectName = project.getName();
-                    if (projectName.contains("/")) {
-                        return projectName.split("/")[1];
-                    }
-                    // Fallback, though typically the format includes the slash
-                    return projectName;
+                ProjectsClient client = clientOpt.get();
+                Project project = client.getProject("projects/" + gcpProjectId);
+                // Project name format is "projects/{project_number}"
+                String projectName = project.getName();
+                if (projectName.contains("/")) {
+                    return projectName.split("/")[1];
                 }
+                // Fallback, though typically the format includes the slash
+                return projectName;
             }
         } catch (Exception e) {
             log.warn("Could not get project number for {}: {}", gcpProjectId, e.getMessage());
@@ -749,7 +716,9 @@ public class GcpOptimizationService {
                 return List.of();
             }
 
-            try (RecommenderClient client = clientOpt.get()) {
+            try {
+                RecommenderClient client = clientOpt.get();
+
                 String parent;
                 if (isProjectScope) {
                     parent = String.format("projects/%s/locations/%s/recommenders/%s",
@@ -877,7 +846,9 @@ public class GcpOptimizationService {
             if (clientOpt.isEmpty())
                 return List.of();
 
-            try (DisksClient client = clientOpt.get()) {
+            try {
+                DisksClient client = clientOpt.get();
+
                 return StreamSupport.stream(
                         client.aggregatedList(gcpProjectId).iterateAll().spliterator(),
                         false)
@@ -899,7 +870,7 @@ public class GcpOptimizationService {
                 log.error("Failed to list unattached disks for project {}:", gcpProjectId, e);
                 return List.of();
             }
-        }, executor);
+        }, computeExecutor);
     }
 
     private CompletableFuture<List<GcpWasteItem>> findUnusedCustomImages(String gcpProjectId) {
@@ -909,7 +880,9 @@ public class GcpOptimizationService {
             if (clientOpt.isEmpty())
                 return List.of();
 
-            try (ImagesClient client = clientOpt.get()) {
+            try {
+                ImagesClient client = clientOpt.get();
+
                 return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
                         // Refined check: Deprecated images
                         .filter(image -> image.hasDeprecated() && "DEPRECATED".equals(image.getDeprecated().getState()))
@@ -924,7 +897,7 @@ public class GcpOptimizationService {
                 log.error("Failed to list custom images for project {}:", gcpProjectId, e);
                 return List.of();
             }
-        }, executor);
+        }, computeExecutor);
     }
 
     private CompletableFuture<List<GcpWasteItem>> findUnusedFirewallRules(String gcpProjectId) {
@@ -934,7 +907,9 @@ public class GcpOptimizationService {
             if (clientOpt.isEmpty())
                 return List.of();
 
-            try (FirewallsClient client = clientOpt.get()) {
+            try {
+                FirewallsClient client = clientOpt.get();
+
                 return StreamSupport.stream(client.list(gcpProjectId).iterateAll().spliterator(), false)
                         .filter(Firewall::getDisabled) // Only finds explicitly disabled rules
                         .map(firewall -> new GcpWasteItem(
@@ -948,7 +923,7 @@ public class GcpOptimizationService {
                 log.error("Failed to list firewall rules for project {}:", gcpProjectId, e);
                 return List.of();
             }
-        }, executor);
+        }, computeExecutor);
     }
 
     private CompletableFuture<List<GcpWasteItem>> findIdleResources(
@@ -961,7 +936,9 @@ public class GcpOptimizationService {
             if (clientOpt.isEmpty())
                 return new ArrayList<>();
 
-            try (RecommenderClient client = clientOpt.get()) {
+            try {
+                RecommenderClient client = clientOpt.get();
+
                 // Most idle recommenders are global, but check specific recommender docs if
                 // needed
                 RecommenderName recommenderName = RecommenderName.of(gcpProjectId, "global", recommenderId);
@@ -1760,39 +1737,7 @@ public class GcpOptimizationService {
 
     /** Helper to find the BigQuery billing export table name */
     private Optional<String> getBillingTableName(BigQuery bigquery, String gcpProjectId) {
-        // Basic Caching could be added here
-        try {
-            // Prefer searching in the specific project first
-            for (Dataset dataset : bigquery.listDatasets(gcpProjectId).iterateAll()) {
-                for (Table table : bigquery.listTables(dataset.getDatasetId()).iterateAll()) {
-                    // Match standard v1 export pattern
-                    if (table.getTableId().getTable().startsWith("gcp_billing_export_v1_")) {
-                        String fullName = String.format("%s.%s.%s",
-                                table.getTableId().getProject(),
-                                table.getTableId().getDataset(),
-                                table.getTableId().getTable());
-                        log.info("Found billing table in project {}: {}", gcpProjectId, fullName);
-                        return Optional.of(fullName);
-                    }
-                }
-            }
-
-            // Fallback: If not found, log warning. A more robust solution might check a
-            // central billing project ID if configured.
-            log.warn(
-                    "Could not find billing table matching 'gcp_billing_export_v1_...' directly in project {}. Ensure billing export is set up correctly.",
-                    gcpProjectId);
-
-        } catch (BigQueryException bqEx) {
-            log.error("BigQuery API Error finding billing table in project {}: {} - {}", gcpProjectId, bqEx.getCode(),
-                    bqEx.getMessage());
-            if (bqEx.getError() != null) {
-                log.error("   Reason: {}, Location: {}", bqEx.getError().getReason(), bqEx.getError().getLocation());
-            }
-        } catch (Exception e) {
-            log.error("Failed to find billing table in project {}: {}", gcpProjectId, e.getMessage());
-        }
-        return Optional.empty(); // Return empty if not found or error occurred
+        return gcpClientProvider.getBillingTableName(bigquery, gcpProjectId);
     }
 
 }
\ No newline at end of file
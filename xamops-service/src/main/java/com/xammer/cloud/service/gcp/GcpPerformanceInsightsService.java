@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -36,6 +37,7 @@ public class GcpPerformanceInsightsService {
     private final GcpOptimizationService gcpOptimizationService;
     private final RedisCacheService redisCache;
     private final ObjectMapper objectMapper;
+    private final Executor computeExecutor;
 
     @Autowired
     public GcpPerformanceInsightsService(
@@ -45,7 +47,8 @@ public class GcpPerformanceInsightsService {
             @Lazy GcpDataService gcpDataService,
             @Lazy GcpOptimizationService gcpOptimizationService,
             RedisCacheService redisCache,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            GcpWorkloadScheduler workloadScheduler) {
         this.cloudAccountRepository = cloudAccountRepository;
         this.gcpClientProvider = gcpClientProvider;
         this.gcpMetricsService = gcpMetricsService;
@@ -53,6 +56,7 @@ public class GcpPerformanceInsightsService {
         this.gcpOptimizationService = gcpOptimizationService;
         this.redisCache = redisCache;
         this.objectMapper = objectMapper;
+        this.computeExecutor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.COMPUTE);
     }
 
     /**
@@ -154,7 +158,9 @@ public class GcpPerformanceInsightsService {
                 return insights;
             }
 
-            try (InstancesClient client = clientOpt.get()) {
+            try {
+                InstancesClient client = clientOpt.get();
+
                 StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
                         .flatMap(entry -> entry.getValue().getInstancesList().stream())
                         .filter(instance -> "RUNNING".equals(instance.getStatus()))
@@ -193,21 +199,26 @@ public class GcpPerformanceInsightsService {
             }
             log.info("Found {} GCE insights for project {}", insights.size(), gcpProjectId);
             return insights;
-        });
+        }, computeExecutor);
     }
 
     /**
      * Get Cloud SQL insights from optimization recommendations
      */
     private CompletableFuture<List<PerformanceInsightDto>> getCloudSqlInsights(CloudAccount account, boolean forceRefresh) {
-        return CompletableFuture.supplyAsync(() -> {
+        String gcpProjectId = account.getGcpProjectId();
+        log.info("Checking Cloud SQL insights for project {}", gcpProjectId);
+
+        // Composed on the rightsizing fan-out rather than blocking a worker until it finishes
+        return gcpOptimizationService.getRightsizingRecommendationsAsync(gcpProjectId).handle((recommendations, ex) -> {
             List<PerformanceInsightDto> insights = new ArrayList<>();
-            String gcpProjectId = account.getGcpProjectId();
-            log.info("Checking Cloud SQL insights for project {}", gcpProjectId);
+            if (ex != null) {
+                log.error("Error fetching rightsizing recommendations for Cloud SQL insights in project {}: {}", gcpProjectId, ex.getMessage());
+                return insights;
+            }
 
             try {
-                // Fetch recommendations
-                List<?> rawRecs = gcpOptimizationService.getRightsizingRecommendations(gcpProjectId);
+                List<?> rawRecs = recommendations;
 
                 // Convert map back to DTO if necessary (cache serialization issue)
                 List<GcpOptimizationRecommendation> recs;
@@ -265,7 +276,9 @@ public class GcpPerformanceInsightsService {
                 return insights;
             }
 
-            try (DisksClient client = clientOpt.get()) {
+            try {
+                DisksClient client = clientOpt.get();
+
                 StreamSupport.stream(client.aggregatedList(gcpProjectId).iterateAll().spliterator(), false)
                         .flatMap(entry -> entry.getValue().getDisksList().stream())
                         .forEach(disk -> {
@@ -296,7 +309,7 @@ public class GcpPerformanceInsightsService {
             }
             log.info("Found {} Persistent Disk insights for project {}", insights.size(), gcpProjectId);
             return insights;
-        });
+        }, computeExecutor);
     }
 
     /**
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +22,7 @@ public class GcpSecurityService {
 
     private final GcpClientProvider gcpClientProvider;
     private final RedisCacheService redisCacheService;
+    private final Executor executor;
 
     private static final String SECURITY_FINDINGS_CACHE_PREFIX = "gcp:security-findings:";
     private static final String IAM_POLICY_DRIFT_CACHE_PREFIX = "gcp:iam-policy-drift:";
@@ -30,9 +32,11 @@ public class GcpSecurityService {
             "roles/owner", List.of(new GcpIamPolicyDriftDto.DriftDetail("user:admin@example.com", "roles/owner", "BASELINE"))
     );
 
-    public GcpSecurityService(GcpClientProvider gcpClientProvider, RedisCacheService redisCacheService) {
+    public GcpSecurityService(GcpClientProvider gcpClientProvider, RedisCacheService redisCacheService,
+                              GcpWorkloadScheduler workloadScheduler) {
         this.gcpClientProvider = gcpClientProvider;
         this.redisCacheService = redisCacheService;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
     }
 
     /**
@@ -62,7 +66,7 @@ public class GcpSecurityService {
             redisCacheService.put(cacheKey, result, 10);
 
             return result;
-        });
+        }, executor);
     }
 
     /**
@@ -92,7 +96,7 @@ public class GcpSecurityService {
             redisCacheService.put(cacheKey, result, 10);
 
             return result;
-        });
+        }, executor);
     }
 
     /**
@@ -125,7 +129,8 @@ public class GcpSecurityService {
             }
 
             List<GcpSecurityFinding> findings = new ArrayList<>();
-            try (SecurityCenterClient client = clientOpt.get()) {
+            try {
+                SecurityCenterClient client = clientOpt.get();
                 String parent = String.format("projects/%s/sources/-", gcpProjectId);
                 log.info("Fetching security findings for project {} from parent {} using V2 API",
                         gcpProjectId, parent);
@@ -153,7 +158,7 @@ public class GcpSecurityService {
             }
 
             return findings;
-        });
+        }, executor);
     }
 
     /**
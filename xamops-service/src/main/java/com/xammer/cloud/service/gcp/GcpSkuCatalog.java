@@ -0,0 +1,236 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.billing.v1.CloudCatalogClient;
+import com.google.cloud.billing.v1.ListSkusRequest;
+import com.google.cloud.billing.v1.Sku;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * Local index of the Cloud Billing Catalog list prices the estimators need. Each service's SKUs
+ * are streamed page by page into compact {@link GcpSkuPrice} entries and bucketed by
+ * (service, region, resource group, usage type), so pricing a Cloud SQL tier or a CUD is a map
+ * lookup plus a scan of a handful of candidates instead of listing thousands of SKUs per call.
+ *
+ * List prices are the same for every project, so the index is shared. The first lookup for a
+ * service loads it on the caller thread; once a snapshot is older than
+ * {@code gcp.sku-catalog.max-age-hours} it is rebuilt in the background with the credentials of
+ * whichever project asked, while readers keep using the previous snapshot.
+ */
+@Service
+@Slf4j
+public class GcpSkuCatalog {
+
+    public static final String CLOUD_SQL_SERVICE = "services/9662-B51E-5089";
+    public static final String COMPUTE_ENGINE_SERVICE = "services/6F81-5844-456A";
+    public static final String ON_DEMAND = "OnDemand";
+    public static final String COMMIT_1_YEAR = "Commit1Yr";
+    public static final String COMMIT_3_YEAR = "Commit3Yr";
+
+    private static final String CURRENCY = "USD";
+    private static final String GLOBAL_REGION = "global";
+
+    private final GcpClientProvider gcpClientProvider;
+    private final Executor executor;
+    private final Map<String, ServiceIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter loads;
+
+    @Value("${gcp.sku-catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gcp.sku-catalog.max-age-hours:24}")
+    private long maxAgeHours;
+
+    public GcpSkuCatalog(GcpClientProvider gcpClientProvider,
+                         GcpWorkloadScheduler workloadScheduler,
+                         MeterRegistry meterRegistry) {
+        this.gcpClientProvider = gcpClientProvider;
+        this.executor = workloadScheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL);
+        this.hits = Counter.builder("xamops.gcp.sku.catalog.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("xamops.gcp.sku.catalog.lookups").tag("result", "miss").register(meterRegistry);
+        this.loads = Counter.builder("xamops.gcp.sku.catalog.loads")
+                .description("Billing Catalog services listed into the local SKU index")
+                .register(meterRegistry);
+        Gauge.builder("xamops.gcp.sku.catalog.entries", indexes,
+                        map -> map.values().stream().mapToInt(index -> index.size).sum())
+                .description("SKUs held in the local GCP price index")
+                .register(meterRegistry);
+    }
+
+    // ===== LOOKUPS =====
+
+    /**
+     * First USD SKU of {@code service} offered in {@code region} with the given resource group
+     * and usage type (e.g. "CPU", {@link #ON_DEMAND}) that satisfies {@code filter}. Global SKUs
+     * are considered when nothing region-specific matches.
+     *
+     * @param gcpProjectId project whose credentials are used if the service still has to be listed
+     */
+    public Optional<GcpSkuPrice> find(String gcpProjectId, String service, String region, String resourceGroup,
+                                      String usageType, Predicate<GcpSkuPrice> filter) {
+        ServiceIndex index = indexFor(gcpProjectId, service);
+        if (index == null || region == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        Optional<GcpSkuPrice> match = index.candidates(region, resourceGroup, usageType).stream()
+                .filter(filter)
+                .findFirst();
+        if (match.isEmpty() && !GLOBAL_REGION.equals(region)) {
+            match = index.candidates(GLOBAL_REGION, resourceGroup, usageType).stream().filter(filter).findFirst();
+        }
+        (match.isPresent() ? hits : misses).increment();
+        return match;
+    }
+
+    /**
+     * Same as {@link #find} but matches on description words, e.g. "Custom Instance Core" matches
+     * any SKU whose description contains those three words in any order.
+     */
+    public Optional<GcpSkuPrice> findByDescription(String gcpProjectId, String service, String region,
+                                                   String resourceGroup, String usageType, String descriptionWords) {
+        Set<String> tokens = GcpSkuPrice.tokenize(descriptionWords);
+        return find(gcpProjectId, service, region, resourceGroup, usageType, sku -> sku.hasTokens(tokens));
+    }
+
+    /**
+     * All SKUs in one bucket, for estimators that need to compare several candidates.
+     */
+    public List<GcpSkuPrice> list(String gcpProjectId, String service, String region, String resourceGroup,
+                                  String usageType) {
+        ServiceIndex index = indexFor(gcpProjectId, service);
+        return index == null || region == null ? Collections.emptyList()
+                : index.candidates(region, resourceGroup, usageType);
+    }
+
+    public boolean isLoaded(String service) {
+        return indexes.containsKey(service);
+    }
+
+    // ===== LOADING =====
+
+    private ServiceIndex indexFor(String gcpProjectId, String service) {
+        if (!enabled) return null;
+        ServiceIndex index = indexes.get(service);
+        if (index == null) {
+            // One listing per service no matter how many estimators ask at once
+            synchronized (loadLocks.computeIfAbsent(service, s -> new Object())) {
+                index = indexes.get(service);
+                if (index == null) {
+                    index = load(gcpProjectId, service);
+                }
+            }
+        } else if (index.isOlderThan(maxAgeHours) && refreshing.add(service)) {
+            executor.execute(() -> {
+                try {
+                    load(gcpProjectId, service);
+                } finally {
+                    refreshing.remove(service);
+                }
+            });
+        }
+        return index;
+    }
+
+    private ServiceIndex load(String gcpProjectId, String service) {
+        Optional<CloudCatalogClient> clientOpt = gcpClientProvider.getCloudCatalogClient(gcpProjectId);
+        if (clientOpt.isEmpty()) {
+            log.warn("CloudCatalogClient not available for project {}; SKU index for {} not loaded", gcpProjectId, service);
+            return indexes.get(service);
+        }
+
+        long started = System.currentTimeMillis();
+        try {
+            CloudCatalogClient client = clientOpt.get();
+            ListSkusRequest request = ListSkusRequest.newBuilder()
+                    .setParent(service)
+                    .setCurrencyCode(CURRENCY)
+                    .build();
+
+            IndexBuilder builder = new IndexBuilder();
+            for (Sku sku : client.listSkus(request).iterateAll()) {
+                builder.add(GcpSkuPrice.from(sku));
+            }
+            ServiceIndex index = builder.build();
+            if (index.size == 0) {
+                log.warn("Billing Catalog returned no priced SKUs for {}; keeping the current index", service);
+                return indexes.get(service);
+            }
+            indexes.put(service, index);
+            loads.increment();
+            log.info("✅ GCP SKU index for {} loaded: {} SKUs in {} ms", service, index.size,
+                    System.currentTimeMillis() - started);
+            return index;
+        } catch (Exception e) {
+            log.error("Failed to load Billing Catalog SKUs for {} using project {}: {}", service, gcpProjectId,
+                    e.getMessage(), e);
+            return indexes.get(service);
+        }
+    }
+
+    private static String bucketKey(String region, String resourceGroup, String usageType) {
+        return (region + "|" + resourceGroup + "|" + usageType).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable snapshot of one service's SKUs, bucketed by region, resource group and usage type.
+     */
+    private static final class ServiceIndex {
+        private final Map<String, List<GcpSkuPrice>> buckets;
+        private final int size;
+        private final long loadedAt = System.currentTimeMillis();
+
+        ServiceIndex(Map<String, List<GcpSkuPrice>> buckets, int size) {
+            this.buckets = buckets;
+            this.size = size;
+        }
+
+        List<GcpSkuPrice> candidates(String region, String resourceGroup, String usageType) {
+            return buckets.getOrDefault(bucketKey(region, resourceGroup, usageType), Collections.emptyList());
+        }
+
+        boolean isOlderThan(long hours) {
+            return System.currentTimeMillis() - loadedAt > hours * 3_600_000L;
+        }
+    }
+
+    private static final class IndexBuilder {
+        private final Map<String, List<GcpSkuPrice>> buckets = new HashMap<>();
+        private int size;
+
+        void add(GcpSkuPrice sku) {
+            if (sku == null || !CURRENCY.equals(sku.getCurrency())) return;
+            for (String region : sku.getRegions()) {
+                buckets.computeIfAbsent(bucketKey(region, sku.getResourceGroup(), sku.getUsageType()),
+                        key -> new ArrayList<>()).add(sku);
+            }
+            size++;
+        }
+
+        ServiceIndex build() {
+            Map<String, List<GcpSkuPrice>> frozen = new HashMap<>(buckets.size() * 2);
+            buckets.forEach((key, skus) -> frozen.put(key, List.copyOf(skus)));
+            return new ServiceIndex(Collections.unmodifiableMap(frozen), size);
+        }
+    }
+}
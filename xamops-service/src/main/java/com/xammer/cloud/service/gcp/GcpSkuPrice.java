@@ -0,0 +1,114 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.billing.v1.PricingExpression;
+import com.google.cloud.billing.v1.Sku;
+import com.google.type.Money;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compact, immutable copy of the parts of a Cloud Billing Catalog SKU the estimators use. Tier
+ * prices are converted to plain doubles once, at snapshot time.
+ */
+@Getter
+public final class GcpSkuPrice {
+
+    private final String skuId;
+    private final String serviceName;
+    private final String description;
+    private final String resourceFamily;
+    private final String resourceGroup;
+    private final String usageType;
+    private final List<String> regions;
+    private final String usageUnit;
+    private final String currency;
+    // Tier i applies from tierStarts[i] units (inclusive) at tierPrices[i] per unit
+    private final double[] tierStarts;
+    private final double[] tierPrices;
+    private final Set<String> descriptionTokens;
+
+    private GcpSkuPrice(Sku sku, PricingExpression expression, String currency, double[] tierStarts, double[] tierPrices) {
+        this.skuId = sku.getSkuId();
+        this.serviceName = sku.getCategory().getServiceDisplayName();
+        this.description = sku.getDescription();
+        this.resourceFamily = sku.getCategory().getResourceFamily();
+        this.resourceGroup = sku.getCategory().getResourceGroup();
+        this.usageType = sku.getCategory().getUsageType();
+        this.regions = List.copyOf(sku.getServiceRegionsList());
+        this.usageUnit = expression.getUsageUnit();
+        this.currency = currency;
+        this.tierStarts = tierStarts;
+        this.tierPrices = tierPrices;
+        this.descriptionTokens = Collections.unmodifiableSet(tokenize(sku.getDescription()));
+    }
+
+    /**
+     * Converts the SKU's current pricing expression; returns null for SKUs without a priced tier.
+     */
+    static GcpSkuPrice from(Sku sku) {
+        if (sku.getPricingInfoCount() == 0) return null;
+        PricingExpression expression = sku.getPricingInfo(0).getPricingExpression();
+        int tiers = expression.getTieredRatesCount();
+        if (tiers == 0) return null;
+
+        double[] starts = new double[tiers];
+        double[] prices = new double[tiers];
+        String currency = null;
+        for (int i = 0; i < tiers; i++) {
+            PricingExpression.TierRate rate = expression.getTieredRates(i);
+            Money unitPrice = rate.getUnitPrice();
+            currency = unitPrice.getCurrencyCode();
+            starts[i] = rate.getStartUsageAmount();
+            prices[i] = unitPrice.getUnits() + unitPrice.getNanos() / 1_000_000_000d;
+        }
+        return new GcpSkuPrice(sku, expression, currency, starts, prices);
+    }
+
+    /**
+     * Price of the first tier, i.e. what the estimators historically used.
+     */
+    public double getBaseUnitPrice() {
+        return tierPrices[0];
+    }
+
+    /**
+     * Unit price that applies once {@code usage} units have been consumed.
+     */
+    public double getUnitPriceAt(double usage) {
+        int tier = 0;
+        while (tier + 1 < tierStarts.length && usage >= tierStarts[tier + 1]) tier++;
+        return tierPrices[tier];
+    }
+
+    /**
+     * Total cost of {@code usage} units, walking the tiers.
+     */
+    public double costOf(double usage) {
+        double cost = 0;
+        for (int i = 0; i < tierStarts.length && usage > tierStarts[i]; i++) {
+            double upper = i + 1 < tierStarts.length ? Math.min(usage, tierStarts[i + 1]) : usage;
+            cost += (upper - tierStarts[i]) * tierPrices[i];
+        }
+        return cost;
+    }
+
+    public boolean hasTokens(Set<String> tokens) {
+        return descriptionTokens.containsAll(tokens);
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return new HashSet<>();
+        return new HashSet<>(Arrays.asList(text.toLowerCase(Locale.ROOT).split("[^a-z0-9.]+")));
+    }
+
+    @Override
+    public String toString() {
+        return skuId + " (" + description + ")";
+    }
+}
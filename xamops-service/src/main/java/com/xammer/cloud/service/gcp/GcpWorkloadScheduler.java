@@ -0,0 +1,308 @@
+package com.xammer.cloud.service.gcp;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Central scheduler for GCP API fan-outs. Each API family gets a fixed-size worker pool so a
+ * multi-project scan cannot grow the thread count, and queued work is served round-robin per
+ * tenant (weighted by {@code gcp.scheduler.tenant-weights}) so one large tenant cannot starve
+ * the others.
+ *
+ * When a family's queue (or a tenant's share of it) is full the submitting thread runs the task
+ * itself, which slows producers down instead of dropping work. Tasks submitted from a worker of
+ * the same family also run inline, so nested fan-outs cannot deadlock the pool.
+ */
+@Component
+@Slf4j
+public class GcpWorkloadScheduler {
+
+    public enum ApiFamily {
+        BIGQUERY("bigquery", 8),
+        COMPUTE("compute", 16),
+        MONITORING("monitoring", 8),
+        ASSET("asset", 4),
+        // IAM, Recommender, Security Command Center, billing and the other control-plane APIs
+        GENERAL("general", 16),
+        // Composite requests (dashboards, reports) that only wait on the families above
+        AGGREGATION("aggregation", 8);
+
+        private final String key;
+        private final int defaultThreads;
+
+        ApiFamily(String key, int defaultThreads) {
+            this.key = key;
+            this.defaultThreads = defaultThreads;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final String DEFAULT_TENANT = "default";
+    private static final ThreadLocal<ApiFamily> WORKER_FAMILY = new ThreadLocal<>();
+
+    private final Map<ApiFamily, FamilyPool> pools = new EnumMap<>(ApiFamily.class);
+    private final Map<String, Integer> tenantWeights;
+
+    public GcpWorkloadScheduler(Environment environment,
+                                MeterRegistry meterRegistry,
+                                ThreadGovernor threadGovernor,
+                                @Value("${gcp.scheduler.queue-capacity:2000}") int queueCapacity,
+                                @Value("${gcp.scheduler.tenant-queue-capacity:500}") int tenantQueueCapacity,
+                                @Value("${gcp.scheduler.tenant-weights:}") String tenantWeights) {
+        this.tenantWeights = parseWeights(tenantWeights);
+        for (ApiFamily family : ApiFamily.values()) {
+            int threads = environment.getProperty("gcp.scheduler." + family.key + ".threads",
+                    Integer.class, family.defaultThreads);
+            String poolName = "GCP-" + family.key;
+            FamilyPool pool = new FamilyPool(family, threadGovernor.grant(poolName, threads), queueCapacity,
+                    tenantQueueCapacity, meterRegistry);
+            pool.start(threadGovernor.threadFactory(poolName));
+            pools.put(family, pool);
+        }
+        log.info("GCP workload scheduler started: {}", describePools());
+    }
+
+    /**
+     * Executor for one API family, for use with {@code CompletableFuture.supplyAsync(..., executor)}.
+     */
+    public Executor executor(ApiFamily family) {
+        return pools.get(family);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(ApiFamily family, Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor(family));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(FamilyPool::shutdown);
+    }
+
+    private int weightOf(String tenant) {
+        return tenantWeights.getOrDefault(tenant, 1);
+    }
+
+    private String describePools() {
+        List<String> parts = new ArrayList<>();
+        pools.forEach((family, pool) -> parts.add(family.key + "=" + pool.threads));
+        return String.join(", ", parts);
+    }
+
+    // "tenantA=3,tenantB=2" -> {tenantA=3, tenantB=2}
+    private static Map<String, Integer> parseWeights(String spec) {
+        Map<String, Integer> weights = new HashMap<>();
+        if (spec == null || spec.isBlank()) return weights;
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) continue;
+            try {
+                weights.put(parts[0].trim(), Math.max(1, Integer.parseInt(parts[1].trim())));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid tenant weight '{}'", entry);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Fixed set of workers draining per-tenant queues in weighted round-robin order.
+     */
+    private final class FamilyPool implements Executor {
+
+        private final ApiFamily family;
+        private final int threads;
+        private final int capacity;
+        private final int tenantCapacity;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Map<String, ArrayDeque<Runnable>> queues = new HashMap<>();
+        // Tenants with pending work; the head is the tenant currently being served
+        private final ArrayDeque<String> ring = new ArrayDeque<>();
+        private final List<Thread> workers = new ArrayList<>();
+        private final AtomicInteger active = new AtomicInteger();
+        private final Counter callerRuns;
+        private final Timer queueWait;
+
+        private volatile int queued;
+        private volatile boolean running = true;
+        private int servedInTurn;
+
+        FamilyPool(ApiFamily family, int threads, int capacity, int tenantCapacity, MeterRegistry meterRegistry) {
+            this.family = family;
+            this.threads = Math.max(1, threads);
+            this.capacity = capacity;
+            this.tenantCapacity = tenantCapacity;
+
+            Gauge.builder("xamops.gcp.scheduler.queue.depth", this, pool -> pool.queued)
+                    .description("Tasks waiting for a GCP API worker")
+                    .tag("family", family.key)
+                    .register(meterRegistry);
+            Gauge.builder("xamops.gcp.scheduler.active", active, AtomicInteger::get)
+                    .description("GCP API workers currently running a task")
+                    .tag("family", family.key)
+                    .register(meterRegistry);
+            Gauge.builder("xamops.gcp.scheduler.threads", this, pool -> pool.threads)
+                    .description("Size of the GCP API worker pool")
+                    .tag("family", family.key)
+                    .register(meterRegistry);
+            this.callerRuns = Counter.builder("xamops.gcp.scheduler.caller.runs")
+                    .description("Tasks run on the submitting thread because the queue was full")
+                    .tag("family", family.key)
+                    .register(meterRegistry);
+            this.queueWait = Timer.builder("xamops.gcp.scheduler.queue.wait")
+                    .description("Time GCP API tasks spend queued before a worker picks them up")
+                    .tag("family", family.key)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        void start(ThreadFactory threadFactory) {
+            for (int i = 0; i < threads; i++) {
+                Thread worker = threadFactory.newThread(this::work);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            String tenantId = TenantContext.getCurrentTenant();
+            String tenant = tenantId != null ? tenantId : DEFAULT_TENANT;
+
+            if (WORKER_FAMILY.get() == family) {
+                command.run();
+                return;
+            }
+
+            long enqueuedAt = System.nanoTime();
+            Runnable task = () -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                runAsTenant(tenantId, command);
+            };
+
+            lock.lock();
+            try {
+                ArrayDeque<Runnable> queue = queues.get(tenant);
+                int tenantDepth = queue != null ? queue.size() : 0;
+                if (running && queued < capacity && tenantDepth < tenantCapacity) {
+                    if (queue == null) {
+                        queue = new ArrayDeque<>();
+                        queues.put(tenant, queue);
+                        ring.addLast(tenant);
+                    }
+                    queue.addLast(task);
+                    queued++;
+                    notEmpty.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Backpressure: the submitter does the work itself instead of growing the queue
+            callerRuns.increment();
+            log.debug("GCP {} queue full for tenant {} - running on caller thread", family.key, tenant);
+            command.run();
+        }
+
+        private Runnable take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (queued == 0) {
+                    if (!running) return null;
+                    notEmpty.await();
+                }
+                String tenant = ring.peekFirst();
+                ArrayDeque<Runnable> queue = queues.get(tenant);
+                Runnable task = queue.pollFirst();
+                queued--;
+                servedInTurn++;
+                if (queue.isEmpty()) {
+                    queues.remove(tenant);
+                    ring.pollFirst();
+                    servedInTurn = 0;
+                } else if (servedInTurn >= weightOf(tenant)) {
+                    ring.addLast(ring.pollFirst());
+                    servedInTurn = 0;
+                }
+                return task;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void work() {
+            WORKER_FAMILY.set(family);
+            try {
+                while (true) {
+                    Runnable task = take();
+                    if (task == null) return;
+                    active.incrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        log.error("Uncaught error in GCP {} worker: {}", family.key, t.getMessage(), t);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void shutdown() {
+            lock.lock();
+            try {
+                running = false;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            workers.forEach(Thread::interrupt);
+        }
+    }
+
+    // Pool threads outlive requests, so the tenant is carried explicitly rather than inherited
+    private static void runAsTenant(String tenantId, Runnable command) {
+        String previous = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            command.run();
+        } finally {
+            if (previous != null) {
+                TenantContext.setCurrentTenant(previous);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+}
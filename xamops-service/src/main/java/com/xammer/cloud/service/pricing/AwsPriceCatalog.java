@@ -0,0 +1,249 @@
+package com.xammer.cloud.service.pricing;
+
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Offline AWS price catalog. Prices are imported from the public bulk price-list files into a
+ * versioned, memory-mapped snapshot on local disk, so pricing a scan of thousands of resources
+ * costs a binary search per lookup instead of a Pricing API round trip.
+ *
+ * A refresh writes a new snapshot next to the current one, flips the {@code CURRENT} pointer
+ * with an atomic rename and then swaps the in-memory index; readers always see either the old
+ * or the new snapshot, never a partial one. Lookups return empty when the catalog has not been
+ * built yet so callers can fall back to the live API.
+ *
+ * An instance with no snapshot only imports at startup when {@code pricing.catalog.import-on-startup}
+ * is set; the import downloads every offer file and runs on a single governed thread, not on the
+ * thread that starts the context.
+ */
+@Service
+public class AwsPriceCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsPriceCatalog.class);
+    private static final String CURRENT_POINTER = "CURRENT";
+    private static final String SNAPSHOT_PREFIX = "aws-prices-";
+    private static final String SNAPSHOT_SUFFIX = ".idx";
+
+    private final AwsPriceListImporter importer;
+    private final ThreadPoolExecutor importExecutor;
+    private final AtomicReference<PriceIndex> index = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${pricing.catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pricing.catalog.dir:${user.home}/.xamops/pricing}")
+    private String snapshotDir;
+
+    @Value("${pricing.catalog.regions:us-east-1,us-east-2,us-west-1,us-west-2,ap-south-1,ap-northeast-1,ap-northeast-2,ap-southeast-1,ap-southeast-2,ca-central-1,eu-central-1,eu-west-1,eu-west-2,eu-west-3,eu-north-1,sa-east-1}")
+    private List<String> regions;
+
+    @Value("${pricing.catalog.import-on-startup:false}")
+    private boolean importOnStartup;
+
+    public AwsPriceCatalog(AwsPriceListImporter importer, MeterRegistry meterRegistry, ThreadGovernor threadGovernor) {
+        this.importer = importer;
+        // One import at a time; a second request while one is queued or running is redundant
+        this.importExecutor = threadGovernor.newExecutor("aws-price-catalog", 1, 1, new ThreadPoolExecutor.DiscardPolicy());
+        this.hits = Counter.builder("xamops.pricing.catalog.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("xamops.pricing.catalog.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("xamops.pricing.catalog.entries", index, ref -> ref.get() == null ? 0 : ref.get().size())
+                .description("Prices held in the offline AWS price catalog")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            logger.info("AWS price catalog disabled; pricing falls back to the live Pricing API");
+            return;
+        }
+        try {
+            loadCurrentSnapshot();
+        } catch (Exception e) {
+            logger.warn("Could not load AWS price catalog snapshot from {}: {}", snapshotDir, e.getMessage());
+        }
+        if (index.get() == null) {
+            if (importOnStartup) {
+                importExecutor.execute(this::refresh);
+            } else {
+                logger.info("No AWS price catalog snapshot in {}; pricing uses the live Pricing API until the next refresh",
+                        snapshotDir);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    // ===== LOOKUPS =====
+
+    public OptionalDouble getEc2HourlyPrice(String region, String instanceType, String operatingSystem, String tenancy) {
+        return lookup(AwsPriceListImporter.EC2, region, instanceType, operatingSystem, tenancy, AwsPriceListImporter.ON_DEMAND);
+    }
+
+    public OptionalDouble getEc2HourlyPrice(String region, String instanceType) {
+        return getEc2HourlyPrice(region, instanceType, "Linux", "Shared");
+    }
+
+    /**
+     * Effective hourly rate of a standard, no-upfront reserved instance; {@code term} is "1yr" or "3yr".
+     */
+    public OptionalDouble getEc2ReservedHourlyPrice(String region, String instanceType, String term) {
+        return lookup(AwsPriceListImporter.EC2, region, instanceType, "Linux", "Shared", "Reserved-" + term);
+    }
+
+    public OptionalDouble getEbsGbMonthPrice(String region, String volumeType) {
+        return lookup(AwsPriceListImporter.EC2, region, "ebs:" + volumeType, "", "", AwsPriceListImporter.ON_DEMAND);
+    }
+
+    public OptionalDouble getIdleIpHourlyPrice(String region) {
+        OptionalDouble price = lookup(AwsPriceListImporter.EC2, region, "ip:PublicIPv4:IdleAddress", "", "",
+                AwsPriceListImporter.ON_DEMAND);
+        return price.isPresent() ? price
+                : lookup(AwsPriceListImporter.EC2, region, "ip:ElasticIP:IdleAddress", "", "", AwsPriceListImporter.ON_DEMAND);
+    }
+
+    public OptionalDouble getRdsHourlyPrice(String region, String instanceClass, String engine, boolean multiAz) {
+        return lookup(AwsPriceListImporter.RDS, region, instanceClass, toPricingEngine(engine),
+                multiAz ? "Multi-AZ" : "Single-AZ", AwsPriceListImporter.ON_DEMAND);
+    }
+
+    public boolean isLoaded() {
+        return index.get() != null;
+    }
+
+    private OptionalDouble lookup(String service, String region, String product, String os, String tenancy, String term) {
+        PriceIndex current = index.get();
+        if (current == null || region == null || product == null) return OptionalDouble.empty();
+        OptionalDouble price = current.lookup(service, region, product, os, tenancy, term);
+        (price.isPresent() ? hits : misses).increment();
+        return price;
+    }
+
+    // RDS API engine names ("aurora-postgresql", "sqlserver-se") -> price list "Database Engine",
+    // followed by the "Database Edition" for the engines that are priced per edition
+    static String toPricingEngine(String engine) {
+        if (engine == null) return "";
+        String e = engine.toLowerCase(Locale.ROOT);
+        if (e.startsWith("aurora-postgresql")) return "Aurora PostgreSQL";
+        if (e.startsWith("aurora")) return "Aurora MySQL";
+        if (e.startsWith("postgres")) return "PostgreSQL";
+        if (e.startsWith("mysql")) return "MySQL";
+        if (e.startsWith("mariadb")) return "MariaDB";
+        if (e.startsWith("oracle-ee")) return "Oracle Enterprise";
+        if (e.startsWith("oracle-se2")) return "Oracle Standard Two";
+        if (e.startsWith("oracle-se1")) return "Oracle Standard One";
+        if (e.startsWith("oracle-se")) return "Oracle Standard";
+        if (e.startsWith("oracle")) return "Oracle";
+        if (e.startsWith("sqlserver-ee")) return "SQL Server Enterprise";
+        if (e.startsWith("sqlserver-se")) return "SQL Server Standard";
+        if (e.startsWith("sqlserver-ex")) return "SQL Server Express";
+        if (e.startsWith("sqlserver-web")) return "SQL Server Web";
+        if (e.startsWith("sqlserver")) return "SQL Server";
+        return engine;
+    }
+
+    // ===== REFRESH =====
+
+    /**
+     * Re-imports the offer files and atomically replaces the current snapshot. Runs weekly; the
+     * public price list changes rarely and a stale price only skews savings estimates.
+     */
+    @Scheduled(cron = "${pricing.catalog.refresh-cron:0 0 3 * * SUN}")
+    public void refresh() {
+        if (!enabled || !refreshing.compareAndSet(false, true)) return;
+        long started = System.currentTimeMillis();
+        try {
+            Map<Long, Double> prices = new HashMap<>();
+            for (String region : regions) {
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.info("AWS price catalog import interrupted; keeping the current snapshot");
+                    return;
+                }
+                for (String service : List.of(AwsPriceListImporter.EC2, AwsPriceListImporter.RDS)) {
+                    try {
+                        importer.importOfferFile(service, region.trim(), prices);
+                    } catch (IOException e) {
+                        logger.error("Failed to import {} price list for {}: {}", service, region, e.getMessage());
+                    }
+                }
+            }
+            if (prices.isEmpty()) {
+                logger.warn("AWS price catalog import produced no prices; keeping the current snapshot");
+                return;
+            }
+
+            Path dir = Files.createDirectories(Paths.get(snapshotDir));
+            Path snapshot = dir.resolve(SNAPSHOT_PREFIX + started + SNAPSHOT_SUFFIX);
+            PriceIndex.write(snapshot, prices, started);
+
+            Path pointerTmp = dir.resolve(CURRENT_POINTER + ".tmp");
+            Files.write(pointerTmp, snapshot.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(pointerTmp, dir.resolve(CURRENT_POINTER), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            PriceIndex previous = index.getAndSet(PriceIndex.open(snapshot));
+            logger.info("✅ AWS price catalog refreshed: {} prices in {} ms", prices.size(),
+                    System.currentTimeMillis() - started);
+            deleteStaleSnapshots(dir, snapshot, previous);
+        } catch (Exception e) {
+            logger.error("AWS price catalog refresh failed", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void loadCurrentSnapshot() throws IOException {
+        Path dir = Paths.get(snapshotDir);
+        Path pointer = dir.resolve(CURRENT_POINTER);
+        if (!Files.exists(pointer)) return;
+
+        String name = new String(Files.readAllBytes(pointer), StandardCharsets.UTF_8).trim();
+        PriceIndex loaded = PriceIndex.open(dir.resolve(name));
+        index.set(loaded);
+        logger.info("Loaded AWS price catalog snapshot {} ({} prices)", name, loaded.size());
+    }
+
+    // Keeps the new snapshot and the one it replaced; older ones are no longer mapped
+    private void deleteStaleSnapshots(Path dir, Path current, PriceIndex previous) {
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(dir, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path snapshot : snapshots) {
+                if (snapshot.equals(current) || (previous != null && snapshot.equals(previous.getFile()))) continue;
+                Files.deleteIfExists(snapshot);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not clean up old price catalog snapshots in {}: {}", dir, e.getMessage());
+        }
+    }
+}
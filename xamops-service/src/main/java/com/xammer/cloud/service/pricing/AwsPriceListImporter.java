@@ -0,0 +1,225 @@
+package com.xammer.cloud.service.pricing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Streams the public AWS bulk price-list CSV offer files (one file per service and region) and
+ * keeps only the rows the optimisation and rightsizing paths price against: EC2 instances, EBS
+ * volumes and idle public IPs, and RDS instances. Rows are parsed one line at a time, so a
+ * multi-hundred-megabyte offer file never has to fit in memory.
+ */
+@Component
+public class AwsPriceListImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsPriceListImporter.class);
+
+    public static final String EC2 = "AmazonEC2";
+    public static final String RDS = "AmazonRDS";
+    public static final String ON_DEMAND = "OnDemand";
+
+    // "USE2-PublicIPv4:IdleAddress" -> "PublicIPv4:IdleAddress"
+    private static final Pattern USAGE_TYPE_REGION_PREFIX = Pattern.compile("^[A-Z]{2,4}\\d*-");
+    // Offer files start with a few "Key","Value" metadata lines before the header row
+    private static final int MAX_METADATA_LINES = 10;
+
+    @Value("${pricing.catalog.source-url:https://pricing.us-east-1.amazonaws.com/offers/v1.0/aws/{service}/current/{region}/index.csv}")
+    private String sourceUrlTemplate;
+
+    @Value("${pricing.catalog.connect-timeout-ms:10000}")
+    private int connectTimeoutMs;
+
+    @Value("${pricing.catalog.read-timeout-ms:120000}")
+    private int readTimeoutMs;
+
+    /**
+     * Imports one service/region offer file into {@code prices} (key hash -> USD unit price).
+     *
+     * @return number of rows kept
+     */
+    public int importOfferFile(String service, String region, Map<Long, Double> prices) throws IOException {
+        String url = sourceUrlTemplate.replace("{service}", service).replace("{region}", region);
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+
+        try (InputStream in = connection.getInputStream()) {
+            int kept = importCsv(service, region, in, prices);
+            logger.info("Imported {} {} prices for {} from {}", kept, service, region, url);
+            return kept;
+        }
+    }
+
+    int importCsv(String service, String region, InputStream in, Map<Long, Double> prices) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        Columns columns = readHeader(reader);
+        if (columns == null) {
+            throw new IOException("No header row found in " + service + " offer file for " + region);
+        }
+
+        int kept = 0;
+        String line;
+        List<String> fields = new ArrayList<>(columns.width);
+        while ((line = reader.readLine()) != null) {
+            parseLine(line, fields);
+            String term = columns.term(fields);
+            if (term == null || !"USD".equals(columns.get(fields, "Currency"))) continue;
+            // Regional offer files also carry Local Zone and Outposts rows for the same instance types
+            String locationType = columns.get(fields, "Location Type");
+            if (!locationType.isEmpty() && !"AWS Region".equals(locationType)) continue;
+            String startingRange = columns.get(fields, "StartingRange");
+            if (!startingRange.isEmpty() && !"0".equals(startingRange)) continue;
+
+            double price;
+            try {
+                price = Double.parseDouble(columns.get(fields, "PricePerUnit"));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            Long key = EC2.equals(service) ? ec2Key(columns, fields, region, term) : rdsKey(columns, fields, region, term);
+            if (key == null) continue;
+            // Rows that still share a key keep the lowest rate, so the result does not depend on row order
+            Double previous = prices.get(key);
+            if (previous == null) {
+                kept++;
+            }
+            if (previous == null || price < previous) {
+                prices.put(key, price);
+            }
+        }
+        return kept;
+    }
+
+    private Long ec2Key(Columns c, List<String> f, String region, String term) {
+        String family = c.get(f, "Product Family");
+        String unit = c.get(f, "Unit");
+        switch (family) {
+            case "Compute Instance":
+                if (!"Hrs".equals(unit) || !"Used".equals(c.get(f, "CapacityStatus"))
+                        || !"NA".equals(c.get(f, "Pre Installed S/W")) || isByol(c, f)) {
+                    return null;
+                }
+                return PriceIndex.key(EC2, region, c.get(f, "Instance Type"), c.get(f, "Operating System"),
+                        c.get(f, "Tenancy"), term);
+            case "Storage":
+                String volumeType = c.get(f, "Volume API Name");
+                if (volumeType.isEmpty() || !"GB-Mo".equals(unit) || !ON_DEMAND.equals(term)) return null;
+                return PriceIndex.key(EC2, region, "ebs:" + volumeType, "", "", term);
+            case "IP Address":
+                if (!"Hrs".equals(unit) || !ON_DEMAND.equals(term)) return null;
+                String usageType = USAGE_TYPE_REGION_PREFIX.matcher(c.get(f, "usageType")).replaceFirst("");
+                return PriceIndex.key(EC2, region, "ip:" + usageType, "", "", term);
+            default:
+                return null;
+        }
+    }
+
+    private Long rdsKey(Columns c, List<String> f, String region, String term) {
+        if (!"Database Instance".equals(c.get(f, "Product Family")) || !"Hrs".equals(c.get(f, "Unit")) || isByol(c, f)) {
+            return null;
+        }
+        // SQL Server and Oracle are priced per edition; the other engines leave the column empty
+        String edition = c.get(f, "Database Edition");
+        String engine = edition.isEmpty() ? c.get(f, "Database Engine") : c.get(f, "Database Engine") + " " + edition;
+        return PriceIndex.key(RDS, region, c.get(f, "Instance Type"), engine, c.get(f, "Deployment Option"), term);
+    }
+
+    private boolean isByol(Columns c, List<String> f) {
+        return "Bring your own license".equalsIgnoreCase(c.get(f, "License Model"));
+    }
+
+    private Columns readHeader(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i <= MAX_METADATA_LINES; i++) {
+            String line = reader.readLine();
+            if (line == null) return null;
+            parseLine(line, fields);
+            if (fields.contains("SKU") && fields.contains("PricePerUnit")) {
+                return new Columns(fields);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits one CSV line into {@code out}. Offer files quote every field and escape quotes by
+     * doubling them; no field spans lines.
+     */
+    static void parseLine(String line, List<String> out) {
+        out.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        out.add(field.toString());
+    }
+
+    private static final class Columns {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final int width;
+
+        Columns(List<String> header) {
+            for (int i = 0; i < header.size(); i++) {
+                index.put(header.get(i), i);
+            }
+            this.width = header.size();
+        }
+
+        String get(List<String> fields, String column) {
+            Integer i = index.get(column);
+            return i != null && i < fields.size() ? fields.get(i) : "";
+        }
+
+        /**
+         * "OnDemand", "Reserved-1yr" / "Reserved-3yr" for standard no-upfront hourly rates, or
+         * null for terms the catalog does not keep.
+         */
+        String term(List<String> fields) {
+            String termType = get(fields, "TermType");
+            if (ON_DEMAND.equals(termType)) return ON_DEMAND;
+            if ("Reserved".equals(termType)
+                    && "standard".equalsIgnoreCase(get(fields, "OfferingClass"))
+                    && "No Upfront".equalsIgnoreCase(get(fields, "PurchaseOption"))
+                    && "Hrs".equals(get(fields, "Unit"))) {
+                return "Reserved-" + get(fields, "LeaseContractLength");
+            }
+            return null;
+        }
+    }
+}
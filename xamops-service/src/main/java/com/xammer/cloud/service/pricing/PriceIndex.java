@@ -0,0 +1,127 @@
+package com.xammer.cloud.service.pricing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Immutable, memory-mapped price table. Each entry is a 64-bit hash of the normalised
+ * (service, region, product, os, tenancy, term) key plus its USD unit price; hashes are stored
+ * sorted so a lookup is a binary search over the mapped file with no allocation.
+ *
+ * File layout (big-endian): magic, version, createdAt millis, entry count, sorted key hashes,
+ * prices in the same order.
+ */
+public final class PriceIndex {
+
+    private static final int MAGIC = 0x58505243; // "XPRC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final long createdAt;
+    private final int pricesOffset;
+
+    private PriceIndex(Path file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a price index snapshot: " + file);
+        }
+        this.createdAt = buffer.getLong(8);
+        this.count = buffer.getInt(16);
+        this.pricesOffset = HEADER_BYTES + count * 8;
+    }
+
+    public static PriceIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new PriceIndex(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a snapshot of {@code prices} (key hash -> price) to {@code file}.
+     */
+    public static void write(Path file, Map<Long, Double> prices, long createdAt) throws IOException {
+        long[] keys = prices.keySet().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(keys);
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + keys.length * 16);
+        out.putInt(MAGIC).putInt(VERSION).putLong(createdAt).putInt(keys.length);
+        for (long key : keys) out.putLong(key);
+        for (long key : keys) out.putDouble(prices.get(key));
+        out.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) channel.write(out);
+            channel.force(true);
+        }
+    }
+
+    public OptionalDouble lookup(long keyHash) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = buffer.getLong(HEADER_BYTES + mid * 8);
+            if (midKey < keyHash) {
+                low = mid + 1;
+            } else if (midKey > keyHash) {
+                high = mid - 1;
+            } else {
+                return OptionalDouble.of(buffer.getDouble(pricesOffset + mid * 8));
+            }
+        }
+        return OptionalDouble.empty();
+    }
+
+    public OptionalDouble lookup(String service, String region, String product, String os, String tenancy, String term) {
+        return lookup(key(service, region, product, os, tenancy, term));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 64-bit FNV-1a over the lower-cased key parts. At a few hundred thousand entries the chance
+     * of two keys colliding is in the order of 1e-9.
+     */
+    public static long key(String service, String region, String product, String os, String tenancy, String term) {
+        long hash = 0xcbf29ce484222325L;
+        String[] parts = {service, region, product, os, tenancy, term};
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) hash = mix(hash, (byte) '|');
+            String part = parts[i] == null ? "" : parts[i].trim().toLowerCase(Locale.ROOT);
+            for (byte b : part.getBytes(StandardCharsets.UTF_8)) {
+                hash = mix(hash, b);
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, byte b) {
+        return (hash ^ (b & 0xff)) * 0x100000001b3L;
+    }
+}
@@ -2,10 +2,12 @@ package com.xammer.cloud.websocket;
 
 import com.xammer.cloud.config.AwsConfig;
 import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
 import com.xammer.cloud.domain.CloudAccount;
 import com.xammer.cloud.repository.CloudAccountRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
@@ -13,9 +15,13 @@ import software.amazon.awssdk.services.sts.StsClient;
 import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
 import software.amazon.awssdk.services.sts.model.AssumeRoleResponse;
 
+import javax.annotation.PreDestroy;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Component
 public class CloudShellSocketHandler extends TextWebSocketHandler {
@@ -29,12 +35,19 @@ public class CloudShellSocketHandler extends TextWebSocketHandler {
     private final CloudAccountRepository cloudAccountRepository;
 
     private final Map<String, Process> sessions = new ConcurrentHashMap<>();
-    private final Map<String, Thread> outputThreads = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> outputThreads = new ConcurrentHashMap<>();
     private final Map<String, Long> sessionStartTimes = new ConcurrentHashMap<>();
 
-    public CloudShellSocketHandler(AwsConfig awsConfig, CloudAccountRepository cloudAccountRepository) {
+    // One output thread per open shell; a full pool rejects new shells instead of spawning more threads
+    private final ThreadPoolExecutor outputExecutor;
+
+    public CloudShellSocketHandler(AwsConfig awsConfig, CloudAccountRepository cloudAccountRepository,
+                                   ThreadGovernor threadGovernor,
+                                   @Value("${cloudshell.max-sessions:50}") int maxSessions) {
         this.awsConfig = awsConfig;
         this.cloudAccountRepository = cloudAccountRepository;
+        this.outputExecutor = threadGovernor.newExecutor("cloudshell-output", maxSessions, 0,
+                new ThreadPoolExecutor.AbortPolicy());
     }
 
     @Override
@@ -86,9 +99,17 @@ public class CloudShellSocketHandler extends TextWebSocketHandler {
             Process process = pb.start();
             sessions.put(session.getId(), process);
 
-            Thread outputThread = new Thread(() -> streamProcessOutput(process, session));
-            outputThread.start();
-            outputThreads.put(session.getId(), outputThread);
+            try {
+                outputThreads.put(session.getId(), outputExecutor.submit(() -> streamProcessOutput(process, session)));
+            } catch (RejectedExecutionException e) {
+                log.warn("Rejecting shell for session {}: all {} shell slots in use",
+                        session.getId(), outputExecutor.getMaximumPoolSize());
+                process.destroy();
+                sessions.remove(session.getId());
+                session.sendMessage(new TextMessage("Error: Too many open shell sessions. Please try again later.\r\n"));
+                session.close();
+                return;
+            }
 
             String welcomeMsg = String.format(
                     "\r\n\u001B[1;32mWelcome to XamOps Shell!\u001B[0m\r\n" +
@@ -280,9 +301,18 @@ public class CloudShellSocketHandler extends TextWebSocketHandler {
             process.destroy();
         }
         sessions.remove(session.getId());
-        outputThreads.remove(session.getId());
+        Future<?> outputThread = outputThreads.remove(session.getId());
+        if (outputThread != null) {
+            outputThread.cancel(true);
+        }
         sessionStartTimes.remove(session.getId());
         TenantContext.clear();
         log.info("WS Closed: Session={}, Status={}", session.getId(), status);
     }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(Process::destroy);
+        outputExecutor.shutdownNow();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+-- CloudSitter policies and their resource assignments
+CREATE TABLE IF NOT EXISTS cloudsitter_policies (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(255),
+    type VARCHAR(255),
+    time_zone VARCHAR(255),
+    schedule_json TEXT,
+    notifications_enabled BOOLEAN,
+    notification_email VARCHAR(255),
+    client_id BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS cloudsitter_assignments (
+    id BIGSERIAL PRIMARY KEY,
+    resource_id VARCHAR(255),
+    account_id VARCHAR(255),
+    region VARCHAR(255),
+    policy_id BIGINT,
+    active BOOLEAN,
+    FOREIGN KEY (policy_id) REFERENCES cloudsitter_policies(id)
+);
@@ -0,0 +1,21 @@
+-- Daily GCP billing aggregate and per-project sync watermark
+CREATE TABLE IF NOT EXISTS gcp_billing_daily_costs (
+    id BIGSERIAL PRIMARY KEY,
+    gcp_project_id VARCHAR(255) NOT NULL,
+    usage_date DATE NOT NULL,
+    project_name VARCHAR(255),
+    service VARCHAR(255),
+    sku VARCHAR(512),
+    region VARCHAR(255),
+    cost DOUBLE PRECISION NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_gcp_billing_daily_costs_project_date
+    ON gcp_billing_daily_costs (gcp_project_id, usage_date);
+
+CREATE TABLE IF NOT EXISTS gcp_billing_sync_state (
+    gcp_project_id VARCHAR(255) PRIMARY KEY,
+    coverage_start DATE,
+    watermark DATE,
+    last_synced_at TIMESTAMP
+);
@@ -0,0 +1,9 @@
+-- Ticket keyset pagination column and indexes (billops pages on updated_at, id).
+-- The ticket table is created by Hibernate, so this waits until it exists.
+-- requires: ticket
+ALTER TABLE ticket ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+UPDATE ticket SET updated_at = created_at WHERE updated_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_ticket_updated_at_id
+    ON ticket (updated_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_ticket_category_updated_at_id
+    ON ticket (category, updated_at DESC, id DESC);
@@ -0,0 +1,3 @@
+-- Invoice optimistic-lock version (keys billops' cached invoice DTOs)
+-- requires: invoice
+ALTER TABLE invoice ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
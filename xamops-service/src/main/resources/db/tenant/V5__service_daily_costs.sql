@@ -0,0 +1,12 @@
+-- Closed-day cost per service, the series behind local cost anomaly detection and cost history
+CREATE TABLE IF NOT EXISTS service_daily_costs (
+    id BIGSERIAL PRIMARY KEY,
+    provider VARCHAR(16) NOT NULL,
+    account_id VARCHAR(255) NOT NULL,
+    service VARCHAR(255) NOT NULL,
+    usage_date DATE NOT NULL,
+    cost DOUBLE PRECISION NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_service_daily_costs_account_date
+    ON service_daily_costs (provider, account_id, usage_date);
@@ -0,0 +1,237 @@
+package com.xammer.cloud.config;
+
+import com.xammer.cloud.config.multitenancy.TenantMigrations;
+import com.xammer.cloud.config.multitenancy.TenantReadiness;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.dto.TenantDto;
+import com.xammer.cloud.service.TenantService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tenants migrated against a fake JDBC driver that knows which tables exist: migrations whose
+ * tables are missing must not be recorded as applied, and at 200 tenants the first boot runs on the
+ * parallel pool while the next one is settled by the bulk state query alone.
+ */
+class TenantSchemaInitializerTest {
+
+    private final FakeDatabase tenantDb = new FakeDatabase();
+    private final FakeDatabase masterDb = new FakeDatabase();
+    private final TenantReadiness readiness = new TenantReadiness();
+    private TenantMigrations migrations;
+    private TenantSchemaInitializer initializer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        migrations = new TenantMigrations();
+        initializer = initializer(List.of(new TenantDto("acme", "Acme")), readiness, 2);
+    }
+
+    @Test
+    void migrationsWithMissingTablesAreDeferredNotRecorded() throws Exception {
+        initializer.run();
+
+        assertThat(recordedVersions()).containsExactlyElementsOf(applicableVersions()).contains(1, 2).doesNotContain(3, 4);
+        assertThat(tenantDb.executed).noneMatch(sql -> sql.contains("ALTER TABLE ticket") || sql.contains("ALTER TABLE invoice"));
+        // Written below the latest version, so the next boot looks at this tenant again
+        assertThat(schemaState()).containsExactly("acme", 2, migrations.catalogChecksum());
+        assertThat(readiness.isReady("acme")).isTrue();
+    }
+
+    @Test
+    void laterMigrationsStillRunPastADeferredOne() throws Exception {
+        tenantDb.tables.add("invoice");
+
+        initializer.run();
+
+        assertThat(recordedVersions()).containsExactlyElementsOf(applicableVersions()).contains(4).doesNotContain(3);
+        assertThat(tenantDb.executed).noneMatch(sql -> sql.contains("ALTER TABLE ticket"))
+                .anyMatch(sql -> sql.startsWith("ALTER TABLE invoice"));
+        assertThat(schemaState()).containsExactly("acme", 2, migrations.catalogChecksum());
+    }
+
+    @Test
+    void everythingIsRecordedOnceTheTablesExist() throws Exception {
+        tenantDb.tables.addAll(List.of("ticket", "invoice"));
+
+        initializer.run();
+
+        assertThat(recordedVersions()).containsExactlyElementsOf(migrations.all().stream()
+                .map(TenantMigrations.Migration::getVersion).collect(Collectors.toList()));
+        assertThat(tenantDb.executed).anyMatch(sql -> sql.startsWith("ALTER TABLE ticket"));
+        assertThat(schemaState()).containsExactly("acme", migrations.latestVersion(), migrations.catalogChecksum());
+    }
+
+    @Test
+    void twoHundredTenantsMigrateInParallelAndTheNextBootSkipsThemInOneQuery() throws Exception {
+        tenantDb.tables.addAll(List.of("ticket", "invoice"));
+        tenantDb.latencyMillis = 1;
+        List<TenantDto> tenants = IntStream.range(0, 200)
+                .mapToObj(i -> new TenantDto("tenant-" + i, "Tenant " + i))
+                .collect(Collectors.toList());
+
+        TenantReadiness firstReadiness = new TenantReadiness();
+        long firstStart = System.nanoTime();
+        initializer(tenants, firstReadiness, 4).run();
+        long firstBootMs = (System.nanoTime() - firstStart) / 1_000_000;
+
+        assertThat(tenants).allMatch(tenant -> firstReadiness.isReady(tenant.getTenantId()));
+        assertThat(masterDb.schemaState).hasSize(200)
+                .allSatisfy((tenantId, state) -> assertThat(state)
+                        .containsExactly(migrations.latestVersion(), migrations.catalogChecksum()));
+        assertThat(tenantDb.maxConcurrentStatements.get()).isBetween(2, 4);
+
+        // The next boot: every tenant is current, so no tenant database is touched
+        tenantDb.connectionsOpened.set(0);
+        masterDb.queries.clear();
+        TenantReadiness secondReadiness = new TenantReadiness();
+        long secondStart = System.nanoTime();
+        initializer(tenants, secondReadiness, 4).run();
+        long secondBootMs = (System.nanoTime() - secondStart) / 1_000_000;
+
+        assertThat(tenants).allMatch(tenant -> secondReadiness.isReady(tenant.getTenantId()));
+        assertThat(tenantDb.connectionsOpened.get()).isZero();
+        assertThat(masterDb.queries).filteredOn(sql -> sql.contains("FROM tenant_schema_state")).hasSize(1);
+        assertThat(secondBootMs).isLessThan(firstBootMs);
+        System.out.printf("200 tenants: first boot %d ms (migrated on 4 threads), next boot %d ms%n",
+                firstBootMs, secondBootMs);
+    }
+
+    private TenantSchemaInitializer initializer(List<TenantDto> tenants, TenantReadiness readiness, int threads)
+            throws SQLException {
+        TenantService tenantService = mock(TenantService.class);
+        when(tenantService.getAllActiveTenants()).thenReturn(tenants);
+        return new TenantSchemaInitializer(tenantService, tenantDb.dataSource(), masterDb.dataSource(),
+                migrations, readiness, new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50), threads);
+    }
+
+    // Versions whose required tables all exist in the tenant database, in order
+    private List<Integer> applicableVersions() {
+        return migrations.all().stream()
+                .filter(migration -> tenantDb.tables.containsAll(migration.getRequiredTables()))
+                .map(TenantMigrations.Migration::getVersion)
+                .collect(Collectors.toList());
+    }
+
+    private List<Object> recordedVersions() {
+        return tenantDb.updates.stream()
+                .filter(update -> update.get(0).toString().startsWith("INSERT INTO tenant_schema_version"))
+                .map(update -> update.get(1))
+                .collect(Collectors.toList());
+    }
+
+    private List<Object> schemaState() {
+        List<List<Object>> states = masterDb.updates.stream()
+                .filter(update -> update.get(0).toString().contains("INSERT INTO tenant_schema_state"))
+                .collect(Collectors.toList());
+        assertThat(states).hasSize(1);
+        return states.get(0).subList(1, 4);
+    }
+
+    /**
+     * Just enough of a JDBC driver for the initializer: an empty result for every plain query but
+     * {@code tenant_schema_state}, which is served from the upserts written to it, a
+     * {@code to_regclass} lookup against {@link #tables}, and a log of executed DDL and updates.
+     * Each DDL statement takes {@link #latencyMillis}.
+     */
+    static final class FakeDatabase {
+        final Set<String> tables = new HashSet<>();
+        final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        final List<List<Object>> updates = Collections.synchronizedList(new ArrayList<>());
+        // tenant_id -> (version, checksum)
+        final Map<Object, List<Object>> schemaState = new ConcurrentHashMap<>();
+        final AtomicInteger connectionsOpened = new AtomicInteger();
+        final AtomicInteger maxConcurrentStatements = new AtomicInteger();
+        private final AtomicInteger runningStatements = new AtomicInteger();
+        volatile long latencyMillis;
+
+        DataSource dataSource() throws SQLException {
+            Statement statement = mock(Statement.class);
+            when(statement.execute(anyString())).thenAnswer(invocation -> {
+                executed.add(invocation.getArgument(0));
+                maxConcurrentStatements.accumulateAndGet(runningStatements.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(latencyMillis);
+                } finally {
+                    runningStatements.decrementAndGet();
+                }
+                return false;
+            });
+            when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+                String sql = invocation.getArgument(0);
+                queries.add(sql);
+                return sql.contains("FROM tenant_schema_state") ? stateRows() : mock(ResultSet.class);
+            });
+
+            Connection connection = mock(Connection.class);
+            when(connection.createStatement()).thenReturn(statement);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> prepare(invocation.getArgument(0)));
+
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenAnswer(invocation -> {
+                connectionsOpened.incrementAndGet();
+                return connection;
+            });
+            return dataSource;
+        }
+
+        private ResultSet stateRows() throws SQLException {
+            Iterator<Map.Entry<Object, List<Object>>> rows = new ArrayList<>(schemaState.entrySet()).iterator();
+            AtomicReference<Map.Entry<Object, List<Object>>> row = new AtomicReference<>();
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenAnswer(invocation -> {
+                row.set(rows.hasNext() ? rows.next() : null);
+                return row.get() != null;
+            });
+            when(resultSet.getString("tenant_id")).thenAnswer(invocation -> row.get().getKey());
+            when(resultSet.getInt("version")).thenAnswer(invocation -> row.get().getValue().get(0));
+            when(resultSet.getLong("checksum")).thenAnswer(invocation -> row.get().getValue().get(1));
+            return resultSet;
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            SortedMap<Integer, Object> parameters = new TreeMap<>();
+            PreparedStatement statement = mock(PreparedStatement.class);
+            doAnswer(invocation -> parameters.put(invocation.getArgument(0), invocation.getArgument(1)))
+                    .when(statement).setString(anyInt(), any());
+            doAnswer(invocation -> parameters.put(invocation.getArgument(0), invocation.getArgument(1)))
+                    .when(statement).setObject(anyInt(), any());
+            when(statement.executeUpdate()).thenAnswer(invocation -> {
+                List<Object> update = new ArrayList<>();
+                update.add(sql);
+                update.addAll(parameters.values());
+                updates.add(update);
+                if (sql.contains("INSERT INTO tenant_schema_state")) {
+                    schemaState.put(update.get(1), List.of(update.get(2), update.get(3)));
+                }
+                return 1;
+            });
+            when(statement.executeQuery()).thenAnswer(invocation -> {
+                ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+                when(metaData.getColumnCount()).thenReturn(1);
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getMetaData()).thenReturn(metaData);
+                when(resultSet.next()).thenReturn(true, false);
+                when(resultSet.getBoolean(1)).thenReturn(sql.contains("to_regclass") && tables.contains(parameters.get(1)));
+                return resultSet;
+            });
+            return statement;
+        }
+    }
+}
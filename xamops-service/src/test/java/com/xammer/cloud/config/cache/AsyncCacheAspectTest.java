@@ -0,0 +1,237 @@
+package com.xammer.cloud.config.cache;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.annotation.AnnotationAsyncExecutionInterceptor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link AsyncCacheable} applied through a real AOP proxy around a recording target.
+ */
+class AsyncCacheAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Loader target;
+    private Loader loader;
+
+    public static class Loader {
+        final List<CompletableFuture<List<String>>> calls = new ArrayList<>();
+        Loader self;
+
+        @AsyncCacheable(value = "names", key = "#id", ttlSeconds = 60, unless = "#result.isEmpty()", bypass = "#force")
+        public CompletableFuture<List<String>> load(String id, boolean force) {
+            CompletableFuture<List<String>> future = new CompletableFuture<>();
+            calls.add(future);
+            return future;
+        }
+
+        @AsyncCacheable(value = "fresh", key = "#id", ttlSeconds = 60, refreshAheadSeconds = 60)
+        public CompletableFuture<List<String>> loadRefreshingAhead(String id) {
+            return load(id, false);
+        }
+
+        public CompletableFuture<List<String>> loadViaSelf(String id) {
+            return self.load(id, false);
+        }
+
+        public CompletableFuture<List<String>> loadViaThis(String id) {
+            return load(id, false);
+        }
+
+        @AsyncCacheable(value = "short", key = "#id", ttlSeconds = 1)
+        public CompletableFuture<List<String>> loadShortLived(String id) {
+            return load(id, false);
+        }
+    }
+
+    public static class AsyncLoader {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Async
+        @AsyncCacheable(value = "async", key = "#id", ttlSeconds = 60)
+        public CompletableFuture<String> load(String id) {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(TenantContext.getCurrentTenant() + ":" + id);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AsyncCacheAspect aspect = new AsyncCacheAspect(meterRegistry);
+        ReflectionTestUtils.setField(aspect, "maxEntries", 100L);
+
+        target = new Loader();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        loader = factory.getProxy();
+        target.self = loader;
+        TenantContext.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoadAndLaterCallsHit() {
+        CompletableFuture<List<String>> first = loader.load("p1", false);
+        CompletableFuture<List<String>> second = loader.load("p1", false);
+        assertThat(target.calls).hasSize(1);
+
+        target.calls.get(0).complete(List.of("a"));
+
+        assertThat(first.join()).containsExactly("a");
+        assertThat(second.join()).containsExactly("a");
+        assertThat(loader.load("p1", false)).isCompletedWithValue(List.of("a"));
+        assertThat(target.calls).hasSize(1);
+        assertThat(requests("names", "miss")).isEqualTo(1.0);
+        assertThat(requests("names", "join")).isEqualTo(1.0);
+        assertThat(requests("names", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void cancellingOneCallerLeavesTheSharedLoadRunning() {
+        CompletableFuture<List<String>> first = loader.load("p1", false);
+        CompletableFuture<List<String>> second = loader.load("p1", false);
+
+        first.cancel(true);
+        target.calls.get(0).complete(List.of("a"));
+
+        assertThat(second.join()).containsExactly("a");
+    }
+
+    @Test
+    void failuresAndExcludedResultsAreNotCached() {
+        CompletableFuture<List<String>> failed = loader.load("p1", false);
+        target.calls.get(0).completeExceptionally(new IllegalStateException("PERMISSION_DENIED"));
+        assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("PERMISSION_DENIED");
+
+        loader.load("p1", false);
+        target.calls.get(1).complete(List.of());
+
+        loader.load("p1", false);
+        assertThat(target.calls).hasSize(3);
+    }
+
+    @Test
+    void bypassReloadsAndReplacesTheEntry() {
+        loader.load("p1", false);
+        target.calls.get(0).complete(List.of("old"));
+
+        CompletableFuture<List<String>> forced = loader.load("p1", true);
+        target.calls.get(1).complete(List.of("new"));
+
+        assertThat(forced.join()).containsExactly("new");
+        assertThat(loader.load("p1", false)).isCompletedWithValue(List.of("new"));
+        assertThat(target.calls).hasSize(2);
+    }
+
+    @Test
+    void entriesAreScopedToTheTenant() {
+        TenantContext.setCurrentTenant("tenant-a");
+        loader.load("p1", false);
+        target.calls.get(0).complete(List.of("a"));
+
+        TenantContext.setCurrentTenant("tenant-b");
+        loader.load("p1", false);
+
+        assertThat(target.calls).hasSize(2);
+    }
+
+    @Test
+    void staleHitIsServedWhileItReloadsInTheBackground() throws InterruptedException {
+        loader.loadRefreshingAhead("p1");
+        target.calls.get(0).complete(List.of("old"));
+        Thread.sleep(5);
+
+        assertThat(loader.loadRefreshingAhead("p1")).isCompletedWithValue(List.of("old"));
+        assertThat(target.calls).hasSize(2);
+        target.calls.get(1).complete(List.of("new"));
+
+        assertThat(loader.loadRefreshingAhead("p1")).isCompletedWithValue(List.of("new"));
+    }
+
+    @Test
+    void onlyCallsThroughTheProxyAreCached() {
+        // The pattern GcpDataService uses: an injected reference to its own proxy
+        loader.loadViaSelf("p1");
+        target.calls.get(0).complete(List.of("a"));
+        assertThat(loader.loadViaSelf("p1")).isCompletedWithValue(List.of("a"));
+        assertThat(target.calls).hasSize(1);
+
+        // A plain this-call skips the aspect and loads every time
+        loader.loadViaThis("p1");
+        assertThat(target.calls).hasSize(2);
+    }
+
+    @Test
+    void entryExpiresAfterItsTtl() throws InterruptedException {
+        loader.loadShortLived("p1");
+        target.calls.get(0).complete(List.of("a"));
+        assertThat(loader.loadShortLived("p1")).isCompletedWithValue(List.of("a"));
+        assertThat(target.calls).hasSize(1);
+
+        Thread.sleep(1100);
+
+        CompletableFuture<List<String>> reloaded = loader.loadShortLived("p1");
+        assertThat(target.calls).hasSize(2);
+        assertThat(reloaded).isNotDone();
+        assertThat(requests("short", "miss")).isEqualTo(2.0);
+    }
+
+    @Test
+    void asyncMethodIsCachedUnderTheCallersTenantNotTheWorkers() {
+        // Same advice order as @EnableAsync: the async interceptor in front of the aspect
+        ThreadGovernor threadGovernor = new ThreadGovernor(new MockEnvironment(), meterRegistry, 50);
+        AsyncCacheAspect aspect = new AsyncCacheAspect(meterRegistry);
+        ReflectionTestUtils.setField(aspect, "maxEntries", 100L);
+        AsyncLoader asyncTarget = new AsyncLoader();
+        AspectJProxyFactory factory = new AspectJProxyFactory(asyncTarget);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        ThreadPoolTaskExecutor executor = threadGovernor.newTaskExecutor("AWS-Async", 1, 1, 10);
+        factory.addAdvice(0, new AnnotationAsyncExecutionInterceptor(executor));
+        AsyncLoader asyncLoader = factory.getProxy();
+        try {
+            // The only worker is created here and inherits tenant-a
+            TenantContext.setCurrentTenant("tenant-a");
+            assertThat(asyncLoader.load("p1").join()).isEqualTo("tenant-a:p1");
+
+            TenantContext.setCurrentTenant("tenant-b");
+            assertThat(asyncLoader.load("p1").join()).isEqualTo("tenant-b:p1");
+            assertThat(asyncLoader.load("p1").join()).isEqualTo("tenant-b:p1");
+
+            TenantContext.setCurrentTenant("tenant-a");
+            assertThat(asyncLoader.load("p1").join()).isEqualTo("tenant-a:p1");
+            assertThat(asyncTarget.calls).hasValue(2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private double requests(String cache, String result) {
+        return meterRegistry.get("xamops.cache.async.requests").tag("cache", cache).tag("result", result)
+                .counter().count();
+    }
+}
@@ -0,0 +1,86 @@
+package com.xammer.cloud.config.multitenancy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Statement splitting and table requirements of the tenant migration scripts.
+ */
+class TenantMigrationsTest {
+
+    @Test
+    void splitsOnTrailingSemicolonsAndDropsComments() {
+        List<String> statements = TenantMigrations.splitStatements("""
+                -- Two tables
+                CREATE TABLE a (
+                    id BIGINT -- inline comments stay
+                );
+
+                CREATE INDEX idx_a ON a (id);
+                """);
+
+        assertThat(statements).containsExactly(
+                "CREATE TABLE a (\n    id BIGINT -- inline comments stay\n);",
+                "CREATE INDEX idx_a ON a (id);");
+    }
+
+    @Test
+    void keepsDollarQuotedBodiesWhole() {
+        List<String> statements = TenantMigrations.splitStatements("""
+                DO $$
+                BEGIN
+                    -- a comment inside the body
+                    UPDATE a SET id = id;
+
+                    DELETE FROM a;
+                END $$;
+                CREATE FUNCTION f() RETURNS INT AS $$ SELECT 1; $$ LANGUAGE sql;
+                SELECT 1;
+                """);
+
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0)).startsWith("DO $$").endsWith("END $$;")
+                .contains("-- a comment inside the body", "UPDATE a SET id = id;", "DELETE FROM a;");
+        assertThat(statements.get(1)).isEqualTo("CREATE FUNCTION f() RETURNS INT AS $$ SELECT 1; $$ LANGUAGE sql;");
+        assertThat(statements.get(2)).isEqualTo("SELECT 1;");
+    }
+
+    @Test
+    void keepsAFinalStatementWithoutASemicolon() {
+        assertThat(TenantMigrations.splitStatements("SELECT 1;\nSELECT 2")).containsExactly("SELECT 1;", "SELECT 2");
+        assertThat(TenantMigrations.splitStatements("-- nothing but comments\n\n")).isEmpty();
+    }
+
+    @Test
+    void requiredTablesComeFromRequiresComments() {
+        assertThat(TenantMigrations.requiredTables("""
+                -- requires: ticket, invoice
+                --requires: ticket
+                  -- requires:  cloud_account
+                ALTER TABLE ticket ADD COLUMN x INT; -- requires: not_a_header
+                """)).containsExactly("ticket", "invoice", "cloud_account");
+        assertThat(TenantMigrations.requiredTables("CREATE TABLE a (id INT);")).isEmpty();
+    }
+
+    @Test
+    void loadsTheClasspathScriptsInVersionOrder() throws Exception {
+        TenantMigrations migrations = new TenantMigrations();
+
+        assertThat(migrations.all()).extracting(TenantMigrations.Migration::getVersion,
+                        TenantMigrations.Migration::getRequiredTables)
+                .containsExactly(
+                        tuple(1, List.of()),
+                        tuple(2, List.of()),
+                        tuple(3, List.of("ticket")),
+                        tuple(4, List.of("invoice")),
+                        tuple(5, List.of()));
+        assertThat(migrations.latestVersion()).isEqualTo(5);
+        assertThat(migrations.all()).allSatisfy(m -> assertThat(m.getStatements()).isNotEmpty()
+                .noneMatch(statement -> statement.startsWith("--")));
+        assertThat(new TenantMigrations().catalogChecksum()).isEqualTo(migrations.catalogChecksum());
+    }
+}
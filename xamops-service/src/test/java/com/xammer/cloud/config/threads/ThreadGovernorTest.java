@@ -0,0 +1,196 @@
+package com.xammer.cloud.config.threads;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Grants against the global budget and per-pool quotas, the accounting around them, and tenant
+ * hand-off onto pool threads.
+ */
+class ThreadGovernorTest {
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadGovernor governor = new ThreadGovernor(environment, meterRegistry, 6);
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void runawaySubmissionCannotOutgrowTheBudget() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Runnable blocked = () -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+
+        // Direct hand-off: everything past the grant is rejected
+        ThreadPoolExecutor handOff = track(governor.newExecutor("hand-off", 4, 0, new ThreadPoolExecutor.AbortPolicy()));
+        int rejected = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                handOff.execute(blocked);
+            } catch (RejectedExecutionException e) {
+                rejected++;
+            }
+        }
+        // Queued: the backlog waits, the pool doesn't grow past what was left of the budget
+        ThreadPoolExecutor queued = track(governor.newExecutor("queued", 4, 1000, new ThreadPoolExecutor.AbortPolicy()));
+        for (int i = 0; i < 500; i++) {
+            queued.execute(blocked);
+        }
+        awaitTrue(() -> running.get() == 6);
+
+        assertThat(rejected).isEqualTo(96);
+        assertThat(queued.getQueue()).hasSize(498);
+        assertThat(governor.snapshot()).hasEntrySatisfying("hand-off", counts -> assertThat(counts).containsExactly(4, 4))
+                .hasEntrySatisfying("queued", counts -> assertThat(counts).containsExactly(2, 2));
+        assertThat(governor.getGrantedTotal()).isEqualTo(governor.getBudget());
+        assertThat(meterRegistry.get("xamops.threads.budget.granted").gauge().value()).isEqualTo(6.0);
+        assertThat(meterRegistry.get("xamops.threads.pool.live").tag("pool", "queued").gauge().value()).isEqualTo(2.0);
+        assertThat(peak.get()).isEqualTo(6);
+    }
+
+    @Test
+    void quotaCapsTheGrantAndRepeatedGrantsAreNotCountedTwice() {
+        environment.setProperty("threads.pools.capped.max", "2");
+
+        assertThat(governor.grant("capped", 5)).isEqualTo(2);
+        assertThat(governor.grant("capped", 5)).isEqualTo(2);
+        assertThat(governor.grant("other", 3)).isEqualTo(3);
+        assertThat(governor.getGrantedTotal()).isEqualTo(5);
+
+        governor.release("capped");
+        governor.release("capped");
+        assertThat(governor.getGrantedTotal()).isEqualTo(3);
+        assertThat(governor.snapshot()).containsOnlyKeys("other");
+    }
+
+    @Test
+    void exhaustedBudgetRefusesFurtherPools() {
+        assertThat(governor.grant("greedy", 10)).isEqualTo(6);
+
+        assertThatThrownBy(() -> governor.grant("late", 4)).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("late").hasMessageContaining("threads.budget.total");
+        assertThatThrownBy(() -> governor.newExecutor("late", 4, 10, new ThreadPoolExecutor.AbortPolicy()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(governor.getGrantedTotal()).isEqualTo(governor.getBudget());
+        assertThat(governor.snapshot()).containsOnlyKeys("greedy");
+
+        // Room made by a released pool is granted again
+        governor.release("greedy");
+        assertThat(governor.grant("late", 4)).isEqualTo(4);
+    }
+
+    @Test
+    void terminatedPoolsReturnTheirGrant() throws InterruptedException {
+        ThreadPoolExecutor executor = governor.newExecutor("short-lived", 3, 10, new ThreadPoolExecutor.AbortPolicy());
+        ScheduledThreadPoolExecutor scheduler = governor.newScheduledExecutor("ticker", 2);
+        executor.execute(() -> { });
+        assertThat(governor.getGrantedTotal()).isEqualTo(5);
+
+        executor.shutdown();
+        scheduler.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(scheduler.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        awaitTrue(() -> governor.getGrantedTotal() == 0);
+        assertThat(governor.snapshot()).isEmpty();
+        // The whole budget is available again
+        assertThat(governor.grant("next", 6)).isEqualTo(6);
+    }
+
+    @Test
+    void threadsAreNamedCountedDaemonsOfAGrantedPool() throws Exception {
+        assertThatThrownBy(() -> governor.threadFactory("unknown")).isInstanceOf(IllegalStateException.class);
+
+        ThreadPoolExecutor executor = track(governor.newExecutor("named", 2, 10, new ThreadPoolExecutor.AbortPolicy()));
+        Thread worker = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+        assertThat(worker.getName()).isEqualTo("named-1");
+        assertThat(worker.isDaemon()).isTrue();
+    }
+
+    @Test
+    void forTenantRunsAsTheGivenTenantAndRestoresTheWorkers() throws Exception {
+        // The worker is created from this thread, so it inherits whatever tenant was current here
+        TenantContext.setCurrentTenant("leaked");
+        ThreadPoolExecutor executor = track(governor.newExecutor("tenants", 1, 10, new ThreadPoolExecutor.AbortPolicy()));
+        Queue<String> seen = new ConcurrentLinkedQueue<>();
+        Runnable record = () -> seen.add(String.valueOf(TenantContext.getCurrentTenant()));
+
+        executor.execute(record);
+        ThreadGovernor.forTenant(executor, "acme").execute(record);
+        ThreadGovernor.forTenant(executor, "globex").execute(record);
+        executor.execute(record);
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        assertThat(seen).containsExactly("leaked", "acme", "globex", "leaked");
+    }
+
+    @Test
+    void taskExecutorRunsEachTaskAsTheTenantThatSubmittedIt() throws Exception {
+        TenantContext.setCurrentTenant("leaked");
+        ThreadPoolTaskExecutor executor = governor.newTaskExecutor("async", 1, 1, 10);
+        try {
+            Queue<String> seen = new ConcurrentLinkedQueue<>();
+            Runnable record = () -> seen.add(String.valueOf(TenantContext.getCurrentTenant()));
+
+            // The single worker is created under "leaked" and inherits it
+            executor.submit(record).get(5, TimeUnit.SECONDS);
+            TenantContext.setCurrentTenant("acme");
+            executor.submit(record).get(5, TimeUnit.SECONDS);
+            TenantContext.clear();
+            executor.submit(record).get(5, TimeUnit.SECONDS);
+
+            assertThat(seen).containsExactly("leaked", "acme", "null");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor track(ThreadPoolExecutor executor) {
+        executors.add(executor);
+        return executor;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.domain.FinOpsReportSchedule;
+import com.xammer.cloud.domain.FinOpsReportSchedule.Frequency;
+import com.xammer.cloud.dto.DetailedCostDto;
+import com.xammer.cloud.repository.FinOpsReportScheduleRepository;
+import com.xammer.cloud.service.gcp.GcpCostService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import javax.sql.DataSource;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A report run end to end with a fake Cost Explorer, real transactions over a counting DataSource
+ * and mail delivered through EmailService to an in-process SMTP server: one cost fetch per account
+ * however many frequencies are due, no transaction or connection held while fetching, retried
+ * sends, and lastSent written in its own transaction only on delivery.
+ */
+class FinOpsReportSchedulingServiceTest {
+
+    // A Friday and the 30th, so daily, weekly and monthly are all due
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 30);
+    private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+
+    private final Map<Long, FinOpsReportSchedule> schedules = new ConcurrentHashMap<>();
+    private final Map<String, List<DetailedCostDto>> reportsByLabel = new ConcurrentHashMap<>();
+    // Whether each connection has been closed, in the order they were opened
+    private final List<AtomicBoolean> connections = Collections.synchronizedList(new ArrayList<>());
+    private final List<Boolean> scheduleReadsReadOnly = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> fetchStates = Collections.synchronizedList(new ArrayList<>());
+    private final List<Boolean> savesInWriteTransaction = Collections.synchronizedList(new ArrayList<>());
+    private FinOpsReportScheduleRepository scheduleRepository;
+    private CostService costService;
+    private SmtpStub smtp;
+    private FinOpsReportMailDispatcher mailDispatcher;
+    private FinOpsReportSchedulingService service;
+    private CloudAccount acme;
+    private CloudAccount globex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        acme = account(1L, "111111111111", "acme");
+        globex = account(2L, "222222222222", "globex");
+
+        scheduleRepository = mock(FinOpsReportScheduleRepository.class);
+        when(scheduleRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(schedules.get(invocation.<Long>getArgument(0))));
+        when(scheduleRepository.save(any(FinOpsReportSchedule.class))).thenAnswer(invocation -> {
+            savesInWriteTransaction.add(TransactionSynchronizationManager.isActualTransactionActive()
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            return invocation.getArgument(0);
+        });
+
+        // Every day costs $1 of EC2 and $0.50 of S3
+        costService = mock(CostService.class);
+        when(costService.getDailyCostByServiceAndRegion(any(), any(), any())).thenAnswer(invocation -> {
+            fetchStates.add("transaction=" + TransactionSynchronizationManager.isActualTransactionActive()
+                    + ", schedule read released=" + connections.get(0).get());
+            SortedMap<LocalDate, List<DetailedCostDto>> daily = new TreeMap<>();
+            for (LocalDate day = invocation.getArgument(1); !day.isAfter(invocation.getArgument(2)); day = day.plusDays(1)) {
+                daily.put(day, List.of(new DetailedCostDto("Amazon EC2", "us-east-1", 1.0),
+                        new DetailedCostDto("Amazon S3", "us-east-1", 0.5)));
+            }
+            return daily;
+        });
+
+        FinOpsReportEmailBuilder emailBuilder = mock(FinOpsReportEmailBuilder.class);
+        when(emailBuilder.buildSimpleReportEmail(anyList(), anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            reportsByLabel.put(invocation.getArgument(1) + ":" + invocation.getArgument(2), invocation.getArgument(0));
+            return "<html>" + invocation.getArgument(2) + "</html>";
+        });
+
+        smtp = new SmtpStub();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.localhost", "localhost");
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.timeout", "5000");
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.from", "reports@xammer.test");
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+
+        ThreadGovernor threadGovernor = new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50);
+        mailDispatcher = new FinOpsReportMailDispatcher(emailService, threadGovernor, 2, 3, 1);
+        service = new FinOpsReportSchedulingService(scheduleRepository, costService, mock(GcpCostService.class),
+                emailBuilder, mailDispatcher, new DataSourceTransactionManager(countingDataSource()), threadGovernor, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.shutdown();
+        mailDispatcher.shutdown();
+        smtp.close();
+    }
+
+    @Test
+    void coincidingFrequenciesFetchEachAccountOnce() {
+        schedule(11L, acme, Frequency.DAILY, "daily@acme.test");
+        FinOpsReportSchedule weekly = schedule(12L, acme, Frequency.WEEKLY, "weekly@acme.test");
+        schedule(13L, acme, Frequency.MONTHLY, "monthly@acme.test");
+        schedule(21L, globex, Frequency.DAILY, "daily@globex.test");
+        stubSchedules();
+
+        service.runReports(EnumSet.allOf(Frequency.class), TODAY);
+
+        // The widest window (30 days) at daily granularity, sliced for the shorter ones
+        verify(costService).getDailyCostByServiceAndRegion(acme, YESTERDAY.minusDays(29), YESTERDAY);
+        verify(costService).getDailyCostByServiceAndRegion(globex, YESTERDAY, YESTERDAY);
+        verifyNoMoreInteractions(costService);
+        assertThat(scheduleReadsReadOnly).hasSize(3).containsOnly(true);
+        assertThat(fetchStates).containsExactly("transaction=false, schedule read released=true",
+                "transaction=false, schedule read released=true");
+
+        assertThat(totals("acme:Daily")).containsExactly(1.0, 0.5);
+        assertThat(totals("acme:Weekly")).containsExactly(7.0, 3.5);
+        assertThat(totals("acme:Monthly")).containsExactly(30.0, 15.0);
+        assertThat(totals("globex:Daily")).containsExactly(1.0, 0.5);
+
+        awaitTrue(() -> schedules.values().stream().allMatch(schedule -> schedule.getLastSent() != null));
+        assertThat(smtp.delivered).hasSize(4);
+        SmtpStub.Delivery weeklyMail = smtp.deliveredTo("weekly@acme.test").get(0);
+        assertThat(weeklyMail.subject).isEqualTo("Your Weekly FinOps Report - acme (2024-08-23 to 2024-08-29)");
+        assertThat(weeklyMail.raw).contains("<html>Weekly</html>");
+        assertThat(weekly.getLastSent()).isNotNull();
+
+        // One read-only transaction for the schedules and one write per delivered report, all released
+        awaitTrue(() -> connections.size() == 5 && connections.stream().allMatch(AtomicBoolean::get));
+        assertThat(savesInWriteTransaction).hasSize(4).containsOnly(true);
+    }
+
+    @Test
+    void failedSendIsRetriedAndMarksTheScheduleSentAfterwards() {
+        FinOpsReportSchedule flaky = schedule(11L, acme, Frequency.DAILY, "flaky@acme.test");
+        stubSchedules();
+        smtp.reject("flaky@acme.test", 1);
+
+        service.runReports(EnumSet.of(Frequency.DAILY), TODAY);
+
+        awaitTrue(() -> savesInWriteTransaction.size() == 1);
+        assertThat(flaky.getLastSent()).isNotNull();
+        assertThat(smtp.attempts("flaky@acme.test")).isEqualTo(2);
+        assertThat(smtp.deliveredTo("flaky@acme.test")).hasSize(1);
+        assertThat(savesInWriteTransaction).containsExactly(true);
+    }
+
+    @Test
+    void lastSentIsOnlyWrittenForDeliveredReports() {
+        FinOpsReportSchedule down = schedule(11L, acme, Frequency.DAILY, "down@acme.test");
+        FinOpsReportSchedule delivered = schedule(21L, globex, Frequency.DAILY, "ok@globex.test");
+        stubSchedules();
+        smtp.reject("down@acme.test", Integer.MAX_VALUE);
+
+        service.runReports(EnumSet.of(Frequency.DAILY), TODAY);
+
+        // Three attempts, then the dispatcher gives up
+        awaitTrue(() -> smtp.attempts("down@acme.test") == 3 && delivered.getLastSent() != null);
+        assertThat(smtp.deliveredTo("down@acme.test")).isEmpty();
+        assertThat(smtp.deliveredTo("ok@globex.test")).hasSize(1);
+        assertThat(down.getLastSent()).isNull();
+        verify(scheduleRepository, never()).findById(11L);
+        verify(scheduleRepository, never()).save(down);
+    }
+
+    private List<Double> totals(String report) {
+        return reportsByLabel.get(report).stream().map(DetailedCostDto::getCost).collect(Collectors.toList());
+    }
+
+    private void stubSchedules() {
+        for (Frequency frequency : Frequency.values()) {
+            List<FinOpsReportSchedule> due = new ArrayList<>();
+            schedules.values().stream().filter(s -> s.getFrequency() == frequency)
+                    .sorted(Comparator.comparing(FinOpsReportSchedule::getId)).forEach(due::add);
+            when(scheduleRepository.findAllActiveByFrequencyWithDetails(frequency)).thenAnswer(invocation -> {
+                scheduleReadsReadOnly.add(TransactionSynchronizationManager.isActualTransactionActive()
+                        && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                return due;
+            });
+        }
+    }
+
+    // Hands out mock connections and records when each is closed
+    private DataSource countingDataSource() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            AtomicBoolean closed = new AtomicBoolean();
+            connections.add(closed);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> {
+                closed.set(true);
+                return null;
+            }).when(connection).close();
+            return connection;
+        });
+        return dataSource;
+    }
+
+    private FinOpsReportSchedule schedule(Long id, CloudAccount account, Frequency frequency, String email) {
+        FinOpsReportSchedule schedule = new FinOpsReportSchedule();
+        schedule.setId(id);
+        schedule.setCloudAccount(account);
+        schedule.setFrequency(frequency);
+        schedule.setEmail(email);
+        schedules.put(id, schedule);
+        return schedule;
+    }
+
+    private static CloudAccount account(Long id, String awsAccountId, String name) {
+        CloudAccount account = new CloudAccount();
+        account.setId(id);
+        account.setAwsAccountId(awsAccountId);
+        account.setAccountName(name);
+        account.setProvider("AWS");
+        return account;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Minimal SMTP server on a loopback port. Accepts every message except for recipients told to
+     * be rejected, which get a transient 451 on RCPT TO for the given number of attempts.
+     */
+    static final class SmtpStub implements AutoCloseable {
+
+        static final class Delivery {
+            final String to;
+            final String subject;
+            final String raw;
+
+            Delivery(String to, String subject, String raw) {
+                this.to = to;
+                this.subject = subject;
+                this.raw = raw;
+            }
+        }
+
+        final List<Delivery> delivered = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        private final Map<String, Integer> rejections = new ConcurrentHashMap<>();
+        private final ServerSocket server;
+        private final ExecutorService sessions = Executors.newCachedThreadPool();
+
+        SmtpStub() throws IOException {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            sessions.execute(this::accept);
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void reject(String recipient, int times) {
+            rejections.put(recipient, times);
+        }
+
+        int attempts(String recipient) {
+            AtomicInteger count = attempts.get(recipient);
+            return count != null ? count.get() : 0;
+        }
+
+        List<Delivery> deliveredTo(String recipient) {
+            synchronized (delivered) {
+                return delivered.stream().filter(d -> d.to.equals(recipient)).collect(Collectors.toList());
+            }
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    sessions.execute(() -> converse(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void converse(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                         StandardCharsets.ISO_8859_1));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+                reply(out, "220 localhost SMTP stub");
+                String recipient = null;
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    String verb = line.length() > 4 ? line.substring(0, 4) : line;
+                    switch (verb.toUpperCase(Locale.ROOT)) {
+                        case "EHLO":
+                        case "HELO":
+                            reply(out, "250 localhost");
+                            break;
+                        case "RCPT":
+                            recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                            attempts.computeIfAbsent(recipient, r -> new AtomicInteger()).incrementAndGet();
+                            Integer left = rejections.get(recipient);
+                            if (left != null && left > 0) {
+                                rejections.put(recipient, left - 1);
+                                reply(out, "451 4.3.0 Try again later");
+                            } else {
+                                reply(out, "250 OK");
+                            }
+                            break;
+                        case "DATA":
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            StringBuilder raw = new StringBuilder();
+                            for (String data = in.readLine(); data != null && !data.equals("."); data = in.readLine()) {
+                                raw.append(data.startsWith(".") ? data.substring(1) : data).append("\r\n");
+                            }
+                            delivered.add(new Delivery(recipient, subject(raw.toString()), raw.toString()));
+                            reply(out, "250 OK queued");
+                            break;
+                        case "QUIT":
+                            reply(out, "221 Bye");
+                            return;
+                        default:
+                            // MAIL, RSET, NOOP
+                            reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        private static String subject(String raw) {
+            try {
+                MimeMessage message = new MimeMessage(Session.getInstance(new Properties()),
+                        new ByteArrayInputStream(raw.getBytes(StandardCharsets.ISO_8859_1)));
+                assertThat(message.getRecipients(Message.RecipientType.TO)).hasSize(1);
+                return message.getSubject();
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            sessions.shutdownNow();
+        }
+    }
+}
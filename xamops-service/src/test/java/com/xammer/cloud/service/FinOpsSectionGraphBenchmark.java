@@ -0,0 +1,137 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.service.FinOpsSectionGraph.Input;
+import com.xammer.cloud.service.FinOpsSectionGraph.Refresh;
+import com.xammer.cloud.service.FinOpsSectionGraph.Section;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A FinOps report refresh over 200 accounts, with a fake fetcher per section: recomputing every
+ * section, as before FinOpsSectionGraph, against an incremental refresh where only the month-to-date
+ * cost has moved (the common case between two cost refreshes) and one where nothing has. Each fetch
+ * takes {@code fetchLatencyMs}; the fetches each path makes are printed at setup. Not run by the
+ * build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.FinOpsSectionGraphBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FinOpsSectionGraphBenchmark {
+
+    private static final String TENANT = "acme";
+    private static final int ACCOUNTS = 200;
+    private static final int ROWS = 500;
+
+    // 0 isolates the graph's own bookkeeping; 1 is a fast cached upstream read
+    @Param({"0", "1"})
+    public long fetchLatencyMs;
+
+    private FinOpsSectionGraph graph;
+    private String[] accounts;
+    private long fetches;
+    private int costVersion;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        graph = new FinOpsSectionGraph(24, ACCOUNTS);
+        accounts = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = String.format("%012d", 100_000_000_000L + i);
+        }
+        long latency = fetchLatencyMs;
+        fetchLatencyMs = 0;
+        full();
+        long fullFetches = fetches;
+        // The first refresh computes everything; the graph holds every section from here on
+        refresh();
+        fetches = 0;
+        incremental();
+        long incrementalFetches = fetches;
+        fetches = 0;
+        unchanged();
+        long unchangedFetches = fetches;
+        fetches = 0;
+        fetchLatencyMs = latency;
+        System.out.printf("%d accounts: full refresh %d fetches, month-to-date change %d, no change %d%n",
+                ACCOUNTS, fullFetches, incrementalFetches, unchangedFetches);
+    }
+
+    @Benchmark
+    public long full() throws InterruptedException {
+        long rows = 0;
+        for (String account : accounts) {
+            for (Section section : Section.values()) {
+                rows += fetch(section).length;
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public long incremental() throws InterruptedException {
+        costVersion++;
+        return refresh();
+    }
+
+    @Benchmark
+    public long unchanged() throws InterruptedException {
+        return refresh();
+    }
+
+    private long refresh() throws InterruptedException {
+        long rows = 0;
+        Map<Input, String> versions = versions();
+        for (String account : accounts) {
+            Refresh refresh = graph.begin(TENANT, account, versions);
+            for (Section section : Section.values()) {
+                double[] output;
+                if (refresh.isStale(section)) {
+                    output = fetch(section);
+                    refresh.store(section, output);
+                } else {
+                    output = refresh.cached(section);
+                }
+                rows += output.length;
+            }
+        }
+        return rows;
+    }
+
+    private double[] fetch(Section section) throws InterruptedException {
+        fetches++;
+        if (fetchLatencyMs > 0) {
+            Thread.sleep(fetchLatencyMs);
+        }
+        double[] rows = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = section.ordinal() + i * 0.01;
+        }
+        return rows;
+    }
+
+    private Map<Input, String> versions() {
+        Map<Input, String> versions = new EnumMap<>(Input.class);
+        versions.put(Input.COST_MTD, "2024-08-01..2024-08-30@" + costVersion);
+        versions.put(Input.COST_HISTORY, "2024-03..2024-08@1");
+        versions.put(Input.ANOMALY_WINDOW, "2024-07-01..2024-08-29@1");
+        versions.put(Input.BUDGET_DEFINITIONS, "");
+        versions.put(Input.INVENTORY, "7");
+        versions.put(Input.OPTIMIZATION, "7@2024-08-30");
+        return versions;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FinOpsSectionGraphBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.service.FinOpsSectionGraph.Input;
+import com.xammer.cloud.service.FinOpsSectionGraph.Refresh;
+import com.xammer.cloud.service.FinOpsSectionGraph.Section;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which report sections a refresh recomputes after one input changes, and how section state is
+ * scoped, bounded and evicted.
+ */
+class FinOpsSectionGraphTest {
+
+    private static final String ACCOUNT = "111111111111";
+
+    private final FinOpsSectionGraph graph = new FinOpsSectionGraph(24, 1000);
+
+    @Test
+    void firstRefreshComputesEverythingAndTheNextReusesIt() {
+        Refresh first = graph.begin("acme", ACCOUNT, versions());
+        assertThat(first.getStaleSections()).containsExactlyInAnyOrder(Section.values());
+        storeAll(first);
+
+        Refresh second = graph.begin("acme", ACCOUNT, versions());
+
+        assertThat(second.getStaleSections()).isEmpty();
+        assertThat(second.<String>cached(Section.COST_HISTORY)).isEqualTo("COST_HISTORY");
+    }
+
+    @Test
+    void changedVersionRecomputesOnlyTheSectionsReadingIt() {
+        storeAll(graph.begin("acme", ACCOUNT, versions()));
+
+        Map<Input, String> newMonth = versions();
+        newMonth.put(Input.COST_MTD, "2024-09-01..2024-09-01@1");
+        assertThat(graph.begin("acme", ACCOUNT, newMonth).getStaleSections())
+                .containsExactlyInAnyOrder(Section.BILLING_SUMMARY, Section.COST_BY_REGION, Section.BUDGETS);
+
+        Map<Input, String> newInventory = versions();
+        newInventory.put(Input.INVENTORY, "8");
+        assertThat(graph.begin("acme", ACCOUNT, newInventory).getStaleSections())
+                .containsExactly(Section.TAGGING_COMPLIANCE);
+
+        Map<Input, String> newOptimization = versions();
+        newOptimization.put(Input.OPTIMIZATION, "7@2024-08-31");
+        assertThat(graph.begin("acme", ACCOUNT, newOptimization).getStaleSections())
+                .containsExactlyInAnyOrder(Section.WASTED_RESOURCES, Section.RIGHTSIZING);
+    }
+
+    @Test
+    void markChangedInvalidatesOnlyItsReaders() {
+        storeAll(graph.begin("acme", ACCOUNT, versions()));
+
+        graph.markChanged("acme", ACCOUNT, Input.BUDGET_DEFINITIONS);
+
+        Refresh refresh = graph.begin("acme", ACCOUNT, versions());
+        assertThat(refresh.getStaleSections()).containsExactly(Section.BUDGETS);
+        storeAll(refresh);
+        assertThat(graph.begin("acme", ACCOUNT, versions()).getStaleSections()).isEmpty();
+    }
+
+    @Test
+    void changeDuringARefreshStillInvalidatesWhatItStored() {
+        Refresh inFlight = graph.begin("acme", ACCOUNT, versions());
+        graph.markChanged("acme", ACCOUNT, Input.BUDGET_DEFINITIONS);
+        storeAll(inFlight);
+
+        assertThat(graph.begin("acme", ACCOUNT, versions()).getStaleSections()).containsExactly(Section.BUDGETS);
+    }
+
+    @Test
+    void stateIsScopedByTenant() {
+        storeAll(graph.begin("acme", ACCOUNT, versions()));
+        storeAll(graph.begin(null, ACCOUNT, versions()));
+
+        graph.markChanged("globex", ACCOUNT, Input.BUDGET_DEFINITIONS);
+
+        assertThat(graph.begin("acme", ACCOUNT, versions()).getStaleSections()).isEmpty();
+        assertThat(graph.begin("globex", ACCOUNT, versions()).getStaleSections())
+                .containsExactlyInAnyOrder(Section.values());
+        // No tenant in context is the default tenant
+        assertThat(graph.begin("default", ACCOUNT, versions()).getStaleSections()).isEmpty();
+    }
+
+    @Test
+    void evictDropsTheAccountAndAnInFlightRefreshDoesNotBringItBack() {
+        storeAll(graph.begin("acme", ACCOUNT, versions()));
+        storeAll(graph.begin("acme", "222222222222", versions()));
+        Refresh inFlight = graph.begin("acme", ACCOUNT, versions());
+        graph.markChanged("acme", ACCOUNT, Input.INVENTORY);
+
+        graph.evict("acme", ACCOUNT);
+        storeAll(inFlight);
+
+        assertThat(graph.begin("acme", ACCOUNT, versions()).getStaleSections())
+                .containsExactlyInAnyOrder(Section.values());
+        assertThat(graph.begin("acme", "222222222222", versions()).getStaleSections()).isEmpty();
+    }
+
+    @Test
+    void accountsAreBounded() {
+        FinOpsSectionGraph small = new FinOpsSectionGraph(24, 2);
+
+        for (int i = 0; i < 20; i++) {
+            storeAll(small.begin("acme", String.valueOf(i), versions()));
+        }
+
+        assertThat(small.size()).isLessThanOrEqualTo(2);
+    }
+
+    private static void storeAll(Refresh refresh) {
+        refresh.getStaleSections().forEach(section -> refresh.store(section, section.name()));
+    }
+
+    private static Map<Input, String> versions() {
+        Map<Input, String> versions = new EnumMap<>(Input.class);
+        versions.put(Input.COST_MTD, "2024-08-01..2024-08-30@1");
+        versions.put(Input.COST_HISTORY, "2024-03..2024-08@1");
+        versions.put(Input.ANOMALY_WINDOW, "2024-07-01..2024-08-29@1");
+        versions.put(Input.BUDGET_DEFINITIONS, "");
+        versions.put(Input.INVENTORY, "7");
+        versions.put(Input.OPTIMIZATION, "7@2024-08-30");
+        return versions;
+    }
+}
@@ -0,0 +1,66 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.FinOpsReportDto;
+import com.xammer.cloud.repository.CloudAccountRepository;
+import com.xammer.cloud.repository.UserRepository;
+import com.xammer.cloud.service.anomaly.CostAnomalyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * How a FinOps report request decides between the cached report and a refresh.
+ */
+class FinOpsServiceTest {
+
+    private final CloudAccount account = new CloudAccount();
+    private CloudListService cloudListService;
+    private RedisCacheService redisCache;
+    private FinOpsService service;
+
+    @BeforeEach
+    void setUp() {
+        account.setAwsAccountId("123456789012");
+        CloudAccountRepository cloudAccountRepository = mock(CloudAccountRepository.class);
+        when(cloudAccountRepository.findByAwsAccountId("123456789012")).thenReturn(List.of(account));
+        cloudListService = mock(CloudListService.class);
+        // The refresh itself is not under test; it stops at the tag index
+        when(cloudListService.getTagIndex(eq(account), anyBoolean())).thenReturn(new CompletableFuture<>());
+        redisCache = mock(RedisCacheService.class);
+        service = new FinOpsService(cloudAccountRepository, mock(AwsClientProvider.class), cloudListService,
+                mock(OptimizationService.class), redisCache, mock(UserRepository.class),
+                new FinOpsSectionGraph(24, 1000), mock(CostAnomalyService.class));
+    }
+
+    @Test
+    void forcedRefreshSkipsTheCacheAndResyncsTheTagIndex() {
+        service.getFinOpsReport("123456789012", true);
+
+        verify(cloudListService).getTagIndex(account, true);
+        verify(redisCache, never()).get(anyString(), eq(FinOpsReportDto.class));
+    }
+
+    @Test
+    void unforcedRequestUsesTheCachedTagIndex() {
+        service.getFinOpsReport("123456789012", false);
+
+        verify(cloudListService).getTagIndex(account, false);
+    }
+
+    @Test
+    void cachedReportIsReturnedWithoutARefresh() {
+        FinOpsReportDto cached = new FinOpsReportDto();
+        when(redisCache.get("finopsReport-123456789012", FinOpsReportDto.class)).thenReturn(Optional.of(cached));
+
+        assertThat(service.getFinOpsReport("123456789012", false).join()).isSameAs(cached);
+        verifyNoInteractions(cloudListService);
+    }
+}
@@ -0,0 +1,106 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.InstanceUtilizationDto;
+import com.xammer.cloud.repository.CloudAccountRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rightsizing utilization for 5,000 instances of one region: MetricsService.getMaxUtilization
+ * packing CPU, memory and network queries 500 to a GetMetricData call, against the one
+ * getMaxCpuUtilization call per instance XamOpsRightsizingService made before. Both run on
+ * MetricsServiceTest's fake CloudWatch, with {@code callLatencyMs} per call; the GetMetricData
+ * calls each path makes are printed at setup. The old path read CPU only, so its call count is a
+ * lower bound. Not run by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.MetricsServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MetricsServiceBenchmark {
+
+    private static final String ACCOUNT_ID = "123456789012";
+    private static final String REGION = "us-east-1";
+    private static final int INSTANCES = 5000;
+    private static final int LOOKBACK_DAYS = 14;
+
+    // 0 isolates the client-side work; 5 is a short in-region GetMetricData round trip
+    @Param({"0", "5"})
+    public long callLatencyMs;
+
+    private final CloudAccount account = new CloudAccount();
+    private MetricsServiceTest.FakeCloudWatch cloudWatch;
+    private MetricsService service;
+    private List<String> instanceIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        instanceIds = IntStream.range(0, INSTANCES).mapToObj(i -> "i-" + i).collect(Collectors.toList());
+        cloudWatch = new MetricsServiceTest.FakeCloudWatch();
+        // The agent runs on every other instance, listed 500 metrics to a page
+        List<String> withAgent = IntStream.range(0, INSTANCES).filter(i -> i % 2 == 0)
+                .mapToObj(instanceIds::get).collect(Collectors.toList());
+        for (int page = 0; page * 500 < withAgent.size(); page++) {
+            cloudWatch.publishAgentMetrics(page, withAgent.subList(page * 500,
+                    Math.min((page + 1) * 500, withAgent.size())).toArray(new String[0]));
+        }
+
+        AwsClientProvider awsClientProvider = mock(AwsClientProvider.class);
+        when(awsClientProvider.getCloudWatchClient(account, REGION)).thenReturn(cloudWatch.client);
+        CloudAccountRepository cloudAccountRepository = mock(CloudAccountRepository.class);
+        when(cloudAccountRepository.findByProviderAccountId(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        service = new MetricsService(cloudAccountRepository, awsClientProvider, mock(CloudListService.class));
+
+        int packed = packed().size();
+        int packedCalls = cloudWatch.requests.size();
+        cloudWatch.requests.clear();
+        int perInstance = perInstance().size();
+        int perInstanceCalls = cloudWatch.requests.size();
+        cloudWatch.requests.clear();
+        System.out.printf("%d instances: packed %d GetMetricData calls (%d instances), per instance %d calls (%d instances)%n",
+                INSTANCES, packedCalls, packed, perInstanceCalls, perInstance);
+        cloudWatch.latencyMillis = callLatencyMs;
+    }
+
+    @TearDown(Level.Invocation)
+    public void forgetRequests() {
+        cloudWatch.requests.clear();
+    }
+
+    @Benchmark
+    public Map<String, InstanceUtilizationDto> packed() {
+        return service.getMaxUtilization(account, REGION, instanceIds, LOOKBACK_DAYS);
+    }
+
+    @Benchmark
+    public Map<String, Double> perInstance() {
+        Map<String, Double> maxCpu = new HashMap<>();
+        for (String instanceId : instanceIds) {
+            service.getMaxCpuUtilization(ACCOUNT_ID, instanceId, REGION, LOOKBACK_DAYS)
+                    .ifPresent(cpu -> maxCpu.put(instanceId, cpu));
+        }
+        return maxCpu;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MetricsServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
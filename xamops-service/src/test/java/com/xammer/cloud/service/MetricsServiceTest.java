@@ -0,0 +1,201 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.InstanceUtilizationDto;
+import com.xammer.cloud.repository.CloudAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Batched utilization reads of {@link MetricsService#getMaxUtilization} against a fake CloudWatch
+ * that, like the real one, only answers a query whose dimensions match a published metric exactly.
+ */
+class MetricsServiceTest {
+
+    private static final String REGION = "us-east-1";
+
+    private final CloudAccount account = new CloudAccount();
+    private FakeCloudWatch cloudWatch;
+    private MetricsService service;
+
+    static final class FakeCloudWatch {
+        final CloudWatchClient client = mock(CloudWatchClient.class);
+        // Agent metrics as published, split into ListMetrics pages
+        final List<List<Metric>> agentPages = new ArrayList<>();
+        final Set<Metric> agentMetrics = new HashSet<>();
+        final List<GetMetricDataRequest> requests = new ArrayList<>();
+        final Set<Integer> failingRequests = new HashSet<>();
+        // Round trip of one GetMetricData call, for MetricsServiceBenchmark
+        long latencyMillis;
+
+        FakeCloudWatch() {
+            when(client.listMetrics(any(ListMetricsRequest.class))).thenAnswer(invocation -> {
+                ListMetricsRequest request = invocation.getArgument(0);
+                assertThat(request.namespace()).isEqualTo("CWAgent");
+                assertThat(request.metricName()).isEqualTo("mem_used_percent");
+                int page = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+                return ListMetricsResponse.builder()
+                        .metrics(agentPages.isEmpty() ? List.of() : agentPages.get(page))
+                        .nextToken(page + 1 < agentPages.size() ? String.valueOf(page + 1) : null)
+                        .build();
+            });
+            when(client.getMetricData(any(GetMetricDataRequest.class))).thenAnswer(invocation -> {
+                GetMetricDataRequest request = invocation.getArgument(0);
+                requests.add(request);
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                if (failingRequests.contains(requests.size() - 1)) {
+                    throw CloudWatchException.builder().message("Rate exceeded").build();
+                }
+                List<MetricDataResult> results = new ArrayList<>();
+                for (MetricDataQuery query : request.metricDataQueries()) {
+                    results.add(MetricDataResult.builder()
+                            .id(query.id())
+                            .values(datapoints(query.metricStat().metric()))
+                            .build());
+                }
+                return GetMetricDataResponse.builder().metricDataResults(results).build();
+            });
+        }
+
+        void publishAgentMetrics(int page, String... instanceIds) {
+            while (agentPages.size() <= page) {
+                agentPages.add(new ArrayList<>());
+            }
+            for (String instanceId : instanceIds) {
+                agentPages.get(page).add(agentMetric(instanceId));
+                agentMetrics.add(agentMetric(instanceId));
+            }
+        }
+
+        // Daily peaks of one metric; an agent metric queried by a partial dimension set has no data
+        List<Double> datapoints(Metric metric) {
+            String instanceId = metric.dimensions().stream().filter(d -> d.name().equals("InstanceId"))
+                    .findFirst().orElseThrow().value();
+            int index = Integer.parseInt(instanceId.substring(2));
+            switch (metric.metricName()) {
+                case "CPUUtilization":
+                    return List.of(index % 50 + 1.0, index % 50 + 40.0, 2.0);
+                case "mem_used_percent":
+                    return agentMetrics.contains(metric) ? List.of(55.0, 61.5) : List.of();
+                case "NetworkIn":
+                    return List.of(1000.0 * index);
+                default:
+                    return List.of(2000.0 * index);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        cloudWatch = new FakeCloudWatch();
+        AwsClientProvider awsClientProvider = mock(AwsClientProvider.class);
+        when(awsClientProvider.getCloudWatchClient(account, REGION)).thenReturn(cloudWatch.client);
+        service = new MetricsService(mock(CloudAccountRepository.class), awsClientProvider,
+                mock(CloudListService.class));
+    }
+
+    @Test
+    void memoryIsQueriedWithTheAgentsFullDimensionSet() {
+        cloudWatch.publishAgentMetrics(0, "i-0");
+        cloudWatch.publishAgentMetrics(1, "i-1");
+
+        Map<String, InstanceUtilizationDto> utilization = service.getMaxUtilization(account, REGION,
+                List.of("i-0", "i-1", "i-2"), 14);
+
+        assertThat(utilization.get("i-0").getMaxMemoryPercent()).isEqualTo(61.5);
+        assertThat(utilization.get("i-1").getMaxMemoryPercent()).isEqualTo(61.5);
+        // No agent on i-2, so there is no memory query for it at all
+        assertThat(utilization.get("i-2").getMaxMemoryPercent()).isNull();
+        assertThat(utilization.get("i-2").getMaxCpuPercent()).isEqualTo(42.0);
+        assertThat(memoryQueries()).extracting(query -> query.metricStat().metric())
+                .containsExactly(agentMetric("i-0"), agentMetric("i-1"));
+        verify(cloudWatch.client, times(2)).listMetrics(any(ListMetricsRequest.class));
+    }
+
+    @Test
+    void queriesAreSplitAtTheRequestLimit() {
+        List<String> instanceIds = instances(300);
+        cloudWatch.publishAgentMetrics(0, instanceIds.subList(0, 200).toArray(new String[0]));
+
+        Map<String, InstanceUtilizationDto> utilization = service.getMaxUtilization(account, REGION, instanceIds, 14);
+
+        // 300 x (CPU, NetworkIn, NetworkOut) + 200 memory queries
+        assertThat(cloudWatch.requests).extracting(request -> request.metricDataQueries().size())
+                .containsExactly(500, 500, 100);
+        List<String> ids = cloudWatch.requests.stream().flatMap(request -> request.metricDataQueries().stream())
+                .map(MetricDataQuery::id).collect(Collectors.toList());
+        assertThat(ids).hasSize(1100).doesNotHaveDuplicates();
+
+        assertThat(utilization).hasSize(300);
+        InstanceUtilizationDto last = utilization.get("i-299");
+        assertThat(last.getMaxCpuPercent()).isEqualTo(299 % 50 + 40.0);
+        assertThat(last.getMaxMemoryPercent()).isNull();
+        assertThat(last.getMaxNetworkInBytesPerDay()).isEqualTo(299_000.0);
+        assertThat(last.getMaxNetworkOutBytesPerDay()).isEqualTo(598_000.0);
+        assertThat(utilization.get("i-199").getMaxMemoryPercent()).isEqualTo(61.5);
+    }
+
+    @Test
+    void failedRequestDropsOnlyTheInstancesItHeld() {
+        cloudWatch.failingRequests.add(0);
+
+        Map<String, InstanceUtilizationDto> utilization = service.getMaxUtilization(account, REGION, instances(300),
+                14);
+
+        // The first 500 queries cover i-0..i-166; i-166 is split across both requests
+        assertThat(cloudWatch.requests).hasSize(2);
+        assertThat(utilization).hasSize(133).doesNotContainKeys("i-0", "i-166").containsKeys("i-167", "i-299");
+    }
+
+    @Test
+    void unlistableAgentMetricsFallBackToTheInstanceIdDimension() {
+        doThrow(CloudWatchException.builder().message("AccessDenied").build())
+                .when(cloudWatch.client).listMetrics(any(ListMetricsRequest.class));
+
+        Map<String, InstanceUtilizationDto> utilization = service.getMaxUtilization(account, REGION,
+                List.of("i-0", "i-1"), 14);
+
+        assertThat(utilization).hasSize(2);
+        assertThat(memoryQueries()).extracting(query -> query.metricStat().metric().dimensions()).containsExactly(
+                List.of(Dimension.builder().name("InstanceId").value("i-0").build()),
+                List.of(Dimension.builder().name("InstanceId").value("i-1").build()));
+    }
+
+    @Test
+    void noInstancesMakesNoCalls() {
+        assertThat(service.getMaxUtilization(account, REGION, List.of(), 14)).isEmpty();
+        verifyNoInteractions(cloudWatch.client);
+    }
+
+    private List<MetricDataQuery> memoryQueries() {
+        return cloudWatch.requests.stream().flatMap(request -> request.metricDataQueries().stream())
+                .filter(query -> query.metricStat().metric().metricName().equals("mem_used_percent"))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> instances(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "i-" + i).collect(Collectors.toList());
+    }
+
+    private static Metric agentMetric(String instanceId) {
+        return Metric.builder()
+                .namespace("CWAgent")
+                .metricName("mem_used_percent")
+                .dimensions(Dimension.builder().name("InstanceId").value(instanceId).build(),
+                        Dimension.builder().name("ImageId").value("ami-0abc").build(),
+                        Dimension.builder().name("InstanceType").value("m5.large").build())
+                .build();
+    }
+}
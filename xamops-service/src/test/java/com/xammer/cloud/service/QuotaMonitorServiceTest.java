@@ -0,0 +1,267 @@
+package com.xammer.cloud.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.ResourceDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.servicequotas.ServiceQuotasClient;
+import software.amazon.awssdk.services.servicequotas.model.GetAwsDefaultServiceQuotaRequest;
+import software.amazon.awssdk.services.servicequotas.model.GetAwsDefaultServiceQuotaResponse;
+import software.amazon.awssdk.services.servicequotas.model.GetServiceQuotaRequest;
+import software.amazon.awssdk.services.servicequotas.model.GetServiceQuotaResponse;
+import software.amazon.awssdk.services.servicequotas.model.NoSuchResourceException;
+import software.amazon.awssdk.services.servicequotas.model.ServiceQuota;
+
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Per-region quota evaluation on the governed pool, against stubbed inventory and quota limits,
+ * an in-memory limit cache and a fake CloudWatch that pages its GetMetricData answers.
+ */
+class QuotaMonitorServiceTest {
+
+    private static final List<String> REGIONS = List.of("eu-west-1", "us-east-1");
+    private static final String VCPU = "L-1216C47A";
+    private static final String ELASTIC_IPS = "L-0263D0A3";
+    private static final String VPCS = "L-F678F1CE";
+
+    private final CloudAccount account = new CloudAccount();
+    private final Queue<String> limitLookups = new ConcurrentLinkedQueue<>();
+    private final MockEnvironment environment = new MockEnvironment();
+    private final ThreadGovernor threadGovernor = new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50);
+    private final InMemoryCache cache = new InMemoryCache();
+    // GetMetricData nextToken of every call, per region, in call order
+    private final Map<String, List<String>> usageTokens = new ConcurrentHashMap<>();
+    private CloudListService cloudListService;
+    private ServiceQuotasClient serviceQuotas;
+    private AwsClientProvider awsClientProvider;
+    private QuotaMonitorService service;
+
+    @BeforeEach
+    void setUp() {
+        account.setAwsAccountId("123456789012");
+        cloudListService = mock(CloudListService.class);
+        List<DashboardData.RegionStatus> regions = new ArrayList<>();
+        List<ResourceDto> resources = new ArrayList<>();
+        for (String regionId : REGIONS) {
+            DashboardData.RegionStatus region = new DashboardData.RegionStatus();
+            region.setRegionId(regionId);
+            regions.add(region);
+            for (int i = 0; i < 4; i++) {
+                resources.add(new ResourceDto("eip-" + regionId + i, null, "Elastic IP", regionId, null, null, null));
+                resources.add(new ResourceDto("vpc-" + regionId + i, null, "VPC", regionId, null, null, null));
+            }
+        }
+        when(cloudListService.getRegionStatusForAccount(eq(account), anyBoolean()))
+                .thenReturn(CompletableFuture.completedFuture(regions));
+        when(cloudListService.getAllResources(account, false)).thenReturn(CompletableFuture.completedFuture(resources));
+
+        // Every limit is 5, so four resources are 80% used; the vCPU limit is 64
+        serviceQuotas = mock(ServiceQuotasClient.class);
+        when(serviceQuotas.getServiceQuota(any(GetServiceQuotaRequest.class))).thenAnswer(invocation -> {
+            GetServiceQuotaRequest request = invocation.getArgument(0);
+            limitLookups.add(TenantContext.getCurrentTenant() + "@" + Thread.currentThread().getName());
+            return GetServiceQuotaResponse.builder()
+                    .quota(ServiceQuota.builder().quotaName(request.quotaCode())
+                            .value(VCPU.equals(request.quotaCode()) ? 64.0 : 5.0).build())
+                    .build();
+        });
+        awsClientProvider = mock(AwsClientProvider.class);
+        when(awsClientProvider.getServiceQuotasClient(eq(account), anyString())).thenReturn(serviceQuotas);
+        for (String regionId : REGIONS) {
+            CloudWatchClient cloudWatch = pagedCloudWatch(regionId);
+            when(awsClientProvider.getCloudWatchClient(account, regionId)).thenReturn(cloudWatch);
+        }
+
+        service = service(List.of(ELASTIC_IPS, VPCS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        TenantContext.clear();
+    }
+
+    @Test
+    void regionsAreEvaluatedOnThePoolAsTheCallersTenant() {
+        TenantContext.setCurrentTenant("acme");
+
+        List<DashboardData.ServiceQuotaInfo> quotas = service.evaluate(account, false).join();
+
+        assertThat(quotas).hasSize(4);
+        assertThat(limitLookups).hasSize(4)
+                .allSatisfy(lookup -> assertThat(lookup).startsWith("acme@quota-monitor-"));
+    }
+
+    @Test
+    void perQuotaOverridesMoveBothThresholds() {
+        environment.setProperty("quotas.critical-thresholds." + ELASTIC_IPS, "80");
+        environment.setProperty("quotas.thresholds." + VPCS, "85");
+
+        List<DashboardData.ServiceQuotaInfo> quotas = service.evaluate(account, false).join();
+
+        assertThat(quotas).extracting(DashboardData.ServiceQuotaInfo::getRegionId,
+                DashboardData.ServiceQuotaInfo::getQuotaName, DashboardData.ServiceQuotaInfo::getStatus)
+                .containsExactly(
+                        tuple("eu-west-1", ELASTIC_IPS, "CRITICAL"),
+                        tuple("eu-west-1", VPCS, "OK"),
+                        tuple("us-east-1", ELASTIC_IPS, "CRITICAL"),
+                        tuple("us-east-1", VPCS, "OK"));
+    }
+
+    @Test
+    void defaultThresholdsApplyWithoutOverrides() {
+        assertThat(service.evaluate(account, false).join()).extracting(DashboardData.ServiceQuotaInfo::getStatus)
+                .containsOnly("WARNING");
+        assertThat(service.status(QuotaMonitorService.MonitoredQuota.VPCS_PER_REGION, 90.0)).isEqualTo("CRITICAL");
+        assertThat(service.status(QuotaMonitorService.MonitoredQuota.VPCS_PER_REGION, 74.9)).isEqualTo("OK");
+    }
+
+    @Test
+    void secondEvaluationReadsEveryLimitFromTheCache() {
+        List<DashboardData.ServiceQuotaInfo> first = service.evaluate(account, false).join();
+        verify(serviceQuotas, times(4)).getServiceQuota(any(GetServiceQuotaRequest.class));
+        assertThat(cache.entries).hasSize(4);
+        clearInvocations(serviceQuotas);
+
+        List<DashboardData.ServiceQuotaInfo> second = service.evaluate(account, false).join();
+
+        verifyNoInteractions(serviceQuotas);
+        assertThat(second).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(first);
+
+        service.evaluate(account, true).join();
+        verify(serviceQuotas, times(4)).getServiceQuota(any(GetServiceQuotaRequest.class));
+    }
+
+    @Test
+    void quotaWithoutAnAppliedValueFallsBackToTheAwsDefaultOnce() {
+        doAnswer(invocation -> {
+            GetServiceQuotaRequest request = invocation.getArgument(0);
+            if (VPCS.equals(request.quotaCode())) {
+                throw NoSuchResourceException.builder().message("No applied quota").build();
+            }
+            return GetServiceQuotaResponse.builder()
+                    .quota(ServiceQuota.builder().quotaName(request.quotaCode()).value(5.0).build())
+                    .build();
+        }).when(serviceQuotas).getServiceQuota(any(GetServiceQuotaRequest.class));
+        when(serviceQuotas.getAWSDefaultServiceQuota(any(GetAwsDefaultServiceQuotaRequest.class)))
+                .thenAnswer(invocation -> GetAwsDefaultServiceQuotaResponse.builder()
+                        .quota(ServiceQuota.builder().quotaName("VPCs per Region").value(8.0).build())
+                        .build());
+
+        List<DashboardData.ServiceQuotaInfo> quotas = service.evaluate(account, false).join();
+
+        // 4 of 8 VPCs is 50%
+        assertThat(quotas).filteredOn(quota -> quota.getQuotaName().equals("VPCs per Region"))
+                .extracting(DashboardData.ServiceQuotaInfo::getRegionId, DashboardData.ServiceQuotaInfo::getLimit,
+                        DashboardData.ServiceQuotaInfo::getStatus)
+                .containsExactly(tuple("eu-west-1", 8.0, "OK"), tuple("us-east-1", 8.0, "OK"));
+        verify(serviceQuotas, times(4)).getServiceQuota(any(GetServiceQuotaRequest.class));
+        verify(serviceQuotas, times(2)).getAWSDefaultServiceQuota(GetAwsDefaultServiceQuotaRequest.builder()
+                .serviceCode("vpc").quotaCode(VPCS).build());
+        clearInvocations(serviceQuotas);
+
+        // The default is cached like any applied limit
+        service.evaluate(account, false).join();
+        verifyNoInteractions(serviceQuotas);
+    }
+
+    @Test
+    void usageMetricsFollowNextTokenInOneChainPerRegion() {
+        service.shutdown();
+        service = service(List.of(VCPU, ELASTIC_IPS));
+
+        List<DashboardData.ServiceQuotaInfo> quotas = service.evaluate(account, false).join();
+
+        // Each region's answer spans three pages; the peak is on the second in eu-west-1, the third in us-east-1
+        assertThat(usageTokens).containsOnlyKeys(REGIONS)
+                .allSatisfy((region, tokens) -> assertThat(tokens).containsExactly(null, "1", "2"));
+        assertThat(quotas).filteredOn(quota -> quota.getQuotaName().equals(VCPU))
+                .extracting(DashboardData.ServiceQuotaInfo::getRegionId, DashboardData.ServiceQuotaInfo::getUsage,
+                        DashboardData.ServiceQuotaInfo::getStatus)
+                .containsExactly(tuple("eu-west-1", 40.0, "OK"), tuple("us-east-1", 60.0, "CRITICAL"));
+        verify(awsClientProvider, times(2)).getCloudWatchClient(eq(account), anyString());
+    }
+
+    private QuotaMonitorService service(List<String> quotaCodes) {
+        return new QuotaMonitorService(awsClientProvider, cloudListService, cache, environment, threadGovernor,
+                quotaCodes, 75, 90, 60, 2);
+    }
+
+    // Three pages of ResourceCount datapoints for every query; the region decides where the peak falls
+    private CloudWatchClient pagedCloudWatch(String regionId) {
+        List<List<Double>> pages = regionId.equals("eu-west-1")
+                ? List.of(List.of(12.0, 20.0), List.of(40.0), List.of(31.0, 8.0))
+                : List.of(List.of(2.0), List.of(16.0, 30.0), List.of(60.0));
+        CloudWatchClient cloudWatch = mock(CloudWatchClient.class);
+        when(cloudWatch.getMetricData(any(GetMetricDataRequest.class))).thenAnswer(invocation -> {
+            GetMetricDataRequest request = invocation.getArgument(0);
+            usageTokens.computeIfAbsent(regionId, r -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(request.nextToken());
+            int page = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+            List<MetricDataResult> results = new ArrayList<>();
+            for (MetricDataQuery query : request.metricDataQueries()) {
+                results.add(MetricDataResult.builder().id(query.id()).values(pages.get(page)).build());
+            }
+            return GetMetricDataResponse.builder()
+                    .metricDataResults(results)
+                    .nextToken(page + 1 < pages.size() ? String.valueOf(page + 1) : null)
+                    .build();
+        });
+        return cloudWatch;
+    }
+
+    // Stores entries as JSON, as Redis does, so cached limits go through the same serialization
+    private static final class InMemoryCache extends RedisCacheService {
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+        InMemoryCache() {
+            super(null, null);
+        }
+
+        @Override
+        public <T> Optional<T> get(String key, Class<T> clazz) {
+            String json = entries.get(key);
+            if (json == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(objectMapper.readValue(json, clazz));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public <T> void put(String key, T value, int minutes) {
+            try {
+                entries.put(key, objectMapper.writeValueAsString(value));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.ResourceDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * ResourceTagIndex over 500,000 synthetic resources carrying 30 tags each: a re-sync after 1% of
+ * the resources changed a tag, a re-sync of an unchanged inventory, the compliance summary and the
+ * tag facets. The compliance summary is also computed by the per-request scan of every resource's
+ * details that the index replaced. Not run by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.ResourceTagIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ResourceTagIndexBenchmark {
+
+    private static final int RESOURCES = 500_000;
+    private static final int TAGS = 30;
+    private static final List<String> REQUIRED_TAGS = List.of("cost-center", "project", "owner");
+    private static final String[] TYPES = { "EC2 Instance", "EBS Volume", "S3 Bucket", "Lambda Function",
+            "RDS Instance", "ECS Service" };
+    private static final String[] REGIONS = { "us-east-1", "us-west-2", "eu-west-1", "ap-south-1" };
+    private static final String[] KEYS = new String[TAGS];
+    private static final String EXTRA_KEY = "tag:attr-extra";
+
+    static {
+        for (int tag = 0; tag < TAGS; tag++) {
+            KEYS[tag] = "tag:" + (tag < REQUIRED_TAGS.size() ? REQUIRED_TAGS.get(tag) : "attr-" + tag);
+        }
+    }
+
+    private List<ResourceDto> inventory;
+    private List<ResourceDto> churned;
+    private ResourceTagIndex index;
+    private boolean churn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Keys and values are shared strings, as they repeat heavily across a real inventory
+        String[][] values = new String[TAGS][];
+        for (int tag = 0; tag < TAGS; tag++) {
+            values[tag] = new String[tag < REQUIRED_TAGS.size() ? 50 : 10 + tag * 30];
+            for (int value = 0; value < values[tag].length; value++) {
+                values[tag][value] = "value-" + tag + "-" + value;
+            }
+        }
+
+        inventory = new ArrayList<>(RESOURCES);
+        for (int r = 0; r < RESOURCES; r++) {
+            inventory.add(resource(r, values, 0));
+        }
+        // 1% of the resources move one tag to another value
+        churned = new ArrayList<>(inventory);
+        for (int r = 0; r < RESOURCES; r += 100) {
+            churned.set(r, resource(r, values, 1));
+        }
+
+        index = new ResourceTagIndex(REQUIRED_TAGS);
+        index.sync(inventory);
+    }
+
+    @Benchmark
+    public long syncChurned() {
+        churn = !churn;
+        index.sync(churn ? churned : inventory);
+        return index.version();
+    }
+
+    @Benchmark
+    public long syncUnchanged() {
+        index.sync(churn ? churned : inventory);
+        return index.version();
+    }
+
+    @Benchmark
+    public DashboardData.TaggingCompliance compliance() {
+        return index.compliance(20);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> facets() {
+        return index.facets();
+    }
+
+    /**
+     * The compliance scan FinOpsService ran on every request before the index: collect each
+     * resource's tags from its details and check the required ones.
+     */
+    @Benchmark
+    public DashboardData.TaggingCompliance complianceScan() {
+        List<ResourceDto> resources = churn ? churned : inventory;
+        List<DashboardData.UntaggedResource> untaggedList = new ArrayList<>();
+        int taggedCount = 0;
+        for (ResourceDto resource : resources) {
+            List<String> missingTags = new ArrayList<>(REQUIRED_TAGS);
+            Map<String, String> resourceTags = new HashMap<>();
+            resource.getDetails().forEach((key, value) -> {
+                if (key.toLowerCase().startsWith("tag:")) {
+                    resourceTags.put(key.substring(4), value);
+                }
+            });
+            missingTags.removeAll(resourceTags.keySet());
+            if (missingTags.isEmpty()) {
+                taggedCount++;
+            } else {
+                untaggedList.add(new DashboardData.UntaggedResource(resource.getId(), resource.getType(),
+                        resource.getRegion(), missingTags));
+            }
+        }
+        double percentage = ((double) taggedCount / resources.size()) * 100.0;
+        return new DashboardData.TaggingCompliance(percentage, resources.size(), untaggedList.size(),
+                untaggedList.stream().limit(20).collect(Collectors.toList()));
+    }
+
+    // Every tenth resource lacks one required tag, carrying an extra optional tag in its place
+    private static ResourceDto resource(int r, String[][] values, int shift) {
+        Map<String, String> details = new HashMap<>(64);
+        details.put("instanceType", "m5.large");
+        int skippedRequired = r % 10 == 0 ? r / 10 % REQUIRED_TAGS.size() : -1;
+        for (int tag = 0; tag < TAGS; tag++) {
+            String[] pool = values[tag];
+            details.put(tag == skippedRequired ? EXTRA_KEY : KEYS[tag],
+                    pool[(r + (tag == TAGS - 1 ? shift : 0)) % pool.length]);
+        }
+        String id = "res-" + r;
+        return new ResourceDto(id, id, TYPES[r % TYPES.length], REGIONS[r % REGIONS.length], "running", null,
+                details);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ResourceTagIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
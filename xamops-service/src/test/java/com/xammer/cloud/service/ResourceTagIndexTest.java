@@ -0,0 +1,127 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.ResourceDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Diff-based syncing of {@link ResourceTagIndex} and what it answers afterwards.
+ */
+class ResourceTagIndexTest {
+
+    private final ResourceTagIndex index = new ResourceTagIndex(List.of("cost-center", "project"));
+
+    @Test
+    void syncIndexesTagsAndMissingRequiredTags() {
+        index.sync(List.of(
+                resource("i-1", "running", "tag:cost-center", "eng", "Tag:project", "atlas"),
+                resource("i-2", "running", "tag:cost-center", "eng"),
+                resource("i-3", "running")));
+
+        assertThat(index.version()).isEqualTo(1);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.facets()).isEqualTo(Map.of("cost-center", Map.of("eng", 2), "project", Map.of("atlas", 1)));
+        assertThat(index.findByTag("cost-center", "eng")).extracting(ResourceDto::getId)
+                .containsExactlyInAnyOrder("i-1", "i-2");
+        assertThat(index.findByTag("project", null)).extracting(ResourceDto::getId).containsExactly("i-1");
+
+        DashboardData.TaggingCompliance compliance = index.compliance(10);
+        assertThat(compliance.getTotalResourcesScanned()).isEqualTo(3);
+        assertThat(compliance.getUntaggedResourcesCount()).isEqualTo(2);
+        assertThat(compliance.getCompliancePercentage()).isCloseTo(100.0 / 3, within(1e-9));
+        assertThat(compliance.getUntaggedResources())
+                .extracting(DashboardData.UntaggedResource::getResourceId, DashboardData.UntaggedResource::getMissingTags)
+                .containsExactly(
+                        tuple("i-2", List.of("project")),
+                        tuple("i-3", List.of("cost-center", "project")));
+        assertThat(index.compliance(1).getUntaggedResources()).hasSize(1);
+    }
+
+    @Test
+    void resyncWithUnchangedTagsKeepsTheVersionButServesTheNewDetails() {
+        index.sync(List.of(resource("i-1", "running", "tag:project", "atlas"), resource("i-2", "running")));
+
+        index.sync(List.of(resource("i-1", "stopped", "tag:project", "atlas"), resource("i-2", "stopped")));
+
+        assertThat(index.version()).isEqualTo(1);
+        assertThat(index.findByTag("project", "atlas")).extracting(ResourceDto::getState).containsExactly("stopped");
+    }
+
+    @Test
+    void changedTagIsReindexedAndOldValueDropped() {
+        index.sync(List.of(resource("i-1", "running", "tag:project", "atlas"),
+                resource("i-2", "running", "tag:project", "atlas")));
+
+        index.sync(List.of(resource("i-1", "running", "tag:project", "zeus", "tag:cost-center", "ops"),
+                resource("i-2", "running", "tag:project", "atlas")));
+
+        assertThat(index.version()).isEqualTo(2);
+        assertThat(index.facets()).isEqualTo(Map.of("project", Map.of("atlas", 1, "zeus", 1),
+                "cost-center", Map.of("ops", 1)));
+        assertThat(index.compliance(10).getUntaggedResources()).extracting(DashboardData.UntaggedResource::getResourceId)
+                .containsExactly("i-2");
+    }
+
+    @Test
+    void resourcesMissingFromTheInventoryAreUnindexed() {
+        index.sync(List.of(resource("i-1", "running", "tag:cost-center", "eng", "tag:project", "atlas"),
+                resource("i-2", "running", "tag:cost-center", "eng"),
+                resource("i-3", "running", "tag:owner", "sam")));
+
+        index.sync(List.of(resource("i-1", "running", "tag:cost-center", "eng", "tag:project", "atlas")));
+
+        assertThat(index.version()).isEqualTo(2);
+        assertThat(index.size()).isEqualTo(1);
+        // Values and keys left without resources disappear from the facets
+        assertThat(index.facets()).isEqualTo(Map.of("cost-center", Map.of("eng", 1), "project", Map.of("atlas", 1)));
+        assertThat(index.findByTag("owner", null)).isEmpty();
+        assertThat(index.compliance(10).getUntaggedResourcesCount()).isZero();
+        assertThat(index.compliance(10).getCompliancePercentage()).isEqualTo(100.0);
+    }
+
+    @Test
+    void removeAndUpsertBumpTheVersionOnlyOnRealChanges() {
+        index.sync(List.of(resource("i-1", "running", "tag:project", "atlas")));
+
+        index.remove("i-unknown");
+        assertThat(index.version()).isEqualTo(1);
+
+        index.remove("i-1");
+        assertThat(index.version()).isEqualTo(2);
+        assertThat(index.facets()).isEmpty();
+        assertThat(index.compliance(10).getTotalResourcesScanned()).isZero();
+
+        index.upsert(resource("i-1", "running", "tag:project", "atlas"));
+        index.upsert(resource("i-1", "stopped", "tag:project", "atlas"));
+        assertThat(index.version()).isEqualTo(3);
+        assertThat(index.findByTag("project", "atlas")).extracting(ResourceDto::getState).containsExactly("stopped");
+    }
+
+    @Test
+    void duplicateAndIdlessResourcesAreIgnored() {
+        ResourceDto idless = resource(null, "running", "tag:project", "ghost");
+
+        index.sync(List.of(resource("i-1", "running", "tag:project", "atlas"),
+                resource("i-1", "running", "tag:project", "other"), idless));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.facets()).isEqualTo(Map.of("project", Map.of("atlas", 1)));
+    }
+
+    private static ResourceDto resource(String id, String state, String... tags) {
+        Map<String, String> details = new HashMap<>();
+        details.put("instanceType", "t3.micro");
+        for (int i = 0; i < tags.length; i += 2) {
+            details.put(tags[i], tags[i + 1]);
+        }
+        return new ResourceDto(id, id, "EC2 Instance", "us-east-1", state, null, details);
+    }
+}
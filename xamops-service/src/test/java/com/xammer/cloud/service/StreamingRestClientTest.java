@@ -0,0 +1,174 @@
+package com.xammer.cloud.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.xammer.cloud.config.RestTemplateConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The forecast streaming profile against a local server returning a 50 MB gzip-encoded JSON body,
+ * with the old buffered RestTemplate path as the comparison.
+ */
+class StreamingRestClientTest {
+
+    private static final long BODY_BYTES = 50L * 1024 * 1024;
+    // Decoder buffers, Jackson's parser state and the meter registration; far below one copy of the body
+    private static final long STREAMING_ALLOCATION_LIMIT = 8L * 1024 * 1024;
+
+    private static byte[] gzippedBody;
+    private static int rows;
+    private static HttpServer server;
+    private static StreamingRestClient client;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        // Prometheus-style range result: one small record per sample until the body reaches 50 MB
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(compressed), StandardCharsets.UTF_8)) {
+            long written = 0;
+            String head = "{\"status\":\"success\",\"data\":{\"result\":[";
+            out.write(head);
+            written += head.length();
+            while (written < BODY_BYTES) {
+                String row = (rows > 0 ? "," : "") + "{\"timestamp\":" + (1700000000L + rows)
+                        + ",\"instance\":\"i-0123456789abcdef" + (rows % 10) + "\",\"value\":\"" + (rows % 1000) / 10.0 + "\"}";
+                out.write(row);
+                written += row.length();
+                rows++;
+            }
+            out.write("]},\"count\":" + rows + "}");
+        }
+        gzippedBody = compressed.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/large", StreamingRestClientTest::large);
+        server.createContext("/echo", StreamingRestClientTest::echo);
+        server.start();
+
+        RestTemplateConfig config = new RestTemplateConfig();
+        ReflectionTestUtils.setField(config, "forecastMaxTotal", 10);
+        ReflectionTestUtils.setField(config, "forecastMaxPerRoute", 10);
+        ReflectionTestUtils.setField(config, "forecastReadTimeout", 60000);
+        ReflectionTestUtils.setField(config, "forecastGzipRequests", true);
+        ReflectionTestUtils.setField(config, "streamingConnectTimeout", 5000);
+        client = config.forecastStreamingClient(new SimpleMeterRegistry());
+
+        // Warm up class loading and the parser so the measured calls only see per-request allocation
+        client.getJson("warmup", uri("/echo"), null);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void largeGzipBodyIsParsedWithoutBufferingIt() {
+        long before = allocatedBytes();
+        Envelope envelope = client.getJson("large", uri("/large"), null, new TypeReference<Envelope>() {});
+        long allocated = allocatedBytes() - before;
+
+        assertThat(envelope.status).isEqualTo("success");
+        assertThat(envelope.count).isEqualTo(rows);
+        assertThat(allocated).isLessThan(STREAMING_ALLOCATION_LIMIT);
+    }
+
+    @Test
+    void bufferedPathAllocatesAtLeastTheWholeBody() throws IOException {
+        // What PrometheusService and JenkinsService did before: buffer the entity, read it as a String, then parse
+        RestTemplate buffered = new RestTemplate(
+                new BufferingClientHttpRequestFactory(new HttpComponentsClientHttpRequestFactory()));
+        ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        long before = allocatedBytes();
+        String body = buffered.getForObject(uri("/large"), String.class);
+        Envelope envelope = objectMapper.readValue(body, Envelope.class);
+        long allocated = allocatedBytes() - before;
+
+        assertThat(envelope.count).isEqualTo(rows);
+        assertThat(allocated).isGreaterThan(BODY_BYTES);
+    }
+
+    @Test
+    void requestBodiesAreGzipCompressed() {
+        JsonNode echoed = client.postJson("echo", uri("/echo"), null, Map.of("series", List.of(1, 2, 3)));
+
+        assertThat(echoed.path("encoding").asText()).isEqualTo("gzip");
+        assertThat(echoed.path("body").path("series")).hasSize(3);
+    }
+
+    public static class Envelope {
+        public String status;
+        public int count;
+    }
+
+    private static void large(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, gzippedBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(gzippedBody);
+        }
+    }
+
+    // Answers with the request's Content-Encoding and its decoded JSON body
+    private static void echo(HttpExchange exchange) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        JsonNode body = objectMapper.nullNode();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] raw = in.readAllBytes();
+            if (raw.length > 0) {
+                InputStream decoded = new ByteArrayInputStream(raw);
+                body = objectMapper.readTree("gzip".equals(encoding) ? new GZIPInputStream(decoded) : decoded);
+            }
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("encoding", encoding);
+        response.put("body", body);
+        byte[] bytes = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,72 @@
+package com.xammer.cloud.service;
+
+import com.xammer.cloud.dto.ResourceDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Freshness, tenant scoping and eviction of the per-account tag indexes.
+ */
+class TagIndexServiceTest {
+
+    private final TagIndexService service = new TagIndexService(List.of("project"));
+
+    @Test
+    void syncedIndexIsServedUntilItsTtlRunsOut() {
+        ReflectionTestUtils.setField(service, "ttlMinutes", 10L);
+        ResourceTagIndex index = service.sync("acme", "111111111111", List.of(resource("i-1")));
+
+        assertThat(service.find("acme", "111111111111")).containsSame(index);
+
+        ReflectionTestUtils.setField(service, "ttlMinutes", 0L);
+        assertThat(service.find("acme", "111111111111")).isEmpty();
+    }
+
+    @Test
+    void staleIndexIsResyncedInPlaceWithoutAVersionBump() {
+        ReflectionTestUtils.setField(service, "ttlMinutes", 0L);
+        ResourceTagIndex index = service.sync("acme", "111111111111", List.of(resource("i-1")));
+
+        ResourceTagIndex resynced = service.sync("acme", "111111111111", List.of(resource("i-1")));
+
+        assertThat(resynced).isSameAs(index);
+        assertThat(resynced.version()).isEqualTo(1);
+    }
+
+    @Test
+    void indexesAreScopedByTenant() {
+        ReflectionTestUtils.setField(service, "ttlMinutes", 10L);
+        ResourceTagIndex acme = service.sync("acme", "111111111111", List.of(resource("i-1")));
+        ResourceTagIndex globex = service.sync("globex", "111111111111", List.of());
+
+        assertThat(globex).isNotSameAs(acme);
+        assertThat(service.find("acme", "111111111111").orElseThrow().size()).isEqualTo(1);
+        assertThat(service.find("globex", "111111111111").orElseThrow().size()).isZero();
+        // No tenant in context is the default tenant
+        assertThat(service.find(null, "111111111111")).isEmpty();
+        assertThat(service.sync(null, "111111111111", List.of())).isSameAs(service.find("default", "111111111111").orElseThrow());
+    }
+
+    @Test
+    void evictDropsOnlyThatTenantsAccount() {
+        ReflectionTestUtils.setField(service, "ttlMinutes", 10L);
+        service.sync("acme", "111111111111", List.of(resource("i-1")));
+        service.sync("acme", "222222222222", List.of(resource("i-2")));
+        service.sync("globex", "111111111111", List.of(resource("i-3")));
+
+        service.evict("acme", "111111111111");
+
+        assertThat(service.find("acme", "111111111111")).isEmpty();
+        assertThat(service.find("acme", "222222222222")).isPresent();
+        assertThat(service.find("globex", "111111111111")).isPresent();
+    }
+
+    private static ResourceDto resource(String id) {
+        return new ResourceDto(id, id, "EC2 Instance", "us-east-1", "running", null, Map.of("tag:project", "atlas"));
+    }
+}
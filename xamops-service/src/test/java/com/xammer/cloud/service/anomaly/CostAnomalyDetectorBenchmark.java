@@ -0,0 +1,124 @@
+package com.xammer.cloud.service.anomaly;
+
+import com.xammer.cloud.dto.DashboardData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * CostAnomalyDetector at 10,000 accounts with 400 services each, after a year of closed days:
+ * appending the next day of one account (all of its services scored), and the anomaly query of
+ * one account over the last 30 days. Costs follow a weekly pattern with a few percent of noise,
+ * and one account-day in eight carries spikes on a handful of services. Multiply appendDay's
+ * ops/s by {@code services} for service-days scored per second. Setup feeds the year on every
+ * core, which takes a few minutes at full size; smaller {@code accounts} values run quicker. Not
+ * run by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.anomaly.CostAnomalyDetectorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CostAnomalyDetectorBenchmark {
+
+    // A Monday
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final int VARIANTS = 8;
+    private static final double[] WEEKDAY_FACTOR = { 1.0, 1.05, 1.05, 1.0, 0.95, 0.6, 0.55 };
+
+    @Param({"10000"})
+    public int accounts;
+
+    @Param({"400"})
+    public int services;
+
+    @Param({"365"})
+    public int days;
+
+    private CostAnomalyDetector detector;
+    private String[] keys;
+    // [weekday][variant] -> cost by service; the last variant carries the spikes
+    private Map<String, Double>[][] costs;
+    private int appendAccount;
+    private int nextDay;
+    private int queryAccount;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        detector = new CostAnomalyDetector(8, 3, 3.5, 10, 90);
+        keys = new String[accounts];
+        for (int a = 0; a < accounts; a++) {
+            keys[a] = "tenant-" + a % 50 + ":AWS:" + String.format("%012d", 100_000_000_000L + a);
+        }
+        String[] names = new String[services];
+        double[] base = new double[services];
+        for (int s = 0; s < services; s++) {
+            names[s] = "Service " + s;
+            base[s] = 5 + (s % 50) * 4.0;
+        }
+        Random random = new Random(42);
+        costs = new Map[7][VARIANTS];
+        for (int weekday = 0; weekday < 7; weekday++) {
+            for (int variant = 0; variant < VARIANTS; variant++) {
+                Map<String, Double> day = new HashMap<>(services * 2);
+                for (int s = 0; s < services; s++) {
+                    double cost = base[s] * WEEKDAY_FACTOR[weekday] * (0.97 + 0.06 * random.nextDouble());
+                    if (variant == VARIANTS - 1 && s % 97 == 0) {
+                        cost *= 6;
+                    }
+                    day.put(names[s], cost);
+                }
+                costs[weekday][variant] = day;
+            }
+        }
+
+        long start = System.nanoTime();
+        IntStream.range(0, accounts).parallel().forEach(a -> {
+            for (int d = 0; d < days; d++) {
+                detector.appendDay(keys[a], START.plusDays(d), costs(a, d));
+            }
+        });
+        long flagged = IntStream.range(0, accounts)
+                .mapToLong(a -> detector.anomalies(keys[a], START).size()).sum();
+        System.out.printf("%d accounts x %d services x %d days fed in %d s; %d anomalies retained%n",
+                accounts, services, days, (System.nanoTime() - start) / 1_000_000_000L, flagged);
+        nextDay = days;
+    }
+
+    @Benchmark
+    public void appendDay() {
+        detector.appendDay(keys[appendAccount], START.plusDays(nextDay), costs(appendAccount, nextDay));
+        if (++appendAccount == accounts) {
+            appendAccount = 0;
+            nextDay++;
+        }
+    }
+
+    @Benchmark
+    public List<DashboardData.CostAnomaly> anomalies() {
+        String key = keys[queryAccount];
+        queryAccount = (queryAccount + 1) % accounts;
+        return detector.anomalies(key, START.plusDays(days - 30));
+    }
+
+    private Map<String, Double> costs(int account, int day) {
+        return costs[day % 7][(account * 31 + day) % VARIANTS];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CostAnomalyDetectorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,154 @@
+package com.xammer.cloud.service.anomaly;
+
+import com.xammer.cloud.dto.DashboardData;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Scoring of synthetic daily series: spikes, restatements, flat series and merged runs.
+ */
+class CostAnomalyDetectorTest {
+
+    private static final String KEY = "acme:AWS:111111111111";
+    private static final String EC2 = "Amazon EC2";
+    // A Monday, so day i is a weekend when i % 7 is 5 or 6
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final CostAnomalyDetector detector = new CostAnomalyDetector(4, 3, 3.5, 10, 90);
+
+    @Test
+    void spikeOverAWeeklyPatternIsFlaggedWithItsExcess() {
+        assertThat(START.getDayOfWeek()).isEqualTo(DayOfWeek.MONDAY);
+        feed(detector, 0, 42, CostAnomalyDetectorTest::weekly);
+
+        // Same-weekday history: 101.5 median for a Monday, so a 300 Monday is 198.5 over
+        feed(detector, 42, 43, i -> weekly(i) + 200);
+
+        assertThat(detector.anomalies(KEY, START))
+                .extracting(DashboardData.CostAnomaly::getService, DashboardData.CostAnomaly::getStartDate,
+                        DashboardData.CostAnomaly::getEndDate)
+                .containsExactly(tuple(EC2, day(42), day(42)));
+        assertThat(detector.anomalies(KEY, START).get(0).getUnexpectedSpend()).isCloseTo(198.5, within(1e-6));
+        assertThat(detector.lastDay(KEY)).contains(day(42));
+    }
+
+    @Test
+    void weekendDipsAndNoiseAreNotAnomalies() {
+        feed(detector, 0, 70, CostAnomalyDetectorTest::weekly);
+
+        assertThat(detector.anomalies(KEY, START)).isEmpty();
+    }
+
+    @Test
+    void restatedDayReplacesItsValue() {
+        feed(detector, 0, 42, CostAnomalyDetectorTest::weekly);
+        feed(detector, 42, 43, i -> weekly(i) + 200);
+        feed(detector, 43, 45, CostAnomalyDetectorTest::weekly);
+
+        // Cost Explorer settles day 42 at its usual level
+        detector.appendDay(KEY, day(42), Map.of(EC2, weekly(42)));
+        assertThat(detector.anomalies(KEY, START)).isEmpty();
+
+        // ... and later restates day 43 upwards
+        detector.appendDay(KEY, day(43), Map.of(EC2, weekly(43) + 150));
+        assertThat(detector.anomalies(KEY, START)).extracting(DashboardData.CostAnomaly::getStartDate)
+                .containsExactly(day(43));
+        assertThat(detector.lastDay(KEY)).contains(day(44));
+    }
+
+    @Test
+    void restatementRescoresTheLaterDaysWhoseSpreadItIsPartOf() {
+        // Two weeks of history: every weekday's deviation from its own median feeds the spread. With
+        // day 17 at 100, eight of the fourteen deviations are zero and the spread is the 10% floor.
+        CostAnomalyDetector twoWeeks = new CostAnomalyDetector(2, 2, 3.5, 10, 90);
+        feed(twoWeeks, 0, 20, i -> {
+            int beforeTarget = 20 - i;
+            if (beforeTarget >= 4 && beforeTarget <= 6) {
+                return 90;
+            }
+            if (beforeTarget >= 11 && beforeTarget <= 13) {
+                return 110;
+            }
+            return 100;
+        });
+        // Day 20: 40 over a baseline of 100, against a threshold of 3.5 x 10
+        twoWeeks.appendDay(KEY, day(20), Map.of(EC2, 140.0));
+        assertThat(twoWeeks.anomalies(KEY, START)).extracting(DashboardData.CostAnomaly::getStartDate)
+                .containsExactly(day(20));
+
+        // Restating day 17 down to 80 makes most deviations 10, so day 20 is within 3.5 x 14.8
+        twoWeeks.appendDay(KEY, day(17), Map.of(EC2, 80.0));
+        assertThat(twoWeeks.anomalies(KEY, START)).isEmpty();
+
+        twoWeeks.appendDay(KEY, day(17), Map.of(EC2, 100.0));
+        assertThat(twoWeeks.anomalies(KEY, START)).extracting(DashboardData.CostAnomaly::getStartDate)
+                .containsExactly(day(20));
+    }
+
+    @Test
+    void flatSeriesDoesNotFlagPennies() {
+        // No minimum impact, so only the relative spread floor keeps a flat series quiet
+        CostAnomalyDetector noMinimum = new CostAnomalyDetector(4, 3, 3.5, 0, 90);
+        feed(noMinimum, 0, 42, i -> 5.0);
+
+        feed(noMinimum, 42, 43, i -> 5.30);
+        assertThat(noMinimum.anomalies(KEY, START)).isEmpty();
+
+        // Past the floor (3.5 x 10% of the baseline) it is a real jump
+        feed(noMinimum, 43, 44, i -> 7.0);
+        assertThat(noMinimum.anomalies(KEY, START)).extracting(DashboardData.CostAnomaly::getStartDate)
+                .containsExactly(day(43));
+    }
+
+    @Test
+    void consecutiveFlaggedDaysAreMergedNewestFirst() {
+        feed(detector, 0, 42, CostAnomalyDetectorTest::weekly);
+        feed(detector, 42, 45, i -> weekly(i) + 100);
+        feed(detector, 45, 50, CostAnomalyDetectorTest::weekly);
+        feed(detector, 50, 51, i -> weekly(i) + 300);
+
+        assertThat(detector.anomalies(KEY, START))
+                .extracting(DashboardData.CostAnomaly::getStartDate, DashboardData.CostAnomaly::getEndDate)
+                .containsExactly(tuple(day(50), day(50)), tuple(day(42), day(44)));
+        assertThat(detector.anomalies(KEY, START).get(1).getUnexpectedSpend()).isCloseTo(300.0, within(1e-6));
+
+        // Runs ending before the cut-off are left out
+        assertThat(detector.anomalies(KEY, day(45))).extracting(DashboardData.CostAnomaly::getStartDate)
+                .containsExactly(day(50));
+        assertThat(detector.anomalies(KEY, "Amazon S3", START)).isEmpty();
+    }
+
+    @Test
+    void evictedAccountStartsOver() {
+        feed(detector, 0, 43, i -> i == 42 ? weekly(i) + 200 : weekly(i));
+
+        detector.evict(KEY);
+
+        assertThat(detector.contains(KEY)).isFalse();
+        assertThat(detector.lastDay(KEY)).isEmpty();
+        assertThat(detector.anomalies(KEY, START)).isEmpty();
+    }
+
+    // Weekdays around 100 and weekends around 40, with up to $2 of noise
+    private static double weekly(int i) {
+        return (i % 7 >= 5 ? 40 : 100) + i % 3;
+    }
+
+    private static void feed(CostAnomalyDetector detector, int from, int to, IntToDoubleFunction cost) {
+        for (int i = from; i < to; i++) {
+            detector.appendDay(KEY, day(i), Map.of(EC2, cost.applyAsDouble(i)));
+        }
+    }
+
+    private static LocalDate day(int i) {
+        return START.plusDays(i);
+    }
+}
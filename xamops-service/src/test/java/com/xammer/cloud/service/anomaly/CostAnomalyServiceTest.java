@@ -0,0 +1,109 @@
+package com.xammer.cloud.service.anomaly;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.DashboardData;
+import com.xammer.cloud.dto.DetailedCostDto;
+import com.xammer.cloud.repository.ServiceDailyCostRepository;
+import com.xammer.cloud.service.CostService;
+import com.xammer.cloud.service.gcp.GcpBillingAggregateService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tenant scoping and eviction of the in-memory series, with Cost Explorer and the stored rows stubbed.
+ */
+class CostAnomalyServiceTest {
+
+    private static final LocalDate YESTERDAY = LocalDate.now().minusDays(1);
+
+    private final CloudAccount account = new CloudAccount();
+    private CostService costService;
+    private CostAnomalyService service;
+
+    @BeforeEach
+    void setUp() {
+        account.setProvider("AWS");
+        account.setAwsAccountId("111111111111");
+
+        // Nothing stored yet, so the first use backfills from Cost Explorer
+        ServiceDailyCostRepository repository = mock(ServiceDailyCostRepository.class);
+        // A flat $100 of EC2 a day with a $400 spike yesterday
+        costService = mock(CostService.class);
+        when(costService.getDailyCostByServiceAndRegion(any(), any(), any())).thenAnswer(invocation -> {
+            SortedMap<LocalDate, List<DetailedCostDto>> daily = new TreeMap<>();
+            for (LocalDate day = invocation.getArgument(1); !day.isAfter(invocation.getArgument(2)); day = day.plusDays(1)) {
+                daily.put(day, List.of(new DetailedCostDto("Amazon EC2", "us-east-1", day.equals(YESTERDAY) ? 400.0 : 100.0)));
+            }
+            return daily;
+        });
+
+        service = new CostAnomalyService(repository, costService, mock(GcpBillingAggregateService.class),
+                mock(PlatformTransactionManager.class), 4, 3, 3.5, 10, 90);
+        ReflectionTestUtils.setField(service, "backfillDays", 60);
+        ReflectionTestUtils.setField(service, "restatementDays", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void firstQueryBackfillsAndLaterQueriesAreAnsweredFromMemory() {
+        TenantContext.setCurrentTenant("acme");
+
+        List<DashboardData.CostAnomaly> anomalies = service.getAnomalies(account, YESTERDAY.minusDays(30));
+        service.getAnomalies(account, YESTERDAY.minusDays(30));
+
+        assertThat(anomalies).extracting(DashboardData.CostAnomaly::getStartDate).containsExactly(YESTERDAY);
+        assertThat(anomalies.get(0).getUnexpectedSpend()).isEqualTo(300.0);
+        verify(costService).getDailyCostByServiceAndRegion(account, YESTERDAY.minusDays(59), YESTERDAY);
+        verifyNoMoreInteractions(costService);
+    }
+
+    @Test
+    void seriesAreKeptPerTenant() {
+        TenantContext.setCurrentTenant("acme");
+        service.getAnomalies(account, YESTERDAY);
+
+        TenantContext.setCurrentTenant("globex");
+        assertThat(service.getAnomalies(account, YESTERDAY)).hasSize(1);
+        // No tenant in context is the default tenant
+        TenantContext.clear();
+        service.getAnomalies(account, YESTERDAY);
+        TenantContext.setCurrentTenant("default");
+        service.getAnomalies(account, YESTERDAY);
+
+        verify(costService, times(3)).getDailyCostByServiceAndRegion(any(), any(), any());
+    }
+
+    @Test
+    void evictDropsOnlyTheCurrentTenantsSeries() {
+        TenantContext.setCurrentTenant("acme");
+        service.getAnomalies(account, YESTERDAY);
+        TenantContext.setCurrentTenant("globex");
+        service.getAnomalies(account, YESTERDAY);
+
+        TenantContext.setCurrentTenant("acme");
+        service.evict(account);
+        service.getAnomalies(account, YESTERDAY);
+        TenantContext.setCurrentTenant("globex");
+        service.getAnomalies(account, YESTERDAY);
+
+        // Backfills for acme, globex and acme again after the eviction
+        verify(costService, times(3)).getDailyCostByServiceAndRegion(any(), any(), any());
+    }
+}
@@ -0,0 +1,185 @@
+package com.xammer.cloud.service.azure;
+
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.domain.CloudAccount;
+import com.xammer.cloud.dto.azure.AzureDashboardData;
+import com.xammer.cloud.repository.CloudAccountRepository;
+import com.xammer.cloud.service.RedisCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Section deadlines of the Azure dashboard: a late section is reported and never merged.
+ */
+class AzureDashboardServiceTest {
+
+    private static final String SUBSCRIPTION = "0000-sub";
+
+    private final CountDownLatch inventoryGate = new CountDownLatch(1);
+    private final AtomicBoolean inventoryReturned = new AtomicBoolean();
+    private SimpleMeterRegistry meterRegistry;
+    private AzureWorkloadExecutor workloadExecutor;
+    private AzureInventoryService inventoryService;
+    private RedisCacheService redisCache;
+    private MockEnvironment environment;
+    private AzureDashboardService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryService = mock(AzureInventoryService.class);
+        redisCache = mock(RedisCacheService.class);
+        environment = new MockEnvironment();
+        service = service(8, 100);
+    }
+
+    private AzureDashboardService service(int threads, int queueCapacity) {
+        ThreadGovernor threadGovernor = new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50);
+        workloadExecutor = new AzureWorkloadExecutor(meterRegistry, threadGovernor, threads, queueCapacity, 8);
+
+        CloudAccountRepository cloudAccountRepository = mock(CloudAccountRepository.class);
+        CloudAccount account = new CloudAccount();
+        account.setAzureSubscriptionId(SUBSCRIPTION);
+        when(cloudAccountRepository.findByAzureSubscriptionId(SUBSCRIPTION)).thenReturn(Optional.of(account));
+
+        // Every other section fails fast against the unconfigured client, which is reported as an error
+        AzureDashboardService created = new AzureDashboardService(mock(AzureClientProvider.class), cloudAccountRepository,
+                redisCache, mock(AzureBillingDataIngestionService.class), inventoryService,
+                workloadExecutor, environment, meterRegistry);
+        ReflectionTestUtils.setField(created, "sectionTimeoutSeconds", 20L);
+        return created;
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryGate.countDown();
+        workloadExecutor.shutdown();
+    }
+
+    @Test
+    void lateSectionIsReportedAndLeftEmpty() {
+        environment.setProperty("azure.dashboard.inventory.timeout-seconds", "1");
+        AzureDashboardData.ResourceInventory late = new AzureDashboardData.ResourceInventory();
+        late.setVirtualMachines(42);
+        when(inventoryService.getResourceInventory(SUBSCRIPTION)).thenAnswer(invocation -> {
+            inventoryGate.await(10, TimeUnit.SECONDS);
+            inventoryReturned.set(true);
+            return late;
+        });
+
+        long started = System.nanoTime();
+        AzureDashboardData dashboard = service.getDashboardData(SUBSCRIPTION, false);
+
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started)).isLessThan(5);
+        assertThat(dashboard.getTimedOutSections()).containsExactly("inventory");
+        assertThat(dashboard.getResourceInventory()).isNotSameAs(late);
+        assertThat(meterRegistry.get("xamops.azure.dashboard.section.timeouts").tag("section", "inventory")
+                .counter().count()).isEqualTo(1.0);
+
+        // Finishing after the deadline does not reach the returned dashboard
+        inventoryGate.countDown();
+        awaitTrue(inventoryReturned);
+        assertThat(dashboard.getResourceInventory()).isNotSameAs(late);
+        assertThat(dashboard.getResourceInventory().getVirtualMachines()).isZero();
+    }
+
+    @Test
+    void sectionWithinItsDeadlineIsMerged() {
+        AzureDashboardData.ResourceInventory inventory = new AzureDashboardData.ResourceInventory();
+        inventory.setVirtualMachines(7);
+        when(inventoryService.getResourceInventory(SUBSCRIPTION)).thenReturn(inventory);
+
+        AzureDashboardData dashboard = service.getDashboardData(SUBSCRIPTION, true);
+
+        assertThat(dashboard.getTimedOutSections()).isEmpty();
+        assertThat(dashboard.getResourceInventory()).isSameAs(inventory);
+        verify(inventoryService).invalidate(SUBSCRIPTION);
+    }
+
+    @Test
+    void sectionsRunOnTheAzureWorkersNeverOnTheCommonPool() {
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        when(inventoryService.getResourceInventory(SUBSCRIPTION)).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return new AzureDashboardData.ResourceInventory();
+        });
+        when(redisCache.get(anyString(), any(Class.class))).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return Optional.empty();
+        });
+
+        for (int i = 0; i < 20; i++) {
+            service.getDashboardData(SUBSCRIPTION, false);
+        }
+
+        // Inventory and cost sections, once per request
+        assertThat(threads).hasSize(40)
+                .allSatisfy(name -> assertThat(name).startsWith("azure-worker-"))
+                .noneSatisfy(name -> assertThat(name).contains("ForkJoinPool.commonPool"));
+    }
+
+    @Test
+    void fullPoolGivesSectionsUpAtOnceInsteadOfRunningThemOnTheRequestThread() {
+        service = service(1, 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        // One task holds the only worker and another fills the queue
+        CompletableFuture<Void> busy = workloadExecutor.runAsync("other-sub", () -> await(gate));
+        CompletableFuture<Void> queued = workloadExecutor.runAsync("other-sub", () -> { });
+        Thread requestThread = Thread.currentThread();
+        AtomicBoolean ranOnRequestThread = new AtomicBoolean();
+        when(inventoryService.getResourceInventory(SUBSCRIPTION)).thenAnswer(invocation -> {
+            ranOnRequestThread.compareAndSet(false, Thread.currentThread() == requestThread);
+            return new AzureDashboardData.ResourceInventory();
+        });
+
+        long started = System.nanoTime();
+        AzureDashboardData dashboard = service.getDashboardData(SUBSCRIPTION, false);
+
+        // Sections have a 20s deadline; none of it is spent on this thread
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started)).isLessThan(2);
+        assertThat(ranOnRequestThread).isFalse();
+        assertThat(dashboard.getTimedOutSections())
+                .containsExactlyInAnyOrder("inventory", "cost", "region", "optimization", "iam");
+        assertThat(meterRegistry.get("xamops.azure.executor.deadline.rejections").counter().count()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("xamops.azure.executor.caller.runs").counter().count()).isZero();
+
+        gate.countDown();
+        CompletableFuture.allOf(busy, queued).orTimeout(5, TimeUnit.SECONDS).join();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitTrue(AtomicBoolean condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.get()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.xammer.cloud.service.azure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.xammer.cloud.dto.ResourceDto;
+import com.xammer.cloud.dto.azure.AzureDashboardData;
+import com.xammer.cloud.service.RedisCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dashboard counters and cloud-list projection over recorded Resource Graph pages.
+ */
+class AzureInventoryServiceTest {
+
+    private static final String SUBSCRIPTION = "0000-sub";
+
+    private RedisCacheService redisCache;
+    private SimpleMeterRegistry meterRegistry;
+    private RecordedResourceGraph resourceGraph;
+    private AzureInventoryService service;
+
+    // Pages keyed by the skip token that asks for them; null is the first page
+    static final class RecordedResourceGraph implements AzureResourceGraphSource {
+        final Map<String, Page> pages = new HashMap<>();
+        final List<String> queries = new ArrayList<>();
+
+        @Override
+        public Page query(String subscriptionId, String query, String skipToken) {
+            assertThat(subscriptionId).isEqualTo(SUBSCRIPTION);
+            queries.add(query);
+            return pages.get(skipToken);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisCache = mock(RedisCacheService.class);
+        when(redisCache.get(anyString(), any(Class.class))).thenReturn(Optional.empty());
+        when(redisCache.get(anyString(), any(TypeReference.class))).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        resourceGraph = new RecordedResourceGraph();
+        service = new AzureInventoryService(resourceGraph, redisCache, meterRegistry);
+        ReflectionTestUtils.setField(service, "cacheMinutes", 15);
+    }
+
+    @Test
+    void countersComeFromOneSummarizeQueryWithFunctionAppsSplitOut() {
+        resourceGraph.pages.put(null, new AzureResourceGraphSource.Page(List.of(
+                count("microsoft.compute/virtualmachines", 12),
+                count("microsoft.web/sites", 4),
+                count("microsoft.web/sites#functionapp", 3),
+                count("microsoft.sql/servers/databases", "7")), null));
+
+        AzureDashboardData.ResourceInventory inventory = service.getResourceInventory(SUBSCRIPTION);
+
+        assertThat(resourceGraph.queries).hasSize(1);
+        assertThat(resourceGraph.queries.get(0)).contains("summarize count() by");
+        assertThat(inventory.getVirtualMachines()).isEqualTo(12);
+        assertThat(inventory.getAppServices()).isEqualTo(4);
+        assertThat(inventory.getFunctions()).isEqualTo(3);
+        assertThat(inventory.getSqlDatabases()).isEqualTo(7);
+        assertThat(inventory.getDisks()).isZero();
+        verify(redisCache).put(AzureInventoryService.AZURE_INVENTORY_COUNTS_CACHE_PREFIX + SUBSCRIPTION, inventory, 15);
+        assertThat(meterRegistry.get("xamops.azure.resourcegraph.calls").tag("query", "counts").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void countsSplitAcrossPagesAreSummed() {
+        resourceGraph.pages.put(null, new AzureResourceGraphSource.Page(
+                List.of(count("microsoft.compute/disks", 100)), "page-2"));
+        resourceGraph.pages.put("page-2", new AzureResourceGraphSource.Page(
+                List.of(count("microsoft.compute/disks", 20)), null));
+
+        assertThat(service.getResourceInventory(SUBSCRIPTION).getDisks()).isEqualTo(120);
+        assertThat(resourceGraph.queries).hasSize(2);
+    }
+
+    @Test
+    void cloudListPagesThroughEveryResourceOnce() {
+        resourceGraph.pages.put(null, new AzureResourceGraphSource.Page(List.of(
+                resource("/subscriptions/0000-sub/resourceGroups/rg/providers/Microsoft.Compute/virtualMachines/vm-1",
+                        "vm-1", "", "eastus", "microsoft.compute/virtualmachines", "PowerState/running"),
+                resource("/subscriptions/0000-sub/resourceGroups/rg/providers/Microsoft.Sql/servers/sql-1/databases/orders",
+                        "orders", "sql-1", "westeurope", "microsoft.sql/servers/databases", "Online")), "next"));
+        resourceGraph.pages.put("next", new AzureResourceGraphSource.Page(List.of(
+                resource("/subscriptions/0000-sub/resourceGroups/rg/providers/Microsoft.Network/dnszones/example.com",
+                        "example.com", "", "global", "microsoft.network/dnszones", null)), null));
+
+        List<ResourceDto> resources = service.getResources(SUBSCRIPTION);
+
+        assertThat(resources).extracting(ResourceDto::getType)
+                .containsExactly("Virtual Machines", "SQL Databases", "DNS Zones");
+        assertThat(resources.get(0).getState()).isEqualTo("PowerState/running");
+        assertThat(resources.get(1).getName()).isEqualTo("sql-1/orders");
+        assertThat(resources.get(1).getRegion()).isEqualTo("westeurope");
+        assertThat(resources.get(2).getState()).isEqualTo("Unknown");
+        assertThat(resourceGraph.queries).hasSize(2)
+                .allSatisfy(query -> assertThat(query).contains("| order by id asc"));
+        assertThat(meterRegistry.get("xamops.azure.resourcegraph.calls").tag("query", "resources").counter().count())
+                .isEqualTo(2.0);
+        verify(redisCache).put(eq(AzureInventoryService.AZURE_INVENTORY_RESOURCES_CACHE_PREFIX + SUBSCRIPTION),
+                eq(resources), eq(15));
+    }
+
+    @Test
+    void cachedResultsSkipResourceGraph() {
+        AzureDashboardData.ResourceInventory cachedInventory = new AzureDashboardData.ResourceInventory();
+        cachedInventory.setVirtualMachines(5);
+        List<ResourceDto> cachedResources = List.of(new ResourceDto());
+        when(redisCache.get(AzureInventoryService.AZURE_INVENTORY_COUNTS_CACHE_PREFIX + SUBSCRIPTION,
+                AzureDashboardData.ResourceInventory.class)).thenReturn(Optional.of(cachedInventory));
+        when(redisCache.get(eq(AzureInventoryService.AZURE_INVENTORY_RESOURCES_CACHE_PREFIX + SUBSCRIPTION),
+                any(TypeReference.class))).thenReturn(Optional.of(cachedResources));
+
+        assertThat(service.getResourceInventory(SUBSCRIPTION)).isSameAs(cachedInventory);
+        assertThat(service.getResources(SUBSCRIPTION)).isSameAs(cachedResources);
+        assertThat(resourceGraph.queries).isEmpty();
+    }
+
+    @Test
+    void invalidateDropsBothCachedResults() {
+        service.invalidate(SUBSCRIPTION);
+
+        verify(redisCache).evict(AzureInventoryService.AZURE_INVENTORY_COUNTS_CACHE_PREFIX + SUBSCRIPTION);
+        verify(redisCache).evict(AzureInventoryService.AZURE_INVENTORY_RESOURCES_CACHE_PREFIX + SUBSCRIPTION);
+    }
+
+    private static Map<String, Object> count(String resourceType, Object count) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("resourceType", resourceType);
+        row.put("count_", count);
+        return row;
+    }
+
+    private static Map<String, Object> resource(String id, String name, String serverName, String location,
+                                                String resourceType, String state) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        row.put("serverName", serverName);
+        row.put("location", location);
+        row.put("resourceType", resourceType);
+        row.put("state", state);
+        return row;
+    }
+}
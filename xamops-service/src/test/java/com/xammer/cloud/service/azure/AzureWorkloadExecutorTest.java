@@ -0,0 +1,204 @@
+package com.xammer.cloud.service.azure;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Per-subscription caps, tenant hand-off and backpressure of the Azure worker pool.
+ */
+class AzureWorkloadExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadGovernor threadGovernor;
+    private AzureWorkloadExecutor executor;
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        threadGovernor = new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50);
+        TenantContext.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void parkedTasksWaitForTheirSubscriptionWithoutHoldingAWorker() {
+        executor = executor(3, 100, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> busy = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            busy.add(executor.runAsync("sub-busy", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                await(gate);
+                running.decrementAndGet();
+            }));
+        }
+        awaitTrue(() -> running.get() == 2);
+        assertThat(waitingGauge()).isEqualTo(3.0);
+
+        // The third worker is still free for another subscription
+        assertThat(executor.supplyAsync("sub-quiet", () -> "done").orTimeout(5, TimeUnit.SECONDS).join())
+                .isEqualTo("done");
+        assertThat(busy).noneMatch(CompletableFuture::isDone);
+
+        gate.countDown();
+        CompletableFuture.allOf(busy.toArray(new CompletableFuture[0])).orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(maxRunning).hasValue(2);
+        assertThat(waitingGauge()).isZero();
+    }
+
+    @Test
+    void tenantIsCarriedToTheWorkerAndNotLeftBehind() {
+        executor = executor(1, 100, 4);
+
+        TenantContext.setCurrentTenant("tenant-a");
+        assertThat(executor.supplyAsync("sub-1", TenantContext::getCurrentTenant).join()).isEqualTo("tenant-a");
+
+        // Same worker thread, which inherited tenant-a when it was created
+        TenantContext.setCurrentTenant("tenant-b");
+        assertThat(executor.supplyAsync("sub-1", TenantContext::getCurrentTenant).join()).isEqualTo("tenant-b");
+
+        TenantContext.clear();
+        assertThat(executor.supplyAsync("sub-1", TenantContext::getCurrentTenant).join()).isNull();
+        assertThat(TenantContext.getCurrentTenant()).isNull();
+    }
+
+    @Test
+    void failureCompletesTheFutureAndFreesTheSlot() {
+        executor = executor(2, 100, 1);
+
+        CompletableFuture<String> failed = executor.supplyAsync("sub-1", () -> {
+            throw new IllegalStateException("AuthorizationFailed");
+        });
+
+        assertThatThrownBy(failed::join)
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("AuthorizationFailed");
+        assertThat(executor.supplyAsync("sub-1", () -> "next").orTimeout(5, TimeUnit.SECONDS).join())
+                .isEqualTo("next");
+    }
+
+    @Test
+    void fullQueueRunsTheTaskOnTheSubmitter() {
+        executor = executor(1, 1, 4);
+        Thread submitter = Thread.currentThread();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        CompletableFuture<Void> blocking = executor.runAsync("sub-1", () -> await(gate));
+        CompletableFuture<Void> queued = executor.runAsync("sub-2", () -> { });
+        CompletableFuture<Void> overflow = executor.runAsync("sub-3", () -> ranOn.set(Thread.currentThread()));
+
+        assertThat(overflow).isDone();
+        assertThat(ranOn).hasValue(submitter);
+        assertThat(meterRegistry.get("xamops.azure.executor.caller.runs").counter().count()).isEqualTo(1.0);
+
+        gate.countDown();
+        CompletableFuture.allOf(blocking, queued).orTimeout(5, TimeUnit.SECONDS).join();
+    }
+
+    @Test
+    void fullQueueGivesADeadlineBoundTaskUpInsteadOfRunningItOnTheSubmitter() {
+        executor = executor(1, 1, 4);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        CompletableFuture<Void> blocking = executor.runAsync("sub-1", () -> await(gate));
+        CompletableFuture<Void> queued = executor.runAsync("sub-2", () -> { });
+        CompletableFuture<String> overflow = executor.supplyAsync("sub-3", () -> {
+            ranOn.set(Thread.currentThread());
+            return "loaded";
+        }, "timed-out", 30, TimeUnit.SECONDS);
+
+        assertThat(overflow).isCompletedWithValue("timed-out");
+        assertThat(ranOn.get()).isNull();
+        assertThat(meterRegistry.get("xamops.azure.executor.deadline.rejections").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("xamops.azure.executor.caller.runs").counter().count()).isZero();
+
+        // The given-up task released its subscription slot
+        gate.countDown();
+        CompletableFuture.allOf(blocking, queued).orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(executor.supplyAsync("sub-3", () -> "next").orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("next");
+    }
+
+    @Test
+    void taskWhoseDeadlinePassedWhileQueuedIsSkipped() {
+        executor = executor(1, 100, 4);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<Void> blocking = executor.runAsync("sub-1", () -> await(gate));
+        CompletableFuture<String> late = executor.supplyAsync("sub-2", () -> {
+            runs.incrementAndGet();
+            return "loaded";
+        }, "timed-out", 50, TimeUnit.MILLISECONDS);
+
+        assertThat(late.orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("timed-out");
+        gate.countDown();
+        blocking.orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(executor.supplyAsync("sub-2", () -> "next").orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("next");
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void poolIsGrantedByTheGovernorAndReleasedOnShutdown() {
+        executor = executor(8, 100, 4);
+
+        assertThat(threadGovernor.snapshot()).containsKey("azure-worker");
+        assertThat(threadGovernor.getGrantedTotal()).isEqualTo(8);
+
+        executor.shutdown();
+        awaitTrue(() -> threadGovernor.getGrantedTotal() == 0);
+    }
+
+    private AzureWorkloadExecutor executor(int threads, int queueCapacity, int perSubscriptionLimit) {
+        return new AzureWorkloadExecutor(meterRegistry, threadGovernor, threads, queueCapacity, perSubscriptionLimit);
+    }
+
+    private double waitingGauge() {
+        return meterRegistry.get("xamops.azure.executor.subscription.waiting").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.xammer.cloud.service.forecast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.dto.ForecastDto;
+import com.xammer.cloud.service.StreamingRestClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batching, fan-out of results and failures, and timeouts against a stub forecast-service over HTTP.
+ */
+class ForecastBatchClientTest {
+
+    private static final int READ_TIMEOUT_MS = 300;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Series count of every batch the stub received
+    private final Queue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+    private final Set<String> failingSeries = Collections.synchronizedSet(new HashSet<>());
+    private volatile int status = 200;
+    private volatile long delayMs;
+    private ExecutorService serverThreads;
+    private HttpServer server;
+    private ForecastBatchClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/forecast/batch", this::handle);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(1000);
+        requestFactory.setReadTimeout(READ_TIMEOUT_MS);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StreamingRestClient restClient = new StreamingRestClient("forecast", new RestTemplate(requestFactory),
+                objectMapper, meterRegistry, false);
+        client = new ForecastBatchClient(restClient,
+                new ThreadGovernor(new MockEnvironment(), meterRegistry, 50), meterRegistry, 360, 5000, 4);
+        ReflectionTestUtils.setField(client, "forecastServiceUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "maxBatchSeries", 20);
+        ReflectionTestUtils.setField(client, "lingerMs", 200L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void batchesAreSplitAtMaxSeriesAndEachCallerGetsItsOwnForecast() {
+        List<CompletableFuture<List<ForecastDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            futures.add(client.forecast(series(i), 7, true, false));
+        }
+
+        for (int i = 0; i < 45; i++) {
+            List<ForecastDto> forecast = futures.get(i).orTimeout(5, TimeUnit.SECONDS).join();
+            assertThat(forecast).hasSize(1);
+            assertThat(forecast.get(0).getYhat()).isEqualTo(i);
+        }
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 20));
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(45);
+        assertThat(batchSizes).hasSizeGreaterThanOrEqualTo(3).contains(20);
+    }
+
+    @Test
+    void repeatedSeriesAreCoalescedAndThenServedFromTheCache() {
+        CompletableFuture<List<ForecastDto>> first = client.forecast(series(1), 7, true, false);
+        CompletableFuture<List<ForecastDto>> second = client.forecast(series(1), 7, true, false);
+        CompletableFuture<List<ForecastDto>> otherHorizon = client.forecast(series(1), 14, true, false);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.orTimeout(5, TimeUnit.SECONDS).join()).hasSize(1);
+        otherHorizon.orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(2);
+
+        assertThat(client.forecast(series(1), 7, true, false)).isCompletedWithValue(first.join());
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(2);
+    }
+
+    @Test
+    void failedCallCompletesEveryWaiterEmptyAndIsNotCached() {
+        status = 500;
+        List<CompletableFuture<List<ForecastDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            futures.add(client.forecast(series(i), 7, true, false));
+        }
+
+        assertThat(futures).allSatisfy(future -> assertThat(future.orTimeout(5, TimeUnit.SECONDS).join()).isEmpty());
+        int calls = batchSizes.size();
+
+        status = 200;
+        assertThat(client.forecast(series(3), 7, true, false).orTimeout(5, TimeUnit.SECONDS).join()).hasSize(1);
+        assertThat(batchSizes).hasSize(calls + 1);
+    }
+
+    @Test
+    void seriesTheServiceRejectsComeBackEmptyWhileTheRestSucceed() {
+        failingSeries.add("2");
+        List<CompletableFuture<List<ForecastDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(client.forecast(series(i), 7, true, false));
+        }
+
+        List<Integer> answered = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            if (!futures.get(i).orTimeout(5, TimeUnit.SECONDS).join().isEmpty()) {
+                answered.add(i);
+            }
+        }
+        assertThat(answered).containsExactly(0, 1, 3, 4);
+    }
+
+    @Test
+    void timedOutCallReleasesItsWaitersAndTheSeriesCanBeRetried() {
+        delayMs = 3000;
+        List<CompletableFuture<List<ForecastDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(client.forecast(series(i), 7, true, false));
+        }
+
+        long start = System.currentTimeMillis();
+        assertThat(futures).allSatisfy(future -> assertThat(future.orTimeout(2, TimeUnit.SECONDS).join()).isEmpty());
+        assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+
+        // Nothing is left in flight, so the same series goes out again rather than joining the dead call
+        delayMs = 0;
+        assertThat(client.forecast(series(0), 7, true, false).orTimeout(5, TimeUnit.SECONDS).join()).hasSize(1);
+    }
+
+    @Test
+    void thousandSeriesGoOutInBatchesOfUpToMaxSeries() {
+        // A model fit on the service side takes a while per call
+        delayMs = 20;
+        long start = System.nanoTime();
+        long[] latencyMs = new long[1000];
+        List<CompletableFuture<List<ForecastDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            long submitted = System.nanoTime();
+            int n = i;
+            futures.add(client.forecast(series(i), 7, true, false)
+                    .whenComplete((forecast, error) -> latencyMs[n] = (System.nanoTime() - submitted) / 1_000_000));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            List<ForecastDto> forecast = futures.get(i).orTimeout(10, TimeUnit.SECONDS).join();
+            assertThat(forecast).hasSize(1);
+            assertThat(forecast.get(0).getYhat()).isEqualTo(i);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1000);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 20));
+        // Mostly full batches; flushes racing the producer can cut a few short
+        assertThat(batchSizes).contains(20);
+        assertThat(batchSizes.size()).isBetween(50, 200);
+        assertThat(elapsedMs).isLessThan(5000);
+        long[] sorted = latencyMs.clone();
+        Arrays.sort(sorted);
+        System.out.printf("1000 series: %d calls in %d ms; per-series latency p50 %d ms, p99 %d ms, max %d ms%n",
+                batchSizes.size(), elapsedMs, sorted[499], sorted[989], sorted[999]);
+    }
+
+    // Forecast-service stub: one point per series whose yhat is the series' last value
+    @SuppressWarnings("unchecked")
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+        List<Map<String, Object>> series = (List<Map<String, Object>>) request.get("series");
+        batchSizes.add(series.size());
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<Map<String, Object>> results = series.stream().map(entry -> {
+            List<Number> values = (List<Number>) entry.get("y");
+            double last = values.get(values.size() - 1).doubleValue();
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", entry.get("id"));
+            if (failingSeries.contains(String.valueOf((int) last))) {
+                result.put("status", "error");
+                result.put("message", "not enough data");
+            } else {
+                result.put("status", "success");
+                result.put("forecast", List.of(Map.of("ds", "2024-09-01", "yhat", last,
+                        "yhat_lower", last - 1, "yhat_upper", last + 1)));
+            }
+            return result;
+        }).collect(Collectors.toList());
+
+        byte[] body = objectMapper.writeValueAsBytes(Map.of("status", "success", "results", results));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (status != 200) {
+            body = "{\"detail\":\"Internal Server Error\"}".getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            exchange.close(); // The client gave up waiting
+        }
+    }
+
+    // Thirty days of costs ending on the series number, so every series has its own fingerprint
+    private static List<Map<String, Object>> series(int n) {
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (int day = 1; day <= 30; day++) {
+            points.add(Map.of("ds", String.format("2024-08-%02d", day), "y", day == 30 ? n : 100.0 + day));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,54 @@
+package com.xammer.cloud.service.forecast;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full local forecast (backtest of every model, then the refit with intervals) per call, over
+ * the history lengths the AWS and GCP paths send. Not run by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.forecast.LocalForecasterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalForecasterBenchmark {
+
+    // 30-day forecasts look back 90 days, GCP always sends 90 and AWS caps at 180
+    @Param({ "28", "90", "180" })
+    public int days;
+
+    @Param({ "30" })
+    public int horizon;
+
+    private final LocalForecaster forecaster = new LocalForecaster(7);
+    private double[] y;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Weekly pattern on a slow trend with 5% noise, seeded so every run fits the same series
+        Random random = new Random(42);
+        y = new double[days];
+        for (int i = 0; i < days; i++) {
+            double base = (i % 7 >= 5 ? 40 : 100) + 0.2 * i;
+            y[i] = base * (1 + 0.05 * random.nextGaussian());
+        }
+    }
+
+    @Benchmark
+    public LocalForecaster.Forecast forecast() {
+        return forecaster.forecast(y, horizon);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocalForecasterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
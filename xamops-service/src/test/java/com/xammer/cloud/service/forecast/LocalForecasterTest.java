@@ -0,0 +1,101 @@
+package com.xammer.cloud.service.forecast;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntToDoubleFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Backtest error and interval shape on synthetic daily series: weekly, trending and stepped.
+ */
+class LocalForecasterTest {
+
+    private static final int DAYS = 84;
+    private static final int HORIZON = 28;
+
+    private final LocalForecaster forecaster = new LocalForecaster(7);
+
+    @Test
+    void weeklySeriesKeepsItsWeekendDips() {
+        LocalForecaster.Forecast forecast = forecaster.forecast(series(DAYS, LocalForecasterTest::weekly), HORIZON);
+
+        assertThat(forecast.getBacktestError()).isLessThan(0.05);
+        // Day 84 is a weekday and days 89 and 90 the weekend after it
+        assertThat(forecast.getMean()[0]).isCloseTo(weekly(DAYS), within(5.0));
+        assertThat(forecast.getMean()[5]).isCloseTo(weekly(DAYS + 5), within(5.0));
+        assertThat(forecast.getMean()[6]).isLessThan(forecast.getMean()[0] / 2);
+        assertBounded(forecast);
+        // Uncertainty grows with the horizon
+        assertThat(forecast.getUpper()[HORIZON - 1] - forecast.getLower()[HORIZON - 1])
+                .isGreaterThan(forecast.getUpper()[0] - forecast.getLower()[0]);
+    }
+
+    @Test
+    void trendIsCarriedOnTopOfTheWeeklyPattern() {
+        IntToDoubleFunction trending = i -> weekly(i) + 1.5 * i;
+        LocalForecaster.Forecast forecast = forecaster.forecast(series(DAYS, trending), HORIZON);
+
+        assertThat(forecast.getBacktestError()).isLessThan(0.05);
+        assertThat(forecast.getMean()[0]).isCloseTo(trending.applyAsDouble(DAYS), within(5.0));
+        // A week apart is the same weekday, so the difference is the trend alone
+        assertThat(forecast.getMean()[7]).isGreaterThan(forecast.getMean()[0]);
+        assertBounded(forecast);
+    }
+
+    @Test
+    void levelStepIsFollowedOnceItIsInTheHistory() {
+        // Costs go up by half on day 56, twelve days before the backtest holdout starts
+        IntToDoubleFunction stepped = i -> weekly(i) * (i >= 56 ? 1.5 : 1);
+        LocalForecaster.Forecast forecast = forecaster.forecast(series(DAYS, stepped), HORIZON);
+
+        assertThat(forecast.getBacktestError()).isLessThan(0.05);
+        assertThat(forecast.getMean()[0]).isCloseTo(stepped.applyAsDouble(DAYS), within(7.5));
+        assertBounded(forecast);
+    }
+
+    @Test
+    void decliningSeriesIsClampedAtZero() {
+        LocalForecaster.Forecast forecast = forecaster.forecast(series(DAYS, i -> weekly(i) + 200 - 2.5 * i), HORIZON);
+
+        assertBounded(forecast);
+        assertThat(forecast.getMean()[HORIZON - 1]).isZero();
+        assertThat(forecast.getLower()[HORIZON - 1]).isZero();
+    }
+
+    @Test
+    void seriesTooShortToHoldOutHasNoBacktestError() {
+        LocalForecaster.Forecast forecast = forecaster.forecast(series(14, LocalForecasterTest::weekly), 7);
+
+        assertThat(forecast.getModel()).isEqualTo(LocalForecaster.Model.SEASONAL_NAIVE);
+        assertThat(forecast.getBacktestError()).isNaN();
+        assertThat(forecast.getMean()).containsExactly(101, 102, 100, 101, 102, 40, 41);
+        assertBounded(forecast);
+
+        assertThatThrownBy(() -> forecaster.forecast(series(13, LocalForecasterTest::weekly), 7))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertBounded(LocalForecaster.Forecast forecast) {
+        for (int k = 0; k < forecast.getMean().length; k++) {
+            assertThat(forecast.getLower()[k]).isGreaterThanOrEqualTo(0);
+            assertThat(forecast.getLower()[k]).isLessThanOrEqualTo(forecast.getMean()[k]);
+            assertThat(forecast.getMean()[k]).isLessThanOrEqualTo(forecast.getUpper()[k]);
+        }
+    }
+
+    // Weekdays around 100 and weekends around 40, with up to $2 of noise
+    private static double weekly(int i) {
+        return (i % 7 >= 5 ? 40 : 100) + i % 3;
+    }
+
+    private static double[] series(int days, IntToDoubleFunction cost) {
+        double[] y = new double[days];
+        for (int i = 0; i < days; i++) {
+            y[i] = cost.applyAsDouble(i);
+        }
+        return y;
+    }
+}
@@ -0,0 +1,172 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.asset.v1.ResourceSearchResult;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.xammer.cloud.dto.gcp.GcpResourceDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Inventory projection over a fixed set of Asset Inventory search results.
+ */
+class GcpAssetInventoryServiceTest {
+
+    private static final String PROJECT = "proj-1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private GcpWorkloadScheduler scheduler;
+    private final List<Collection<String>> searchedTypes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = mock(GcpWorkloadScheduler.class);
+        when(scheduler.executor(GcpWorkloadScheduler.ApiFamily.ASSET)).thenReturn(Runnable::run);
+    }
+
+    @Test
+    void searchResultsAreProjectedOntoListerTypeNames() {
+        GcpAssetInventoryService service = service(pagesOf(2,
+                asset("//compute.googleapis.com/projects/proj-1/zones/us-central1-a/instances/vm-1",
+                        "compute.googleapis.com/Instance", "vm-1", "us-central1-a", "RUNNING", "4815162342"),
+                asset("//storage.googleapis.com/logs-bucket", "storage.googleapis.com/Bucket", "", "", "", "")
+                        .toBuilder().putLabels("env", "prod").build(),
+                asset("//bigquery.googleapis.com/projects/proj-1/datasets/billing",
+                        "bigquery.googleapis.com/Dataset", "billing", "US", "", "")));
+
+        List<GcpResourceDto> resources = service.fetchResources(PROJECT).join();
+
+        assertThat(resources).extracting(GcpResourceDto::getType)
+                .containsExactly("Compute Engine", "Cloud Storage", "BigQuery Dataset");
+
+        GcpResourceDto vm = resources.get(0);
+        assertThat(vm.getId()).isEqualTo("4815162342");
+        assertThat(vm.getName()).isEqualTo("vm-1");
+        assertThat(vm.getLocation()).isEqualTo("us-central1-a");
+        assertThat(vm.getStatus()).isEqualTo("RUNNING");
+
+        // Missing display name, location and state fall back to the short name, global and ACTIVE
+        GcpResourceDto bucket = resources.get(1);
+        assertThat(bucket.getId()).isEqualTo("logs-bucket");
+        assertThat(bucket.getName()).isEqualTo("logs-bucket");
+        assertThat(bucket.getLocation()).isEqualTo("global");
+        assertThat(bucket.getStatus()).isEqualTo("ACTIVE");
+        assertThat(bucket.getTags()).containsEntry("env", "prod");
+
+        assertThat(meterRegistry.get("xamops.gcp.inventory.pages").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("xamops.gcp.inventory.duration").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void dnsZonesAndFirewallRulesReadTheirAdditionalAttributes() {
+        GcpAssetInventoryService service = service(pagesOf(1,
+                withAttributes(asset("//dns.googleapis.com/projects/proj-1/managedZones/prod-zone",
+                        "dns.googleapis.com/ManagedZone", "prod-zone", "global", "", ""),
+                        "id", string("2937001"), "dnsName", string("example.com.")),
+                withAttributes(asset("//compute.googleapis.com/projects/proj-1/global/firewalls/allow-ssh",
+                        "compute.googleapis.com/Firewall", "allow-ssh", "global", "", ""),
+                        "id", string("771"), "disabled", Value.newBuilder().setBoolValue(true).build()),
+                withAttributes(asset("//compute.googleapis.com/projects/proj-1/global/firewalls/allow-https",
+                        "compute.googleapis.com/Firewall", "allow-https", "global", "", ""),
+                        "id", string("772"), "disabled", Value.newBuilder().setBoolValue(false).build())));
+
+        List<GcpResourceDto> resources = service.fetchResources(PROJECT).join();
+
+        // Same name and status the per-API listers report for these resources
+        assertThat(resources).extracting(GcpResourceDto::getName)
+                .containsExactly("example.com.", "allow-ssh", "allow-https");
+        assertThat(resources).extracting(GcpResourceDto::getStatus)
+                .containsExactly("ACTIVE", "DISABLED", "ACTIVE");
+        assertThat(resources).extracting(GcpResourceDto::getId)
+                .containsExactly("2937001", "771", "772");
+    }
+
+    @Test
+    void searchAsksOnlyForTheCoveredAssetTypes() {
+        GcpAssetInventoryService service = service(pagesOf(1));
+
+        service.fetchResources(PROJECT).join();
+
+        assertThat(searchedTypes).hasSize(1);
+        assertThat(searchedTypes.get(0))
+                .contains("compute.googleapis.com/Instance", "sqladmin.googleapis.com/Instance")
+                .hasSize(service.getCoveredResourceTypes().size() + 1); // Two forwarding-rule types share a name
+    }
+
+    @Test
+    void typesAssetInventoryCannotServeStayWithTheirListers() {
+        GcpAssetInventoryService service = service(pagesOf(1));
+
+        assertThat(service.getCoveredResourceTypes())
+                .contains("Compute Engine", "Cloud SQL", "Load Balancer", "Pub/Sub Topic")
+                .doesNotContain("Cloud NAT", "Monitoring Uptime Check", "VM Manager Patch Deployment");
+    }
+
+    @Test
+    void failedSearchCompletesExceptionallySoCallersCanFallBack() {
+        GcpAssetInventoryService service = service((project, types, sink) -> {
+            throw new IllegalStateException("PERMISSION_DENIED: cloudasset.assets.searchAllResources");
+        });
+
+        assertThatThrownBy(() -> service.fetchResources(PROJECT).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("PERMISSION_DENIED: cloudasset.assets.searchAllResources");
+        assertThat(meterRegistry.get("xamops.gcp.inventory.duration").tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
+    }
+
+    private GcpAssetInventoryService service(GcpAssetSource source) {
+        return new GcpAssetInventoryService(source, scheduler, meterRegistry);
+    }
+
+    // A source that records the requested types and streams the results as if over {@code pages} pages
+    private GcpAssetSource pagesOf(int pages, ResourceSearchResult... results) {
+        return (project, types, sink) -> {
+            assertThat(project).isEqualTo(PROJECT);
+            searchedTypes.add(List.copyOf(types));
+            for (ResourceSearchResult result : results) {
+                sink.accept(result);
+            }
+            return pages;
+        };
+    }
+
+    private static ResourceSearchResult withAttributes(ResourceSearchResult result, String key, Value value,
+                                                       String otherKey, Value otherValue) {
+        return result.toBuilder()
+                .setAdditionalAttributes(Struct.newBuilder().putFields(key, value).putFields(otherKey, otherValue))
+                .build();
+    }
+
+    private static Value string(String value) {
+        return Value.newBuilder().setStringValue(value).build();
+    }
+
+    private static ResourceSearchResult asset(String name, String assetType, String displayName, String location,
+                                              String state, String id) {
+        ResourceSearchResult.Builder builder = ResourceSearchResult.newBuilder()
+                .setName(name)
+                .setAssetType(assetType)
+                .setDisplayName(displayName)
+                .setLocation(location)
+                .setState(state);
+        if (!id.isEmpty()) {
+            builder.setAdditionalAttributes(Struct.newBuilder()
+                    .putFields("id", Value.newBuilder().setStringValue(id).build()));
+        }
+        return builder.build();
+    }
+}
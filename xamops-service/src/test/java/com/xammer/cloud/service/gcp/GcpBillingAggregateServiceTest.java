@@ -0,0 +1,246 @@
+package com.xammer.cloud.service.gcp;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.cloud.bigquery.*;
+import com.xammer.cloud.domain.GcpBillingDailyCost;
+import com.xammer.cloud.domain.GcpBillingSyncState;
+import com.xammer.cloud.repository.GcpBillingDailyCostRepository;
+import com.xammer.cloud.repository.GcpBillingSyncStateRepository;
+import com.xammer.cloud.service.RedisCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Sync and read paths of the billing aggregate against a fake BigQuery that serves canned export rows.
+ */
+class GcpBillingAggregateServiceTest {
+
+    private static final String PROJECT = "proj-1";
+    private static final String TABLE = "billing.gcp_billing_export_v1";
+    private static final FieldList SCHEMA = FieldList.of(
+            Field.of("usage_date", StandardSQLTypeName.STRING),
+            Field.of("project_name", StandardSQLTypeName.STRING),
+            Field.of("service", StandardSQLTypeName.STRING),
+            Field.of("sku", StandardSQLTypeName.STRING),
+            Field.of("region", StandardSQLTypeName.STRING),
+            Field.of("total_cost", StandardSQLTypeName.FLOAT64));
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private final LocalDate yesterday = today.minusDays(1);
+
+    private GcpClientProvider clientProvider;
+    private BigQuery bigquery;
+    private GcpBillingDailyCostRepository dailyCostRepository;
+    private GcpBillingSyncStateRepository syncStateRepository;
+    private RedisCacheService redisCacheService;
+    private GcpBillingAggregateService service;
+
+    @BeforeEach
+    void setUp() {
+        clientProvider = mock(GcpClientProvider.class);
+        bigquery = mock(BigQuery.class);
+        dailyCostRepository = mock(GcpBillingDailyCostRepository.class);
+        syncStateRepository = mock(GcpBillingSyncStateRepository.class);
+        redisCacheService = mock(RedisCacheService.class);
+        when(clientProvider.getBigQueryClient(PROJECT)).thenReturn(Optional.of(bigquery));
+        when(clientProvider.getBillingTableName(bigquery, PROJECT)).thenReturn(Optional.of(TABLE));
+        when(redisCacheService.get(anyString(), any(TypeReference.class))).thenReturn(Optional.empty());
+
+        service = new GcpBillingAggregateService(clientProvider, dailyCostRepository, syncStateRepository,
+                redisCacheService, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "backfillMonths", 7);
+        ReflectionTestUtils.setField(service, "restatementDays", 3);
+        ReflectionTestUtils.setField(service, "syncIntervalMinutes", 60);
+        ReflectionTestUtils.setField(service, "todayCacheMinutes", 10);
+        ReflectionTestUtils.setField(service, "partitionFilter", true);
+    }
+
+    @Test
+    void firstSyncBackfillsFromCoverageStartAndStoresRowsAndWatermark() throws Exception {
+        when(syncStateRepository.findById(PROJECT)).thenReturn(Optional.empty());
+        serveRows(row(yesterday, "Compute Engine", "us-central1", 12.5),
+                row(yesterday.minusDays(1), "Cloud Storage", "us", 3.0));
+
+        assertThat(service.ensureSynced(PROJECT)).isTrue();
+
+        LocalDate coverageStart = today.minusMonths(7).withDayOfMonth(1);
+        assertThat(executedQuery())
+                .contains("FROM `" + TABLE + "`")
+                .contains("DATE(_PARTITIONTIME) >= '" + coverageStart + "'")
+                .contains("DATE(usage_start_time) <= '" + yesterday + "'");
+        verify(dailyCostRepository).deleteRange(PROJECT, coverageStart, yesterday);
+
+        ArgumentCaptor<List<GcpBillingDailyCost>> saved = rowsCaptor();
+        verify(dailyCostRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(GcpBillingDailyCost::getService)
+                .containsExactlyInAnyOrder("Compute Engine", "Cloud Storage");
+
+        ArgumentCaptor<GcpBillingSyncState> state = ArgumentCaptor.forClass(GcpBillingSyncState.class);
+        verify(syncStateRepository).save(state.capture());
+        assertThat(state.getValue().getCoverageStart()).isEqualTo(coverageStart);
+        assertThat(state.getValue().getWatermark()).isEqualTo(yesterday);
+    }
+
+    @Test
+    void incrementalSyncRereadsOnlyTheRestatementWindow() throws Exception {
+        LocalDate coverageStart = today.minusMonths(7).withDayOfMonth(1);
+        LocalDate watermark = yesterday.minusDays(2);
+        when(syncStateRepository.findById(PROJECT)).thenReturn(Optional.of(
+                new GcpBillingSyncState(PROJECT, coverageStart, watermark, LocalDateTime.now().minusDays(1))));
+        serveRows(row(yesterday, "BigQuery", "us", 1.0));
+
+        assertThat(service.ensureSynced(PROJECT)).isTrue();
+
+        LocalDate from = watermark.plusDays(1).minusDays(3);
+        assertThat(executedQuery()).contains("DATE(usage_start_time) >= '" + from + "'");
+        verify(dailyCostRepository).deleteRange(PROJECT, from, yesterday);
+    }
+
+    @Test
+    void freshProjectIsNotQueried() {
+        when(syncStateRepository.findById(PROJECT)).thenReturn(Optional.of(
+                new GcpBillingSyncState(PROJECT, yesterday.minusMonths(7), yesterday, LocalDateTime.now())));
+
+        assertThat(service.ensureSynced(PROJECT)).isTrue();
+
+        verifyNoInteractions(bigquery);
+        verify(dailyCostRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void missingExportTableIsRediscoveredOnce() throws Exception {
+        when(syncStateRepository.findById(PROJECT)).thenReturn(Optional.empty());
+        TableResult result = result(row(yesterday, "Compute Engine", "us-central1", 2.0));
+        when(bigquery.query(any(QueryJobConfiguration.class)))
+                .thenThrow(new BigQueryException(404, "Not found: Table " + TABLE))
+                .thenReturn(result);
+
+        assertThat(service.ensureSynced(PROJECT)).isTrue();
+
+        verify(clientProvider).invalidateBillingTable(PROJECT);
+        verify(bigquery, times(2)).query(any(QueryJobConfiguration.class));
+        verify(dailyCostRepository).saveAll(any());
+    }
+
+    @Test
+    void projectWithoutExportTableIsNotSynced() {
+        when(syncStateRepository.findById(PROJECT)).thenReturn(Optional.empty());
+        when(clientProvider.getBillingTableName(bigquery, PROJECT)).thenReturn(Optional.empty());
+
+        assertThat(service.ensureSynced(PROJECT)).isFalse();
+
+        verifyNoInteractions(bigquery);
+    }
+
+    @Test
+    void closedRangeIsServedFromTheStoreWithoutBigQuery() {
+        when(dailyCostRepository.sumTotal(PROJECT, yesterday.minusDays(6), yesterday)).thenReturn(42.0);
+
+        assertThat(service.getTotalCost(PROJECT, yesterday.minusDays(6), yesterday)).isEqualTo(42.0);
+
+        verifyNoInteractions(bigquery);
+    }
+
+    @Test
+    void rangeEndingTodayAddsTheLiveSliceAndCachesIt() throws Exception {
+        LocalDate from = today.minusDays(2);
+        GcpBillingDailyCostRepository.DailyTotal stored = dailyTotal(yesterday, 10.0);
+        when(dailyCostRepository.sumByDay(PROJECT, from, yesterday)).thenReturn(List.of(stored));
+        serveRows(row(today, "Compute Engine", "us-central1", 4.0), row(today, "Cloud Storage", "us", 1.0));
+
+        SortedMap<LocalDate, Double> daily = service.getDailyCost(PROJECT, null, from, today);
+
+        assertThat(daily).containsEntry(yesterday, 10.0).containsEntry(today, 5.0);
+        assertThat(executedQuery()).contains("DATE(usage_start_time) >= '" + today + "'");
+        verify(redisCacheService).put(eq("gcp:billing-today:" + PROJECT), anyList(), eq(10));
+    }
+
+    @Test
+    void dailyCostByServiceExcludesTodayAndNamesUnknownServices() {
+        LocalDate from = today.minusDays(3);
+        when(dailyCostRepository.sumByDayAndService(PROJECT, from, yesterday)).thenReturn(List.of(
+                dailyServiceTotal(yesterday, "Compute Engine", 3.0),
+                dailyServiceTotal(yesterday, null, 1.0)));
+
+        SortedMap<LocalDate, Map<String, Double>> days = service.getDailyCostByService(PROJECT, from, today);
+
+        assertThat(days).containsOnlyKeys(yesterday);
+        assertThat(days.get(yesterday)).containsEntry("Compute Engine", 3.0).containsEntry("Unknown", 1.0);
+        verifyNoInteractions(bigquery);
+    }
+
+    // ----- fake BigQuery -----
+
+    private void serveRows(FieldValueList... rows) throws InterruptedException {
+        TableResult result = result(rows);
+        when(bigquery.query(any(QueryJobConfiguration.class))).thenReturn(result);
+    }
+
+    private static TableResult result(FieldValueList... rows) {
+        TableResult result = mock(TableResult.class);
+        when(result.iterateAll()).thenReturn(Arrays.asList(rows));
+        return result;
+    }
+
+    private String executedQuery() throws InterruptedException {
+        ArgumentCaptor<QueryJobConfiguration> query = ArgumentCaptor.forClass(QueryJobConfiguration.class);
+        verify(bigquery, atLeastOnce()).query(query.capture());
+        return query.getValue().getQuery();
+    }
+
+    private static FieldValueList row(LocalDate date, String service, String region, double cost) {
+        return FieldValueList.of(List.of(
+                value(date.toString()), value("My Project"), value(service), value(service + " usage"),
+                value(region), value(Double.toString(cost))), SCHEMA);
+    }
+
+    private static FieldValue value(String value) {
+        return FieldValue.of(FieldValue.Attribute.PRIMITIVE, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<GcpBillingDailyCost>> rowsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private static GcpBillingDailyCostRepository.DailyTotal dailyTotal(LocalDate day, double total) {
+        return new GcpBillingDailyCostRepository.DailyTotal() {
+            public LocalDate getUsageDate() {
+                return day;
+            }
+
+            public Double getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private static GcpBillingDailyCostRepository.DailyServiceTotal dailyServiceTotal(LocalDate day, String service,
+                                                                                     double total) {
+        return new GcpBillingDailyCostRepository.DailyServiceTotal() {
+            public LocalDate getUsageDate() {
+                return day;
+            }
+
+            public String getService() {
+                return service;
+            }
+
+            public Double getTotal() {
+                return total;
+            }
+        };
+    }
+}
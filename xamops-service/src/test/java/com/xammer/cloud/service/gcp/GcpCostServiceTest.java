@@ -0,0 +1,134 @@
+package com.xammer.cloud.service.gcp;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.cloud.bigquery.*;
+import com.xammer.cloud.domain.GcpBillingSyncState;
+import com.xammer.cloud.repository.GcpBillingDailyCostRepository;
+import com.xammer.cloud.repository.GcpBillingSyncStateRepository;
+import com.xammer.cloud.service.RedisCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * BigQuery scans behind the month-to-date reads once the billing aggregate is current, with an
+ * in-memory Redis and sync-state store.
+ */
+class GcpCostServiceTest {
+
+    private static final String PROJECT = "proj-1";
+    private static final String TABLE = "billing.gcp_billing_export_v1";
+    private static final FieldList SCHEMA = FieldList.of(
+            Field.of("usage_date", StandardSQLTypeName.STRING),
+            Field.of("project_name", StandardSQLTypeName.STRING),
+            Field.of("service", StandardSQLTypeName.STRING),
+            Field.of("sku", StandardSQLTypeName.STRING),
+            Field.of("region", StandardSQLTypeName.STRING),
+            Field.of("total_cost", StandardSQLTypeName.FLOAT64));
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private final Map<String, Object> redis = new ConcurrentHashMap<>();
+    private final Map<String, GcpBillingSyncState> syncStates = new ConcurrentHashMap<>();
+
+    private BigQuery bigquery;
+    private GcpCostService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        GcpClientProvider clientProvider = mock(GcpClientProvider.class);
+        bigquery = mock(BigQuery.class);
+        when(clientProvider.getBigQueryClient(PROJECT)).thenReturn(Optional.of(bigquery));
+        when(clientProvider.getBillingTableName(bigquery, PROJECT)).thenReturn(Optional.of(TABLE));
+        // Every scan returns today's live rows; the backfill's rows are not what is under test
+        TableResult result = mock(TableResult.class);
+        when(result.iterateAll()).thenReturn(List.of(row(today, "Compute Engine", 4.0), row(today, "Cloud Storage", 1.0)));
+        when(bigquery.query(any(QueryJobConfiguration.class))).thenReturn(result);
+
+        GcpBillingDailyCostRepository dailyCostRepository = mock(GcpBillingDailyCostRepository.class);
+        when(dailyCostRepository.sumTotal(eq(PROJECT), any(), any())).thenReturn(100.0);
+
+        GcpBillingSyncStateRepository syncStateRepository = mock(GcpBillingSyncStateRepository.class);
+        when(syncStateRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(syncStates.get(invocation.<String>getArgument(0))));
+        when(syncStateRepository.save(any())).thenAnswer(invocation -> {
+            GcpBillingSyncState state = invocation.getArgument(0);
+            syncStates.put(state.getGcpProjectId(), state);
+            return state;
+        });
+
+        RedisCacheService redisCacheService = mock(RedisCacheService.class);
+        when(redisCacheService.get(anyString(), any(Class.class)))
+                .thenAnswer(invocation -> Optional.ofNullable(redis.get(invocation.<String>getArgument(0))));
+        when(redisCacheService.get(anyString(), any(TypeReference.class)))
+                .thenAnswer(invocation -> Optional.ofNullable(redis.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(redisCacheService).put(anyString(), any(), anyInt());
+        doAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)))
+                .when(redisCacheService).evict(anyString());
+
+        GcpBillingAggregateService aggregateService = new GcpBillingAggregateService(clientProvider,
+                dailyCostRepository, syncStateRepository, redisCacheService, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(aggregateService, "backfillMonths", 7);
+        ReflectionTestUtils.setField(aggregateService, "restatementDays", 3);
+        ReflectionTestUtils.setField(aggregateService, "syncIntervalMinutes", 60);
+        ReflectionTestUtils.setField(aggregateService, "todayCacheMinutes", 10);
+        ReflectionTestUtils.setField(aggregateService, "partitionFilter", true);
+
+        GcpWorkloadScheduler scheduler = mock(GcpWorkloadScheduler.class);
+        when(scheduler.executor(any())).thenReturn(Runnable::run);
+        service = new GcpCostService(clientProvider, redisCacheService, aggregateService, scheduler);
+    }
+
+    @Test
+    void repeatedMonthToDateQueriesDoNotScanOnceTheAggregateIsCurrent() throws Exception {
+        // First read: the backfill and today's live slice
+        assertThat(service.getUnfilteredMonthToDateSpendSync(PROJECT)).isEqualTo(105.0);
+        verify(bigquery, times(2)).query(any(QueryJobConfiguration.class));
+
+        // The 10-minute result cache expires, but the aggregate and today's slice are still current
+        for (int i = 0; i < 5; i++) {
+            redis.remove("gcp:unfiltered-mtd-spend:" + PROJECT);
+            assertThat(service.getUnfilteredMonthToDateSpendSync(PROJECT)).isEqualTo(105.0);
+        }
+        service.getBillingSummarySync(PROJECT);
+        service.getHistoricalCostsSync(PROJECT);
+
+        verify(bigquery, times(2)).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void expiredLiveSliceRescansOnlyTodaysPartition() throws Exception {
+        service.getUnfilteredMonthToDateSpendSync(PROJECT);
+
+        redis.remove("gcp:unfiltered-mtd-spend:" + PROJECT);
+        redis.remove("gcp:billing-today:" + PROJECT);
+        service.getUnfilteredMonthToDateSpendSync(PROJECT);
+
+        ArgumentCaptor<QueryJobConfiguration> queries = ArgumentCaptor.forClass(QueryJobConfiguration.class);
+        verify(bigquery, times(3)).query(queries.capture());
+        assertThat(queries.getValue().getQuery())
+                .contains("DATE(_PARTITIONTIME) >= '" + today + "'")
+                .contains("DATE(usage_start_time) <= '" + today + "'");
+    }
+
+    private static FieldValueList row(LocalDate date, String service, double cost) {
+        return FieldValueList.of(List.of(
+                value(date.toString()), value("My Project"), value(service), value(service + " usage"),
+                value("us-central1"), value(Double.toString(cost))), SCHEMA);
+    }
+
+    private static FieldValue value(String value) {
+        return FieldValue.of(FieldValue.Attribute.PRIMITIVE, value);
+    }
+}
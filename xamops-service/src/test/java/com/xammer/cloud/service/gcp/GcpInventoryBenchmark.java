@@ -0,0 +1,220 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.asset.v1.ResourceSearchResult;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.xammer.cloud.dto.gcp.GcpResourceDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Project inventory of 20,000 synthetic assets: one paged Asset Inventory search through
+ * GcpAssetInventoryService, against the per-type listers it replaces running in parallel. Each API
+ * page costs {@code callLatencyMs}; the API calls each path makes are printed at setup. Lister
+ * pages use the 100-item default most list APIs apply when no page size is set, and KMS lists key
+ * rings in every known region before listing their keys, as GcpDataService.getKmsKeys does. Not run
+ * by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.gcp.GcpInventoryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class GcpInventoryBenchmark {
+
+    private static final String PROJECT = "proj-1";
+    private static final int SEARCH_PAGE_SIZE = 500;
+    private static final int LISTER_PAGE_SIZE = 100;
+    private static final int KMS_REGIONS = 40;
+    private static final int KMS_KEY_RINGS = 20;
+    private static final String KMS = "cloudkms.googleapis.com/CryptoKey";
+
+    // Asset type -> count, skewed the way production projects are: VMs and their firewalls dominate
+    private static final Map<String, Integer> ASSET_COUNTS = new LinkedHashMap<>();
+
+    static {
+        ASSET_COUNTS.put("compute.googleapis.com/Instance", 8000);
+        ASSET_COUNTS.put("compute.googleapis.com/Firewall", 2000);
+        ASSET_COUNTS.put("storage.googleapis.com/Bucket", 2000);
+        ASSET_COUNTS.put("secretmanager.googleapis.com/Secret", 1500);
+        ASSET_COUNTS.put("pubsub.googleapis.com/Subscription", 1500);
+        ASSET_COUNTS.put("pubsub.googleapis.com/Topic", 1000);
+        ASSET_COUNTS.put(KMS, 1000);
+        ASSET_COUNTS.put("compute.googleapis.com/ForwardingRule", 600);
+        ASSET_COUNTS.put("cloudfunctions.googleapis.com/Function", 500);
+        ASSET_COUNTS.put("bigquery.googleapis.com/Dataset", 400);
+        ASSET_COUNTS.put("sqladmin.googleapis.com/Instance", 300);
+        ASSET_COUNTS.put("dns.googleapis.com/ManagedZone", 300);
+        ASSET_COUNTS.put("monitoring.googleapis.com/AlertPolicy", 300);
+        ASSET_COUNTS.put("cloudscheduler.googleapis.com/Job", 200);
+        ASSET_COUNTS.put("compute.googleapis.com/Network", 100);
+        ASSET_COUNTS.put("container.googleapis.com/Cluster", 100);
+        ASSET_COUNTS.put("logging.googleapis.com/LogBucket", 100);
+        ASSET_COUNTS.put("compute.googleapis.com/GlobalForwardingRule", 40);
+        ASSET_COUNTS.put("compute.googleapis.com/SecurityPolicy", 20);
+        ASSET_COUNTS.put("aiplatform.googleapis.com/Model", 20);
+        ASSET_COUNTS.put("aiplatform.googleapis.com/Endpoint", 10);
+        ASSET_COUNTS.put("apigateway.googleapis.com/Api", 5);
+        ASSET_COUNTS.put("dataplex.googleapis.com/Lake", 3);
+        ASSET_COUNTS.put("bigqueryreservation.googleapis.com/Reservation", 2);
+    }
+
+    @Param({"0", "50"})
+    public int callLatencyMs;
+
+    // Threads the listers share: the COMPUTE and GENERAL families' default of 16 each
+    @Param({"32"})
+    public int listerThreads;
+
+    private Map<String, List<ResourceSearchResult>> assetsByType;
+    private List<ResourceSearchResult> allAssets;
+    private GcpAssetInventoryService inventoryService;
+    private ExecutorService listerPool;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        assetsByType = new LinkedHashMap<>();
+        ASSET_COUNTS.forEach((type, count) -> {
+            List<ResourceSearchResult> assets = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                assets.add(asset(type, i));
+            }
+            assetsByType.put(type, assets);
+        });
+        allAssets = assetsByType.values().stream().flatMap(List::stream).collect(Collectors.toList());
+
+        GcpWorkloadScheduler scheduler = mock(GcpWorkloadScheduler.class);
+        when(scheduler.executor(GcpWorkloadScheduler.ApiFamily.ASSET)).thenReturn(Runnable::run);
+        inventoryService = new GcpAssetInventoryService(this::search, scheduler, new SimpleMeterRegistry());
+        listerPool = Executors.newFixedThreadPool(listerThreads);
+
+        int searched = assetSearch().size();
+        int searchCalls = calls.getAndSet(0);
+        int listed = perTypeListers().size();
+        int listerCalls = calls.getAndSet(0);
+        System.out.printf("%d assets: search %d calls (%d resources), per-type listers %d calls (%d resources)%n",
+                allAssets.size(), searchCalls, searched, listerCalls, listed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        listerPool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<GcpResourceDto> assetSearch() {
+        return inventoryService.fetchResources(PROJECT).join();
+    }
+
+    @Benchmark
+    public List<GcpResourceDto> perTypeListers() {
+        List<CompletableFuture<List<GcpResourceDto>>> futures = assetsByType.entrySet().stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> list(entry.getKey(), entry.getValue()), listerPool))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()))
+                .join();
+    }
+
+    // searchAllResources: pages of 500 across every type, one call per page
+    private int search(String gcpProjectId, Collection<String> assetTypes,
+                       Consumer<ResourceSearchResult> sink) {
+        int pages = 0;
+        for (int from = 0; from < allAssets.size(); from += SEARCH_PAGE_SIZE) {
+            call();
+            pages++;
+            allAssets.subList(from, Math.min(from + SEARCH_PAGE_SIZE, allAssets.size())).forEach(sink);
+        }
+        return pages;
+    }
+
+    // One lister: pages through its own type, sequentially, as iterateAll() does
+    private List<GcpResourceDto> list(String type, List<ResourceSearchResult> assets) {
+        List<GcpResourceDto> resources = new ArrayList<>(assets.size());
+        if (KMS.equals(type)) {
+            // listKeyRings in every region, then listCryptoKeys per key ring
+            for (int region = 0; region < KMS_REGIONS; region++) {
+                call();
+            }
+            int perRing = (assets.size() + KMS_KEY_RINGS - 1) / KMS_KEY_RINGS;
+            for (int from = 0; from < assets.size(); from += perRing) {
+                page(assets.subList(from, Math.min(from + perRing, assets.size())), resources);
+            }
+            return resources;
+        }
+        page(assets, resources);
+        return resources;
+    }
+
+    private void page(List<ResourceSearchResult> assets, List<GcpResourceDto> resources) {
+        int from = 0;
+        do {
+            call();
+            for (ResourceSearchResult asset : assets.subList(from, Math.min(from + LISTER_PAGE_SIZE, assets.size()))) {
+                GcpResourceDto dto = new GcpResourceDto();
+                dto.setId(asset.getAdditionalAttributes().getFieldsOrThrow("id").getStringValue());
+                dto.setName(asset.getDisplayName());
+                dto.setType(asset.getAssetType());
+                dto.setLocation(asset.getLocation());
+                dto.setStatus("ACTIVE");
+                resources.add(dto);
+            }
+            from += LISTER_PAGE_SIZE;
+        } while (from < assets.size());
+    }
+
+    private void call() {
+        calls.incrementAndGet();
+        if (callLatencyMs > 0) {
+            try {
+                Thread.sleep(callLatencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static ResourceSearchResult asset(String type, int i) {
+        String kind = type.substring(type.indexOf('/') + 1).toLowerCase();
+        String name = kind + "-" + i;
+        return ResourceSearchResult.newBuilder()
+                .setName("//" + type.substring(0, type.indexOf('/')) + "/projects/" + PROJECT + "/" + kind + "s/" + name)
+                .setAssetType(type)
+                .setDisplayName(name)
+                .setLocation(i % 3 == 0 ? "global" : "us-central1")
+                .setAdditionalAttributes(Struct.newBuilder()
+                        .putFields("id", Value.newBuilder().setStringValue(Long.toString(1_000_000L + i)).build()))
+                .putLabels("env", i % 2 == 0 ? "prod" : "dev")
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GcpInventoryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.billing.v1.Category;
+import com.google.cloud.billing.v1.CloudCatalogClient;
+import com.google.cloud.billing.v1.ListSkusRequest;
+import com.google.cloud.billing.v1.PricingExpression;
+import com.google.cloud.billing.v1.PricingInfo;
+import com.google.cloud.billing.v1.Sku;
+import com.google.type.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.COMMIT_1_YEAR;
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.ON_DEMAND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cloud SQL tier pricing through the local SKU index, against a listing shaped like the Billing
+ * Catalog's Cloud SQL custom-instance SKUs.
+ */
+class GcpOptimizationServiceTest {
+
+    private static final String PROJECT = "proj-1";
+    private static final String IOWA = "Council Bluffs, Iowa, North America";
+    private static final String MUMBAI = "Mumbai, India, APAC";
+
+    private CloudCatalogClient catalogClient;
+    private GcpOptimizationService service;
+
+    @BeforeEach
+    void setUp() {
+        GcpClientProvider clientProvider = mock(GcpClientProvider.class);
+        catalogClient = mock(CloudCatalogClient.class);
+        when(clientProvider.getCloudCatalogClient(PROJECT)).thenReturn(Optional.of(catalogClient));
+
+        GcpWorkloadScheduler scheduler = mock(GcpWorkloadScheduler.class);
+        when(scheduler.executor(any())).thenReturn(Runnable::run);
+
+        GcpSkuCatalog catalog = new GcpSkuCatalog(clientProvider, scheduler, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", 24L);
+        service = new GcpOptimizationService(clientProvider, mock(GcpDataService.class), mock(CloudAccountService.class),
+                scheduler, catalog);
+    }
+
+    @Test
+    void baseCustomSkusAreChosenOverSizedCommittedAndOtherRegionSkus() {
+        serve(
+                // Sized and committed variants come first in the listing and must be skipped
+                sku("CORE-2VCPU", "us-central1", "CPU", ON_DEMAND, "Custom Instance Core running in " + IOWA + " with 2 vCPU", "h", 0.05),
+                sku("CORE-CUD", "us-central1", "CPU", COMMIT_1_YEAR, "Custom Instance Core running in " + IOWA, "h", 0.026),
+                sku("CORE-EXT", "us-central1", "CPU", ON_DEMAND, "Custom Extended Instance Core running in " + IOWA, "h", 0.09),
+                sku("CORE-IOWA", "us-central1", "CPU", ON_DEMAND, "Custom Instance Core running in " + IOWA, "h", 0.0413),
+                sku("RAM-16GB", "us-central1", "RAM", ON_DEMAND, "Custom Instance RAM running in " + IOWA + " 16 GB", "GiBy.mo", 6.0),
+                sku("RAM-IOWA", "us-central1", "RAM", ON_DEMAND, "Custom Instance RAM running in " + IOWA, "GiBy.mo", 5.11),
+                sku("CORE-MUMBAI", "asia-south1", "CPU", ON_DEMAND, "Custom Instance Core running in " + MUMBAI, "h", 0.0496));
+
+        assertThat(findCloudSqlSku("CPU", "us-central1")).map(GcpSkuPrice::getSkuId).contains("CORE-IOWA");
+        assertThat(findCloudSqlSku("RAM", "us-central1")).map(GcpSkuPrice::getSkuId).contains("RAM-IOWA");
+        assertThat(findCloudSqlSku("CPU", "asia-south1")).map(GcpSkuPrice::getSkuId).contains("CORE-MUMBAI");
+        assertThat(findCloudSqlSku("RAM", "asia-south1")).isEmpty();
+        // Iowa's SKUs live in the us-central1 bucket; the description must also name the region's location
+        assertThat(findCloudSqlSku("CPU", "us-east1")).isEmpty();
+        verify(catalogClient, times(1)).listSkus(any(ListSkusRequest.class));
+    }
+
+    @Test
+    void unknownRegionIsAMissWithoutListing() {
+        assertThat(findCloudSqlSku("CPU", "mars-north1")).isEmpty();
+        verifyNoInteractions(catalogClient);
+    }
+
+    @Test
+    void customTierIsPricedFromTheCatalogAndListedOnce() {
+        serve(sku("CORE-IOWA", "us-central1", "CPU", ON_DEMAND, "Custom Instance Core running in " + IOWA, "h", 0.0413),
+                sku("RAM-IOWA", "us-central1", "RAM", ON_DEMAND, "Custom Instance RAM running in " + IOWA, "GiBy.mo", 5.11));
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(calculateCloudSqlPrice("db-custom-4-16384", "us-central1"))
+                    .isEqualTo(0.0413 * 4 * 730 + 5.11 * 16, within(1e-9));
+        }
+        assertThat(calculateCloudSqlPrice("db-n1-standard-2", "us-central1"))
+                .isEqualTo(0.0413 * 2 * 730 + 5.11 * 7.5, within(1e-9));
+        verify(catalogClient, times(1)).listSkus(any(ListSkusRequest.class));
+    }
+
+    @Test
+    void missingRamSkuFallsBackToTheHardcodedEstimate() {
+        serve(sku("CORE-IOWA", "us-central1", "CPU", ON_DEMAND, "Custom Instance Core running in " + IOWA, "h", 0.0413));
+
+        assertThat(calculateCloudSqlPrice("db-custom-2-8192", "us-central1"))
+                .isEqualTo((2 * 0.059 + 8 * 0.01) * 730, within(1e-9));
+    }
+
+    private Optional<GcpSkuPrice> findCloudSqlSku(String resourceType, String region) {
+        return ReflectionTestUtils.invokeMethod(service, "findCloudSqlSku", PROJECT, resourceType, region);
+    }
+
+    private double calculateCloudSqlPrice(String tier, String region) {
+        Double price = ReflectionTestUtils.invokeMethod(service, "calculateCloudSqlPrice", PROJECT, tier, region);
+        return price;
+    }
+
+    // ----- fake Billing Catalog -----
+
+    private void serve(Sku... skus) {
+        CloudCatalogClient.ListSkusPagedResponse response = mock(CloudCatalogClient.ListSkusPagedResponse.class);
+        when(response.iterateAll()).thenReturn(List.of(skus));
+        when(catalogClient.listSkus(any(ListSkusRequest.class))).thenReturn(response);
+    }
+
+    static Sku sku(String id, String region, String resourceGroup, String usageType, String description,
+                   String usageUnit, double usd) {
+        long units = (long) usd;
+        int nanos = (int) Math.round((usd - units) * 1_000_000_000d);
+        return Sku.newBuilder()
+                .setSkuId(id)
+                .setDescription(description)
+                .setCategory(Category.newBuilder()
+                        .setServiceDisplayName("Cloud SQL")
+                        .setResourceFamily("ApplicationServices")
+                        .setResourceGroup(resourceGroup)
+                        .setUsageType(usageType))
+                .addServiceRegions(region)
+                .addPricingInfo(PricingInfo.newBuilder().setPricingExpression(PricingExpression.newBuilder()
+                        .setUsageUnit(usageUnit)
+                        .addTieredRates(PricingExpression.TierRate.newBuilder()
+                                .setUnitPrice(Money.newBuilder().setCurrencyCode("USD").setUnits(units).setNanos(nanos)))))
+                .build();
+    }
+}
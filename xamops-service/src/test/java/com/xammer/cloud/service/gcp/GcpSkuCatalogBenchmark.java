@@ -0,0 +1,136 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.billing.v1.CloudCatalogClient;
+import com.google.cloud.billing.v1.ListSkusRequest;
+import com.google.cloud.billing.v1.Sku;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.COMMIT_1_YEAR;
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.COMMIT_3_YEAR;
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.ON_DEMAND;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One Cloud SQL vCPU or RAM SKU lookup through GcpOptimizationService.findCloudSqlSku and the local
+ * index, against the per-call scan of the whole Cloud SQL listing it replaced. The scan is timed
+ * over SKUs already in memory, so it leaves out the ListSkus pages the old path also fetched on
+ * every call. Not run by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.gcp.GcpSkuCatalogBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GcpSkuCatalogBenchmark {
+
+    private static final String PROJECT = "proj-1";
+    private static final Map<String, String> REGIONS = Map.of(
+            "us-central1", "Council Bluffs, Iowa, North America",
+            "us-east1", "Moncks Corner, South Carolina, North America",
+            "europe-west1", "St. Ghislain, Belgium, Europe",
+            "europe-west2", "London, England, Europe",
+            "asia-south1", "Mumbai, India, APAC",
+            "asia-northeast1", "Tokyo, Japan, APAC",
+            "australia-southeast1", "Sydney, Australia, APAC",
+            "southamerica-east1", "Osasco, São Paulo, Brazil, South America");
+
+    private List<Sku> listing;
+    private String[] regions;
+    private GcpOptimizationService service;
+    private Method findCloudSqlSku;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // About 3,200 SKUs: per region, the base, extended and sized custom SKUs for vCPU and RAM under each usage type
+        listing = new ArrayList<>();
+        REGIONS.forEach((region, location) -> {
+            for (String usageType : List.of(COMMIT_3_YEAR, COMMIT_1_YEAR, ON_DEMAND)) {
+                for (String[] resource : new String[][]{{"CPU", "Core", "h", "vCPU"}, {"RAM", "RAM", "GiBy.mo", "GB"}}) {
+                    String base = "Custom Instance " + resource[1] + " running in " + location;
+                    for (int size = 1; size <= 64; size++) {
+                        listing.add(GcpOptimizationServiceTest.sku(region + "-" + resource[0] + "-" + usageType + "-" + size,
+                                region, resource[0], usageType, base + " with " + size + " " + resource[3], resource[2], 0.04 * size));
+                    }
+                    listing.add(GcpOptimizationServiceTest.sku(region + "-" + resource[0] + "-" + usageType + "-ext", region,
+                            resource[0], usageType, "Custom Extended Instance " + resource[1] + " running in " + location,
+                            resource[2], 0.09));
+                    listing.add(GcpOptimizationServiceTest.sku(region + "-" + resource[0] + "-" + usageType, region,
+                            resource[0], usageType, base, resource[2], 0.0413));
+                }
+            }
+        });
+        regions = REGIONS.keySet().toArray(new String[0]);
+
+        GcpClientProvider clientProvider = mock(GcpClientProvider.class);
+        CloudCatalogClient catalogClient = mock(CloudCatalogClient.class);
+        CloudCatalogClient.ListSkusPagedResponse response = mock(CloudCatalogClient.ListSkusPagedResponse.class);
+        when(response.iterateAll()).thenReturn(listing);
+        when(catalogClient.listSkus(any(ListSkusRequest.class))).thenReturn(response);
+        when(clientProvider.getCloudCatalogClient(PROJECT)).thenReturn(Optional.of(catalogClient));
+        GcpWorkloadScheduler scheduler = mock(GcpWorkloadScheduler.class);
+        when(scheduler.executor(any())).thenReturn(Runnable::run);
+
+        GcpSkuCatalog catalog = new GcpSkuCatalog(clientProvider, scheduler, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", 24L);
+        service = new GcpOptimizationService(clientProvider, mock(GcpDataService.class), mock(CloudAccountService.class),
+                scheduler, catalog);
+        findCloudSqlSku = GcpOptimizationService.class.getDeclaredMethod("findCloudSqlSku",
+                String.class, String.class, String.class);
+        findCloudSqlSku.setAccessible(true);
+        if (catalogLookup() == null) {
+            throw new IllegalStateException("Catalog lookup found no SKU");
+        }
+    }
+
+    @Benchmark
+    public Object catalogLookup() throws Exception {
+        int i = next++;
+        return ((Optional<?>) findCloudSqlSku.invoke(service, PROJECT, i % 2 == 0 ? "CPU" : "RAM",
+                regions[(i >> 1) % regions.length])).orElse(null);
+    }
+
+    /**
+     * The pre-index selection: walk every SKU of the service and keep the first base custom SKU
+     * whose region, resource group and description match.
+     */
+    @Benchmark
+    public Sku listingScan() {
+        int i = next++;
+        String resourceType = i % 2 == 0 ? "CPU" : "RAM";
+        String region = regions[(i >> 1) % regions.length];
+        String descriptionPrefix = "Custom Instance %s running in %s".formatted(
+                "CPU".equals(resourceType) ? "Core" : "RAM", REGIONS.get(region));
+        for (Sku sku : listing) {
+            if (sku.getServiceRegionsList().contains(region)
+                    && sku.getDescription().contains(descriptionPrefix)
+                    && resourceType.equalsIgnoreCase(sku.getCategory().getResourceGroup())
+                    && !sku.getDescription().matches(".*\\d+\\s+(vCPU|GB).*")) {
+                return sku;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GcpSkuCatalogBenchmark.class.getSimpleName()).build()).run();
+    }
+}
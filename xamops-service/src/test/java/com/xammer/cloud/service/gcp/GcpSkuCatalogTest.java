@@ -0,0 +1,211 @@
+package com.xammer.cloud.service.gcp;
+
+import com.google.cloud.billing.v1.Category;
+import com.google.cloud.billing.v1.CloudCatalogClient;
+import com.google.cloud.billing.v1.ListSkusRequest;
+import com.google.cloud.billing.v1.PricingExpression;
+import com.google.cloud.billing.v1.PricingInfo;
+import com.google.cloud.billing.v1.Sku;
+import com.google.type.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.CLOUD_SQL_SERVICE;
+import static com.xammer.cloud.service.gcp.GcpSkuCatalog.ON_DEMAND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SKU index built from a fake Billing Catalog listing.
+ */
+class GcpSkuCatalogTest {
+
+    private static final String PROJECT = "proj-1";
+
+    private GcpClientProvider clientProvider;
+    private CloudCatalogClient catalogClient;
+    private SimpleMeterRegistry meterRegistry;
+    private GcpSkuCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        clientProvider = mock(GcpClientProvider.class);
+        catalogClient = mock(CloudCatalogClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(clientProvider.getCloudCatalogClient(PROJECT)).thenReturn(Optional.of(catalogClient));
+
+        // Background refreshes run on the calling thread
+        GcpWorkloadScheduler scheduler = mock(GcpWorkloadScheduler.class);
+        when(scheduler.executor(GcpWorkloadScheduler.ApiFamily.GENERAL)).thenReturn(Runnable::run);
+
+        catalog = new GcpSkuCatalog(clientProvider, scheduler, meterRegistry);
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", 24L);
+    }
+
+    @Test
+    void serviceIsListedOnceNoMatterHowManyLookups() {
+        serve(cpu("CPU-US", "us-central1", 0.0413), ram("RAM-US", "us-central1", 0.007));
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                    .map(GcpSkuPrice::getSkuId).contains("CPU-US");
+        }
+
+        verify(catalogClient, times(1)).listSkus(any(ListSkusRequest.class));
+        assertThat(catalog.isLoaded(CLOUD_SQL_SERVICE)).isTrue();
+        assertThat(meterRegistry.get("xamops.gcp.sku.catalog.loads").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("xamops.gcp.sku.catalog.entries").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void regionalSkuWinsAndGlobalIsTheFallback() {
+        serve(cpu("CPU-US", "us-central1", 0.0413), cpu("CPU-GLOBAL", "global", 0.05));
+
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .map(GcpSkuPrice::getSkuId).contains("CPU-US");
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "asia-south1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .map(GcpSkuPrice::getSkuId).contains("CPU-GLOBAL");
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesRAM", ON_DEMAND, sku -> true))
+                .isEmpty();
+        assertThat(meterRegistry.get("xamops.gcp.sku.catalog.lookups").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void descriptionWordsMatchInAnyOrder() {
+        serve(cpu("CPU-PG", "us-central1", 0.0413, "Cloud SQL for PostgreSQL: Zonal - vCPU in Americas"),
+                cpu("CPU-MY", "us-central1", 0.0413, "Cloud SQL for MySQL: Zonal - vCPU in Americas"));
+
+        assertThat(catalog.findByDescription(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU",
+                ON_DEMAND, "vcpu mysql zonal")).map(GcpSkuPrice::getSkuId).contains("CPU-MY");
+        assertThat(catalog.findByDescription(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU",
+                ON_DEMAND, "regional vcpu")).isEmpty();
+    }
+
+    @Test
+    void nonUsdAndUnpricedSkusAreNotIndexed() {
+        Sku unpriced = cpu("NO-PRICE", "us-central1", 0).toBuilder().clearPricingInfo().build();
+        serve(sku("CPU-EUR", "us-central1", "SQLGen2InstancesCPU", "vCPU", "EUR", 0.04), unpriced,
+                ram("RAM-US", "us-central1", 0.007));
+
+        assertThat(catalog.list(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND)).isEmpty();
+        assertThat(catalog.list(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesRAM", ON_DEMAND)).hasSize(1);
+    }
+
+    @Test
+    void staleIndexIsRebuiltWhileTheOldSnapshotKeepsServing() {
+        serve(cpu("CPU-OLD", "us-central1", 0.04));
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .map(GcpSkuPrice::getSkuId).contains("CPU-OLD");
+
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", -1L);
+        serve(cpu("CPU-NEW", "us-central1", 0.05));
+
+        // The lookup that notices the age still answers from the old snapshot
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .map(GcpSkuPrice::getSkuId).contains("CPU-OLD");
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", 24L);
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .map(GcpSkuPrice::getSkuId).contains("CPU-NEW");
+    }
+
+    @Test
+    void emptyOrFailedListingKeepsTheCurrentIndex() {
+        serve(cpu("CPU-US", "us-central1", 0.04));
+        catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true);
+
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", -1L);
+        serve();
+        catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true);
+        when(catalogClient.listSkus(any(ListSkusRequest.class))).thenThrow(new IllegalStateException("quota"));
+        catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true);
+
+        ReflectionTestUtils.setField(catalog, "maxAgeHours", 24L);
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .map(GcpSkuPrice::getSkuId).contains("CPU-US");
+    }
+
+    @Test
+    void disabledCatalogNeverListsSkus() {
+        ReflectionTestUtils.setField(catalog, "enabled", false);
+
+        assertThat(catalog.find(PROJECT, CLOUD_SQL_SERVICE, "us-central1", "SQLGen2InstancesCPU", ON_DEMAND, sku -> true))
+                .isEmpty();
+        verifyNoInteractions(catalogClient);
+    }
+
+    @Test
+    void tieredPricesAreWalkedPerUnit() {
+        Sku tiered = cpu("EGRESS", "global", 0).toBuilder()
+                .setPricingInfo(0, PricingInfo.newBuilder().setPricingExpression(PricingExpression.newBuilder()
+                        .setUsageUnit("GiBy")
+                        .addTieredRates(tier(0, 0, 0))
+                        .addTieredRates(tier(1, 0, 120_000_000))
+                        .addTieredRates(tier(1024, 0, 80_000_000))))
+                .build();
+
+        GcpSkuPrice price = GcpSkuPrice.from(tiered);
+
+        assertThat(price.getBaseUnitPrice()).isZero();
+        assertThat(price.getUnitPriceAt(0.5)).isZero();
+        assertThat(price.getUnitPriceAt(10)).isEqualTo(0.12, within(1e-12));
+        assertThat(price.getUnitPriceAt(2048)).isEqualTo(0.08, within(1e-12));
+        // 1 free unit, 1023 at 0.12, 976 at 0.08
+        assertThat(price.costOf(2000)).isEqualTo(1023 * 0.12 + 976 * 0.08, within(1e-9));
+        assertThat(price.getUsageUnit()).isEqualTo("GiBy");
+    }
+
+    // ----- fake Billing Catalog -----
+
+    private void serve(Sku... skus) {
+        CloudCatalogClient.ListSkusPagedResponse response = mock(CloudCatalogClient.ListSkusPagedResponse.class);
+        when(response.iterateAll()).thenReturn(List.of(skus));
+        when(catalogClient.listSkus(any(ListSkusRequest.class))).thenReturn(response);
+    }
+
+    private static Sku cpu(String id, String region, double usd) {
+        return cpu(id, region, usd, "Cloud SQL for MySQL: Zonal - vCPU in Americas");
+    }
+
+    private static Sku cpu(String id, String region, double usd, String description) {
+        return sku(id, region, "SQLGen2InstancesCPU", description, "USD", usd);
+    }
+
+    private static Sku ram(String id, String region, double usd) {
+        return sku(id, region, "SQLGen2InstancesRAM", "Cloud SQL for MySQL: Zonal - RAM in Americas", "USD", usd);
+    }
+
+    private static Sku sku(String id, String region, String resourceGroup, String description, String currency,
+                           double price) {
+        long units = (long) price;
+        int nanos = (int) Math.round((price - units) * 1_000_000_000d);
+        return Sku.newBuilder()
+                .setSkuId(id)
+                .setDescription(description)
+                .setCategory(Category.newBuilder()
+                        .setServiceDisplayName("Cloud SQL")
+                        .setResourceFamily("ApplicationServices")
+                        .setResourceGroup(resourceGroup)
+                        .setUsageType(ON_DEMAND))
+                .addServiceRegions(region)
+                .addPricingInfo(PricingInfo.newBuilder().setPricingExpression(PricingExpression.newBuilder()
+                        .setUsageUnit("h")
+                        .addTieredRates(PricingExpression.TierRate.newBuilder()
+                                .setUnitPrice(Money.newBuilder().setCurrencyCode(currency).setUnits(units).setNanos(nanos)))))
+                .build();
+    }
+
+    private static PricingExpression.TierRate.Builder tier(double start, long units, int nanos) {
+        return PricingExpression.TierRate.newBuilder()
+                .setStartUsageAmount(start)
+                .setUnitPrice(Money.newBuilder().setCurrencyCode("USD").setUnits(units).setNanos(nanos));
+    }
+}
@@ -0,0 +1,232 @@
+package com.xammer.cloud.service.gcp;
+
+import com.xammer.cloud.config.multitenancy.TenantContext;
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.service.gcp.GcpWorkloadScheduler.ApiFamily;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load, fairness, backpressure and shutdown of the per-family worker pools, with sleeping tasks
+ * standing in for slow GCP calls.
+ */
+class GcpWorkloadSchedulerTest {
+
+    private static final String COMPUTE_POOL = "GCP-compute";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadGovernor governor = new ThreadGovernor(new MockEnvironment(), meterRegistry, 50);
+    private GcpWorkloadScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void floodOfSlowTasksStaysWithinTheGrantAndLightTenantsAreNotStarved() throws Exception {
+        scheduler = scheduler(4, 2000, 500, "");
+        Executor compute = scheduler.executor(ApiFamily.COMPUTE);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger maxLive = new AtomicInteger();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> maxLive.accumulateAndGet(governor.snapshot().get(COMPUTE_POOL)[0], Math::max),
+                0, 2, TimeUnit.MILLISECONDS);
+
+        // One tenant floods the family with 300 slow calls from three request threads at once
+        List<CompletableFuture<Long>> heavy = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService submitters = Executors.newFixedThreadPool(3);
+        CountDownLatch submitted = new CountDownLatch(3);
+        for (int s = 0; s < 3; s++) {
+            submitters.execute(() -> {
+                TenantContext.setCurrentTenant("heavy");
+                for (int i = 0; i < 100; i++) {
+                    heavy.add(slowTask(compute, running, maxRunning));
+                }
+                submitted.countDown();
+            });
+        }
+        submitted.await();
+
+        // Three small tenants arrive behind 300 queued tasks, about 1.5s of work at 4 threads
+        List<CompletableFuture<Long>> light = new ArrayList<>();
+        for (String tenant : List.of("light-1", "light-2", "light-3")) {
+            TenantContext.setCurrentTenant(tenant);
+            for (int i = 0; i < 3; i++) {
+                light.add(slowTask(compute, running, maxRunning));
+            }
+        }
+
+        List<Long> lightLatencies = join(light);
+        List<Long> heavyLatencies = join(heavy);
+        sampler.shutdownNow();
+        submitters.shutdownNow();
+
+        assertThat(maxRunning.get()).isBetween(1, 4);
+        assertThat(maxLive.get()).isLessThanOrEqualTo(4);
+        assertThat(governor.snapshot().get(COMPUTE_POOL)[1]).isEqualTo(4);
+        // Round-robin serves the small tenants within a few task lengths, not after the backlog
+        assertThat(Collections.max(lightLatencies)).isLessThan(400);
+        assertThat(heavyLatencies).hasSize(300);
+        assertThat(Collections.max(heavyLatencies)).isGreaterThan(1000);
+    }
+
+    @Test
+    void queuedTasksAreServedRoundRobinByTenantWeight() throws Exception {
+        scheduler = scheduler(1, 2000, 500, "acme=2");
+        Executor compute = scheduler.executor(ApiFamily.COMPUTE);
+        CountDownLatch gate = blockWorker(compute);
+
+        List<String> served = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (String[] batch : new String[][]{{"acme", "4"}, {"globex", "4"}, {"initech", "2"}}) {
+            TenantContext.setCurrentTenant(batch[0]);
+            for (int i = 0; i < Integer.parseInt(batch[1]); i++) {
+                tasks.add(CompletableFuture.runAsync(() -> served.add(TenantContext.getCurrentTenant()), compute));
+            }
+        }
+        gate.countDown();
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        // acme gets two turns per round; tenants drop out of the ring once their queue is empty
+        assertThat(served).containsExactly("acme", "acme", "globex", "initech",
+                "acme", "acme", "globex", "initech", "globex", "globex");
+    }
+
+    @Test
+    void fullTenantQueueRunsOnTheCallerWhileOtherTenantsStillQueue() throws Exception {
+        scheduler = scheduler(1, 2000, 3, "");
+        Executor compute = scheduler.executor(ApiFamily.COMPUTE);
+        CountDownLatch gate = blockWorker(compute);
+        String caller = Thread.currentThread().getName();
+
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(6);
+        TenantContext.setCurrentTenant("acme");
+        for (int i = 0; i < 5; i++) {
+            compute.execute(() -> {
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            });
+        }
+        // The two over acme's share ran inline before execute returned
+        assertThat(threads).containsExactly(caller, caller);
+
+        TenantContext.setCurrentTenant("globex");
+        compute.execute(() -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+        assertThat(threads).hasSize(2);
+
+        gate.countDown();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads.subList(2, 6)).allSatisfy(name -> assertThat(name).startsWith(COMPUTE_POOL + "-"));
+        assertThat(meterRegistry.get("xamops.gcp.scheduler.caller.runs").tag("family", "compute").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void nestedSubmissionToTheSameFamilyRunsInlineInsteadOfDeadlocking() throws Exception {
+        scheduler = scheduler(1, 2000, 500, "");
+
+        String[] names = scheduler.supplyAsync(ApiFamily.COMPUTE, () -> new String[]{
+                Thread.currentThread().getName(),
+                scheduler.supplyAsync(ApiFamily.COMPUTE, () -> Thread.currentThread().getName()).join(),
+                scheduler.supplyAsync(ApiFamily.BIGQUERY, () -> Thread.currentThread().getName()).join()
+        }).get(5, TimeUnit.SECONDS);
+
+        assertThat(names[0]).startsWith(COMPUTE_POOL + "-");
+        assertThat(names[1]).isEqualTo(names[0]);
+        assertThat(names[2]).startsWith("GCP-bigquery-");
+    }
+
+    @Test
+    void shutdownStopsTheWorkersAndLaterTasksRunOnTheCaller() {
+        scheduler = scheduler(4, 2000, 500, "");
+        awaitTrue(() -> governor.snapshot().get(COMPUTE_POOL)[0] == 4);
+
+        scheduler.shutdown();
+
+        awaitTrue(() -> governor.snapshot().values().stream().allMatch(pool -> pool[0] == 0));
+        List<String> threads = new ArrayList<>();
+        scheduler.executor(ApiFamily.COMPUTE).execute(() -> threads.add(Thread.currentThread().getName()));
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+    }
+
+    private GcpWorkloadScheduler scheduler(int computeThreads, int queueCapacity, int tenantQueueCapacity,
+                                           String weights) {
+        MockEnvironment environment = new MockEnvironment();
+        for (ApiFamily family : ApiFamily.values()) {
+            environment.setProperty("gcp.scheduler." + family.getKey() + ".threads", "1");
+        }
+        environment.setProperty("gcp.scheduler.compute.threads", String.valueOf(computeThreads));
+        return new GcpWorkloadScheduler(environment, meterRegistry, governor, queueCapacity, tenantQueueCapacity, weights);
+    }
+
+    // Occupies one worker until the returned latch is released
+    private static CountDownLatch blockWorker(Executor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return gate;
+    }
+
+    // A 20 ms call whose future completes with the milliseconds it waited before starting
+    private static CompletableFuture<Long> slowTask(Executor executor, AtomicInteger running, AtomicInteger maxRunning) {
+        long submittedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return waited;
+        }, executor);
+    }
+
+    private static List<Long> join(List<CompletableFuture<Long>> futures) throws Exception {
+        List<Long> values = new ArrayList<>();
+        for (CompletableFuture<Long> future : new ArrayList<>(futures)) {
+            values.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.xammer.cloud.service.pricing;
+
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import com.xammer.cloud.service.AwsPricingService;
+import com.xammer.cloud.service.PricingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.pricing.PricingClient;
+import software.amazon.awssdk.services.pricing.model.GetProductsRequest;
+import software.amazon.awssdk.services.pricing.model.GetProductsResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Price lookups through PricingService and AwsPricingService when the offline catalog answers,
+ * against PricingService's live Pricing API path with a stub client returning a recorded-size
+ * GetProducts document after {@code apiLatencyMs}. Not run by the build; start it from the IDE or with
+ * {@code mvn -pl xamops-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.xammer.cloud.service.pricing.AwsPriceCatalogBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AwsPriceCatalogBenchmark {
+
+    private static final List<String> REGIONS = List.of("us-east-1", "eu-west-1", "ap-south-1", "sa-east-1");
+    private static final String[] FAMILIES = {"t3", "t3a", "m5", "m6i", "m7g", "c5", "c6i", "r5", "r6g", "x2idn"};
+    private static final String[] SIZES = {"nano", "micro", "small", "medium", "large", "xlarge", "2xlarge",
+            "4xlarge", "8xlarge", "12xlarge", "16xlarge", "24xlarge"};
+
+    // 0 isolates parsing the price-list document; 150 is a typical GetProducts round trip
+    @Param({"0", "150"})
+    public int apiLatencyMs;
+
+    private Path snapshotDir;
+    private AwsPriceCatalog catalog;
+    private AwsPriceCatalog emptyCatalog;
+    private PricingService catalogPricing;
+    private PricingService apiPricing;
+    private AwsPricingService awsPricing;
+    private String[] instanceTypes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        snapshotDir = Files.createTempDirectory("price-catalog-benchmark");
+        instanceTypes = Stream.of(FAMILIES)
+                .flatMap(family -> Stream.of(SIZES).map(size -> family + "." + size))
+                .toArray(String[]::new);
+
+        ThreadGovernor threadGovernor = new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50);
+        catalog = catalog(threadGovernor, "catalog", new AwsPriceListImporter() {
+            @Override
+            public int importOfferFile(String service, String region, Map<Long, Double> prices) {
+                if (!EC2.equals(service)) {
+                    return 0;
+                }
+                for (int i = 0; i < instanceTypes.length; i++) {
+                    prices.put(PriceIndex.key(EC2, region, instanceTypes[i], "Linux", "Shared", ON_DEMAND), 0.005 * (i + 1));
+                }
+                return instanceTypes.length;
+            }
+        });
+        catalog.refresh();
+        emptyCatalog = catalog(threadGovernor, "empty", new AwsPriceListImporter());
+
+        PricingClient stub = new StubPricingClient(apiLatencyMs);
+        catalogPricing = new PricingService(stub, null, catalog);
+        apiPricing = new PricingService(stub, null, emptyCatalog);
+        awsPricing = new AwsPricingService(catalog);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        catalog.shutdown();
+        emptyCatalog.shutdown();
+        try (Stream<Path> files = Files.walk(snapshotDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public double pricingServiceFromCatalog() {
+        return catalogPricing.getEc2InstanceMonthlyPrice(nextType(), "eu-west-1");
+    }
+
+    @Benchmark
+    public double awsPricingServiceFromCatalog() {
+        return awsPricing.getHourlyCost(nextType(), "ap-south-1");
+    }
+
+    /**
+     * The path every cache miss took before the catalog: one GetProducts call and a parse of its document.
+     * The services are built without their {@code @Cacheable} proxies, so every call here is a miss.
+     */
+    @Benchmark
+    public double pricingServiceFromApi() {
+        return apiPricing.getEc2InstanceMonthlyPrice(nextType(), "eu-west-1");
+    }
+
+    private String nextType() {
+        return instanceTypes[next++ % instanceTypes.length];
+    }
+
+    private AwsPriceCatalog catalog(ThreadGovernor threadGovernor, String name, AwsPriceListImporter importer)
+            throws IOException {
+        AwsPriceCatalog created = new AwsPriceCatalog(importer, new SimpleMeterRegistry(), threadGovernor);
+        ReflectionTestUtils.setField(created, "enabled", true);
+        ReflectionTestUtils.setField(created, "snapshotDir", Files.createDirectories(snapshotDir.resolve(name)).toString());
+        ReflectionTestUtils.setField(created, "regions", REGIONS);
+        ReflectionTestUtils.setField(created, "importOnStartup", false);
+        return created;
+    }
+
+    // Answers every GetProducts call with one EC2 product carrying its on-demand and reserved terms
+    private static final class StubPricingClient implements PricingClient {
+        private final int latencyMs;
+        private final String document;
+
+        StubPricingClient(int latencyMs) {
+            this.latencyMs = latencyMs;
+            StringBuilder reserved = new StringBuilder();
+            String[] offers = {"4NA7Y494T4", "6QCMYABX3D", "7NE97W5U4E", "BPH4J8HBKS", "CUZHX8X6JH", "HU7G6KETJZ",
+                    "MZU6U2429S", "NQ3QZPMQV9", "R5XV2EPZQZ", "VJWZNREJX2", "Z2E3P23VKM", "38NPMPTW36"};
+            for (int i = 0; i < offers.length; i++) {
+                reserved.append(i > 0 ? "," : "").append("\"ABCD1234EFGH5678.").append(offers[i]).append("\":{")
+                        .append("\"priceDimensions\":{\"ABCD1234EFGH5678.").append(offers[i]).append(".6YS6EN2CT7\":{")
+                        .append("\"unit\":\"Hrs\",\"endRange\":\"Inf\",\"description\":\"Linux/UNIX (Amazon VPC), m5.large reserved instance applied\",")
+                        .append("\"appliesTo\":[],\"rateCode\":\"ABCD1234EFGH5678.").append(offers[i]).append(".6YS6EN2CT7\",")
+                        .append("\"beginRange\":\"0\",\"pricePerUnit\":{\"USD\":\"0.0").append(40 + i).append("000000\"}}},")
+                        .append("\"sku\":\"ABCD1234EFGH5678\",\"effectiveDate\":\"2024-05-01T00:00:00Z\",\"offerTermCode\":\"")
+                        .append(offers[i]).append("\",\"termAttributes\":{\"LeaseContractLength\":\"").append(i % 2 == 0 ? "1yr" : "3yr")
+                        .append("\",\"OfferingClass\":\"standard\",\"PurchaseOption\":\"No Upfront\"}}");
+            }
+            this.document = "{\"product\":{\"productFamily\":\"Compute Instance\",\"attributes\":{"
+                    + "\"enhancedNetworkingSupported\":\"Yes\",\"intelTurboAvailable\":\"Yes\",\"memory\":\"8 GiB\","
+                    + "\"dedicatedEbsThroughput\":\"Up to 4750 Mbps\",\"vcpu\":\"2\",\"classicnetworkingsupport\":\"false\","
+                    + "\"capacitystatus\":\"Used\",\"locationType\":\"AWS Region\",\"storage\":\"EBS only\","
+                    + "\"instanceFamily\":\"General purpose\",\"operatingSystem\":\"Linux\",\"regionCode\":\"eu-west-1\","
+                    + "\"physicalProcessor\":\"Intel Xeon Platinum 8175\",\"clockSpeed\":\"3.1 GHz\",\"ecu\":\"10\","
+                    + "\"networkPerformance\":\"Up to 10 Gigabit\",\"servicename\":\"Amazon Elastic Compute Cloud\","
+                    + "\"gpuMemory\":\"NA\",\"vpcnetworkingsupport\":\"true\",\"instanceType\":\"m5.large\",\"tenancy\":\"Shared\","
+                    + "\"usagetype\":\"EU-BoxUsage:m5.large\",\"normalizationSizeFactor\":\"4\",\"intelAvx2Available\":\"Yes\","
+                    + "\"processorFeatures\":\"Intel AVX; Intel AVX2; Intel AVX512; Intel Turbo\",\"servicecode\":\"AmazonEC2\","
+                    + "\"licenseModel\":\"No License required\",\"currentGeneration\":\"Yes\",\"preInstalledSw\":\"NA\","
+                    + "\"location\":\"EU (Ireland)\",\"processorArchitecture\":\"64-bit\",\"marketoption\":\"OnDemand\","
+                    + "\"operation\":\"RunInstances\",\"availabilityzone\":\"NA\"},\"sku\":\"ABCD1234EFGH5678\"},"
+                    + "\"serviceCode\":\"AmazonEC2\",\"terms\":{\"OnDemand\":{\"ABCD1234EFGH5678.JRTCKXETXF\":{"
+                    + "\"priceDimensions\":{\"ABCD1234EFGH5678.JRTCKXETXF.6YS6EN2CT7\":{\"unit\":\"Hrs\",\"endRange\":\"Inf\","
+                    + "\"description\":\"$0.107 per On Demand Linux m5.large Instance Hour\",\"appliesTo\":[],"
+                    + "\"rateCode\":\"ABCD1234EFGH5678.JRTCKXETXF.6YS6EN2CT7\",\"beginRange\":\"0\","
+                    + "\"pricePerUnit\":{\"USD\":\"0.1070000000\"}}},\"sku\":\"ABCD1234EFGH5678\","
+                    + "\"effectiveDate\":\"2024-05-01T00:00:00Z\",\"offerTermCode\":\"JRTCKXETXF\",\"termAttributes\":{}}},"
+                    + "\"Reserved\":{" + reserved + "}},\"version\":\"20240501000000\",\"publicationDate\":\"2024-05-01T00:00:00Z\"}";
+        }
+
+        @Override
+        public GetProductsResponse getProducts(GetProductsRequest request) {
+            if (latencyMs > 0) {
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return GetProductsResponse.builder().priceList(document).formatVersion("aws_v1").build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AwsPriceCatalogBenchmark.class.getSimpleName()).build()).run();
+    }
+}
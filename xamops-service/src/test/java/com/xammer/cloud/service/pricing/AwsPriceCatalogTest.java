@@ -0,0 +1,123 @@
+package com.xammer.cloud.service.pricing;
+
+import com.xammer.cloud.config.threads.ThreadGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalog refresh, snapshot reload and lookups, with the offer files served from the test fixture.
+ */
+class AwsPriceCatalogTest {
+
+    private static final String REGION = "us-east-1";
+
+    @TempDir
+    Path snapshotDir;
+
+    private final AtomicInteger imports = new AtomicInteger();
+    private ThreadGovernor threadGovernor;
+
+    // Serves the RDS fixture for every region instead of downloading offer files
+    private final AwsPriceListImporter importer = new AwsPriceListImporter() {
+        @Override
+        public int importOfferFile(String service, String region, Map<Long, Double> prices) throws IOException {
+            imports.incrementAndGet();
+            if (!RDS.equals(service)) {
+                return 0;
+            }
+            return importCsv(service, region, AwsPriceListImporterTest.stream(AwsPriceListImporterTest.fixtureLines()), prices);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        threadGovernor = new ThreadGovernor(new MockEnvironment(), new SimpleMeterRegistry(), 50);
+    }
+
+    @Test
+    void missingSnapshotDoesNotImportUnlessAskedTo() {
+        AwsPriceCatalog catalog = catalog(false);
+
+        catalog.init();
+
+        assertThat(catalog.isLoaded()).isFalse();
+        assertThat(imports).hasValue(0);
+        assertThat(catalog.getRdsHourlyPrice(REGION, "db.m5.large", "mysql", false)).isEmpty();
+        catalog.shutdown();
+    }
+
+    @Test
+    void refreshPricesRdsByEngineEditionAndDeployment() {
+        AwsPriceCatalog catalog = catalog(false);
+
+        catalog.refresh();
+
+        assertThat(catalog.isLoaded()).isTrue();
+        assertThat(catalog.getRdsHourlyPrice(REGION, "db.m5.large", "mysql", false)).hasValue(0.171);
+        assertThat(catalog.getRdsHourlyPrice(REGION, "db.m5.large", "mysql", true)).hasValue(0.342);
+        assertThat(catalog.getRdsHourlyPrice(REGION, "db.m5.large", "sqlserver-se", false)).hasValue(0.977);
+        assertThat(catalog.getRdsHourlyPrice(REGION, "db.m5.large", "sqlserver-ee", false)).hasValue(1.952);
+        assertThat(catalog.getRdsHourlyPrice(REGION, "db.m5.large", "sqlserver-web", false)).isEmpty();
+        assertThat(catalog.getRdsHourlyPrice("eu-west-1", "db.m5.large", "mysql", false)).isEmpty();
+        catalog.shutdown();
+    }
+
+    @Test
+    void restartLoadsTheCurrentSnapshotWithoutImporting() {
+        AwsPriceCatalog first = catalog(false);
+        first.refresh();
+        first.shutdown();
+        imports.set(0);
+
+        AwsPriceCatalog restarted = catalog(true);
+        restarted.init();
+
+        assertThat(restarted.isLoaded()).isTrue();
+        assertThat(restarted.getRdsHourlyPrice(REGION, "db.m5.large", "mysql", true)).hasValue(0.342);
+        assertThat(imports).hasValue(0);
+        restarted.shutdown();
+    }
+
+    @Test
+    void importRunsOnAGovernedPoolThatIsReleasedOnShutdown() {
+        AwsPriceCatalog catalog = catalog(false);
+
+        assertThat(threadGovernor.snapshot()).containsKey("aws-price-catalog");
+        assertThat(threadGovernor.getGrantedTotal()).isEqualTo(1);
+
+        catalog.shutdown();
+        awaitTrue(() -> threadGovernor.getGrantedTotal() == 0);
+    }
+
+    private AwsPriceCatalog catalog(boolean importOnStartup) {
+        AwsPriceCatalog catalog = new AwsPriceCatalog(importer, new SimpleMeterRegistry(), threadGovernor);
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        ReflectionTestUtils.setField(catalog, "snapshotDir", snapshotDir.toString());
+        ReflectionTestUtils.setField(catalog, "regions", List.of(REGION));
+        ReflectionTestUtils.setField(catalog, "importOnStartup", importOnStartup);
+        return catalog;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.xammer.cloud.service.pricing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.xammer.cloud.service.pricing.AwsPriceListImporter.ON_DEMAND;
+import static com.xammer.cloud.service.pricing.AwsPriceListImporter.RDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Offer-file import over a trimmed RDS offer CSV, and the snapshot it is written to.
+ */
+class AwsPriceListImporterTest {
+
+    private static final String REGION = "us-east-1";
+    private static final String FIXTURE = "/pricing/rds-offer.csv";
+    // Metadata lines plus the header row
+    private static final int PREAMBLE_LINES = 6;
+
+    @TempDir
+    Path tempDir;
+
+    private final AwsPriceListImporter importer = new AwsPriceListImporter();
+    private Map<Long, Double> prices;
+    private int kept;
+
+    @BeforeEach
+    void importFixture() throws IOException {
+        prices = new HashMap<>();
+        kept = importer.importCsv(RDS, REGION, stream(fixtureLines()), prices);
+    }
+
+    @Test
+    void keepsOnlyRegionalLicenseIncludedInstanceHours() {
+        // MySQL Single-AZ, MySQL Multi-AZ, SQL Server EE, SQL Server SE, MySQL 1yr reserved
+        assertThat(kept).isEqualTo(5);
+        assertThat(prices).hasSize(5);
+    }
+
+    @Test
+    void sqlServerEditionsArePricedSeparately() {
+        assertThat(price("db.m5.large", "SQL Server Standard", "Single-AZ", ON_DEMAND)).hasValue(0.977);
+        assertThat(price("db.m5.large", "SQL Server Enterprise", "Single-AZ", ON_DEMAND)).hasValue(1.952);
+        // Without an edition there is no row to match, rather than whichever edition came first
+        assertThat(price("db.m5.large", "SQL Server", "Single-AZ", ON_DEMAND)).isEmpty();
+    }
+
+    @Test
+    void multiAzIsPricedSeparately() {
+        assertThat(price("db.m5.large", "MySQL", "Single-AZ", ON_DEMAND)).hasValue(0.171);
+        assertThat(price("db.m5.large", "MySQL", "Multi-AZ", ON_DEMAND)).hasValue(0.342);
+    }
+
+    @Test
+    void onlyStandardNoUpfrontHourlyReservationsAreKept() {
+        assertThat(price("db.m5.large", "MySQL", "Single-AZ", "Reserved-1yr")).hasValue(0.112);
+        assertThat(price("db.m5.large", "MySQL", "Single-AZ", "Reserved-3yr")).isEmpty();
+    }
+
+    @Test
+    void unknownAndUnparseableSkusAreMissing() {
+        assertThat(price("db.m5.xlarge", "MySQL", "Single-AZ", ON_DEMAND)).isEmpty();
+        assertThat(price("db.r5.large", "MySQL", "Single-AZ", ON_DEMAND)).isEmpty();
+    }
+
+    @Test
+    void resultDoesNotDependOnRowOrder() throws IOException {
+        List<String> lines = fixtureLines();
+        List<String> rows = new ArrayList<>(lines.subList(PREAMBLE_LINES, lines.size()));
+        Collections.reverse(rows);
+        List<String> reversed = new ArrayList<>(lines.subList(0, PREAMBLE_LINES));
+        reversed.addAll(rows);
+
+        Map<Long, Double> reversedPrices = new HashMap<>();
+        importer.importCsv(RDS, REGION, stream(reversed), reversedPrices);
+
+        assertThat(reversedPrices).isEqualTo(prices);
+    }
+
+    @Test
+    void fileWithoutHeaderIsRejected() {
+        InputStream noHeader = stream(List.of("\"FormatVersion\",\"v1.0\"", "\"OfferCode\",\"AmazonRDS\""));
+
+        assertThatThrownBy(() -> importer.importCsv(RDS, REGION, noHeader, new HashMap<>()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No header row");
+    }
+
+    @Test
+    void quotedFieldsKeepCommasAndDoubledQuotes() {
+        List<String> fields = new ArrayList<>();
+
+        AwsPriceListImporter.parseLine("\"a, b\",\"say \"\"hi\"\"\",,\"\"", fields);
+
+        assertThat(fields).containsExactly("a, b", "say \"hi\"", "", "");
+    }
+
+    @Test
+    void snapshotRoundTripsEveryPrice() throws IOException {
+        Path file = tempDir.resolve("prices.idx");
+        PriceIndex.write(file, prices, 1234L);
+
+        PriceIndex index = PriceIndex.open(file);
+
+        assertThat(index.size()).isEqualTo(prices.size());
+        assertThat(index.getCreatedAt()).isEqualTo(1234L);
+        prices.forEach((key, price) -> assertThat(index.lookup(key)).hasValue(price));
+        assertThat(index.lookup(RDS, REGION, "db.m5.large", "mysql", "multi-az", "ondemand"))
+                .hasValue(0.342); // Key parts are case-insensitive
+        assertThat(index.lookup(RDS, REGION, "db.m5.24xlarge", "MySQL", "Multi-AZ", ON_DEMAND)).isEmpty();
+    }
+
+    @Test
+    void rdsApiEngineNamesMapToPriceListEngineAndEdition() {
+        assertThat(AwsPriceCatalog.toPricingEngine("sqlserver-se")).isEqualTo("SQL Server Standard");
+        assertThat(AwsPriceCatalog.toPricingEngine("sqlserver-ee")).isEqualTo("SQL Server Enterprise");
+        assertThat(AwsPriceCatalog.toPricingEngine("sqlserver-ex")).isEqualTo("SQL Server Express");
+        assertThat(AwsPriceCatalog.toPricingEngine("sqlserver-web")).isEqualTo("SQL Server Web");
+        assertThat(AwsPriceCatalog.toPricingEngine("oracle-se2")).isEqualTo("Oracle Standard Two");
+        assertThat(AwsPriceCatalog.toPricingEngine("oracle-ee-cdb")).isEqualTo("Oracle Enterprise");
+        assertThat(AwsPriceCatalog.toPricingEngine("aurora-postgresql")).isEqualTo("Aurora PostgreSQL");
+        assertThat(AwsPriceCatalog.toPricingEngine("aurora-mysql")).isEqualTo("Aurora MySQL");
+        assertThat(AwsPriceCatalog.toPricingEngine("mysql")).isEqualTo("MySQL");
+        assertThat(AwsPriceCatalog.toPricingEngine(null)).isEmpty();
+    }
+
+    private OptionalDouble price(String instanceType, String engine, String deployment, String term) {
+        Double price = prices.get(PriceIndex.key(RDS, REGION, instanceType, engine, deployment, term));
+        return price == null ? OptionalDouble.empty() : OptionalDouble.of(price);
+    }
+
+    static List<String> fixtureLines() throws IOException {
+        try (InputStream in = AwsPriceListImporterTest.class.getResourceAsStream(FIXTURE)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    static InputStream stream(List<String> lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}